@@ -0,0 +1,269 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.rating.ImmutableRatingSchemeItem;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+import org.finos.waltz.model.report_grid.ImmutableReportGrid;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+/**
+ * Builds the synthetic inputs used by the in-memory benchmarks.
+ * <p>
+ * Every fixture is derived from a {@link Random} seeded with {@link #SEED} so
+ * that two runs of the same benchmark operate on identical data and their
+ * results can be compared directly.
+ */
+public class BenchmarkFixtures {
+
+    public static final long SEED = 1234L;
+
+    public static final int FIXED_COLUMN_COUNT = 10;
+
+    private static final LocalDateTime FIXED_TIMESTAMP = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private static final List<String> WORDS = asList(
+            "payments", "ledger", "trade", "risk", "client", "onboarding", "reference", "data",
+            "settlement", "pricing", "market", "order", "router", "gateway", "reporting", "regulatory",
+            "hub", "engine", "store", "archive", "portal", "service", "batch", "stream");
+
+    private static final List<String> DERIVATION_SCRIPTS = asList(
+            "anyCellsProvided('COL_0', 'COL_1') ? mkResult('yes') : mkResult('no')",
+            "coalesceCells('COL_2', 'COL_3', 'COL_4')",
+            "percentageProvided('COL_0', 'COL_1', 'COL_2', 'COL_3', 'COL_4')",
+            "hasLifecyclePhase('PRODUCTION') ? mkResult('live') : null",
+            "allCellsProvided('COL_5', 'COL_6') ? mkResult('complete') : mkResult('partial')",
+            "cell('DERIVED_0') == null ? null : mkResult('dependent')");
+
+
+    private BenchmarkFixtures() {
+    }
+
+
+    public static Random mkRandom() {
+        return new Random(SEED);
+    }
+
+
+    /**
+     * A single tree where each node is attached to a randomly chosen, earlier node.
+     */
+    public static List<FlatNode<String, Long>> mkFlatNodes(int count) {
+        Random rnd = mkRandom();
+        List<FlatNode<String, Long>> nodes = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            Optional<Long> parentId = i == 0
+                    ? Optional.empty()
+                    : Optional.of((long) rnd.nextInt((int) i));
+            nodes.add(new FlatNode<>(i, parentId, "node-" + i));
+        }
+        return nodes;
+    }
+
+
+    public static List<String> mkNames(int count) {
+        Random rnd = mkRandom();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(String.format(
+                    "%s %s %s %d",
+                    pick(rnd, WORDS),
+                    pick(rnd, WORDS),
+                    pick(rnd, WORDS),
+                    i));
+        }
+        return names;
+    }
+
+
+    public static List<FlowClassificationRuleVantagePoint> mkVantagePoints(int count,
+                                                                         int orgUnitCount,
+                                                                         int dataTypeCount,
+                                                                         int appCount) {
+        Random rnd = mkRandom();
+        List<String> codes = asList("PRIMARY", "SECONDARY", "DISCOURAGED");
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            vantagePoints.add(ImmutableFlowClassificationRuleVantagePoint
+                    .builder()
+                    .vantagePoint(mkRef(EntityKind.ORG_UNIT, rnd.nextInt(orgUnitCount)))
+                    .vantagePointRank(rnd.nextInt(5))
+                    .dataType(mkRef(EntityKind.DATA_TYPE, rnd.nextInt(dataTypeCount)))
+                    .dataTypeRank(rnd.nextInt(4))
+                    .subjectReference(mkRef(EntityKind.APPLICATION, rnd.nextInt(appCount)))
+                    .classificationCode(pick(rnd, codes))
+                    .ruleId(i)
+                    .build());
+        }
+        return vantagePoints;
+    }
+
+
+    public static List<RatingSchemeItem> mkRatingSchemeItems() {
+        List<String> colors = asList("#5BB65D", "#F2C94C", "#DA524B", "#CCCCCC");
+        List<RatingSchemeItem> items = new ArrayList<>();
+        for (int i = 0; i < colors.size(); i++) {
+            items.add(ImmutableRatingSchemeItem
+                    .builder()
+                    .id((long) i)
+                    .ratingSchemeId(1L)
+                    .name("Rating " + i)
+                    .description("Rating " + i)
+                    .rating(String.valueOf((char) ('A' + i)))
+                    .color(colors.get(i))
+                    .position(i)
+                    .build());
+        }
+        return items;
+    }
+
+
+    public static ReportGridDefinition mkReportGridDefinition() {
+        List<ReportGridFixedColumnDefinition> fixedColumns = new ArrayList<>(FIXED_COLUMN_COUNT);
+        for (int i = 0; i < FIXED_COLUMN_COUNT; i++) {
+            fixedColumns.add(ImmutableReportGridFixedColumnDefinition
+                    .builder()
+                    .gridColumnId((long) i)
+                    .columnEntityKind(EntityKind.MEASURABLE)
+                    .columnEntityId((long) i)
+                    .columnName("Column " + i)
+                    .externalId("COL_" + i)
+                    .position(i)
+                    .build());
+        }
+
+        List<ReportGridDerivedColumnDefinition> derivedColumns = new ArrayList<>(DERIVATION_SCRIPTS.size());
+        for (int i = 0; i < DERIVATION_SCRIPTS.size(); i++) {
+            derivedColumns.add(ImmutableReportGridDerivedColumnDefinition
+                    .builder()
+                    .gridColumnId((long) (FIXED_COLUMN_COUNT + i))
+                    .displayName("Derived " + i)
+                    .externalId("DERIVED_" + i)
+                    .position(FIXED_COLUMN_COUNT + i)
+                    .derivationScript(DERIVATION_SCRIPTS.get(i))
+                    .build());
+        }
+
+        return ImmutableReportGridDefinition
+                .builder()
+                .id(1L)
+                .name("Benchmark grid")
+                .externalId("BENCHMARK_GRID")
+                .subjectKind(EntityKind.APPLICATION)
+                .lastUpdatedAt(FIXED_TIMESTAMP)
+                .lastUpdatedBy("benchmark")
+                .fixedColumnDefinitions(fixedColumns)
+                .derivedColumnDefinitions(derivedColumns)
+                .build();
+    }
+
+
+    /**
+     * Roughly 70% of the fixed cells in each row are populated, alternating
+     * between rating and text values.
+     */
+    public static ReportGridInstance mkReportGridInstance(int subjectCount) {
+        Random rnd = mkRandom();
+        List<RatingSchemeItem> ratingSchemeItems = mkRatingSchemeItems();
+        List<LifecyclePhase> phases = asList(LifecyclePhase.values());
+
+        Set<ReportSubject> subjects = new HashSet<>(subjectCount);
+        Set<ReportGridCell> cells = new HashSet<>();
+
+        for (long subjectId = 0; subjectId < subjectCount; subjectId++) {
+            subjects.add(ImmutableReportSubject
+                    .builder()
+                    .entityReference(mkRef(
+                            EntityKind.APPLICATION,
+                            subjectId,
+                            "App " + subjectId,
+                            null,
+                            "APP-" + subjectId))
+                    .lifecyclePhase(pick(rnd, phases))
+                    .build());
+
+            for (long colId = 0; colId < FIXED_COLUMN_COUNT; colId++) {
+                if (rnd.nextInt(10) >= 7) {
+                    continue;
+                }
+                ImmutableReportGridCell.Builder cell = ImmutableReportGridCell
+                        .builder()
+                        .subjectId(subjectId)
+                        .columnDefinitionId(colId);
+
+                if (colId % 2 == 0) {
+                    cell.addRatingIdValues(pick(rnd, ratingSchemeItems).id().get());
+                } else {
+                    cell.textValue(pick(rnd, WORDS));
+                }
+                cells.add(cell.build());
+            }
+        }
+
+        return ImmutableReportGridInstance
+                .builder()
+                .subjects(subjects)
+                .ratingSchemeItems(ratingSchemeItems)
+                .cellData(cells)
+                .build();
+    }
+
+
+    public static ReportGrid mkReportGrid(int subjectCount) {
+        return ImmutableReportGrid
+                .builder()
+                .definition(mkReportGridDefinition())
+                .instance(mkReportGridInstance(subjectCount))
+                .build();
+    }
+
+
+    public static <T> T pick(Random rnd, List<T> xs) {
+        return xs.get(rnd.nextInt(xs.size()));
+    }
+
+}
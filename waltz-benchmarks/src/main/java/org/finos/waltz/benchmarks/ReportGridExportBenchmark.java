@@ -0,0 +1,177 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.finos.waltz.common.JacksonUtilities;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.finos.waltz.web.endpoints.extracts.CSVSerializer;
+import org.finos.waltz.web.endpoints.extracts.ColumnCommentary;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicCommaSeperatedValueFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicJSONFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.FormatterUtils;
+import org.jooq.lambda.tuple.Tuple2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Serialisation of a large report grid: the JSON payload returned to the UI
+ * and the CSV / JSON extract formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReportGridExportBenchmark {
+
+    @Param({"1000", "10000"})
+    public int subjectCount;
+
+    private final ObjectMapper mapper = JacksonUtilities.getJsonMapper();
+    private final FormatterUtils formatterUtils = new FormatterUtils();
+    private final DynamicCommaSeperatedValueFormatter csvFormatter = new DynamicCommaSeperatedValueFormatter(formatterUtils);
+    private final DynamicJSONFormatter jsonFormatter = new DynamicJSONFormatter(formatterUtils);
+
+    private ReportGrid grid;
+    private List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions;
+    private List<Tuple2<ReportSubject, ArrayList<Object>>> rows;
+
+
+    @Setup
+    public void setup() {
+        grid = BenchmarkFixtures.mkReportGrid(subjectCount);
+
+        columnDefinitions = grid
+                .definition()
+                .fixedColumnDefinitions()
+                .stream()
+                .map(cd -> tuple(cd, ColumnCommentary.NO_COMMENTARY))
+                .collect(toList());
+
+        rows = mkRows(grid);
+    }
+
+
+    @Benchmark
+    public byte[] jackson() throws Exception {
+        return mapper.writeValueAsBytes(grid);
+    }
+
+
+    @Benchmark
+    public byte[] csvSerializer() throws Exception {
+        List<String> headers = formatterUtils.mkHeaderStrings(
+                columnDefinitions,
+                grid.definition().derivedColumnDefinitions());
+
+        CSVSerializer serializer = csvWriter -> {
+            csvWriter.write(headers);
+            for (Tuple2<ReportSubject, ArrayList<Object>> row : rows) {
+                csvWriter.write(row.v2);
+            }
+        };
+
+        StringWriter writer = new StringWriter();
+        CsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.EXCEL_PREFERENCE);
+        serializer.accept(csvWriter);
+        csvWriter.flush();
+        return writer.toString().getBytes();
+    }
+
+
+    @Benchmark
+    public byte[] csvExtract() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        csvFormatter.format("benchmark", grid, columnDefinitions, rows.stream(), baos);
+        return baos.toByteArray();
+    }
+
+
+    @Benchmark
+    public byte[] jsonExtract() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        jsonFormatter.format("benchmark", grid, columnDefinitions, rows.stream(), baos);
+        return baos.toByteArray();
+    }
+
+
+    /**
+     * Lays the cell data out as the extract endpoints do, one value per
+     * fixed and derived column, in column order.
+     */
+    private static List<Tuple2<ReportSubject, ArrayList<Object>>> mkRows(ReportGrid grid) {
+        Map<Long, Collection<ReportGridCell>> cellsBySubject = groupBy(
+                grid.instance().cellData(),
+                ReportGridCell::subjectId);
+
+        int fixedColumnCount = grid.definition().fixedColumnDefinitions().size();
+        int columnCount = fixedColumnCount + grid.definition().derivedColumnDefinitions().size();
+
+        return grid
+                .instance()
+                .subjects()
+                .stream()
+                .sorted(Comparator.comparingLong(s -> s.entityReference().id()))
+                .map(s -> {
+                    ArrayList<Object> values = new ArrayList<>(columnCount);
+                    for (int i = 0; i < columnCount; i++) {
+                        values.add(null);
+                    }
+                    cellsBySubject
+                            .getOrDefault(s.entityReference().id(), new ArrayList<>())
+                            .forEach(c -> values.set(
+                                    c.columnDefinitionId().intValue(),
+                                    c.textValue() != null
+                                            ? c.textValue()
+                                            : c.ratingIdValues().toString()));
+                    return tuple(s, values);
+                })
+                .collect(toList());
+    }
+
+}
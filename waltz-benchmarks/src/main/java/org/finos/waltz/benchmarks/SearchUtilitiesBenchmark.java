@@ -0,0 +1,81 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.finos.waltz.data.SearchUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Query tokenising and the relevancy ordering applied to search results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchUtilitiesBenchmark {
+
+    private static final String QUERY = "payments   ledger gateway ab cd 'risk'";
+    private static final String TERM = "ledger";
+
+    @Param({"100", "1000", "10000"})
+    public int resultCount;
+
+    private List<String> names;
+    private Comparator<String> comparator;
+
+
+    @Setup
+    public void setup() {
+        names = BenchmarkFixtures.mkNames(resultCount);
+        comparator = SearchUtilities.mkRelevancyComparator(Function.identity(), TERM);
+    }
+
+
+    @Benchmark
+    public List<String> mkTerms() {
+        return SearchUtilities.mkTerms(QUERY);
+    }
+
+
+    @Benchmark
+    public List<String> rankByRelevancy() {
+        List<String> results = new ArrayList<>(names);
+        results.sort(comparator);
+        return results;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.StreamingXlsReader;
+import org.finos.waltz.jobs.XlsUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.jobs.XlsUtilities.strVal;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Reading a large bulk import spreadsheet (external id, rating, description per
+ * row, as used by the assessment rating importer) with the streaming reader and
+ * with a fully materialised <code>XSSFWorkbook</code>.
+ *
+ * The streaming variant is forked with a small heap to show that memory does not
+ * grow with the sheet size, the workbook variant needs several gigabytes at the
+ * larger sizes.  Run with <code>-prof gc</code> to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class XlsImportBenchmark {
+
+    @Param({"100000", "500000"})
+    public int rowCount;
+
+    private File file;
+
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("waltz-xls-benchmark-", ".xlsx").toFile();
+        writeWorkbook(file, rowCount);
+    }
+
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+    public void streamingReader(Blackhole bh) throws IOException {
+        try (StreamingXlsReader reader = StreamingXlsReader.open(file)) {
+            reader.streamRows(0)
+                    .skip(1)
+                    .map(r -> tuple(
+                            strVal(r, Columns.A),
+                            strVal(r, Columns.B),
+                            strVal(r, Columns.C)))
+                    .forEach(bh::consume);
+        }
+    }
+
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+    public void xssfWorkbook(Blackhole bh) throws IOException {
+        try (InputStream is = new FileInputStream(file);
+             Workbook workbook = new XSSFWorkbook(is)) {
+            XlsUtilities
+                    .streamRows(workbook.getSheetAt(0))
+                    .skip(1)
+                    .map(r -> tuple(
+                            strVal(r, Columns.A),
+                            strVal(r, Columns.B),
+                            strVal(r, Columns.C)))
+                    .forEach(bh::consume);
+        }
+    }
+
+
+    /**
+     * Writes the sheet with a streaming workbook (so the fixture itself does not
+     * need a large heap) using a shared strings table, as Excel does.
+     */
+    private static void writeWorkbook(File file, int rowCount) throws IOException {
+        Random random = BenchmarkFixtures.mkRandom();
+        List<String> names = BenchmarkFixtures.mkNames(1000);
+        String[] ratings = {"R", "A", "G", "Red", "Amber", "Green"};
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, 1000, true, true);
+        try (OutputStream os = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("ratings");
+
+            Row header = sheet.createRow(0);
+            header.createCell(Columns.A).setCellValue("External Id");
+            header.createCell(Columns.B).setCellValue("Rating");
+            header.createCell(Columns.C).setCellValue("Description");
+
+            for (int i = 1; i <= rowCount; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(Columns.A).setCellValue(String.format("APP-%07d", i));
+                row.createCell(Columns.B).setCellValue(ratings[random.nextInt(ratings.length)]);
+                row.createCell(Columns.C).setCellValue(names.get(random.nextInt(names.size())));
+            }
+
+            workbook.write(os);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+}
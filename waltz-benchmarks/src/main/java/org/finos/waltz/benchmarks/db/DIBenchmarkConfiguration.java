@@ -0,0 +1,100 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.finos.waltz.common.ExcludeFromIntegrationTesting;
+import org.finos.waltz.data.DBExecutorPool;
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.RenderNameCase;
+import org.jooq.conf.RenderQuotedNames;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.sql.DataSource;
+
+/**
+ * Mirrors the in-memory integration test configuration (H2 + liquibase) but
+ * with statement logging switched off so it does not dominate the timings.
+ */
+@Configuration
+@ComponentScan(basePackages = {
+        "org.finos.waltz.data",
+        "org.finos.waltz.service"
+
+}, excludeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = ExcludeFromIntegrationTesting.class))
+@PropertySource("classpath:benchmark.properties")
+public class DIBenchmarkConfiguration {
+
+    @Bean
+    public DBExecutorPoolInterface dbExecutorPool() {
+        return new DBExecutorPool(2, 4);
+    }
+
+
+    @Bean
+    public DataSource dataSource() {
+        HikariConfig dsConfig = new HikariConfig();
+        dsConfig.setJdbcUrl("jdbc:h2:mem:waltz_benchmark;DB_CLOSE_DELAY=-1;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DATABASE_TO_UPPER=TRUE");
+        dsConfig.setUsername("sa");
+        dsConfig.setPassword("sa");
+        dsConfig.setMaximumPoolSize(5);
+        dsConfig.setMinimumIdle(2);
+        return new HikariDataSource(dsConfig);
+    }
+
+
+    @Bean
+    @Autowired
+    public DSLContext dsl(DataSource dataSource) {
+        Settings dslSettings = new Settings()
+                .withRenderQuotedNames(RenderQuotedNames.EXPLICIT_DEFAULT_QUOTED)
+                .withRenderNameCase(RenderNameCase.UPPER)
+                .withExecuteLogging(false);
+
+        org.jooq.Configuration configuration = new DefaultConfiguration()
+                .set(dataSource)
+                .set(dslSettings)
+                .set(SQLDialect.H2);
+
+        return DSL.using(configuration);
+    }
+
+
+    @Bean
+    public SpringLiquibase springLiquibase(DataSource dataSource) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDropFirst(true);
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("/liquibase/db.changelog-master.xml");
+        return liquibase;
+    }
+
+}
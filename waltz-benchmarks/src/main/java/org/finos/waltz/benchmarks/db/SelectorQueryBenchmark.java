@@ -0,0 +1,146 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.benchmarks.db;
+
+import org.finos.waltz.common.RandomUtilities;
+import org.finos.waltz.jobs.generators.AppGenerator;
+import org.finos.waltz.jobs.generators.DataTypeGenerator;
+import org.finos.waltz.jobs.generators.FlowClassificationRuleGenerator;
+import org.finos.waltz.jobs.generators.LogicalFlowDecorationGenerator;
+import org.finos.waltz.jobs.generators.LogicalFlowGenerator;
+import org.finos.waltz.jobs.generators.MeasurableGenerator;
+import org.finos.waltz.jobs.generators.MeasurableRatingGenerator;
+import org.finos.waltz.jobs.generators.OrgUnitGenerator;
+import org.finos.waltz.jobs.generators.SampleDataGenerator;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.measurable_rating.MeasurableRating;
+import org.finos.waltz.service.application.ApplicationService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
+import org.jooq.DSLContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.benchmarks.BenchmarkFixtures.SEED;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
+
+/**
+ * Selector driven queries (the equivalent of the ApplicationIdSelector and
+ * LogicalFlow harnesses) against an H2 database populated by the sample
+ * data generators.
+ * <p>
+ * The shared random source is re-seeded before generation so each run
+ * queries the same data set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SelectorQueryBenchmark {
+
+    private static final List<SampleDataGenerator> GENERATORS = asList(
+            new DataTypeGenerator(),
+            new OrgUnitGenerator(),
+            new AppGenerator(),
+            new MeasurableGenerator("CAPABILITY"),
+            new MeasurableRatingGenerator(),
+            new FlowClassificationRuleGenerator(),
+            new LogicalFlowGenerator(),
+            new LogicalFlowDecorationGenerator());
+
+    private AnnotationConfigApplicationContext ctx;
+    private ApplicationService applicationService;
+    private LogicalFlowService logicalFlowService;
+    private MeasurableRatingService measurableRatingService;
+    private IdSelectionOptions rootOrgUnitOptions;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomUtilities.setSeed(SEED);
+
+        ctx = new AnnotationConfigApplicationContext(DIBenchmarkConfiguration.class);
+        GENERATORS.forEach(g -> g.create(ctx));
+
+        applicationService = ctx.getBean(ApplicationService.class);
+        logicalFlowService = ctx.getBean(LogicalFlowService.class);
+        measurableRatingService = ctx.getBean(MeasurableRatingService.class);
+
+        Long rootOrgUnitId = ctx
+                .getBean(DSLContext.class)
+                .select(ORGANISATIONAL_UNIT.ID)
+                .from(ORGANISATIONAL_UNIT)
+                .where(ORGANISATIONAL_UNIT.PARENT_ID.isNull())
+                .orderBy(ORGANISATIONAL_UNIT.ID)
+                .limit(1)
+                .fetchOne(ORGANISATIONAL_UNIT.ID);
+
+        rootOrgUnitOptions = IdSelectionOptions.mkOpts(
+                mkRef(EntityKind.ORG_UNIT, rootOrgUnitId),
+                HierarchyQueryScope.CHILDREN);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+
+    @Benchmark
+    public List<Application> applicationsByOrgUnit() {
+        return applicationService.findByAppIdSelector(rootOrgUnitOptions);
+    }
+
+
+    @Benchmark
+    public List<LogicalFlow> logicalFlowsByOrgUnit() {
+        return logicalFlowService.findBySelector(rootOrgUnitOptions);
+    }
+
+
+    @Benchmark
+    public Collection<MeasurableRating> measurableRatingsByOrgUnit() {
+        return measurableRatingService.findByAppIdSelector(rootOrgUnitOptions);
+    }
+
+}
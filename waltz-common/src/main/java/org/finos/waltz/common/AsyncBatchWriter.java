@@ -0,0 +1,387 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Write-behind buffer which accepts items from many threads and hands them,
+ * in submission order, to a single writer thread in batches.
+ * <p>
+ * A batch is written once <code>maxBatchSize</code> items have been gathered or
+ * <code>flushIntervalMillis</code> has elapsed since the first item of the batch
+ * was taken, whichever comes first.
+ * <p>
+ * When the buffer is full the {@link OverflowPolicy} decides whether new items
+ * are dropped (suitable for best-effort data such as access logs) or whether the
+ * submitting thread blocks until space is available (suitable for audit data).
+ * <p>
+ * If a batch fails to write, each item is retried individually so that a single
+ * bad row does not discard its neighbours.
+ *
+ * @param <T> type of item being written
+ */
+public class AsyncBatchWriter<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncBatchWriter.class);
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<List<T>> batchWriter;
+    private final Thread writerThread;
+    private final Object drainMonitor = new Object();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+    private final AtomicLong totalFlushMillis = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean flushRequested = false;
+
+
+    public AsyncBatchWriter(String name,
+                            int capacity,
+                            int maxBatchSize,
+                            long flushIntervalMillis,
+                            OverflowPolicy overflowPolicy,
+                            Consumer<List<T>> batchWriter) {
+        checkNotNull(name, "name cannot be null");
+        checkTrue(capacity > 0, "capacity must be positive");
+        checkTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        checkTrue(flushIntervalMillis > 0, "flushIntervalMillis must be positive");
+        checkNotNull(overflowPolicy, "overflowPolicy cannot be null");
+        checkNotNull(batchWriter, "batchWriter cannot be null");
+
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.batchWriter = batchWriter;
+
+        this.writerThread = new Thread(this::run, "Async Batch Writer: " + name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+
+    /**
+     * Queues an item for writing.  Once the writer has been closed items are
+     * written synchronously on the calling thread.
+     *
+     * @param item  the item to write
+     * @return true if the item was accepted, false if it was dropped
+     */
+    public boolean submit(T item) {
+        checkNotNull(item, "item cannot be null");
+
+        if (!running) {
+            submittedCount.increment();
+            write(singletonList(item));
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case DROP:
+                if (queue.offer(item)) {
+                    submittedCount.increment();
+                    drainIfClosed();
+                    return true;
+                } else {
+                    droppedCount.increment();
+                    return false;
+                }
+            case BLOCK:
+                try {
+                    queue.put(item);
+                    submittedCount.increment();
+                    drainIfClosed();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("[{}] Interrupted whilst waiting for space, writing synchronously", name);
+                    submittedCount.increment();
+                    write(singletonList(item));
+                    return true;
+                }
+            default:
+                throw new IllegalStateException("Unsupported overflow policy: " + overflowPolicy);
+        }
+    }
+
+
+    /**
+     * Queues all the given items, see {@link #submit(Object)}.
+     *
+     * @param items  the items to write
+     * @return the number of items accepted
+     */
+    public int submitAll(Collection<T> items) {
+        checkNotNull(items, "items cannot be null");
+        int accepted = 0;
+        for (T item : items) {
+            if (submit(item)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+
+    /**
+     * Blocks until every item submitted before this call has been written
+     * (or failed), or the timeout elapses.
+     *
+     * @return true if all pending items were written within the timeout
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        long target = submittedCount.sum();
+
+        flushRequested = true;
+        try {
+            synchronized (drainMonitor) {
+                while (completedCount() < target) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    drainMonitor.wait(remaining);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushRequested = false;
+        }
+    }
+
+
+    /**
+     * Stops accepting queued items, writes whatever is pending and waits
+     * (briefly) for the writer thread to finish.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        LOG.info("[{}] Closing, {} items pending", name, queue.size());
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainPending();
+    }
+
+
+    // --- statistics
+
+    public String getName() {
+        return name;
+    }
+
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis.get();
+    }
+
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis.get();
+    }
+
+
+    public long getAverageFlushMillis() {
+        long batches = batchCount.sum();
+        return batches == 0
+                ? 0
+                : totalFlushMillis.get() / batches;
+    }
+
+
+    // --- helpers
+
+    private long completedCount() {
+        return writtenCount.sum() + failedCount.sum();
+    }
+
+
+    private void run() {
+        while (running) {
+            List<T> batch = new ArrayList<>(maxBatchSize);
+            try {
+                T first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                gather(batch);
+            } catch (InterruptedException e) {
+                LOG.warn("[{}] Writer thread interrupted, writing {} gathered items", name, batch.size());
+            }
+
+            try {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("[{}] Unexpected error in writer thread", name, e);
+            }
+        }
+    }
+
+
+    /**
+     * Covers the window where an item is queued just as the writer is closed,
+     * such items would otherwise never be picked up.
+     */
+    private void drainIfClosed() {
+        if (!running) {
+            drainPending();
+        }
+    }
+
+
+    private synchronized void drainPending() {
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+
+    private void gather(List<T> batch) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + flushIntervalMillis;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.currentTimeMillis();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || flushRequested) {
+                return;
+            }
+            T next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+
+    private void write(List<T> batch) {
+        long start = System.currentTimeMillis();
+        try {
+            batchWriter.accept(batch);
+            writtenCount.add(batch.size());
+        } catch (RuntimeException e) {
+            LOG.warn("[{}] Failed to write batch of {} items, retrying individually: {}", name, batch.size(), e.getMessage());
+            writeIndividually(batch);
+        } finally {
+            recordFlush(System.currentTimeMillis() - start);
+            synchronized (drainMonitor) {
+                drainMonitor.notifyAll();
+            }
+        }
+    }
+
+
+    private void writeIndividually(List<T> batch) {
+        for (T item : batch) {
+            try {
+                batchWriter.accept(singletonList(item));
+                writtenCount.increment();
+            } catch (RuntimeException e) {
+                failedCount.increment();
+                LOG.error("[{}] Failed to write item: {}", name, item, e);
+            }
+        }
+    }
+
+
+    private void recordFlush(long duration) {
+        batchCount.increment();
+        lastFlushMillis.set(duration);
+        totalFlushMillis.addAndGet(duration);
+        maxFlushMillis.accumulateAndGet(duration, Math::max);
+    }
+
+}
@@ -18,6 +18,9 @@
 
 package org.finos.waltz.common;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 import static java.security.MessageDigest.getInstance;
@@ -25,8 +28,83 @@ import static java.util.Base64.getEncoder;
 
 public class DigestUtilities {
 
+    private static final byte VALUE_SEPARATOR = 0x1F;
+    private static final byte ROW_SEPARATOR = 0x1E;
+
     public static String digest(byte[] bytes) throws NoSuchAlgorithmException {
         return getEncoder().encodeToString(getInstance("SHA").digest(bytes));
     }
 
+
+    /**
+     * Digests a description of the inputs to a calculation so it can be stored
+     * and compared cheaply on the next run.
+     */
+    public static String mkChecksum(String inputs) {
+        try {
+            return digest(inputs.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot create checksum", e);
+        }
+    }
+
+
+    /**
+     * Formats a number for use in checksum inputs.  Equal values give the same text
+     * whatever their scale (<code>1.50</code> and <code>1.5</code>), null gives <code>-</code>.
+     */
+    public static String toChecksumPart(BigDecimal value) {
+        return value == null
+                ? "-"
+                : value.stripTrailingZeros().toPlainString();
+    }
+
+
+    /**
+     * Starts a checksum over a sequence of rows, see {@link #updateRowDigest(MessageDigest, Object...)}.
+     * Unlike sums or counts of the inputs, rearranging values between rows gives a
+     * different checksum.
+     */
+    public static MessageDigest mkRowDigest() {
+        try {
+            return getInstance("SHA");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot create checksum", e);
+        }
+    }
+
+
+    /**
+     * Adds a row of values to the digest.  Rows must be added in a fixed order for the
+     * checksum to be repeatable.  Numbers are formatted with {@link #toChecksumPart(BigDecimal)}.
+     */
+    public static void updateRowDigest(MessageDigest digest, Object... values) {
+        for (Object value : values) {
+            digest.update(toText(value).getBytes(StandardCharsets.UTF_8));
+            digest.update(VALUE_SEPARATOR);
+        }
+        digest.update(ROW_SEPARATOR);
+    }
+
+
+    /**
+     * Completes the digest, returning a checksum in the same form as {@link #mkChecksum(String)}
+     */
+    public static String toChecksum(MessageDigest digest) {
+        return getEncoder().encodeToString(digest.digest());
+    }
+
+
+    // --- helpers
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return "-";
+        } else if (value instanceof BigDecimal) {
+            return toChecksumPart((BigDecimal) value);
+        } else {
+            return value.toString();
+        }
+    }
+
 }
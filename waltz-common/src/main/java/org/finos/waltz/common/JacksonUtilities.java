@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JSR310Module;
@@ -13,11 +15,14 @@ public class JacksonUtilities {
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
     private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
 
+    // binary encodings of the same model as the json mapper, see getSmileMapper / getCborMapper
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
     static {
-        JSON_MAPPER.registerModule(new JSR310Module()); // DateTime etc
-        JSON_MAPPER.registerModule(new Jdk8Module()); // Optional etc
-        // Force timestamps to be sent as ISO-8601 formatted strings
-        JSON_MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        configureApiMapper(JSON_MAPPER);
+        configureApiMapper(SMILE_MAPPER);
+        configureApiMapper(CBOR_MAPPER);
 
         YAML_MAPPER.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         YAML_MAPPER.enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
@@ -33,4 +38,26 @@ public class JacksonUtilities {
     public static ObjectMapper getYamlMapper() {
         return YAML_MAPPER;
     }
+
+    /**
+     * Jackson Smile (binary json), configured as per the json mapper
+     */
+    public static ObjectMapper getSmileMapper() {
+        return SMILE_MAPPER;
+    }
+
+    /**
+     * CBOR (RFC 8949), configured as per the json mapper
+     */
+    public static ObjectMapper getCborMapper() {
+        return CBOR_MAPPER;
+    }
+
+
+    private static void configureApiMapper(ObjectMapper mapper) {
+        mapper.registerModule(new JSR310Module()); // DateTime etc
+        mapper.registerModule(new Jdk8Module()); // Optional etc
+        // Force timestamps to be sent as ISO-8601 formatted strings
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    }
 }
@@ -39,6 +39,17 @@ public class RandomUtilities {
     }
 
 
+    /**
+     * Re-seeds the shared random source so that sample data generators
+     * and benchmarks can produce the same data set on every run.
+     *
+     * @param seed  seed for the shared random source
+     */
+    public static void setSeed(long seed) {
+        rnd.setSeed(seed);
+    }
+
+
     public static int randomIntBetween(int lower, int upper) {
         return lower + rnd.nextInt(upper - lower);
     }
@@ -74,7 +85,7 @@ public class RandomUtilities {
         }
 
         List<T> shuffled = new ArrayList<>(choices);
-        Collections.shuffle(shuffled);
+        Collections.shuffle(shuffled, rnd);
 
         if (howMany > shuffled.size()) {
             return shuffled;
@@ -95,7 +106,7 @@ public class RandomUtilities {
         }
 
         List<T> shuffled = new ArrayList<>(choices);
-        Collections.shuffle(shuffled);
+        Collections.shuffle(shuffled, rnd);
 
         if (proportion >= 1) {
             return shuffled;
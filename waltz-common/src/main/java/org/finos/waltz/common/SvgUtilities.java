@@ -18,83 +18,318 @@
 
 package org.finos.waltz.common;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
-import static org.finos.waltz.common.XmlUtilities.*;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
+import static org.finos.waltz.common.XmlUtilities.createNonValidatingXmlInputFactory;
 
+/**
+ * Rewrites svg diagrams as they are streamed from a StAX reader to a writer, rather than
+ * building a DOM, so cost is a single pass over the document.  Comments, processing
+ * instructions and text are copied as is, the doctype is dropped.
+ */
 public class SvgUtilities {
 
-    public static String convertVisioSvg(String key, String svgStr) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.getNodeName().contains("custProps"))
-                        .forEach(c -> stream(c.getChildNodes())
-                                .filter(cp -> cp.getNodeName().contains("cp"))
-                                .map(cp -> (Element) cp)
-                                .filter(cp -> key.equals(cp.getAttribute("v:lbl")))
-                                .map(cp -> cp.getAttribute("v:val"))
-                                .map(v -> v.replaceAll("^.*\\((.*)\\)$", "$1"))
-                                .forEach(v -> ((Element) n).setAttribute("data-"+key, v))
-                        )
-                );
-
-        return printDocument(svg, false); // do NOT toPrettyString print visio
+    private static final XMLInputFactory INPUT_FACTORY = createNonValidatingXmlInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final Pattern VISIO_VALUE_PATTERN = Pattern.compile("^.*\\((.*)\\)$");
+
+
+    /**
+     * Visio records shape properties as <code>v:custProps/v:cp</code> children of the shape.  The
+     * value (<code>v:val</code>) of the property labelled (<code>v:lbl</code>) with the given
+     * key is copied onto the shape as a <code>data-{key}</code> attribute.
+     *
+     * The properties follow the shape's start tag, so they are gathered by a first (read only)
+     * pass and added to the shapes by a second.
+     */
+    public static String convertVisioSvg(String key, String svgStr) throws XMLStreamException {
+        String dataAttr = "data-" + key;
+        Map<Integer, String> valuesByElementIdx = findVisioPropertyValues(key, svgStr);
+
+        StringWriter result = new StringWriter(svgStr.length());
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(result);
+
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            int elementIdx = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                WriteAction action = event == START_ELEMENT
+                        ? copyStartElement(reader, dataAttr, valuesByElementIdx.get(elementIdx++))
+                        : copyEvent(reader, event);
+                action.write(writer);
+            }
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        return result.toString();
     }
 
 
+    /**
+     * Wraps each element carrying a <code>data-{keyProp}</code> attribute in a link, if the
+     * <code>keyToUrl</code> function gives a url for the attribute value.  The linked element
+     * is moved to the end of its parent so it is drawn above (and so clickable over) its siblings.
+     *
+     * Only linked elements are held in memory (until their parent ends), everything else is
+     * written as it is read.
+     */
     public static String addWaltzEntityLinks(String svgStr,
                                              String keyProp,
-                                             Function<String, Optional<String>> keyToUrl) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.hasAttributes() && c.getAttributes().getNamedItem("data-" + keyProp) != null)
-                        .forEach(c -> {
-                            String keyVal = c.getAttributes()
-                                                .getNamedItem("data-" + keyProp)
-                                                .getNodeValue();
-
-                            keyToUrl.apply(keyVal)
-                                    .ifPresent(url -> {
-                                        Element linkNode = svg.createElement("a");
-                                        linkNode.setAttribute("href", url);
-                                        linkNode.setAttribute("target", "_blank");
-                                        c.getParentNode().appendChild(linkNode);
-                                        linkNode.appendChild(c);
-                                    });
-                        })
-                );
-
-        return printDocument(svg, false);
+                                             Function<String, Optional<String>> keyToUrl) throws XMLStreamException {
+        String dataAttr = "data-" + keyProp;
+
+        StringWriter result = new StringWriter(svgStr.length() + 1024);
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(result);
+
+        Deque<Frame> openElements = new ArrayDeque<>();
+
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            while (reader.hasNext()) {
+                int event = reader.next();
+                Frame parent = openElements.peek();
+                List<WriteAction> sink = parent == null ? null : parent.sink;
+
+                if (event == START_ELEMENT) {
+                    WriteAction startElement = copyStartElement(reader, null, null);
+                    String keyVal = parent == null  // the root element is never linked
+                            ? null
+                            : findAttributeValue(reader, dataAttr);
+                    Optional<String> url = keyVal == null
+                            ? Optional.empty()
+                            : keyToUrl.apply(keyVal);
+
+                    if (url.isPresent()) {
+                        List<WriteAction> moved = new ArrayList<>();
+                        moved.add(w -> {
+                            w.writeStartElement("a");
+                            w.writeAttribute("href", url.get());
+                            w.writeAttribute("target", "_blank");
+                        });
+                        moved.add(startElement);
+                        openElements.push(new Frame(moved, true));
+                    } else {
+                        emit(writer, sink, startElement);
+                        openElements.push(new Frame(sink, false));
+                    }
+                } else if (event == END_ELEMENT) {
+                    Frame frame = openElements.pop();
+                    for (List<WriteAction> movedChild : frame.movedChildren) {
+                        for (WriteAction action : movedChild) {
+                            emit(writer, frame.sink, action);
+                        }
+                    }
+                    emit(writer, frame.sink, XMLStreamWriter::writeEndElement);
+                    if (frame.linked) {
+                        frame.sink.add(XMLStreamWriter::writeEndElement);
+                        openElements.peek().movedChildren.add(frame.sink);
+                    }
+                } else {
+                    emit(writer, sink, copyEvent(reader, event));
+                }
+            }
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        return result.toString();
+    }
+
+
+    // --- helpers
+
+    private static Map<Integer, String> findVisioPropertyValues(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = new HashMap<>();
+
+        List<String> openNames = new ArrayList<>();
+        List<Integer> openIdxs = new ArrayList<>();
+        int elementIdx = 0;
+
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == START_ELEMENT) {
+                    String name = qualifiedName(reader.getPrefix(), reader.getLocalName());
+                    int depth = openNames.size();
+
+                    boolean isProperty = depth >= 2
+                            && name.contains("cp")
+                            && openNames.get(depth - 1).contains("custProps")
+                            && key.equals(findAttributeValue(reader, "v:lbl"));
+
+                    if (isProperty) {
+                        String value = Optional
+                                .ofNullable(findAttributeValue(reader, "v:val"))
+                                .orElse("");
+                        valuesByElementIdx.put(
+                                openIdxs.get(depth - 2),
+                                VISIO_VALUE_PATTERN.matcher(value).replaceAll("$1"));
+                    }
+
+                    openNames.add(name);
+                    openIdxs.add(elementIdx++);
+                } else if (event == END_ELEMENT) {
+                    openNames.remove(openNames.size() - 1);
+                    openIdxs.remove(openIdxs.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return valuesByElementIdx;
+    }
+
+
+    private static void emit(XMLStreamWriter writer,
+                             List<WriteAction> sink,
+                             WriteAction action) throws XMLStreamException {
+        if (sink == null) {
+            action.write(writer);
+        } else {
+            sink.add(action);
+        }
+    }
+
+
+    /**
+     * Captures the current start element (the reader moves on before buffered actions are
+     * written), optionally setting an extra attribute.
+     */
+    private static WriteAction copyStartElement(XMLStreamReader reader,
+                                                String extraAttrName,
+                                                String extraAttrValue) {
+        String name = qualifiedName(reader.getPrefix(), reader.getLocalName());
+
+        List<String[]> namespaces = new ArrayList<>();
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            namespaces.add(new String[]{reader.getNamespacePrefix(i), reader.getNamespaceURI(i)});
+        }
+
+        List<String[]> attributes = new ArrayList<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attrName = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            if (extraAttrValue == null || !attrName.equals(extraAttrName)) {
+                attributes.add(new String[]{attrName, reader.getAttributeValue(i)});
+            }
+        }
+        if (extraAttrValue != null) {
+            attributes.add(new String[]{extraAttrName, extraAttrValue});
+        }
+
+        return w -> {
+            w.writeStartElement(name);
+            for (String[] ns : namespaces) {
+                if (isEmpty(ns[0])) {
+                    w.writeDefaultNamespace(ns[1]);
+                } else {
+                    w.writeNamespace(ns[0], ns[1]);
+                }
+            }
+            for (String[] attr : attributes) {
+                w.writeAttribute(attr[0], attr[1]);
+            }
+        };
+    }
+
+
+    private static WriteAction copyEvent(XMLStreamReader reader, int event) {
+        switch (event) {
+            case END_ELEMENT:
+                return XMLStreamWriter::writeEndElement;
+            case CHARACTERS:
+            case SPACE:
+                String text = reader.getText();
+                return w -> w.writeCharacters(text);
+            case CDATA:
+                String data = reader.getText();
+                return w -> w.writeCData(data);
+            case COMMENT:
+                String comment = reader.getText();
+                return w -> w.writeComment(comment);
+            case PROCESSING_INSTRUCTION:
+                String target = reader.getPITarget();
+                String piData = reader.getPIData();
+                return w -> w.writeProcessingInstruction(target, piData);
+            default:
+                // document start/end are written explicitly, doctypes are dropped
+                return w -> {};
+        }
+    }
+
+
+    private static String findAttributeValue(XMLStreamReader reader, String attrName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (attrName.equals(qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+
+    private static String qualifiedName(String prefix, String localName) {
+        return isEmpty(prefix)
+                ? localName
+                : prefix + ":" + localName;
+    }
+
+
+    @FunctionalInterface
+    private interface WriteAction {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+
+    private static class Frame {
+
+        private final List<WriteAction> sink;
+        private final boolean linked;
+        private final List<List<WriteAction>> movedChildren = new ArrayList<>();
+
+        /**
+         * @param sink where this element's content is buffered, or null if written directly
+         * @param linked true if this element is wrapped in a link (and so moved)
+         */
+        private Frame(List<WriteAction> sink, boolean linked) {
+            this.sink = sink;
+            this.linked = linked;
+        }
     }
 
 }
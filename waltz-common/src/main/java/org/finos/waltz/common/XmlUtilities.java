@@ -24,6 +24,7 @@ import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -38,6 +39,9 @@ import java.util.stream.Stream;
 
 public class XmlUtilities {
 
+    private static final String REPORT_CDATA_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+
     public static Stream<Node> stream(NodeList nodeList) {
         Node[] nodes = new Node[nodeList.getLength()];
 
@@ -72,6 +76,28 @@ public class XmlUtilities {
     }
 
 
+    /**
+     * StAX counterpart of {@link #createNonValidatingDocumentBuilderFactory()}.  Doctypes and
+     * external entities are not processed and, as with the document builder, namespace
+     * prefixes are treated as part of element and attribute names.
+     */
+    public static XMLInputFactory createNonValidatingXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        // the jdk parser reports cdata sections as plain text unless asked otherwise
+        if (factory.isPropertySupported(REPORT_CDATA_PROPERTY)) {
+            factory.setProperty(REPORT_CDATA_PROPERTY, true);
+        }
+
+        return factory;
+    }
+
+
     public static DocumentBuilderFactory createNonValidatingDocumentBuilderFactory() throws ParserConfigurationException {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 
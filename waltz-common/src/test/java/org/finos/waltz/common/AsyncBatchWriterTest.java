@@ -0,0 +1,129 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncBatchWriterTest {
+
+    @Test
+    public void itemsAreWrittenInSubmissionOrderAndInBatches() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        try (AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>(
+                "test",
+                1000,
+                10,
+                50,
+                AsyncBatchWriter.OverflowPolicy.BLOCK,
+                xs -> {
+                    written.addAll(xs);
+                    batchSizes.add(xs.size());
+                })) {
+
+            List<Integer> input = IntStream.range(0, 95).boxed().collect(Collectors.toList());
+            assertEquals(95, writer.submitAll(input));
+            assertTrue(writer.flush(5, TimeUnit.SECONDS), "all items should be flushed");
+
+            assertEquals(input, written, "items should be written in the order submitted");
+            assertTrue(batchSizes.stream().allMatch(s -> s <= 10), "no batch should exceed the max batch size");
+            assertEquals(95, writer.getWrittenCount());
+            assertEquals(0, writer.getQueueDepth());
+        }
+    }
+
+
+    @Test
+    public void itemsAreDroppedWhenFullAndPolicyIsDrop() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstBatchTaken = new CountDownLatch(1);
+
+        try (AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>(
+                "test",
+                2,
+                1,
+                10,
+                AsyncBatchWriter.OverflowPolicy.DROP,
+                xs -> {
+                    firstBatchTaken.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })) {
+
+            assertTrue(writer.submit(1));
+            assertTrue(firstBatchTaken.await(5, TimeUnit.SECONDS), "writer should be blocked on first item");
+
+            assertTrue(writer.submit(2));
+            assertTrue(writer.submit(3));
+            assertFalse(writer.submit(4), "queue is full, so item should be dropped");
+            assertEquals(1, writer.getDroppedCount());
+
+            release.countDown();
+            assertTrue(writer.flush(5, TimeUnit.SECONDS));
+            assertEquals(3, writer.getWrittenCount());
+        }
+    }
+
+
+    @Test
+    public void failedBatchesAreRetriedIndividually() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+
+        try (AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>(
+                "test",
+                100,
+                100,
+                50,
+                AsyncBatchWriter.OverflowPolicy.BLOCK,
+                xs -> {
+                    if (xs.contains(3)) {
+                        throw new IllegalStateException("bad row");
+                    }
+                    written.addAll(xs);
+                })) {
+
+            writer.submitAll(ListUtilities.asList(1, 2, 3, 4));
+            assertTrue(writer.flush(5, TimeUnit.SECONDS));
+
+            assertEquals(ListUtilities.asList(1, 2, 4), written, "only the bad row should be lost");
+            assertEquals(1, writer.getFailedCount());
+            assertEquals(3, writer.getWrittenCount());
+        }
+    }
+
+
+    @Test
+    public void itemsSubmittedAfterCloseAreWrittenSynchronously() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+
+        AsyncBatchWriter<Integer> writer = new AsyncBatchWriter<>(
+                "test",
+                100,
+                100,
+                50,
+                AsyncBatchWriter.OverflowPolicy.DROP,
+                written::addAll);
+
+        writer.submit(1);
+        writer.close();
+        assertEquals(ListUtilities.asList(1), written, "pending items should be written on close");
+
+        writer.submit(2);
+        assertEquals(ListUtilities.asList(1, 2), written, "items should be written immediately once closed");
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DigestUtilities_mkChecksumTest {
+    @Test
+    public void mkChecksumNull() {
+        assertThrows(NullPointerException.class,
+                () -> DigestUtilities.mkChecksum(null));
+    }
+
+    @Test
+    public void mkChecksumDigestsUtf8Bytes() throws NoSuchAlgorithmException {
+        String inputs = "3:12:-|abc";
+        assertEquals(
+                DigestUtilities.digest(inputs.getBytes(StandardCharsets.UTF_8)),
+                DigestUtilities.mkChecksum(inputs));
+    }
+
+    @Test
+    public void mkChecksumDiffersWhenInputsDiffer() {
+        assertNotEquals(
+                DigestUtilities.mkChecksum("3:12"),
+                DigestUtilities.mkChecksum("3:13"));
+    }
+}
@@ -0,0 +1,26 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DigestUtilities_toChecksumPartTest {
+    @Test
+    public void toChecksumPartNull() {
+        assertEquals("-", DigestUtilities.toChecksumPart(null));
+    }
+
+    @Test
+    public void toChecksumPartIgnoresScale() {
+        assertEquals("1.5", DigestUtilities.toChecksumPart(new BigDecimal("1.50")));
+        assertEquals("1.5", DigestUtilities.toChecksumPart(new BigDecimal("1.5")));
+    }
+
+    @Test
+    public void toChecksumPartDoesNotUseExponents() {
+        assertEquals("1200", DigestUtilities.toChecksumPart(new BigDecimal("1200.00")));
+        assertEquals("0.0001", DigestUtilities.toChecksumPart(new BigDecimal("0.00010")));
+    }
+}
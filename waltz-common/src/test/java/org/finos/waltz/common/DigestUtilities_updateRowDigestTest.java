@@ -0,0 +1,73 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DigestUtilities_updateRowDigestTest {
+
+    @Test
+    public void sameRowsGiveSameChecksum() {
+        assertEquals(
+                checksum(new Object[]{1L, 10L, 30}, new Object[]{2L, 10L, 40}),
+                checksum(new Object[]{1L, 10L, 30}, new Object[]{2L, 10L, 40}));
+    }
+
+
+    @Test
+    public void rearrangedValuesGiveDifferentChecksums() {
+        // same totals (and same weighted sums) as each other, but different rows
+        assertNotEquals(
+                checksum(new Object[]{1L, 30}, new Object[]{2L, 40}, new Object[]{3L, 30}),
+                checksum(new Object[]{1L, 40}, new Object[]{2L, 20}, new Object[]{3L, 40}));
+    }
+
+
+    @Test
+    public void valuesCannotBleedBetweenColumnsOrRows() {
+        assertNotEquals(
+                checksum(new Object[]{"1", "23"}),
+                checksum(new Object[]{"12", "3"}));
+        assertNotEquals(
+                checksum(new Object[]{1, 2}),
+                checksum(new Object[]{1}, new Object[]{2}));
+    }
+
+
+    @Test
+    public void nullsAreDistinctFromEmptyRows() {
+        assertNotEquals(
+                checksum(new Object[]{null}),
+                checksum(new Object[]{}));
+    }
+
+
+    @Test
+    public void numbersIgnoreScale() {
+        assertEquals(
+                checksum(new Object[]{new BigDecimal("1.50")}),
+                checksum(new Object[]{new BigDecimal("1.5")}));
+    }
+
+
+    @Test
+    public void rowOrderMatters() {
+        assertNotEquals(
+                checksum(new Object[]{1}, new Object[]{2}),
+                checksum(new Object[]{2}, new Object[]{1}));
+    }
+
+
+    // --- helpers
+
+    private static String checksum(Object[]... rows) {
+        MessageDigest digest = DigestUtilities.mkRowDigest();
+        for (Object[] row : rows) {
+            DigestUtilities.updateRowDigest(digest, row);
+        }
+        return DigestUtilities.toChecksum(digest);
+    }
+}
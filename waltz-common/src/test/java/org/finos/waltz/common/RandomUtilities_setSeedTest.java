@@ -0,0 +1,28 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.RandomUtilities.randomPick;
+import static org.finos.waltz.common.RandomUtilities.randomPickSome;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RandomUtilities_setSeedTest {
+
+    private static final List<Integer> CHOICES = asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    @Test
+    public void sameSeedGivesSamePicks() {
+        RandomUtilities.setSeed(42L);
+        List<Integer> first = randomPick(CHOICES, 5);
+        List<Integer> firstSome = randomPickSome(CHOICES, 0.5);
+        int firstInt = RandomUtilities.randomIntBetween(0, 1000);
+
+        RandomUtilities.setSeed(42L);
+        assertEquals(first, randomPick(CHOICES, 5));
+        assertEquals(firstSome, randomPickSome(CHOICES, 0.5));
+        assertEquals(firstInt, RandomUtilities.randomIntBetween(0, 1000));
+    }
+}
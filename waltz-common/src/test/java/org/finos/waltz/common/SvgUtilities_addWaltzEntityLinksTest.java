@@ -0,0 +1,62 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SvgUtilities_addWaltzEntityLinksTest {
+
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\" data-CAP=\"root\">" +
+            "<g id=\"a\" data-CAP=\"A\"><rect/><g id=\"a1\" data-CAP=\"A1\"/><text>a</text></g>" +
+            "<g id=\"b\" data-CAP=\"unknown\"/>" +
+            "<g id=\"c\"/>" +
+            "</svg>";
+
+    private static final Function<String, Optional<String>> KEY_TO_URL = key -> key.equals("unknown")
+            ? Optional.empty()
+            : Optional.of("http://waltz/" + key + "?x=1&y=2");
+
+
+    @Test
+    public void linkedElementsAreWrappedAndMovedToTheEndOfTheirParent() throws XMLStreamException {
+        String result = SvgUtilities.addWaltzEntityLinks(SVG, "CAP", KEY_TO_URL);
+
+        assertTrue(result.contains(
+                "<g id=\"b\" data-CAP=\"unknown\"></g>" +
+                "<g id=\"c\"></g>" +
+                "<a href=\"http://waltz/A?x=1&amp;y=2\" target=\"_blank\"><g id=\"a\" data-CAP=\"A\">"),
+                result);
+    }
+
+
+    @Test
+    public void nestedElementsAreLinkedWithinTheirParent() throws XMLStreamException {
+        String result = SvgUtilities.addWaltzEntityLinks(SVG, "CAP", KEY_TO_URL);
+
+        assertTrue(result.contains(
+                "<rect></rect><text>a</text>" +
+                "<a href=\"http://waltz/A1?x=1&amp;y=2\" target=\"_blank\"><g id=\"a1\" data-CAP=\"A1\"></g></a>" +
+                "</g></a>"),
+                result);
+    }
+
+
+    @Test
+    public void rootElementIsNeverLinked() throws XMLStreamException {
+        String result = SvgUtilities.addWaltzEntityLinks(SVG, "CAP", KEY_TO_URL);
+        assertFalse(result.contains("http://waltz/root"));
+    }
+
+
+    @Test
+    public void withNoUrlsTheSvgIsUnchanged() throws XMLStreamException {
+        String result = SvgUtilities.addWaltzEntityLinks(SVG, "CAP", key -> Optional.empty());
+        assertFalse(result.contains("<a "));
+        assertTrue(result.contains("<g id=\"a\" data-CAP=\"A\"><rect></rect><g id=\"a1\" data-CAP=\"A1\"></g><text>a</text></g>"));
+    }
+
+}
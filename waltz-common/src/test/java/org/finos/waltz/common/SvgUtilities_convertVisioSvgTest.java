@@ -0,0 +1,63 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SvgUtilities_convertVisioSvgTest {
+
+    private static final String SVG = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+            "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">" +
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\">" +
+            "<style><![CDATA[ .st1 {fill:#fff} ]]></style>" +
+            "<g id=\"shape1\"><title>Sheet.1</title>" +
+            "<v:custProps><v:cp v:lbl=\"other\" v:val=\"x\"/><v:cp v:lbl=\"CAP\" v:val=\"VT4(CAP_001)\"/></v:custProps>" +
+            "<text>A &amp; B</text>" +
+            "<g id=\"shape2\" data-CAP=\"stale\"><v:custProps><v:cp v:lbl=\"CAP\" v:val=\"plain\"/></v:custProps></g>" +
+            "</g>" +
+            "<g id=\"shape3\"><v:custProps><v:cp v:lbl=\"other\" v:val=\"VT4(y)\"/></v:custProps></g>" +
+            "</svg>";
+
+
+    @Test
+    public void keyedPropertyIsCopiedOntoTheShape() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("CAP", SVG);
+        assertTrue(result.contains("<g id=\"shape1\" data-CAP=\"CAP_001\">"));
+    }
+
+
+    @Test
+    public void valueIsOnlyUnwrappedIfBracketed() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("CAP", SVG);
+        assertTrue(result.contains("<g id=\"shape2\" data-CAP=\"plain\">"), "existing attribute is replaced");
+        assertFalse(result.contains("stale"));
+    }
+
+
+    @Test
+    public void shapesWithoutTheKeyAreUnchanged() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("CAP", SVG);
+        assertTrue(result.contains("<g id=\"shape3\">"));
+    }
+
+
+    @Test
+    public void contentIsPreservedAndDoctypeDropped() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("CAP", SVG);
+        assertTrue(result.contains("<![CDATA[ .st1 {fill:#fff} ]]>"));
+        assertTrue(result.contains("<text>A &amp; B</text>"));
+        assertTrue(result.contains("xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\""));
+        assertFalse(result.contains("DOCTYPE"));
+    }
+
+
+    @Test
+    public void malformedSvgIsRejected() {
+        assertThrows(
+                XMLStreamException.class,
+                () -> SvgUtilities.convertVisioSvg("CAP", "<svg><g></svg>"));
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.map;
+import static org.finos.waltz.common.DigestUtilities.mkRowDigest;
+import static org.finos.waltz.common.DigestUtilities.toChecksum;
+import static org.finos.waltz.common.DigestUtilities.updateRowDigest;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+
+/**
+ * Checksums over query results, used to tell whether pre-computed data is out of
+ * date with the data it was built from.  Every value of every row contributes, so
+ * (unlike sums or counts) an update which leaves the totals unchanged is still seen.
+ * <p>
+ * Queries must have a fixed order, rows are streamed so large results are not held
+ * in memory.
+ */
+public class ChecksumUtilities {
+
+    /**
+     * @param orderedQuery query with a fixed row order
+     * @return checksum of all the rows of the query
+     */
+    public static String digestRows(ResultQuery<? extends Record> orderedQuery) {
+        checkNotNull(orderedQuery, "orderedQuery cannot be null");
+
+        MessageDigest digest = mkRowDigest();
+        try (Cursor<? extends Record> cursor = orderedQuery.fetchLazy()) {
+            for (Record record : cursor) {
+                updateRowDigest(digest, record.intoArray());
+            }
+        }
+        return toChecksum(digest);
+    }
+
+
+    /**
+     * @param orderedQuery query with a fixed row order (at least within each key)
+     * @param keyFn        groups the rows, e.g. by entity id
+     * @return checksum of each group of rows, keyed by the group's key (a new, modifiable map)
+     */
+    public static <K> Map<K, String> digestRowsBy(ResultQuery<? extends Record> orderedQuery,
+                                                  Function<Record, K> keyFn) {
+        checkNotNull(orderedQuery, "orderedQuery cannot be null");
+        checkNotNull(keyFn, "keyFn cannot be null");
+
+        Map<K, MessageDigest> digestsByKey = new HashMap<>();
+        try (Cursor<? extends Record> cursor = orderedQuery.fetchLazy()) {
+            for (Record record : cursor) {
+                MessageDigest digest = digestsByKey.computeIfAbsent(keyFn.apply(record), k -> mkRowDigest());
+                updateRowDigest(digest, record.intoArray());
+            }
+        }
+
+        Map<K, String> checksums = new HashMap<>(digestsByKey.size());
+        digestsByKey.forEach((k, digest) -> checksums.put(k, toChecksum(digest)));
+        return checksums;
+    }
+
+
+    /**
+     * Checksum of the structure pre-computed rollups are aggregated over: the given
+     * hierarchies and the org unit of each active application.  A change to either
+     * means every rollup built over that structure is out of date.
+     *
+     * @param hierarchyKinds kinds of entity hierarchy the rollups walk, e.g. ORG_UNIT
+     * @return checksum of the hierarchies and active application org units
+     */
+    public static String calcHierarchyChecksum(DSLContext dsl,
+                                               Collection<EntityKind> hierarchyKinds) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotEmpty(hierarchyKinds, "hierarchyKinds cannot be empty");
+
+        String hierarchies = digestRows(dsl
+                .select(ENTITY_HIERARCHY.KIND,
+                        ENTITY_HIERARCHY.ID,
+                        ENTITY_HIERARCHY.ANCESTOR_ID,
+                        ENTITY_HIERARCHY.LEVEL)
+                .from(ENTITY_HIERARCHY)
+                .where(ENTITY_HIERARCHY.KIND.in(map(hierarchyKinds, Enum::name)))
+                .orderBy(ENTITY_HIERARCHY.KIND, ENTITY_HIERARCHY.ID, ENTITY_HIERARCHY.ANCESTOR_ID));
+
+        String apps = digestRows(dsl
+                .select(APPLICATION.ID,
+                        APPLICATION.ORGANISATIONAL_UNIT_ID)
+                .from(APPLICATION)
+                .where(APPLICATION.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()))
+                .orderBy(APPLICATION.ID));
+
+        return format("%s:%s", hierarchies, apps);
+    }
+
+}
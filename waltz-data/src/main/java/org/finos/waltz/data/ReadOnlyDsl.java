@@ -0,0 +1,174 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
+
+/**
+ * Provides the <code>DSLContext</code> for read only queries.  Daos (or services)
+ * opt in by using {@link #dsl()} for their heavy read paths, for example report
+ * grids and extracts.
+ *
+ * If a read replica is configured (<code>database.replica.url</code>) queries
+ * are sent to it, unless the current user has recently written to the primary
+ * (see {@link ReadYourWritesTracker}) in which case they go to the primary so
+ * the user sees their own changes.  The choice is made each time a connection
+ * is acquired, so queries built against this context can be executed later.
+ *
+ * With no replica configured this is simply the primary <code>DSLContext</code>.
+ *
+ * Reads made through this context do not take part in transactions on the
+ * primary context, and so cannot see uncommitted changes.
+ */
+@Component
+public class ReadOnlyDsl implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReadOnlyDsl.class);
+
+    private final DSLContext dsl;
+    private final HikariDataSource replicaDataSource;
+
+
+    @Autowired
+    public ReadOnlyDsl(DSLContext primaryDsl,
+                       ReadYourWritesTracker readYourWritesTracker,
+                       @Value("${database.replica.url:}") String replicaUrl,
+                       @Value("${database.replica.user:${database.user:}}") String replicaUser,
+                       @Value("${database.replica.password:${database.password:}}") String replicaPassword,
+                       @Value("${database.replica.driver:${database.driver:}}") String replicaDriver,
+                       @Value("${database.replica.pool.max:${database.pool.max:10}}") int replicaPoolMax,
+                       @Value("${database.replica.pool.min:${database.pool.min:2}}") int replicaPoolMin) {
+        checkNotNull(primaryDsl, "primaryDsl cannot be null");
+        checkNotNull(readYourWritesTracker, "readYourWritesTracker cannot be null");
+
+        if (isEmpty(replicaUrl)) {
+            LOG.info("No read replica configured, read only queries will use the primary database");
+            this.replicaDataSource = null;
+            this.dsl = primaryDsl;
+        } else {
+            LOG.info("Read only queries will use the replica database: {}", replicaUrl);
+            HikariConfig dsConfig = new HikariConfig();
+            dsConfig.setPoolName("waltz-read-replica");
+            dsConfig.setJdbcUrl(replicaUrl);
+            dsConfig.setUsername(replicaUser);
+            dsConfig.setPassword(replicaPassword);
+            if (!isEmpty(replicaDriver)) {
+                dsConfig.setDriverClassName(replicaDriver);
+            }
+            dsConfig.setMaximumPoolSize(replicaPoolMax);
+            dsConfig.setMinimumIdle(replicaPoolMin);
+            dsConfig.setReadOnly(true);
+
+            this.replicaDataSource = new HikariDataSource(dsConfig);
+            this.dsl = DSL.using(primaryDsl
+                    .configuration()
+                    .derive(new RoutingConnectionProvider(
+                            primaryDsl.configuration().connectionProvider(),
+                            new DataSourceConnectionProvider(replicaDataSource),
+                            readYourWritesTracker)));
+        }
+    }
+
+
+    /**
+     * @return the context to use for read only queries
+     */
+    public DSLContext dsl() {
+        return dsl;
+    }
+
+
+    public boolean hasReplica() {
+        return replicaDataSource != null;
+    }
+
+
+    @Override
+    public void destroy() {
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+
+
+    /**
+     * Acquires connections from the replica unless the current user has
+     * recently written, remembering where each connection came from so it
+     * can be released to the same place.
+     */
+    private static class RoutingConnectionProvider implements ConnectionProvider {
+
+        private final ConnectionProvider primary;
+        private final ConnectionProvider replica;
+        private final ReadYourWritesTracker readYourWritesTracker;
+        private final Set<Connection> replicaConnections = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+
+        private RoutingConnectionProvider(ConnectionProvider primary,
+                                          ConnectionProvider replica,
+                                          ReadYourWritesTracker readYourWritesTracker) {
+            this.primary = primary;
+            this.replica = replica;
+            this.readYourWritesTracker = readYourWritesTracker;
+        }
+
+
+        @Override
+        public Connection acquire() throws DataAccessException {
+            if (readYourWritesTracker.hasRecentlyWritten()) {
+                return primary.acquire();
+            }
+
+            Connection connection = replica.acquire();
+            replicaConnections.add(connection);
+            return connection;
+        }
+
+
+        @Override
+        public void release(Connection connection) throws DataAccessException {
+            if (replicaConnections.remove(connection)) {
+                replica.release(connection);
+            } else {
+                primary.release(connection);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+import org.jooq.impl.DefaultExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Remembers which users have recently written to the primary database so
+ * that their subsequent reads are not sent to a (possibly lagging) read
+ * replica, see {@link ReadOnlyDsl}.
+ *
+ * The user is bound to the request thread by the web layer, writes are
+ * detected by the {@link #writeListener()} registered on the primary
+ * <code>DSLContext</code>.  Writes on threads with no bound user (jobs,
+ * async tasks) are not tracked.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReadYourWritesTracker.class);
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final ThreadLocal<String> boundUser = new ThreadLocal<>();
+    private final ConcurrentMap<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final ExecuteListener writeListener = new WriteListener();
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+
+    @Autowired
+    public ReadYourWritesTracker(@Value("${database.replica.read_your_writes.seconds:30}") long windowSeconds) {
+        this(TimeUnit.SECONDS.toMillis(windowSeconds), System::currentTimeMillis);
+    }
+
+
+    ReadYourWritesTracker(long windowMillis, LongSupplier clock) {
+        checkTrue(windowMillis >= 0, "windowMillis cannot be negative");
+        checkNotNull(clock, "clock cannot be null");
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+
+    public void bindUser(String userId) {
+        if (userId == null) {
+            boundUser.remove();
+        } else {
+            boundUser.set(userId);
+        }
+    }
+
+
+    public void unbindUser() {
+        boundUser.remove();
+    }
+
+
+    /**
+     * Records a write by the user bound to the current thread (if any).
+     */
+    public void recordWrite() {
+        String userId = boundUser.get();
+        if (userId == null) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        if (lastWriteByUser.size() >= MAX_TRACKED_USERS) {
+            lastWriteByUser.values().removeIf(writtenAt -> now - writtenAt > windowMillis);
+            if (lastWriteByUser.size() >= MAX_TRACKED_USERS) {
+                LOG.warn("Tracking recent writes for {} users, consider reducing the read your writes window", lastWriteByUser.size());
+            }
+        }
+        lastWriteByUser.put(userId, now);
+    }
+
+
+    /**
+     * @return true if the user bound to the current thread has written within the window,
+     * their reads should therefore go to the primary database
+     */
+    public boolean hasRecentlyWritten() {
+        String userId = boundUser.get();
+        if (userId == null) {
+            return false;
+        }
+
+        Long writtenAt = lastWriteByUser.get(userId);
+        if (writtenAt == null) {
+            return false;
+        } else if (clock.getAsLong() - writtenAt <= windowMillis) {
+            return true;
+        } else {
+            lastWriteByUser.remove(userId, writtenAt);
+            return false;
+        }
+    }
+
+
+    /**
+     * @return a listener, to be registered with the primary <code>DSLContext</code>,
+     * which records inserts, updates, deletes and ddl
+     */
+    public ExecuteListener writeListener() {
+        return writeListener;
+    }
+
+
+    private class WriteListener extends DefaultExecuteListener {
+
+        @Override
+        public void executeEnd(ExecuteContext ctx) {
+            ExecuteType type = ctx.type();
+            if (type == ExecuteType.WRITE || type == ExecuteType.BATCH || type == ExecuteType.DDL) {
+                recordWrite();
+            }
+        }
+    }
+
+}
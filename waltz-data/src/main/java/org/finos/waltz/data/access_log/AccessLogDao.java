@@ -33,8 +33,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.finos.waltz.schema.tables.AccessLog.ACCESS_LOG;
 
@@ -80,6 +82,25 @@ public class AccessLogDao {
     }
 
 
+    public int[] write(Collection<AccessLog> logEntries) {
+        List<AccessLogRecord> records = logEntries
+                .stream()
+                .map(logEntry -> {
+                    AccessLogRecord record = new AccessLogRecord();
+                    record.setParams(logEntry.params());
+                    record.setState(logEntry.state());
+                    record.setUserId(logEntry.userId());
+                    record.setCreatedAt(Timestamp.valueOf(logEntry.createdAt()));
+                    return record;
+                })
+                .collect(Collectors.toList());
+
+        return dsl
+                .batchInsert(records)
+                .execute();
+    }
+
+
     public List<AccessLog> findForUserId(String userId,
                                          Optional<Integer> limit) {
         return dsl.select(ACCESS_LOG.fields())
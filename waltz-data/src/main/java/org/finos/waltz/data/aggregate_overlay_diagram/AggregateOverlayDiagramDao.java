@@ -14,15 +14,22 @@ import org.finos.waltz.schema.tables.records.AggregateOverlayDiagramCellDataReco
 import org.finos.waltz.schema.tables.records.AggregateOverlayDiagramRecord;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.TO_DOMAIN_MAPPER;
+import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellMapping;
+import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.schema.Tables.AGGREGATE_OVERLAY_DIAGRAM;
 import static org.finos.waltz.schema.Tables.AGGREGATE_OVERLAY_DIAGRAM_CELL_DATA;
 
@@ -99,6 +106,27 @@ public class AggregateOverlayDiagramDao {
         }
 
 
+    /**
+     * @return cell external id to backing entity, with backing entity hierarchies expanded
+     */
+    public Set<Tuple2<String, EntityReference>> findExpandedCellMappings(long diagramId) {
+        return loadExpandedCellMappingsForDiagram(dsl, diagramId);
+    }
+
+
+    public OverlayDiagramCellMapping findCellMapping(Set<Tuple2<String, EntityReference>> expandedCellMappings,
+                                                     EntityKind aggregatedEntityKind,
+                                                     Select<Record1<Long>> inScopeEntityIdSelector,
+                                                     Optional<LocalDate> targetStateDate) {
+        return loadCellMapping(
+                dsl,
+                expandedCellMappings,
+                aggregatedEntityKind,
+                inScopeEntityIdSelector,
+                targetStateDate);
+    }
+
+
         public void updateBackingEntities(Long diagramId,
                                           Set<BackingEntity> backingEntities) {
 
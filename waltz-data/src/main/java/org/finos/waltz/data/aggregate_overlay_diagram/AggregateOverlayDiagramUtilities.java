@@ -99,6 +99,23 @@ public class AggregateOverlayDiagramUtilities {
     }
 
 
+    protected static OverlayDiagramCellMapping loadCellMapping(DSLContext dsl,
+                                                               Set<Tuple2<String, EntityReference>> cellMappings,
+                                                               EntityKind aggregatedEntityKind,
+                                                               Select<Record1<Long>> inScopeEntityIdSelector,
+                                                               Optional<LocalDate> targetStateDate) {
+        return new OverlayDiagramCellMapping(
+                aggregatedEntityKind,
+                cellMappings,
+                loadCellExtIdToAggregatedEntities(
+                        dsl,
+                        cellMappings,
+                        aggregatedEntityKind,
+                        inScopeEntityIdSelector,
+                        targetStateDate));
+    }
+
+
     protected static Map<String, Set<Long>> loadCellExtIdToAggregatedEntities(DSLContext dsl,
                                                                               Set<Tuple2<String, EntityReference>> cellMappings,
                                                                               EntityKind aggregatedEntityKind,
@@ -252,7 +269,7 @@ public class AggregateOverlayDiagramUtilities {
                         inScopeEntityIdSelector,
                         backingEntityReferences,
                         targetDate))
-                .orElse(loadMeasurableToAppIdsMapIgnoringTargetDate(
+                .orElseGet(() -> loadMeasurableToAppIdsMapIgnoringTargetDate(
                         dsl,
                         inScopeEntityIdSelector,
                         backingEntityReferences));
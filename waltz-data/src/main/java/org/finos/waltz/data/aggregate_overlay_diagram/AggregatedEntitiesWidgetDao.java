@@ -1,26 +1,20 @@
 package org.finos.waltz.data.aggregate_overlay_diagram;
 
-import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AggregatedEntitiesWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableAggregatedEntitiesWidgetDatum;
 import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
-import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toSet;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadEntityIdToRefMap;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 
 @Repository
 public class AggregatedEntitiesWidgetDao {
@@ -34,21 +28,12 @@ public class AggregatedEntitiesWidgetDao {
     }
 
 
-    public Set<AggregatedEntitiesWidgetDatum> findWidgetData(long diagramId,
-                                                             EntityKind aggregatedEntityKind,
-                                                             Select<Record1<Long>> inScopeEntityIdSelector,
-                                                             Optional<LocalDate> targetStateDate) {
+    public Set<AggregatedEntitiesWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
+                                                             Select<Record1<Long>> inScopeEntityIdSelector) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
+        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = cellMapping.cellExtIdToAggregatedEntities();
 
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                aggregatedEntityKind,
-                inScopeEntityIdSelector,
-                targetStateDate);
-
-        Map<Long, EntityReference> entityIdToRefMap = loadEntityIdToRefMap(dsl, aggregatedEntityKind, inScopeEntityIdSelector);
+        Map<Long, EntityReference> entityIdToRefMap = loadEntityIdToRefMap(dsl, cellMapping.aggregatedEntityKind(), inScopeEntityIdSelector);
 
         return cellExtIdsToAggregatedEntities
                 .entrySet()
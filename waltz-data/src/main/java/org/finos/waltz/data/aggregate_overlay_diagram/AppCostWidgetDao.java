@@ -30,7 +30,6 @@ import java.util.Set;
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.MapUtilities.groupBy;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.toMeasurableIds;
 import static org.finos.waltz.data.cost.CostUtils.calculateAllocatedCosts;
 
@@ -53,13 +52,11 @@ public class AppCostWidgetDao {
     }
 
     // cellExtId,
-    public Set<CostWidgetDatum> findWidgetData(long diagramId,
+    public Set<CostWidgetDatum> findWidgetData(Set<Tuple2<String, EntityReference>> cellWithBackingEntities,
                                                Set<Long> costKindIds,
                                                long allocationSchemeId,
                                                Select<Record1<Long>> inScopeApplicationSelector) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
         Map<String, Collection<Long>> backingEntitiesByCellId = groupBy(
                 cellWithBackingEntities,
                 t -> t.v1,
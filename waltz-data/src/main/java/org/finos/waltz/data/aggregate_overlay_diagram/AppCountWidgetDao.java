@@ -1,14 +1,10 @@
 package org.finos.waltz.data.aggregate_overlay_diagram;
 
-import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.CountWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableCountWidgetDatum;
 import org.jooq.DSLContext;
 import org.jooq.Field;
-import org.jooq.Record1;
 import org.jooq.Record2;
-import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
@@ -17,14 +13,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.util.Collection;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toSet;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.schema.Tables.APPLICATION;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
@@ -41,27 +33,14 @@ public class AppCountWidgetDao {
     }
 
 
-    public Set<CountWidgetDatum> findWidgetData(long diagramId,
-                                                Select<Record1<Long>> inScopeApplicationSelector,
+    public Set<CountWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
                                                 LocalDate targetStateDate) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                EntityKind.APPLICATION,
-                inScopeApplicationSelector,
-                Optional.empty());
-
-        Set<Long> appIds = cellExtIdsToAggregatedEntities.values()
-                .stream()
-                .flatMap(Collection::stream)
-                .collect(toSet());
+        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = cellMapping.cellExtIdToAggregatedEntities();
 
         Map<Long, Tuple2<Integer, Integer>> appToTargetStateCounts = fetchAppIdToTargetStatePresenceIndicator(
                 targetStateDate,
-                appIds);
+                cellMapping.aggregatedEntityIds());
 
         return cellExtIdsToAggregatedEntities
                 .entrySet()
@@ -4,20 +4,15 @@ import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.MapUtilities;
 import org.finos.waltz.data.rating_scheme.RatingSchemeDAO;
 import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AssessmentRatingCount;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AssessmentRatingsWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableAssessmentRatingCount;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableAssessmentRatingsWidgetDatum;
 import org.finos.waltz.schema.tables.AssessmentRating;
 import org.jooq.DSLContext;
-import org.jooq.Record1;
-import org.jooq.Select;
-import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -44,25 +39,12 @@ public class AssessmentRatingWidgetDao {
     }
 
 
-    public Set<AssessmentRatingsWidgetDatum> findWidgetData(long diagramId,
-                                                            EntityKind aggregatedEntityKind,
-                                                            Long assessmentId,
-                                                            Select<Record1<Long>> inScopeEntityIdSelector,
-                                                            Optional<LocalDate> targetStateDate) {
+    public Set<AssessmentRatingsWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
+                                                            Long assessmentId) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                aggregatedEntityKind,
-                inScopeEntityIdSelector,
-                targetStateDate);
-
-        Set<Long> diagramEntityIds = cellExtIdsToAggregatedEntities.values()
-                .stream()
-                .flatMap(Collection::stream)
-                .collect(toSet());
+        EntityKind aggregatedEntityKind = cellMapping.aggregatedEntityKind();
+        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = cellMapping.cellExtIdToAggregatedEntities();
+        Set<Long> diagramEntityIds = cellMapping.aggregatedEntityIds();
 
         Map<Long, org.finos.waltz.model.rating.RatingSchemeItem> itemsById = indexById(ratingSchemeDAO.findRatingSchemeItemsForAssessmentDefinition(assessmentId));
 
@@ -1,7 +1,6 @@
 package org.finos.waltz.data.aggregate_overlay_diagram;
 
 import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AttestationEntry;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.AttestationWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableAttestationEntry;
@@ -15,7 +14,6 @@ import org.jooq.Record5;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
-import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -27,8 +25,6 @@ import java.util.Set;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.SetUtilities.map;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 
 @Repository
 public class AttestationWidgetDao {
@@ -45,19 +41,12 @@ public class AttestationWidgetDao {
     }
 
 
-    public Set<AttestationWidgetDatum> findWidgetData(long diagramId,
+    public Set<AttestationWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
                                                       EntityKind attestedEntityKind,
                                                       Optional<Long> attestedEntityId,
                                                       Select<Record1<Long>> inScopeEntityIdSelector) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                EntityKind.APPLICATION,
-                inScopeEntityIdSelector,
-                Optional.empty());
+        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = cellMapping.cellExtIdToAggregatedEntities();
 
         SelectConditionStep<Record5<String, Long, Timestamp, String, Integer>> rawAttestationData = dsl
                 .select(
@@ -1,15 +1,12 @@
 package org.finos.waltz.data.aggregate_overlay_diagram;
 
 import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ComplexityEntry;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ComplexityWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableComplexityEntry;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableComplexityWidgetDatum;
 import org.finos.waltz.schema.tables.*;
 import org.jooq.DSLContext;
-import org.jooq.Record1;
-import org.jooq.Select;
 import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -19,8 +16,6 @@ import java.util.*;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toSet;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
@@ -37,25 +32,14 @@ public class ComplexityWidgetDao {
     }
 
     // cellExtId,
-    public Set<ComplexityWidgetDatum> findWidgetData(long diagramId,
-                                                     EntityKind aggregatedEntityKind,
-                                                     Set<Long> costKindIds,
-                                                     Select<Record1<Long>> inScopeEntityIdSelector) {
-
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                aggregatedEntityKind,
-                inScopeEntityIdSelector,
-                Optional.empty());
+    public Set<ComplexityWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
+                                                     Set<Long> costKindIds) {
 
         return fetchComplexityData(
                 dsl,
                 costKindIds,
-                aggregatedEntityKind,
-                cellExtIdsToAggregatedEntities);
+                cellMapping.aggregatedEntityKind(),
+                cellMapping.cellExtIdToAggregatedEntities());
     }
 
 
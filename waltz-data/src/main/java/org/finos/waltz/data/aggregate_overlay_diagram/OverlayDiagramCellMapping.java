@@ -0,0 +1,72 @@
+package org.finos.waltz.data.aggregate_overlay_diagram;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.jooq.lambda.tuple.Tuple2;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * The entities (e.g. applications) which aggregate into each cell of an overlay
+ * diagram for a given selection.  This is the expensive part of calculating any
+ * widget's data, so it is computed once and handed to the widget daos.
+ */
+public class OverlayDiagramCellMapping {
+
+    private final EntityKind aggregatedEntityKind;
+    private final Set<Tuple2<String, EntityReference>> cellBackingEntities;
+    private final Map<String, Set<Long>> cellExtIdToAggregatedEntities;
+    private final Set<Long> aggregatedEntityIds;
+
+
+    public OverlayDiagramCellMapping(EntityKind aggregatedEntityKind,
+                                     Set<Tuple2<String, EntityReference>> cellBackingEntities,
+                                     Map<String, Set<Long>> cellExtIdToAggregatedEntities) {
+        checkNotNull(aggregatedEntityKind, "aggregatedEntityKind cannot be null");
+        checkNotNull(cellBackingEntities, "cellBackingEntities cannot be null");
+        checkNotNull(cellExtIdToAggregatedEntities, "cellExtIdToAggregatedEntities cannot be null");
+
+        this.aggregatedEntityKind = aggregatedEntityKind;
+        this.cellBackingEntities = unmodifiableSet(cellBackingEntities);
+        this.cellExtIdToAggregatedEntities = unmodifiableMap(cellExtIdToAggregatedEntities);
+        this.aggregatedEntityIds = unmodifiableSet(cellExtIdToAggregatedEntities
+                .values()
+                .stream()
+                .flatMap(Collection::stream)
+                .collect(toSet()));
+    }
+
+
+    public EntityKind aggregatedEntityKind() {
+        return aggregatedEntityKind;
+    }
+
+
+    /**
+     * @return cell external id to backing entity (measurable, data type...), with hierarchies expanded
+     */
+    public Set<Tuple2<String, EntityReference>> cellBackingEntities() {
+        return cellBackingEntities;
+    }
+
+
+    public Map<String, Set<Long>> cellExtIdToAggregatedEntities() {
+        return cellExtIdToAggregatedEntities;
+    }
+
+
+    /**
+     * @return ids of all entities aggregated into any cell of the diagram
+     */
+    public Set<Long> aggregatedEntityIds() {
+        return aggregatedEntityIds;
+    }
+
+}
@@ -30,7 +30,6 @@ import java.util.Set;
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.MapUtilities.groupBy;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.toMeasurableIds;
 
 @Repository
@@ -50,12 +49,10 @@ public class RatingCostWidgetDao {
     }
 
     // cellExtId,
-    public Set<CostWidgetDatum> findWidgetData(long diagramId,
+    public Set<CostWidgetDatum> findWidgetData(Set<Tuple2<String, EntityReference>> cellWithBackingEntities,
                                                Set<Long> costKindIds,
                                                Select<Record1<Long>> inScopeApplicationSelector) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
         Map<String, Collection<Long>> backingEntitiesByCellId = groupBy(
                 cellWithBackingEntities,
                 t -> t.v1,
@@ -1,15 +1,12 @@
 package org.finos.waltz.data.aggregate_overlay_diagram;
 
 import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableTargetCostWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.TargetCostWidgetDatum;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
-import org.jooq.Record1;
 import org.jooq.Record3;
-import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
@@ -19,14 +16,10 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.util.Collection;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toSet;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadCellExtIdToAggregatedEntities;
-import static org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramUtilities.loadExpandedCellMappingsForDiagram;
 import static org.finos.waltz.schema.Tables.*;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
@@ -43,28 +36,14 @@ public class TargetAppCostWidgetDao {
     }
 
 
-    public Set<TargetCostWidgetDatum> findWidgetData(long diagramId,
-                                                     Select<Record1<Long>> inScopeApplicationSelector,
+    public Set<TargetCostWidgetDatum> findWidgetData(OverlayDiagramCellMapping cellMapping,
                                                      LocalDate targetStateDate) {
 
-        Set<Tuple2<String, EntityReference>> cellWithBackingEntities = loadExpandedCellMappingsForDiagram(dsl, diagramId);
-
-        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = loadCellExtIdToAggregatedEntities(
-                dsl,
-                cellWithBackingEntities,
-                EntityKind.APPLICATION,
-                inScopeApplicationSelector,
-                Optional.empty());
-
-        Set<Long> diagramAppIds = cellExtIdsToAggregatedEntities
-                .values()
-                .stream()
-                .flatMap(Collection::stream)
-                .collect(toSet());
+        Map<String, Set<Long>> cellExtIdsToAggregatedEntities = cellMapping.cellExtIdToAggregatedEntities();
 
         Map<Long, Tuple2<BigDecimal, BigDecimal>> appToTargetStateCosts = fetchAppIdToTargetStateCostIndicator(
                 targetStateDate,
-                diagramAppIds);
+                cellMapping.aggregatedEntityIds());
 
         return cellExtIdsToAggregatedEntities
                 .entrySet()
@@ -237,6 +237,7 @@ public class ApplicationDao {
         record.setProvenance(application.provenance());
         record.setBusinessCriticality(application.businessCriticality().name());
         record.setIsRemoved(application.isRemoved());
+        record.setUpdatedAt(Timestamp.from(Instant.now()));
 
         Long appId = application
                 .id()
@@ -28,6 +28,7 @@ import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.ImmutableEntityReference;
 import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.assessment_definition.AssessmentVisibility;
 import org.finos.waltz.model.assessment_rating.AssessmentRating;
 import org.finos.waltz.model.assessment_rating.AssessmentRatingOperations;
 import org.finos.waltz.model.assessment_rating.AssessmentRatingSummaryCounts;
@@ -48,10 +49,12 @@ import org.jooq.DSLContext;
 import org.jooq.DeleteConditionStep;
 import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record1;
 import org.jooq.Record5;
 import org.jooq.RecordMapper;
 import org.jooq.RecordUnmapper;
 import org.jooq.Result;
+import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.UpdateConditionStep;
 import org.jooq.impl.DSL;
@@ -81,6 +84,8 @@ import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
 import static org.finos.waltz.common.StringUtilities.sanitizeCharacters;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
 import static org.finos.waltz.schema.Tables.RATING_SCHEME_ITEM;
 import static org.finos.waltz.schema.Tables.USER_ROLE;
 import static org.finos.waltz.schema.tables.AssessmentDefinition.ASSESSMENT_DEFINITION;
@@ -228,6 +233,42 @@ public class AssessmentRatingDao {
     }
 
 
+    /**
+     * Finds the primary assessments (qualified by the given category) of the measurable ratings
+     * made by applications in the selector against measurables in the category.
+     *
+     * Unlike {@link #findByEntityKind(EntityKind, Optional)} the selection and category are applied
+     * in the database, so the result is proportional to the selection rather than the whole estate.
+     *
+     * @param appIdSelector  selects the applications whose ratings are of interest
+     * @param categoryId  the measurable category, also the qualifier of the assessment definitions
+     * @return assessment ratings against measurable ratings in the selection
+     */
+    public Set<AssessmentRating> findPrimaryForMeasurableCategoryAndSelector(Select<Record1<Long>> appIdSelector,
+                                                                             long categoryId) {
+        checkNotNull(appIdSelector, "appIdSelector cannot be null");
+
+        Condition primaryDefinitionCondition = ad.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name())
+                .and(ad.VISIBILITY.eq(AssessmentVisibility.PRIMARY.name()))
+                .and(ad.QUALIFIER_KIND.eq(EntityKind.MEASURABLE_CATEGORY.name()))
+                .and(ad.QUALIFIER_ID.eq(categoryId));
+
+        Condition ratingCondition = MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
+                .and(MEASURABLE_RATING.ENTITY_ID.in(appIdSelector))
+                .and(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId));
+
+        return dsl
+                .select(ar.fields())
+                .from(ar)
+                .innerJoin(ad).on(ad.ID.eq(ar.ASSESSMENT_DEFINITION_ID))
+                .innerJoin(MEASURABLE_RATING).on(MEASURABLE_RATING.ID.eq(ar.ENTITY_ID))
+                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(MEASURABLE_RATING.MEASURABLE_ID))
+                .where(ar.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name()))
+                .and(dsl.renderInlined(primaryDefinitionCondition.and(ratingCondition)))
+                .fetchSet(TO_DOMAIN_MAPPER);
+    }
+
+
     public List<AssessmentRating> findByDefinitionId(long definitionId) {
         return dsl
                 .select(ar.fields())
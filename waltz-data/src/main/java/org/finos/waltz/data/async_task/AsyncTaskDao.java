@@ -0,0 +1,279 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.async_task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.model.async_task.AsyncTask;
+import org.finos.waltz.model.async_task.AsyncTaskStatus;
+import org.finos.waltz.model.async_task.ImmutableAsyncTask;
+import org.finos.waltz.schema.tables.records.AsyncTaskRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.UpdateSetMoreStep;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Optional.ofNullable;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.common.StringUtilities.limit;
+import static org.finos.waltz.schema.Tables.ASYNC_TASK;
+
+@Repository
+public class AsyncTaskDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncTaskDao.class);
+
+    private static final int MAX_PROGRESS_MESSAGE_LENGTH = 255;
+
+    private static final Condition IS_UNFINISHED = ASYNC_TASK.STATUS.in(
+            AsyncTaskStatus.QUEUED.name(),
+            AsyncTaskStatus.RUNNING.name());
+
+    private static final RecordMapper<Record, AsyncTask> TO_DOMAIN_MAPPER = r -> {
+        AsyncTaskRecord record = r.into(ASYNC_TASK);
+
+        return ImmutableAsyncTask.builder()
+                .id(record.getId())
+                .kind(record.getKind())
+                .description(record.getDescription())
+                .status(AsyncTaskStatus.valueOf(record.getStatus()))
+                .progressCurrent(record.getProgressCurrent())
+                .progressTotal(record.getProgressTotal())
+                .progressMessage(record.getProgressMessage())
+                .result(readResult(record.getId(), record.getResult()))
+                .errorMessage(record.getErrorMessage())
+                .cancelRequested(record.getCancelRequested())
+                .submittedBy(record.getSubmittedBy())
+                .submittedAt(DateTimeUtilities.toLocalDateTime(record.getSubmittedAt()))
+                .startedAt(ofNullable(record.getStartedAt()).map(Timestamp::toLocalDateTime).orElse(null))
+                .completedAt(ofNullable(record.getCompletedAt()).map(Timestamp::toLocalDateTime).orElse(null))
+                .lastUpdatedAt(DateTimeUtilities.toLocalDateTime(record.getLastUpdatedAt()))
+                .build();
+    };
+
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public AsyncTaskDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public AsyncTask getById(long id) {
+        return dsl
+                .select(ASYNC_TASK.fields())
+                .from(ASYNC_TASK)
+                .where(ASYNC_TASK.ID.eq(id))
+                .fetchOne(TO_DOMAIN_MAPPER);
+    }
+
+
+    public List<AsyncTask> findBySubmitter(String userId, int limit) {
+        return dsl
+                .select(ASYNC_TASK.fields())
+                .from(ASYNC_TASK)
+                .where(ASYNC_TASK.SUBMITTED_BY.eq(userId))
+                .orderBy(ASYNC_TASK.SUBMITTED_AT.desc(), ASYNC_TASK.ID.desc())
+                .limit(limit)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    public List<AsyncTask> findRecent(int limit) {
+        return dsl
+                .select(ASYNC_TASK.fields())
+                .from(ASYNC_TASK)
+                .orderBy(ASYNC_TASK.SUBMITTED_AT.desc(), ASYNC_TASK.ID.desc())
+                .limit(limit)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    public long create(String kind, String description, String userId) {
+        Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+
+        AsyncTaskRecord record = dsl.newRecord(ASYNC_TASK);
+        record.setKind(kind);
+        record.setDescription(description);
+        record.setStatus(AsyncTaskStatus.QUEUED.name());
+        record.setProgressCurrent(0);
+        record.setCancelRequested(false);
+        record.setSubmittedBy(userId);
+        record.setSubmittedAt(now);
+        record.setLastUpdatedAt(now);
+        record.store();
+
+        return record.getId();
+    }
+
+
+    /**
+     * @return true if the task was queued (and not cancelled) and is now running
+     */
+    public boolean markRunning(long id) {
+        Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+        return dsl
+                .update(ASYNC_TASK)
+                .set(ASYNC_TASK.STATUS, AsyncTaskStatus.RUNNING.name())
+                .set(ASYNC_TASK.STARTED_AT, now)
+                .set(ASYNC_TASK.LAST_UPDATED_AT, now)
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(ASYNC_TASK.STATUS.eq(AsyncTaskStatus.QUEUED.name()))
+                .and(ASYNC_TASK.CANCEL_REQUESTED.isFalse())
+                .execute() == 1;
+    }
+
+
+    public int updateProgress(long id, int current, Integer total, String message) {
+        return dsl
+                .update(ASYNC_TASK)
+                .set(ASYNC_TASK.PROGRESS_CURRENT, current)
+                .set(ASYNC_TASK.PROGRESS_TOTAL, total)
+                .set(ASYNC_TASK.PROGRESS_MESSAGE, limit(message, MAX_PROGRESS_MESSAGE_LENGTH))
+                .set(ASYNC_TASK.LAST_UPDATED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(ASYNC_TASK.STATUS.eq(AsyncTaskStatus.RUNNING.name()))
+                .execute();
+    }
+
+
+    public boolean markCompleted(long id, String resultJson) {
+        return mkFinishUpdate(AsyncTaskStatus.COMPLETED)
+                .set(ASYNC_TASK.RESULT, resultJson)
+                .set(ASYNC_TASK.PROGRESS_CURRENT, DSL.coalesce(ASYNC_TASK.PROGRESS_TOTAL, ASYNC_TASK.PROGRESS_CURRENT))
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(IS_UNFINISHED)
+                .execute() == 1;
+    }
+
+
+    public boolean markFailed(long id, String errorMessage) {
+        return mkFinishUpdate(AsyncTaskStatus.FAILED)
+                .set(ASYNC_TASK.ERROR_MESSAGE, errorMessage)
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(IS_UNFINISHED)
+                .execute() == 1;
+    }
+
+
+    public boolean markCancelled(long id) {
+        return mkFinishUpdate(AsyncTaskStatus.CANCELLED)
+                .set(ASYNC_TASK.CANCEL_REQUESTED, true)
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(IS_UNFINISHED)
+                .execute() == 1;
+    }
+
+
+    /**
+     * Flags an unfinished task as cancelled, it is up to the task (or the queue) to act upon it.
+     * @return true if the task was unfinished
+     */
+    public boolean requestCancel(long id) {
+        return dsl
+                .update(ASYNC_TASK)
+                .set(ASYNC_TASK.CANCEL_REQUESTED, true)
+                .set(ASYNC_TASK.LAST_UPDATED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(ASYNC_TASK.ID.eq(id))
+                .and(IS_UNFINISHED)
+                .execute() == 1;
+    }
+
+
+    public boolean isCancelRequested(long id) {
+        return dsl.fetchExists(
+                ASYNC_TASK,
+                ASYNC_TASK.ID.eq(id).and(ASYNC_TASK.CANCEL_REQUESTED.isTrue()));
+    }
+
+
+    /**
+     * Refreshes the last updated timestamp of tasks which are still queued or running
+     */
+    public int touch(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return dsl
+                .update(ASYNC_TASK)
+                .set(ASYNC_TASK.LAST_UPDATED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(ASYNC_TASK.ID.in(ids))
+                .and(IS_UNFINISHED)
+                .execute();
+    }
+
+
+    /**
+     * Fails unfinished tasks which have not been refreshed since the given time, typically
+     * because the server running them was stopped.
+     */
+    public int failAbandoned(Timestamp notUpdatedSince) {
+        return mkFinishUpdate(AsyncTaskStatus.FAILED)
+                .set(ASYNC_TASK.ERROR_MESSAGE, "Task abandoned, the server running it may have been restarted")
+                .where(IS_UNFINISHED)
+                .and(ASYNC_TASK.LAST_UPDATED_AT.lt(notUpdatedSince))
+                .execute();
+    }
+
+
+    // --- helpers
+
+    /**
+     * Callers must restrict the update to unfinished tasks so a task only finishes once
+     */
+    private UpdateSetMoreStep<AsyncTaskRecord> mkFinishUpdate(AsyncTaskStatus finalStatus) {
+        Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+        return dsl
+                .update(ASYNC_TASK)
+                .set(ASYNC_TASK.STATUS, finalStatus.name())
+                .set(ASYNC_TASK.COMPLETED_AT, now)
+                .set(ASYNC_TASK.LAST_UPDATED_AT, now);
+    }
+
+
+    private static JsonNode readResult(long id, String json) {
+        if (json == null) {
+            return null;
+        }
+
+        try {
+            return getJsonMapper().readTree(json);
+        } catch (JsonProcessingException e) {
+            LOG.warn("Could not parse result of async task: {}", id, e);
+            return null;
+        }
+    }
+
+}
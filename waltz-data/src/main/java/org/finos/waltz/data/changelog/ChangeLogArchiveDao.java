@@ -0,0 +1,144 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.changelog;
+
+import org.finos.waltz.schema.tables.ChangeLogArchive;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_ARCHIVE;
+import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+
+/**
+ * Moves old change log entries from <code>change_log</code> to <code>change_log_archive</code>,
+ * keeping the main table (and its indexes) small.  Reads which reach back before the
+ * archive horizon consult both tables, see {@link ChangeLogDao}.
+ * <p>
+ * Entries are only archived once they have been included in the daily rollups (see
+ * {@link ChangeLogRollupDao}), so archiving does not change any summary counts.
+ */
+@Repository
+public class ChangeLogArchiveDao {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final ChangeLogArchive cla = CHANGE_LOG_ARCHIVE;
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public ChangeLogArchiveDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl must not be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @param createdBefore entries created before this time are archived
+     * @param maxBatches    limits the amount of work done in one call, each batch
+     *                      archives up to 10k entries in its own transaction
+     * @return number of entries archived
+     */
+    public int archive(Timestamp createdBefore, int maxBatches) {
+        checkNotNull(createdBefore, "createdBefore cannot be null");
+        checkTrue(maxBatches > 0, "maxBatches must be positive");
+
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int archived = archiveBatch(createdBefore);
+            total += archived;
+            if (archived < BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+
+    // --- helpers
+
+    private int archiveBatch(Timestamp createdBefore) {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            Field<Long> changeLogId = CHANGE_LOG.ID.coerce(Long.class);
+
+            Condition archivable = CHANGE_LOG.CREATED_AT.lt(createdBefore)
+                    .and(changeLogId.le(ChangeLogRollupDao.mkLastRolledUpId()));
+
+            List<Long> ids = tx
+                    .select(changeLogId)
+                    .from(CHANGE_LOG)
+                    .where(archivable)
+                    .orderBy(changeLogId)
+                    .limit(BATCH_SIZE)
+                    .fetch(changeLogId);
+
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            Condition inBatch = archivable.and(changeLogId.le(ids.get(ids.size() - 1)));
+
+            int archived = tx
+                    .insertInto(cla)
+                    .columns(cla.ID,
+                            cla.PARENT_KIND,
+                            cla.PARENT_ID,
+                            cla.MESSAGE,
+                            cla.USER_ID,
+                            cla.SEVERITY,
+                            cla.CREATED_AT,
+                            cla.CHILD_KIND,
+                            cla.OPERATION,
+                            cla.CHILD_ID)
+                    .select(DSL
+                            .select(changeLogId,
+                                    CHANGE_LOG.PARENT_KIND,
+                                    CHANGE_LOG.PARENT_ID,
+                                    CHANGE_LOG.MESSAGE,
+                                    CHANGE_LOG.USER_ID,
+                                    CHANGE_LOG.SEVERITY,
+                                    CHANGE_LOG.CREATED_AT,
+                                    CHANGE_LOG.CHILD_KIND,
+                                    CHANGE_LOG.OPERATION,
+                                    CHANGE_LOG.CHILD_ID)
+                            .from(CHANGE_LOG)
+                            .where(inBatch))
+                    .execute();
+
+            tx.deleteFrom(CHANGE_LOG)
+                    .where(inBatch)
+                    .execute();
+
+            return archived;
+        });
+    }
+
+}
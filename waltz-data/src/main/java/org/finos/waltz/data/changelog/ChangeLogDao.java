@@ -25,18 +25,24 @@ import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.tally.OrderedTally;
 import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.schema.tables.AttestationInstance;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Query;
+import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record1;
+import org.jooq.Record3;
 import org.jooq.Record4;
 import org.jooq.RecordMapper;
+import org.jooq.Select;
 import org.jooq.SelectConditionStep;
-import org.jooq.SelectOrderByStep;
+import org.jooq.SelectHavingStep;
 import org.jooq.Table;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,15 +50,20 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
 import static org.finos.waltz.data.JooqUtilities.*;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_ARCHIVE;
 import static org.finos.waltz.schema.Tables.PERSON;
 import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
 
@@ -62,6 +73,14 @@ public class ChangeLogDao {
 
     private final DSLContext dsl;
 
+    /**
+     * The archive has the same structure as the change log, so the archive table is
+     * referred to via the change log's (typed) fields
+     */
+    private static final org.finos.waltz.schema.tables.ChangeLog CHANGE_LOG_ARCHIVED = CHANGE_LOG.rename(CHANGE_LOG_ARCHIVE.getName());
+
+    private static final Field<Integer> CONTRIBUTION_COUNT = DSL.sum(ChangeLogRollupDao.CHANGE_COUNT).cast(Integer.class);
+
     public static final RecordMapper<? super Record, ChangeLog> TO_DOMAIN_MAPPER = r -> {
         ChangeLogRecord record = r.into(ChangeLogRecord.class);
 
@@ -71,6 +90,7 @@ public class ChangeLogDao {
                 .build();
 
         return ImmutableChangeLog.builder()
+                .id(Optional.ofNullable(record.getId()))
                 .userId(record.getUserId())
                 .message(record.getMessage())
                 .severity(Severity.valueOf(record.getSeverity()))
@@ -133,20 +153,41 @@ public class ChangeLogDao {
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
+        return findIncludingArchive(
+                t -> DSL
+                        .select(t.fields())
+                        .from(t)
+                        .where(t.PARENT_ID.eq(ref.id()))
+                        .and(t.PARENT_KIND.eq(ref.kind().name()))
+                        .and(mkOptionalDateCondition(t, date)),
+                date.map(d -> new Timestamp(d.getTime())),
+                limit);
+    }
 
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
 
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
-                .and(dateCondition)
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+    /**
+     * Keyset paged variant of {@link #findByParentReference(EntityReference, Optional, Optional)}.
+     * Entries are ordered most recent first (by creation time then id), the cursor
+     * carries both so the next page starts where the previous one ended.
+     */
+    public Page<ChangeLog> findByParentReference(EntityReference ref,
+                                                 Optional<java.util.Date> date,
+                                                 PageRequest pageRequest) {
+        checkNotNull(ref, "ref must not be null");
+        checkNotNull(pageRequest, "pageRequest must not be null");
+
+        List<ChangeLog> rows = findIncludingArchive(
+                t -> DSL
+                        .select(t.fields())
+                        .from(t)
+                        .where(t.PARENT_ID.eq(ref.id()))
+                        .and(t.PARENT_KIND.eq(ref.kind().name()))
+                        .and(mkOptionalDateCondition(t, date))
+                        .and(mkBeforeCursorCondition(t, pageRequest.after())),
+                date.map(d -> new Timestamp(d.getTime())),
+                Optional.of(pageRequest.limit() + 1));
+
+        return Page.fromOverfetchedRows(rows, pageRequest, ChangeLogDao::mkCursor);
     }
 
 
@@ -155,34 +196,32 @@ public class ChangeLogDao {
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
+        return findIncludingArchive(
+                t -> mkByPersonQuery(t, ref, mkOptionalDateCondition(t, date)),
+                date.map(d -> new Timestamp(d.getTime())),
+                limit);
+    }
 
-        SelectConditionStep<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(dateCondition)
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()));
 
-        SelectConditionStep<Record> byUserId = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .innerJoin(PERSON).on(PERSON.EMAIL.eq(CHANGE_LOG.USER_ID))
-                .where(PERSON.ID.eq(ref.id()))
-                .and(dateCondition);
+    /**
+     * Keyset paged variant of {@link #findByPersonReference(EntityReference, Optional, Optional)},
+     * see {@link #findByParentReference(EntityReference, Optional, PageRequest)}.
+     */
+    public Page<ChangeLog> findByPersonReference(EntityReference ref,
+                                                 Optional<java.util.Date> date,
+                                                 PageRequest pageRequest) {
+        checkNotNull(ref, "ref must not be null");
+        checkNotNull(pageRequest, "pageRequest must not be null");
 
-        SelectOrderByStep<Record> union = byParentRef.unionAll(byUserId);
+        List<ChangeLog> rows = findIncludingArchive(
+                t -> mkByPersonQuery(
+                        t,
+                        ref,
+                        mkOptionalDateCondition(t, date).and(mkBeforeCursorCondition(t, pageRequest.after()))),
+                date.map(d -> new Timestamp(d.getTime())),
+                Optional.of(pageRequest.limit() + 1));
 
-        return dsl
-                .select(union.fields())
-                .from(union.asTable())
-                .orderBy(union.field("created_at").desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return Page.fromOverfetchedRows(rows, pageRequest, ChangeLogDao::mkCursor);
     }
 
 
@@ -192,18 +231,15 @@ public class ChangeLogDao {
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
-                .and(dateCondition)
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return findIncludingArchive(
+                t -> DSL
+                        .select(t.fields())
+                        .from(t)
+                        .where(t.PARENT_ID.eq(ref.id()))
+                        .and(t.PARENT_KIND.eq(ref.kind().name()))
+                        .and(mkDateRangeCondition(t.CREATED_AT, startDate, endDate)),
+                Optional.of(new Timestamp(startDate.getTime())),
+                limit);
     }
 
 
@@ -213,32 +249,10 @@ public class ChangeLogDao {
                                                              Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        SelectConditionStep<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(dateCondition)
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()));
-
-        SelectConditionStep<Record> byUserId = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .innerJoin(PERSON).on(PERSON.EMAIL.eq(CHANGE_LOG.USER_ID))
-                .where(PERSON.ID.eq(ref.id()))
-                .and(dateCondition);
-
-        SelectOrderByStep<Record> union = byParentRef.unionAll(byUserId);
-
-        return dsl
-                .select(union.fields())
-                .from(union.asTable())
-                .orderBy(union.field("created_at").desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return findIncludingArchive(
+                t -> mkByPersonQuery(t, ref, mkDateRangeCondition(t.CREATED_AT, startDate, endDate)),
+                Optional.of(new Timestamp(startDate.getTime())),
+                limit);
     }
 
 
@@ -246,21 +260,18 @@ public class ChangeLogDao {
                                       Optional<Integer> limit) {
         checkNotEmpty(userName, "Username cannot be empty");
 
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.USER_ID.equalIgnoreCase(userName))
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limit.orElse(Integer.MAX_VALUE))
-                .fetch(TO_DOMAIN_MAPPER);
+        return findIncludingArchive(
+                t -> DSL
+                        .select(t.fields())
+                        .from(t)
+                        .where(t.USER_ID.equalIgnoreCase(userName)),
+                Optional.empty(),
+                limit);
     }
 
 
     public List<OrderedTally<String>> getContributionLeaderBoard(int limit) {
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    DSL.trueCondition())
+        return mkContributionTallyQuery(DSL.trueCondition())
                 .orderBy(TALLY_COUNT_FIELD.desc())
                 .limit(limit)
                 .fetch(TO_ORDERED_STRING_TALLY);
@@ -270,14 +281,10 @@ public class ChangeLogDao {
 
     public List<OrderedTally<String>> getContributionLeaderBoardLastMonth(int limit) {
 
-        LocalDateTime monthStart = LocalDateTime.of(nowUtc().getYear(), nowUtc().getMonth(), 1, 0, 0);
-        Condition condition = CHANGE_LOG.CREATED_AT.greaterThan(Timestamp.valueOf(monthStart));
+        LocalDate monthStart = LocalDate.of(nowUtc().getYear(), nowUtc().getMonth(), 1);
+        Condition condition = ChangeLogRollupDao.CHANGE_DATE.ge(toSqlDate(monthStart));
 
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    condition)
+        return mkContributionTallyQuery(condition)
                 .orderBy(TALLY_COUNT_FIELD.desc())
                 .limit(limit)
                 .fetch(TO_ORDERED_STRING_TALLY);
@@ -285,22 +292,18 @@ public class ChangeLogDao {
 
 
     public List<OrderedTally<String>> getRankingOfContributors() {
-
-        return makeOrderedTallyQuery(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                DSL.trueCondition())
+        return mkContributionTallyQuery(DSL.trueCondition())
                 .fetch(TO_ORDERED_STRING_TALLY);
     }
 
 
     public List<Tally<String>> getContributionScoresForUsers(List<String> userIds) {
-        return calculateStringTallies(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                CHANGE_LOG.USER_ID.in(userIds));
+        return dsl
+                .select(ChangeLogRollupDao.USER_ID, CONTRIBUTION_COUNT.as(TALLY_COUNT_FIELD))
+                .from(ChangeLogRollupDao.mkDailyCounts())
+                .where(ChangeLogRollupDao.USER_ID.in(userIds))
+                .groupBy(ChangeLogRollupDao.USER_ID)
+                .fetch(TO_STRING_TALLY);
     }
 
 
@@ -326,25 +329,32 @@ public class ChangeLogDao {
     public int[] write(Collection<ChangeLog> changeLogs) {
         checkNotNull(changeLogs, "changeLogs must not be null");
 
-        Query[] queries = changeLogs
+        List<ChangeLogRecord> records = changeLogs
                 .stream()
-                .map(changeLog -> DSL.insertInto(CHANGE_LOG)
-                        .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                        .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                        .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                        .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                        .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                        .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(Enum::name).orElse(null))
-                        .set(CHANGE_LOG.CHILD_ID, changeLog.childId().orElse(null))
-                        .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                        .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
-                .toArray(Query[]::new);
+                .map(ChangeLogDao::mkRecord)
+                .collect(Collectors.toList());
+
         return dsl
-                .batch(queries)
+                .batchInsert(records)
                 .execute();
     }
 
 
+    private static ChangeLogRecord mkRecord(ChangeLog changeLog) {
+        ChangeLogRecord record = new ChangeLogRecord();
+        record.setMessage(changeLog.message());
+        record.setParentId(changeLog.parentReference().id());
+        record.setParentKind(changeLog.parentReference().kind().name());
+        record.setUserId(changeLog.userId());
+        record.setSeverity(changeLog.severity().name());
+        record.setChildKind(changeLog.childKind().map(Enum::name).orElse(null));
+        record.setChildId(changeLog.childId().orElse(null));
+        record.setOperation(changeLog.operation().name());
+        record.setCreatedAt(Timestamp.valueOf(changeLog.createdAt()));
+        return record;
+    }
+
+
     /**
      * Given an entity ref this function will determine all changelog entries made _after_ the latest
      * attestations for that entity.  Change log is matched between the attestation kind and the change
@@ -362,4 +372,124 @@ public class ChangeLogDao {
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+    /**
+     * Contribution counts are read from the daily change log rollups (see {@link ChangeLogRollupDao}).
+     */
+    private SelectHavingStep<Record3<String, Integer, Integer>> mkContributionTallyQuery(Condition condition) {
+        return dsl
+                .select(ChangeLogRollupDao.USER_ID,
+                        CONTRIBUTION_COUNT.as(TALLY_COUNT_FIELD),
+                        DSL.rowNumber().over(DSL.orderBy(CONTRIBUTION_COUNT.desc())))
+                .from(ChangeLogRollupDao.mkDailyCounts())
+                .where(condition)
+                .groupBy(ChangeLogRollupDao.USER_ID);
+    }
+
+
+    /**
+     * Runs the query against the main change log table and, if the results may
+     * reach back to archived entries, against the archive as well (see {@link ChangeLogArchiveDao}).
+     * Results are ordered most recent first.
+     *
+     * @param query    builds the query for a table, either <code>change_log</code> or the archive
+     * @param earliest the earliest creation time the query can match, empty if unbounded
+     */
+    private List<ChangeLog> findIncludingArchive(Function<org.finos.waltz.schema.tables.ChangeLog, Select<Record>> query,
+                                                 Optional<Timestamp> earliest,
+                                                 Optional<Integer> limit) {
+        int limitValue = limit.orElse(Integer.MAX_VALUE);
+
+        List<ChangeLog> recent = fetchMostRecent(query.apply(CHANGE_LOG), limitValue);
+
+        Optional<LocalDateTime> latestArchivedAt = findLatestArchivedAt();
+        if (!latestArchivedAt.isPresent()) {
+            return recent;
+        }
+
+        boolean rangeAfterArchive = earliest
+                .map(e -> e.toLocalDateTime().isAfter(latestArchivedAt.get()))
+                .orElse(false);
+
+        boolean limitReachedAfterArchive = recent.size() >= limitValue
+                && recent.get(recent.size() - 1).createdAt().isAfter(latestArchivedAt.get());
+
+        if (rangeAfterArchive || limitReachedAfterArchive) {
+            return recent;
+        }
+
+        return fetchMostRecent(
+                query.apply(CHANGE_LOG).unionAll(query.apply(CHANGE_LOG_ARCHIVED)),
+                limitValue);
+    }
+
+
+    private List<ChangeLog> fetchMostRecent(Select<Record> query, int limit) {
+        Table<Record> entries = query.asTable("change_log_entries");
+
+        return dsl
+                .select(entries.fields())
+                .from(entries)
+                .orderBy(
+                        entries.field(CHANGE_LOG.CREATED_AT.getName()).desc(),
+                        entries.field(CHANGE_LOG.ID.getName()).desc())
+                .limit(limit)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    private Optional<LocalDateTime> findLatestArchivedAt() {
+        return dsl
+                .select(DSL.max(CHANGE_LOG_ARCHIVE.CREATED_AT))
+                .from(CHANGE_LOG_ARCHIVE)
+                .fetchOptional()
+                .map(Record1::value1)
+                .map(Timestamp::toLocalDateTime);
+    }
+
+
+    private static Select<Record> mkByPersonQuery(org.finos.waltz.schema.tables.ChangeLog t,
+                                                  EntityReference ref,
+                                                  Condition dateCondition) {
+        SelectConditionStep<Record> byParentRef = DSL
+                .select(t.fields())
+                .from(t)
+                .where(t.PARENT_ID.eq(ref.id()))
+                .and(dateCondition)
+                .and(t.PARENT_KIND.eq(ref.kind().name()));
+
+        SelectConditionStep<Record> byUserId = DSL
+                .select(t.fields())
+                .from(t)
+                .innerJoin(PERSON).on(PERSON.EMAIL.eq(t.USER_ID))
+                .where(PERSON.ID.eq(ref.id()))
+                .and(dateCondition);
+
+        return byParentRef.unionAll(byUserId);
+    }
+
+
+    private static Condition mkOptionalDateCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                                     Optional<java.util.Date> date) {
+        return date
+                .map(d -> mkDateRangeCondition(t.CREATED_AT, d))
+                .orElse(DSL.trueCondition());
+    }
+
+
+    private static PageCursor mkCursor(ChangeLog changeLog) {
+        return PageCursor.mkCursor(changeLog.createdAt().toString(), changeLog.id().get());
+    }
+
+
+    private static Condition mkBeforeCursorCondition(org.finos.waltz.schema.tables.ChangeLog t,
+                                                     Optional<PageCursor> cursor) {
+        return cursor
+                .map(c -> DSL
+                        .row(t.CREATED_AT, t.ID)
+                        .lt(Timestamp.valueOf(LocalDateTime.parse(checkNotNull(c.sortKey(), "change log cursors must have a sort key"))),
+                            c.id()))
+                .orElse(DSL.trueCondition());
+    }
+
 }
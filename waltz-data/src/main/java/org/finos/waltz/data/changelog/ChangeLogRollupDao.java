@@ -0,0 +1,279 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.changelog;
+
+import org.finos.waltz.schema.tables.ChangeLogDailyRollup;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record6;
+import org.jooq.Result;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_DAILY_ROLLUP;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_ROLLUP_STATE;
+import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+
+/**
+ * Maintains daily counts of change log entries (per parent entity, child kind and
+ * user) in <code>change_log_daily_rollup</code>.
+ * <p>
+ * Entries are rolled up in id order, <code>change_log_rollup_state</code> records the
+ * last id included.  Queries combine the rollups with the (few) entries made since,
+ * see {@link #mkDailyCounts()}, so results are always current even if the rollups
+ * have not been refreshed recently.
+ */
+@Repository
+public class ChangeLogRollupDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogRollupDao.class);
+
+    private static final String ROLLUP_NAME = "CHANGE_LOG_DAILY";
+
+    /**
+     * Maximum number of change log ids rolled up in a single transaction
+     */
+    private static final int BATCH_SIZE = 200_000;
+
+    /**
+     * Recent entries are left for the next refresh, this gives transactions which
+     * allocated a lower id time to commit before the watermark moves past it
+     */
+    private static final Duration SETTLE_PERIOD = Duration.ofMinutes(2);
+
+    private static final ChangeLogDailyRollup r = CHANGE_LOG_DAILY_ROLLUP;
+
+    public static final Field<String> PARENT_KIND = DSL.field(DSL.name("daily_counts", "parent_kind"), String.class);
+    public static final Field<Long> PARENT_ID = DSL.field(DSL.name("daily_counts", "parent_id"), Long.class);
+    public static final Field<String> CHILD_KIND = DSL.field(DSL.name("daily_counts", "child_kind"), String.class);
+    public static final Field<String> USER_ID = DSL.field(DSL.name("daily_counts", "user_id"), String.class);
+    public static final Field<Date> CHANGE_DATE = DSL.field(DSL.name("daily_counts", "change_date"), Date.class);
+    public static final Field<Integer> CHANGE_COUNT = DSL.field(DSL.name("daily_counts", "change_count"), Integer.class);
+
+    private static final Field<Date> CREATED_DATE = DSL.date(CHANGE_LOG.CREATED_AT);
+
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public ChangeLogRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl must not be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * A derived table (<code>daily_counts</code>) giving the number of change log
+     * entries per parent, child kind, user and day.  It is the union of the rollups
+     * and the entries made since they were last refreshed, use the field constants
+     * on this class to refer to its columns.
+     */
+    public static Table<Record6<String, Long, String, String, Date, Integer>> mkDailyCounts() {
+        return DSL
+                .select(r.PARENT_KIND.as(PARENT_KIND.getName()),
+                        r.PARENT_ID.as(PARENT_ID.getName()),
+                        r.CHILD_KIND.as(CHILD_KIND.getName()),
+                        r.USER_ID.as(USER_ID.getName()),
+                        r.CHANGE_DATE.as(CHANGE_DATE.getName()),
+                        r.CHANGE_COUNT.as(CHANGE_COUNT.getName()))
+                .from(r)
+                .unionAll(mkRawCounts(CHANGE_LOG.ID.coerce(Long.class).gt(mkLastRolledUpId())))
+                .asTable("daily_counts");
+    }
+
+
+    /**
+     * Rolls up any change log entries made since the last refresh.
+     *
+     * @return number of change log entries rolled up
+     */
+    public int refresh() {
+        Field<Long> changeLogId = CHANGE_LOG.ID.coerce(Long.class);
+        Timestamp settledBefore = Timestamp.valueOf(nowUtc().minus(SETTLE_PERIOD));
+
+        Long lastSettledId = dsl
+                .select(DSL.max(changeLogId))
+                .from(CHANGE_LOG)
+                .where(changeLogId.gt(mkLastRolledUpId()))
+                .and(CHANGE_LOG.CREATED_AT.lt(settledBefore))
+                .fetchOne()
+                .value1();
+
+        if (lastSettledId == null) {
+            return 0;
+        }
+
+        int total = 0;
+        int rolledUp;
+        while ((rolledUp = refreshBatch(lastSettledId)) >= 0) {
+            total += rolledUp;
+        }
+        LOG.debug("Rolled up {} change log entries", total);
+        return total;
+    }
+
+
+    // --- helpers
+
+    /**
+     * The id of the last change log entry included in the rollups, entries are not
+     * archived until they have been rolled up (see {@link ChangeLogArchiveDao})
+     */
+    static Field<Long> mkLastRolledUpId() {
+        return DSL
+                .select(CHANGE_LOG_ROLLUP_STATE.LAST_CHANGE_LOG_ID)
+                .from(CHANGE_LOG_ROLLUP_STATE)
+                .where(CHANGE_LOG_ROLLUP_STATE.NAME.eq(ROLLUP_NAME))
+                .asField();
+    }
+
+
+    /**
+     * Rolls up the next batch of entries, without going past the given id.
+     *
+     * @return number of entries rolled up, or -1 if there is nothing left to roll up
+     */
+    private int refreshBatch(long lastSettledId) {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            // locking the state row stops servers refreshing concurrently
+            Long lastRolledUpId = tx
+                    .select(CHANGE_LOG_ROLLUP_STATE.LAST_CHANGE_LOG_ID)
+                    .from(CHANGE_LOG_ROLLUP_STATE)
+                    .where(CHANGE_LOG_ROLLUP_STATE.NAME.eq(ROLLUP_NAME))
+                    .forUpdate()
+                    .fetchOne(CHANGE_LOG_ROLLUP_STATE.LAST_CHANGE_LOG_ID);
+
+            if (lastRolledUpId == null || lastRolledUpId >= lastSettledId) {
+                return -1;
+            }
+
+            long upToId = Math.min(lastSettledId, lastRolledUpId + BATCH_SIZE);
+            Field<Long> changeLogId = CHANGE_LOG.ID.coerce(Long.class);
+
+            Result<Record6<String, Long, String, String, Date, Integer>> counts = tx
+                    .fetch(mkRawCounts(changeLogId.gt(lastRolledUpId).and(changeLogId.le(upToId))));
+
+            addCounts(tx, counts);
+
+            tx.update(CHANGE_LOG_ROLLUP_STATE)
+                    .set(CHANGE_LOG_ROLLUP_STATE.LAST_CHANGE_LOG_ID, upToId)
+                    .set(CHANGE_LOG_ROLLUP_STATE.LAST_UPDATED_AT, nowUtcTimestamp())
+                    .where(CHANGE_LOG_ROLLUP_STATE.NAME.eq(ROLLUP_NAME))
+                    .execute();
+
+            return counts
+                    .stream()
+                    .mapToInt(Record6::value6)
+                    .sum();
+        });
+    }
+
+
+    /**
+     * Adds the given counts to the existing rollup rows, creating rows where
+     * there are none.  Entries are usually for the current day but may have been
+     * back-dated, so existing rows cannot be assumed.
+     */
+    private static void addCounts(DSLContext tx,
+                                  Result<Record6<String, Long, String, String, Date, Integer>> counts) {
+        List<Query> updates = new ArrayList<>(counts.size());
+        for (Record6<String, Long, String, String, Date, Integer> count : counts) {
+            updates.add(tx
+                    .update(r)
+                    .set(r.CHANGE_COUNT, r.CHANGE_COUNT.plus(count.value6()))
+                    .where(mkKeyCondition(count)));
+        }
+
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        int[] updated = tx.batch(updates).execute();
+
+        List<Query> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Record6<String, Long, String, String, Date, Integer> count = counts.get(i);
+                inserts.add(tx
+                        .insertInto(r)
+                        .set(r.PARENT_KIND, count.value1())
+                        .set(r.PARENT_ID, count.value2())
+                        .set(r.CHILD_KIND, count.value3())
+                        .set(r.USER_ID, count.value4())
+                        .set(r.CHANGE_DATE, count.value5())
+                        .set(r.CHANGE_COUNT, count.value6()));
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            tx.batch(inserts).execute();
+        }
+    }
+
+
+    private static Condition mkKeyCondition(Record6<String, Long, String, String, Date, Integer> count) {
+        Condition childKindCondition = count.value3() == null
+                ? r.CHILD_KIND.isNull()
+                : r.CHILD_KIND.eq(count.value3());
+
+        return r.PARENT_KIND.eq(count.value1())
+                .and(r.PARENT_ID.eq(count.value2()))
+                .and(childKindCondition)
+                .and(r.USER_ID.eq(count.value4()))
+                .and(r.CHANGE_DATE.eq(count.value5()));
+    }
+
+
+    private static Select<Record6<String, Long, String, String, Date, Integer>> mkRawCounts(Condition condition) {
+        return DSL
+                .select(CHANGE_LOG.PARENT_KIND,
+                        CHANGE_LOG.PARENT_ID,
+                        CHANGE_LOG.CHILD_KIND,
+                        CHANGE_LOG.USER_ID,
+                        CREATED_DATE,
+                        DSL.count())
+                .from(CHANGE_LOG)
+                .where(condition)
+                .groupBy(CHANGE_LOG.PARENT_KIND,
+                        CHANGE_LOG.PARENT_ID,
+                        CHANGE_LOG.CHILD_KIND,
+                        CHANGE_LOG.USER_ID,
+                        CREATED_DATE);
+    }
+
+}
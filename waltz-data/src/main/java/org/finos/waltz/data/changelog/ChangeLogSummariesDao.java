@@ -26,7 +26,6 @@ import org.finos.waltz.model.tally.ChangeLogTally;
 import org.finos.waltz.model.tally.DateTally;
 import org.finos.waltz.model.tally.ImmutableChangeLogTally;
 import org.finos.waltz.model.tally.ImmutableDateTally;
-import org.jooq.AggregateFunction;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
@@ -41,24 +40,34 @@ import java.sql.Date;
 import java.util.List;
 import java.util.Optional;
 
-import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
-import static org.finos.waltz.data.JooqUtilities.mkDateRangeCondition;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.CHANGE_COUNT;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.CHANGE_DATE;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.CHILD_KIND;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.PARENT_ID;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.PARENT_KIND;
+import static org.finos.waltz.data.changelog.ChangeLogRollupDao.mkDailyCounts;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
 
+/**
+ * Summaries are calculated from the daily change log rollups (see {@link ChangeLogRollupDao})
+ * rather than the raw change log.
+ */
 @Repository
 public class ChangeLogSummariesDao {
 
     private final DSLContext dsl;
 
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
-            CHANGE_LOG.PARENT_ID,
-            CHANGE_LOG.PARENT_KIND,
+            PARENT_ID,
+            PARENT_KIND,
             newArrayList(EntityKind.APPLICATION))
             .as("entity_name");
 
+    private static final Field<Integer> COUNT_FIELD = DSL.sum(CHANGE_COUNT).cast(Integer.class).as("count");
+
 
     private static final RecordMapper<Record2<Date,Integer>, DateTally> TO_DATE_TALLY_MAPPER = record -> {
         Date date = record.value1();
@@ -98,15 +107,13 @@ public class ChangeLogSummariesDao {
                                                                   Optional<Integer> limit) {
         checkNotNull(selector, "selector must not be null");
 
-        Field<Date> date = DSL.date(CHANGE_LOG.CREATED_AT);
-
         return dsl
-                .select(date, DSL.count(CHANGE_LOG.ID))
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.in(selector.selector())
-                .and(CHANGE_LOG.PARENT_KIND.eq(selector.kind().name())))
-                .groupBy(date)
-                .orderBy(date.desc())
+                .select(CHANGE_DATE, COUNT_FIELD)
+                .from(mkDailyCounts())
+                .where(PARENT_ID.in(selector.selector())
+                .and(PARENT_KIND.eq(selector.kind().name())))
+                .groupBy(CHANGE_DATE)
+                .orderBy(CHANGE_DATE.desc())
                 .limit(limit.orElse(365))
                 .fetch(TO_DATE_TALLY_MAPPER);
     }
@@ -118,22 +125,21 @@ public class ChangeLogSummariesDao {
                                                                                     Optional<Integer> limit) {
         checkNotNull(genericSelector, "genericSelector must not be null");
 
-        AggregateFunction<Integer> count = DSL.count(CHANGE_LOG.ID);
-        Condition dateRangeCondition = mkDateRangeCondition(CHANGE_LOG.CREATED_AT, startDate, endDate);
+        Condition dateRangeCondition = CHANGE_DATE.between(startDate, endDate);
 
         return dsl
-                .select(CHANGE_LOG.PARENT_ID,
-                        CHANGE_LOG.PARENT_KIND,
+                .select(PARENT_ID,
+                        PARENT_KIND,
                         ENTITY_NAME_FIELD,
-                        CHANGE_LOG.CHILD_KIND,
-                        count)
-                .from(CHANGE_LOG)
+                        CHILD_KIND,
+                        COUNT_FIELD)
+                .from(mkDailyCounts())
                 .where(dsl
-                        .renderInlined(CHANGE_LOG.PARENT_ID.in(genericSelector.selector())
-                                .and(CHANGE_LOG.PARENT_KIND.eq(genericSelector.kind().name()))
+                        .renderInlined(PARENT_ID.in(genericSelector.selector())
+                                .and(PARENT_KIND.eq(genericSelector.kind().name()))
                                 .and(dateRangeCondition)))
-                .groupBy(CHANGE_LOG.PARENT_ID, CHANGE_LOG.PARENT_KIND, CHANGE_LOG.CHILD_KIND)
-                .orderBy(count.desc())
+                .groupBy(PARENT_ID, PARENT_KIND, CHILD_KIND)
+                .orderBy(COUNT_FIELD.desc())
                 .limit(limit.orElse(Integer.MAX_VALUE))
                 .fetch(TO_CHANGE_LOG_TALLY_MAPPER);
     }
@@ -30,16 +30,21 @@ import org.finos.waltz.model.cost.ImmutableAllocatedCostDefinition;
 import org.finos.waltz.schema.tables.AllocationScheme;
 import org.finos.waltz.schema.tables.Cost;
 import org.finos.waltz.schema.tables.CostKind;
+import org.finos.waltz.schema.tables.records.AllocatedCostChecksumRecord;
 import org.finos.waltz.schema.tables.records.AllocatedCostDefinitionRecord;
 import org.finos.waltz.schema.tables.records.CostRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record5;
 import org.jooq.Record7;
 import org.jooq.RecordMapper;
 import org.jooq.SelectConditionStep;
+import org.jooq.SelectSeekStep2;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -57,10 +62,14 @@ import static java.lang.String.format;
 import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.SetUtilities.minus;
+import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.data.ChecksumUtilities.digestRowsBy;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.data.cost.CostUtils.calculateAllocatedCosts;
 import static org.finos.waltz.model.DiffResult.mkDiff;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ALLOCATED_COST_CHECKSUM;
 import static org.finos.waltz.schema.Tables.ALLOCATED_COST_DEFINITION;
 import static org.finos.waltz.schema.Tables.ALLOCATION;
 import static org.finos.waltz.schema.Tables.ALLOCATION_SCHEME;
@@ -77,6 +86,7 @@ public class AllocatedCostDefinitionDao {
     private static final Logger LOG = LoggerFactory.getLogger(AllocatedCostDefinitionDao.class);
     private final DSLContext dsl;
     private static final String PROVENANCE = "AllocatedCostPopulator";
+    static final int MAX_INCREMENTAL_ENTITIES = 1_000;
     private static final Cost c = COST.as("c");
     private static final CostKind srcCostKind = COST_KIND.as("srcCostKind");
     private static final CostKind trgCostKind = COST_KIND.as("trgCostKind");
@@ -122,11 +132,49 @@ public class AllocatedCostDefinitionDao {
     }
 
 
+    /**
+     * Allocates the source costs for the year to measurable ratings.
+     *
+     * A checksum of the inputs (source cost, ratings and explicit allocations) is kept
+     * per entity, only entities whose inputs have changed since the last run are
+     * reallocated.  Everything is reallocated if there is no previous run for the year
+     * or too many entities have changed to make the incremental approach worthwhile.
+     */
     public void allocateCostsByDefinition(AllocatedCostDefinition defn, Integer year) {
 
+        long defnId = defn.id().get();
         Timestamp now = DateTimeUtilities.nowUtcTimestamp();
 
-        Set<MeasurableCostEntry> measurableCosts = findRequiredMeasurableCosts(defn, Optional.of(year));
+        Map<Long, String> currentChecksums = calcInputChecksums(defn, year);
+        Map<Long, Tuple2<Integer, String>> storedChecksums = findStoredChecksums(defnId);
+
+        Set<Long> changedEntityIds = currentChecksums
+                .entrySet()
+                .stream()
+                .filter(e -> {
+                    Tuple2<Integer, String> stored = storedChecksums.get(e.getKey());
+                    return stored == null || !e.getValue().equals(stored.v2);
+                })
+                .map(Map.Entry::getKey)
+                .collect(toSet());
+
+        Set<Long> removedEntityIds = minus(storedChecksums.keySet(), currentChecksums.keySet());
+        Set<Long> entityIdsToAllocate = union(changedEntityIds, removedEntityIds);
+
+        boolean fullRun = storedChecksums.isEmpty()
+                || storedChecksums.values().stream().anyMatch(t -> !year.equals(t.v1))
+                || entityIdsToAllocate.size() > MAX_INCREMENTAL_ENTITIES;
+
+        if (!fullRun && entityIdsToAllocate.isEmpty()) {
+            LOG.debug("Inputs for allocated cost definition {} unchanged, nothing to allocate", defnId);
+            return;
+        }
+
+        Optional<Set<Long>> entityIds = fullRun
+                ? Optional.empty()
+                : Optional.of(entityIdsToAllocate);
+
+        Set<MeasurableCostEntry> measurableCosts = findRequiredMeasurableCosts(defn, Optional.of(year), entityIds);
 
         Map<Long, Collection<MeasurableCostEntry>> costDataByAppId = groupBy(
                 measurableCosts,
@@ -150,9 +198,22 @@ public class AllocatedCostDefinitionDao {
                             now))
                     .collect(toSet());
 
+            Condition existingCostsCondition = entityIds
+                    .map(ids -> c.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name())
+                            .and(c.ENTITY_ID.in(DSL
+                                        .select(MEASURABLE_RATING.ID)
+                                        .from(MEASURABLE_RATING)
+                                        .where(MEASURABLE_RATING.ENTITY_ID.in(ids)))
+                                    // ratings which have since been removed
+                                    .or(c.ENTITY_ID.notIn(DSL
+                                            .select(MEASURABLE_RATING.ID)
+                                            .from(MEASURABLE_RATING)))))
+                    .orElse(DSL.trueCondition());
+
             Set<CostRecord> existingRatingCosts = tx
                     .selectFrom(c)
                     .where(c.COST_KIND_ID.eq(defn.targetCostKind().id()))
+                    .and(existingCostsCondition)
                     .fetchSet(r -> r.into(COST));
 
             DiffResult<CostRecord> diff = mkDiff(existingRatingCosts,
@@ -182,22 +243,31 @@ public class AllocatedCostDefinitionDao {
                     .collect(collectingAndThen(toSet(), tx::batch))
                     .execute());
 
+            saveChecksums(tx, defnId, year, currentChecksums, entityIds);
+
             LOG.debug(format("Created %d costs, Updated %d costs, Removed %d costs", createdCosts, updatedCosts, removedCosts));
         });
-    }
 
+        LOG.info(format(
+                "Allocated costs for definition %d, %s run over %d entities",
+                defnId,
+                fullRun ? "full" : "incremental",
+                fullRun ? currentChecksums.size() : entityIdsToAllocate.size()));
+    }
 
-    private Set<MeasurableCostEntry> findRequiredMeasurableCosts(AllocatedCostDefinition defn, Optional<Integer> year) {
 
-        SelectConditionStep<Record1<Long>> categoryId = DSL
-                .select(allocScheme.MEASURABLE_CATEGORY_ID)
-                .from(allocScheme)
-                .where(allocScheme.ID.eq(defn.allocationScheme().id()));
+    private Set<MeasurableCostEntry> findRequiredMeasurableCosts(AllocatedCostDefinition defn,
+                                                                 Optional<Integer> year,
+                                                                 Optional<Set<Long>> entityIds) {
 
         Condition yearCondition = year
                 .map(yr -> c.YEAR.eq(yr))
                 .orElse(DSL.trueCondition());
 
+        Condition entityCondition = entityIds
+                .map(ids -> mr.ENTITY_ID.in(ids))
+                .orElse(DSL.trueCondition());
+
         SelectConditionStep<Record7<Long, Long, Long, Integer, Long, BigDecimal, Integer>> qry = dsl
                 .select(mr.ID,
                         mr.MEASURABLE_ID,
@@ -206,14 +276,9 @@ public class AllocatedCostDefinitionDao {
                         c.COST_KIND_ID,
                         c.AMOUNT,
                         c.YEAR)
-                .from(mr)
-                .innerJoin(m).on(m.ID.eq(mr.MEASURABLE_ID).and(m.MEASURABLE_CATEGORY_ID.eq(categoryId)))
-                .innerJoin(c).on(mr.ENTITY_ID.eq(c.ENTITY_ID)
-                        .and(mr.ENTITY_KIND.eq(c.ENTITY_KIND))
-                        .and(c.COST_KIND_ID.eq(defn.sourceCostKind().id()))) // Only interested where the source app has a cost
-                .leftJoin(a).on(mr.ID.eq(a.MEASURABLE_RATING_ID)
-                        .and(a.ALLOCATION_SCHEME_ID.eq(defn.allocationScheme().id())))
-                .where(yearCondition);
+                .from(mkAllocationInputs(defn))
+                .where(yearCondition)
+                .and(entityCondition);
 
         return qry
                 .fetchSet(r -> ImmutableMeasurableCostEntry
@@ -232,6 +297,97 @@ public class AllocatedCostDefinitionDao {
     }
 
 
+    /**
+     * Ratings (in the allocation scheme's category) of entities with a source cost, along
+     * with any explicit allocation.
+     */
+    private static Table<Record> mkAllocationInputs(AllocatedCostDefinition defn) {
+
+        SelectConditionStep<Record1<Long>> categoryId = DSL
+                .select(allocScheme.MEASURABLE_CATEGORY_ID)
+                .from(allocScheme)
+                .where(allocScheme.ID.eq(defn.allocationScheme().id()));
+
+        return mr
+                .innerJoin(m).on(m.ID.eq(mr.MEASURABLE_ID).and(m.MEASURABLE_CATEGORY_ID.eq(categoryId)))
+                .innerJoin(c).on(mr.ENTITY_ID.eq(c.ENTITY_ID)
+                        .and(mr.ENTITY_KIND.eq(c.ENTITY_KIND))
+                        .and(c.COST_KIND_ID.eq(defn.sourceCostKind().id()))) // Only interested where the source app has a cost
+                .leftJoin(a).on(mr.ID.eq(a.MEASURABLE_RATING_ID)
+                        .and(a.ALLOCATION_SCHEME_ID.eq(defn.allocationScheme().id())));
+    }
+
+
+    /**
+     * @return entity id to a checksum of everything which determines the costs allocated to its
+     * ratings: each rating's measurable and explicit allocation, and the source cost
+     */
+    private Map<Long, String> calcInputChecksums(AllocatedCostDefinition defn, Integer year) {
+        SelectSeekStep2<Record5<Long, Long, Long, Integer, BigDecimal>, Long, Long> inputs = dsl
+                .select(mr.ENTITY_ID,
+                        mr.ID,
+                        mr.MEASURABLE_ID,
+                        a.ALLOCATION_PERCENTAGE,
+                        c.AMOUNT)
+                .from(mkAllocationInputs(defn))
+                .where(c.YEAR.eq(year))
+                .orderBy(mr.ENTITY_ID, mr.ID);
+
+        return digestRowsBy(inputs, r -> r.get(mr.ENTITY_ID));
+    }
+
+
+    private Map<Long, Tuple2<Integer, String>> findStoredChecksums(long defnId) {
+        return dsl
+                .select(ALLOCATED_COST_CHECKSUM.ENTITY_ID,
+                        ALLOCATED_COST_CHECKSUM.YEAR,
+                        ALLOCATED_COST_CHECKSUM.CHECKSUM)
+                .from(ALLOCATED_COST_CHECKSUM)
+                .where(ALLOCATED_COST_CHECKSUM.ALLOCATED_COST_DEFINITION_ID.eq(defnId))
+                .fetchMap(
+                        r -> r.get(ALLOCATED_COST_CHECKSUM.ENTITY_ID),
+                        r -> tuple(r.get(ALLOCATED_COST_CHECKSUM.YEAR), r.get(ALLOCATED_COST_CHECKSUM.CHECKSUM)));
+    }
+
+
+    /**
+     * Replaces the stored checksums, either all of them or only those for the given entities
+     */
+    private static void saveChecksums(DSLContext tx,
+                                      long defnId,
+                                      int year,
+                                      Map<Long, String> checksums,
+                                      Optional<Set<Long>> entityIds) {
+
+        Condition entityCondition = entityIds
+                .map(ids -> ALLOCATED_COST_CHECKSUM.ENTITY_ID.in(ids))
+                .orElse(DSL.trueCondition());
+
+        tx.deleteFrom(ALLOCATED_COST_CHECKSUM)
+                .where(ALLOCATED_COST_CHECKSUM.ALLOCATED_COST_DEFINITION_ID.eq(defnId))
+                .and(entityCondition)
+                .execute();
+
+        Set<AllocatedCostChecksumRecord> records = checksums
+                .entrySet()
+                .stream()
+                .filter(e -> entityIds
+                        .map(ids -> ids.contains(e.getKey()))
+                        .orElse(true))
+                .map(e -> {
+                    AllocatedCostChecksumRecord record = tx.newRecord(ALLOCATED_COST_CHECKSUM);
+                    record.setAllocatedCostDefinitionId(defnId);
+                    record.setEntityId(e.getKey());
+                    record.setYear(year);
+                    record.setChecksum(e.getValue());
+                    return record;
+                })
+                .collect(toSet());
+
+        tx.batchInsert(records).execute();
+    }
+
+
     private static CostRecord mkCostRecord(DSLContext tx,
                                            long costKindId,
                                            EntityKind entityKind,
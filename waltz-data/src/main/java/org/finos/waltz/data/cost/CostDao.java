@@ -166,6 +166,11 @@ public class CostDao {
     }
 
 
+    public int countEntitiesBySelector(GenericSelector genericSelector) {
+        return dsl.fetchCount(genericSelector.selector());
+    }
+
+
     public Tuple2<Integer, Integer> getMappedAndMissingCountsForKindAndYearBySelector(Long costKindId,
                                                                                       Integer year,
                                                                                       GenericSelector genericSelector) {
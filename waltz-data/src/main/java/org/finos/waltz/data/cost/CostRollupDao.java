@@ -0,0 +1,337 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.cost;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.cost.CostRollup;
+import org.finos.waltz.model.cost.ImmutableCostRollup;
+import org.finos.waltz.schema.tables.Application;
+import org.finos.waltz.schema.tables.Cost;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.MeasurableRating;
+import org.finos.waltz.schema.tables.records.CostRollupPartitionRecord;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DigestUtilities.mkChecksum;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.data.ChecksumUtilities.calcHierarchyChecksum;
+import static org.finos.waltz.data.ChecksumUtilities.digestRows;
+import static org.finos.waltz.data.ChecksumUtilities.digestRowsBy;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_ROLLUP;
+import static org.finos.waltz.schema.Tables.COST_ROLLUP_PARTITION;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Maintains the <code>cost_rollup</code> table, which holds cost totals per cost kind and
+ * year for every org unit and measurable, including the costs of their descendants.
+ *
+ * Rollups are built a partition (cost kind and year) at a time.  Each partition records a
+ * checksum of the data it was built from, partitions are only rebuilt when the checksum
+ * no longer matches the current costs, hierarchies and ratings.
+ *
+ * Only costs of active applications are rolled up, this matches the default application
+ * selector.
+ */
+@Repository
+public class CostRollupDao {
+
+    private static final Cost c = COST.as("c");
+    private static final Application app = APPLICATION.as("app");
+    private static final MeasurableRating mr = MEASURABLE_RATING.as("mr");
+    private static final EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+
+    private static final RecordMapper<Record, CostRollup> TO_DOMAIN_MAPPER = r -> ImmutableCostRollup
+            .builder()
+            .costKindId(r.get(COST_ROLLUP.COST_KIND_ID))
+            .year(r.get(COST_ROLLUP.YEAR))
+            .rollupEntity(mkRef(
+                    EntityKind.valueOf(r.get(COST_ROLLUP.ROLLUP_KIND)),
+                    r.get(COST_ROLLUP.ROLLUP_ENTITY_ID)))
+            .total(r.get(COST_ROLLUP.TOTAL_AMOUNT))
+            .entityCount(r.get(COST_ROLLUP.ENTITY_COUNT))
+            .build();
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public CostRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return checksum of the data each partition would currently be built from, keyed by (cost kind id, year)
+     */
+    public Map<Tuple2<Long, Integer>, String> calcSourceChecksums() {
+        String structureChecksum = calcStructureChecksum();
+
+        Map<Tuple2<Long, Integer>, String> costChecksums = digestRowsBy(
+                dsl
+                        .select(COST.COST_KIND_ID,
+                                COST.YEAR,
+                                COST.ENTITY_KIND,
+                                COST.ENTITY_ID,
+                                COST.AMOUNT)
+                        .from(COST)
+                        .where(COST.ENTITY_KIND.in(EntityKind.APPLICATION.name(), EntityKind.MEASURABLE_RATING.name()))
+                        .orderBy(COST.COST_KIND_ID, COST.YEAR, COST.ENTITY_KIND, COST.ENTITY_ID),
+                r -> tuple(r.get(COST.COST_KIND_ID), r.get(COST.YEAR)));
+
+        costChecksums.replaceAll((partition, costChecksum) -> mkChecksum(costChecksum + "|" + structureChecksum));
+        return costChecksums;
+    }
+
+
+    /**
+     * @return checksum each partition was last built from, keyed by (cost kind id, year)
+     */
+    public Map<Tuple2<Long, Integer>, String> findPartitionChecksums() {
+        return dsl
+                .select(COST_ROLLUP_PARTITION.COST_KIND_ID,
+                        COST_ROLLUP_PARTITION.YEAR,
+                        COST_ROLLUP_PARTITION.SOURCE_CHECKSUM)
+                .from(COST_ROLLUP_PARTITION)
+                .fetchMap(
+                        r -> tuple(r.get(COST_ROLLUP_PARTITION.COST_KIND_ID), r.get(COST_ROLLUP_PARTITION.YEAR)),
+                        r -> r.get(COST_ROLLUP_PARTITION.SOURCE_CHECKSUM));
+    }
+
+
+    public boolean hasPartition(long costKindId, int year) {
+        return dsl.fetchExists(
+                COST_ROLLUP_PARTITION,
+                COST_ROLLUP_PARTITION.COST_KIND_ID.eq(costKindId)
+                        .and(COST_ROLLUP_PARTITION.YEAR.eq(year)));
+    }
+
+
+    /**
+     * Replaces the rollups for a cost kind and year, recording the checksum of the data they were built from.
+     * @return number of rollup rows written
+     */
+    public int rebuildPartition(long costKindId, int year, String sourceChecksum) {
+        checkNotNull(sourceChecksum, "sourceChecksum cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            tx.deleteFrom(COST_ROLLUP)
+                    .where(COST_ROLLUP.COST_KIND_ID.eq(costKindId))
+                    .and(COST_ROLLUP.YEAR.eq(year))
+                    .execute();
+
+            int orgUnitRollups = insertOrgUnitRollups(tx, costKindId, year);
+            int measurableRollups = insertMeasurableRollups(tx, costKindId, year);
+
+            tx.deleteFrom(COST_ROLLUP_PARTITION)
+                    .where(COST_ROLLUP_PARTITION.COST_KIND_ID.eq(costKindId))
+                    .and(COST_ROLLUP_PARTITION.YEAR.eq(year))
+                    .execute();
+
+            CostRollupPartitionRecord partition = tx.newRecord(COST_ROLLUP_PARTITION);
+            partition.setCostKindId(costKindId);
+            partition.setYear(year);
+            partition.setSourceChecksum(sourceChecksum);
+            partition.setRefreshedAt(DateTimeUtilities.nowUtcTimestamp());
+            partition.insert();
+
+            return orgUnitRollups + measurableRollups;
+        });
+    }
+
+
+    /**
+     * Removes the rollups for a cost kind and year which no longer has any costs
+     */
+    public int removePartition(long costKindId, int year) {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int removed = tx
+                    .deleteFrom(COST_ROLLUP)
+                    .where(COST_ROLLUP.COST_KIND_ID.eq(costKindId))
+                    .and(COST_ROLLUP.YEAR.eq(year))
+                    .execute();
+
+            tx.deleteFrom(COST_ROLLUP_PARTITION)
+                    .where(COST_ROLLUP_PARTITION.COST_KIND_ID.eq(costKindId))
+                    .and(COST_ROLLUP_PARTITION.YEAR.eq(year))
+                    .execute();
+
+            return removed;
+        });
+    }
+
+
+    /**
+     * @return the rollup for the entity, or empty if the partition has not been built.  If the
+     * partition has been built but the entity has no costs a zero rollup is returned.
+     */
+    public Optional<CostRollup> findRollup(long costKindId, int year, EntityKind rollupKind, long rollupEntityId) {
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+
+        if (!hasPartition(costKindId, year)) {
+            return Optional.empty();
+        }
+
+        CostRollup rollup = dsl
+                .select(COST_ROLLUP.fields())
+                .from(COST_ROLLUP)
+                .where(COST_ROLLUP.COST_KIND_ID.eq(costKindId))
+                .and(COST_ROLLUP.YEAR.eq(year))
+                .and(COST_ROLLUP.ROLLUP_KIND.eq(rollupKind.name()))
+                .and(COST_ROLLUP.ROLLUP_ENTITY_ID.eq(rollupEntityId))
+                .fetchOne(TO_DOMAIN_MAPPER);
+
+        return Optional.of(rollup == null
+                ? ImmutableCostRollup
+                    .builder()
+                    .costKindId(costKindId)
+                    .year(year)
+                    .rollupEntity(mkRef(rollupKind, rollupEntityId))
+                    .total(BigDecimal.ZERO)
+                    .entityCount(0)
+                    .build()
+                : rollup);
+    }
+
+
+    /**
+     * @return rollups for the given entities, entities without costs are omitted
+     */
+    public Set<CostRollup> findRollups(long costKindId, int year, EntityKind rollupKind, Collection<Long> rollupEntityIds) {
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+        checkNotNull(rollupEntityIds, "rollupEntityIds cannot be null");
+
+        return dsl
+                .select(COST_ROLLUP.fields())
+                .from(COST_ROLLUP)
+                .where(COST_ROLLUP.COST_KIND_ID.eq(costKindId))
+                .and(COST_ROLLUP.YEAR.eq(year))
+                .and(COST_ROLLUP.ROLLUP_KIND.eq(rollupKind.name()))
+                .and(COST_ROLLUP.ROLLUP_ENTITY_ID.in(rollupEntityIds))
+                .fetchSet(TO_DOMAIN_MAPPER);
+    }
+
+
+    // --- helpers
+
+    private static int insertOrgUnitRollups(DSLContext tx, long costKindId, int year) {
+        return tx
+                .insertInto(COST_ROLLUP)
+                .columns(COST_ROLLUP.COST_KIND_ID,
+                        COST_ROLLUP.YEAR,
+                        COST_ROLLUP.ROLLUP_KIND,
+                        COST_ROLLUP.ROLLUP_ENTITY_ID,
+                        COST_ROLLUP.TOTAL_AMOUNT,
+                        COST_ROLLUP.ENTITY_COUNT)
+                .select(DSL
+                        .select(DSL.val(costKindId),
+                                DSL.val(year),
+                                DSL.val(EntityKind.ORG_UNIT.name()),
+                                eh.ANCESTOR_ID,
+                                DSL.sum(c.AMOUNT),
+                                DSL.countDistinct(c.ENTITY_ID))
+                        .from(c)
+                        .innerJoin(app).on(app.ID.eq(c.ENTITY_ID))
+                        .innerJoin(eh).on(eh.ID.eq(app.ORGANISATIONAL_UNIT_ID)
+                                .and(eh.KIND.eq(EntityKind.ORG_UNIT.name())))
+                        .where(c.COST_KIND_ID.eq(costKindId))
+                        .and(c.YEAR.eq(year))
+                        .and(c.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                        .and(app.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()))
+                        .groupBy(eh.ANCESTOR_ID))
+                .execute();
+    }
+
+
+    private static int insertMeasurableRollups(DSLContext tx, long costKindId, int year) {
+        return tx
+                .insertInto(COST_ROLLUP)
+                .columns(COST_ROLLUP.COST_KIND_ID,
+                        COST_ROLLUP.YEAR,
+                        COST_ROLLUP.ROLLUP_KIND,
+                        COST_ROLLUP.ROLLUP_ENTITY_ID,
+                        COST_ROLLUP.TOTAL_AMOUNT,
+                        COST_ROLLUP.ENTITY_COUNT)
+                .select(DSL
+                        .select(DSL.val(costKindId),
+                                DSL.val(year),
+                                DSL.val(EntityKind.MEASURABLE.name()),
+                                eh.ANCESTOR_ID,
+                                DSL.sum(c.AMOUNT),
+                                DSL.countDistinct(c.ENTITY_ID))
+                        .from(c)
+                        .innerJoin(mr).on(mr.ID.eq(c.ENTITY_ID))
+                        .innerJoin(app).on(app.ID.eq(mr.ENTITY_ID)
+                                .and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
+                        .innerJoin(eh).on(eh.ID.eq(mr.MEASURABLE_ID)
+                                .and(eh.KIND.eq(EntityKind.MEASURABLE.name())))
+                        .where(c.COST_KIND_ID.eq(costKindId))
+                        .and(c.YEAR.eq(year))
+                        .and(c.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name()))
+                        .and(app.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()))
+                        .groupBy(eh.ANCESTOR_ID))
+                .execute();
+    }
+
+
+    /**
+     * Checksum of the non-cost data the rollups depend upon: the org unit and measurable
+     * hierarchies, the org unit of active applications and the measurable ratings.
+     */
+    private String calcStructureChecksum() {
+        String hierarchies = calcHierarchyChecksum(dsl, asSet(EntityKind.ORG_UNIT, EntityKind.MEASURABLE));
+
+        String ratings = digestRows(dsl
+                .select(MEASURABLE_RATING.ID,
+                        MEASURABLE_RATING.ENTITY_ID,
+                        MEASURABLE_RATING.ENTITY_KIND,
+                        MEASURABLE_RATING.MEASURABLE_ID)
+                .from(MEASURABLE_RATING)
+                .orderBy(MEASURABLE_RATING.ID));
+
+        return format("%s:%s", hierarchies, ratings);
+    }
+
+}
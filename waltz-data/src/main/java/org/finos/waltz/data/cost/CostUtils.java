@@ -92,4 +92,6 @@ public class CostUtils {
 
         return union(explicitCosts, implicitShareOfCost);
     }
+
+    }
 }
@@ -338,8 +338,20 @@ public class EntityRelationshipDao {
 
 
     public void migrateEntityRelationships(EntityReference sourceReference, EntityReference targetReference, String userId) {
+        migrateEntityRelationships(dsl, sourceReference, targetReference, userId);
+    }
+
+
+    /**
+     * Variant of {@link #migrateEntityRelationships(EntityReference, EntityReference, String)}
+     * which runs against the given context, joining its transaction if it has one.
+     */
+    public void migrateEntityRelationships(DSLContext dslContext,
+                                           EntityReference sourceReference,
+                                           EntityReference targetReference,
+                                           String userId) {
 
-        dsl.transaction(ctx -> {
+        dslContext.transaction(ctx -> {
 
             DSLContext tx = ctx.dsl();
 
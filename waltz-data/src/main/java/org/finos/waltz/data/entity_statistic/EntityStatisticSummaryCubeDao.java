@@ -0,0 +1,453 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_statistic;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.tally.ImmutableTally;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.Application;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.EntityStatisticValue;
+import org.finos.waltz.schema.tables.records.EntityStatisticSummaryPartitionRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.DataType;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
+import static org.finos.waltz.common.DigestUtilities.mkChecksum;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.data.ChecksumUtilities.calcHierarchyChecksum;
+import static org.finos.waltz.data.ChecksumUtilities.digestRowsBy;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_DEFINITION;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_SUMMARY;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_SUMMARY_PARTITION;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_VALUE;
+
+
+/**
+ * Maintains the <code>entity_statistic_summary</code> table, a cube of statistic tallies
+ * (statistic x org unit subtree x outcome x date) for the current and historic values
+ * of every rolled up statistic.  Summaries are also held for the whole estate
+ * (rollup kind <code>ALL</code>).
+ *
+ * Summaries are built a statistic at a time.  Each statistic records a checksum of the
+ * values (and org unit hierarchy) it was built from, statistics are only rebuilt when the
+ * checksum no longer matches, i.e. after values have been imported.
+ *
+ * Only values of active applications are summarised, this matches the default application
+ * selector.  Other selectors (app groups, people etc.) are calculated live by the
+ * {@link EntityStatisticSummaryDao}.
+ */
+@Repository
+public class EntityStatisticSummaryCubeDao {
+
+    /**
+     * Rollup entity id used for the whole estate (rollup kind <code>ALL</code>)
+     */
+    public static final long ALL_ROLLUP_ENTITY_ID = 0L;
+
+    private static final EntityStatisticValue esv = ENTITY_STATISTIC_VALUE.as("esv");
+    private static final Application app = APPLICATION.as("app");
+    private static final EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+
+    private static final DataType<BigDecimal> decimalValueDataType = SQLDataType.DECIMAL(38, 12);
+    private static final DataType<BigDecimal> decimalTotalDataType = SQLDataType.DECIMAL(38, 2);
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntityStatisticSummaryCubeDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return checksum of the data each statistic's summaries would currently be built from, keyed by statistic id
+     */
+    public Map<Long, String> calcSourceChecksums() {
+        String structureChecksum = calcHierarchyChecksum(dsl, asSet(EntityKind.ORG_UNIT));
+
+        Map<Long, String> valueChecksums = digestRowsBy(
+                dsl
+                        .select(ENTITY_STATISTIC_VALUE.STATISTIC_ID,
+                                ENTITY_STATISTIC_DEFINITION.ROLLUP_KIND,
+                                ENTITY_STATISTIC_VALUE.ID,
+                                ENTITY_STATISTIC_VALUE.ENTITY_ID,
+                                ENTITY_STATISTIC_VALUE.VALUE,
+                                ENTITY_STATISTIC_VALUE.OUTCOME,
+                                ENTITY_STATISTIC_VALUE.CURRENT,
+                                ENTITY_STATISTIC_VALUE.CREATED_AT)
+                        .from(ENTITY_STATISTIC_VALUE)
+                        .innerJoin(ENTITY_STATISTIC_DEFINITION)
+                        .on(ENTITY_STATISTIC_DEFINITION.ID.eq(ENTITY_STATISTIC_VALUE.STATISTIC_ID))
+                        .where(ENTITY_STATISTIC_DEFINITION.ROLLUP_KIND.ne(RollupKind.NONE.name()))
+                        .and(ENTITY_STATISTIC_VALUE.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                        .orderBy(ENTITY_STATISTIC_VALUE.STATISTIC_ID, ENTITY_STATISTIC_VALUE.ID),
+                r -> r.get(ENTITY_STATISTIC_VALUE.STATISTIC_ID));
+
+        valueChecksums.replaceAll((statisticId, valueChecksum) -> mkChecksum(valueChecksum + "|" + structureChecksum));
+        return valueChecksums;
+    }
+
+
+    /**
+     * @return checksum each statistic's summaries were last built from, keyed by statistic id
+     */
+    public Map<Long, String> findPartitionChecksums() {
+        return dsl
+                .select(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID,
+                        ENTITY_STATISTIC_SUMMARY_PARTITION.SOURCE_CHECKSUM)
+                .from(ENTITY_STATISTIC_SUMMARY_PARTITION)
+                .fetchMap(
+                        ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID,
+                        ENTITY_STATISTIC_SUMMARY_PARTITION.SOURCE_CHECKSUM);
+    }
+
+
+    /**
+     * @return the subset of the given statistics which have summaries
+     */
+    public Set<Long> findSummarisedStatisticIds(Collection<Long> statisticIds) {
+        checkNotNull(statisticIds, "statisticIds cannot be null");
+
+        if (statisticIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return dsl
+                .select(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID)
+                .from(ENTITY_STATISTIC_SUMMARY_PARTITION)
+                .where(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID.in(statisticIds))
+                .fetchSet(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID);
+    }
+
+
+    /**
+     * Replaces the summaries for a statistic, recording the checksum of the data they were built from.
+     * @return number of summary rows written
+     */
+    public int rebuildPartition(long statisticId, RollupKind rollupKind, String sourceChecksum) {
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+        checkNotNull(sourceChecksum, "sourceChecksum cannot be null");
+
+        Field<BigDecimal> total = mkTotalField(rollupKind);
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            tx.deleteFrom(ENTITY_STATISTIC_SUMMARY)
+                    .where(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID.eq(statisticId))
+                    .execute();
+
+            int written = insertOrgUnitSummaries(tx, statisticId, total, true)
+                    + insertOrgUnitSummaries(tx, statisticId, total, false)
+                    + insertAllSummaries(tx, statisticId, total, true)
+                    + insertAllSummaries(tx, statisticId, total, false);
+
+            tx.deleteFrom(ENTITY_STATISTIC_SUMMARY_PARTITION)
+                    .where(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID.eq(statisticId))
+                    .execute();
+
+            EntityStatisticSummaryPartitionRecord partition = tx.newRecord(ENTITY_STATISTIC_SUMMARY_PARTITION);
+            partition.setStatisticId(statisticId);
+            partition.setSourceChecksum(sourceChecksum);
+            partition.setRefreshedAt(DateTimeUtilities.nowUtcTimestamp());
+            partition.insert();
+
+            return written;
+        });
+    }
+
+
+    /**
+     * Removes the summaries for a statistic which no longer has any values (or is no longer rolled up)
+     */
+    public int removePartition(long statisticId) {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int removed = tx
+                    .deleteFrom(ENTITY_STATISTIC_SUMMARY)
+                    .where(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID.eq(statisticId))
+                    .execute();
+
+            tx.deleteFrom(ENTITY_STATISTIC_SUMMARY_PARTITION)
+                    .where(ENTITY_STATISTIC_SUMMARY_PARTITION.STATISTIC_ID.eq(statisticId))
+                    .execute();
+
+            return removed;
+        });
+    }
+
+
+    /**
+     * @param statisticIds statistics to summarise, these should have summaries (see {@link #findSummarisedStatisticIds(Collection)})
+     * @return a tally pack (of current values) for each statistic
+     */
+    public List<TallyPack<String>> findCurrentSummaries(Collection<Long> statisticIds,
+                                                        EntityKind rollupKind,
+                                                        long rollupEntityId) {
+        checkNotNull(statisticIds, "statisticIds cannot be null");
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+
+        if (statisticIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, List<Record>> rowsByStatisticId = dsl
+                .select(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID,
+                        ENTITY_STATISTIC_SUMMARY.OUTCOME,
+                        ENTITY_STATISTIC_SUMMARY.TOTAL,
+                        ENTITY_STATISTIC_SUMMARY.MAX_CREATED_AT)
+                .from(ENTITY_STATISTIC_SUMMARY)
+                .where(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID.in(statisticIds))
+                .and(mkRollupCondition(rollupKind, rollupEntityId))
+                .and(ENTITY_STATISTIC_SUMMARY.IS_CURRENT.isTrue())
+                .fetch()
+                .stream()
+                .collect(groupingBy(
+                        r -> r.get(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID),
+                        mapping(r -> (Record) r, toList())));
+
+        return statisticIds
+                .stream()
+                .map(statisticId -> {
+                    List<Record> rows = rowsByStatisticId.getOrDefault(statisticId, Collections.emptyList());
+
+                    LocalDateTime lastUpdatedAt = rows
+                            .stream()
+                            .map(r -> r.get(ENTITY_STATISTIC_SUMMARY.MAX_CREATED_AT))
+                            .max(Comparator.naturalOrder())
+                            .map(Timestamp::toLocalDateTime)
+                            .orElseGet(DateTimeUtilities::nowUtc);
+
+                    return mkTallyPack(statisticId, rows, lastUpdatedAt);
+                })
+                .collect(toList());
+    }
+
+
+    /**
+     * @return a tally pack for each day the statistic has historic values, oldest first
+     */
+    public List<TallyPack<String>> findHistoricSummaries(long statisticId,
+                                                         EntityKind rollupKind,
+                                                         long rollupEntityId,
+                                                         Duration duration) {
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+        checkNotNull(duration, "duration cannot be null");
+
+        Condition durationCondition = duration == Duration.ALL
+                ? DSL.trueCondition()
+                : ENTITY_STATISTIC_SUMMARY.SUMMARY_DATE.ge(toSqlDate(nowUtc().toLocalDate().minusDays(duration.numDays())));
+
+        Map<LocalDate, List<Record>> rowsByDate = dsl
+                .select(ENTITY_STATISTIC_SUMMARY.SUMMARY_DATE,
+                        ENTITY_STATISTIC_SUMMARY.OUTCOME,
+                        ENTITY_STATISTIC_SUMMARY.TOTAL)
+                .from(ENTITY_STATISTIC_SUMMARY)
+                .where(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID.eq(statisticId))
+                .and(mkRollupCondition(rollupKind, rollupEntityId))
+                .and(ENTITY_STATISTIC_SUMMARY.IS_CURRENT.isFalse())
+                .and(durationCondition)
+                .fetch()
+                .stream()
+                .collect(groupingBy(
+                        r -> r.get(ENTITY_STATISTIC_SUMMARY.SUMMARY_DATE).toLocalDate(),
+                        mapping(r -> (Record) r, toList())));
+
+        return rowsByDate
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> mkTallyPack(statisticId, e.getValue(), e.getKey().atStartOfDay()))
+                .collect(toList());
+    }
+
+
+    // --- helpers
+
+    private static TallyPack<String> mkTallyPack(long statisticId,
+                                                 List<Record> rows,
+                                                 LocalDateTime lastUpdatedAt) {
+        List<Tally<String>> tallies = rows
+                .stream()
+                .map(r -> ImmutableTally.<String>builder()
+                        .id(r.get(ENTITY_STATISTIC_SUMMARY.OUTCOME))
+                        .count(r.get(ENTITY_STATISTIC_SUMMARY.TOTAL).doubleValue())
+                        .build())
+                .collect(toList());
+
+        return ImmutableTallyPack.<String>builder()
+                .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
+                .tallies(tallies)
+                .lastUpdatedAt(lastUpdatedAt)
+                .build();
+    }
+
+
+    private static Condition mkRollupCondition(EntityKind rollupKind, long rollupEntityId) {
+        return ENTITY_STATISTIC_SUMMARY.ROLLUP_KIND.eq(rollupKind.name())
+                .and(ENTITY_STATISTIC_SUMMARY.ROLLUP_ENTITY_ID.eq(rollupEntityId));
+    }
+
+
+    /**
+     * Mirrors the aggregations used by the {@link EntityStatisticSummaryDao}
+     */
+    private static Field<BigDecimal> mkTotalField(RollupKind rollupKind) {
+        switch (rollupKind) {
+            case COUNT_BY_ENTITY:
+                return DSL.cast(DSL.count(), decimalTotalDataType);
+            case SUM_BY_VALUE:
+                return DSL.cast(DSL.sum(DSL.cast(esv.VALUE, decimalValueDataType)), decimalTotalDataType);
+            case AVG_BY_VALUE:
+                return DSL.cast(DSL.avg(DSL.cast(esv.VALUE, decimalValueDataType)), decimalTotalDataType);
+            default:
+                throw new IllegalArgumentException(format("Rollup kind [%s] cannot be summarised", rollupKind));
+        }
+    }
+
+
+    private static int insertOrgUnitSummaries(DSLContext tx,
+                                              long statisticId,
+                                              Field<BigDecimal> total,
+                                              boolean current) {
+        Field<Date> summaryDate = mkSummaryDateField(current);
+
+        return tx
+                .insertInto(ENTITY_STATISTIC_SUMMARY)
+                .columns(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID,
+                        ENTITY_STATISTIC_SUMMARY.ROLLUP_KIND,
+                        ENTITY_STATISTIC_SUMMARY.ROLLUP_ENTITY_ID,
+                        ENTITY_STATISTIC_SUMMARY.OUTCOME,
+                        ENTITY_STATISTIC_SUMMARY.IS_CURRENT,
+                        ENTITY_STATISTIC_SUMMARY.SUMMARY_DATE,
+                        ENTITY_STATISTIC_SUMMARY.TOTAL,
+                        ENTITY_STATISTIC_SUMMARY.MAX_CREATED_AT)
+                .select(DSL
+                        .select(DSL.val(statisticId),
+                                DSL.val(EntityKind.ORG_UNIT.name()),
+                                eh.ANCESTOR_ID,
+                                esv.OUTCOME,
+                                DSL.val(current),
+                                summaryDate,
+                                total,
+                                DSL.max(esv.CREATED_AT))
+                        .from(esv)
+                        .innerJoin(app).on(app.ID.eq(esv.ENTITY_ID))
+                        .innerJoin(eh).on(eh.ID.eq(app.ORGANISATIONAL_UNIT_ID)
+                                .and(eh.KIND.eq(EntityKind.ORG_UNIT.name())))
+                        .where(mkValueCondition(statisticId, current))
+                        .groupBy(current
+                                ? asList(eh.ANCESTOR_ID, esv.OUTCOME)
+                                : asList(eh.ANCESTOR_ID, esv.OUTCOME, summaryDate)))
+                .execute();
+    }
+
+
+    private static int insertAllSummaries(DSLContext tx,
+                                          long statisticId,
+                                          Field<BigDecimal> total,
+                                          boolean current) {
+        Field<Date> summaryDate = mkSummaryDateField(current);
+
+        return tx
+                .insertInto(ENTITY_STATISTIC_SUMMARY)
+                .columns(ENTITY_STATISTIC_SUMMARY.STATISTIC_ID,
+                        ENTITY_STATISTIC_SUMMARY.ROLLUP_KIND,
+                        ENTITY_STATISTIC_SUMMARY.ROLLUP_ENTITY_ID,
+                        ENTITY_STATISTIC_SUMMARY.OUTCOME,
+                        ENTITY_STATISTIC_SUMMARY.IS_CURRENT,
+                        ENTITY_STATISTIC_SUMMARY.SUMMARY_DATE,
+                        ENTITY_STATISTIC_SUMMARY.TOTAL,
+                        ENTITY_STATISTIC_SUMMARY.MAX_CREATED_AT)
+                .select(DSL
+                        .select(DSL.val(statisticId),
+                                DSL.val(EntityKind.ALL.name()),
+                                DSL.val(ALL_ROLLUP_ENTITY_ID),
+                                esv.OUTCOME,
+                                DSL.val(current),
+                                summaryDate,
+                                total,
+                                DSL.max(esv.CREATED_AT))
+                        .from(esv)
+                        .innerJoin(app).on(app.ID.eq(esv.ENTITY_ID))
+                        .where(mkValueCondition(statisticId, current))
+                        .groupBy(current
+                                ? asList(esv.OUTCOME)
+                                : asList(esv.OUTCOME, summaryDate)))
+                .execute();
+    }
+
+
+    private static Condition mkValueCondition(long statisticId, boolean current) {
+        return esv.STATISTIC_ID.eq(statisticId)
+                .and(esv.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                .and(esv.CURRENT.eq(current))
+                .and(app.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()));
+    }
+
+
+    /**
+     * Current summaries are not broken down by date, historic summaries are per day
+     */
+    private static Field<Date> mkSummaryDateField(boolean current) {
+        return current
+                ? DSL.castNull(Date.class)
+                : DSL.cast(esv.CREATED_AT, Date.class);
+    }
+
+}
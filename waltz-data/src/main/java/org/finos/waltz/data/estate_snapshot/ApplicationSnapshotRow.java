@@ -0,0 +1,115 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.estate_snapshot;
+
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+
+import java.sql.Timestamp;
+
+/**
+ * The attributes of an application held by the estate snapshot, deliberately
+ * excludes the (potentially large) description.
+ */
+public class ApplicationSnapshotRow {
+
+    private final long id;
+    private final String name;
+    private final String assetCode;
+    private final long organisationalUnitId;
+    private final ApplicationKind applicationKind;
+    private final LifecyclePhase lifecyclePhase;
+    private final EntityLifecycleStatus entityLifecycleStatus;
+    private final boolean isRemoved;
+    private final Timestamp updatedAt;
+
+
+    public ApplicationSnapshotRow(long id,
+                                  String name,
+                                  String assetCode,
+                                  long organisationalUnitId,
+                                  ApplicationKind applicationKind,
+                                  LifecyclePhase lifecyclePhase,
+                                  EntityLifecycleStatus entityLifecycleStatus,
+                                  boolean isRemoved,
+                                  Timestamp updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.assetCode = assetCode;
+        this.organisationalUnitId = organisationalUnitId;
+        this.applicationKind = applicationKind;
+        this.lifecyclePhase = lifecyclePhase;
+        this.entityLifecycleStatus = entityLifecycleStatus;
+        this.isRemoved = isRemoved;
+        this.updatedAt = updatedAt;
+    }
+
+
+    public long id() {
+        return id;
+    }
+
+
+    public String name() {
+        return name;
+    }
+
+
+    /**
+     * @return the asset code, or null if the application does not have one
+     */
+    public String assetCode() {
+        return assetCode;
+    }
+
+
+    public long organisationalUnitId() {
+        return organisationalUnitId;
+    }
+
+
+    public ApplicationKind applicationKind() {
+        return applicationKind;
+    }
+
+
+    public LifecyclePhase lifecyclePhase() {
+        return lifecyclePhase;
+    }
+
+
+    public EntityLifecycleStatus entityLifecycleStatus() {
+        return entityLifecycleStatus;
+    }
+
+
+    public boolean isRemoved() {
+        return isRemoved;
+    }
+
+
+    /**
+     * @return when the row was last updated, or null if unknown
+     */
+    public Timestamp updatedAt() {
+        return updatedAt;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.estate_snapshot;
+
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+
+/**
+ * Reads the compact application and org unit rows used to build the estate snapshot.
+ * Rows can be restricted to those updated since a given time to support incremental
+ * refreshes.
+ */
+@Repository
+public class EstateSnapshotDao {
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EstateSnapshotDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @param updatedSince if given, only applications updated at or after this time
+     *                     are returned (inclusive, so writes sharing the timestamp of the
+     *                     previous refresh are not missed)
+     */
+    public List<ApplicationSnapshotRow> findApplications(Optional<Timestamp> updatedSince) {
+        checkNotNull(updatedSince, "updatedSince cannot be null");
+
+        Condition condition = updatedSince
+                .map(APPLICATION.UPDATED_AT::ge)
+                .orElse(DSL.trueCondition());
+
+        return dsl
+                .select(APPLICATION.ID,
+                        APPLICATION.NAME,
+                        APPLICATION.ASSET_CODE,
+                        APPLICATION.ORGANISATIONAL_UNIT_ID,
+                        APPLICATION.KIND,
+                        APPLICATION.LIFECYCLE_PHASE,
+                        APPLICATION.ENTITY_LIFECYCLE_STATUS,
+                        APPLICATION.IS_REMOVED,
+                        APPLICATION.UPDATED_AT)
+                .from(APPLICATION)
+                .where(condition)
+                .orderBy(APPLICATION.ID)
+                .fetch(r -> new ApplicationSnapshotRow(
+                        r.get(APPLICATION.ID),
+                        r.get(APPLICATION.NAME),
+                        isEmpty(r.get(APPLICATION.ASSET_CODE)) ? null : r.get(APPLICATION.ASSET_CODE),
+                        r.get(APPLICATION.ORGANISATIONAL_UNIT_ID),
+                        readEnum(r.get(APPLICATION.KIND), ApplicationKind.class, s -> ApplicationKind.IN_HOUSE),
+                        readEnum(r.get(APPLICATION.LIFECYCLE_PHASE), LifecyclePhase.class, s -> LifecyclePhase.DEVELOPMENT),
+                        readEnum(r.get(APPLICATION.ENTITY_LIFECYCLE_STATUS), EntityLifecycleStatus.class, s -> EntityLifecycleStatus.ACTIVE),
+                        r.get(APPLICATION.IS_REMOVED),
+                        r.get(APPLICATION.UPDATED_AT)));
+    }
+
+
+    /**
+     * @param updatedSince if given, only units updated at or after this time are returned
+     */
+    public List<OrgUnitSnapshotRow> findOrgUnits(Optional<Timestamp> updatedSince) {
+        checkNotNull(updatedSince, "updatedSince cannot be null");
+
+        Condition condition = updatedSince
+                .map(ORGANISATIONAL_UNIT.LAST_UPDATED_AT::ge)
+                .orElse(DSL.trueCondition());
+
+        return dsl
+                .select(ORGANISATIONAL_UNIT.ID,
+                        ORGANISATIONAL_UNIT.NAME,
+                        ORGANISATIONAL_UNIT.EXTERNAL_ID,
+                        ORGANISATIONAL_UNIT.PARENT_ID,
+                        ORGANISATIONAL_UNIT.LAST_UPDATED_AT)
+                .from(ORGANISATIONAL_UNIT)
+                .where(condition)
+                .orderBy(ORGANISATIONAL_UNIT.ID)
+                .fetch(r -> new OrgUnitSnapshotRow(
+                        r.get(ORGANISATIONAL_UNIT.ID),
+                        r.get(ORGANISATIONAL_UNIT.NAME),
+                        isEmpty(r.get(ORGANISATIONAL_UNIT.EXTERNAL_ID)) ? null : r.get(ORGANISATIONAL_UNIT.EXTERNAL_ID),
+                        r.get(ORGANISATIONAL_UNIT.PARENT_ID),
+                        r.get(ORGANISATIONAL_UNIT.LAST_UPDATED_AT)));
+    }
+
+
+    /**
+     * Row counts are used to detect deletions, which an incremental refresh cannot see.
+     */
+    public int countApplications() {
+        return dsl.fetchCount(APPLICATION);
+    }
+
+
+    public int countOrgUnits() {
+        return dsl.fetchCount(ORGANISATIONAL_UNIT);
+    }
+
+}
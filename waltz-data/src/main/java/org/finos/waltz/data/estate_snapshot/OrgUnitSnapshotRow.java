@@ -0,0 +1,81 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.estate_snapshot;
+
+import java.sql.Timestamp;
+
+/**
+ * The attributes of an organisational unit held by the estate snapshot.
+ */
+public class OrgUnitSnapshotRow {
+
+    private final long id;
+    private final String name;
+    private final String externalId;
+    private final Long parentId;
+    private final Timestamp lastUpdatedAt;
+
+
+    public OrgUnitSnapshotRow(long id,
+                              String name,
+                              String externalId,
+                              Long parentId,
+                              Timestamp lastUpdatedAt) {
+        this.id = id;
+        this.name = name;
+        this.externalId = externalId;
+        this.parentId = parentId;
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+
+    public long id() {
+        return id;
+    }
+
+
+    public String name() {
+        return name;
+    }
+
+
+    /**
+     * @return the external id, or null if the unit does not have one
+     */
+    public String externalId() {
+        return externalId;
+    }
+
+
+    /**
+     * @return the parent unit id, or null for a root
+     */
+    public Long parentId() {
+        return parentId;
+    }
+
+
+    /**
+     * @return when the row was last updated, or null if unknown
+     */
+    public Timestamp lastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+}
@@ -27,6 +27,9 @@ import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.UserTimestamp;
 import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.schema.tables.records.LogicalFlowRecord;
 import org.jooq.Condition;
@@ -363,6 +366,33 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Keyset paged variant of {@link #findBySelector(Select)}, flows are ordered by id
+     * so each page is a range scan starting after the cursor rather than an offset.
+     */
+    public Page<LogicalFlow> findBySelector(Select<Record1<Long>> flowIdSelector,
+                                            PageRequest pageRequest) {
+        checkNotNull(pageRequest, "pageRequest cannot be null");
+
+        Condition afterCursor = pageRequest
+                .after()
+                .map(cursor -> LOGICAL_FLOW.ID.gt(cursor.id()))
+                .orElse(DSL.trueCondition());
+
+        List<LogicalFlow> rows = baseQuery()
+                .where(dsl.renderInlined(LOGICAL_FLOW.ID.in(flowIdSelector)))
+                .and(afterCursor)
+                .orderBy(LOGICAL_FLOW.ID)
+                .limit(pageRequest.limit() + 1)
+                .fetch(TO_DOMAIN_MAPPER);
+
+        return Page.fromOverfetchedRows(
+                rows,
+                pageRequest,
+                flow -> PageCursor.mkCursor(flow.id().get()));
+    }
+
+
     public Integer cleanupOrphans() {
         Select<Record1<Long>> appIds = DSL
                 .select(APPLICATION.ID)
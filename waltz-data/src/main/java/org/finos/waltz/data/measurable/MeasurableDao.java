@@ -244,6 +244,15 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
     }
 
     public boolean moveChildren(Long measurableId, Long targetId, String userId) {
+        return moveChildren(dsl, measurableId, targetId, userId);
+    }
+
+
+    /**
+     * Variant of {@link #moveChildren(Long, Long, String)} which runs against the given
+     * context, allowing the move to take part in a wider transaction.
+     */
+    public boolean moveChildren(DSLContext dslContext, Long measurableId, Long targetId, String userId) {
 
         if (targetId == null) {
             throw new IllegalArgumentException("Cannot move children without specifying a new target");
@@ -258,7 +267,7 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
                 .from(MEASURABLE)
                 .where(MEASURABLE.ID.eq(targetId));
 
-        return dsl
+        return dslContext
                 .update(MEASURABLE)
                 .set(MEASURABLE.PARENT_ID, targetId)
                 .set(MEASURABLE.EXTERNAL_PARENT_ID, destinationExtId)
@@ -501,6 +501,16 @@ public class MeasurableRatingDao {
      * @param userId       the user responsible for the change
      */
     public void migrateRatings(Long measurableId, Long targetId, String userId) {
+        migrateRatings(dsl, measurableId, targetId, userId);
+    }
+
+
+    /**
+     * Variant of {@link #migrateRatings(Long, Long, String)} which runs against the given
+     * context.  If the context is already in a transaction the migration joins it (as a
+     * nested transaction) so it commits or rolls back with the caller's work.
+     */
+    public void migrateRatings(DSLContext dslContext, Long measurableId, Long targetId, String userId) {
 
         if (targetId == null) {
             throw new IllegalArgumentException("Cannot migrate ratings without specifying a new target");
@@ -513,7 +523,7 @@ public class MeasurableRatingDao {
         int sharedRatingCount = getSharedRatingsCount(measurableId, targetId);
         int sharedDecomCount = getSharedDecommsCount(measurableId, targetId);
 
-        dsl.transaction(ctx -> {
+        dslContext.transaction(ctx -> {
 
             DSLContext tx = ctx.dsl();
 
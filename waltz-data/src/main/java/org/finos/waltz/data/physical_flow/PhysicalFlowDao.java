@@ -25,6 +25,9 @@ import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.UserTimestamp;
 import org.finos.waltz.model.enum_value.EnumValueKind;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.physical_flow.CriticalityValue;
 import org.finos.waltz.model.physical_flow.FrequencyKindValue;
 import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlow;
@@ -194,6 +197,35 @@ public class PhysicalFlowDao {
     }
 
 
+    /**
+     * Keyset paged variant of {@link #findBySelector(Select)}, flows are ordered by id
+     * so each page is a range scan starting after the cursor rather than an offset.
+     */
+    public Page<PhysicalFlow> findBySelector(Select<Record1<Long>> selector,
+                                             PageRequest pageRequest) {
+        checkNotNull(pageRequest, "pageRequest cannot be null");
+
+        Condition afterCursor = pageRequest
+                .after()
+                .map(cursor -> PHYSICAL_FLOW.ID.gt(cursor.id()))
+                .orElse(DSL.trueCondition());
+
+        List<PhysicalFlow> rows = dsl
+                .select(PHYSICAL_FLOW.fields())
+                .from(PHYSICAL_FLOW)
+                .where(PHYSICAL_FLOW.ID.in(selector))
+                .and(afterCursor)
+                .orderBy(PHYSICAL_FLOW.ID)
+                .limit(pageRequest.limit() + 1)
+                .fetch(TO_DOMAIN_MAPPER);
+
+        return Page.fromOverfetchedRows(
+                rows,
+                pageRequest,
+                flow -> PageCursor.mkCursor(flow.id().get()));
+    }
+
+
     public List<PhysicalFlow> findByAttributesAndSpecification(PhysicalFlow flow) {
 
         Condition sameFlow = PHYSICAL_FLOW.SPECIFICATION_ID.eq(flow.specificationId())
@@ -29,6 +29,7 @@ import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.Node;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.InlineSelectFieldFactory;
+import org.finos.waltz.data.ReadOnlyDsl;
 import org.finos.waltz.model.Cardinality;
 import org.finos.waltz.model.CommonTableFields;
 import org.finos.waltz.model.EntityKind;
@@ -194,6 +195,9 @@ public class ReportGridDao {
 
     private final DSLContext dsl;
 
+    // used for the (potentially expensive) cell data queries, see ReadOnlyDsl
+    private final DSLContext readDsl;
+
     private final org.finos.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final org.finos.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
     private final org.finos.waltz.schema.tables.MeasurableCategory mc = MEASURABLE_CATEGORY.as("mc");
@@ -258,8 +262,10 @@ public class ReportGridDao {
 
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl,
+                         ReadOnlyDsl readOnlyDsl) {
         this.dsl = dsl;
+        this.readDsl = readOnlyDsl.dsl();
     }
 
 
@@ -864,7 +870,7 @@ public class ReportGridDao {
 
             // FIELD REF COL DEFS
 
-            Map<Long, EntityFieldReference> fieldReferencesById = dsl
+            Map<Long, EntityFieldReference> fieldReferencesById = readDsl
                     .select(efr.fields())
                     .from(efr)
                     .where(efr.ID.in(map(fieldRefColDefs, r -> r.entityFieldReference().id().get())))
@@ -977,7 +983,7 @@ public class ReportGridDao {
                     .orderBy(SURVEY_INSTANCE.SUBMITTED_AT.desc().nullsLast())
                     .as("latest_instance");
 
-            Table<Record4<Long, Long, Long, Long>> surveyInfo = dsl
+            Table<Record4<Long, Long, Long, Long>> surveyInfo = readDsl
                     .select(latestInstance,
                             SURVEY_INSTANCE.ID.as("sid"),
                             SURVEY_INSTANCE.ENTITY_ID.as("eid"),
@@ -991,7 +997,7 @@ public class ReportGridDao {
                             .and(SURVEY_INSTANCE.ORIGINAL_INSTANCE_ID.isNull()))
                     .asTable();
 
-            SelectConditionStep<Record> qry = dsl
+            SelectConditionStep<Record> qry = readDsl
                     .select(surveyInfo.fields())
                     .select(PERSON.EMAIL, PERSON.DISPLAY_NAME, PERSON.EMPLOYEE_ID)
                     .from(surveyInfo)
@@ -1059,7 +1065,7 @@ public class ReportGridDao {
                                 ? DSL.trueCondition()
                                 : eh.ANCESTOR_ID.eq(categoryAndQualifier.v2);
 
-                        Map<Tuple3<Long, Object, Long>, List<Tuple2<String, Long>>> measurablesForEachApp = dsl
+                        Map<Tuple3<Long, Object, Long>, List<Tuple2<String, Long>>> measurablesForEachApp = readDsl
                                 .selectDistinct(
                                         m.MEASURABLE_CATEGORY_ID,
                                         DSL.val(categoryAndQualifier.v2),
@@ -1114,7 +1120,7 @@ public class ReportGridDao {
                         .map(t -> t.v2))
                 .collect(toSet());
 
-        return dsl
+        return readDsl
                 .select(MEASURABLE.ID, MEASURABLE.PARENT_ID, MEASURABLE.NAME)
                 .from(ENTITY_HIERARCHY)
                 .innerJoin(MEASURABLE).on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(MEASURABLE.ID))
@@ -1191,7 +1197,7 @@ public class ReportGridDao {
                                     ? DSL.trueCondition()
                                     : att_r.ATTESTED_ENTITY_ID.eq(c.columnQualifierId()))));
 
-            SelectConditionStep<Record7<String, Long, String, Long, Timestamp, String, Integer>> rawAttestationData = dsl
+            SelectConditionStep<Record7<String, Long, String, Long, Timestamp, String, Integer>> rawAttestationData = readDsl
                     .select(
                         att_i.PARENT_ENTITY_KIND.as("ref_k"),
                         att_i.PARENT_ENTITY_ID.as("ref_i"),
@@ -1213,7 +1219,7 @@ public class ReportGridDao {
                         .and(att_i.ATTESTED_AT.isNotNull())
                         .and(colConds);
 
-            SelectConditionStep<Record> latestAttestationData = dsl
+            SelectConditionStep<Record> latestAttestationData = readDsl
                     .select(rawAttestationData.fields())
                     .from(rawAttestationData.asTable())
                     .where(rawAttestationData.field("latest", Integer.class).eq(1));
@@ -1273,7 +1279,7 @@ public class ReportGridDao {
                     cols,
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
-            return dsl
+            return readDsl
                     .select(dtu.ENTITY_ID,
                             dtu.DATA_TYPE_ID,
                             dtu.USAGE_KIND)
@@ -1312,7 +1318,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            return dsl
+            return readDsl
                     .select(dtu.ENTITY_ID,
                             dtu.DATA_TYPE_ID,
                             dtu.USAGE_KIND,
@@ -1372,7 +1378,7 @@ public class ReportGridDao {
                     genericSelector,
                     groupIdToDefIdMap.keySet());
 
-            return dsl
+            return readDsl
                     .fetch(appGroupInfoSelect)
                     .stream()
                     .map(r -> {
@@ -1408,7 +1414,7 @@ public class ReportGridDao {
 
     private SelectOrderByStep<Record3<Long, Long, Timestamp>> mkChangeInitiativeAppGroupSelect(GenericSelector selector, Set<Long> requiredAppGroupIds) {
 
-        SelectConditionStep<Record3<Long, Long, Timestamp>> groupASelect = dsl
+        SelectConditionStep<Record3<Long, Long, Timestamp>> groupASelect = readDsl
                 .select(ci.ID.as("subject_id"),
                         ag.ID,
                         er.LAST_UPDATED_AT.as("created_at"))
@@ -1420,7 +1426,7 @@ public class ReportGridDao {
                 .and(ci.ID.in(selector.selector()))
                 .and(ag.ID.in(requiredAppGroupIds));
 
-        SelectConditionStep<Record3<Long, Long, Timestamp>> groupBSelect = dsl
+        SelectConditionStep<Record3<Long, Long, Timestamp>> groupBSelect = readDsl
                 .select(ci.ID.as("subject_id"),
                         ag.ID,
                         er.LAST_UPDATED_AT.as("created_at"))
@@ -1479,7 +1485,7 @@ public class ReportGridDao {
                     .stream()
                     .collect(toMap(k -> k.v2.fieldName(), v -> v.v1));
 
-            return dsl
+            return readDsl
                     .select(APPLICATION.fields())
                     .from(APPLICATION)
                     .where(APPLICATION.ID.in(selector.selector()))
@@ -1537,7 +1543,7 @@ public class ReportGridDao {
             ChangeInitiative ci = CHANGE_INITIATIVE.as("ci");
             ChangeInitiative ci_parent = CHANGE_INITIATIVE.as("ci_parent");
 
-            return dsl
+            return readDsl
                     .select(ci.fields())
                     .select(ci_parent.EXTERNAL_ID.as("parent_external_id"))
                     .from(ci)
@@ -1600,7 +1606,7 @@ public class ReportGridDao {
                     .orderBy(SURVEY_INSTANCE.ISSUED_ON.desc(), SURVEY_INSTANCE.SUBMITTED_AT.desc())
                     .as("latest_instance");
 
-            Table<Record> surveyInfo = dsl
+            Table<Record> surveyInfo = readDsl
                     .select(latestInstance)
                     .select(SURVEY_INSTANCE.ID.as("sid"),
                             SURVEY_INSTANCE.STATUS,
@@ -1626,7 +1632,7 @@ public class ReportGridDao {
                     .asTable();
 
 
-            SelectConditionStep<Record> surveyInfoForLatestInstance = dsl
+            SelectConditionStep<Record> surveyInfoForLatestInstance = readDsl
                     .select(surveyInfo.fields())
                     .from(surveyInfo)
                     .where(surveyInfo.field(latestInstance)
@@ -1718,7 +1724,7 @@ public class ReportGridDao {
 
     private SelectConditionStep<Record> getOrgUnitSelectQuery(GenericSelector selector) {
 
-        SelectConditionStep<Record> appOrgUnitQuery = dsl
+        SelectConditionStep<Record> appOrgUnitQuery = readDsl
                 .select(ORGANISATIONAL_UNIT.fields())
                 .select(APPLICATION.ID.as("entityId"))
                 .from(ORGANISATIONAL_UNIT)
@@ -1726,7 +1732,7 @@ public class ReportGridDao {
                 .on(ORGANISATIONAL_UNIT.ID.eq(APPLICATION.ORGANISATIONAL_UNIT_ID))
                 .where(APPLICATION.ID.in(selector.selector()));
 
-        SelectConditionStep<Record> changeInitiativeOrgUnitQuery = dsl
+        SelectConditionStep<Record> changeInitiativeOrgUnitQuery = readDsl
                 .select(ORGANISATIONAL_UNIT.fields())
                 .select(CHANGE_INITIATIVE.ID.as("entityId"))
                 .from(ORGANISATIONAL_UNIT)
@@ -1796,7 +1802,7 @@ public class ReportGridDao {
 
     private SelectConditionStep<Record> getPrimaryMeasurableSelectQuery(GenericSelector selector, Set<Long> categoryIds) {
 
-        return dsl
+        return readDsl
                 .select(MEASURABLE.fields())
                 .select(MEASURABLE_RATING.ENTITY_ID.as("entityId"))
                 .select(MEASURABLE.MEASURABLE_CATEGORY_ID)
@@ -1823,7 +1829,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            return dsl
+            return readDsl
                     .select(
                             inv.ENTITY_ID,
                             inv.KIND_ID,
@@ -1876,7 +1882,7 @@ public class ReportGridDao {
                     .findFirst();
 
             return tagsColumn
-                    .map(columnId -> SetUtilities.<ReportGridCell>fromCollection(dsl
+                    .map(columnId -> SetUtilities.<ReportGridCell>fromCollection(readDsl
                             .select(tu.ENTITY_ID,
                                     tag.NAME)
                             .from(tu)
@@ -1916,7 +1922,7 @@ public class ReportGridDao {
                     .findFirst();
 
             return aliasColumn
-                    .map(columnId -> SetUtilities.<ReportGridCell>fromCollection(dsl
+                    .map(columnId -> SetUtilities.<ReportGridCell>fromCollection(readDsl
                             .select(ea.ID,
                                     ea.ALIAS)
                             .from(ea)
@@ -1949,10 +1955,10 @@ public class ReportGridDao {
             return emptySet();
         } else {
 
-            SelectHavingStep<Record2<Long, Integer>> costKindLastestYear = dsl
+            SelectHavingStep<Record2<Long, Integer>> costKindLastestYear = readDsl
                     .select(COST.COST_KIND_ID, DSL.max(COST.YEAR).as("latest_year"))
                     .from(COST)
-                    .where(dsl.renderInlined(COST.ENTITY_ID.in(selector.selector())
+                    .where(readDsl.renderInlined(COST.ENTITY_ID.in(selector.selector())
                             .and(COST.ENTITY_KIND.eq(selector.kind().name()))))
                     .groupBy(COST.COST_KIND_ID);
 
@@ -1964,13 +1970,13 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            return dsl
+            return readDsl
                     .select(c.ENTITY_ID,
                             c.COST_KIND_ID,
                             c.AMOUNT)
                     .from(c)
                     .innerJoin(costKindLastestYear).on(latestYearForKind)
-                    .where(dsl.renderInlined(c.COST_KIND_ID.in(costKindIdToDefIdMap.keySet())
+                    .where(readDsl.renderInlined(c.COST_KIND_ID.in(costKindIdToDefIdMap.keySet())
                             .and(c.ENTITY_KIND.eq(selector.kind().name()))
                             .and(c.ENTITY_ID.in(selector.selector()))))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
@@ -1994,12 +2000,12 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            return dsl
+            return readDsl
                     .select(cx.ENTITY_ID,
                             cx.COMPLEXITY_KIND_ID,
                             cx.SCORE)
                     .from(cx)
-                    .where(dsl.renderInlined(cx.COMPLEXITY_KIND_ID.in(complexityKindIdToDefIdMap.keySet())
+                    .where(readDsl.renderInlined(cx.COMPLEXITY_KIND_ID.in(complexityKindIdToDefIdMap.keySet())
                             .and(cx.ENTITY_KIND.eq(selector.kind().name()))
                             .and(cx.ENTITY_ID.in(selector.selector()))))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
@@ -2062,8 +2068,8 @@ public class ReportGridDao {
                                 highIdToDefIdMap.keySet(),
                                 lowIdToDefIdMap.keySet()))));
 
-        return dsl
-                .resultQuery(dsl.renderInlined(ratings))
+        return readDsl
+                .resultQuery(readDsl.renderInlined(ratings))
                 .fetchGroups(
                         r -> tuple(
                                 mkRef(selector.kind(), r.get(mr.ENTITY_ID)),
@@ -2120,7 +2126,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            SelectConditionStep<Record5<Long, Long, Long, String, String>> qry = dsl
+            SelectConditionStep<Record5<Long, Long, Long, String, String>> qry = readDsl
                     .select(mr.ENTITY_ID,
                             mr.MEASURABLE_ID,
                             rsi.ID,
@@ -2134,8 +2140,8 @@ public class ReportGridDao {
                     .and(mr.ENTITY_ID.in(selector.selector()))
                     .and(mr.ENTITY_KIND.eq(selector.kind().name()));
 
-            return dsl
-                    .resultQuery(dsl.renderInlined(qry))
+            return readDsl
+                    .resultQuery(readDsl.renderInlined(qry))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2158,7 +2164,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            SelectConditionStep<Record5<Long, Long, Long, String, String>> qry = dsl
+            SelectConditionStep<Record5<Long, Long, Long, String, String>> qry = readDsl
                     .select(mr.ENTITY_ID,
                             mr.MEASURABLE_ID,
                             rsi.ID,
@@ -2173,8 +2179,8 @@ public class ReportGridDao {
                     .and(mr.ENTITY_KIND.eq(selector.kind().name()))
                     .and(mr.IS_PRIMARY.isTrue());
 
-            return dsl
-                    .resultQuery(dsl.renderInlined(qry))
+            return readDsl
+                    .resultQuery(readDsl.renderInlined(qry))
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2198,7 +2204,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::gridColumnId);
 
 
-            Map<String, Result<Record6<Long, Long, Long, String, String, String>>> assessmentsByCardinality = dsl
+            Map<String, Result<Record6<Long, Long, Long, String, String, String>>> assessmentsByCardinality = readDsl
                     .select(ar.ENTITY_ID,
                             ar.ASSESSMENT_DEFINITION_ID,
                             ar.RATING_ID,
@@ -2289,7 +2295,7 @@ public class ReportGridDao {
                     ReportGridFixedColumnDefinition::columnEntityId,
                     ReportGridFixedColumnDefinition::gridColumnId);
 
-            return dsl
+            return readDsl
                     .select(esv.ENTITY_ID,
                             esv.STATISTIC_ID,
                             esv.OUTCOME,
@@ -2358,7 +2364,7 @@ public class ReportGridDao {
                     .orderBy(SURVEY_INSTANCE.ISSUED_ON.desc(), SURVEY_INSTANCE.SUBMITTED_AT.desc())
                     .as("latest_instance");
 
-            Table<Record> responsesWithQuestionTypeAndEntity = dsl
+            Table<Record> responsesWithQuestionTypeAndEntity = readDsl
                     .select(latestInstance)
                     .select(SURVEY_INSTANCE.ID.as("sid"),
                             SURVEY_INSTANCE.ENTITY_ID,
@@ -2388,7 +2394,7 @@ public class ReportGridDao {
                     .asTable();
 
 
-            Map<Tuple2<Long, Long>, List<String>> responsesByInstanceQuestionKey = dsl
+            Map<Tuple2<Long, Long>, List<String>> responsesByInstanceQuestionKey = readDsl
                     .select(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID,
                             SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID,
                             SURVEY_QUESTION_LIST_RESPONSE.RESPONSE)
@@ -2401,7 +2407,7 @@ public class ReportGridDao {
                             k -> tuple(k.get(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID), k.get(SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID)),
                             v -> v.get(SURVEY_QUESTION_LIST_RESPONSE.RESPONSE));
 
-            SelectConditionStep<Record> qry = dsl
+            SelectConditionStep<Record> qry = readDsl
                     .select(responsesWithQuestionTypeAndEntity.fields())
                     .from(responsesWithQuestionTypeAndEntity)
                     .where(responsesWithQuestionTypeAndEntity.field(latestInstance)
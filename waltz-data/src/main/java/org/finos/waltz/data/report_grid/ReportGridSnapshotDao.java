@@ -0,0 +1,272 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.report_grid.ImmutableReportGridSnapshotConfig;
+import org.finos.waltz.model.report_grid.ImmutableReportGridSnapshotInfo;
+import org.finos.waltz.model.report_grid.ReportGridSnapshotConfig;
+import org.finos.waltz.model.report_grid.ReportGridSnapshotInfo;
+import org.finos.waltz.schema.tables.records.ReportGridSnapshotConfigRecord;
+import org.finos.waltz.schema.tables.records.ReportGridSnapshotRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.REPORT_GRID_SNAPSHOT;
+import static org.finos.waltz.schema.Tables.REPORT_GRID_SNAPSHOT_CONFIG;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Stores report grid snapshot configs and the snapshots taken for them.  The
+ * snapshot data is an opaque (encoded) blob, only the summary columns are
+ * queryable.
+ */
+@Repository
+public class ReportGridSnapshotDao {
+
+    private static final Field<?>[] SNAPSHOT_INFO_FIELDS = {
+            REPORT_GRID_SNAPSHOT.ID,
+            REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID,
+            REPORT_GRID_SNAPSHOT.AS_OF,
+            REPORT_GRID_SNAPSHOT.SUBJECT_COUNT,
+            REPORT_GRID_SNAPSHOT.CELL_COUNT
+    };
+
+
+    private static final RecordMapper<Record, ReportGridSnapshotConfig> TO_CONFIG_MAPPER = r -> {
+        ReportGridSnapshotConfigRecord record = r.into(REPORT_GRID_SNAPSHOT_CONFIG);
+        return ImmutableReportGridSnapshotConfig
+                .builder()
+                .id(record.getId())
+                .reportGridId(record.getReportGridId())
+                .selectorEntity(mkRef(
+                        EntityKind.valueOf(record.getSelectorEntityKind()),
+                        record.getSelectorEntityId()))
+                .selectorScope(HierarchyQueryScope.valueOf(record.getSelectorHierarchyScope()))
+                .createdAt(toLocalDateTime(record.getCreatedAt()))
+                .createdBy(record.getCreatedBy())
+                .build();
+    };
+
+
+    private static final RecordMapper<Record, ReportGridSnapshotInfo> TO_INFO_MAPPER = r -> ImmutableReportGridSnapshotInfo
+            .builder()
+            .id(r.get(REPORT_GRID_SNAPSHOT.ID))
+            .snapshotConfigId(r.get(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID))
+            .asOf(toLocalDateTime(r.get(REPORT_GRID_SNAPSHOT.AS_OF)))
+            .subjectCount(r.get(REPORT_GRID_SNAPSHOT.SUBJECT_COUNT))
+            .cellCount(r.get(REPORT_GRID_SNAPSHOT.CELL_COUNT))
+            .build();
+
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public ReportGridSnapshotDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    // --- configs
+
+    public Set<ReportGridSnapshotConfig> findAllConfigs() {
+        return dsl
+                .select(REPORT_GRID_SNAPSHOT_CONFIG.fields())
+                .from(REPORT_GRID_SNAPSHOT_CONFIG)
+                .fetchSet(TO_CONFIG_MAPPER);
+    }
+
+
+    public Set<ReportGridSnapshotConfig> findConfigsForGrid(long gridId) {
+        return dsl
+                .select(REPORT_GRID_SNAPSHOT_CONFIG.fields())
+                .from(REPORT_GRID_SNAPSHOT_CONFIG)
+                .where(REPORT_GRID_SNAPSHOT_CONFIG.REPORT_GRID_ID.eq(gridId))
+                .fetchSet(TO_CONFIG_MAPPER);
+    }
+
+
+    public Optional<ReportGridSnapshotConfig> getConfigById(long configId) {
+        return dsl
+                .select(REPORT_GRID_SNAPSHOT_CONFIG.fields())
+                .from(REPORT_GRID_SNAPSHOT_CONFIG)
+                .where(REPORT_GRID_SNAPSHOT_CONFIG.ID.eq(configId))
+                .fetchOptional(TO_CONFIG_MAPPER);
+    }
+
+
+    public Optional<ReportGridSnapshotConfig> getConfig(long gridId,
+                                                        EntityReference selectorEntity,
+                                                        HierarchyQueryScope selectorScope) {
+        return dsl
+                .select(REPORT_GRID_SNAPSHOT_CONFIG.fields())
+                .from(REPORT_GRID_SNAPSHOT_CONFIG)
+                .where(REPORT_GRID_SNAPSHOT_CONFIG.REPORT_GRID_ID.eq(gridId))
+                .and(REPORT_GRID_SNAPSHOT_CONFIG.SELECTOR_ENTITY_KIND.eq(selectorEntity.kind().name()))
+                .and(REPORT_GRID_SNAPSHOT_CONFIG.SELECTOR_ENTITY_ID.eq(selectorEntity.id()))
+                .and(REPORT_GRID_SNAPSHOT_CONFIG.SELECTOR_HIERARCHY_SCOPE.eq(selectorScope.name()))
+                .fetchOptional(TO_CONFIG_MAPPER);
+    }
+
+
+    public long createConfig(long gridId,
+                             EntityReference selectorEntity,
+                             HierarchyQueryScope selectorScope,
+                             String username) {
+        ReportGridSnapshotConfigRecord record = dsl.newRecord(REPORT_GRID_SNAPSHOT_CONFIG);
+        record.setReportGridId(gridId);
+        record.setSelectorEntityKind(selectorEntity.kind().name());
+        record.setSelectorEntityId(selectorEntity.id());
+        record.setSelectorHierarchyScope(selectorScope.name());
+        record.setCreatedBy(username);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Removes the config and all snapshots taken for it
+     */
+    public boolean removeConfig(long configId) {
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            tx.deleteFrom(REPORT_GRID_SNAPSHOT)
+                    .where(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID.eq(configId))
+                    .execute();
+            return tx
+                    .deleteFrom(REPORT_GRID_SNAPSHOT_CONFIG)
+                    .where(REPORT_GRID_SNAPSHOT_CONFIG.ID.eq(configId))
+                    .execute() == 1;
+        });
+    }
+
+
+    // --- snapshots
+
+    /**
+     * @return config id to the as-of time of its most recent snapshot, configs
+     * without any snapshots are omitted
+     */
+    public Map<Long, Timestamp> findLatestAsOfByConfigId() {
+        Field<Timestamp> latestAsOf = DSL.max(REPORT_GRID_SNAPSHOT.AS_OF).as("latest_as_of");
+
+        return dsl
+                .select(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID, latestAsOf)
+                .from(REPORT_GRID_SNAPSHOT)
+                .groupBy(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID)
+                .fetchMap(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID, latestAsOf);
+    }
+
+
+    public long createSnapshot(long configId,
+                               Timestamp asOf,
+                               int subjectCount,
+                               int cellCount,
+                               byte[] data) {
+        ReportGridSnapshotRecord record = dsl.newRecord(REPORT_GRID_SNAPSHOT);
+        record.setSnapshotConfigId(configId);
+        record.setAsOf(asOf);
+        record.setSubjectCount(subjectCount);
+        record.setCellCount(cellCount);
+        record.setData(data);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * @return snapshots for the config, most recent first, without their data
+     */
+    public List<ReportGridSnapshotInfo> findSnapshotInfosForConfig(long configId) {
+        return dsl
+                .select(SNAPSHOT_INFO_FIELDS)
+                .from(REPORT_GRID_SNAPSHOT)
+                .where(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID.eq(configId))
+                .orderBy(REPORT_GRID_SNAPSHOT.AS_OF.desc())
+                .fetch(TO_INFO_MAPPER);
+    }
+
+
+    public Optional<Tuple2<ReportGridSnapshotInfo, byte[]>> getLatestSnapshotForConfig(long configId) {
+        return dsl
+                .select(SNAPSHOT_INFO_FIELDS)
+                .select(REPORT_GRID_SNAPSHOT.DATA)
+                .from(REPORT_GRID_SNAPSHOT)
+                .where(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID.eq(configId))
+                .orderBy(REPORT_GRID_SNAPSHOT.AS_OF.desc())
+                .limit(1)
+                .fetchOptional(r -> tuple(
+                        TO_INFO_MAPPER.map(r),
+                        r.get(REPORT_GRID_SNAPSHOT.DATA)));
+    }
+
+
+    public Optional<Tuple2<ReportGridSnapshotInfo, byte[]>> getSnapshotById(long snapshotId) {
+        return dsl
+                .select(SNAPSHOT_INFO_FIELDS)
+                .select(REPORT_GRID_SNAPSHOT.DATA)
+                .from(REPORT_GRID_SNAPSHOT)
+                .where(REPORT_GRID_SNAPSHOT.ID.eq(snapshotId))
+                .fetchOptional(r -> tuple(
+                        TO_INFO_MAPPER.map(r),
+                        r.get(REPORT_GRID_SNAPSHOT.DATA)));
+    }
+
+
+    /**
+     * Removes snapshots taken before the given time, except for the most recent
+     * snapshot of each config, so a config always has something to serve.
+     *
+     * @return number of snapshots removed
+     */
+    public int removeSnapshotsBefore(Timestamp cutoff) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+
+        return findLatestAsOfByConfigId()
+                .entrySet()
+                .stream()
+                .mapToInt(e -> dsl
+                        .deleteFrom(REPORT_GRID_SNAPSHOT)
+                        .where(REPORT_GRID_SNAPSHOT.SNAPSHOT_CONFIG_ID.eq(e.getKey()))
+                        .and(REPORT_GRID_SNAPSHOT.AS_OF.lt(cutoff))
+                        .and(REPORT_GRID_SNAPSHOT.AS_OF.lt(e.getValue()))
+                        .execute())
+                .sum();
+    }
+
+}
@@ -12,6 +12,7 @@ import org.finos.waltz.model.survey.SurveyInstanceStatus;
 import org.finos.waltz.schema.tables.records.SurveyInstanceActionQueueRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.RecordMapper;
@@ -22,7 +23,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
@@ -120,6 +124,38 @@ public class SurveyInstanceActionQueueDao {
     }
 
 
+    /**
+     * Moves pending actions straight to a final status (e.g. when their preconditions are not met)
+     * using a single batch of updates.
+     *
+     * @param messagesByActionId  message to record against each action
+     * @return number of actions updated, actions which are no longer pending are not updated
+     */
+    public int updatePendingActionStatuses(DSLContext tx,
+                                           Map<Long, String> messagesByActionId,
+                                           SurveyInstanceActionStatus instanceActionStatus) {
+        if (messagesByActionId.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+
+        List<Query> updates = messagesByActionId
+                .entrySet()
+                .stream()
+                .map(e -> tx
+                        .update(SURVEY_INSTANCE_ACTION_QUEUE)
+                        .set(SURVEY_INSTANCE_ACTION_QUEUE.ACTIONED_AT, now)
+                        .set(SURVEY_INSTANCE_ACTION_QUEUE.STATUS, instanceActionStatus.name())
+                        .set(SURVEY_INSTANCE_ACTION_QUEUE.MESSAGE, e.getValue())
+                        .where(SURVEY_INSTANCE_ACTION_QUEUE.ID.eq(e.getKey())
+                                .and(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.PENDING.name()))))
+                .collect(Collectors.toList());
+
+        return IntStream.of(tx.batch(updates).execute()).sum();
+    }
+
+
     public void markActionInProgress(DSLContext tx, Long actionId) {
 
         SelectConditionStep<Record1<Long>> inProgressAction = DSL
@@ -217,6 +217,16 @@ public class SurveyInstanceDao {
     }
 
 
+    public List<SurveyInstance> findByIds(Collection<Long> ids) {
+        return dsl.select(si.fields())
+                .select(ENTITY_NAME_FIELD)
+                .select(EXTERNAL_ID_FIELD)
+                .from(si)
+                .where(si.ID.in(ids))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     public Set<SurveyInstance> findForRecipient(long personId) {
         return dsl.select(si.fields())
                 .select(ENTITY_NAME_FIELD)
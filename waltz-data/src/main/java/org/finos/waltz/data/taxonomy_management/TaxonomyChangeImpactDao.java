@@ -0,0 +1,284 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.taxonomy_management;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.schema.Tables.ASSESSMENT_RATING;
+import static org.finos.waltz.schema.Tables.BOOKMARK;
+import static org.finos.waltz.schema.Tables.ENTITY_NAMED_NOTE;
+import static org.finos.waltz.schema.Tables.ENTITY_RELATIONSHIP;
+import static org.finos.waltz.schema.Tables.FLOW_DIAGRAM_ENTITY;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+
+/**
+ * Previews and applies the removal of the data associated to a set of
+ * measurables.
+ *
+ * The measurable ids are resolved once (see {@link #findMeasurableIds(Select)})
+ * and every count / removal is then a set based statement over those ids,
+ * rather than each one re-evaluating the hierarchy selector.  Ids are sent
+ * in chunks to stay within the bind parameter and in-list limits of the
+ * supported databases.
+ */
+@Repository
+public class TaxonomyChangeImpactDao {
+
+    private static final int CHUNK_SIZE = 1_000;
+    private static final String MEASURABLE_KIND = EntityKind.MEASURABLE.name();
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public TaxonomyChangeImpactDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public Set<Long> findMeasurableIds(Select<Record1<Long>> measurableIdSelector) {
+        checkNotNull(measurableIdSelector, "measurableIdSelector cannot be null");
+        return dsl
+                .fetch(measurableIdSelector)
+                .intoSet(0, Long.class);
+    }
+
+
+    /**
+     * Counts the rows which would be removed for each of the given impacts.
+     * Each chunk of ids is counted with a single statement.
+     *
+     * Entity relationships may link measurables in different chunks, so (rather
+     * than summing per chunk counts) the ids of the matching relationships are
+     * collected and the distinct ids are counted.
+     */
+    public Map<TaxonomyChangeImpactKind, Integer> countImpacts(Collection<Long> measurableIds,
+                                                               Set<TaxonomyChangeImpactKind> impacts) {
+        checkNotNull(measurableIds, "measurableIds cannot be null");
+        checkNotNull(impacts, "impacts cannot be null");
+
+        Map<TaxonomyChangeImpactKind, Integer> counts = mkEmptyCounts(impacts);
+        if (impacts.isEmpty()) {
+            return counts;
+        }
+
+        boolean countRelationships = counts.containsKey(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP);
+
+        List<TaxonomyChangeImpactKind> orderedImpacts = new ArrayList<>(counts.keySet());
+        orderedImpacts.remove(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP);
+
+        Set<Long> relationshipIds = new HashSet<>();
+
+        for (List<Long> chunk : chunk(measurableIds)) {
+            if (!orderedImpacts.isEmpty()) {
+                List<Field<Integer>> countFields = new ArrayList<>();
+                for (TaxonomyChangeImpactKind impact : orderedImpacts) {
+                    countFields.add(DSL
+                            .field(DSL
+                                    .selectCount()
+                                    .from(table(impact))
+                                    .where(condition(impact, chunk)))
+                            .as(impact.name()));
+                }
+
+                Record record = dsl
+                        .select(countFields)
+                        .fetchOne();
+
+                for (TaxonomyChangeImpactKind impact : orderedImpacts) {
+                    counts.merge(impact, record.get(impact.name(), Integer.class), Integer::sum);
+                }
+            }
+
+            if (countRelationships) {
+                relationshipIds.addAll(dsl
+                        .select(ENTITY_RELATIONSHIP.ID)
+                        .from(ENTITY_RELATIONSHIP)
+                        .where(condition(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP, chunk))
+                        .fetchSet(ENTITY_RELATIONSHIP.ID));
+            }
+        }
+
+        if (countRelationships) {
+            counts.put(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP, relationshipIds.size());
+        }
+
+        return counts;
+    }
+
+
+    /**
+     * Removes the data for each of the given impacts in a single transaction.
+     * Measurables are soft deleted (marked as <code>REMOVED</code>), everything
+     * else is deleted.
+     *
+     * @return number of rows affected for each impact
+     */
+    public Map<TaxonomyChangeImpactKind, Integer> removeImpacts(Collection<Long> measurableIds,
+                                                                Set<TaxonomyChangeImpactKind> impacts) {
+        return removeImpacts(dsl, measurableIds, impacts);
+    }
+
+
+    /**
+     * Variant of {@link #removeImpacts(Collection, Set)} which runs against the given
+     * context, joining its transaction if it has one.
+     */
+    public Map<TaxonomyChangeImpactKind, Integer> removeImpacts(DSLContext dslContext,
+                                                                Collection<Long> measurableIds,
+                                                                Set<TaxonomyChangeImpactKind> impacts) {
+        checkNotNull(dslContext, "dslContext cannot be null");
+        checkNotNull(measurableIds, "measurableIds cannot be null");
+        checkNotNull(impacts, "impacts cannot be null");
+
+        List<List<Long>> chunks = chunk(measurableIds);
+
+        return dslContext.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            Map<TaxonomyChangeImpactKind, Integer> counts = mkEmptyCounts(impacts);
+            for (TaxonomyChangeImpactKind impact : counts.keySet()) {
+                for (List<Long> chunk : chunks) {
+                    int rc = mkRemoval(tx, impact, chunk).execute();
+                    counts.merge(impact, rc, Integer::sum);
+                }
+            }
+            return counts;
+        });
+    }
+
+
+    // --- helpers
+
+    private static Query mkRemoval(DSLContext tx,
+                                   TaxonomyChangeImpactKind impact,
+                                   Collection<Long> ids) {
+        if (impact == TaxonomyChangeImpactKind.MEASURABLE) {
+            return tx
+                    .update(MEASURABLE)
+                    .set(MEASURABLE.ENTITY_LIFECYCLE_STATUS, EntityLifecycleStatus.REMOVED.name())
+                    .where(condition(impact, ids));
+        } else {
+            return tx
+                    .deleteFrom(table(impact))
+                    .where(condition(impact, ids));
+        }
+    }
+
+
+    private static Table<?> table(TaxonomyChangeImpactKind impact) {
+        switch (impact) {
+            case BOOKMARK:
+                return BOOKMARK;
+            case INVOLVEMENT:
+                return INVOLVEMENT;
+            case MEASURABLE_RATING:
+                return MEASURABLE_RATING;
+            case FLOW_DIAGRAM_ENTITY:
+                return FLOW_DIAGRAM_ENTITY;
+            case ENTITY_RELATIONSHIP:
+                return ENTITY_RELATIONSHIP;
+            case ASSESSMENT_RATING:
+                return ASSESSMENT_RATING;
+            case ENTITY_NAMED_NOTE:
+                return ENTITY_NAMED_NOTE;
+            case MEASURABLE:
+                return MEASURABLE;
+            default:
+                throw new UnsupportedOperationException("Cannot determine table for impact: " + impact);
+        }
+    }
+
+
+    private static Condition condition(TaxonomyChangeImpactKind impact, Collection<Long> ids) {
+        switch (impact) {
+            case BOOKMARK:
+                return BOOKMARK.PARENT_KIND.eq(MEASURABLE_KIND)
+                        .and(BOOKMARK.PARENT_ID.in(ids));
+            case INVOLVEMENT:
+                return INVOLVEMENT.ENTITY_KIND.eq(MEASURABLE_KIND)
+                        .and(INVOLVEMENT.ENTITY_ID.in(ids));
+            case MEASURABLE_RATING:
+                return MEASURABLE_RATING.MEASURABLE_ID.in(ids);
+            case FLOW_DIAGRAM_ENTITY:
+                return FLOW_DIAGRAM_ENTITY.ENTITY_KIND.eq(MEASURABLE_KIND)
+                        .and(FLOW_DIAGRAM_ENTITY.ENTITY_ID.in(ids));
+            case ENTITY_RELATIONSHIP:
+                return ENTITY_RELATIONSHIP.KIND_A.eq(MEASURABLE_KIND)
+                        .and(ENTITY_RELATIONSHIP.ID_A.in(ids))
+                        .or(ENTITY_RELATIONSHIP.KIND_B.eq(MEASURABLE_KIND)
+                                .and(ENTITY_RELATIONSHIP.ID_B.in(ids)));
+            case ASSESSMENT_RATING:
+                return ASSESSMENT_RATING.ENTITY_KIND.eq(MEASURABLE_KIND)
+                        .and(ASSESSMENT_RATING.ENTITY_ID.in(ids));
+            case ENTITY_NAMED_NOTE:
+                return ENTITY_NAMED_NOTE.ENTITY_KIND.eq(MEASURABLE_KIND)
+                        .and(ENTITY_NAMED_NOTE.ENTITY_ID.in(ids));
+            case MEASURABLE:
+                return MEASURABLE.ID.in(ids);
+            default:
+                throw new UnsupportedOperationException("Cannot determine condition for impact: " + impact);
+        }
+    }
+
+
+    /**
+     * @return a zero count for each impact, iterating in declaration order
+     */
+    private static Map<TaxonomyChangeImpactKind, Integer> mkEmptyCounts(Set<TaxonomyChangeImpactKind> impacts) {
+        Map<TaxonomyChangeImpactKind, Integer> counts = new EnumMap<>(TaxonomyChangeImpactKind.class);
+        impacts.forEach(impact -> counts.put(impact, 0));
+        return counts;
+    }
+
+
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < sortedIds.size(); i += CHUNK_SIZE) {
+            chunks.add(sortedIds.subList(i, Math.min(i + CHUNK_SIZE, sortedIds.size())));
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.taxonomy_management;
+
+/**
+ * The kinds of data which are removed along with a set of measurables when
+ * a taxonomy change is applied.
+ *
+ * Removals are applied in declaration order, so the measurables themselves
+ * are removed after the data which refers to them.
+ */
+public enum TaxonomyChangeImpactKind {
+    BOOKMARK,
+    INVOLVEMENT,
+    MEASURABLE_RATING,
+    FLOW_DIAGRAM_ENTITY,
+    ENTITY_RELATIONSHIP,
+    ASSESSMENT_RATING,
+    ENTITY_NAMED_NOTE,
+    MEASURABLE
+}
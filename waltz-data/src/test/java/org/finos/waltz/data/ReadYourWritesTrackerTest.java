@@ -0,0 +1,87 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadYourWritesTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(30_000, now::get);
+
+
+    @Test
+    public void usersWhoHaveNotWrittenCanReadFromTheReplica() {
+        tracker.bindUser("alice");
+        try {
+            assertFalse(tracker.hasRecentlyWritten());
+        } finally {
+            tracker.unbindUser();
+        }
+    }
+
+
+    @Test
+    public void writesAreOnlyRememberedForTheWritingUser() {
+        tracker.bindUser("alice");
+        tracker.recordWrite();
+        assertTrue(tracker.hasRecentlyWritten());
+
+        tracker.bindUser("bob");
+        assertFalse(tracker.hasRecentlyWritten());
+        tracker.unbindUser();
+    }
+
+
+    @Test
+    public void writesAreForgottenAfterTheWindow() {
+        tracker.bindUser("alice");
+        try {
+            tracker.recordWrite();
+
+            now.addAndGet(30_000);
+            assertTrue(tracker.hasRecentlyWritten());
+
+            now.addAndGet(1);
+            assertFalse(tracker.hasRecentlyWritten());
+        } finally {
+            tracker.unbindUser();
+        }
+    }
+
+
+    @Test
+    public void writesWithoutABoundUserAreNotTracked() {
+        tracker.recordWrite();
+        assertFalse(tracker.hasRecentlyWritten());
+
+        tracker.bindUser("alice");
+        try {
+            assertFalse(tracker.hasRecentlyWritten());
+        } finally {
+            tracker.unbindUser();
+        }
+    }
+
+}
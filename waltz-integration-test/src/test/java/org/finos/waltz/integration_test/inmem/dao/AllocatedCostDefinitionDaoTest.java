@@ -0,0 +1,348 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.cost.AllocatedCostDefinitionDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.cost.AllocatedCostDefinition;
+import org.finos.waltz.schema.tables.records.AllocationRecord;
+import org.finos.waltz.schema.tables.records.CostRecord;
+import org.finos.waltz.schema.tables.records.MeasurableRatingRecord;
+import org.finos.waltz.test_common.helpers.CostHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.Tables.ALLOCATED_COST_CHECKSUM;
+import static org.finos.waltz.schema.Tables.ALLOCATION;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AllocatedCostDefinitionDaoTest extends BaseInMemoryIntegrationTest {
+
+    private static final int YEAR = 2026;
+
+    // mirrors the (package-private) limit in AllocatedCostDefinitionDao
+    private static final int MAX_INCREMENTAL_ENTITIES = 1_000;
+
+    @Autowired
+    private AllocatedCostDefinitionDao dao;
+
+    @Autowired
+    private CostHelper costHelper;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+    private long m1Id;
+    private long m2Id;
+    private long m3Id;
+    private long schemeId;
+    private long sourceCostKindId;
+    private long targetCostKindId;
+    private AllocatedCostDefinition defn;
+
+
+    @BeforeEach
+    public void setup() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("allocCategory"));
+        m1Id = measurableHelper.createMeasurable(mkName("m1"), categoryId);
+        m2Id = measurableHelper.createMeasurable(mkName("m2"), categoryId);
+        m3Id = measurableHelper.createMeasurable(mkName("m3"), categoryId);
+
+        sourceCostKindId = costHelper.createCostKind(mkName("source"));
+        targetCostKindId = costHelper.createCostKind(mkName("target"));
+
+        schemeId = costHelper.createAllocationScheme(mkName("scheme"), categoryId);
+        long defnId = costHelper.createAllocatedCostDefinition(schemeId, sourceCostKindId, targetCostKindId);
+
+        defn = dao
+                .findAll()
+                .stream()
+                .filter(d -> d.id().get() == defnId)
+                .findFirst()
+                .get();
+    }
+
+
+    @Test
+    public void costsAreSharedBetweenRatings() {
+        EntityReference app = mkAppWithCost(100);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        Map<Long, BigDecimal> allocated = findAllocatedCosts();
+        assertEquals(2, allocated.size(), "both ratings should have a cost");
+        assertAmount(50, allocated.get(findRatingId(app, m1Id)));
+        assertAmount(50, allocated.get(findRatingId(app, m2Id)));
+    }
+
+
+    @Test
+    public void onlyEntitiesWithChangedInputsAreReallocated() {
+        EntityReference changedApp = mkAppWithCost(100);
+        EntityReference unchangedApp = mkAppWithCost(100);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        long unchangedRatingId = findRatingId(unchangedApp, m1Id);
+        String unchangedChecksum = findChecksums().get(unchangedApp.id());
+
+        // tamper with an allocated cost, it will only be put right if the entity is reallocated
+        overwriteAllocatedCost(unchangedRatingId, 999);
+        costHelper.setCost(changedApp, sourceCostKindId, YEAR, BigDecimal.valueOf(200));
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        Map<Long, BigDecimal> allocated = findAllocatedCosts();
+        assertAmount(100, allocated.get(findRatingId(changedApp, m1Id)));
+        assertAmount(100, allocated.get(findRatingId(changedApp, m2Id)));
+        assertAmount(999, allocated.get(unchangedRatingId), "unchanged entity should not be reallocated");
+        assertEquals(unchangedChecksum, findChecksums().get(unchangedApp.id()));
+    }
+
+
+    @Test
+    public void rearrangedAllocationsWithTheSameTotalAreReallocated() {
+        EntityReference app = mkNewAppRef();
+        long r1 = measurableHelper.createRating(app, m1Id);
+        long r2 = measurableHelper.createRating(app, m2Id);
+        long r3 = measurableHelper.createRating(app, m3Id);
+        costHelper.setCost(app, sourceCostKindId, YEAR, BigDecimal.valueOf(100));
+        setAllocation(r1, 30);
+        setAllocation(r2, 40);
+        setAllocation(r3, 30);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+        String checksum = findChecksums().get(app.id());
+
+        setAllocation(r1, 40);
+        setAllocation(r2, 20);
+        setAllocation(r3, 40);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        Map<Long, BigDecimal> allocated = findAllocatedCosts();
+        assertAmount(40, allocated.get(r1));
+        assertAmount(20, allocated.get(r2));
+        assertAmount(40, allocated.get(r3));
+        assertNotEquals(checksum, findChecksums().get(app.id()), "checksum should change when allocations are rearranged");
+    }
+
+
+    @Test
+    public void tooManyChangedEntitiesTriggersFullAllocation() {
+        EntityReference unchangedApp = mkAppWithCost(100);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        long unchangedRatingId = findRatingId(unchangedApp, m1Id);
+        overwriteAllocatedCost(unchangedRatingId, 999);
+
+        mkAppsWithCost(MAX_INCREMENTAL_ENTITIES + 1, 10);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        Map<Long, BigDecimal> allocated = findAllocatedCosts();
+        assertAmount(50, allocated.get(unchangedRatingId), "full allocation should reallocate every entity");
+        assertEquals((MAX_INCREMENTAL_ENTITIES + 2) * 2, allocated.size());
+        assertEquals(MAX_INCREMENTAL_ENTITIES + 2, findChecksums().size());
+    }
+
+
+    @Test
+    public void checksumsAreSavedPerEntity() {
+        EntityReference app1 = mkAppWithCost(100);
+        EntityReference app2 = mkAppWithCost(100);
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        Map<Long, String> checksums = findChecksums();
+        assertEquals(2, checksums.size(), "one checksum per entity with allocation inputs");
+        assertTrue(checksums.containsKey(app1.id()));
+        assertTrue(checksums.containsKey(app2.id()));
+        assertEquals(
+                asSet(YEAR),
+                dsl.selectDistinct(ALLOCATED_COST_CHECKSUM.YEAR)
+                        .from(ALLOCATED_COST_CHECKSUM)
+                        .where(ALLOCATED_COST_CHECKSUM.ALLOCATED_COST_DEFINITION_ID.eq(defn.id().get()))
+                        .fetchSet(ALLOCATED_COST_CHECKSUM.YEAR),
+                "checksums should record the year allocated");
+
+        String app1Checksum = checksums.get(app1.id());
+        costHelper.setCost(app1, sourceCostKindId, YEAR, BigDecimal.valueOf(300));
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        assertNotEquals(app1Checksum, findChecksums().get(app1.id()), "checksum should be replaced when inputs change");
+
+        long app2RatingId = findRatingId(app2, m1Id);
+        dsl.deleteFrom(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.ENTITY_ID.eq(app2.id()))
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(app2.kind().name()))
+                .execute();
+
+        dao.allocateCostsByDefinition(defn, YEAR);
+
+        assertFalse(findChecksums().containsKey(app2.id()), "checksum should be removed with the entity's inputs");
+        assertFalse(findAllocatedCosts().containsKey(app2RatingId), "costs of removed ratings should be removed");
+        assertEquals(1, findChecksums().size());
+    }
+
+
+    // --- helpers
+
+    private EntityReference mkAppWithCost(int amount) {
+        EntityReference app = mkNewAppRef();
+        measurableHelper.createRating(app, m1Id);
+        measurableHelper.createRating(app, m2Id);
+        costHelper.setCost(app, sourceCostKindId, YEAR, BigDecimal.valueOf(amount));
+        return app;
+    }
+
+
+    /**
+     * Inserts in batches, creating a thousand or so apps one at a time is slow
+     */
+    private void mkAppsWithCost(int count, int amount) {
+        List<MeasurableRatingRecord> ratings = new ArrayList<>();
+        List<CostRecord> costs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            EntityReference app = mkNewAppRef();
+            ratings.add(mkRatingRecord(app, m1Id));
+            ratings.add(mkRatingRecord(app, m2Id));
+
+            CostRecord cost = dsl.newRecord(COST);
+            cost.setCostKindId(sourceCostKindId);
+            cost.setEntityKind(app.kind().name());
+            cost.setEntityId(app.id());
+            cost.setYear(YEAR);
+            cost.setAmount(BigDecimal.valueOf(amount));
+            cost.setLastUpdatedAt(nowUtcTimestamp());
+            cost.setLastUpdatedBy(LAST_UPDATE_USER);
+            cost.setProvenance(PROVENANCE);
+            costs.add(cost);
+        }
+
+        dsl.batchInsert(ratings).execute();
+        dsl.batchInsert(costs).execute();
+    }
+
+
+    private MeasurableRatingRecord mkRatingRecord(EntityReference ref, long measurableId) {
+        MeasurableRatingRecord record = dsl.newRecord(MEASURABLE_RATING);
+        record.setEntityId(ref.id());
+        record.setEntityKind(ref.kind().name());
+        record.setMeasurableId(measurableId);
+        record.setRating("G");
+        record.setDescription("test desc");
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy(LAST_UPDATE_USER);
+        record.setProvenance(PROVENANCE);
+        return record;
+    }
+
+
+    private void setAllocation(long ratingId, int percentage) {
+        dsl.deleteFrom(ALLOCATION)
+                .where(ALLOCATION.MEASURABLE_RATING_ID.eq(ratingId))
+                .and(ALLOCATION.ALLOCATION_SCHEME_ID.eq(schemeId))
+                .execute();
+
+        AllocationRecord record = dsl.newRecord(ALLOCATION);
+        record.setAllocationSchemeId(schemeId);
+        record.setMeasurableRatingId(ratingId);
+        record.setAllocationPercentage(percentage);
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy(LAST_UPDATE_USER);
+        record.setProvenance(PROVENANCE);
+        record.insert();
+    }
+
+
+    private long findRatingId(EntityReference ref, long measurableId) {
+        return dsl
+                .select(MEASURABLE_RATING.ID)
+                .from(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.ENTITY_ID.eq(ref.id()))
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(ref.kind().name()))
+                .and(MEASURABLE_RATING.MEASURABLE_ID.eq(measurableId))
+                .fetchOne(MEASURABLE_RATING.ID);
+    }
+
+
+    private Map<Long, BigDecimal> findAllocatedCosts() {
+        return dsl
+                .select(COST.ENTITY_ID, COST.AMOUNT)
+                .from(COST)
+                .where(COST.COST_KIND_ID.eq(targetCostKindId))
+                .and(COST.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name()))
+                .and(COST.YEAR.eq(YEAR))
+                .fetchMap(COST.ENTITY_ID, COST.AMOUNT);
+    }
+
+
+    private Map<Long, String> findChecksums() {
+        return dsl
+                .select(ALLOCATED_COST_CHECKSUM.ENTITY_ID, ALLOCATED_COST_CHECKSUM.CHECKSUM)
+                .from(ALLOCATED_COST_CHECKSUM)
+                .where(ALLOCATED_COST_CHECKSUM.ALLOCATED_COST_DEFINITION_ID.eq(defn.id().get()))
+                .fetchMap(ALLOCATED_COST_CHECKSUM.ENTITY_ID, ALLOCATED_COST_CHECKSUM.CHECKSUM);
+    }
+
+
+    private void overwriteAllocatedCost(long ratingId, int amount) {
+        dsl.update(COST)
+                .set(COST.AMOUNT, BigDecimal.valueOf(amount))
+                .where(COST.COST_KIND_ID.eq(targetCostKindId))
+                .and(COST.ENTITY_KIND.eq(EntityKind.MEASURABLE_RATING.name()))
+                .and(COST.ENTITY_ID.eq(ratingId))
+                .execute();
+    }
+
+
+    private static void assertAmount(int expected, BigDecimal actual) {
+        assertAmount(expected, actual, "unexpected allocated cost");
+    }
+
+
+    private static void assertAmount(int expected, BigDecimal actual, String message) {
+        assertEquals(0, BigDecimal.valueOf(expected).compareTo(actual), message + ", was: " + actual);
+    }
+
+}
@@ -18,24 +18,33 @@
 
 package org.finos.waltz.integration_test.inmem.dao;
 
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdProvider;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.pagination.Page;
 import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.Record1;
+import org.jooq.Select;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.HierarchyQueryScope.CHILDREN;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.model.pagination.PageRequest.mkPageRequest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LogicalFlowTest extends BaseInMemoryIntegrationTest {
@@ -114,4 +123,35 @@ public class LogicalFlowTest extends BaseInMemoryIntegrationTest {
                 "find by ou 'b' gives only one flow");
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void bySelectorPaged() {
+        EntityReference a = appHelper.createNewApp("a", ouIds.a);
+        EntityReference b = appHelper.createNewApp("b", ouIds.a1);
+        EntityReference c = appHelper.createNewApp("c", ouIds.b);
+        EntityReference d = appHelper.createNewApp("d", ouIds.b);
+        // a -> b
+        // a -> c
+        // a -> d
+        LogicalFlow ab = helper.createLogicalFlow(a, b);
+        LogicalFlow ac = helper.createLogicalFlow(a, c);
+        LogicalFlow ad = helper.createLogicalFlow(a, d);
+
+        Select<Record1<Long>> selector = logicalFlowIdSelectorFactory.apply(mkOpts(a));
+
+        Page<LogicalFlow> first = lfDao.findBySelector(selector, mkPageRequest(2, Optional.empty()));
+        assertEquals(
+                asList(ab.id(), ac.id()),
+                ListUtilities.map(first.items(), IdProvider::id),
+                "first page has the lowest ids");
+        assertTrue(first.next().isPresent(), "more flows remain so there is a next page");
+
+        Page<LogicalFlow> second = lfDao.findBySelector(selector, mkPageRequest(2, first.next()));
+        assertEquals(
+                asList(ad.id()),
+                ListUtilities.map(second.items(), IdProvider::id),
+                "second page starts after the cursor");
+        assertFalse(second.next().isPresent(), "last page has no next cursor");
+    }
+
+}
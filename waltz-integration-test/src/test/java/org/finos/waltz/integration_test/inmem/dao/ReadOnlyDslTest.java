@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.ReadOnlyDsl;
+import org.finos.waltz.data.ReadYourWritesTracker;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.schema.tables.records.SettingsRecord;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.finos.waltz.schema.Tables.SETTINGS;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadOnlyDslTest extends BaseInMemoryIntegrationTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:waltz_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private ReadOnlyDsl readOnlyDsl;
+
+
+    @Test
+    public void withoutAReplicaThePrimaryIsUsed() {
+        assertFalse(readOnlyDsl.hasReplica());
+        assertSame(dsl, readOnlyDsl.dsl());
+    }
+
+
+    @Test
+    public void readsGoToTheReplicaUnlessTheUserHasJustWritten() throws Exception {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(30);
+        ReadOnlyDsl replicated = new ReadOnlyDsl(dsl, tracker, REPLICA_URL, "sa", "sa", "", 2, 1);
+
+        try {
+            assertTrue(replicated.hasReplica());
+            assertEquals("WALTZ_REPLICA", databaseName(replicated.dsl()));
+
+            tracker.bindUser("someone");
+            assertEquals("WALTZ_REPLICA", databaseName(replicated.dsl()), "no writes yet, so the replica is used");
+
+            tracker.recordWrite();
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "reads should see the user's own writes");
+
+            tracker.bindUser("someone_else");
+            assertEquals("WALTZ_REPLICA", databaseName(replicated.dsl()), "other users are not affected");
+        } finally {
+            tracker.unbindUser();
+            replicated.destroy();
+        }
+    }
+
+
+    @Test
+    public void writesThroughThePrimaryContextAreTracked() throws Exception {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(30);
+        DSLContext primary = DSL.using(dsl
+                .configuration()
+                .derive(new DefaultExecuteListenerProvider(tracker.writeListener())));
+        ReadOnlyDsl replicated = new ReadOnlyDsl(primary, tracker, REPLICA_URL, "sa", "sa", "", 2, 1);
+
+        try {
+            tracker.bindUser(mkName("reader"));
+            primary.selectFrom(SETTINGS).fetch();
+            assertEquals("WALTZ_REPLICA", databaseName(replicated.dsl()), "reads are not writes");
+
+            tracker.bindUser(mkName("inserter"));
+            primary.insertInto(SETTINGS)
+                    .set(SETTINGS.NAME, mkName("rywInsert"))
+                    .set(SETTINGS.VALUE, "a")
+                    .set(SETTINGS.RESTRICTED, false)
+                    .execute();
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "insert");
+
+            tracker.bindUser(mkName("recordStorer"));
+            SettingsRecord record = primary.newRecord(SETTINGS);
+            record.setName(mkName("rywRecord"));
+            record.setValue("a");
+            record.setRestricted(false);
+            record.store();
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "record store");
+
+            tracker.bindUser(mkName("updater"));
+            primary.update(SETTINGS)
+                    .set(SETTINGS.VALUE, "b")
+                    .where(SETTINGS.NAME.eq(record.getName()))
+                    .execute();
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "update");
+
+            tracker.bindUser(mkName("batcher"));
+            primary.batch(
+                        primary.insertInto(SETTINGS, SETTINGS.NAME, SETTINGS.VALUE, SETTINGS.RESTRICTED).values(mkName("rywBatch"), "a", false),
+                        primary.insertInto(SETTINGS, SETTINGS.NAME, SETTINGS.VALUE, SETTINGS.RESTRICTED).values(mkName("rywBatch"), "a", false))
+                    .execute();
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "batch");
+
+            tracker.bindUser(mkName("transactional"));
+            primary.transaction(ctx -> DSL
+                    .using(ctx)
+                    .deleteFrom(SETTINGS)
+                    .where(SETTINGS.NAME.eq(record.getName()))
+                    .execute());
+            assertEquals("WALTZ", databaseName(replicated.dsl()), "write inside a transaction");
+
+            tracker.bindUser(mkName("reader"));
+            assertEquals("WALTZ_REPLICA", databaseName(replicated.dsl()), "other users are not affected");
+        } finally {
+            tracker.unbindUser();
+            replicated.destroy();
+        }
+    }
+
+
+    private String databaseName(DSLContext ctx) {
+        return ctx
+                .fetchValue("select database()")
+                .toString()
+                .toUpperCase();
+    }
+
+}
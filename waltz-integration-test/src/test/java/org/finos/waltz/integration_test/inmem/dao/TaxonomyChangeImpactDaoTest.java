@@ -0,0 +1,166 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactKind;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_relationship.ImmutableEntityRelationship;
+import org.finos.waltz.model.entity_relationship.RelationshipKind;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TaxonomyChangeImpactDaoTest extends BaseInMemoryIntegrationTest {
+
+    private static final String STEM = "tcid";
+
+    @Autowired
+    private TaxonomyChangeImpactDao dao;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private EntityRelationshipDao entityRelationshipDao;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void impactsAreCountedAcrossChunks() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "cat"));
+        long m1 = measurableHelper.createMeasurable(mkName(STEM, "m1"), categoryId);
+        long m2 = measurableHelper.createMeasurable(mkName(STEM, "m2"), categoryId);
+
+        EntityReference app = appHelper.createNewApp(mkName(STEM, "app"), ouIds.a);
+        measurableHelper.createRating(app, m1);
+        measurableHelper.createRating(app, m2);
+
+        // pad with ids which do not exist so the ids span several chunks
+        Set<Long> ids = new HashSet<>(asSet(m1, m2));
+        for (long i = 1; i <= 2_500; i++) {
+            ids.add(-i);
+        }
+
+        Map<TaxonomyChangeImpactKind, Integer> counts = dao.countImpacts(
+                ids,
+                EnumSet.of(TaxonomyChangeImpactKind.MEASURABLE, TaxonomyChangeImpactKind.MEASURABLE_RATING, TaxonomyChangeImpactKind.BOOKMARK));
+
+        assertEquals(2, counts.get(TaxonomyChangeImpactKind.MEASURABLE));
+        assertEquals(2, counts.get(TaxonomyChangeImpactKind.MEASURABLE_RATING));
+        assertEquals(0, counts.get(TaxonomyChangeImpactKind.BOOKMARK));
+    }
+
+
+    @Test
+    public void relationshipsSpanningChunksAreCountedOnce() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "cat"));
+        long m1 = measurableHelper.createMeasurable(mkName(STEM, "m1"), categoryId);
+        long m2 = measurableHelper.createMeasurable(mkName(STEM, "m2"), categoryId);
+
+        // the padding ids sort before the real ids, so -2_000 is in a different chunk to m1 and m2
+        Set<Long> ids = new HashSet<>(asSet(m1, m2));
+        for (long i = 1; i <= 2_500; i++) {
+            ids.add(-i);
+        }
+
+        createRelationship(m1, m2);
+        createRelationship(m1, -2_000L);
+
+        Map<TaxonomyChangeImpactKind, Integer> counts = dao.countImpacts(
+                ids,
+                EnumSet.of(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP, TaxonomyChangeImpactKind.MEASURABLE));
+
+        assertEquals(2, counts.get(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP));
+        assertEquals(2, counts.get(TaxonomyChangeImpactKind.MEASURABLE));
+        assertEquals(
+                counts.get(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP),
+                dao.removeImpacts(ids, EnumSet.of(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP)).get(TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP),
+                "count should match the number of relationships removed");
+    }
+
+
+    @Test
+    public void removalOnlyAffectsGivenMeasurables() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "cat"));
+        long m1 = measurableHelper.createMeasurable(mkName(STEM, "m1"), categoryId);
+        long m2 = measurableHelper.createMeasurable(mkName(STEM, "m2"), categoryId);
+
+        EntityReference app = appHelper.createNewApp(mkName(STEM, "app"), ouIds.a);
+        measurableHelper.createRating(app, m1);
+        measurableHelper.createRating(app, m2);
+
+        Map<TaxonomyChangeImpactKind, Integer> removed = dao.removeImpacts(
+                asSet(m1),
+                EnumSet.allOf(TaxonomyChangeImpactKind.class));
+
+        assertEquals(1, removed.get(TaxonomyChangeImpactKind.MEASURABLE));
+        assertEquals(1, removed.get(TaxonomyChangeImpactKind.MEASURABLE_RATING));
+
+        assertEquals(EntityLifecycleStatus.REMOVED.name(), lifecycleStatus(m1));
+        assertEquals(EntityLifecycleStatus.ACTIVE.name(), lifecycleStatus(m2));
+        assertEquals(0, dsl.fetchCount(MEASURABLE_RATING, MEASURABLE_RATING.MEASURABLE_ID.eq(m1)));
+        assertEquals(1, dsl.fetchCount(MEASURABLE_RATING, MEASURABLE_RATING.MEASURABLE_ID.eq(m2)));
+    }
+
+
+    private void createRelationship(long measurableA, long measurableB) {
+        entityRelationshipDao.create(ImmutableEntityRelationship
+                .builder()
+                .a(mkRef(EntityKind.MEASURABLE, measurableA))
+                .b(mkRef(EntityKind.MEASURABLE, measurableB))
+                .relationship(RelationshipKind.RELATES_TO.name())
+                .lastUpdatedBy(LAST_UPDATE_USER)
+                .provenance(PROVENANCE)
+                .build());
+    }
+
+
+    private String lifecycleStatus(long measurableId) {
+        return dsl
+                .select(MEASURABLE.ENTITY_LIFECYCLE_STATUS)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.eq(measurableId))
+                .fetchOne(MEASURABLE.ENTITY_LIFECYCLE_STATUS);
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.aggregate_overlay_diagram.ImmutableBackingEntity;
+import org.finos.waltz.model.aggregate_overlay_diagram.ImmutableOverlayDiagramSaveCommand;
+import org.finos.waltz.model.aggregate_overlay_diagram.OverlayDiagramKind;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableOverlayDiagramWidgetBatchData;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.OverlayDiagramWidgetBatchData;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppComplexityWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppCostWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppCountWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AssessmentWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AttestationWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAggregatedEntitiesWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAppComplexityWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAppCostWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAppCountWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAssessmentWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableAttestationWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableOverlayDiagramWidgetBatchParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableRatingCostWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.ImmutableTargetAppCostWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.RatingCostWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.TargetAppCostWidgetParameters;
+import org.finos.waltz.service.aggregate_overlay_diagram.AggregateOverlayDiagramCellMappingCache;
+import org.finos.waltz.service.aggregate_overlay_diagram.AggregateOverlayDiagramService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.CostHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AggregateOverlayDiagramServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final String STEM = "aods";
+
+    @Autowired
+    private AggregateOverlayDiagramService diagramService;
+
+    @Autowired
+    private AggregateOverlayDiagramCellMappingCache cellMappingCache;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private CostHelper costHelper;
+
+    private long originalTtlMillis;
+
+
+    @BeforeEach
+    public void setup() {
+        originalTtlMillis = cellMappingCache.getTtlMillis();
+        cellMappingCache.invalidateAll();
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        cellMappingCache.setTtlMillis(originalTtlMillis);
+    }
+
+
+    @Test
+    public void batchDataMatchesIndividualWidgetCalls() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "category"));
+        long m1 = measurableHelper.createMeasurable(mkName(STEM, "m1"), categoryId);
+        long m2 = measurableHelper.createMeasurable(mkName(STEM, "m2"), categoryId);
+        rebuildHierarchy(EntityKind.MEASURABLE);
+
+        EntityReference app1 = appHelper.createNewApp(mkName(STEM, "app1"), ouIds.a);
+        EntityReference app2 = appHelper.createNewApp(mkName(STEM, "app2"), ouIds.a1);
+        EntityReference app3 = appHelper.createNewApp(mkName(STEM, "app3"), ouIds.b);
+        measurableHelper.createRating(app1, m1);
+        measurableHelper.createRating(app2, m1);
+        measurableHelper.createRating(app2, m2);
+        measurableHelper.createRating(app3, m2);
+
+        long costKindId = costHelper.createCostKind(mkName(STEM, "cost kind"));
+        long allocationSchemeId = costHelper.createAllocationScheme(mkName(STEM, "scheme"), categoryId);
+        costHelper.setCost(app1, costKindId, 2023, BigDecimal.valueOf(100));
+        costHelper.setCost(app2, costKindId, 2023, BigDecimal.valueOf(200));
+
+        long diagramId = createDiagram(mkRef(EntityKind.MEASURABLE, m1), mkRef(EntityKind.MEASURABLE, m2));
+
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        AppCountWidgetParameters appCountParams = ImmutableAppCountWidgetParameters.builder().targetDate(LocalDate.now().plusYears(1)).build();
+        TargetAppCostWidgetParameters targetAppCostParams = ImmutableTargetAppCostWidgetParameters.builder().targetDate(LocalDate.now().plusYears(1)).build();
+        AppCostWidgetParameters appCostParams = ImmutableAppCostWidgetParameters.builder().allocationSchemeId(allocationSchemeId).costKindIds(asSet(costKindId)).build();
+        RatingCostWidgetParameters ratingCostParams = ImmutableRatingCostWidgetParameters.builder().costKindIds(asSet(costKindId)).build();
+        AssessmentWidgetParameters assessmentParams = ImmutableAssessmentWidgetParameters.builder().assessmentDefinitionId(-1L).build();
+        AppComplexityWidgetParameters complexityParams = ImmutableAppComplexityWidgetParameters.builder().complexityKindIds(emptySet()).build();
+        AttestationWidgetParameters attestationParams = ImmutableAttestationWidgetParameters.builder().attestedEntityKind(EntityKind.LOGICAL_DATA_FLOW).build();
+
+        // calculate each widget in isolation, with nothing shared via the cache
+        cellMappingCache.setTtlMillis(0);
+
+        OverlayDiagramWidgetBatchData expected = ImmutableOverlayDiagramWidgetBatchData
+                .builder()
+                .appCount(diagramService.getAppCountWidgetData(diagramId, opts, emptySet(), appCountParams))
+                .targetAppCost(diagramService.getTargetAppCostWidgetData(diagramId, opts, emptySet(), targetAppCostParams))
+                .appCost(diagramService.getAppCostWidgetData(diagramId, emptySet(), opts, appCostParams))
+                .ratingCost(diagramService.getRatingCostWidgetData(diagramId, emptySet(), opts, ratingCostParams))
+                .appAssessment(diagramService.getAppAssessmentWidgetData(diagramId, emptySet(), opts, assessmentParams))
+                .appComplexity(diagramService.getAppComplexityWidgetData(diagramId, emptySet(), opts, complexityParams))
+                .attestation(diagramService.getAttestationWidgetData(diagramId, emptySet(), opts, attestationParams))
+                .aggregatedEntities(diagramService.getAggregatedEntitiesWidgetData(diagramId, emptySet(), opts))
+                .build();
+
+        cellMappingCache.setTtlMillis(originalTtlMillis);
+        long hitsBeforeBatch = cellMappingCache.getHitCount();
+
+        OverlayDiagramWidgetBatchData batch = diagramService.getWidgetBatchData(
+                diagramId,
+                emptySet(),
+                opts,
+                ImmutableOverlayDiagramWidgetBatchParameters
+                        .builder()
+                        .appCount(appCountParams)
+                        .targetAppCost(targetAppCostParams)
+                        .appCost(appCostParams)
+                        .ratingCost(ratingCostParams)
+                        .appAssessment(assessmentParams)
+                        .appComplexity(complexityParams)
+                        .attestation(attestationParams)
+                        .aggregatedEntities(ImmutableAggregatedEntitiesWidgetParameters.builder().build())
+                        .build());
+
+        assertFalse(
+                expected.appCount().get().cellData().isEmpty(),
+                "apps in scope are rated against the backing measurables, so there should be counts to compare");
+        assertEquals(expected, batch, "batch should return the same data as the individual widget calls");
+        assertTrue(cellMappingCache.getHitCount() > hitsBeforeBatch, "batch widgets should share a single cell mapping");
+    }
+
+
+    @Test
+    public void batchOnlyCalculatesRequestedWidgets() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "category"));
+        long m1 = measurableHelper.createMeasurable(mkName(STEM, "m1"), categoryId);
+        rebuildHierarchy(EntityKind.MEASURABLE);
+
+        long diagramId = createDiagram(mkRef(EntityKind.MEASURABLE, m1));
+
+        OverlayDiagramWidgetBatchData batch = diagramService.getWidgetBatchData(
+                diagramId,
+                emptySet(),
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN),
+                ImmutableOverlayDiagramWidgetBatchParameters
+                        .builder()
+                        .aggregatedEntities(ImmutableAggregatedEntitiesWidgetParameters.builder().build())
+                        .build());
+
+        assertTrue(batch.aggregatedEntities().isPresent());
+        assertEquals(Optional.empty(), batch.appCount());
+        assertEquals(Optional.empty(), batch.appCost());
+        assertEquals(Optional.empty(), batch.attestation());
+    }
+
+
+    // --- helpers
+
+    private long createDiagram(EntityReference... backingEntities) {
+        ImmutableOverlayDiagramSaveCommand.Builder cmd = ImmutableOverlayDiagramSaveCommand
+                .builder()
+                .name(mkName(STEM, "diagram"))
+                .description("test diagram")
+                .layoutData("{}")
+                .aggregatedEntityKind(EntityKind.APPLICATION)
+                .diagramKind(OverlayDiagramKind.WALTZ_ENTITY_OVERLAY);
+
+        for (int i = 0; i < backingEntities.length; i++) {
+            cmd.addBackingEntities(ImmutableBackingEntity
+                    .builder()
+                    .entityReference(backingEntities[i])
+                    .cellId("CELL_" + (i + 1))
+                    .build());
+        }
+
+        return diagramService.save(cmd.build(), LAST_UPDATE_USER);
+    }
+
+}
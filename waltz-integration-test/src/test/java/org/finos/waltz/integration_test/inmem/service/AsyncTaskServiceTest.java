@@ -0,0 +1,158 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.async_task.AsyncTask;
+import org.finos.waltz.model.async_task.AsyncTaskStatus;
+import org.finos.waltz.service.async_task.AsyncTaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class AsyncTaskServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private AsyncTaskService asyncTaskService;
+
+
+    @Test
+    public void completedTasksRecordTheirResult() throws InterruptedException {
+        String user = mkUserId("asyncTask");
+
+        AsyncTask submitted = asyncTaskService.submit("TEST", "adds numbers", user, ctx -> {
+            ctx.reportProgress(1, 2, "adding");
+            return 40 + 2;
+        });
+
+        assertEquals(user, submitted.submittedBy());
+
+        AsyncTask finished = awaitFinished(submitted.id().get());
+        assertEquals(AsyncTaskStatus.COMPLETED, finished.status());
+        assertNotNull(finished.result());
+        assertEquals(42, finished.result().asInt());
+        assertNotNull(finished.completedAt());
+    }
+
+
+    @Test
+    public void failedTasksRecordTheError() throws InterruptedException {
+        AsyncTask submitted = asyncTaskService.submit("TEST", "fails", mkUserId("asyncTask"), ctx -> {
+            throw new IllegalArgumentException("bad things");
+        });
+
+        AsyncTask finished = awaitFinished(submitted.id().get());
+        assertEquals(AsyncTaskStatus.FAILED, finished.status());
+        assertEquals("bad things", finished.errorMessage());
+    }
+
+
+    @Test
+    public void runningTasksCanBeCancelled() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        AsyncTask submitted = asyncTaskService.submit("TEST", "waits for cancel", mkUserId("asyncTask"), ctx -> {
+            started.countDown();
+            cancelled.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            ctx.checkCancelled();
+            return "not cancelled";
+        });
+
+        long id = submitted.id().get();
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), "task should start");
+
+        AsyncTask afterCancel = asyncTaskService.cancel(id, "admin");
+        assertTrue(afterCancel.cancelRequested());
+        cancelled.countDown();
+
+        assertEquals(AsyncTaskStatus.CANCELLED, awaitFinished(id).status());
+    }
+
+
+    @Test
+    public void queuedTasksCanBeCancelledBeforeTheyStart() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        String user = mkUserId("asyncTask");
+
+        // occupy every worker so the next task stays queued
+        List<Long> blockers = IntStream
+                .range(0, asyncTaskService.getActiveCount() + 8)
+                .mapToObj(i -> asyncTaskService
+                        .submit("TEST", "blocker", user, ctx -> release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                        .id()
+                        .get())
+                .collect(Collectors.toList());
+
+        try {
+            AsyncTask queued = asyncTaskService.submit("TEST", "never runs", user, ctx -> "ran");
+            AsyncTask afterCancel = asyncTaskService.cancel(queued.id().get(), user);
+
+            release.countDown();
+            assertEquals(AsyncTaskStatus.CANCELLED, awaitFinished(afterCancel.id().get()).status());
+        } finally {
+            release.countDown();
+            for (Long blocker : blockers) {
+                awaitFinished(blocker);
+            }
+        }
+    }
+
+
+    @Test
+    public void tasksCanBeFoundBySubmitter() throws InterruptedException {
+        String user = mkUserId("asyncTask");
+        long id = asyncTaskService.submit("TEST", "finds", user, ctx -> true).id().get();
+        awaitFinished(id);
+
+        List<AsyncTask> tasks = asyncTaskService.findBySubmitter(user, 10);
+        assertEquals(1, tasks.size());
+        assertEquals(id, tasks.get(0).id().get());
+    }
+
+
+    // --- helpers
+
+    private AsyncTask awaitFinished(long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            AsyncTask task = asyncTaskService.getById(id);
+            if (task.status().isFinished()) {
+                return task;
+            }
+            Thread.sleep(20);
+        }
+        fail("Task " + id + " did not finish in time");
+        return null;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogArchiveDao;
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.changelog.ChangeLogSummariesService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG;
+import static org.finos.waltz.schema.Tables.CHANGE_LOG_ARCHIVE;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeLogArchiveTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private ChangeLogArchiveDao changeLogArchiveDao;
+
+    @Autowired
+    private ChangeLogDao changeLogDao;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogSummariesService changeLogSummariesService;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void archivedEntriesAreStillFound() {
+        String user = mkUserId("changeLogArchive");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogArchive"), ouIds.a);
+
+        LocalDateTime longAgo = nowUtc().minusYears(2);
+        LocalDateTime recently = nowUtc().minusDays(1);
+
+        write(app, user, "old", longAgo);
+        write(app, user, "new", recently);
+
+        changeLogSummariesService.refreshRollups();
+        changeLogArchiveDao.archive(Timestamp.valueOf(nowUtc().minusYears(1)), 10);
+
+        assertEquals(1, countEntries(CHANGE_LOG.PARENT_ID.eq(app.id())), "old entry should have left the main table");
+        assertEquals(1, dsl.fetchCount(CHANGE_LOG_ARCHIVE, CHANGE_LOG_ARCHIVE.PARENT_ID.eq(app.id())), "old entry should be in the archive");
+
+        assertEquals(
+                asList("new", "old"),
+                messages(changeLogService.findByParentReference(app, Optional.empty(), Optional.empty())),
+                "unbounded queries should include the archive");
+
+        assertEquals(
+                asList("new"),
+                messages(changeLogService.findByParentReference(app, Optional.empty(), Optional.of(1))),
+                "limit is satisfied by the main table");
+
+        assertEquals(
+                asList("new", "old"),
+                messages(changeLogService.findByUser(user, Optional.of(5))),
+                "limit not satisfied by the main table, so the archive is consulted");
+
+        assertEquals(
+                asList("new"),
+                messages(changeLogService.findByParentReferenceForDateRange(
+                        app,
+                        toSqlDate(recently.toLocalDate()),
+                        toSqlDate(nowUtc().toLocalDate()),
+                        Optional.empty())),
+                "ranges after the archive horizon only read the main table");
+
+        assertEquals(
+                asList("old"),
+                messages(changeLogService.findByParentReferenceForDateRange(
+                        app,
+                        toSqlDate(longAgo.toLocalDate()),
+                        toSqlDate(longAgo.toLocalDate()),
+                        Optional.empty())),
+                "ranges before the archive horizon read the archive");
+    }
+
+
+    @Test
+    public void entriesAreNotArchivedUntilRolledUp() {
+        String user = mkUserId("changeLogArchive");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogArchive"), ouIds.a);
+
+        write(app, user, "old", nowUtc().minusYears(2));
+        changeLogArchiveDao.archive(Timestamp.valueOf(nowUtc().minusYears(1)), 10);
+
+        assertEquals(1, countEntries(CHANGE_LOG.PARENT_ID.eq(app.id())), "entry should not be archived before the rollups include it");
+
+        changeLogSummariesService.refreshRollups();
+        changeLogArchiveDao.archive(Timestamp.valueOf(nowUtc().minusYears(1)), 10);
+
+        assertEquals(0, countEntries(CHANGE_LOG.PARENT_ID.eq(app.id())));
+    }
+
+
+    @Test
+    public void pagesSpanTheArchiveWithoutSkippingOrRepeating() {
+        String user = mkUserId("changeLogArchive");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogArchive"), ouIds.a);
+
+        LocalDateTime longAgo = nowUtc().minusYears(2).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime recently = nowUtc().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        write(app, user, "old-1", longAgo);
+        write(app, user, "old-2", longAgo);
+        write(app, user, "old-3", longAgo);
+
+        // only rolled up entries are archived, so these stay in the main table
+        // despite sharing a creation time with the archived ones
+        changeLogSummariesService.refreshRollups();
+        write(app, user, "old-4", longAgo);
+        write(app, user, "old-5", longAgo);
+        write(app, user, "new-1", recently);
+        write(app, user, "new-2", recently);
+
+        changeLogArchiveDao.archive(Timestamp.valueOf(nowUtc().minusYears(1)), 10);
+
+        assertEquals(3, dsl.fetchCount(CHANGE_LOG_ARCHIVE, CHANGE_LOG_ARCHIVE.PARENT_ID.eq(app.id())), "first three entries should be archived");
+        assertEquals(4, countEntries(CHANGE_LOG.PARENT_ID.eq(app.id())), "later entries should remain in the main table");
+
+        List<String> paged = new ArrayList<>();
+        Optional<PageCursor> cursor = Optional.empty();
+        int pageCount = 0;
+
+        do {
+            Page<ChangeLog> page = changeLogDao.findByParentReference(
+                    app,
+                    Optional.empty(),
+                    PageRequest.mkPageRequest(2, cursor));
+
+            paged.addAll(messages(page.items()));
+            cursor = page.next();
+            pageCount++;
+
+            assertTrue(pageCount <= 4, "paging should terminate");
+        } while (cursor.isPresent());
+
+        assertEquals(
+                asList("new-2", "new-1", "old-5", "old-4", "old-3", "old-2", "old-1"),
+                paged,
+                "every entry should appear exactly once, most recent first, ties broken by id");
+        assertEquals(
+                messages(changeLogService.findByParentReference(app, Optional.empty(), Optional.empty())),
+                paged,
+                "paging should agree with the unpaged listing");
+    }
+
+
+    // --- helpers
+
+    private void write(EntityReference ref, String user, String message, LocalDateTime createdAt) {
+        ChangeLog changeLog = ImmutableChangeLog
+                .builder()
+                .parentReference(ref)
+                .message(message)
+                .userId(user)
+                .operation(Operation.UPDATE)
+                .createdAt(createdAt)
+                .build();
+
+        changeLogDao.write(asList(changeLog));
+    }
+
+
+    private int countEntries(Condition condition) {
+        return dsl.fetchCount(CHANGE_LOG, condition);
+    }
+
+
+    private static List<String> messages(List<ChangeLog> changeLogs) {
+        return map(changeLogs, ChangeLog::message);
+    }
+
+}
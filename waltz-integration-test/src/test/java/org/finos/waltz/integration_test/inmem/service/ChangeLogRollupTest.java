@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.tally.DateTally;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.changelog.ChangeLogSummariesService;
+import org.finos.waltz.service.user_contribution.UserContributionService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangeLogRollupTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private ChangeLogDao changeLogDao;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogSummariesService changeLogSummariesService;
+
+    @Autowired
+    private UserContributionService userContributionService;
+
+
+    @Test
+    public void countsAreTheSameBeforeAndAfterRollingUp() {
+        String user = mkUserId("changeLogRollup");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogRollup"), ouIds.a);
+
+        LocalDateTime twoDaysAgo = nowUtc().minusDays(2);
+        LocalDateTime yesterday = nowUtc().minusDays(1);
+        writeChanges(app, user, twoDaysAgo, 2);
+        writeChanges(app, user, yesterday, 3);
+
+        assertEquals(5, userContributionService.getScoreForUser(user), "raw entries should be counted before rolling up");
+        assertEquals(asList(3L, 2L), findDailyCounts(app));
+
+        changeLogSummariesService.refreshRollups();
+
+        assertEquals(5, userContributionService.getScoreForUser(user), "rolled up entries should not be counted twice");
+        assertEquals(asList(3L, 2L), findDailyCounts(app));
+    }
+
+
+    @Test
+    public void laterEntriesAreAddedToExistingRollups() {
+        String user = mkUserId("changeLogRollup");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogRollup"), ouIds.a);
+
+        LocalDateTime yesterday = nowUtc().minusDays(1);
+        writeChanges(app, user, yesterday, 3);
+        changeLogSummariesService.refreshRollups();
+
+        // a back-dated entry for a day which has already been rolled up
+        writeChanges(app, user, yesterday, 1);
+        assertEquals(4, userContributionService.getScoreForUser(user));
+
+        changeLogSummariesService.refreshRollups();
+        assertEquals(4, userContributionService.getScoreForUser(user));
+        assertEquals(asList(4L), findDailyCounts(app));
+    }
+
+
+    @Test
+    public void recentEntriesAreCountedButNotRolledUp() {
+        String user = mkUserId("changeLogRollup");
+        EntityReference app = appHelper.createNewApp(mkName("changeLogRollup"), ouIds.a);
+
+        writeChanges(app, user, nowUtc(), 2);
+
+        changeLogSummariesService.refreshRollups();
+        assertEquals(2, userContributionService.getScoreForUser(user));
+        assertEquals(asList(2L), findDailyCounts(app));
+    }
+
+
+    // --- helpers
+
+    private void writeChanges(EntityReference ref, String user, LocalDateTime createdAt, int count) {
+        List<ChangeLog> changes = IntStream
+                .range(0, count)
+                .mapToObj(i -> ImmutableChangeLog
+                        .builder()
+                        .parentReference(ref)
+                        .message("change " + i)
+                        .userId(user)
+                        .operation(Operation.UPDATE)
+                        .childKind(EntityKind.LOGICAL_DATA_FLOW)
+                        .createdAt(createdAt)
+                        .build())
+                .collect(Collectors.toList());
+
+        changeLogDao.write(changes);
+    }
+
+
+    private List<Long> findDailyCounts(EntityReference app) {
+        return changeLogService
+                .findCountByDateForParentKindBySelector(EntityKind.APPLICATION, mkOpts(app), Optional.empty())
+                .stream()
+                .map(DateTally::count)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.cost.CostRollup;
+import org.finos.waltz.model.cost.EntityCostsSummary;
+import org.finos.waltz.service.cost.CostService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.CostHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_ROLLUP;
+import static org.finos.waltz.schema.Tables.COST_ROLLUP_PARTITION;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CostServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final int YEAR = 2026;
+
+    @Autowired
+    private CostService costService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private CostHelper costHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+    private long costKindId;
+
+
+    @BeforeEach
+    public void setup() {
+        dsl.deleteFrom(COST_ROLLUP).execute();
+        dsl.deleteFrom(COST_ROLLUP_PARTITION).execute();
+        dsl.deleteFrom(COST).execute();
+
+        costKindId = costHelper.createCostKind(mkName("costKind"));
+    }
+
+
+    @Test
+    public void rollupsIncludeCostsOfDescendantOrgUnits() {
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("a1"), ouIds.a1);
+        EntityReference appB = appHelper.createNewApp(mkName("b"), ouIds.b);
+
+        addCost(appA, 100);
+        addCost(appA1, 20);
+        addCost(appB, 3);
+
+        costService.refreshCostRollups();
+
+        Set<CostRollup> rollups = costService.findRollups(
+                costKindId,
+                YEAR,
+                EntityKind.ORG_UNIT,
+                asList(ouIds.root, ouIds.a, ouIds.a1, ouIds.b));
+
+        assertEquals(4, rollups.size(), "expected a rollup per org unit with costs");
+        assertEquals(123, findTotal(rollups, ouIds.root), "root includes all costs");
+        assertEquals(120, findTotal(rollups, ouIds.a), "a includes the costs of a1");
+        assertEquals(20, findTotal(rollups, ouIds.a1));
+        assertEquals(3, findTotal(rollups, ouIds.b));
+    }
+
+
+    @Test
+    public void summaryMatchesCostsWhenReadFromRollups() {
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        appHelper.createNewApp(mkName("a1NoCost"), ouIds.a1);
+        addCost(appA, 100);
+
+        EntityCostsSummary beforeRollup = summariseForOrgUnit(ouIds.a);
+        costService.refreshCostRollups();
+        EntityCostsSummary afterRollup = summariseForOrgUnit(ouIds.a);
+
+        assertEquals(0, beforeRollup.total().compareTo(afterRollup.total()), "totals should match");
+        assertEquals(beforeRollup.mappedCount(), afterRollup.mappedCount(), "mapped counts should match");
+        assertEquals(beforeRollup.missingCount(), afterRollup.missingCount(), "missing counts should match");
+        assertEquals(1, afterRollup.mappedCount());
+        assertEquals(1, afterRollup.missingCount());
+    }
+
+
+    @Test
+    public void onlyChangedPartitionsAreRebuilt() {
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        addCost(appA, 100);
+
+        assertEquals(1, costService.refreshCostRollups(), "new partition should be built");
+        assertEquals(0, costService.refreshCostRollups(), "nothing has changed so nothing to rebuild");
+
+        EntityReference appB = appHelper.createNewApp(mkName("b"), ouIds.b);
+        addCost(appB, 5);
+
+        assertEquals(1, costService.refreshCostRollups(), "partition should be rebuilt after costs change");
+        assertEquals(
+                0,
+                new BigDecimal("105").compareTo(summariseForOrgUnit(ouIds.root).total()),
+                "rebuilt rollup should include the new cost");
+
+        dsl.deleteFrom(COST).execute();
+
+        assertEquals(1, costService.refreshCostRollups(), "partition without costs should be removed");
+        assertEquals(0, dsl.fetchCount(COST_ROLLUP_PARTITION));
+    }
+
+
+    // --- helpers
+
+    private EntityCostsSummary summariseForOrgUnit(long ouId) {
+        return costService.summariseByCostKindAndSelector(
+                costKindId,
+                mkOpts(EntityReference.mkRef(EntityKind.ORG_UNIT, ouId), HierarchyQueryScope.CHILDREN),
+                EntityKind.APPLICATION,
+                YEAR,
+                10);
+    }
+
+
+    private void addCost(EntityReference ref, int amount) {
+        costHelper.setCost(ref, costKindId, YEAR, BigDecimal.valueOf(amount));
+    }
+
+
+    private static int findTotal(Set<CostRollup> rollups, long ouId) {
+        return rollups
+                .stream()
+                .filter(r -> r.rollupEntity().id() == ouId)
+                .findFirst()
+                .map(r -> r.total().intValueExact())
+                .orElse(-1);
+    }
+
+}
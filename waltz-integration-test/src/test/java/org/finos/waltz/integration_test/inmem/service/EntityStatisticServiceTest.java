@@ -0,0 +1,254 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_statistic.EntityStatisticDefinitionDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticValueDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.entity_statistic.EntityStatisticDefinition;
+import org.finos.waltz.model.entity_statistic.ImmutableEntityStatisticDefinition;
+import org.finos.waltz.model.entity_statistic.ImmutableEntityStatisticValue;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.entity_statistic.StatisticCategory;
+import org.finos.waltz.model.entity_statistic.StatisticType;
+import org.finos.waltz.model.entity_statistic.StatisticValueState;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.service.entity_statistic.EntityStatisticService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_SUMMARY;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_SUMMARY_PARTITION;
+import static org.finos.waltz.schema.Tables.ENTITY_STATISTIC_VALUE;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class EntityStatisticServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntityStatisticService entityStatisticService;
+
+    @Autowired
+    private EntityStatisticDefinitionDao definitionDao;
+
+    @Autowired
+    private EntityStatisticValueDao valueDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @BeforeEach
+    public void setup() {
+        dsl.deleteFrom(ENTITY_STATISTIC_SUMMARY).execute();
+        dsl.deleteFrom(ENTITY_STATISTIC_SUMMARY_PARTITION).execute();
+        dsl.deleteFrom(ENTITY_STATISTIC_VALUE).execute();
+    }
+
+
+    @Test
+    public void summariesMatchLiveCalculation() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("a1"), ouIds.a1);
+        EntityReference appB = appHelper.createNewApp(mkName("b"), ouIds.b);
+
+        addValue(statId, appA, "PASS", "1");
+        addValue(statId, appA1, "FAIL", "2");
+        addValue(statId, appB, "PASS", "3");
+
+        IdSelectionOptions orgUnitOpts = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        Map<String, Double> live = toCounts(entityStatisticService.calculateStatTally(statId, RollupKind.COUNT_BY_ENTITY, orgUnitOpts));
+        entityStatisticService.refreshSummaries();
+        Map<String, Double> summarised = toCounts(entityStatisticService.calculateStatTally(statId, RollupKind.COUNT_BY_ENTITY, orgUnitOpts));
+
+        assertEquals(live, summarised, "summarised tallies should match the live calculation");
+        assertEquals(1.0, summarised.get("PASS"));
+        assertEquals(1.0, summarised.get("FAIL"));
+
+        List<TallyPack<String>> rootTallies = entityStatisticService.findStatTallies(
+                asList(statId),
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN));
+
+        assertEquals(1, rootTallies.size());
+        assertEquals(2.0, toCounts(rootTallies.get(0)).get("PASS"), "root includes all descendant org units");
+    }
+
+
+    @Test
+    public void historicSummariesAreBrokenDownByDay() {
+        long statId = createDefinition(RollupKind.SUM_BY_VALUE);
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+
+        addValue(statId, appA, "PASS", "5", false, LocalDateTime.now().minusDays(2));
+        addValue(statId, appA, "PASS", "7", false, LocalDateTime.now().minusDays(1));
+
+        entityStatisticService.refreshSummaries();
+
+        List<TallyPack<String>> history = entityStatisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.SUM_BY_VALUE,
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN),
+                Duration.WEEK);
+
+        assertEquals(2, history.size(), "expected a tally pack per day");
+        assertEquals(5.0, toCounts(history.get(0)).get("PASS"));
+        assertEquals(7.0, toCounts(history.get(1)).get("PASS"));
+    }
+
+
+    @Test
+    public void onlyChangedStatisticsAreRebuilt() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        addValue(statId, appA, "PASS", "1");
+
+        assertEquals(1, entityStatisticService.refreshSummaries(), "new statistic should be summarised");
+        assertEquals(0, entityStatisticService.refreshSummaries(), "nothing has changed so nothing to rebuild");
+
+        EntityReference appB = appHelper.createNewApp(mkName("b"), ouIds.b);
+        addValue(statId, appB, "PASS", "1");
+
+        assertEquals(1, entityStatisticService.refreshSummaries(), "statistic should be rebuilt after an import");
+        assertEquals(
+                2.0,
+                toCounts(entityStatisticService.calculateStatTally(
+                        statId,
+                        RollupKind.COUNT_BY_ENTITY,
+                        mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN))).get("PASS"),
+                "rebuilt summary should include the new value");
+
+        dsl.deleteFrom(ENTITY_STATISTIC_VALUE).execute();
+
+        assertEquals(1, entityStatisticService.refreshSummaries(), "statistic without values should be removed");
+        assertEquals(0, dsl.fetchCount(ENTITY_STATISTIC_SUMMARY_PARTITION));
+    }
+
+
+    @Test
+    public void inPlaceUpdatesOfValuesCauseARebuild() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("a"), ouIds.a);
+        addValue(statId, appA, "PASS", "1");
+
+        assertEquals(1, entityStatisticService.refreshSummaries());
+
+        dsl.update(ENTITY_STATISTIC_VALUE)
+                .set(ENTITY_STATISTIC_VALUE.OUTCOME, "FAIL")
+                .where(ENTITY_STATISTIC_VALUE.STATISTIC_ID.eq(statId))
+                .execute();
+
+        assertEquals(1, entityStatisticService.refreshSummaries(), "statistic should be rebuilt after an outcome is updated");
+
+        Map<String, Double> counts = toCounts(entityStatisticService.calculateStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN)));
+
+        assertEquals(1.0, counts.get("FAIL"), "rebuilt summary should reflect the updated outcome");
+        assertFalse(counts.containsKey("PASS"));
+
+        dsl.update(ENTITY_STATISTIC_VALUE)
+                .set(ENTITY_STATISTIC_VALUE.CURRENT, false)
+                .where(ENTITY_STATISTIC_VALUE.STATISTIC_ID.eq(statId))
+                .execute();
+
+        assertEquals(1, entityStatisticService.refreshSummaries(), "statistic should be rebuilt after a value is no longer current");
+    }
+
+
+    // --- helpers
+
+    private long createDefinition(RollupKind rollupKind) {
+        long id = counter.incrementAndGet();
+
+        EntityStatisticDefinition defn = ImmutableEntityStatisticDefinition.builder()
+                .id(id)
+                .name(mkName("stat"))
+                .description("test statistic")
+                .type(StatisticType.ENUM)
+                .category(StatisticCategory.COMPLIANCE)
+                .active(true)
+                .rollupKind(rollupKind)
+                .renderer("enum")
+                .historicRenderer("enum")
+                .entityVisibility(true)
+                .rollupVisibility(true)
+                .provenance(PROVENANCE)
+                .build();
+
+        definitionDao.insert(defn);
+        return id;
+    }
+
+
+    private void addValue(long statId, EntityReference ref, String outcome, String value) {
+        addValue(statId, ref, outcome, value, true, LocalDateTime.now());
+    }
+
+
+    private void addValue(long statId,
+                          EntityReference ref,
+                          String outcome,
+                          String value,
+                          boolean current,
+                          LocalDateTime createdAt) {
+        valueDao.bulkSaveValues(asList(ImmutableEntityStatisticValue.builder()
+                .statisticId(statId)
+                .entity(ref)
+                .state(StatisticValueState.PROVIDED)
+                .outcome(outcome)
+                .value(value)
+                .current(current)
+                .createdAt(createdAt)
+                .provenance(PROVENANCE)
+                .build()));
+    }
+
+
+    private static Map<String, Double> toCounts(TallyPack<String> pack) {
+        return pack
+                .tallies()
+                .stream()
+                .collect(toMap(Tally::id, Tally::count));
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.service.estate_snapshot.EstateSnapshot;
+import org.finos.waltz.service.estate_snapshot.EstateSnapshotService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EstateSnapshotServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EstateSnapshotService estateSnapshotService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @BeforeEach
+    public void setup() {
+        estateSnapshotService.invalidate();
+    }
+
+
+    @Test
+    public void snapshotIsLoadedOnFirstUse() {
+        String name = mkName("estateSnapshot");
+        EntityReference app = appHelper.createNewApp(name, ouIds.a);
+
+        assertEquals(Optional.of(name), estateSnapshotService.findApplicationRef(app.id()).flatMap(EntityReference::name));
+
+        EstateSnapshot snapshot = estateSnapshotService.getSnapshot().get();
+        assertEquals(Optional.of(ouIds.a), snapshot.findOrgUnitIdForApplication(app.id()));
+        assertEquals(asList(ouIds.a, ouIds.root), snapshot.findOrgUnitAncestorIds(ouIds.a1));
+        assertEquals(Optional.of("a1Name"), estateSnapshotService.findOrgUnitRef(ouIds.a1).flatMap(EntityReference::name));
+    }
+
+
+    @Test
+    public void refreshPicksUpNewAndUpdatedApplications() {
+        EntityReference existing = appHelper.createNewApp(mkName("estateSnapshot"), ouIds.a);
+        long initialVersion = estateSnapshotService.getSnapshot().get().version();
+
+        String name = mkName("estateSnapshot");
+        EntityReference added = appHelper.createNewApp(name, ouIds.b);
+
+        assertFalse(estateSnapshotService.getSnapshot().get().findApplicationRef(added.id()).isPresent());
+        assertEquals(
+                Optional.of(name),
+                estateSnapshotService.findApplicationRef(added.id()).flatMap(EntityReference::name),
+                "ids not yet in the snapshot fall back to the database");
+
+        appHelper.removeApp(existing.id());
+        estateSnapshotService.refresh();
+
+        EstateSnapshot refreshed = estateSnapshotService.getSnapshot().get();
+        assertTrue(refreshed.version() > initialVersion);
+        assertTrue(refreshed.findApplicationRef(added.id()).isPresent());
+        assertEquals(Optional.of(true), refreshed.findIsApplicationRemoved(existing.id()));
+
+        List<EntityReference> refs = estateSnapshotService.findApplicationRefs(asList(existing.id(), added.id(), -1L));
+        assertEquals(asSet(existing.id(), added.id()), map(refs, EntityReference::id));
+    }
+
+
+    @Test
+    public void consistencyCheckReportsAndRepairsUntrackedChanges() {
+        String name = mkName("estateSnapshot");
+        EntityReference app = appHelper.createNewApp(name, ouIds.a);
+        estateSnapshotService.getSnapshot();
+
+        // simulates a write path which does not move the update time on
+        dsl.update(APPLICATION)
+                .set(APPLICATION.NAME, "renamed")
+                .set(APPLICATION.UPDATED_AT, Timestamp.valueOf("2000-01-01 00:00:00"))
+                .where(APPLICATION.ID.eq(app.id()))
+                .execute();
+
+        estateSnapshotService.refresh();
+        assertEquals(Optional.of(name), estateSnapshotService.findApplicationRef(app.id()).flatMap(EntityReference::name));
+
+        Set<EntityReference> differences = estateSnapshotService.checkConsistency();
+
+        assertEquals(asSet(mkRef(EntityKind.APPLICATION, app.id())), differences);
+        assertEquals(Optional.of("renamed"), estateSnapshotService.findApplicationRef(app.id()).flatMap(EntityReference::name));
+        assertTrue(estateSnapshotService.checkConsistency().isEmpty());
+    }
+
+
+    @Test
+    public void snapshotOverBudgetFallsBackToDatabase() {
+        long budget = estateSnapshotService.getMemoryBudgetBytes();
+        try {
+            String name = mkName("estateSnapshot");
+            EntityReference app = appHelper.createNewApp(name, ouIds.a);
+
+            estateSnapshotService.setMemoryBudgetBytes(1);
+
+            assertFalse(estateSnapshotService.getSnapshot().isPresent());
+            assertTrue(estateSnapshotService.isOverBudget());
+            assertEquals(Optional.of(name), estateSnapshotService.findApplicationRef(app.id()).flatMap(EntityReference::name));
+        } finally {
+            estateSnapshotService.setMemoryBudgetBytes(budget);
+        }
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.GenericSelectorFactory;
+import org.finos.waltz.data.rating_scheme.RatingSchemeDAO;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.application.ImmutableMeasurableRatingsView;
+import org.finos.waltz.model.application.MeasurableRatingsView;
+import org.finos.waltz.model.assessment_definition.AssessmentVisibility;
+import org.finos.waltz.model.assessment_rating.AssessmentRating;
+import org.finos.waltz.model.measurable_category.MeasurableCategory;
+import org.finos.waltz.model.measurable_rating.AllocationsView;
+import org.finos.waltz.model.measurable_rating.DecommissionsView;
+import org.finos.waltz.model.measurable_rating.ImmutableAllocationsView;
+import org.finos.waltz.model.measurable_rating.ImmutableDecommissionsView;
+import org.finos.waltz.model.measurable_rating.MeasurableRatingCategoryView;
+import org.finos.waltz.service.allocation.AllocationService;
+import org.finos.waltz.service.allocation_schemes.AllocationSchemeService;
+import org.finos.waltz.service.application.ApplicationService;
+import org.finos.waltz.service.assessment_rating.AssessmentRatingService;
+import org.finos.waltz.service.measurable.MeasurableService;
+import org.finos.waltz.service.measurable_category.MeasurableCategoryService;
+import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
+import org.finos.waltz.service.measurable_rating.MeasurableRatingViewService;
+import org.finos.waltz.service.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommissionService;
+import org.finos.waltz.service.measurable_rating_replacement.MeasurableRatingReplacementService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.AssessmentHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.finos.waltz.test_common.helpers.RatingSchemeHelper;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.filter;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.model.utils.IdUtilities.toIds;
+import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MeasurableRatingViewServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final String STEM = "mrvs";
+
+    @Autowired
+    private MeasurableRatingViewService viewService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private AssessmentHelper assessmentHelper;
+
+    @Autowired
+    private RatingSchemeHelper ratingSchemeHelper;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private MeasurableService measurableService;
+
+    @Autowired
+    private MeasurableCategoryService measurableCategoryService;
+
+    @Autowired
+    private MeasurableRatingService measurableRatingService;
+
+    @Autowired
+    private AllocationService allocationService;
+
+    @Autowired
+    private AllocationSchemeService allocationSchemeService;
+
+    @Autowired
+    private AssessmentRatingService assessmentRatingService;
+
+    @Autowired
+    private MeasurableRatingPlannedDecommissionService decommissionService;
+
+    @Autowired
+    private MeasurableRatingReplacementService replacementService;
+
+    @Autowired
+    private RatingSchemeDAO ratingSchemeDAO;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void unknownCategoryIsRejected() {
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.root), HierarchyQueryScope.CHILDREN);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> viewService.getViewForCategoryAndSelector(opts, -1L));
+    }
+
+
+    @Test
+    public void viewIsScopedToTheSelection() {
+        long categoryId = mkCategory("cat");
+        long otherCategoryId = mkCategory("otherCat");
+
+        List<Long> measurableIds = mkMeasurables(categoryId, 5);
+        List<Long> otherMeasurableIds = mkMeasurables(otherCategoryId, 2);
+
+        long assessmentSchemeId = ratingSchemeHelper.createEmptyRatingScheme(mkName(STEM, "assessmentScheme"));
+        long yes = ratingSchemeHelper.saveRatingItem(assessmentSchemeId, "Yes", 10, "green", "Y");
+        long no = ratingSchemeHelper.saveRatingItem(assessmentSchemeId, "No", 20, "red", "N");
+
+        long primaryDef = mkDefinition(assessmentSchemeId, "primary", AssessmentVisibility.PRIMARY, categoryId);
+        long secondaryDef = mkDefinition(assessmentSchemeId, "secondary", AssessmentVisibility.SECONDARY, categoryId);
+        long otherPrimaryDef = mkDefinition(assessmentSchemeId, "otherPrimary", AssessmentVisibility.PRIMARY, otherCategoryId);
+
+        // apps under 'a' (and 'a1') are in the selection, those under 'b' are not
+        List<EntityReference> apps = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Long ouId = i % 3 == 0 ? ouIds.a : i % 3 == 1 ? ouIds.a1 : ouIds.b;
+            apps.add(appHelper.createNewApp(mkName(STEM, "app" + i), ouId));
+        }
+
+        for (int i = 0; i < apps.size(); i++) {
+            EntityReference app = apps.get(i);
+            for (int j = 0; j < measurableIds.size(); j++) {
+                if ((i + j) % 2 == 0) {
+                    continue;
+                }
+                long ratingId = measurableHelper.createRating(app, measurableIds.get(j));
+                EntityReference ratingRef = mkRef(EntityKind.MEASURABLE_RATING, ratingId);
+                assessmentHelper.createAssessment(primaryDef, ratingRef, (i + j) % 3 == 0 ? no : yes);
+                assessmentHelper.createAssessment(secondaryDef, ratingRef, yes);
+                if (j == 1) {
+                    measurableHelper.createDecomm(ratingId);
+                }
+            }
+            long otherRatingId = measurableHelper.createRating(app, otherMeasurableIds.get(i % 2));
+            assessmentHelper.createAssessment(otherPrimaryDef, mkRef(EntityKind.MEASURABLE_RATING, otherRatingId), yes);
+        }
+
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+        Select<Record1<Long>> appIds = new GenericSelectorFactory()
+                .applyForKind(EntityKind.APPLICATION, opts)
+                .selector();
+
+        MeasurableRatingCategoryView view = viewService.getViewForCategoryAndSelector(opts, categoryId);
+
+        assertEquals(8, view.applications().size(), "apps under 'a' and 'a1' are selected");
+        assertFalse(view.measurableRatings().measurableRatings().isEmpty());
+        assertFalse(view.decommissions().plannedDecommissions().isEmpty());
+
+        assertEquals(applicationService.findByAppIdSelector(opts), view.applications());
+        assertEquals(mkExpectedRatingsView(appIds, categoryId), view.measurableRatings());
+        assertEquals(mkExpectedAllocationsView(appIds, categoryId), view.allocations());
+        assertEquals(mkExpectedDecommissionsView(appIds, categoryId), view.decommissions());
+        assertEquals(asSet(primaryDef), toIds(view.primaryAssessments().assessmentDefinitions()));
+
+        Set<Long> ratingIdsInView = toIds(view.measurableRatings().measurableRatings());
+        Set<AssessmentRating> allPrimaryAssessments = filter(
+                assessmentRatingService.findByEntityKind(EntityKind.MEASURABLE_RATING),
+                a -> a.assessmentDefinitionId() == primaryDef);
+        Set<AssessmentRating> assessments = view.primaryAssessments().assessmentRatings();
+
+        assertEquals(
+                filter(allPrimaryAssessments, a -> ratingIdsInView.contains(a.entityReference().id())),
+                assessments,
+                "assessments are the primary ones restricted to the ratings in the view");
+        assertEquals(ratingIdsInView, map(assessments, a -> a.entityReference().id()));
+        assertTrue(
+                allPrimaryAssessments.size() > assessments.size(),
+                "primary assessments exist on ratings outside the selection");
+
+        Set<Long> schemeItemIds = toIds(view.primaryAssessments().ratingSchemeItems());
+        assertTrue(
+                schemeItemIds.containsAll(map(assessments, AssessmentRating::ratingId)),
+                "rating scheme items cover every assessment rating in the view");
+    }
+
+
+    // --- helpers
+
+    private MeasurableRatingsView mkExpectedRatingsView(Select<Record1<Long>> appIds, long categoryId) {
+        MeasurableCategory category = measurableCategoryService.getById(categoryId);
+
+        return ImmutableMeasurableRatingsView
+                .builder()
+                .measurableRatings(measurableRatingService.findForCategoryAndSelector(appIds, categoryId))
+                .measurables(measurableService.findByCategoryId(categoryId))
+                .measurableCategories(asSet(category))
+                .measurableHierarchy(measurableService.findHierarchyForCategory(categoryId))
+                .ratingSchemeItems(ratingSchemeDAO.findRatingSchemeItemsForSchemeIds(asSet(category.ratingSchemeId())))
+                .build();
+    }
+
+
+    private AllocationsView mkExpectedAllocationsView(Select<Record1<Long>> appIds, long categoryId) {
+        return ImmutableAllocationsView
+                .builder()
+                .allocations(allocationService.findForCategoryAndSelector(appIds, categoryId))
+                .allocationSchemes(allocationSchemeService.findByCategoryId(categoryId))
+                .build();
+    }
+
+
+    private DecommissionsView mkExpectedDecommissionsView(Select<Record1<Long>> appIds, long categoryId) {
+        return ImmutableDecommissionsView
+                .builder()
+                .plannedDecommissions(decommissionService.findForCategoryAndSelector(appIds, categoryId))
+                .plannedReplacements(replacementService.findForCategoryAndSelector(appIds, categoryId))
+                .replacingDecommissions(decommissionService.findForReplacingEntitySelectorAndCategory(appIds, categoryId))
+                .build();
+    }
+
+
+    private long mkCategory(String name) {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, name));
+
+        // measurable ratings are only returned if their code is in the category's rating scheme
+        long schemeId = ratingSchemeHelper.createEmptyRatingScheme(mkName(STEM, name + "Scheme"));
+        ratingSchemeHelper.saveRatingItem(schemeId, "Good", 10, "green", "G");
+
+        dsl.update(MEASURABLE_CATEGORY)
+                .set(MEASURABLE_CATEGORY.RATING_SCHEME_ID, schemeId)
+                .where(MEASURABLE_CATEGORY.ID.eq(categoryId))
+                .execute();
+
+        return categoryId;
+    }
+
+
+    private List<Long> mkMeasurables(long categoryId, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(measurableHelper.createMeasurable(mkName(STEM, "m" + i), categoryId));
+        }
+        return ids;
+    }
+
+
+    private long mkDefinition(long schemeId, String name, AssessmentVisibility visibility, long categoryId) {
+        return assessmentHelper.createDefinition(
+                schemeId,
+                mkName(STEM, name),
+                null,
+                visibility,
+                null,
+                EntityKind.MEASURABLE_RATING,
+                mkRef(EntityKind.MEASURABLE_CATEGORY, categoryId));
+    }
+
+}
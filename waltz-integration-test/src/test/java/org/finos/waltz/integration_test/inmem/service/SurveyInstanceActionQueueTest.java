@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.JacksonUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.data.survey.SurveyInstanceActionQueueDao;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -32,6 +33,7 @@ import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.InvolvementHelper;
 import org.finos.waltz.test_common.helpers.PersonHelper;
 import org.finos.waltz.test_common.helpers.SurveyTemplateHelper;
+import org.jooq.DSLContext;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -81,6 +83,12 @@ public class SurveyInstanceActionQueueTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private ChangeLogService changeLogService;
 
+    @Autowired
+    private SurveyInstanceActionQueueDao actionQueueDao;
+
+    @Autowired
+    private DSLContext dsl;
+
     @Test
     public void processActionsCanSubmitSurveys() throws InsufficientPrivelegeException {
         String username = mkName("submitSurvey");
@@ -249,6 +257,57 @@ public class SurveyInstanceActionQueueTest extends BaseInMemoryIntegrationTest {
         Assertions.assertEquals(SurveyInstanceActionStatus.SUCCESS, action2.status());
     }
 
+    @Test
+    public void processActionsWaitsForAllInstancesWhenOneFails() throws InsufficientPrivelegeException {
+        String username = mkName("failingInstance");
+        String username2 = mkName("slowInstance");
+        SurveyInstance instance = setupSurvey("failingInstance", username);
+        SurveyInstance instance2 = setupSurvey("slowInstance", username2);
+        Long failingActionId = actionQueueHelper.addActionToQueue(instance.id().get(), SurveyInstanceAction.SUBMITTING, null, instance.status(), username);
+        Long slowActionId = actionQueueHelper.addActionToQueue(instance2.id().get(), SurveyInstanceAction.SUBMITTING, null, instance2.status(), username2);
+        Long laterActionId = actionQueueHelper.addActionToQueue(instance2.id().get(), SurveyInstanceAction.SUBMITTING, null, instance2.status(), username2);
+
+        SurveyInstanceActionQueueDao failingDao = new SurveyInstanceActionQueueDao(dsl) {
+            @Override
+            public void markActionInProgress(DSLContext tx, Long actionId) {
+                if (actionId.equals(failingActionId)) {
+                    // an Error is not caught by the per action handling so fails the whole instance partition
+                    throw new AssertionError("Simulated failure for action: " + actionId);
+                }
+                if (actionId.equals(slowActionId)) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.markActionInProgress(tx, actionId);
+            }
+        };
+
+        new SurveyInstanceActionQueueService(failingDao, instanceService, changeLogService, dsl, 2).performActions();
+
+        SurveyInstanceActionQueueItem failingAction = actionQueueService.getById(failingActionId);
+        Assertions.assertEquals(SurveyInstanceActionStatus.PENDING, failingAction.status(), "Action on the failing instance should be left to be attempted again");
+
+        SurveyInstanceActionQueueItem slowAction = actionQueueService.getById(slowActionId);
+        Assertions.assertEquals(SurveyInstanceActionStatus.SUCCESS, slowAction.status());
+
+        SurveyInstanceActionQueueItem laterAction = actionQueueService.getById(laterActionId);
+        Assertions.assertEquals(
+                SurveyInstanceActionStatus.PRECONDITION_FAILURE,
+                laterAction.status(),
+                "Precondition failure recorded after the other instance failed should still be persisted");
+
+        List<ChangeLog> changeLogs = changeLogService.findByParentReference(mkRef(EntityKind.SURVEY_INSTANCE, instance2.id().get()), Optional.empty(), Optional.empty());
+        Assertions.assertTrue(any(changeLogs, d -> d.message().contains("Initial state of survey is not as expected")), "Change log for the precondition failure should be written");
+
+        actionQueueService.performActions();
+
+        Assertions.assertEquals(SurveyInstanceActionStatus.SUCCESS, actionQueueService.getById(failingActionId).status(), "Action should succeed when attempted again");
+        Assertions.assertEquals(SurveyInstanceStatus.COMPLETED, instanceService.getById(instance.id().get()).status());
+    }
+
     @Test
     public void processActionsShouldInformWhenTransitionIsNotAllowed() throws InsufficientPrivelegeException {
         String username = mkName("multipleSurveys");
@@ -0,0 +1,193 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
+import org.finos.waltz.data.measurable.MeasurableDao;
+import org.finos.waltz.data.measurable_rating.MeasurableRatingDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactKind;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
+import org.finos.waltz.service.permission.UserPermissionCache;
+import org.finos.waltz.service.taxonomy_management.processors.TaxonomyManagementHelper;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.MeasurableHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaxonomyManagementHelperTest extends BaseInMemoryIntegrationTest {
+
+    private static final String STEM = "tmh";
+
+    private static final List<TaxonomyChangeImpactKind> IMPACTS = asList(
+            TaxonomyChangeImpactKind.BOOKMARK,
+            TaxonomyChangeImpactKind.MEASURABLE);
+
+    @Autowired
+    private TaxonomyManagementHelper helper;
+
+    @Autowired
+    private EntityRelationshipDao entityRelationshipDao;
+
+    @Autowired
+    private MeasurableDao measurableDao;
+
+    @Autowired
+    private MeasurableRatingDao measurableRatingDao;
+
+    @Autowired
+    private MeasurableRatingService measurableRatingService;
+
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void mergeMovesDataToTheTargetAndRemovesTheSource() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "category"));
+        long source = measurableHelper.createMeasurable(mkName(STEM, "source"), categoryId);
+        long target = measurableHelper.createMeasurable(mkName(STEM, "target"), categoryId);
+        long child = createChild(source, categoryId);
+        EntityReference app = appHelper.createNewApp(mkName(STEM, "app"), ouIds.a);
+        measurableHelper.createRating(app, source);
+
+        Map<TaxonomyChangeImpactKind, Integer> removed = helper.mergeMeasurable(
+                mkRef(EntityKind.MEASURABLE, source),
+                target,
+                asSet(source),
+                IMPACTS,
+                LAST_UPDATE_USER);
+
+        assertEquals(1, removed.get(TaxonomyChangeImpactKind.MEASURABLE));
+        assertEquals(asSet(target), findRatedMeasurableIds(app));
+        assertEquals(target, findParentId(child));
+        assertEquals(EntityLifecycleStatus.REMOVED.name(), findLifecycleStatus(source));
+    }
+
+
+    @Test
+    public void failedRemovalRollsBackTheMigration() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName(STEM, "category"));
+        long source = measurableHelper.createMeasurable(mkName(STEM, "source"), categoryId);
+        long target = measurableHelper.createMeasurable(mkName(STEM, "target"), categoryId);
+        long child = createChild(source, categoryId);
+        EntityReference app = appHelper.createNewApp(mkName(STEM, "app"), ouIds.a);
+        measurableHelper.createRating(app, source);
+
+        TaxonomyChangeImpactDao failingImpactDao = new TaxonomyChangeImpactDao(dsl) {
+            @Override
+            public Map<TaxonomyChangeImpactKind, Integer> removeImpacts(DSLContext dslContext,
+                                                                        Collection<Long> measurableIds,
+                                                                        Set<TaxonomyChangeImpactKind> impacts) {
+                throw new IllegalStateException("Simulated removal failure");
+            }
+        };
+
+        TaxonomyManagementHelper failingHelper = new TaxonomyManagementHelper(
+                dsl,
+                entityRelationshipDao,
+                measurableDao,
+                measurableRatingDao,
+                measurableRatingService,
+                failingImpactDao,
+                userPermissionCache);
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> failingHelper.mergeMeasurable(
+                        mkRef(EntityKind.MEASURABLE, source),
+                        target,
+                        asSet(source),
+                        IMPACTS,
+                        LAST_UPDATE_USER));
+
+        assertEquals(asSet(source), findRatedMeasurableIds(app), "rating should not have been migrated");
+        assertEquals(source, findParentId(child), "child should not have been moved");
+        assertEquals(EntityLifecycleStatus.ACTIVE.name(), findLifecycleStatus(source));
+    }
+
+
+    // --- helpers
+
+    private long createChild(long parentId, long categoryId) {
+        long child = measurableHelper.createMeasurable(mkName(STEM, "child"), categoryId);
+        dsl.update(MEASURABLE)
+                .set(MEASURABLE.PARENT_ID, parentId)
+                .where(MEASURABLE.ID.eq(child))
+                .execute();
+        return child;
+    }
+
+
+    private Set<Long> findRatedMeasurableIds(EntityReference ref) {
+        return dsl
+                .select(MEASURABLE_RATING.MEASURABLE_ID)
+                .from(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.ENTITY_ID.eq(ref.id()))
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(ref.kind().name()))
+                .fetchSet(MEASURABLE_RATING.MEASURABLE_ID);
+    }
+
+
+    private Long findParentId(long measurableId) {
+        return dsl
+                .select(MEASURABLE.PARENT_ID)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.eq(measurableId))
+                .fetchOne(MEASURABLE.PARENT_ID);
+    }
+
+
+    private String findLifecycleStatus(long measurableId) {
+        return dsl
+                .select(MEASURABLE.ENTITY_LIFECYCLE_STATUS)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.eq(measurableId))
+                .fetchOne(MEASURABLE.ENTITY_LIFECYCLE_STATUS);
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.user.ImmutableUpdateRolesCommand;
+import org.finos.waltz.service.permission.UserPermissionCache;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.test_common.helpers.UserHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Locale;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserPermissionCacheTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private UserHelper helper;
+
+    @Autowired
+    private UserRoleService userRoleService;
+
+    @Autowired
+    private UserPermissionCache cache;
+
+
+    @Test
+    public void repeatedRoleChecksAreServedFromCache() {
+        String userName = mkName("repeatedRoleChecks_User");
+        String roleName = mkName("repeatedRoleChecks_Role");
+        helper.createUserWithRoles(userName, roleName);
+
+        assertTrue(userRoleService.hasRole(userName, roleName));
+
+        long missesBefore = cache.getMissCount();
+        long hitsBefore = cache.getHitCount();
+
+        assertTrue(userRoleService.hasRole(userName, roleName));
+        assertTrue(userRoleService.hasAnyRole(userName, asSet(roleName, "made up")));
+
+        assertEquals(missesBefore, cache.getMissCount(), "expected no further db lookups");
+        assertEquals(hitsBefore + 2, cache.getHitCount(), "expected both checks to hit the cache");
+    }
+
+
+    @Test
+    public void updatingRolesInvalidatesCachedRoles() {
+        String userName = mkName("updatingRolesInvalidates_User");
+        String role1Name = mkName("updatingRolesInvalidates_Role1");
+        String role2Name = mkName("updatingRolesInvalidates_Role2");
+        helper.createUserWithRoles(userName, role1Name);
+        helper.createRole(role2Name);
+
+        assertTrue(userRoleService.hasRole(userName, role1Name));
+        assertFalse(userRoleService.hasRole(userName, role2Name));
+
+        userRoleService.updateRoles(
+                "admin",
+                userName,
+                ImmutableUpdateRolesCommand
+                        .builder()
+                        .roles(asSet(role2Name))
+                        .comment("test comment")
+                        .build());
+
+        assertTrue(userRoleService.hasRole(userName, role2Name), "new role should be visible immediately");
+        assertFalse(userRoleService.hasRole(userName, role1Name), "old role should be removed immediately");
+    }
+
+
+    @Test
+    public void userNamesAreMatchedIgnoringCase() {
+        String userName = mkName("userNamesIgnoreCase_User");
+        String roleName = mkName("userNamesIgnoreCase_Role");
+        helper.createUserWithRoles(userName, roleName);
+
+        String upperUserName = userName.toUpperCase(Locale.ROOT);
+        String lowerUserName = userName.toLowerCase(Locale.ROOT);
+
+        assertTrue(cache.getUserRoles(lowerUserName).contains(roleName));
+
+        long missesBefore = cache.getMissCount();
+        assertTrue(cache.getUserRoles(upperUserName).contains(roleName));
+        assertEquals(missesBefore, cache.getMissCount(), "differently cased names should share cached roles");
+
+        cache.invalidateUser(upperUserName);
+        cache.getUserRoles(lowerUserName);
+        assertEquals(missesBefore + 1, cache.getMissCount(), "invalidating any casing should clear the cached roles");
+    }
+
+}
@@ -0,0 +1,509 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.finos.waltz.common.XmlUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Reads rows from an xlsx workbook without building the workbook in memory.
+ *
+ * {@link org.apache.poi.xssf.usermodel.XSSFWorkbook} holds every cell of every
+ * sheet as xml beans, which for sheets with a few hundred thousand rows runs to
+ * gigabytes of heap.  This reader pulls rows from the sheet xml one at a time,
+ * so memory use is bounded by the shared strings table (the distinct text values
+ * in the workbook) and the rows the caller chooses to keep.
+ *
+ * The shared strings are held as plain strings, POI's read only table builds a
+ * rich text object for every lookup which is wasteful when we only want the text.
+ *
+ * Each call to {@link #streamRows(int)} re-reads the sheet, so sheets may be
+ * streamed any number of times, in any order.  The returned streams are closed
+ * when exhausted, or when the reader is closed.
+ * <pre>
+ * try (StreamingXlsReader reader = StreamingXlsReader.open(inputStream)) {
+ *     reader.streamRows(0)
+ *           .skip(1)
+ *           .map(r -> r.strVal(Columns.A))
+ *           ...
+ * }
+ * </pre>
+ */
+public class StreamingXlsReader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingXlsReader.class);
+
+    private static final XMLInputFactory INPUT_FACTORY = XmlUtilities.createNonValidatingXmlInputFactory();
+
+    private final OPCPackage pkg;
+    private final File spoolFile;
+    private final XSSFReader xssfReader;
+    private final List<String> sharedStrings;
+    private final boolean date1904;
+    private final Set<SheetRows> openSheets = ConcurrentHashMap.newKeySet();
+
+
+    private StreamingXlsReader(OPCPackage pkg, File spoolFile) throws IOException {
+        this.pkg = pkg;
+        this.spoolFile = spoolFile;
+        try {
+            this.xssfReader = new XSSFReader(pkg);
+            this.sharedStrings = readSharedStrings(pkg);
+            this.date1904 = readDate1904(xssfReader);
+        } catch (OpenXML4JException | XMLStreamException e) {
+            throw new IOException("Cannot read workbook", e);
+        }
+    }
+
+
+    public static StreamingXlsReader open(File file) throws IOException {
+        checkNotNull(file, "file cannot be null");
+        return open(file, null);
+    }
+
+
+    /**
+     * The stream is copied to a temporary file, which is removed when the
+     * reader is closed.  Opening a package directly from a stream would
+     * inflate every part into memory.
+     */
+    public static StreamingXlsReader open(InputStream inputStream) throws IOException {
+        checkNotNull(inputStream, "inputStream cannot be null");
+
+        File spoolFile = Files.createTempFile("waltz-xls-", ".xlsx").toFile();
+        try {
+            Files.copy(inputStream, spoolFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return open(spoolFile, spoolFile);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(spoolFile);
+            throw e;
+        }
+    }
+
+
+    private static StreamingXlsReader open(File file, File spoolFile) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Cannot open workbook: " + file, e);
+        }
+
+        try {
+            return new StreamingXlsReader(pkg, spoolFile);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+
+    public Stream<XlsRow> streamRows(SheetNumProvider sheetDefinition) {
+        return streamRows(sheetDefinition.sheetNum());
+    }
+
+
+    /**
+     * @param sheetNum zero based sheet index, in workbook order
+     * @return the physical rows of the sheet, empty rows are skipped
+     */
+    public Stream<XlsRow> streamRows(int sheetNum) {
+        checkTrue(sheetNum >= 0, "sheetNum cannot be negative");
+
+        SheetRows rows = new SheetRows(sheetNum, openSheet(sheetNum));
+        openSheets.add(rows);
+
+        return StreamSupport
+                .stream(rows, false)
+                .onClose(rows::close);
+    }
+
+
+    @Override
+    public void close() {
+        new ArrayList<>(openSheets).forEach(SheetRows::close);
+        pkg.revert();
+        if (spoolFile != null) {
+            deleteQuietly(spoolFile);
+        }
+    }
+
+
+    // --- helpers
+
+    private InputStream openSheet(int sheetNum) {
+        try {
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                InputStream sheet = sheets.next();
+                if (i == sheetNum) {
+                    return sheet;
+                }
+                sheet.close();
+            }
+        } catch (IOException | OpenXML4JException e) {
+            throw new IllegalStateException("Cannot open sheet: " + sheetNum, e);
+        }
+        throw new IllegalArgumentException("Workbook has no sheet: " + sheetNum);
+    }
+
+
+    private static List<String> readSharedStrings(OPCPackage pkg) throws IOException, OpenXML4JException, XMLStreamException {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try (InputStream sst = parts.get(0).getInputStream()) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(sst);
+            try {
+                List<String> strings = new ArrayList<>();
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && localName(reader).equals("si")) {
+                        strings.add(readText(reader, "si"));
+                    }
+                }
+                return strings;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+
+    private static boolean readDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, XMLStreamException {
+        try (InputStream workbook = xssfReader.getWorkbookData()) {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(workbook);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String name = localName(reader);
+                    if (name.equals("workbookPr")) {
+                        String value = reader.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                    if (name.equals("sheets")) {
+                        // workbookPr, if present, precedes the sheet list
+                        return false;
+                    }
+                }
+                return false;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+
+    /**
+     * The sheet xml is usually unprefixed, but some writers use a prefix
+     * (e.g. <code>x:row</code>).  The factory is not namespace aware so we
+     * strip it ourselves.
+     */
+    private static String localName(XMLStreamReader reader) {
+        String name = reader.getLocalName();
+        int colon = name.indexOf(':');
+        return colon < 0
+                ? name
+                : name.substring(colon + 1);
+    }
+
+
+    /**
+     * Reads the text of a string item (<code>si</code>) or inline string (<code>is</code>),
+     * concatenating any rich text runs and leaving the reader at the end of the container.
+     */
+    private static String readText(XMLStreamReader reader, String container) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = localName(reader);
+                if (name.equals("t")) {
+                    text.append(reader.getElementText());
+                } else if (name.equals("rPh")) {
+                    // phonetic runs are not part of the text
+                    skipElement(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && localName(reader).equals(container)) {
+                break;
+            }
+        }
+        return text.toString();
+    }
+
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+
+    /**
+     * @param ref cell reference such as <code>AB12</code>
+     * @return zero based column index, or -1 if the reference has no column part
+     */
+    static int toColumnIndex(String ref) {
+        int col = 0;
+        int i = 0;
+        for (; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return i == 0
+                ? -1
+                : col - 1;
+    }
+
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOG.warn("Cannot delete temporary workbook: {}", file, e);
+        }
+    }
+
+
+    /**
+     * Pulls rows from a single sheet part, one <code>&lt;row&gt;</code> element at a time.
+     */
+    private class SheetRows extends Spliterators.AbstractSpliterator<XlsRow> {
+
+        private final int sheetNum;
+        private final InputStream sheetStream;
+        private final XMLStreamReader reader;
+        private int previousRowNum = -1;
+        private boolean closed = false;
+
+
+        private SheetRows(int sheetNum, InputStream sheetStream) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.sheetNum = sheetNum;
+            this.sheetStream = sheetStream;
+            try {
+                this.reader = INPUT_FACTORY.createXMLStreamReader(sheetStream);
+            } catch (XMLStreamException e) {
+                closeQuietly();
+                throw new IllegalStateException("Cannot read sheet: " + sheetNum, e);
+            }
+        }
+
+
+        @Override
+        public boolean tryAdvance(Consumer<? super XlsRow> action) {
+            if (closed) {
+                return false;
+            }
+
+            XlsRow row;
+            try {
+                row = readNextRow();
+            } catch (XMLStreamException e) {
+                close();
+                throw new IllegalStateException("Cannot read sheet: " + sheetNum, e);
+            }
+
+            if (row == null) {
+                close();
+                return false;
+            }
+
+            action.accept(row);
+            return true;
+        }
+
+
+        private XlsRow readNextRow() throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && localName(reader).equals("row")) {
+                    return readRow();
+                }
+                if (event == XMLStreamConstants.END_ELEMENT && localName(reader).equals("sheetData")) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+
+        private XlsRow readRow() throws XMLStreamException {
+            String r = reader.getAttributeValue(null, "r");
+            int rowNum = r == null
+                    ? previousRowNum + 1
+                    : Integer.parseInt(r) - 1;
+            previousRowNum = rowNum;
+
+            List<String> values = new ArrayList<>();
+            BitSet numericCells = new BitSet();
+
+            int nextCol = 0;
+            int col = 0;
+            String type = null;
+            String value = null;
+            String inlineText = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (localName(reader)) {
+                        case "c":
+                            String ref = reader.getAttributeValue(null, "r");
+                            int refCol = ref == null ? -1 : toColumnIndex(ref);
+                            col = refCol < 0 ? nextCol : refCol;
+                            type = reader.getAttributeValue(null, "t");
+                            value = null;
+                            inlineText = null;
+                            break;
+                        case "v":
+                            value = reader.getElementText();
+                            break;
+                        case "is":
+                            inlineText = readText(reader, "is");
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = localName(reader);
+                    if (name.equals("c")) {
+                        while (values.size() <= col) {
+                            values.add(null);
+                        }
+                        values.set(col, resolveValue(type, value, inlineText));
+                        if (isNumeric(type) && value != null) {
+                            numericCells.set(col);
+                        }
+                        nextCol = col + 1;
+                    } else if (name.equals("row")) {
+                        break;
+                    }
+                }
+            }
+
+            return new XlsRow(
+                    rowNum,
+                    values.toArray(new String[0]),
+                    numericCells,
+                    date1904);
+        }
+
+
+        private String resolveValue(String type, String value, String inlineText) {
+            if (type == null) {
+                return value == null ? "" : value;
+            }
+            switch (type) {
+                case "s":
+                    return value == null
+                            ? ""
+                            : sharedStrings.get(Integer.parseInt(value));
+                case "inlineStr":
+                    return inlineText == null
+                            ? (value == null ? "" : value)
+                            : inlineText;
+                case "b":
+                    return value == null
+                            ? ""
+                            : ("1".equals(value) ? "TRUE" : "FALSE");
+                default:
+                    // n, str (formula result), e (error), d (iso date)
+                    return value == null ? "" : value;
+            }
+        }
+
+
+        private boolean isNumeric(String type) {
+            return type == null || type.equals("n");
+        }
+
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            openSheets.remove(this);
+            closeQuietly();
+        }
+
+
+        private void closeQuietly() {
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                LOG.debug("Error closing sheet reader", e);
+            }
+            try {
+                sheetStream.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing sheet stream", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * A single row read by the {@link StreamingXlsReader}.  Only the cell values
+ * are kept, formatting and formulas are discarded.
+ *
+ * Cells are addressed by zero based column index (see {@link Columns}).
+ * Cells which are not present in the sheet read as <code>null</code>.
+ */
+public class XlsRow {
+
+    private final int rowNum;
+    private final String[] values;
+    private final BitSet numericCells;
+    private final boolean date1904;
+
+
+    XlsRow(int rowNum, String[] values, BitSet numericCells, boolean date1904) {
+        this.rowNum = rowNum;
+        this.values = values;
+        this.numericCells = numericCells;
+        this.date1904 = date1904;
+    }
+
+
+    /**
+     * @return zero based row number, as in the sheet (empty rows are skipped)
+     */
+    public int rowNum() {
+        return rowNum;
+    }
+
+
+    public int cellCount() {
+        return values.length;
+    }
+
+
+    public boolean hasCell(int col) {
+        return col >= 0
+                && col < values.length
+                && values[col] != null;
+    }
+
+
+    /**
+     * @return the text of the cell, numeric cells are returned as stored
+     * in the sheet (e.g. <code>42</code>, <code>1.5</code>), booleans as
+     * <code>TRUE</code> / <code>FALSE</code>
+     */
+    public String strVal(int col) {
+        return hasCell(col)
+                ? values[col]
+                : null;
+    }
+
+
+    /**
+     * @return the cell interpreted as an excel date, or <code>null</code> if the cell is absent or blank
+     * @throws IllegalStateException if the cell holds text
+     */
+    public Date dateVal(int col) {
+        String value = strVal(col);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (!numericCells.get(col)) {
+            throw new IllegalStateException(String.format(
+                    "Cannot read a date from the text cell at row: %d, col: %d",
+                    rowNum,
+                    col));
+        }
+        return DateUtil.getJavaDate(Double.parseDouble(value), date1904);
+    }
+
+
+    @Override
+    public String toString() {
+        return "XlsRow{" +
+                "rowNum=" + rowNum +
+                ", values=" + Arrays.toString(values) +
+                '}';
+    }
+
+}
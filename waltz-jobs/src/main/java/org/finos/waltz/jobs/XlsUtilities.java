@@ -22,6 +22,7 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
+import java.util.Date;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -37,11 +38,31 @@ public class XlsUtilities {
     }
 
 
+    public static <T> T mapStrCell(XlsRow row, int i, Function<String, T> mapper) {
+        return mapper.apply(strVal(row, i));
+    }
+
+
+    public static String strVal(XlsRow row, int offset) {
+        return row.strVal(offset);
+    }
+
+
+    public static Date dateVal(XlsRow row, int offset) {
+        return row.dateVal(offset);
+    }
+
+
     public static Stream<Row> streamRows(Workbook workbook, SheetNumProvider sheetDefinition) {
         return streamRows(workbook.getSheetAt(sheetDefinition.sheetNum()));
     }
 
 
+    public static Stream<XlsRow> streamRows(StreamingXlsReader reader, SheetNumProvider sheetDefinition) {
+        return reader.streamRows(sheetDefinition);
+    }
+
+
     public static Stream<Row> streamRows(Sheet sheet) {
         Stream.Builder<Row> streamBuilder = Stream.builder();
         sheet.rowIterator()
@@ -18,8 +18,6 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1;
 
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.ListUtilities;
@@ -30,6 +28,7 @@ import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.HierarchyUtilities;
 import org.finos.waltz.common.hierarchy.Node;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.StreamingXlsReader;
 import org.finos.waltz.jobs.WaltzUtilities;
 import org.finos.waltz.jobs.clients.c1.sc1.model.*;
 import org.finos.waltz.model.EntityKind;
@@ -98,27 +97,28 @@ public class XlsImporter {
                 "Cannot find file [%s] on classpath",
                 filename);
 
-        Workbook workbook = new XSSFWorkbook(inputStream);
-
-        Long componentCategoryId = makeComponentCategory();
-
-        removeExistingCategories();
-        makeOrgUnits(workbook);
-        makeApps(workbook);
-        updateAppsWithOrgUnits(workbook);
-        makeDataTypes();
-        makeFlows(workbook);
-        makeDomainTaxonomies(workbook);
-        makeAppToDomainMappings(workbook);
-        makeMeasurableRelationships(workbook);
-        makeComponentTaxonomy(workbook, componentCategoryId);
-        makeAppToComponentMappings(workbook, componentCategoryId);
-        makeProjects(workbook);
-        makeAppToProjectMappings(workbook);
+        try (StreamingXlsReader workbook = StreamingXlsReader.open(inputStream)) {
+
+            Long componentCategoryId = makeComponentCategory();
+
+            removeExistingCategories();
+            makeOrgUnits(workbook);
+            makeApps(workbook);
+            updateAppsWithOrgUnits(workbook);
+            makeDataTypes();
+            makeFlows(workbook);
+            makeDomainTaxonomies(workbook);
+            makeAppToDomainMappings(workbook);
+            makeMeasurableRelationships(workbook);
+            makeComponentTaxonomy(workbook, componentCategoryId);
+            makeAppToComponentMappings(workbook, componentCategoryId);
+            makeProjects(workbook);
+            makeAppToProjectMappings(workbook);
+        }
 
     }
 
-    private int makeAppToProjectMappings(Workbook workbook) {
+    private int makeAppToProjectMappings(StreamingXlsReader workbook) {
         removeAllAppToProjectMappings();
         Map<String, Long> changeExtToIdMap = loadChangeExtToIdMap();
         Map<String, Long> appExtToIdMap = loadAppExtToIdMap();
@@ -147,7 +147,7 @@ public class XlsImporter {
     }
 
 
-    private int makeProjects(Workbook workbook) {
+    private int makeProjects(StreamingXlsReader workbook) {
         removeAllProjects();
         AtomicLong ctr = new AtomicLong(0);
 
@@ -194,7 +194,7 @@ public class XlsImporter {
     }
 
 
-    private int makeAppToDomainMappings(Workbook workbook) {
+    private int makeAppToDomainMappings(StreamingXlsReader workbook) {
         removeRatings();
         Map<String, Long> measurableExtToIdMap = loadMeasurableExtToIdMap();
         Map<String, Long> appObjectIdToIdMap = loadAppObjectIdToIdMap(workbook);
@@ -230,7 +230,7 @@ public class XlsImporter {
      * @param workbook
      * @return
      */
-    private int makeMeasurableRelationships(Workbook workbook) {
+    private int makeMeasurableRelationships(StreamingXlsReader workbook) {
 
         Map<String, Long> measurableExtToIdMap = loadMeasurableExtToIdMap();
         List<EntityRelationshipRecord> records = streamRows(workbook, SheetDefinition.DOMAIN)
@@ -259,7 +259,7 @@ public class XlsImporter {
         return rc.length;
     }
 
-    private void makeDomainTaxonomies(Workbook workbook) {
+    private void makeDomainTaxonomies(StreamingXlsReader workbook) {
         List<DomainRow> domainRows = streamRows(workbook, SheetDefinition.DOMAIN)
                 .skip(1)
                 .map(DomainRow::fromRow)
@@ -312,7 +312,7 @@ public class XlsImporter {
     }
 
 
-    private int updateAppsWithOrgUnits(Workbook workbook) {
+    private int updateAppsWithOrgUnits(StreamingXlsReader workbook) {
         Map<String, Long> appObjectIdToIdMap = loadAppObjectIdToIdMap(workbook);
         Map<String, Long> orgExtToIdMap = loadOrgExtToIdMap();
 
@@ -373,14 +373,14 @@ public class XlsImporter {
                 .execute();
     }
 
-    private void makeFlows(Workbook workbook) {
+    private void makeFlows(StreamingXlsReader workbook) {
         removeFlows();
         Map<String, Long> nameToIdMap = loadAppNameToIdMap(workbook);
 
         Set<FlowRow> flowRows = streamRows(workbook, SheetDefinition.FLOWS)
                 .skip(1)
-                .filter(r -> r.getCell(0) != null)
-                .filter(r -> r.getCell(5) != null)
+                .filter(r -> r.hasCell(0))
+                .filter(r -> r.hasCell(5))
                 .map(FlowRow::fromRow)
                 .collect(Collectors.toSet());
 
@@ -443,7 +443,7 @@ public class XlsImporter {
     }
 
 
-    private void makeAppToComponentMappings(Workbook workbook, Long categoryId) {
+    private void makeAppToComponentMappings(StreamingXlsReader workbook, Long categoryId) {
 
         removeRatings();
 
@@ -490,7 +490,7 @@ public class XlsImporter {
     }
 
 
-    private int makeOrgUnits(Workbook workbook) {
+    private int makeOrgUnits(StreamingXlsReader workbook) {
         final long l1Groups = 10;
         final long l1Offset = 10;
         final long l2Offset = 100L;
@@ -542,7 +542,7 @@ public class XlsImporter {
     }
 
 
-    private void makeComponentTaxonomy(Workbook workbook, Long categoryId) {
+    private void makeComponentTaxonomy(StreamingXlsReader workbook, Long categoryId) {
         int delCount = removeCategory(categoryId);
         log("Components deleted: %d\n", delCount);
 
@@ -558,7 +558,7 @@ public class XlsImporter {
     }
 
 
-    private void makeApps(Workbook workbook) {
+    private void makeApps(StreamingXlsReader workbook) {
 
         removeApps();
 
@@ -596,7 +596,7 @@ public class XlsImporter {
     // --- util ----
 
 
-    private Map<String, Long> loadAppNameToIdMap(Workbook workbook) {
+    private Map<String, Long> loadAppNameToIdMap(StreamingXlsReader workbook) {
         Map<String, String> appNameToExtIdMap = streamRows(workbook, SheetDefinition.APPLICATION)
                 .skip(1)
                 .collect(toMap(
@@ -607,7 +607,7 @@ public class XlsImporter {
     }
 
 
-    private Map<String, Long> loadAppObjectIdToIdMap(Workbook workbook) {
+    private Map<String, Long> loadAppObjectIdToIdMap(StreamingXlsReader workbook) {
         Map<String, String> appObjectIdToExtIdMap = streamRows(workbook, SheetDefinition.APPLICATION)
                 .skip(1)
                 .collect(toMap(
@@ -18,8 +18,8 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.FlagToBoolean;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.StatusToLifecyclePhase;
 import org.finos.waltz.model.Nullable;
@@ -46,7 +46,7 @@ public abstract class ApplicationRow {
     public abstract String endDate();
 
 
-    public static ApplicationRow fromRow(Row row) {
+    public static ApplicationRow fromRow(XlsRow row) {
         return ImmutableApplicationRow
                 .builder()
                 .externalId(strVal(row, Columns.A))
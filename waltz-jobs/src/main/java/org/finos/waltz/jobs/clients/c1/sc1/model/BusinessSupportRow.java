@@ -18,8 +18,8 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.StatusToEntityLifecycleStatus;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.Nullable;
@@ -50,7 +50,7 @@ public abstract class BusinessSupportRow {
     @Nullable
     public abstract String endDate();
 
-    public static BusinessSupportRow fromRow(Row r) {
+    public static BusinessSupportRow fromRow(XlsRow r) {
         /*
             A Business-Support Objekt-ID
             B Business-Support Status
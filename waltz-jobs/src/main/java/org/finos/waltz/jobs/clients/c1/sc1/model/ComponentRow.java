@@ -18,8 +18,8 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.WartungstatusToMaintenanceStatus;
 import org.immutables.value.Value;
 
@@ -60,7 +60,7 @@ public abstract class ComponentRow {
     public abstract String reviewDate();
 
 
-    public static ComponentRow fromRow(Row row) {
+    public static ComponentRow fromRow(XlsRow row) {
         return ImmutableComponentRow.builder()
                 .tier(strVal(row, Columns.F))
                 .layer(strVal(row, Columns.G))
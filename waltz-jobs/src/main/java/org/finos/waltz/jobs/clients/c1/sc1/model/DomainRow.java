@@ -18,10 +18,10 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.model.Nullable;
 import org.immutables.value.Value;
 
@@ -55,7 +55,7 @@ public abstract class DomainRow {
     }
 
 
-    public static DomainRow fromRow(Row row) {
+    public static DomainRow fromRow(XlsRow row) {
         return ImmutableDomainRow
                 .builder()
                 .domainObjectId(strVal(row, Columns.A))
@@ -18,8 +18,8 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.StatusToEntityLifecycleStatus;
 import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.Nullable;
@@ -43,7 +43,7 @@ public abstract class FlowRow {
     public abstract String endDate();
 
 
-    public static FlowRow fromRow(Row row) {
+    public static FlowRow fromRow(XlsRow row) {
         ImmutableFlowRow flowRow = ImmutableFlowRow
                 .builder()
                 .sourceAppName(strVal(row, Columns.A))
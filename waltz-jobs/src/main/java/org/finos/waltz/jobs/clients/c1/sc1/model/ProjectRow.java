@@ -18,8 +18,8 @@
 
 package org.finos.waltz.jobs.clients.c1.sc1.model;
 
-import org.apache.poi.ss.usermodel.Row;
 import org.finos.waltz.jobs.Columns;
+import org.finos.waltz.jobs.XlsRow;
 import org.finos.waltz.jobs.clients.c1.sc1.parse.StatusToLifecyclePhase;
 import org.finos.waltz.model.Nullable;
 import org.finos.waltz.model.application.LifecyclePhase;
@@ -27,6 +27,7 @@ import org.immutables.value.Value;
 
 import java.util.Date;
 
+import static org.finos.waltz.jobs.XlsUtilities.dateVal;
 import static org.finos.waltz.jobs.XlsUtilities.mapStrCell;
 import static org.finos.waltz.jobs.XlsUtilities.strVal;
 
@@ -46,7 +47,7 @@ public abstract class ProjectRow {
     public abstract Date endDate();
 
 
-    public static ProjectRow fromRow(Row row) {
+    public static ProjectRow fromRow(XlsRow row) {
         /**
          *
          * A - Anwendungs-ID
@@ -59,8 +60,8 @@ public abstract class ProjectRow {
            H - Projekt Startdatum
            I - Projekt Enddatum
          */
-        Date startDate = row.getCell(Columns.H).getDateCellValue();
-        Date endDate = row.getCell(Columns.I).getDateCellValue();
+        Date startDate = dateVal(row, Columns.H);
+        Date endDate = dateVal(row, Columns.I);
         return ImmutableProjectRow
                 .builder()
                 .applicationId(strVal(row, Columns.A))
@@ -0,0 +1,168 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scale;
+
+import org.jooq.DSLContext;
+import org.jooq.TableRecord;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Generates and inserts records in parallel chunks.
+ * <p>
+ * The work is described as a range of 'units' (e.g. applications, flows) which
+ * is split into fixed size chunks.  Each chunk is generated and written on a
+ * worker thread in its own transaction using a jdbc batch insert.  Every chunk
+ * gets its own {@link Random} derived from the profile seed, the table name and
+ * the chunk index, so the generated data does not depend on thread scheduling.
+ */
+public class ParallelBatchLoader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelBatchLoader.class);
+
+    @FunctionalInterface
+    public interface ChunkGenerator<R extends TableRecord<R>> {
+        /**
+         * @param fromUnit  first unit in the chunk (inclusive)
+         * @param toUnit  last unit in the chunk (exclusive)
+         * @param rnd  random source dedicated to this chunk
+         * @return  records to insert for the units in the chunk
+         */
+        List<R> generate(int fromUnit, int toUnit, Random rnd);
+    }
+
+    private final DSLContext dsl;
+    private final long seed;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+
+    public ParallelBatchLoader(DSLContext dsl, long seed, int batchSize, int parallelism) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+        checkTrue(parallelism > 0, "parallelism must be positive");
+
+        this.dsl = dsl;
+        this.seed = seed;
+        this.batchSize = batchSize;
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "scale-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+
+    /**
+     * Loads all the records produced by the generator for units
+     * <code>0 .. unitCount</code>, blocking until complete.
+     *
+     * @return the number of records inserted
+     */
+    public <R extends TableRecord<R>> long load(String name,
+                                                int unitCount,
+                                                int unitsPerChunk,
+                                                ChunkGenerator<R> generator) {
+        checkTrue(unitsPerChunk > 0, "unitsPerChunk must be positive");
+
+        long start = System.currentTimeMillis();
+        AtomicLong inserted = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+
+        int chunkIdx = 0;
+        for (int from = 0; from < unitCount; from += unitsPerChunk) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(unitCount, from + unitsPerChunk);
+            Random rnd = new Random(seed * 31 + name.hashCode() * 17L + chunkIdx++);
+
+            futures.add(executor.submit(() -> {
+                List<R> records = generator.generate(chunkFrom, chunkTo, rnd);
+                write(records);
+                inserted.addAndGet(records.size());
+            }));
+        }
+
+        await(name, futures);
+
+        long duration = Math.max(1, System.currentTimeMillis() - start);
+        LOG.info("[{}] inserted {} rows in {}ms ({} rows/sec)",
+                name,
+                inserted.get(),
+                duration,
+                inserted.get() * 1000 / duration);
+
+        return inserted.get();
+    }
+
+
+    /**
+     * Writes the given records in batches of <code>batchSize</code> on the calling thread.
+     */
+    public <R extends TableRecord<R>> void write(List<R> records) {
+        for (int i = 0; i < records.size(); i += batchSize) {
+            List<R> batch = records.subList(i, Math.min(records.size(), i + batchSize));
+            dsl.transaction(ctx -> DSL
+                    .using(ctx)
+                    .batchInsert(batch)
+                    .execute());
+        }
+    }
+
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static void await(String name, List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted whilst loading " + name, e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Failed to load " + name, e.getCause());
+        }
+    }
+
+}
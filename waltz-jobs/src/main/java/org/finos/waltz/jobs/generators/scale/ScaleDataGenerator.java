@@ -0,0 +1,592 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scale;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.jobs.WaltzUtilities;
+import org.finos.waltz.model.Criticality;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.person.PersonKind;
+import org.finos.waltz.model.rating.RagRating;
+import org.finos.waltz.schema.tables.Measurable;
+import org.finos.waltz.schema.tables.records.ApplicationRecord;
+import org.finos.waltz.schema.tables.records.DataTypeRecord;
+import org.finos.waltz.schema.tables.records.LogicalFlowDecoratorRecord;
+import org.finos.waltz.schema.tables.records.LogicalFlowRecord;
+import org.finos.waltz.schema.tables.records.MeasurableRatingRecord;
+import org.finos.waltz.schema.tables.records.MeasurableRecord;
+import org.finos.waltz.schema.tables.records.OrganisationalUnitRecord;
+import org.finos.waltz.schema.tables.records.PersonRecord;
+import org.finos.waltz.service.DIConfiguration;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW_DECORATOR;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.MEASURABLE_CATEGORY;
+import static org.finos.waltz.schema.Tables.MEASURABLE_RATING;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.jooq.impl.DSL.max;
+import static org.jooq.impl.DSL.select;
+
+/**
+ * Generates a synthetic estate, sized by a {@link ScaleProfile}, for reproducing
+ * scaling problems and benchmarking fixes locally.
+ * <p>
+ * Unlike the sample data generators used by <code>LoadAll</code>, which insert
+ * demo sized data largely row by row, this generator splits each table into
+ * chunks which are generated and batch inserted concurrently (see
+ * {@link ParallelBatchLoader}).  All data is derived from the profile seed so
+ * repeated runs produce the same estate (database assigned ids may differ).
+ * <p>
+ * The target database is whichever is configured in <code>waltz.properties</code>,
+ * H2 and Postgres are both supported.  For Postgres adding
+ * <code>reWriteBatchedInserts=true</code> to the jdbc url lets the driver turn
+ * each batch into multi-row inserts, which is considerably faster.
+ * <p>
+ * Usage:
+ * <pre>
+ *     java -Dwaltz.scale.preset=production -Dwaltz.scale.parallelism=8 ... ScaleDataGenerator
+ * </pre>
+ *
+ * Previously generated data (identified by provenance / the <code>SCALE</code>
+ * prefix) is removed before generation.  Pass <code>remove</code> as the only
+ * argument to just remove it.
+ */
+public class ScaleDataGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScaleDataGenerator.class);
+
+    public static final String PROVENANCE = "waltz-scale";
+
+    private static final String PREFIX = "SCALE";
+    private static final String USER = "admin";
+
+    private static final List<String> WORDS = asList(
+            "Payments", "Ledger", "Trade", "Risk", "Client", "Onboarding", "Reference", "Pricing",
+            "Settlement", "Market", "Order", "Router", "Gateway", "Reporting", "Regulatory", "Hub",
+            "Engine", "Store", "Archive", "Portal", "Service", "Batch", "Stream", "Collateral");
+
+    private final DSLContext dsl;
+    private final EntityHierarchyService entityHierarchyService;
+    private final PersonHierarchyService personHierarchyService;
+    private final ScaleProfile profile;
+    private final Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+
+
+    public ScaleDataGenerator(DSLContext dsl,
+                              EntityHierarchyService entityHierarchyService,
+                              PersonHierarchyService personHierarchyService,
+                              ScaleProfile profile) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(entityHierarchyService, "entityHierarchyService cannot be null");
+        checkNotNull(personHierarchyService, "personHierarchyService cannot be null");
+        checkNotNull(profile, "profile cannot be null");
+
+        this.dsl = dsl;
+        this.entityHierarchyService = entityHierarchyService;
+        this.personHierarchyService = personHierarchyService;
+        this.profile = profile;
+    }
+
+
+    public static void main(String[] args) {
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
+
+        ScaleDataGenerator generator = new ScaleDataGenerator(
+                ctx.getBean(DSLContext.class),
+                ctx.getBean(EntityHierarchyService.class),
+                ctx.getBean(PersonHierarchyService.class),
+                ScaleProfile.fromProperties(System.getProperties()));
+
+        if (args.length > 0 && "remove".equalsIgnoreCase(args[0])) {
+            generator.remove();
+            generator.rebuildHierarchies();
+        } else {
+            generator.generate();
+        }
+    }
+
+
+    public void generate() {
+        LOG.info("Generating estate with profile: {}", profile);
+        long start = System.currentTimeMillis();
+
+        remove();
+
+        try (ParallelBatchLoader loader = new ParallelBatchLoader(
+                dsl,
+                profile.seed(),
+                profile.batchSize(),
+                profile.parallelism())) {
+
+            List<Long> leafOrgUnitIds = createOrgUnits(loader);
+            List<Long> dataTypeIds = createDataTypes(loader);
+            List<Long> measurableIds = createMeasurables(loader);
+            createPeople(loader, leafOrgUnitIds);
+            List<Long> appIds = createApps(loader, leafOrgUnitIds);
+            List<Long> flowIds = createFlows(loader, appIds);
+            createDecorators(loader, flowIds, dataTypeIds);
+            createRatings(loader, appIds, measurableIds);
+        }
+
+        rebuildHierarchies();
+
+        LOG.info("Generated estate in {}ms", System.currentTimeMillis() - start);
+    }
+
+
+    public void remove() {
+        LOG.info("Removing previously generated data");
+
+        dsl.deleteFrom(LOGICAL_FLOW_DECORATOR)
+                .where(LOGICAL_FLOW_DECORATOR.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(MEASURABLE_RATING)
+                .where(MEASURABLE_RATING.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(MEASURABLE)
+                .where(MEASURABLE.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(APPLICATION)
+                .where(APPLICATION.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(PERSON)
+                .where(PERSON.EMPLOYEE_ID.startsWith(PREFIX.toLowerCase() + "-"))
+                .execute();
+
+        dsl.deleteFrom(ORGANISATIONAL_UNIT)
+                .where(ORGANISATIONAL_UNIT.PROVENANCE.eq(PROVENANCE))
+                .execute();
+
+        dsl.deleteFrom(DATA_TYPE)
+                .where(DATA_TYPE.CODE.startsWith(PREFIX + "_"))
+                .execute();
+    }
+
+
+    public void rebuildHierarchies() {
+        LOG.info("Rebuilding hierarchies");
+        entityHierarchyService.buildFor(EntityKind.ORG_UNIT);
+        entityHierarchyService.buildFor(EntityKind.DATA_TYPE);
+        findScaleCategoryIds().forEach(entityHierarchyService::buildForMeasurableByCategory);
+        personHierarchyService.build();
+    }
+
+
+    // --- org units and data types (explicitly assigned ids)
+
+    private List<Long> createOrgUnits(ParallelBatchLoader loader) {
+        long baseId = nextId(dsl.select(max(ORGANISATIONAL_UNIT.ID)).from(ORGANISATIONAL_UNIT).fetchOne().value1());
+        Tree tree = new Tree(profile.orgUnitDepth(), profile.orgUnitFanOut());
+
+        loader.load("organisational_unit", tree.size(), profile.batchSize(), (from, to, rnd) -> {
+            List<OrganisationalUnitRecord> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                OrganisationalUnitRecord record = new OrganisationalUnitRecord();
+                record.setId(baseId + i);
+                record.setParentId(tree.isRoot(i) ? null : baseId + tree.parentOf(i));
+                record.setName(mkName(rnd, "Division", i));
+                record.setDescription("Generated org unit " + i);
+                record.setExternalId(PREFIX + "_OU_" + i);
+                record.setProvenance(PROVENANCE);
+                record.setLastUpdatedAt(now);
+                records.add(record);
+            }
+            return records;
+        });
+
+        return tree.leaves()
+                .mapToObj(i -> baseId + i)
+                .collect(toList());
+    }
+
+
+    private List<Long> createDataTypes(ParallelBatchLoader loader) {
+        long baseId = nextId(dsl.select(max(DATA_TYPE.ID)).from(DATA_TYPE).fetchOne().value1());
+        Tree tree = new Tree(profile.dataTypeDepth(), profile.dataTypeFanOut());
+
+        loader.load("data_type", tree.size(), profile.batchSize(), (from, to, rnd) -> {
+            List<DataTypeRecord> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                DataTypeRecord record = new DataTypeRecord();
+                record.setId(baseId + i);
+                record.setParentId(tree.isRoot(i) ? null : baseId + tree.parentOf(i));
+                record.setCode(PREFIX + "_" + i);
+                record.setName(mkName(rnd, "Data", i));
+                record.setDescription("Generated data type " + i);
+                record.setConcrete(tree.isLeaf(i));
+                records.add(record);
+            }
+            return records;
+        });
+
+        return tree.leaves()
+                .mapToObj(i -> baseId + i)
+                .collect(toList());
+    }
+
+
+    // --- measurables (database assigned ids, parents resolved via external ids)
+
+    private List<Long> createMeasurables(ParallelBatchLoader loader) {
+        Tree tree = new Tree(profile.measurableDepth(), profile.measurableFanOut());
+        List<Long> allIds = new ArrayList<>();
+
+        for (int c = 0; c < profile.measurableCategoryCount(); c++) {
+            String categoryExtId = PREFIX + "_" + c;
+            long categoryId = WaltzUtilities.getOrCreateMeasurableCategory(dsl, categoryExtId, "Scale Taxonomy " + c);
+
+            loader.load("measurable_" + c, tree.size(), profile.batchSize(), (from, to, rnd) -> {
+                List<MeasurableRecord> records = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    MeasurableRecord record = new MeasurableRecord();
+                    record.setMeasurableCategoryId(categoryId);
+                    record.setExternalId(categoryExtId + "_" + i);
+                    record.setExternalParentId(tree.isRoot(i) ? null : categoryExtId + "_" + tree.parentOf(i));
+                    record.setName(mkName(rnd, "Capability", i));
+                    record.setDescription("Generated measurable " + i);
+                    record.setConcrete(true);
+                    record.setLastUpdatedAt(now);
+                    record.setLastUpdatedBy(USER);
+                    record.setProvenance(PROVENANCE);
+                    records.add(record);
+                }
+                return records;
+            });
+
+            linkMeasurableParents(categoryId);
+
+            allIds.addAll(dsl
+                    .select(MEASURABLE.ID)
+                    .from(MEASURABLE)
+                    .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))
+                    .and(MEASURABLE.PROVENANCE.eq(PROVENANCE))
+                    .orderBy(MEASURABLE.EXTERNAL_ID)
+                    .fetch(MEASURABLE.ID));
+        }
+
+        return allIds;
+    }
+
+
+    private void linkMeasurableParents(long categoryId) {
+        Measurable parent = MEASURABLE.as("p");
+
+        int updated = dsl
+                .update(MEASURABLE)
+                .set(MEASURABLE.PARENT_ID, select(parent.ID)
+                        .from(parent)
+                        .where(parent.MEASURABLE_CATEGORY_ID.eq(categoryId))
+                        .and(parent.EXTERNAL_ID.eq(MEASURABLE.EXTERNAL_PARENT_ID)))
+                .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))
+                .and(MEASURABLE.EXTERNAL_PARENT_ID.isNotNull())
+                .execute();
+
+        LOG.info("Linked {} measurables to their parents in category {}", updated, categoryId);
+    }
+
+
+    // --- people and applications
+
+    private void createPeople(ParallelBatchLoader loader, List<Long> orgUnitIds) {
+        int fanOut = profile.personFanOut();
+
+        loader.load("person", profile.personCount(), profile.batchSize(), (from, to, rnd) -> {
+            List<PersonRecord> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                String employeeId = mkEmployeeId(i);
+                String name = pick(rnd, WORDS) + " " + pick(rnd, WORDS) + " " + i;
+                PersonRecord record = new PersonRecord();
+                record.setEmployeeId(employeeId);
+                record.setManagerEmployeeId(i == 0 ? "" : mkEmployeeId((i - 1) / fanOut));
+                record.setDisplayName(name);
+                record.setEmail(employeeId + "@example.com");
+                record.setUserPrincipalName(employeeId);
+                record.setKind(PersonKind.EMPLOYEE.name());
+                record.setTitle(pick(rnd, asList("Analyst", "Developer", "Manager", "Director")));
+                record.setDepartmentName(pick(rnd, WORDS));
+                record.setOfficePhone("");
+                record.setMobilePhone("");
+                record.setOrganisationalUnitId(pick(rnd, orgUnitIds));
+                record.setIsRemoved(false);
+                records.add(record);
+            }
+            return records;
+        });
+    }
+
+
+    private List<Long> createApps(ParallelBatchLoader loader, List<Long> orgUnitIds) {
+        List<LifecyclePhase> phases = asList(LifecyclePhase.values());
+        List<ApplicationKind> kinds = asList(ApplicationKind.values());
+        List<Criticality> criticalities = asList(Criticality.values());
+        List<RagRating> ratings = asList(RagRating.R, RagRating.A, RagRating.G);
+
+        loader.load("application", profile.appCount(), profile.batchSize(), (from, to, rnd) -> {
+            List<ApplicationRecord> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ApplicationRecord record = new ApplicationRecord();
+                record.setName(mkName(rnd, "App", i));
+                record.setDescription("Generated application " + i);
+                record.setAssetCode(mkAssetCode(i));
+                record.setParentAssetCode("");
+                record.setOrganisationalUnitId(pick(rnd, orgUnitIds));
+                record.setKind(pick(rnd, kinds).name());
+                record.setLifecyclePhase(rnd.nextInt(10) > 7
+                        ? pick(rnd, phases).name()
+                        : LifecyclePhase.PRODUCTION.name());
+                record.setOverallRating(pick(rnd, ratings).name());
+                record.setBusinessCriticality(pick(rnd, criticalities).name());
+                record.setEntityLifecycleStatus(EntityLifecycleStatus.ACTIVE.name());
+                record.setUpdatedAt(now);
+                record.setProvenance(PROVENANCE);
+                record.setIsRemoved(false);
+                records.add(record);
+            }
+            return records;
+        });
+
+        return dsl
+                .select(APPLICATION.ID)
+                .from(APPLICATION)
+                .where(APPLICATION.PROVENANCE.eq(PROVENANCE))
+                .orderBy(APPLICATION.ASSET_CODE)
+                .fetch(APPLICATION.ID);
+    }
+
+
+    // --- flows, decorators and ratings
+
+    /**
+     * Flows are generated per source application.  The number of outbound flows
+     * per app is skewed so that a small number of apps act as hubs, as is typical
+     * in real estates.
+     */
+    private List<Long> createFlows(ParallelBatchLoader loader, List<Long> appIds) {
+        int appCount = appIds.size();
+        if (appCount < 2) {
+            // a flow needs distinct source and target apps, without them target selection would never finish
+            LOG.warn("Not generating flows, need at least 2 applications but found {}", appCount);
+            return Collections.emptyList();
+        }
+
+        int[] outDegrees = mkOutDegrees(appCount, profile.flowCount());
+        int avgPerApp = Math.max(1, profile.flowCount() / appCount);
+
+        loader.load("logical_flow", appCount, Math.max(1, profile.batchSize() / avgPerApp), (from, to, rnd) -> {
+            List<LogicalFlowRecord> records = new ArrayList<>();
+            for (int source = from; source < to; source++) {
+                Set<Integer> targets = new LinkedHashSet<>();
+                while (targets.size() < outDegrees[source]) {
+                    int target = rnd.nextInt(appCount);
+                    if (target != source) {
+                        targets.add(target);
+                    }
+                }
+                for (Integer target : targets) {
+                    records.add(WaltzUtilities.mkLogicalFlowRecord(
+                            appIds.get(source),
+                            appIds.get(target),
+                            PROVENANCE));
+                }
+            }
+            return records;
+        });
+
+        return fetchFlowIdsInGenerationOrder(appIds);
+    }
+
+
+    private void createDecorators(ParallelBatchLoader loader, List<Long> flowIds, List<Long> dataTypeIds) {
+        int avg = profile.decoratorsPerFlow();
+        int maxPerFlow = Math.min(dataTypeIds.size(), Math.max(1, avg * 2 - 1));
+
+        loader.load("logical_flow_decorator", flowIds.size(), Math.max(1, profile.batchSize() / avg), (from, to, rnd) -> {
+            List<LogicalFlowDecoratorRecord> records = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Set<Long> dtIds = new LinkedHashSet<>();
+                int howMany = 1 + rnd.nextInt(maxPerFlow);
+                while (dtIds.size() < howMany) {
+                    dtIds.add(pick(rnd, dataTypeIds));
+                }
+                for (Long dtId : dtIds) {
+                    records.add(WaltzUtilities.mkLogicalFlowDecoratorRecord(flowIds.get(i), dtId, PROVENANCE));
+                }
+            }
+            return records;
+        });
+    }
+
+
+    private void createRatings(ParallelBatchLoader loader, List<Long> appIds, List<Long> measurableIds) {
+        if (measurableIds.isEmpty()) {
+            return;
+        }
+        int avg = profile.ratingsPerApp();
+        int maxPerApp = Math.min(measurableIds.size(), avg * 2);
+        List<String> ratings = asList("R", "A", "G");
+
+        loader.load("measurable_rating", appIds.size(), Math.max(1, profile.batchSize() / Math.max(1, avg)), (from, to, rnd) -> {
+            List<MeasurableRatingRecord> records = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Set<Long> mIds = new LinkedHashSet<>();
+                int howMany = rnd.nextInt(maxPerApp + 1);
+                while (mIds.size() < howMany) {
+                    mIds.add(pick(rnd, measurableIds));
+                }
+                for (Long mId : mIds) {
+                    MeasurableRatingRecord record = new MeasurableRatingRecord();
+                    record.setEntityId(appIds.get(i));
+                    record.setEntityKind(EntityKind.APPLICATION.name());
+                    record.setMeasurableId(mId);
+                    record.setRating(pick(rnd, ratings));
+                    record.setLastUpdatedAt(now);
+                    record.setLastUpdatedBy(USER);
+                    record.setProvenance(PROVENANCE);
+                    records.add(record);
+                }
+            }
+            return records;
+        });
+    }
+
+
+    // --- helpers
+
+    /**
+     * Draws a skewed weight per app and scales the weights so they sum to
+     * (roughly) the requested number of flows.  An app cannot have more than
+     * half the estate as targets.
+     */
+    private int[] mkOutDegrees(int appCount, int flowCount) {
+        Random rnd = new Random(profile.seed());
+        double[] weights = new double[appCount];
+        double total = 0;
+        for (int i = 0; i < appCount; i++) {
+            weights[i] = Math.pow(rnd.nextDouble(), 3);
+            total += weights[i];
+        }
+
+        int cap = Math.max(1, appCount / 2);
+        int[] degrees = new int[appCount];
+        for (int i = 0; i < appCount; i++) {
+            degrees[i] = (int) Math.min(cap, Math.round(weights[i] / total * flowCount));
+        }
+        return degrees;
+    }
+
+
+    /**
+     * Flow ids are database assigned (and so depend on insert order), ordering
+     * by the position of the source and target apps gives a stable order for
+     * the decorators to be assigned against.
+     */
+    private List<Long> fetchFlowIdsInGenerationOrder(List<Long> appIds) {
+        Map<Long, Integer> positionByAppId = new HashMap<>(appIds.size());
+        for (int i = 0; i < appIds.size(); i++) {
+            positionByAppId.put(appIds.get(i), i);
+        }
+
+        Comparator<Record3<Long, Long, Long>> byPosition = Comparator
+                .<Record3<Long, Long, Long>>comparingInt(r -> positionByAppId.get(r.value2()))
+                .thenComparingInt(r -> positionByAppId.get(r.value3()));
+
+        return dsl
+                .select(LOGICAL_FLOW.ID, LOGICAL_FLOW.SOURCE_ENTITY_ID, LOGICAL_FLOW.TARGET_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.PROVENANCE.eq(PROVENANCE))
+                .fetch()
+                .stream()
+                .sorted(byPosition)
+                .map(Record3::value1)
+                .collect(toList());
+    }
+
+
+    private List<Long> findScaleCategoryIds() {
+        return dsl
+                .select(MEASURABLE_CATEGORY.ID)
+                .from(MEASURABLE_CATEGORY)
+                .where(MEASURABLE_CATEGORY.EXTERNAL_ID.startsWith(PREFIX + "_"))
+                .fetch(MEASURABLE_CATEGORY.ID);
+    }
+
+
+    private static long nextId(Long currentMax) {
+        return currentMax == null
+                ? 1
+                : currentMax + 1;
+    }
+
+
+    private static String mkEmployeeId(int i) {
+        return String.format("%s-%07d", PREFIX.toLowerCase(), i);
+    }
+
+
+    private static String mkAssetCode(int i) {
+        return String.format("%s-%07d", PREFIX, i);
+    }
+
+
+    private static String mkName(Random rnd, String suffix, int i) {
+        return pick(rnd, WORDS) + " " + suffix + " " + i;
+    }
+
+
+    private static <T> T pick(Random rnd, List<T> xs) {
+        return xs.get(rnd.nextInt(xs.size()));
+    }
+
+}
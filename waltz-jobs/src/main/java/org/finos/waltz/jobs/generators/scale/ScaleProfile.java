@@ -0,0 +1,230 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scale;
+
+import org.immutables.value.Value;
+
+import java.util.Properties;
+
+/**
+ * Describes the size and shape of the estate produced by the {@link ScaleDataGenerator}.
+ * <p>
+ * Hierarchies (org units, data types and measurables) are described by a depth
+ * and fan-out, so a depth of 5 with a fan-out of 6 gives 6 + 36 + ... + 7776
+ * (~9.3K) nodes.
+ * <p>
+ * Any value may be overridden via a system property named after the attribute
+ * with a <code>waltz.scale.</code> prefix, e.g. <code>-Dwaltz.scale.appCount=20000</code>.
+ */
+@Value.Immutable
+public abstract class ScaleProfile {
+
+    public static final String PROPERTY_PREFIX = "waltz.scale.";
+
+
+    @Value.Default
+    public long seed() {
+        return 1234L;
+    }
+
+    @Value.Default
+    public int orgUnitDepth() {
+        return 3;
+    }
+
+    @Value.Default
+    public int orgUnitFanOut() {
+        return 4;
+    }
+
+    @Value.Default
+    public int dataTypeDepth() {
+        return 3;
+    }
+
+    @Value.Default
+    public int dataTypeFanOut() {
+        return 4;
+    }
+
+    @Value.Default
+    public int measurableCategoryCount() {
+        return 2;
+    }
+
+    @Value.Default
+    public int measurableDepth() {
+        return 3;
+    }
+
+    @Value.Default
+    public int measurableFanOut() {
+        return 5;
+    }
+
+    @Value.Default
+    public int personCount() {
+        return 1_000;
+    }
+
+    /**
+     * Number of direct reports each (non leaf) manager has.
+     */
+    @Value.Default
+    public int personFanOut() {
+        return 8;
+    }
+
+    @Value.Default
+    public int appCount() {
+        return 500;
+    }
+
+    @Value.Default
+    public int flowCount() {
+        return 2_000;
+    }
+
+    /**
+     * Average number of data types associated to each logical flow.
+     */
+    @Value.Default
+    public int decoratorsPerFlow() {
+        return 3;
+    }
+
+    /**
+     * Average number of measurable ratings per application.
+     */
+    @Value.Default
+    public int ratingsPerApp() {
+        return 5;
+    }
+
+    /**
+     * Number of rows sent to the database in a single jdbc batch / transaction.
+     */
+    @Value.Default
+    public int batchSize() {
+        return 5_000;
+    }
+
+    /**
+     * Number of batches which may be generated and written concurrently.
+     */
+    @Value.Default
+    public int parallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+
+    /**
+     * A small estate, similar in size to the demo data produced by <code>LoadAll</code>.
+     */
+    public static ScaleProfile small() {
+        return ImmutableScaleProfile.builder().build();
+    }
+
+
+    /**
+     * An estate comparable to a large production deployment:
+     * ~50K apps, ~1M logical flows, ~5M flow decorators, ~250K people and
+     * measurable taxonomies with ~56K nodes each.
+     */
+    public static ScaleProfile production() {
+        return ImmutableScaleProfile
+                .builder()
+                .orgUnitDepth(5)
+                .orgUnitFanOut(5)
+                .dataTypeDepth(4)
+                .dataTypeFanOut(6)
+                .measurableCategoryCount(4)
+                .measurableDepth(6)
+                .measurableFanOut(6)
+                .personCount(250_000)
+                .appCount(50_000)
+                .flowCount(1_000_000)
+                .decoratorsPerFlow(5)
+                .ratingsPerApp(20)
+                .build();
+    }
+
+
+    /**
+     * Starts from the named preset (<code>small</code> or <code>production</code>)
+     * and applies any <code>waltz.scale.*</code> overrides found in the given properties.
+     */
+    public static ScaleProfile fromProperties(Properties props) {
+        String preset = props.getProperty(PROPERTY_PREFIX + "preset", "small");
+        ScaleProfile base = "production".equalsIgnoreCase(preset)
+                ? production()
+                : small();
+
+        return ImmutableScaleProfile
+                .builder()
+                .seed(longProp(props, "seed", base.seed()))
+                .orgUnitDepth(intProp(props, "orgUnitDepth", base.orgUnitDepth()))
+                .orgUnitFanOut(intProp(props, "orgUnitFanOut", base.orgUnitFanOut()))
+                .dataTypeDepth(intProp(props, "dataTypeDepth", base.dataTypeDepth()))
+                .dataTypeFanOut(intProp(props, "dataTypeFanOut", base.dataTypeFanOut()))
+                .measurableCategoryCount(intProp(props, "measurableCategoryCount", base.measurableCategoryCount()))
+                .measurableDepth(intProp(props, "measurableDepth", base.measurableDepth()))
+                .measurableFanOut(intProp(props, "measurableFanOut", base.measurableFanOut()))
+                .personCount(intProp(props, "personCount", base.personCount()))
+                .personFanOut(intProp(props, "personFanOut", base.personFanOut()))
+                .appCount(intProp(props, "appCount", base.appCount()))
+                .flowCount(intProp(props, "flowCount", base.flowCount()))
+                .decoratorsPerFlow(intProp(props, "decoratorsPerFlow", base.decoratorsPerFlow()))
+                .ratingsPerApp(intProp(props, "ratingsPerApp", base.ratingsPerApp()))
+                .batchSize(intProp(props, "batchSize", base.batchSize()))
+                .parallelism(intProp(props, "parallelism", base.parallelism()))
+                .build();
+    }
+
+
+    @Value.Check
+    protected void check() {
+        if (appCount() < 2) {
+            throw new IllegalStateException("appCount must be at least 2");
+        }
+        if (batchSize() < 1 || parallelism() < 1) {
+            throw new IllegalStateException("batchSize and parallelism must be positive");
+        }
+        if (orgUnitDepth() < 1 || dataTypeDepth() < 1 || measurableDepth() < 1) {
+            throw new IllegalStateException("hierarchy depths must be positive");
+        }
+    }
+
+
+    private static int intProp(Properties props, String name, int dflt) {
+        String value = props.getProperty(PROPERTY_PREFIX + name);
+        return value == null
+                ? dflt
+                : Integer.parseInt(value.replace("_", ""));
+    }
+
+
+    private static long longProp(Properties props, String name, long dflt) {
+        String value = props.getProperty(PROPERTY_PREFIX + name);
+        return value == null
+                ? dflt
+                : Long.parseLong(value.replace("_", ""));
+    }
+
+}
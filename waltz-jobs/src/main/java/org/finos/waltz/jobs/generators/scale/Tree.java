@@ -0,0 +1,79 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.generators.scale;
+
+import java.util.stream.IntStream;
+
+/**
+ * A complete forest with <code>fanOut</code> roots, where every node above the
+ * bottom level has <code>fanOut</code> children.  Nodes are numbered breadth
+ * first so parent/child relationships can be computed rather than looked up,
+ * which lets large hierarchies be generated in independent chunks.
+ */
+class Tree {
+
+    private final int fanOut;
+    private final int size;
+    private final int firstLeaf;
+
+
+    Tree(int depth, int fanOut) {
+        this.fanOut = fanOut;
+
+        long total = 0;
+        long levelSize = 1;
+        for (int level = 1; level <= depth; level++) {
+            levelSize *= fanOut;
+            total += levelSize;
+        }
+
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tree too large, depth: " + depth + ", fanOut: " + fanOut);
+        }
+
+        this.size = (int) total;
+        this.firstLeaf = (int) (total - levelSize);
+    }
+
+
+    int size() {
+        return size;
+    }
+
+
+    boolean isRoot(int node) {
+        return node < fanOut;
+    }
+
+
+    boolean isLeaf(int node) {
+        return node >= firstLeaf;
+    }
+
+
+    int parentOf(int node) {
+        return node / fanOut - 1;
+    }
+
+
+    IntStream leaves() {
+        return IntStream.range(firstLeaf, size);
+    }
+
+}
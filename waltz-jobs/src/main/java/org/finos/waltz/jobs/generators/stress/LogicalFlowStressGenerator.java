@@ -44,8 +44,8 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
 
 /**
  * This generator app creates lots of flows for a given application id.
- * The application is specified via the `appId` variable and the number
- * of flows to generate is specified via the `HOW_MANY_FLOWS` constant.
+ * The application is specified via the `waltz.stress.appId` system property
+ * and the number of flows to generate via `waltz.stress.flowCount`.
  *
  * Generated flows alternate between inbound and outbound flows and
  * connect to any active application.
@@ -53,11 +53,14 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
  * Flows are randomly assigned between some data types, the number of
  * data types to assign is bounded by the `MAX_DATA_TYPES_PER_FLOW`
  * constant.
+ *
+ * For generating a whole estate at scale see `ScaleDataGenerator`.
  */
 public class LogicalFlowStressGenerator {
 
     private static final String PROVENANCE = "stress";
-    private static final int HOW_MANY_FLOWS = 100;
+    private static final long DEFAULT_APP_ID = 655L;
+    private static final int DEFAULT_FLOW_COUNT = 100;
     private static final int MAX_DATA_TYPES_PER_FLOW = 4;
 
     private final AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
@@ -65,8 +68,8 @@ public class LogicalFlowStressGenerator {
     private final DataTypeDao dtDao = ctx.getBean(DataTypeDao.class);
     private final LogicalFlowDao lfDao = ctx.getBean(LogicalFlowDao.class);
 
-
-    private final long appId = 655L;
+    private final long appId = Long.getLong("waltz.stress.appId", DEFAULT_APP_ID);
+    private final int howManyFlows = Integer.getInteger("waltz.stress.flowCount", DEFAULT_FLOW_COUNT);
 
     public static void main(String[] args) {
         new LogicalFlowStressGenerator().go();
@@ -112,7 +115,7 @@ public class LogicalFlowStressGenerator {
                 .map(lf -> tuple(lf.source().id(), lf.target().id()))
                 .collect(toSet());
 
-        Set<LogicalFlowRecord> flows = randomPick(appIds, HOW_MANY_FLOWS)
+        Set<LogicalFlowRecord> flows = randomPick(appIds, howManyFlows)
                 .stream()
                 .filter(cId -> cId != appId) // don't create self flows
                 .map(cId -> cId % 2 == 0
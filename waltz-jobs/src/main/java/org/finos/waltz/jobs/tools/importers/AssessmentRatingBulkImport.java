@@ -1,9 +1,7 @@
 package org.finos.waltz.jobs.tools.importers;
 
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.finos.waltz.common.*;
+import org.finos.waltz.jobs.StreamingXlsReader;
 import org.finos.waltz.model.DiffResult;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.schema.tables.records.AssessmentRatingRecord;
@@ -21,15 +19,13 @@ import java.io.InputStream;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.StreamUtilities.batchProcessingCollector;
 import static org.finos.waltz.common.StreamUtilities.mkSiphon;
 import static org.finos.waltz.data.JooqUtilities.readRef;
 import static org.finos.waltz.jobs.XlsUtilities.strVal;
-import static org.finos.waltz.jobs.XlsUtilities.streamRows;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.*;
 import static org.jooq.lambda.tuple.Tuple.tuple;
@@ -39,6 +35,7 @@ public class AssessmentRatingBulkImport {
 
     private static final Logger LOG = LoggerFactory.getLogger(AssessmentRatingBulkImport.class);
     private static final String PROVENANCE = "waltz_bulk_assessment_rating_importer";
+    private static final int BATCH_SIZE = 1_000;
     private final DSLContext dsl;
 
 
@@ -50,11 +47,6 @@ public class AssessmentRatingBulkImport {
 
     public void load(String filename, AssessmentRatingBulkImportConfig config) throws IOException {
 
-        InputStream inputStream = IOUtilities.getFileResource(filename).getInputStream();
-
-        Workbook workbook = new XSSFWorkbook(inputStream);
-        Sheet sheet = workbook.getSheetAt(config.sheetPosition());
-
         Set<AssessmentRatingEntry> existingRatings = dsl
                 .select(ASSESSMENT_RATING.ENTITY_ID,
                         ASSESSMENT_RATING.ENTITY_KIND,
@@ -83,21 +75,28 @@ public class AssessmentRatingBulkImport {
         StreamUtilities.Siphon<Tuple5<String, String, String, Long, Optional<Long>>> noEntityFoundSiphon = mkSiphon(t -> t.v4 == null);
         StreamUtilities.Siphon<Tuple5<String, String, String, Long, Optional<Long>>> noRatingFoundSiphon = mkSiphon(t -> !t.v5.isPresent());
 
-        Set<AssessmentRatingEntry> requiredRatings = streamRows(sheet)
-                .skip(config.numberOfHeaderRows())
-                .map(r -> tuple(
-                        strVal(r, Columns.A),
-                        strVal(r, Columns.B),
-                        strVal(r, Columns.C)))
-                .map(t -> t.concat(tuple(externalIdToEntityIdMap.get(t.v1), ratingAliases.lookup(t.v2))))
-                .filter(noEntityFoundSiphon)
-                .filter(noRatingFoundSiphon)
-                .map(t -> ImmutableAssessmentRatingEntry.builder()
-                        .entity(mkRef(subjectKind, t.v4))
-                        .ratingId(t.v5.get())
-                        .description(t.v3)
-                        .build())
-                .collect(toSet());
+        Set<AssessmentRatingEntry> requiredRatings;
+
+        try (InputStream inputStream = IOUtilities.getFileResource(filename).getInputStream();
+             StreamingXlsReader workbook = StreamingXlsReader.open(inputStream)) {
+
+            requiredRatings = workbook
+                    .streamRows(config.sheetPosition())
+                    .skip(config.numberOfHeaderRows())
+                    .map(r -> tuple(
+                            strVal(r, Columns.A),
+                            strVal(r, Columns.B),
+                            strVal(r, Columns.C)))
+                    .map(t -> t.concat(tuple(externalIdToEntityIdMap.get(t.v1), ratingAliases.lookup(t.v2))))
+                    .filter(noEntityFoundSiphon)
+                    .filter(noRatingFoundSiphon)
+                    .map(t -> ImmutableAssessmentRatingEntry.builder()
+                            .entity(mkRef(subjectKind, t.v4))
+                            .ratingId(t.v5.get())
+                            .description(t.v3)
+                            .build())
+                    .collect(toSet());
+        }
 
         noEntityFoundSiphon.getResults().forEach(t -> System.out.printf("Couldn't find an entity id for row: %s%n", t.limit3()));
         noRatingFoundSiphon.getResults().forEach(t -> System.out.printf("Couldn't find a rating id for row: %s%n", t.limit3()));
@@ -112,16 +111,15 @@ public class AssessmentRatingBulkImport {
 
             DSLContext tx = ctx.dsl();
 
-            int[] insertedRecords = diff
+            int insertedRecords = diff
                     .otherOnly()
                     .stream()
                     .map(r -> mkAssessmentRatingRecord(config.assessmentDefinitionId(), r, config.updateUser()))
-                    .collect(Collectors.collectingAndThen(toSet(), tx::batchInsert))
-                    .execute();
+                    .collect(batchProcessingCollector(BATCH_SIZE, batch -> tx.batchInsert(batch).execute()));
 
-            LOG.debug(format("inserted new assessment ratings for %d records", IntStream.of(insertedRecords).sum()));
+            LOG.debug(format("inserted new assessment ratings for %d records", insertedRecords));
 
-            int[] updatedRecords = diff
+            int updatedRecords = diff
                     .differingIntersection()
                     .stream()
                     .map(r -> dsl
@@ -133,14 +131,13 @@ public class AssessmentRatingBulkImport {
                             .where(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(config.assessmentDefinitionId())
                                     .and(ASSESSMENT_RATING.ENTITY_KIND.eq(r.entity().kind().name())
                                             .and(ASSESSMENT_RATING.ENTITY_ID.eq(r.entity().id())))))
-                    .collect(Collectors.collectingAndThen(toSet(), tx::batch))
-                    .execute();
+                    .collect(batchProcessingCollector(BATCH_SIZE, batch -> tx.batch(batch).execute()));
 
-            LOG.debug(format("Updated ratings or descriptions for %d records", IntStream.of(updatedRecords).sum()));
+            LOG.debug(format("Updated ratings or descriptions for %d records", updatedRecords));
 
             if(config.mode().equals(SynchronisationMode.FULL)){
 
-                int[] removedRecords = diff
+                int removedRecords = diff
                         .waltzOnly()
                         .stream()
                         .map(r -> dsl
@@ -148,10 +145,9 @@ public class AssessmentRatingBulkImport {
                                 .where(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(config.assessmentDefinitionId())
                                         .and(ASSESSMENT_RATING.ENTITY_ID.eq(r.entity().id())
                                                 .and(ASSESSMENT_RATING.ENTITY_KIND.eq(r.entity().kind().name())))))
-                        .collect(Collectors.collectingAndThen(toSet(), tx::batch))
-                        .execute();
+                        .collect(batchProcessingCollector(BATCH_SIZE, batch -> tx.batch(batch).execute()));
 
-                LOG.debug(format("Deleted assessment ratings for %d records", IntStream.of(removedRecords).sum()));
+                LOG.debug(format("Deleted assessment ratings for %d records", removedRecords));
 
             }
 
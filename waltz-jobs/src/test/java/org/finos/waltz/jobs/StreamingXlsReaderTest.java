@@ -0,0 +1,274 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class StreamingXlsReaderTest {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+            "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+            "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+            "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+            "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+            "<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>" +
+            "</Types>";
+
+    private static final String ROOT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+            "</Relationships>";
+
+    private static final String WORKBOOK_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+            "<Relationship Id=\"rId2\" Type=\"" + REL_NS + "/sharedStrings\" Target=\"sharedStrings.xml\"/>" +
+            "</Relationships>";
+
+    private static final String SHARED_STRINGS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<sst xmlns=\"" + MAIN_NS + "\" count=\"3\" uniqueCount=\"3\">" +
+            "<si><t>Name</t></si>" +
+            "<si><r><t xml:space=\"preserve\">Rich </t></r><r><rPr><b/></rPr><t>shared</t></r></si>" +
+            "<si><t>Tokyo</t><rPh sb=\"0\" eb=\"5\"><t>tokyo-phonetic</t></rPh></si>" +
+            "</sst>";
+
+    /**
+     * Rows 1 and 2 hold one of each cell type, row 3 has a single cell part way along,
+     * row 4 has a blank cell and a rich inline string, row 5 is absent and the cells
+     * of row 6 mostly have no <code>r</code> attribute, so take their column from the
+     * previous cell.
+     */
+    private static final String SHEET = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>" +
+            "<row r=\"1\">" +
+            "<c r=\"A1\" t=\"s\"><v>0</v></c>" +
+            "<c r=\"B1\" t=\"inlineStr\"><is><t>Inline</t></is></c>" +
+            "<c r=\"C1\"><v>42</v></c>" +
+            "<c r=\"D1\" t=\"b\"><v>1</v></c>" +
+            "</row>" +
+            "<row r=\"2\">" +
+            "<c r=\"A2\" t=\"s\"><v>1</v></c>" +
+            "<c r=\"B2\" t=\"n\"><v>1.5</v></c>" +
+            "<c r=\"C2\" t=\"b\"><v>0</v></c>" +
+            "<c r=\"D2\"><v>45292.5</v></c>" +
+            "</row>" +
+            "<row r=\"3\">" +
+            "<c r=\"C3\"><v>-7</v></c>" +
+            "</row>" +
+            "<row r=\"4\">" +
+            "<c r=\"A4\"/>" +
+            "<c r=\"B4\" t=\"inlineStr\"><is><r><t xml:space=\"preserve\">Rich </t></r><r><t>inline</t></r></is></c>" +
+            "</row>" +
+            "<row r=\"6\">" +
+            "<c t=\"s\"><v>2</v></c>" +
+            "<c><v>3</v></c>" +
+            "<c r=\"E6\" t=\"inlineStr\"><is><t>after gap</t></is></c>" +
+            "<c t=\"b\"><v>1</v></c>" +
+            "</row>" +
+            "</sheetData></worksheet>";
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void rowsMatchXssfWorkbook() throws IOException {
+        assertMatchesXssfWorkbook(mkWorkbook(false));
+    }
+
+
+    @Test
+    public void rowsMatchXssfWorkbookWith1904Dates() throws IOException {
+        assertMatchesXssfWorkbook(mkWorkbook(true));
+    }
+
+
+    @Test
+    public void cellsAreReadAsText() throws IOException {
+        try (InputStream workbook = new FileInputStream(mkWorkbook(false));
+             StreamingXlsReader reader = StreamingXlsReader.open(workbook)) {
+
+            List<XlsRow> rows = reader.streamRows(0).collect(toList());
+
+            XlsRow first = rows.get(0);
+            assertEquals("Name", XlsUtilities.strVal(first, Columns.A));
+            assertEquals("Inline", XlsUtilities.strVal(first, Columns.B));
+            assertEquals("42", XlsUtilities.strVal(first, Columns.C), "numeric cells are returned as stored");
+            assertEquals("TRUE", XlsUtilities.strVal(first, Columns.D));
+            assertNull(XlsUtilities.strVal(first, Columns.E), "missing cells are null");
+
+            XlsRow second = rows.get(1);
+            assertEquals("Rich shared", XlsUtilities.strVal(second, Columns.A));
+            assertEquals("1.5", XlsUtilities.strVal(second, Columns.B));
+            assertEquals("FALSE", XlsUtilities.strVal(second, Columns.C));
+
+            XlsRow sparse = rows.get(2);
+            assertNull(XlsUtilities.strVal(sparse, Columns.A));
+            assertEquals("-7", XlsUtilities.strVal(sparse, Columns.C));
+
+            XlsRow withBlank = rows.get(3);
+            assertEquals("", XlsUtilities.strVal(withBlank, Columns.A), "blank cells are empty, not missing");
+            assertEquals("Rich inline", XlsUtilities.strVal(withBlank, Columns.B));
+
+            XlsRow withoutRefs = rows.get(4);
+            assertEquals(5, withoutRefs.rowNum());
+            assertEquals("Tokyo", XlsUtilities.strVal(withoutRefs, Columns.A), "phonetic runs are not part of the text");
+            assertEquals("3", XlsUtilities.strVal(withoutRefs, Columns.B));
+            assertNull(XlsUtilities.strVal(withoutRefs, Columns.C));
+            assertEquals("after gap", XlsUtilities.strVal(withoutRefs, Columns.E));
+            assertEquals("TRUE", XlsUtilities.strVal(withoutRefs, Columns.F), "column follows the previous cell");
+        }
+    }
+
+
+    @Test
+    public void dateValRejectsTextCells() throws IOException {
+        try (StreamingXlsReader reader = StreamingXlsReader.open(mkWorkbook(false))) {
+            XlsRow first = reader.streamRows(0).findFirst().get();
+
+            assertThrows(IllegalStateException.class, () -> XlsUtilities.dateVal(first, Columns.A));
+            assertNull(XlsUtilities.dateVal(first, Columns.E), "missing cells have no date");
+        }
+    }
+
+
+    @Test
+    public void sheetsCanBeStreamedRepeatedly() throws IOException {
+        try (StreamingXlsReader reader = StreamingXlsReader.open(mkWorkbook(false))) {
+            assertEquals(5, reader.streamRows(0).count());
+            assertEquals(5, reader.streamRows(0).count());
+            assertThrows(IllegalArgumentException.class, () -> reader.streamRows(1));
+        }
+    }
+
+
+    // --- helpers
+
+    private static void assertMatchesXssfWorkbook(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file);
+             XSSFWorkbook workbook = new XSSFWorkbook(input);
+             StreamingXlsReader reader = StreamingXlsReader.open(file)) {
+
+            List<Row> expected = XlsUtilities.streamRows(workbook.getSheetAt(0)).collect(toList());
+            List<XlsRow> actual = reader.streamRows(0).collect(toList());
+
+            assertEquals(
+                    map(expected, Row::getRowNum),
+                    map(actual, XlsRow::rowNum),
+                    "same rows should be read, in the same order");
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertRowMatches(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+
+    private static void assertRowMatches(Row expected, XlsRow actual) {
+        assertEquals(
+                expected.getLastCellNum(),
+                actual.cellCount(),
+                format("cell count of row: %d", expected.getRowNum()));
+
+        for (int col = 0; col < expected.getLastCellNum(); col++) {
+            Cell cell = expected.getCell(col);
+            String location = format("row: %d, col: %d", expected.getRowNum(), col);
+
+            if (cell == null) {
+                assertFalse(actual.hasCell(col), location);
+                assertNull(actual.strVal(col), location);
+                continue;
+            }
+
+            switch (cell.getCellType()) {
+                case STRING:
+                    assertEquals(cell.getStringCellValue(), actual.strVal(col), location);
+                    break;
+                case NUMERIC:
+                    assertEquals(cell.getNumericCellValue(), Double.parseDouble(actual.strVal(col)), 0, location);
+                    assertEquals(cell.getDateCellValue(), actual.dateVal(col), location);
+                    break;
+                case BOOLEAN:
+                    assertEquals(cell.getBooleanCellValue() ? "TRUE" : "FALSE", actual.strVal(col), location);
+                    break;
+                case BLANK:
+                    assertEquals("", actual.strVal(col), location);
+                    break;
+                default:
+                    fail(format("Unexpected cell type: %s at %s", cell.getCellType(), location));
+            }
+        }
+    }
+
+
+    private File mkWorkbook(boolean date1904) throws IOException {
+        String workbookXml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\">" +
+                (date1904 ? "<workbookPr date1904=\"1\"/>" : "") +
+                "<sheets><sheet name=\"Sheet1\" sheetId=\"1\" r:id=\"rId1\"/></sheets>" +
+                "</workbook>";
+
+        File file = tempDir.resolve(date1904 ? "fixture-1904.xlsx" : "fixture.xlsx").toFile();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            addPart(zip, "[Content_Types].xml", CONTENT_TYPES);
+            addPart(zip, "_rels/.rels", ROOT_RELS);
+            addPart(zip, "xl/workbook.xml", workbookXml);
+            addPart(zip, "xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+            addPart(zip, "xl/sharedStrings.xml", SHARED_STRINGS);
+            addPart(zip, "xl/worksheets/sheet1.xml", SHEET);
+        }
+        return file;
+    }
+
+
+    private static void addPart(ZipOutputStream zip, String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(xml.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import org.finos.waltz.loadtest.ResourceSampler.ResourceUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Drives a {@link Scenario} against a running server with a fixed number of
+ * client threads, each issuing its next request as soon as the previous one
+ * completes (a closed workload).
+ * <p>
+ * Each worker draws from its own {@link Random}, seeded from the configured
+ * seed and the worker index, so the sequence of requests is repeatable for a
+ * given concurrency.
+ */
+public class LoadRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadRunner.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+
+    private final String baseUrl;
+    private final String token;
+    private final LoadTestFixtures fixtures;
+    private final ResourceSampler sampler;
+    private final int concurrency;
+    private final long seed;
+
+
+    public LoadRunner(String baseUrl,
+                      String token,
+                      LoadTestFixtures fixtures,
+                      ResourceSampler sampler,
+                      int concurrency,
+                      long seed) {
+        checkNotNull(baseUrl, "baseUrl cannot be null");
+        checkNotNull(token, "token cannot be null");
+        checkNotNull(fixtures, "fixtures cannot be null");
+        checkNotNull(sampler, "sampler cannot be null");
+        checkTrue(concurrency > 0, "concurrency must be positive");
+
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.token = token;
+        this.fixtures = fixtures;
+        this.sampler = sampler;
+        this.concurrency = concurrency;
+        this.seed = seed;
+    }
+
+
+    public PhaseResult run(String phaseName,
+                           Scenario scenario,
+                           int seconds) throws InterruptedException {
+        LOG.info("Starting phase '{}': {} routes, {} threads, {}s", phaseName, scenario.routes().size(), concurrency, seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "load-test-worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.currentTimeMillis();
+        long deadline = start + TimeUnit.SECONDS.toMillis(seconds);
+        sampler.start();
+
+        List<Future<Map<String, RouteStats>>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Random rnd = new Random(seed * 31 + i);
+            futures.add(workers.submit(() -> drive(scenario, rnd, deadline)));
+        }
+
+        Map<String, RouteStats> merged = new TreeMap<>();
+        long elapsed;
+        ResourceUsage usage;
+        try {
+            for (Future<Map<String, RouteStats>> future : futures) {
+                future.get().forEach((route, stats) -> merged
+                        .computeIfAbsent(route, RouteStats::new)
+                        .merge(stats));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            elapsed = System.currentTimeMillis() - start;
+            usage = sampler.stop();
+        }
+
+        return new PhaseResult(phaseName, concurrency, elapsed, merged, usage);
+    }
+
+
+    // --- helpers
+
+    private Map<String, RouteStats> drive(Scenario scenario,
+                                          Random rnd,
+                                          long deadline) {
+        Map<String, RouteStats> statsByRoute = new HashMap<>();
+        while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+            RequestTemplate template = scenario.pick(rnd);
+            String path = template.resolvePath(fixtures, rnd);
+            Optional<String> body = template.resolveBody(fixtures, rnd);
+
+            long start = System.nanoTime();
+            long[] outcome = execute(template.method(), path, body);
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+            statsByRoute
+                    .computeIfAbsent(template.route(), RouteStats::new)
+                    .record(latencyMicros, (int) outcome[0], outcome[1]);
+        }
+        return statsByRoute;
+    }
+
+
+    /**
+     * @return pair of status code (or -1 on i/o failure) and bytes read
+     */
+    private long[] execute(String method, String path, Optional<String> body) {
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            conn.setReadTimeout(READ_TIMEOUT_MILLIS);
+            conn.setRequestMethod(method);
+            conn.setRequestProperty("Authorization", "Bearer " + token);
+            conn.setRequestProperty("Accept", "application/json, text/plain, */*");
+            conn.setRequestProperty("Accept-Encoding", "gzip");
+
+            if (body.isPresent()) {
+                byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", "application/json");
+                conn.setFixedLengthStreamingMode(bytes.length);
+                try (OutputStream os = conn.getOutputStream()) {
+                    os.write(bytes);
+                }
+            }
+
+            int status = conn.getResponseCode();
+            InputStream is = status >= 400
+                    ? conn.getErrorStream()
+                    : conn.getInputStream();
+
+            return new long[] { status, drain(is) };
+        } catch (IOException e) {
+            LOG.debug("Request failed: {} {}: {}", method, path, e.getMessage());
+            if (conn != null) {
+                conn.disconnect();
+            }
+            return new long[] { -1, 0 };
+        }
+    }
+
+
+    /**
+     * Reading the body to the end (and closing the stream) lets the jdk return
+     * the connection to its keep-alive cache.
+     */
+    private static long drain(InputStream is) throws IOException {
+        if (is == null) {
+            return 0;
+        }
+        long total = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = is) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+}
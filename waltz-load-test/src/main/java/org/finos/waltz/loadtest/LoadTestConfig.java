@@ -0,0 +1,195 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Settings for a load test run, read from system properties prefixed with
+ * <code>waltz.loadtest.</code>, e.g. <code>-Dwaltz.loadtest.concurrency=32</code>.
+ * <p>
+ * The size of the generated estate is controlled separately via the
+ * <code>waltz.scale.</code> properties understood by the scale data generator.
+ */
+public class LoadTestConfig {
+
+    private static final String PREFIX = "waltz.loadtest.";
+
+    private final int port;
+    private final int concurrency;
+    private final int warmupSeconds;
+    private final int routeSeconds;
+    private final int mixedSeconds;
+    private final long seed;
+    private final String scenario;
+    private final Optional<String> accessLog;
+    private final String reportFile;
+    private final String userName;
+    private final boolean generateEstate;
+    private final int encodingIterations;
+
+
+    private LoadTestConfig(Properties props) {
+        this.port = intProp(props, "port", 18443);
+        this.concurrency = intProp(props, "concurrency", 8);
+        this.warmupSeconds = intProp(props, "warmupSeconds", 10);
+        this.routeSeconds = intProp(props, "routeSeconds", 15);
+        this.mixedSeconds = intProp(props, "mixedSeconds", 60);
+        this.seed = Long.parseLong(props.getProperty(PREFIX + "seed", "1234"));
+        this.scenario = props.getProperty(PREFIX + "scenario", "classpath:scenarios/default.json");
+        this.accessLog = Optional.ofNullable(props.getProperty(PREFIX + "accessLog"));
+        this.reportFile = props.getProperty(PREFIX + "reportFile", "load-test-report.json");
+        this.userName = props.getProperty(PREFIX + "user", "load-test@waltz");
+        this.generateEstate = Boolean.parseBoolean(props.getProperty(PREFIX + "generate", "true"));
+        this.encodingIterations = intProp(props, "encodingIterations", 20);
+
+        checkTrue(port > 0, "port must be positive");
+        checkTrue(concurrency > 0, "concurrency must be positive");
+        checkTrue(warmupSeconds >= 0, "warmupSeconds cannot be negative");
+        checkTrue(routeSeconds >= 0, "routeSeconds cannot be negative");
+        checkTrue(mixedSeconds >= 0, "mixedSeconds cannot be negative");
+        checkTrue(encodingIterations >= 0, "encodingIterations cannot be negative");
+    }
+
+
+    public static LoadTestConfig fromProperties(Properties props) {
+        return new LoadTestConfig(props);
+    }
+
+
+    public int port() {
+        return port;
+    }
+
+
+    /**
+     * Number of client threads issuing requests concurrently.
+     */
+    public int concurrency() {
+        return concurrency;
+    }
+
+
+    /**
+     * Time spent issuing the full mix before any measurement, lets the JIT
+     * and the various service caches settle.
+     */
+    public int warmupSeconds() {
+        return warmupSeconds;
+    }
+
+
+    /**
+     * Time spent driving each route on its own.  Running routes in isolation
+     * means gc and connection pool figures can be attributed to a single route.
+     * Zero skips the per-route phase.
+     */
+    public int routeSeconds() {
+        return routeSeconds;
+    }
+
+
+    /**
+     * Time spent driving the weighted mix of all routes.  Zero skips the mixed phase.
+     */
+    public int mixedSeconds() {
+        return mixedSeconds;
+    }
+
+
+    public long seed() {
+        return seed;
+    }
+
+
+    /**
+     * Scripted scenario, either <code>classpath:</code> resource or a file path.
+     */
+    public String scenario() {
+        return scenario;
+    }
+
+
+    /**
+     * Optional NCSA / Jetty style access log to replay instead of the scripted scenario.
+     */
+    public Optional<String> accessLog() {
+        return accessLog;
+    }
+
+
+    public String reportFile() {
+        return reportFile;
+    }
+
+
+    public String userName() {
+        return userName;
+    }
+
+
+    /**
+     * Whether to populate the database with a synthetic estate, switch off
+     * when pointing the harness at a copy of a real database.
+     */
+    public boolean generateEstate() {
+        return generateEstate;
+    }
+
+
+    /**
+     * Number of times each large payload is encoded when comparing response
+     * encodings (see {@link ResponseEncodingComparison}).  Zero skips the comparison.
+     */
+    public int encodingIterations() {
+        return encodingIterations;
+    }
+
+
+    @Override
+    public String toString() {
+        return "LoadTestConfig{" +
+                "port=" + port +
+                ", concurrency=" + concurrency +
+                ", warmupSeconds=" + warmupSeconds +
+                ", routeSeconds=" + routeSeconds +
+                ", mixedSeconds=" + mixedSeconds +
+                ", seed=" + seed +
+                ", scenario='" + scenario + '\'' +
+                ", accessLog=" + accessLog +
+                ", reportFile='" + reportFile + '\'' +
+                ", generateEstate=" + generateEstate +
+                ", encodingIterations=" + encodingIterations +
+                '}';
+    }
+
+
+    // --- helpers
+
+    private static int intProp(Properties props, String key, int dflt) {
+        String value = props.getProperty(PREFIX + key);
+        return value == null
+                ? dflt
+                : Integer.parseInt(value.trim());
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.jobs.generators.scale.ScaleDataGenerator;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.aggregate_overlay_diagram.BackingEntity;
+import org.finos.waltz.model.aggregate_overlay_diagram.ImmutableBackingEntity;
+import org.finos.waltz.model.aggregate_overlay_diagram.ImmutableOverlayDiagramSaveCommand;
+import org.finos.waltz.model.aggregate_overlay_diagram.OverlayDiagramKind;
+import org.finos.waltz.model.report_grid.ImmutableReportGridColumnDefinitionsUpdateCommand;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCreateCommand;
+import org.finos.waltz.model.report_grid.ImmutableReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInfo;
+import org.finos.waltz.model.report_grid.ReportGridKind;
+import org.finos.waltz.service.aggregate_overlay_diagram.AggregateOverlayDiagramService;
+import org.finos.waltz.service.report_grid.ReportGridService;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.PERSON;
+
+/**
+ * Values substituted into request template placeholders, e.g. <code>{appId}</code>.
+ * <p>
+ * Values are sampled from the load test database once it has been populated,
+ * along with a report grid and an overlay diagram built over the generated
+ * measurables so those routes have something realistic to compute.
+ */
+public class LoadTestFixtures {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTestFixtures.class);
+
+    private static final int SAMPLE_SIZE = 200;
+    private static final int GRID_COLUMN_COUNT = 12;
+    private static final int DIAGRAM_CELL_COUNT = 20;
+
+    private final Map<String, List<String>> valuesByName;
+
+
+    public LoadTestFixtures(Map<String, List<String>> valuesByName) {
+        checkNotNull(valuesByName, "valuesByName cannot be null");
+        this.valuesByName = Collections.unmodifiableMap(new HashMap<>(valuesByName));
+    }
+
+
+    public String pick(String name, Random rnd) {
+        List<String> values = valuesByName.get(name);
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("No fixture values for placeholder: {" + name + "}");
+        }
+        return values.get(rnd.nextInt(values.size()));
+    }
+
+
+    public Set<String> names() {
+        return valuesByName.keySet();
+    }
+
+
+    /**
+     * Creates the report grid and overlay diagram used by the scenario and
+     * samples ids for the remaining placeholders.  Expects the database to
+     * already contain an estate produced by {@link ScaleDataGenerator}.
+     */
+    public static LoadTestFixtures setup(ApplicationContext ctx,
+                                         String userName,
+                                         long seed) throws InsufficientPrivelegeException {
+        DSLContext dsl = ctx.getBean(DSLContext.class);
+        Random rnd = new Random(seed);
+
+        List<Long> measurableIds = sample(dsl, MEASURABLE, MEASURABLE.ID, rnd);
+        checkNotEmpty(measurableIds, "No measurables found, has the estate been generated?");
+
+        Map<String, List<String>> values = new HashMap<>();
+        values.put("appId", asStrings(sample(dsl, APPLICATION, APPLICATION.ID, rnd)));
+        values.put("orgUnitId", asStrings(sample(dsl, ORGANISATIONAL_UNIT, ORGANISATIONAL_UNIT.ID, rnd)));
+        values.put("measurableId", asStrings(measurableIds));
+        values.put("dataTypeId", asStrings(sample(dsl, DATA_TYPE, DATA_TYPE.ID, rnd)));
+        values.put("flowId", asStrings(sample(dsl, LOGICAL_FLOW, LOGICAL_FLOW.ID, rnd)));
+        values.put("employeeId", sample(dsl, PERSON, PERSON.EMPLOYEE_ID, rnd));
+        values.put("searchTerm", mkSearchTerms(sample(dsl, APPLICATION, APPLICATION.NAME, rnd)));
+
+        ReportGridInfo grid = createReportGrid(ctx.getBean(ReportGridService.class), measurableIds, userName);
+        values.put("gridId", Collections.singletonList(String.valueOf(grid.gridId())));
+        values.put("gridExternalId", Collections.singletonList(grid.externalId().get()));
+
+        Long diagramId = createOverlayDiagram(ctx.getBean(AggregateOverlayDiagramService.class), measurableIds, userName);
+        values.put("diagramId", Collections.singletonList(String.valueOf(diagramId)));
+
+        values.forEach((k, v) -> LOG.info("Fixture {{}}: {} values", k, v.size()));
+
+        return new LoadTestFixtures(values);
+    }
+
+
+    // --- helpers
+
+    private static ReportGridInfo createReportGrid(ReportGridService reportGridService,
+                                                   List<Long> measurableIds,
+                                                   String userName) throws InsufficientPrivelegeException {
+        ReportGridInfo grid = reportGridService.create(
+                ImmutableReportGridCreateCommand
+                        .builder()
+                        .name("Load test grid")
+                        .description("Generated by the load test harness")
+                        .subjectKind(EntityKind.APPLICATION)
+                        .kind(ReportGridKind.PUBLIC)
+                        .build(),
+                userName);
+
+        List<ReportGridFixedColumnDefinition> columns = new ArrayList<>();
+        for (int i = 0; i < Math.min(GRID_COLUMN_COUNT, measurableIds.size()); i++) {
+            columns.add(ImmutableReportGridFixedColumnDefinition
+                    .builder()
+                    .columnEntityKind(EntityKind.MEASURABLE)
+                    .columnEntityId(measurableIds.get(i))
+                    .position(i)
+                    .build());
+        }
+
+        reportGridService.updateColumnDefinitions(
+                grid.gridId(),
+                ImmutableReportGridColumnDefinitionsUpdateCommand
+                        .builder()
+                        .fixedColumnDefinitions(columns)
+                        .build(),
+                userName);
+
+        return grid;
+    }
+
+
+    private static Long createOverlayDiagram(AggregateOverlayDiagramService overlayDiagramService,
+                                             List<Long> measurableIds,
+                                             String userName) {
+        Set<BackingEntity> backingEntities = new LinkedHashSet<>();
+        StringBuilder svg = new StringBuilder("<svg xmlns='http://www.w3.org/2000/svg' viewBox='0 0 1000 1000'>");
+
+        for (int i = 0; i < Math.min(DIAGRAM_CELL_COUNT, measurableIds.size()); i++) {
+            String cellId = "LOAD_TEST_CELL_" + i;
+            backingEntities.add(ImmutableBackingEntity
+                    .builder()
+                    .cellId(cellId)
+                    .entityReference(mkRef(EntityKind.MEASURABLE, measurableIds.get(i)))
+                    .build());
+            svg.append(String.format(
+                    "<g data-cell-id='%s' data-cell-name='Cell %d'><rect x='%d' y='%d' width='180' height='80'/></g>",
+                    cellId,
+                    i,
+                    (i % 5) * 200,
+                    (i / 5) * 100));
+        }
+        svg.append("</svg>");
+
+        return overlayDiagramService.save(
+                ImmutableOverlayDiagramSaveCommand
+                        .builder()
+                        .name("Load test diagram")
+                        .description("Generated by the load test harness")
+                        .layoutData(svg.toString())
+                        .aggregatedEntityKind(EntityKind.APPLICATION)
+                        .diagramKind(OverlayDiagramKind.WALTZ_STATIC_SVG_OVERLAY)
+                        .backingEntities(backingEntities)
+                        .build(),
+                userName);
+    }
+
+
+    private static <T> List<T> sample(DSLContext dsl, Table<?> table, Field<T> field, Random rnd) {
+        List<T> all = dsl
+                .select(field)
+                .from(table)
+                .where(field.isNotNull())
+                .orderBy(field)
+                .limit(SAMPLE_SIZE * 50)
+                .fetch(field);
+        Collections.shuffle(all, rnd);
+        return all.size() > SAMPLE_SIZE
+                ? new ArrayList<>(all.subList(0, SAMPLE_SIZE))
+                : all;
+    }
+
+
+    private static List<String> asStrings(List<Long> ids) {
+        return ids
+                .stream()
+                .map(String::valueOf)
+                .collect(toList());
+    }
+
+
+    /**
+     * Search terms are the leading word of sampled application names, which gives
+     * a mix of common and rarer words similar to what users type.
+     */
+    private static List<String> mkSearchTerms(List<String> names) {
+        return names
+                .stream()
+                .map(n -> n.split(" ")[0].toLowerCase())
+                .collect(toList());
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.finos.waltz.jobs.generators.scale.ScaleDataGenerator;
+import org.finos.waltz.jobs.generators.scale.ScaleProfile;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.logical_flow.LogicalFlowView;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.web.Main;
+import org.finos.waltz.web.endpoints.auth.JWTUtilities;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import spark.Spark;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+
+/**
+ * Starts the Waltz web stack (as {@link Main} would) against an in-memory H2
+ * database, populates it with a synthetic estate and then drives a scenario
+ * of api calls against it over http, reporting per-route latency, throughput,
+ * gc and connection pool usage.
+ * <p>
+ * Everything runs in a single JVM with no external dependencies, so it can be
+ * run offline on a developer machine or build agent.
+ * <p>
+ * Phases:
+ * <ol>
+ *     <li><b>warmup</b> - the full mix, not reported</li>
+ *     <li><b>route</b> - each route in isolation, so gc and pool figures can be attributed to it</li>
+ *     <li><b>mixed</b> - the weighted mix of all routes</li>
+ * </ol>
+ * followed by a comparison of the response encodings on the largest payloads.
+ *
+ * See the module README for the available settings.
+ */
+public class LoadTestMain {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTestMain.class);
+
+    private static final String H2_URL = "jdbc:h2:mem:waltz_load_test;DB_CLOSE_DELAY=-1;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DATABASE_TO_UPPER=TRUE";
+
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromProperties(System.getProperties());
+        LOG.info("Load test configuration: {}", config);
+
+        configureSystemProperties(config);
+        createSchema();
+
+        Main.main(new String[0]);
+        Spark.awaitInitialization();
+        AnnotationConfigApplicationContext ctx = Main.getSpringContext();
+
+        ScaleProfile profile = ScaleProfile.fromProperties(System.getProperties());
+        if (config.generateEstate()) {
+            new ScaleDataGenerator(
+                    ctx.getBean(DSLContext.class),
+                    ctx.getBean(EntityHierarchyService.class),
+                    ctx.getBean(PersonHierarchyService.class),
+                    profile)
+                    .generate();
+        }
+
+        LoadTestFixtures fixtures = LoadTestFixtures.setup(ctx, config.userName(), config.seed());
+        Scenario scenario = loadScenario(config);
+
+        HikariDataSource dataSource = (HikariDataSource) ctx.getBean(DataSource.class);
+
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        environment.put("dbPoolSize", dataSource.getMaximumPoolSize());
+        environment.put("scaleProfile", config.generateEstate() ? profile.toString() : "none");
+
+        LoadTestReport report = new LoadTestReport(config, environment);
+
+        try (ResourceSampler sampler = new ResourceSampler(dataSource.getHikariPoolMXBean(), dataSource.getMaximumPoolSize())) {
+            LoadRunner runner = new LoadRunner(
+                    "http://localhost:" + config.port(),
+                    mkToken(config.userName()),
+                    fixtures,
+                    sampler,
+                    config.concurrency(),
+                    config.seed());
+
+            if (config.warmupSeconds() > 0) {
+                runner.run("warmup", scenario, config.warmupSeconds());
+            }
+
+            if (config.routeSeconds() > 0) {
+                for (String route : scenario.routes()) {
+                    report.add(runner.run("route: " + route, scenario.forRoute(route), config.routeSeconds()));
+                }
+            }
+
+            if (config.mixedSeconds() > 0) {
+                report.add(runner.run("mixed", scenario, config.mixedSeconds()));
+            }
+        }
+
+        if (config.encodingIterations() > 0) {
+            compareResponseEncodings(ctx, fixtures, config, report);
+        }
+
+        report.print(System.out);
+
+        File reportFile = new File(config.reportFile());
+        report.write(reportFile);
+        LOG.info("Wrote report to: {}", reportFile.getAbsolutePath());
+
+        Spark.stop();
+        ctx.close();
+        System.exit(0);
+    }
+
+
+    // --- helpers
+
+    /**
+     * Points the Waltz configuration at the in-memory database.  Values already
+     * given on the command line take precedence, which allows the pool size
+     * (<code>database.pool.max</code>) to be varied between runs.
+     */
+    private static void configureSystemProperties(LoadTestConfig config) {
+        setIfAbsent("database.url", H2_URL);
+        setIfAbsent("database.user", "sa");
+        setIfAbsent("database.password", "sa");
+        setIfAbsent("database.driver", "org.h2.Driver");
+        setIfAbsent("database.schema", "PUBLIC");
+        setIfAbsent("jooq.dialect", "H2");
+        setIfAbsent("waltz.port", String.valueOf(config.port()));
+
+        // the jdk only keeps 5 idle connections per host by default, any
+        // more and the extra clients would be reconnecting on every request
+        setIfAbsent("http.maxConnections", String.valueOf(config.concurrency()));
+    }
+
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+
+    private static void createSchema() throws Exception {
+        LOG.info("Creating schema");
+        HikariConfig dsConfig = new HikariConfig();
+        dsConfig.setJdbcUrl(System.getProperty("database.url"));
+        dsConfig.setUsername(System.getProperty("database.user"));
+        dsConfig.setPassword(System.getProperty("database.password"));
+        dsConfig.setMaximumPoolSize(1);
+
+        try (HikariDataSource dataSource = new HikariDataSource(dsConfig)) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setResourceLoader(new DefaultResourceLoader());
+            liquibase.setChangeLog("/liquibase/db.changelog-master.xml");
+            liquibase.afterPropertiesSet();
+        }
+    }
+
+
+    /**
+     * Encodes the largest payloads the estate can produce (report grid and flow
+     * view for the whole org unit tree) with each response encoding.
+     */
+    private static void compareResponseEncodings(AnnotationConfigApplicationContext ctx,
+                                                 LoadTestFixtures fixtures,
+                                                 LoadTestConfig config,
+                                                 LoadTestReport report) throws Exception {
+        LOG.info("Comparing response encodings");
+        DSLContext dsl = ctx.getBean(DSLContext.class);
+
+        Long rootOrgUnitId = dsl
+                .select(ORGANISATIONAL_UNIT.ID)
+                .from(ORGANISATIONAL_UNIT)
+                .where(ORGANISATIONAL_UNIT.PARENT_ID.isNull())
+                .orderBy(ORGANISATIONAL_UNIT.ID)
+                .limit(1)
+                .fetchOne(ORGANISATIONAL_UNIT.ID);
+
+        IdSelectionOptions wholeEstate = mkOpts(mkRef(EntityKind.ORG_UNIT, rootOrgUnitId), HierarchyQueryScope.CHILDREN);
+        long gridId = Long.parseLong(fixtures.pick("gridId", new Random(config.seed())));
+
+        ReportGrid grid = ctx
+                .getBean(ReportGridService.class)
+                .getByIdAndSelectionOptions(gridId, wholeEstate, config.userName())
+                .orElseThrow(() -> new IllegalStateException("Load test grid not found: " + gridId));
+
+        LogicalFlowView flowView = ctx
+                .getBean(LogicalFlowService.class)
+                .getFlowView(wholeEstate);
+
+        report.addEncodings(ResponseEncodingComparison.compare("report grid", grid, config.encodingIterations()));
+        report.addEncodings(ResponseEncodingComparison.compare("logical flow view", flowView, config.encodingIterations()));
+    }
+
+
+    private static Scenario loadScenario(LoadTestConfig config) throws Exception {
+        Scenario scripted = Scenario.load(config.scenario());
+        if (!config.accessLog().isPresent()) {
+            return scripted;
+        }
+
+        LOG.info("Replaying access log: {}", config.accessLog().get());
+        try (InputStream is = Scenario.open(config.accessLog().get())) {
+            return Scenario.fromAccessLog(is, scripted);
+        }
+    }
+
+
+    private static String mkToken(String userName) {
+        return JWT.create()
+                .withIssuer(JWTUtilities.ISSUER)
+                .withSubject(userName)
+                .withClaim("displayName", userName)
+                .sign(Algorithm.HMAC512(JWTUtilities.SECRET));
+    }
+
+}
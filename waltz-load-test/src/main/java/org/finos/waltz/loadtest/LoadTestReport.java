@@ -0,0 +1,167 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.finos.waltz.loadtest.ResourceSampler.ResourceUsage;
+import org.finos.waltz.loadtest.ResponseEncodingComparison.EncodingResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Collects phase results, prints them as a table and writes them as json so
+ * runs can be compared.
+ */
+public class LoadTestReport {
+
+    private static final String ROW_FORMAT = "%-48s %8s %9s %9s %9s %9s %9s %7s%n";
+    private static final String ENCODING_ROW_FORMAT = "%-24s %-12s %12s %9s %9s %9s%n";
+    private static final String BASELINE_ENCODING = "JSON+gzip";
+
+    private final LoadTestConfig config;
+    private final Map<String, Object> environment;
+    private final List<PhaseResult> phases = new ArrayList<>();
+    private final List<EncodingResult> encodings = new ArrayList<>();
+
+
+    public LoadTestReport(LoadTestConfig config, Map<String, Object> environment) {
+        this.config = config;
+        this.environment = environment;
+    }
+
+
+    public void add(PhaseResult phase) {
+        phases.add(phase);
+    }
+
+
+    public void addEncodings(List<EncodingResult> results) {
+        encodings.addAll(results);
+    }
+
+
+    public void print(PrintStream out) {
+        phases.forEach(phase -> {
+            out.println();
+            out.printf("== %s (%d threads, %.1fs)%n", phase.getName(), phase.getConcurrency(), phase.getElapsedMillis() / 1000.0);
+            out.printf(ROW_FORMAT, "route", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors");
+            phase.getRouteStats().forEach(s -> out.printf(
+                    ROW_FORMAT,
+                    truncate(s.getRoute(), 48),
+                    s.getCount(),
+                    fmt(phase.throughput(s)),
+                    fmt(s.getPercentileMillis(50)),
+                    fmt(s.getPercentileMillis(90)),
+                    fmt(s.getPercentileMillis(99)),
+                    fmt(s.getMaxMillis()),
+                    s.getErrorCount()));
+
+            ResourceUsage usage = phase.getResourceUsage();
+            out.printf(
+                    "   gc: %d collections, %dms | heap max: %dMB | db pool: %d/%d max active, %.1f mean, %d max waiting, saturated %.0f%% of samples%n",
+                    usage.getGcCount(),
+                    usage.getGcMillis(),
+                    usage.getMaxHeapUsedBytes() / (1024 * 1024),
+                    usage.getMaxActiveConnections(),
+                    usage.getPoolSize(),
+                    usage.getMeanActiveConnections(),
+                    usage.getMaxThreadsAwaitingConnection(),
+                    usage.getPoolSaturatedFraction() * 100);
+        });
+
+        if (!encodings.isEmpty()) {
+            out.println();
+            out.printf("== response encodings (savings relative to %s)%n", BASELINE_ENCODING);
+            out.printf(ENCODING_ROW_FORMAT, "payload", "encoding", "bytes", "bytes %", "cpu ms", "cpu %");
+            encodings.forEach(r -> {
+                Optional<EncodingResult> baseline = findBaseline(r.getPayload());
+                out.printf(
+                        ENCODING_ROW_FORMAT,
+                        truncate(r.getPayload(), 24),
+                        r.getEncoding(),
+                        r.getBytes(),
+                        baseline.map(b -> fmt(saving(b.getBytes(), r.getBytes()))).orElse("-"),
+                        String.format("%.2f", r.getCpuMillis()),
+                        baseline.map(b -> fmt(saving(b.getCpuMillis(), r.getCpuMillis()))).orElse("-"));
+            });
+        }
+    }
+
+
+    public void write(File file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("config", config.toString());
+        report.put("environment", environment);
+        report.put("phases", phases
+                .stream()
+                .map(PhaseResult::toMap)
+                .collect(toList()));
+        report.put("encodings", encodings
+                .stream()
+                .map(EncodingResult::toMap)
+                .collect(toList()));
+
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file, report);
+    }
+
+
+    // --- helpers
+
+    private Optional<EncodingResult> findBaseline(String payload) {
+        return encodings
+                .stream()
+                .filter(r -> r.getPayload().equals(payload))
+                .filter(r -> r.getEncoding().equals(BASELINE_ENCODING))
+                .findFirst();
+    }
+
+
+    private static double saving(double baseline, double value) {
+        return baseline == 0
+                ? 0
+                : (baseline - value) * 100 / baseline;
+    }
+
+
+    private static String fmt(double d) {
+        return String.format("%.1f", d);
+    }
+
+
+    private static String truncate(String s, int length) {
+        return s.length() <= length
+                ? s
+                : s.substring(0, length - 3) + "...";
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import org.finos.waltz.loadtest.ResourceSampler.ResourceUsage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of driving a scenario for a fixed period.
+ */
+public class PhaseResult {
+
+    private final String name;
+    private final int concurrency;
+    private final long elapsedMillis;
+    private final Map<String, RouteStats> statsByRoute;
+    private final ResourceUsage resourceUsage;
+
+
+    public PhaseResult(String name,
+                       int concurrency,
+                       long elapsedMillis,
+                       Map<String, RouteStats> statsByRoute,
+                       ResourceUsage resourceUsage) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.elapsedMillis = elapsedMillis;
+        this.statsByRoute = statsByRoute;
+        this.resourceUsage = resourceUsage;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+
+    public Collection<RouteStats> getRouteStats() {
+        return statsByRoute.values();
+    }
+
+
+    public ResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+
+
+    public double throughput(RouteStats stats) {
+        return elapsedMillis == 0
+                ? 0
+                : stats.getCount() * 1000.0 / elapsedMillis;
+    }
+
+
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> routes = new ArrayList<>();
+        statsByRoute.values().forEach(s -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("route", s.getRoute());
+            m.put("count", s.getCount());
+            m.put("errors", s.getErrorCount());
+            m.put("throughputPerSecond", throughput(s));
+            m.put("meanMillis", s.getMeanMillis());
+            m.put("p50Millis", s.getPercentileMillis(50));
+            m.put("p90Millis", s.getPercentileMillis(90));
+            m.put("p99Millis", s.getPercentileMillis(99));
+            m.put("maxMillis", s.getMaxMillis());
+            m.put("responseBytes", s.getResponseBytes());
+            m.put("countsByStatus", s.getCountsByStatus());
+            routes.add(m);
+        });
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("phase", name);
+        m.put("concurrency", concurrency);
+        m.put("elapsedMillis", elapsedMillis);
+        m.put("resources", resourceUsage.toMap());
+        m.put("routes", routes);
+        return m;
+    }
+
+}
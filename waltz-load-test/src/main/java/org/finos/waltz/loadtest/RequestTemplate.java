@@ -0,0 +1,126 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * A single kind of request in a scenario.  The path and body may contain
+ * placeholders, e.g. <code>{appId}</code>, which are replaced with a value
+ * drawn from the {@link LoadTestFixtures} each time a request is issued.
+ */
+public class RequestTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([A-Za-z]+)}");
+
+    private final String route;
+    private final String method;
+    private final String path;
+    private final Optional<String> body;
+    private final int weight;
+
+
+    public RequestTemplate(String route,
+                           String method,
+                           String path,
+                           Optional<String> body,
+                           int weight) {
+        checkNotEmpty(route, "route cannot be empty");
+        checkNotEmpty(method, "method cannot be empty");
+        checkNotEmpty(path, "path cannot be empty");
+        checkNotNull(body, "body cannot be null");
+        checkTrue(weight > 0, "weight must be positive");
+
+        this.route = route;
+        this.method = method.toUpperCase();
+        this.path = path.startsWith("/") ? path.substring(1) : path;
+        this.body = body;
+        this.weight = weight;
+    }
+
+
+    /**
+     * Name under which timings are reported, several templates may share a route.
+     */
+    public String route() {
+        return route;
+    }
+
+
+    public String method() {
+        return method;
+    }
+
+
+    public String path() {
+        return path;
+    }
+
+
+    public Optional<String> body() {
+        return body;
+    }
+
+
+    public int weight() {
+        return weight;
+    }
+
+
+    public String resolvePath(LoadTestFixtures fixtures, Random rnd) {
+        return resolve(path, fixtures, rnd);
+    }
+
+
+    public Optional<String> resolveBody(LoadTestFixtures fixtures, Random rnd) {
+        return body.map(b -> resolve(b, fixtures, rnd));
+    }
+
+
+    @Override
+    public String toString() {
+        return route + " [" + method + " " + path + "]";
+    }
+
+
+    // --- helpers
+
+    private static String resolve(String template, LoadTestFixtures fixtures, Random rnd) {
+        if (template.indexOf('{') == -1) {
+            return template;
+        }
+
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            String value = fixtures.pick(matcher.group(1), rnd);
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+}
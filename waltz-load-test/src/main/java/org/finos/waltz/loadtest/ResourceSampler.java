@@ -0,0 +1,240 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Samples server side resource usage whilst a phase is running.
+ * <p>
+ * The server runs in the same JVM as the load generator, so gc figures include
+ * the (small) allocation made by the client threads.  Connection pool figures
+ * come straight from Hikari and show how close the routes under test are to
+ * exhausting the pool: <code>threadsAwaitingConnection</code> above zero means
+ * requests were queueing for a connection.
+ */
+public class ResourceSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 250;
+
+    private final HikariPoolMXBean pool;
+    private final int poolSize;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "load-test-sampler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Sampling current;
+
+
+    public ResourceSampler(HikariPoolMXBean pool, int poolSize) {
+        checkNotNull(pool, "pool cannot be null");
+        this.pool = pool;
+        this.poolSize = poolSize;
+    }
+
+
+    public synchronized void start() {
+        if (current != null) {
+            throw new IllegalStateException("Sampling already in progress");
+        }
+        current = new Sampling(gcCount(), gcMillis());
+        current.future = scheduler.scheduleAtFixedRate(
+                current::sample,
+                0,
+                SAMPLE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+
+    public synchronized ResourceUsage stop() {
+        if (current == null) {
+            throw new IllegalStateException("Sampling has not been started");
+        }
+        current.future.cancel(false);
+        current.sample();
+
+        ResourceUsage usage = new ResourceUsage(
+                gcCount() - current.startGcCount,
+                gcMillis() - current.startGcMillis,
+                current.maxHeapUsed,
+                poolSize,
+                current.maxActive,
+                current.samples == 0 ? 0 : (double) current.totalActive / current.samples,
+                current.maxAwaiting,
+                current.samples == 0 ? 0 : (double) current.saturatedSamples / current.samples);
+
+        current = null;
+        return usage;
+    }
+
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+
+    // --- helpers
+
+    private long gcCount() {
+        return collectors
+                .stream()
+                .mapToLong(c -> Math.max(0, c.getCollectionCount()))
+                .sum();
+    }
+
+
+    private long gcMillis() {
+        return collectors
+                .stream()
+                .mapToLong(c -> Math.max(0, c.getCollectionTime()))
+                .sum();
+    }
+
+
+    private class Sampling {
+
+        private final long startGcCount;
+        private final long startGcMillis;
+
+        private ScheduledFuture<?> future;
+        private long samples;
+        private long totalActive;
+        private int maxActive;
+        private int maxAwaiting;
+        private long saturatedSamples;
+        private long maxHeapUsed;
+
+        private Sampling(long startGcCount, long startGcMillis) {
+            this.startGcCount = startGcCount;
+            this.startGcMillis = startGcMillis;
+        }
+
+        private synchronized void sample() {
+            int active = pool.getActiveConnections();
+            int awaiting = pool.getThreadsAwaitingConnection();
+
+            samples++;
+            totalActive += active;
+            maxActive = Math.max(maxActive, active);
+            maxAwaiting = Math.max(maxAwaiting, awaiting);
+            if (active >= poolSize || awaiting > 0) {
+                saturatedSamples++;
+            }
+            maxHeapUsed = Math.max(maxHeapUsed, memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+
+    public static class ResourceUsage {
+
+        private final long gcCount;
+        private final long gcMillis;
+        private final long maxHeapUsedBytes;
+        private final int poolSize;
+        private final int maxActiveConnections;
+        private final double meanActiveConnections;
+        private final int maxThreadsAwaitingConnection;
+        private final double poolSaturatedFraction;
+
+        private ResourceUsage(long gcCount,
+                              long gcMillis,
+                              long maxHeapUsedBytes,
+                              int poolSize,
+                              int maxActiveConnections,
+                              double meanActiveConnections,
+                              int maxThreadsAwaitingConnection,
+                              double poolSaturatedFraction) {
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.maxHeapUsedBytes = maxHeapUsedBytes;
+            this.poolSize = poolSize;
+            this.maxActiveConnections = maxActiveConnections;
+            this.meanActiveConnections = meanActiveConnections;
+            this.maxThreadsAwaitingConnection = maxThreadsAwaitingConnection;
+            this.poolSaturatedFraction = poolSaturatedFraction;
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        public long getMaxHeapUsedBytes() {
+            return maxHeapUsedBytes;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getMaxActiveConnections() {
+            return maxActiveConnections;
+        }
+
+        public double getMeanActiveConnections() {
+            return meanActiveConnections;
+        }
+
+        public int getMaxThreadsAwaitingConnection() {
+            return maxThreadsAwaitingConnection;
+        }
+
+        /**
+         * Fraction of samples where every connection was in use or a thread was waiting for one.
+         */
+        public double getPoolSaturatedFraction() {
+            return poolSaturatedFraction;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("gcCount", gcCount);
+            m.put("gcMillis", gcMillis);
+            m.put("maxHeapUsedBytes", maxHeapUsedBytes);
+            m.put("poolSize", poolSize);
+            m.put("maxActiveConnections", maxActiveConnections);
+            m.put("meanActiveConnections", meanActiveConnections);
+            m.put("maxThreadsAwaitingConnection", maxThreadsAwaitingConnection);
+            m.put("poolSaturatedFraction", poolSaturatedFraction);
+            return m;
+        }
+    }
+
+}
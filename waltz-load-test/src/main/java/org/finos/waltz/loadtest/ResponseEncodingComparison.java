@@ -0,0 +1,165 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import org.finos.waltz.web.ResponseEncoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Compares the cost of encoding large api payloads as json, gzipped json (as
+ * sent when <code>server.gzip.enabled</code> is set) and the binary encodings a
+ * client can ask for via the <code>Accept</code> header (see {@link ResponseEncoding}).
+ * <p>
+ * Encoding is measured in-process, on the calling thread, so the cpu figures
+ * cover serialization and compression only and are not skewed by the http
+ * client or other requests.
+ */
+public class ResponseEncodingComparison {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+
+    /**
+     * Encodes the payload with each encoding, with and without gzip, first
+     * <code>iterations</code> times unmeasured (to warm up) and then
+     * <code>iterations</code> times measured.
+     */
+    public static List<EncodingResult> compare(String payloadName,
+                                               Object payload,
+                                               int iterations) throws IOException {
+        checkNotNull(payloadName, "payloadName cannot be null");
+        checkNotNull(payload, "payload cannot be null");
+        checkTrue(iterations > 0, "iterations must be positive");
+
+        List<EncodingResult> results = new ArrayList<>();
+        for (ResponseEncoding encoding : ResponseEncoding.values()) {
+            results.add(measure(payloadName, payload, encoding, false, iterations));
+            results.add(measure(payloadName, payload, encoding, true, iterations));
+        }
+        return results;
+    }
+
+
+    // --- helpers
+
+    private static EncodingResult measure(String payloadName,
+                                          Object payload,
+                                          ResponseEncoding encoding,
+                                          boolean gzip,
+                                          int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            encode(payload, encoding, gzip);
+        }
+
+        long bytes = 0;
+        long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes = encode(payload, encoding, gzip).length;
+        }
+        long cpuNanos = THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
+
+        return new EncodingResult(
+                payloadName,
+                encoding.name() + (gzip ? "+gzip" : ""),
+                bytes,
+                cpuNanos / iterations / 1_000_000.0);
+    }
+
+
+    private static byte[] encode(Object payload,
+                                 ResponseEncoding encoding,
+                                 boolean gzip) throws IOException {
+        byte[] encoded = encoding.encode(payload);
+        if (!gzip) {
+            return encoded;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(encoded.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(baos)) {
+            gzipStream.write(encoded);
+        }
+        return baos.toByteArray();
+    }
+
+
+    public static class EncodingResult {
+
+        private final String payload;
+        private final String encoding;
+        private final long bytes;
+        private final double cpuMillis;
+
+
+        private EncodingResult(String payload, String encoding, long bytes, double cpuMillis) {
+            this.payload = payload;
+            this.encoding = encoding;
+            this.bytes = bytes;
+            this.cpuMillis = cpuMillis;
+        }
+
+
+        public String getPayload() {
+            return payload;
+        }
+
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+
+        /**
+         * Size of the encoded payload.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+
+        /**
+         * Mean cpu time to encode the payload once.
+         */
+        public double getCpuMillis() {
+            return cpuMillis;
+        }
+
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("payload", payload);
+            m.put("encoding", encoding);
+            m.put("bytes", bytes);
+            m.put("cpuMillis", cpuMillis);
+            return m;
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and outcomes for a single route.
+ * <p>
+ * Every latency is kept (rather than bucketed) so percentiles are exact.
+ * Instances are not thread safe, each worker records into its own instances
+ * which are merged once the phase completes.
+ */
+public class RouteStats {
+
+    private final String route;
+    private final Map<Integer, Long> countsByStatus = new TreeMap<>();
+
+    private long[] latenciesMicros = new long[1024];
+    private int size = 0;
+    private boolean sorted = true;
+    private long errorCount = 0;
+    private long responseBytes = 0;
+
+
+    public RouteStats(String route) {
+        this.route = route;
+    }
+
+
+    /**
+     * @param latencyMicros  time from issuing the request to reading the last byte of the response
+     * @param status  http status, or -1 if the request failed without a response
+     * @param bytes  size of the response body as sent on the wire
+     */
+    public void record(long latencyMicros, int status, long bytes) {
+        if (size == latenciesMicros.length) {
+            latenciesMicros = Arrays.copyOf(latenciesMicros, size * 2);
+        }
+        latenciesMicros[size++] = latencyMicros;
+        sorted = false;
+        countsByStatus.merge(status, 1L, Long::sum);
+        responseBytes += bytes;
+        if (status < 200 || status >= 400) {
+            errorCount++;
+        }
+    }
+
+
+    public void merge(RouteStats other) {
+        if (latenciesMicros.length < size + other.size) {
+            latenciesMicros = Arrays.copyOf(latenciesMicros, size + other.size);
+        }
+        System.arraycopy(other.latenciesMicros, 0, latenciesMicros, size, other.size);
+        size += other.size;
+        sorted = false;
+        other.countsByStatus.forEach((status, count) -> countsByStatus.merge(status, count, Long::sum));
+        errorCount += other.errorCount;
+        responseBytes += other.responseBytes;
+    }
+
+
+    public String getRoute() {
+        return route;
+    }
+
+
+    public long getCount() {
+        return size;
+    }
+
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+
+    public Map<Integer, Long> getCountsByStatus() {
+        return countsByStatus;
+    }
+
+
+    public double getMeanMillis() {
+        if (size == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += latenciesMicros[i];
+        }
+        return total / (size * 1000.0);
+    }
+
+
+    /**
+     * Nearest-rank percentile, e.g. <code>getPercentileMillis(99)</code>.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        sort();
+        int rank = (int) Math.ceil(percentile / 100.0 * size);
+        int idx = Math.min(size - 1, Math.max(0, rank - 1));
+        return latenciesMicros[idx] / 1000.0;
+    }
+
+
+    public double getMaxMillis() {
+        return getPercentileMillis(100);
+    }
+
+
+    // --- helpers
+
+    private void sort() {
+        if (!sorted) {
+            Arrays.sort(latenciesMicros, 0, size);
+            sorted = true;
+        }
+    }
+
+}
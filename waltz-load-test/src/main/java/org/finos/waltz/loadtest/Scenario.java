@@ -0,0 +1,254 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toCollection;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * A weighted mix of {@link RequestTemplate}s.
+ * <p>
+ * Scenarios are either scripted, as a json array of templates (see
+ * <code>scenarios/default.json</code>), or recorded, derived from an access log.
+ */
+public class Scenario {
+
+    /**
+     * Matches the request line of the NCSA common / combined formats as written
+     * by Jetty's request log and most reverse proxies, e.g.
+     * <code>"GET /api/app/id/12 HTTP/1.1" 200</code>
+     */
+    private static final Pattern ACCESS_LOG_REQUEST = Pattern.compile("\"([A-Z]+) (\\S+) HTTP/[0-9.]+\" (\\d{3})");
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private static final String DEFAULT_SELECTOR_BODY = "{\"entityReference\": {\"kind\": \"ORG_UNIT\", \"id\": {orgUnitId}}, \"scope\": \"CHILDREN\"}";
+
+    private final List<RequestTemplate> templates;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+
+    public Scenario(List<RequestTemplate> templates) {
+        checkNotEmpty(templates, "scenario must contain at least one request template");
+
+        this.templates = Collections.unmodifiableList(new ArrayList<>(templates));
+        this.cumulativeWeights = new int[templates.size()];
+
+        int total = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            total += templates.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        this.totalWeight = total;
+    }
+
+
+    public List<RequestTemplate> templates() {
+        return templates;
+    }
+
+
+    public Set<String> routes() {
+        return templates
+                .stream()
+                .map(RequestTemplate::route)
+                .collect(toCollection(TreeSet::new));
+    }
+
+
+    public RequestTemplate pick(Random rnd) {
+        int target = rnd.nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (target < cumulativeWeights[i]) {
+                return templates.get(i);
+            }
+        }
+        throw new IllegalStateException("Weighted pick fell outside of the cumulative weights");
+    }
+
+
+    /**
+     * The subset of this scenario which belongs to a single route.
+     */
+    public Scenario forRoute(String route) {
+        List<RequestTemplate> subset = new ArrayList<>();
+        templates.forEach(t -> {
+            if (t.route().equals(route)) {
+                subset.add(t);
+            }
+        });
+        return new Scenario(subset);
+    }
+
+
+    // --- loading
+
+    /**
+     * Loads a scripted scenario, <code>location</code> is either a file path or a
+     * classpath resource prefixed with <code>classpath:</code>.
+     */
+    public static Scenario load(String location) throws IOException {
+        checkNotNull(location, "location cannot be null");
+        try (InputStream is = open(location)) {
+            return fromJson(is);
+        }
+    }
+
+
+    /**
+     * Each element is an object with <code>route</code>, <code>method</code>,
+     * <code>path</code> and, optionally, <code>body</code> (any json value) and
+     * <code>weight</code> (default 1).
+     */
+    public static Scenario fromJson(InputStream is) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode root = mapper.readTree(is);
+        List<RequestTemplate> templates = new ArrayList<>();
+
+        for (JsonNode node : root) {
+            JsonNode body = node.get("body");
+            templates.add(new RequestTemplate(
+                    node.get("route").asText(),
+                    node.get("method").asText(),
+                    node.get("path").asText(),
+                    body == null || body.isNull()
+                            ? Optional.empty()
+                            : Optional.of(body.isTextual() ? body.asText() : mapper.writeValueAsString(body)),
+                    node.has("weight") ? node.get("weight").asInt() : 1));
+        }
+
+        return new Scenario(templates);
+    }
+
+
+    /**
+     * Builds a scenario from an access log.  Every distinct request becomes a
+     * template weighted by the number of times it was seen.  Requests are
+     * grouped into routes by replacing numeric path segments with
+     * <code>:id</code>.
+     * <p>
+     * Access logs do not record request bodies, so POST requests borrow the
+     * body of the scripted template with the same route shape, falling back
+     * to an org unit selector which is what the majority of Waltz POST
+     * endpoints accept.  Only successful (2xx) GET and POST requests are
+     * replayed.
+     * <p>
+     * Recorded ids are replayed verbatim so the log should come from an
+     * environment whose data matches the load test database.
+     */
+    public static Scenario fromAccessLog(InputStream is, Scenario scripted) throws IOException {
+        Map<String, String> bodiesByShape = new LinkedHashMap<>();
+        scripted.templates().forEach(t -> t.body().ifPresent(b -> bodiesByShape.putIfAbsent(t.method() + " " + toShape(t.path()), b)));
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher m = ACCESS_LOG_REQUEST.matcher(line);
+                if (!m.find()) {
+                    continue;
+                }
+                String method = m.group(1);
+                String path = m.group(2);
+                boolean replayable = ("GET".equals(method) || "POST".equals(method))
+                        && m.group(3).startsWith("2")
+                        && (path.startsWith("/api/") || path.startsWith("/data-extract/"));
+                if (replayable) {
+                    counts.merge(method + " " + path, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<RequestTemplate> templates = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> {
+            int split = key.indexOf(' ');
+            String method = key.substring(0, split);
+            String path = key.substring(split + 1);
+            String shape = toShape(stripQuery(path));
+            Optional<String> body = "POST".equals(method)
+                    ? Optional.of(bodiesByShape.getOrDefault(method + " " + shape, DEFAULT_SELECTOR_BODY))
+                    : Optional.empty();
+            templates.add(new RequestTemplate(
+                    method + " " + shape,
+                    method,
+                    path,
+                    body,
+                    count));
+        });
+
+        return new Scenario(templates);
+    }
+
+
+    // --- helpers
+
+    static String toShape(String path) {
+        String p = path.startsWith("/") ? path : "/" + path;
+        return NUMERIC_SEGMENT
+                .matcher(p)
+                .replaceAll("/:id")
+                .replaceAll("\\{[A-Za-z]+}", ":id");
+    }
+
+
+    private static String stripQuery(String path) {
+        int idx = path.indexOf('?');
+        return idx == -1
+                ? path
+                : path.substring(0, idx);
+    }
+
+
+    static InputStream open(String location) throws IOException {
+        if (location.startsWith("classpath:")) {
+            String resource = location.substring("classpath:".length());
+            InputStream is = Scenario.class.getClassLoader().getResourceAsStream(resource);
+            if (is == null) {
+                throw new IOException("Cannot find classpath resource: " + resource);
+            }
+            return is;
+        } else {
+            return new FileInputStream(location);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.finos.waltz.model.aggregate_overlay_diagram.overlay;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+@Value.Immutable
+@JsonSerialize(as = ImmutableOverlayDiagramWidgetBatchData.class)
+public abstract class OverlayDiagramWidgetBatchData {
+
+    public abstract Optional<CountWidgetData> appCount();
+
+    public abstract Optional<TargetCostWidgetData> targetAppCost();
+
+    public abstract Optional<CostWidgetData> appCost();
+
+    public abstract Optional<CostWidgetData> ratingCost();
+
+    public abstract Optional<AssessmentRatingsWidgetData> appAssessment();
+
+    public abstract Optional<ComplexityWidgetData> appComplexity();
+
+    public abstract Optional<AttestationWidgetData> attestation();
+
+    public abstract Optional<AggregatedEntitiesWidgetData> aggregatedEntities();
+
+}
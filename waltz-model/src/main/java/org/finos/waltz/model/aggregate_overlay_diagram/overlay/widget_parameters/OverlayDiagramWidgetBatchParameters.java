@@ -0,0 +1,34 @@
+package org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * Parameters for each of the widgets to be calculated in a single batch.  Only
+ * widgets with parameters given are calculated.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableOverlayDiagramWidgetBatchParameters.class)
+@JsonDeserialize(as = ImmutableOverlayDiagramWidgetBatchParameters.class)
+public abstract class OverlayDiagramWidgetBatchParameters {
+
+    public abstract Optional<AppCountWidgetParameters> appCount();
+
+    public abstract Optional<TargetAppCostWidgetParameters> targetAppCost();
+
+    public abstract Optional<AppCostWidgetParameters> appCost();
+
+    public abstract Optional<RatingCostWidgetParameters> ratingCost();
+
+    public abstract Optional<AssessmentWidgetParameters> appAssessment();
+
+    public abstract Optional<AppComplexityWidgetParameters> appComplexity();
+
+    public abstract Optional<AttestationWidgetParameters> attestation();
+
+    public abstract Optional<AggregatedEntitiesWidgetParameters> aggregatedEntities();
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.async_task;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.IdProvider;
+import org.finos.waltz.model.Nullable;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A long running operation which has been submitted to run in the background.
+ * Clients poll for the status and, once completed, the result.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableAsyncTask.class)
+@JsonDeserialize(as = ImmutableAsyncTask.class)
+public abstract class AsyncTask implements IdProvider {
+
+    public abstract String kind();
+
+    public abstract String description();
+
+    public abstract AsyncTaskStatus status();
+
+    public abstract int progressCurrent();
+
+    @Nullable
+    public abstract Integer progressTotal();
+
+    @Nullable
+    public abstract String progressMessage();
+
+    /**
+     * json representation of the operation's result, only present once completed
+     */
+    @Nullable
+    public abstract JsonNode result();
+
+    @Nullable
+    public abstract String errorMessage();
+
+    public abstract boolean cancelRequested();
+
+    public abstract String submittedBy();
+
+    public abstract LocalDateTime submittedAt();
+
+    @Nullable
+    public abstract LocalDateTime startedAt();
+
+    @Nullable
+    public abstract LocalDateTime completedAt();
+
+    public abstract LocalDateTime lastUpdatedAt();
+
+}
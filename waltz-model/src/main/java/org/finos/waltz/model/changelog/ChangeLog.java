@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdProvider;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.Severity;
 import org.immutables.value.Value;
@@ -36,7 +37,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 @Value.Immutable
 @JsonSerialize(as = ImmutableChangeLog.class)
 @JsonDeserialize(as = ImmutableChangeLog.class)
-public abstract class ChangeLog {
+public abstract class ChangeLog implements IdProvider {
 
     public abstract EntityReference parentReference();
     public abstract String message();
@@ -0,0 +1,42 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.cost;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.math.BigDecimal;
+
+
+/**
+ * Total of a cost kind for a year across an org unit or measurable and all of its descendants.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableCostRollup.class)
+@JsonDeserialize(as = ImmutableCostRollup.class)
+public abstract class CostRollup {
+
+    public abstract long costKindId();
+    public abstract int year();
+    public abstract EntityReference rollupEntity();
+    public abstract BigDecimal total();
+    public abstract int entityCount();
+}
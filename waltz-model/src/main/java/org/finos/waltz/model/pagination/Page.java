@@ -0,0 +1,70 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.pagination;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * A page of a keyset paginated listing, <code>next</code> is present if
+ * there may be further items.
+ */
+@Value.Immutable
+public abstract class Page<T> {
+
+    public abstract List<T> items();
+
+    public abstract Optional<PageCursor> next();
+
+
+    /**
+     * Builds a page from rows fetched with a limit of one more than requested,
+     * the extra row (if any) indicates there is a next page.
+     *
+     * @param rows     up to <code>limit + 1</code> rows, in listing order
+     * @param toCursor gives the cursor for an item, used for the last item on the page
+     */
+    public static <T> Page<T> fromOverfetchedRows(List<T> rows,
+                                                  PageRequest pageRequest,
+                                                  Function<T, PageCursor> toCursor) {
+        checkNotNull(rows, "rows cannot be null");
+        checkNotNull(pageRequest, "pageRequest cannot be null");
+        checkNotNull(toCursor, "toCursor cannot be null");
+
+        int limit = pageRequest.limit();
+
+        if (rows.size() <= limit) {
+            return ImmutablePage.<T>builder()
+                    .items(rows)
+                    .build();
+        }
+
+        List<T> items = rows.subList(0, limit);
+        return ImmutablePage.<T>builder()
+                .items(items)
+                .next(toCursor.apply(items.get(limit - 1)))
+                .build();
+    }
+
+}
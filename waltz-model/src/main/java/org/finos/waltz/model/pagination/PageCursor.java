@@ -0,0 +1,91 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.pagination;
+
+import org.finos.waltz.model.Nullable;
+import org.immutables.value.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Position in a keyset paginated listing, the sort key (if the listing is not
+ * simply ordered by id) and id of the last item on the previous page.
+ *
+ * Clients treat the cursor as opaque, see {@link #encode()} and {@link #decode(String)}.
+ */
+@Value.Immutable
+public abstract class PageCursor {
+
+    private static final char SEPARATOR = ':';
+
+    @Nullable
+    public abstract String sortKey();
+
+    public abstract long id();
+
+
+    public static PageCursor mkCursor(long id) {
+        return ImmutablePageCursor.builder()
+                .id(id)
+                .build();
+    }
+
+
+    public static PageCursor mkCursor(String sortKey, long id) {
+        return ImmutablePageCursor.builder()
+                .sortKey(sortKey)
+                .id(id)
+                .build();
+    }
+
+
+    public String encode() {
+        String raw = sortKey() == null
+                ? Long.toString(id())
+                : id() + String.valueOf(SEPARATOR) + sortKey();
+
+        return Base64
+                .getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * @throws IllegalArgumentException if the value is not a cursor produced by {@link #encode()}
+     */
+    public static PageCursor decode(String encoded) {
+        checkNotNull(encoded, "encoded cursor cannot be null");
+
+        String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        int separatorIdx = raw.indexOf(SEPARATOR);
+
+        try {
+            return separatorIdx == -1
+                    ? mkCursor(Long.parseLong(raw))
+                    : mkCursor(raw.substring(separatorIdx + 1), Long.parseLong(raw.substring(0, separatorIdx)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cannot parse page cursor: " + encoded, e);
+        }
+    }
+
+}
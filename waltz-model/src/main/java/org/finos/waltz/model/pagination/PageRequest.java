@@ -0,0 +1,54 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.pagination;
+
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Requests a page of a keyset paginated listing: at most <code>limit</code>
+ * items following the <code>after</code> cursor (or from the start if absent).
+ */
+@Value.Immutable
+public abstract class PageRequest {
+
+    public static final int MAX_LIMIT = 10_000;
+
+    public abstract int limit();
+
+    public abstract Optional<PageCursor> after();
+
+
+    @Value.Check
+    protected void check() {
+        checkTrue(limit() > 0 && limit() <= MAX_LIMIT, "Page limit must be between 1 and %d", MAX_LIMIT);
+    }
+
+
+    public static PageRequest mkPageRequest(int limit, Optional<PageCursor> after) {
+        return ImmutablePageRequest.builder()
+                .limit(limit)
+                .after(after)
+                .build();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * A grid as it was computed at the snapshot's as-of time.  The instance (subjects,
+ * cells including derived columns and ratings) is the stored one, the definition
+ * and members are current.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableReportGridSnapshot.class)
+@JsonDeserialize(as = ImmutableReportGridSnapshot.class)
+public abstract class ReportGridSnapshot {
+
+    public abstract ReportGridSnapshotInfo info();
+
+    public abstract ReportGrid grid();
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.CreatedProvider;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdProvider;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.immutables.value.Value;
+
+/**
+ * Marks a grid and selection to be periodically computed and stored as a
+ * snapshot (see {@link ReportGridSnapshot}).
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableReportGridSnapshotConfig.class)
+@JsonDeserialize(as = ImmutableReportGridSnapshotConfig.class)
+public abstract class ReportGridSnapshotConfig implements IdProvider, CreatedProvider {
+
+    public abstract long reportGridId();
+
+    public abstract EntityReference selectorEntity();
+
+    public abstract HierarchyQueryScope selectorScope();
+
+
+    /**
+     * Snapshots are taken with the default selection options (active entities,
+     * no filters) for the selector entity and scope.
+     */
+    public IdSelectionOptions selectionOptions() {
+        return IdSelectionOptions.mkOpts(selectorEntity(), selectorScope());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.finos.waltz.model.pagination.PageCursor.mkCursor;
+import static org.finos.waltz.model.pagination.PageRequest.mkPageRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PageTest {
+
+    @Test
+    public void cursorsSurviveEncoding() {
+        assertEquals(mkCursor(42), PageCursor.decode(mkCursor(42).encode()));
+        assertEquals(mkCursor("2023-01-02T03:04:05.123", 42), PageCursor.decode(mkCursor("2023-01-02T03:04:05.123", 42).encode()));
+    }
+
+
+    @Test
+    public void badCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("YWJj"));
+    }
+
+
+    @Test
+    public void limitMustBeSensible() {
+        assertThrows(IllegalArgumentException.class, () -> mkPageRequest(0, Optional.empty()));
+        assertThrows(IllegalArgumentException.class, () -> mkPageRequest(PageRequest.MAX_LIMIT + 1, Optional.empty()));
+    }
+
+
+    @Test
+    public void lastPageHasNoNextCursor() {
+        Page<Long> page = Page.fromOverfetchedRows(asList(1L, 2L), mkPageRequest(2, Optional.empty()), PageCursor::mkCursor);
+        assertEquals(asList(1L, 2L), page.items());
+        assertFalse(page.next().isPresent());
+
+        Page<Long> empty = Page.fromOverfetchedRows(emptyList(), mkPageRequest(2, Optional.empty()), PageCursor::mkCursor);
+        assertFalse(empty.next().isPresent());
+    }
+
+
+    @Test
+    public void extraRowIsDroppedAndGivesTheNextCursor() {
+        Page<Long> page = Page.fromOverfetchedRows(asList(1L, 2L, 3L), mkPageRequest(2, Optional.empty()), PageCursor::mkCursor);
+        assertEquals(asList(1L, 2L), page.items());
+        assertEquals(Optional.of(mkCursor(2)), page.next());
+    }
+
+}
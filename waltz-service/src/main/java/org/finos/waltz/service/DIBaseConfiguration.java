@@ -23,6 +23,7 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.ReadYourWritesTracker;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
@@ -96,7 +97,8 @@ public class DIBaseConfiguration {
 
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(DataSource dataSource,
+                          ReadYourWritesTracker readYourWritesTracker) {
         try {
             SQLDialect.valueOf(dialect);
         } catch (IllegalArgumentException iae) {
@@ -121,7 +123,8 @@ public class DIBaseConfiguration {
                 .set(
                     //new SlowDatabaseConnectionSimulator(2000),
                     new SlowQueryListener(databasePerformanceQuerySlowThreshold),
-                    new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
+                    new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()),
+                    readYourWritesTracker.writeListener());
 
         return DSL.using(configuration);
     }
@@ -24,7 +24,14 @@ import org.finos.waltz.model.authentication.ImmutableOAuthConfiguration;
 import org.finos.waltz.model.authentication.OAuthConfiguration;
 import org.finos.waltz.model.settings.ImmutableSetting;
 import org.finos.waltz.model.settings.Setting;
+import org.finos.waltz.service.access_log.AccessLogService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.estate_snapshot.EstateSnapshotService;
+import org.finos.waltz.service.jmx.AsyncWriterMaintenance;
+import org.finos.waltz.service.jmx.EstateSnapshotMaintenance;
 import org.finos.waltz.service.jmx.PersonMaintenance;
+import org.finos.waltz.service.jmx.UserPermissionCacheMaintenance;
+import org.finos.waltz.service.permission.UserPermissionCache;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -140,6 +147,28 @@ public class DIConfiguration implements SchedulingConfigurer {
     }
 
 
+    @Bean
+    @Autowired
+    public UserPermissionCacheMaintenance userPermissionCacheMaintenance(UserPermissionCache userPermissionCache) {
+        return new UserPermissionCacheMaintenance(userPermissionCache);
+    }
+
+
+    @Bean
+    @Autowired
+    public AsyncWriterMaintenance asyncWriterMaintenance(AccessLogService accessLogService,
+                                                         ChangeLogService changeLogService) {
+        return new AsyncWriterMaintenance(accessLogService, changeLogService);
+    }
+
+
+    @Bean
+    @Autowired
+    public EstateSnapshotMaintenance estateSnapshotMaintenance(EstateSnapshotService estateSnapshotService) {
+        return new EstateSnapshotMaintenance(estateSnapshotService);
+    }
+
+
     @Bean
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
@@ -18,10 +18,13 @@
 
 package org.finos.waltz.service.access_log;
 
+import org.finos.waltz.common.AsyncBatchWriter;
 import org.finos.waltz.data.access_log.AccessLogDao;
 import org.finos.waltz.model.accesslog.AccessLog;
 import org.finos.waltz.model.accesslog.AccessTime;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -34,20 +37,53 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 
 
+/**
+ * Access log entries are written on every UI navigation.  They are best-effort
+ * so, by default, they are buffered and written in batches by a background thread.
+ * If the buffer fills up new entries are dropped rather than holding up requests.
+ */
 @Service
-public class AccessLogService {
+public class AccessLogService implements DisposableBean {
 
     private final AccessLogDao accessLogDao;
+    private final AsyncBatchWriter<AccessLog> asyncWriter;
 
     @Autowired
-    public AccessLogService(AccessLogDao accessLogDao) {
+    public AccessLogService(AccessLogDao accessLogDao,
+                            @Value("${access_log.async.enabled:true}") boolean asyncEnabled,
+                            @Value("${access_log.async.capacity:10000}") int capacity,
+                            @Value("${access_log.async.batch.size:500}") int batchSize,
+                            @Value("${access_log.async.flush.interval.ms:1000}") long flushIntervalMillis) {
+        checkNotNull(accessLogDao, "accessLogDao cannot be null");
+
         this.accessLogDao = accessLogDao;
+        this.asyncWriter = asyncEnabled
+                ? new AsyncBatchWriter<>(
+                        "access-log",
+                        capacity,
+                        batchSize,
+                        flushIntervalMillis,
+                        AsyncBatchWriter.OverflowPolicy.DROP,
+                        accessLogDao::write)
+                : null;
     }
 
 
+    /**
+     * @return 1 if the entry was written (or queued for writing), 0 if it was dropped
+     */
     public int write(AccessLog logEntry) {
         checkNotNull(logEntry, "logEntry must not be null");
-        return accessLogDao.write(logEntry);
+        if (asyncWriter == null) {
+            return accessLogDao.write(logEntry);
+        } else {
+            return asyncWriter.submit(logEntry) ? 1 : 0;
+        }
+    }
+
+
+    public Optional<AsyncBatchWriter<AccessLog>> getAsyncWriter() {
+        return Optional.ofNullable(asyncWriter);
     }
 
 
@@ -63,4 +99,12 @@ public class AccessLogService {
         return accessLogDao.findActiveUsersSince(sinceTime);
     }
 
+
+    @Override
+    public void destroy() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
+    }
+
 }
@@ -0,0 +1,297 @@
+package org.finos.waltz.service.aggregate_overlay_diagram;
+
+import org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramDao;
+import org.finos.waltz.data.aggregate_overlay_diagram.OverlayDiagramCellMapping;
+import org.finos.waltz.model.AssessmentBasedSelectionFilter;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.aggregate_overlay_diagram.AggregateOverlayDiagram;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Short-lived cache of the data shared by all widgets of an overlay diagram:
+ * <ul>
+ *     <li>the diagram itself</li>
+ *     <li>the cell to backing entity mappings, with hierarchies expanded</li>
+ *     <li>the cell to aggregated entity mappings for a selection (selection options,
+ *     assessment filters and target date)</li>
+ * </ul>
+ *
+ * A diagram typically shows several widgets for the same selection, each of which
+ * used to recalculate these mappings.  Concurrent requests for the same mapping wait
+ * for a single calculation rather than each running the queries.
+ *
+ * Saving a diagram invalidates its entries, the ttl bounds staleness for changes to
+ * the underlying ratings and data type usages.
+ */
+@Service
+public class AggregateOverlayDiagramCellMappingCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AggregateOverlayDiagramCellMappingCache.class);
+
+    private static final long DEFAULT_TTL_MILLIS = 60_000;
+    private static final int MAX_DIAGRAM_ENTRIES = 1_000;
+    private static final int MAX_CELL_MAPPING_ENTRIES = 2_000;
+
+    private final AggregateOverlayDiagramDao aggregateOverlayDiagramDao;
+    private final Clock clock;
+
+    private final ConcurrentMap<Long, Entry<AggregateOverlayDiagram>> diagramsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Entry<Set<Tuple2<String, EntityReference>>>> expandedCellMappingsByDiagramId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CellMappingKey, Entry<OverlayDiagramCellMapping>> cellMappingsByKey = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+
+    @Autowired
+    public AggregateOverlayDiagramCellMappingCache(AggregateOverlayDiagramDao aggregateOverlayDiagramDao) {
+        this(aggregateOverlayDiagramDao, Clock.systemUTC());
+    }
+
+
+    /**
+     * @param clock used to expire entries
+     */
+    public AggregateOverlayDiagramCellMappingCache(AggregateOverlayDiagramDao aggregateOverlayDiagramDao,
+                                                   Clock clock) {
+        checkNotNull(aggregateOverlayDiagramDao, "aggregateOverlayDiagramDao cannot be null");
+        checkNotNull(clock, "clock cannot be null");
+        this.aggregateOverlayDiagramDao = aggregateOverlayDiagramDao;
+        this.clock = clock;
+    }
+
+
+    public AggregateOverlayDiagram getDiagram(long diagramId) {
+        return getOrLoad(
+                diagramsById,
+                diagramId,
+                MAX_DIAGRAM_ENTRIES,
+                () -> aggregateOverlayDiagramDao.getById(diagramId));
+    }
+
+
+    public Set<Tuple2<String, EntityReference>> getExpandedCellMappings(long diagramId) {
+        return getOrLoad(
+                expandedCellMappingsByDiagramId,
+                diagramId,
+                MAX_DIAGRAM_ENTRIES,
+                () -> unmodifiableSet(aggregateOverlayDiagramDao.findExpandedCellMappings(diagramId)));
+    }
+
+
+    /**
+     * @param inScopeEntityIdSelector must be the selector derived from the given selection
+     *                                options and filters, it is only used if the mapping has
+     *                                not already been calculated
+     */
+    public OverlayDiagramCellMapping getCellMapping(long diagramId,
+                                                    EntityKind aggregatedEntityKind,
+                                                    IdSelectionOptions selectionOptions,
+                                                    Set<AssessmentBasedSelectionFilter> filters,
+                                                    Optional<LocalDate> targetStateDate,
+                                                    Select<Record1<Long>> inScopeEntityIdSelector) {
+        checkNotNull(aggregatedEntityKind, "aggregatedEntityKind cannot be null");
+        checkNotNull(selectionOptions, "selectionOptions cannot be null");
+        checkNotNull(filters, "filters cannot be null");
+        checkNotNull(targetStateDate, "targetStateDate cannot be null");
+        checkNotNull(inScopeEntityIdSelector, "inScopeEntityIdSelector cannot be null");
+
+        CellMappingKey key = new CellMappingKey(
+                diagramId,
+                aggregatedEntityKind,
+                selectionOptions,
+                filters,
+                targetStateDate);
+
+        return getOrLoad(
+                cellMappingsByKey,
+                key,
+                MAX_CELL_MAPPING_ENTRIES,
+                () -> aggregateOverlayDiagramDao.findCellMapping(
+                        getExpandedCellMappings(diagramId),
+                        aggregatedEntityKind,
+                        inScopeEntityIdSelector,
+                        targetStateDate));
+    }
+
+
+    // --- invalidation
+
+    public void invalidateDiagram(long diagramId) {
+        invalidations.increment();
+        diagramsById.remove(diagramId);
+        expandedCellMappingsByDiagramId.remove(diagramId);
+        cellMappingsByKey.keySet().removeIf(k -> k.diagramId == diagramId);
+    }
+
+
+    public void invalidateAll() {
+        LOG.info("Invalidating all cached overlay diagram cell mappings");
+        invalidations.increment();
+        diagramsById.clear();
+        expandedCellMappingsByDiagramId.clear();
+        cellMappingsByKey.clear();
+    }
+
+
+    // --- stats
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+
+    public int getCachedCellMappingCount() {
+        return cellMappingsByKey.size();
+    }
+
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+
+    public void setTtlMillis(long ttlMillis) {
+        checkTrue(ttlMillis >= 0, "ttl cannot be negative");
+        LOG.info("Setting overlay diagram cell mapping cache ttl to {}ms", ttlMillis);
+        this.ttlMillis = ttlMillis;
+        invalidateAll();
+    }
+
+
+    // --- helpers
+
+    private <K, V> V getOrLoad(ConcurrentMap<K, Entry<V>> entries,
+                               K key,
+                               int maxEntries,
+                               Supplier<V> loader) {
+        long now = clock.millis();
+
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> e.hasExpired(now));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+
+        Entry<V> entry = entries.compute(
+                key,
+                (k, existing) -> existing == null || existing.hasExpired(now)
+                        ? new Entry<>(now + ttlMillis)
+                        : existing);
+
+        return entry.getOrLoad(loader, hits, misses);
+    }
+
+
+    /**
+     * Holds a lazily loaded value so that concurrent callers for the same key share
+     * a single load.  A failed load is retried by the next caller.
+     */
+    private static class Entry<V> {
+
+        private final long expiresAt;
+        private volatile V value;
+
+        private Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        private V getOrLoad(Supplier<V> loader, LongAdder hits, LongAdder misses) {
+            V current = value;
+            if (current != null) {
+                hits.increment();
+                return current;
+            }
+
+            synchronized (this) {
+                if (value == null) {
+                    misses.increment();
+                    value = loader.get();
+                } else {
+                    hits.increment();
+                }
+                return value;
+            }
+        }
+    }
+
+
+    private static class CellMappingKey {
+
+        private final long diagramId;
+        private final EntityKind aggregatedEntityKind;
+        private final IdSelectionOptions selectionOptions;
+        private final Set<AssessmentBasedSelectionFilter> filters;
+        private final Optional<LocalDate> targetStateDate;
+
+        private CellMappingKey(long diagramId,
+                               EntityKind aggregatedEntityKind,
+                               IdSelectionOptions selectionOptions,
+                               Set<AssessmentBasedSelectionFilter> filters,
+                               Optional<LocalDate> targetStateDate) {
+            this.diagramId = diagramId;
+            this.aggregatedEntityKind = aggregatedEntityKind;
+            this.selectionOptions = selectionOptions;
+            this.filters = filters;
+            this.targetStateDate = targetStateDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CellMappingKey that = (CellMappingKey) o;
+            return diagramId == that.diagramId
+                    && aggregatedEntityKind == that.aggregatedEntityKind
+                    && selectionOptions.equals(that.selectionOptions)
+                    && filters.equals(that.filters)
+                    && targetStateDate.equals(that.targetStateDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(diagramId, aggregatedEntityKind, selectionOptions, filters, targetStateDate);
+        }
+    }
+
+}
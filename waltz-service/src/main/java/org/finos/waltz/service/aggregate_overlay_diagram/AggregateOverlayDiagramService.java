@@ -14,6 +14,7 @@ import org.finos.waltz.data.aggregate_overlay_diagram.AssessmentRatingWidgetDao;
 import org.finos.waltz.data.aggregate_overlay_diagram.AttestationWidgetDao;
 import org.finos.waltz.data.aggregate_overlay_diagram.BackingEntityWidgetDao;
 import org.finos.waltz.data.aggregate_overlay_diagram.ComplexityWidgetDao;
+import org.finos.waltz.data.aggregate_overlay_diagram.OverlayDiagramCellMapping;
 import org.finos.waltz.data.aggregate_overlay_diagram.RatingCostWidgetDao;
 import org.finos.waltz.data.aggregate_overlay_diagram.TargetAppCostWidgetDao;
 import org.finos.waltz.data.application.ApplicationDao;
@@ -54,8 +55,10 @@ import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableBackingE
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableComplexityWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableCostWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableCountWidgetData;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableOverlayDiagramWidgetBatchData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ImmutableTargetCostWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.MeasurableCostEntry;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.OverlayDiagramWidgetBatchData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.TargetCostWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.TargetCostWidgetDatum;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppChangeWidgetParameters;
@@ -64,6 +67,7 @@ import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppCountWidgetParameters;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AssessmentWidgetParameters;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AttestationWidgetParameters;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.OverlayDiagramWidgetBatchParameters;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.RatingCostWidgetParameters;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.TargetAppCostWidgetParameters;
 import org.finos.waltz.model.application.Application;
@@ -76,6 +80,7 @@ import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -104,6 +109,7 @@ public class AggregateOverlayDiagramService {
     private final ComplexityKindDao complexityKindDao;
     private final ComplexityWidgetDao complexityWidgetDao;
     private final AttestationWidgetDao attestationWidgetDao;
+    private final AggregateOverlayDiagramCellMappingCache cellMappingCache;
 
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
@@ -123,7 +129,8 @@ public class AggregateOverlayDiagramService {
                                           CostKindDao costKindDao,
                                           ComplexityKindDao complexityKindDao,
                                           ComplexityWidgetDao complexityWidgetDao,
-                                          AttestationWidgetDao attestationWidgetDao) {
+                                          AttestationWidgetDao attestationWidgetDao,
+                                          AggregateOverlayDiagramCellMappingCache cellMappingCache) {
 
         this.aggregateOverlayDiagramDao = aggregateOverlayDiagramDao;
         this.appCountWidgetDao = appCountWidgetDao;
@@ -141,6 +148,7 @@ public class AggregateOverlayDiagramService {
         this.complexityKindDao = complexityKindDao;
         this.complexityWidgetDao = complexityWidgetDao;
         this.attestationWidgetDao = attestationWidgetDao;
+        this.cellMappingCache = cellMappingCache;
     }
 
 
@@ -170,15 +178,176 @@ public class AggregateOverlayDiagramService {
                                                  IdSelectionOptions appSelectionOptions,
                                                  Set<AssessmentBasedSelectionFilter> filterParams,
                                                  AppCountWidgetParameters appCountWidgetParameters) {
+        return mkAppCountWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                appCountWidgetParameters);
+    }
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
+
+    public TargetCostWidgetData getTargetAppCostWidgetData(Long diagramId,
+                                                           IdSelectionOptions appSelectionOptions,
+                                                           Set<AssessmentBasedSelectionFilter> filterParams,
+                                                           TargetAppCostWidgetParameters targetAppCostWidgetParameters) {
+        return mkTargetAppCostWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                targetAppCostWidgetParameters);
+    }
+
+
+    public AttestationWidgetData getAttestationWidgetData(long diagramId,
+                                                          Set<AssessmentBasedSelectionFilter> filterParams,
+                                                          IdSelectionOptions appSelectionOptions,
+                                                          AttestationWidgetParameters widgetParams) {
+        return mkAttestationWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                widgetParams);
+    }
+
+
+    public CostWidgetData getAppCostWidgetData(Long diagramId,
+                                               Set<AssessmentBasedSelectionFilter> filterParams,
+                                               IdSelectionOptions appSelectionOptions,
+                                               AppCostWidgetParameters appCostWidgetParameters) {
+        return mkAppCostWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                appCostWidgetParameters);
+    }
+
+
+    public CostWidgetData getRatingCostWidgetData(Long diagramId,
+                                                  Set<AssessmentBasedSelectionFilter> filterParams,
+                                                  IdSelectionOptions appSelectionOptions,
+                                                  RatingCostWidgetParameters costWidgetParameters) {
+        return mkRatingCostWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                costWidgetParameters);
+    }
+
+
+    public AssessmentRatingsWidgetData getAppAssessmentWidgetData(Long diagramId,
+                                                                  Set<AssessmentBasedSelectionFilter> filterParams,
+                                                                  IdSelectionOptions appSelectionOptions,
+                                                                  AssessmentWidgetParameters assessmentWidgetParameters) {
+        return mkAppAssessmentWidgetData(
+                mkScope(diagramId, appSelectionOptions, filterParams),
+                assessmentWidgetParameters);
+    }
+
+
+    public AggregatedEntitiesWidgetData getAggregatedEntitiesWidgetData(Long diagramId,
+                                                                        Set<AssessmentBasedSelectionFilter> filterParams,
+                                                                        IdSelectionOptions idSelectionOptions) {
+        return mkAggregatedEntitiesWidgetData(mkScope(diagramId, idSelectionOptions, filterParams));
+    }
+
+
+    public ComplexityWidgetData getAppComplexityWidgetData(long diagramId,
+                                                           Set<AssessmentBasedSelectionFilter> assessmentBasedSelectionFilters,
+                                                           IdSelectionOptions idSelectionOptions,
+                                                           AppComplexityWidgetParameters complexityWidgetParameters) {
+        return mkAppComplexityWidgetData(
+                mkScope(diagramId, idSelectionOptions, assessmentBasedSelectionFilters),
+                complexityWidgetParameters);
+    }
+
+
+    /**
+     * Calculates each of the requested widgets for the same selection in one call, sharing
+     * the cell mappings, in scope entities and applications between them.
+     */
+    public OverlayDiagramWidgetBatchData getWidgetBatchData(long diagramId,
+                                                            Set<AssessmentBasedSelectionFilter> filterParams,
+                                                            IdSelectionOptions idSelectionOptions,
+                                                            OverlayDiagramWidgetBatchParameters batchParameters) {
+
+        WidgetScope scope = mkScope(diagramId, idSelectionOptions, filterParams);
+
+        return ImmutableOverlayDiagramWidgetBatchData
+                .builder()
+                .appCount(batchParameters.appCount().map(p -> mkAppCountWidgetData(scope, p)))
+                .targetAppCost(batchParameters.targetAppCost().map(p -> mkTargetAppCostWidgetData(scope, p)))
+                .appCost(batchParameters.appCost().map(p -> mkAppCostWidgetData(scope, p)))
+                .ratingCost(batchParameters.ratingCost().map(p -> mkRatingCostWidgetData(scope, p)))
+                .appAssessment(batchParameters.appAssessment().map(p -> mkAppAssessmentWidgetData(scope, p)))
+                .appComplexity(batchParameters.appComplexity().map(p -> mkAppComplexityWidgetData(scope, p)))
+                .attestation(batchParameters.attestation().map(p -> mkAttestationWidgetData(scope, p)))
+                .aggregatedEntities(batchParameters.aggregatedEntities().map(p -> mkAggregatedEntitiesWidgetData(scope)))
+                .build();
+    }
+
+
+    public BackingEntityWidgetData getBackingEntityWidgetData(Long diagramId) {
+        return ImmutableBackingEntityWidgetData
+                .builder()
+                .cellData(backingEntityWidgetDao.findWidgetData(diagramId))
+                .build();
+    }
+
+
+    public Set<AggregateOverlayDiagramPreset> findPresetsForDiagram(Long diagramId) {
+        return aggregateOverlayDiagramPresetDao.findPresetsForDiagram(diagramId);
+    }
+
+    public int createPreset(OverlayDiagramPresetCreateCommand createCommand, String username) {
+        return aggregateOverlayDiagramPresetDao.create(createCommand, username);
+    }
+
+
+    public Long save(OverlayDiagramSaveCommand saveCmd, String username) {
+        Long diagramId = aggregateOverlayDiagramDao.save(saveCmd, username);
+        aggregateOverlayDiagramDao.updateBackingEntities(diagramId, saveCmd.backingEntities());
+        cellMappingCache.invalidateDiagram(diagramId);
+        return diagramId;
+    }
+
+    public Boolean updateStatus(long diagramId, ReleaseLifecycleStatusChangeCommand changeStatusCmd, String username) {
+        Boolean updated = aggregateOverlayDiagramDao
+                .updateStatus(diagramId, changeStatusCmd);
+        cellMappingCache.invalidateDiagram(diagramId);
+        return updated;
+    }
+
+    public ApplicationChangeWidgetData getApplicationChangeWidgetData(long diagramId,
+                                                                      IdSelectionOptions idSelectionOptions,
+                                                                      AppChangeWidgetParameters overlayParameters) {
+
+        AggregateOverlayDiagram diagram = cellMappingCache.getDiagram(diagramId);
+
+        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), idSelectionOptions);
+
+        Set<ApplicationChangeWidgetDatum> widgetData = appChangesWidgetDao.findWidgetData(
+                diagramId,
+                genericSelector.selector(),
+                Optional.of(overlayParameters.targetDate()));
+
+        return ImmutableApplicationChangeWidgetData
+                .builder()
+                .cellData(widgetData)
+                .build();
+    }
+
+
+    // --- widget helpers
+
+    private WidgetScope mkScope(long diagramId,
+                                IdSelectionOptions selectionOptions,
+                                Set<AssessmentBasedSelectionFilter> filterParams) {
+
+        AggregateOverlayDiagram diagram = cellMappingCache.getDiagram(diagramId);
+
+        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), selectionOptions);
         Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
 
+        return new WidgetScope(diagramId, diagram, selectionOptions, filterParams, entityIdSelector);
+    }
+
+
+    private CountWidgetData mkAppCountWidgetData(WidgetScope scope,
+                                                 AppCountWidgetParameters appCountWidgetParameters) {
+
         Set<CountWidgetDatum> countData = appCountWidgetDao
                 .findWidgetData(
-                        diagramId,
-                        entityIdSelector,
+                        scope.cellMapping(EntityKind.APPLICATION, Optional.empty()),
                         appCountWidgetParameters.targetDate());
 
         return ImmutableCountWidgetData
@@ -188,17 +357,12 @@ public class AggregateOverlayDiagramService {
     }
 
 
-    public TargetCostWidgetData getTargetAppCostWidgetData(Long diagramId,
-                                                           IdSelectionOptions appSelectionOptions,
-                                                           Set<AssessmentBasedSelectionFilter> filterParams,
+    private TargetCostWidgetData mkTargetAppCostWidgetData(WidgetScope scope,
                                                            TargetAppCostWidgetParameters targetAppCostWidgetParameters) {
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
-
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
-        Set<TargetCostWidgetDatum> targetCostData = targetAppCostWidgetDao.findWidgetData(diagramId, entityIdSelector, targetAppCostWidgetParameters.targetDate());
+        Set<TargetCostWidgetDatum> targetCostData = targetAppCostWidgetDao.findWidgetData(
+                scope.cellMapping(EntityKind.APPLICATION, Optional.empty()),
+                targetAppCostWidgetParameters.targetDate());
 
         return ImmutableTargetCostWidgetData
                 .builder()
@@ -206,152 +370,85 @@ public class AggregateOverlayDiagramService {
                 .build();
     }
 
-    public AttestationWidgetData getAttestationWidgetData(long diagramId,
-                                                          Set<AssessmentBasedSelectionFilter> filterParams,
-                                                          IdSelectionOptions appSelectionOptions,
-                                                          AttestationWidgetParameters widgetParams) {
-
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
+    private AttestationWidgetData mkAttestationWidgetData(WidgetScope scope,
+                                                          AttestationWidgetParameters widgetParams) {
 
         Set<AttestationWidgetDatum> attestations = attestationWidgetDao.findWidgetData(
-                diagramId,
+                scope.cellMapping(EntityKind.APPLICATION, Optional.empty()),
                 widgetParams.attestedEntityKind(),
                 Optional.ofNullable(widgetParams.attestedEntityId()),
-                entityIdSelector);
-
-        List<Application> applications = applicationDao.findByAppIdSelector(entityIdSelector);
+                scope.entityIdSelector);
 
         return ImmutableAttestationWidgetData
                 .builder()
                 .cellData(attestations)
-                .applications(applications)
+                .applications(scope.applications())
                 .build();
     }
 
-    public CostWidgetData getAppCostWidgetData(Long diagramId,
-                                               Set<AssessmentBasedSelectionFilter> filterParams,
-                                               IdSelectionOptions appSelectionOptions,
-                                               AppCostWidgetParameters appCostWidgetParameters) {
-
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
 
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
+    private CostWidgetData mkAppCostWidgetData(WidgetScope scope,
+                                               AppCostWidgetParameters appCostWidgetParameters) {
 
         Set<CostWidgetDatum> costData = appCostWidgetDao.findWidgetData(
-                diagramId,
+                cellMappingCache.getExpandedCellMappings(scope.diagramId),
                 appCostWidgetParameters.costKindIds(),
                 appCostWidgetParameters.allocationSchemeId(),
-                entityIdSelector);
+                scope.entityIdSelector);
 
-        Set<Long> measurableIds = costData
-                .stream()
-                .flatMap(d -> d
-                        .measurableCosts()
-                        .stream())
-                .map(MeasurableCostEntry::measurableId)
-                .collect(Collectors.toSet());
-
-        Select<Record1<Long>> measurableSelector = DSL
-                .select(MEASURABLE.ID)
-                .from(MEASURABLE)
-                .where(MEASURABLE.ID.in(measurableIds));
-
-        List<Measurable> measurables = measurableDao.findByMeasurableIdSelector(measurableSelector);
-        List<Application> applications = applicationDao.findByAppIdSelector(entityIdSelector);
         Set<CostKindWithYears> costKindsWithYears = costKindDao.findAll();
 
         return ImmutableCostWidgetData
                 .builder()
                 .cellData(costData)
-                .measurables(measurables)
-                .applications(applications)
+                .measurables(findMeasurablesForCosts(costData))
+                .applications(scope.applications())
                 .costKinds(SetUtilities.map(costKindsWithYears, CostKindWithYears::costKind))
                 .build();
     }
 
 
-    public CostWidgetData getRatingCostWidgetData(Long diagramId,
-                                                  Set<AssessmentBasedSelectionFilter> filterParams,
-                                                  IdSelectionOptions appSelectionOptions,
+    private CostWidgetData mkRatingCostWidgetData(WidgetScope scope,
                                                   RatingCostWidgetParameters costWidgetParameters) {
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
-
         Set<CostWidgetDatum> costData = ratingCostWidgetDao.findWidgetData(
-                diagramId,
+                cellMappingCache.getExpandedCellMappings(scope.diagramId),
                 costWidgetParameters.costKindIds(),
-                entityIdSelector);
-
-        Set<Long> measurableIds = costData
-                .stream()
-                .flatMap(d -> d
-                        .measurableCosts()
-                        .stream())
-                .map(MeasurableCostEntry::measurableId)
-                .collect(Collectors.toSet());
+                scope.entityIdSelector);
 
-        Select<Record1<Long>> measurableSelector = DSL
-                .select(MEASURABLE.ID)
-                .from(MEASURABLE)
-                .where(MEASURABLE.ID.in(measurableIds));
-
-        List<Measurable> measurables = measurableDao.findByMeasurableIdSelector(measurableSelector);
-        List<Application> applications = applicationDao.findByAppIdSelector(entityIdSelector);
         Set<CostKindWithYears> costKindsWithYears = costKindDao.findCostKindsBySubjectKind(EntityKind.MEASURABLE_RATING);
 
         return ImmutableCostWidgetData
                 .builder()
                 .cellData(costData)
-                .measurables(measurables)
-                .applications(applications)
+                .measurables(findMeasurablesForCosts(costData))
+                .applications(scope.applications())
                 .costKinds(SetUtilities.map(costKindsWithYears, CostKindWithYears::costKind))
                 .build();
     }
 
 
-    public AssessmentRatingsWidgetData getAppAssessmentWidgetData(Long diagramId,
-                                                                  Set<AssessmentBasedSelectionFilter> filterParams,
-                                                                  IdSelectionOptions appSelectionOptions,
+    private AssessmentRatingsWidgetData mkAppAssessmentWidgetData(WidgetScope scope,
                                                                   AssessmentWidgetParameters assessmentWidgetParameters) {
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), appSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
+        OverlayDiagramCellMapping cellMapping = scope.cellMapping(
+                scope.diagram.aggregatedEntityKind(),
+                assessmentWidgetParameters.targetDate());
 
         return ImmutableAssessmentRatingsWidgetData.builder()
                 .cellData(appAssessmentWidgetDao.findWidgetData(
-                        diagramId,
-                        diagram.aggregatedEntityKind(),
-                        assessmentWidgetParameters.assessmentDefinitionId(),
-                        entityIdSelector,
-                        assessmentWidgetParameters.targetDate()))
+                        cellMapping,
+                        assessmentWidgetParameters.assessmentDefinitionId()))
                .build();
     }
 
 
-    public AggregatedEntitiesWidgetData getAggregatedEntitiesWidgetData(Long diagramId,
-                                                                        Set<AssessmentBasedSelectionFilter> filterParams,
-                                                                        IdSelectionOptions idSelectionOptions) {
-
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), idSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, filterParams);
+    private AggregatedEntitiesWidgetData mkAggregatedEntitiesWidgetData(WidgetScope scope) {
 
         Set<AggregatedEntitiesWidgetDatum> data = aggregatedEntitiesWidgetDao.findWidgetData(
-                diagramId,
-                diagram.aggregatedEntityKind(),
-                entityIdSelector,
-                Optional.empty());
+                scope.cellMapping(scope.diagram.aggregatedEntityKind(), Optional.empty()),
+                scope.entityIdSelector);
 
         return ImmutableAggregatedEntitiesWidgetData.builder()
                 .cellData(data)
@@ -359,79 +456,83 @@ public class AggregateOverlayDiagramService {
     }
 
 
-    public BackingEntityWidgetData getBackingEntityWidgetData(Long diagramId) {
-        return ImmutableBackingEntityWidgetData
-                .builder()
-                .cellData(backingEntityWidgetDao.findWidgetData(diagramId))
-                .build();
-    }
-
-
-    public Set<AggregateOverlayDiagramPreset> findPresetsForDiagram(Long diagramId) {
-        return aggregateOverlayDiagramPresetDao.findPresetsForDiagram(diagramId);
-    }
-
-    public int createPreset(OverlayDiagramPresetCreateCommand createCommand, String username) {
-        return aggregateOverlayDiagramPresetDao.create(createCommand, username);
-    }
-
-
-    public ComplexityWidgetData getAppComplexityWidgetData(long diagramId,
-                                                           Set<AssessmentBasedSelectionFilter> assessmentBasedSelectionFilters,
-                                                           IdSelectionOptions idSelectionOptions,
+    private ComplexityWidgetData mkAppComplexityWidgetData(WidgetScope scope,
                                                            AppComplexityWidgetParameters complexityWidgetParameters) {
 
-
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
-
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), idSelectionOptions);
-        Select<Record1<Long>> entityIdSelector = applyFiltersToSelector(genericSelector, assessmentBasedSelectionFilters);
-
         Set<ComplexityWidgetDatum> complexityData = complexityWidgetDao
                 .findWidgetData(
-                        diagramId,
-                        diagram.aggregatedEntityKind(),
-                        complexityWidgetParameters.complexityKindIds(),
-                        entityIdSelector);
+                        scope.cellMapping(scope.diagram.aggregatedEntityKind(), Optional.empty()),
+                        complexityWidgetParameters.complexityKindIds());
 
-        List<Application> applications = applicationDao.findByAppIdSelector(entityIdSelector);
         Set<ComplexityKind> complexityKinds = complexityKindDao.findAll();
 
         return ImmutableComplexityWidgetData
                 .builder()
                 .cellData(complexityData)
-                .applications(applications)
+                .applications(scope.applications())
                 .complexityKinds(complexityKinds)
                 .build();
     }
 
-    public Long save(OverlayDiagramSaveCommand saveCmd, String username) {
-        Long diagramId = aggregateOverlayDiagramDao.save(saveCmd, username);
-        aggregateOverlayDiagramDao.updateBackingEntities(diagramId, saveCmd.backingEntities());
-        return diagramId;
-    }
-
-    public Boolean updateStatus(long diagramId, ReleaseLifecycleStatusChangeCommand changeStatusCmd, String username) {
-        return aggregateOverlayDiagramDao
-                .updateStatus(diagramId, changeStatusCmd);
-    }
 
-    public ApplicationChangeWidgetData getApplicationChangeWidgetData(long diagramId,
-                                                                      IdSelectionOptions idSelectionOptions,
-                                                                      AppChangeWidgetParameters overlayParameters) {
+    private List<Measurable> findMeasurablesForCosts(Set<CostWidgetDatum> costData) {
+        Set<Long> measurableIds = costData
+                .stream()
+                .flatMap(d -> d
+                        .measurableCosts()
+                        .stream())
+                .map(MeasurableCostEntry::measurableId)
+                .collect(Collectors.toSet());
 
-        AggregateOverlayDiagram diagram = aggregateOverlayDiagramDao.getById(diagramId);
+        Select<Record1<Long>> measurableSelector = DSL
+                .select(MEASURABLE.ID)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.in(measurableIds));
 
-        GenericSelector genericSelector = genericSelectorFactory.applyForKind(diagram.aggregatedEntityKind(), idSelectionOptions);
+        return measurableDao.findByMeasurableIdSelector(measurableSelector);
+    }
 
-        Set<ApplicationChangeWidgetDatum> widgetData = appChangesWidgetDao.findWidgetData(
-                diagramId,
-                genericSelector.selector(),
-                Optional.of(overlayParameters.targetDate()));
 
-        return ImmutableApplicationChangeWidgetData
-                .builder()
-                .cellData(widgetData)
-                .build();
+    /**
+     * The diagram and selection shared by the widgets of a single request.
+     */
+    private class WidgetScope {
+
+        private final long diagramId;
+        private final AggregateOverlayDiagram diagram;
+        private final IdSelectionOptions selectionOptions;
+        private final Set<AssessmentBasedSelectionFilter> filters;
+        private final Select<Record1<Long>> entityIdSelector;
+        private List<Application> applications;
+
+        private WidgetScope(long diagramId,
+                            AggregateOverlayDiagram diagram,
+                            IdSelectionOptions selectionOptions,
+                            Set<AssessmentBasedSelectionFilter> filters,
+                            Select<Record1<Long>> entityIdSelector) {
+            this.diagramId = diagramId;
+            this.diagram = diagram;
+            this.selectionOptions = selectionOptions;
+            this.filters = filters;
+            this.entityIdSelector = entityIdSelector;
+        }
+
+        private OverlayDiagramCellMapping cellMapping(EntityKind aggregatedEntityKind,
+                                                      Optional<LocalDate> targetStateDate) {
+            return cellMappingCache.getCellMapping(
+                    diagramId,
+                    aggregatedEntityKind,
+                    selectionOptions,
+                    filters,
+                    targetStateDate,
+                    entityIdSelector);
+        }
+
+        private List<Application> applications() {
+            if (applications == null) {
+                applications = applicationDao.findByAppIdSelector(entityIdSelector);
+            }
+            return applications;
+        }
     }
 }
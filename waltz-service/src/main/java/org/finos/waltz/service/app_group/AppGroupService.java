@@ -25,9 +25,7 @@ import org.finos.waltz.data.app_group.AppGroupDao;
 import org.finos.waltz.data.app_group.AppGroupEntryDao;
 import org.finos.waltz.data.app_group.AppGroupMemberDao;
 import org.finos.waltz.data.app_group.AppGroupOrganisationalUnitDao;
-import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
-import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.DiffResult;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -42,16 +40,15 @@ import org.finos.waltz.model.app_group.AppGroupMember;
 import org.finos.waltz.model.app_group.AppGroupMemberRole;
 import org.finos.waltz.model.app_group.ImmutableAppGroup;
 import org.finos.waltz.model.app_group.ImmutableAppGroupDetail;
-import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.entity_relationship.EntityRelationship;
 import org.finos.waltz.model.entity_relationship.ImmutableEntityRelationship;
 import org.finos.waltz.model.entity_relationship.RelationshipKind;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
-import org.finos.waltz.model.orgunit.OrganisationalUnit;
 import org.finos.waltz.service.change_initiative.ChangeInitiativeService;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.estate_snapshot.EstateSnapshotService;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
 import org.slf4j.Logger;
@@ -85,9 +82,8 @@ public class AppGroupService {
     private final AppGroupDao appGroupDao;
     private final AppGroupMemberDao appGroupMemberDao;
     private final AppGroupEntryDao appGroupEntryDao;
-    private final ApplicationDao applicationDao;
     private final AppGroupOrganisationalUnitDao appGroupOrganisationalUnitDao;
-    private final OrganisationalUnitDao organisationalUnitDao;
+    private final EstateSnapshotService estateSnapshotService;
     private final EntityRelationshipDao entityRelationshipDao;
     private final ChangeInitiativeService changeInitiativeService;
     private final ChangeLogService changeLogService;
@@ -97,18 +93,16 @@ public class AppGroupService {
     public AppGroupService(AppGroupDao appGroupDao,
                            AppGroupMemberDao appGroupMemberDao,
                            AppGroupEntryDao appGroupEntryDao,
-                           ApplicationDao applicationDao,
                            AppGroupOrganisationalUnitDao appGroupOrganisationalUnitDao,
-                           OrganisationalUnitDao organisationalUnitDao,
+                           EstateSnapshotService estateSnapshotService,
                            EntityRelationshipDao entityRelationshipDao,
                            ChangeInitiativeService changeInitiativeService,
                            ChangeLogService changeLogService) {
         checkNotNull(appGroupDao, "appGroupDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
-        checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(appGroupOrganisationalUnitDao, "appGroupOrganisationalUnitDao cannot be null");
-        checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
+        checkNotNull(estateSnapshotService, "estateSnapshotService cannot be null");
         checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
         checkNotNull(changeInitiativeService, "changeInitiativeService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
@@ -116,9 +110,8 @@ public class AppGroupService {
         this.appGroupDao = appGroupDao;
         this.appGroupMemberDao = appGroupMemberDao;
         this.appGroupEntryDao = appGroupEntryDao;
-        this.applicationDao = applicationDao;
         this.appGroupOrganisationalUnitDao = appGroupOrganisationalUnitDao;
-        this.organisationalUnitDao = organisationalUnitDao;
+        this.estateSnapshotService = estateSnapshotService;
         this.entityRelationshipDao = entityRelationshipDao;
         this.changeInitiativeService = changeInitiativeService;
         this.changeLogService = changeLogService;
@@ -225,10 +218,10 @@ public class AppGroupService {
 
         verifyUserCanUpdateGroup(userId, groupId);
 
-        Application app = applicationDao.getById(applicationId);
-        if (app != null) {
+        Optional<EntityReference> app = estateSnapshotService.findApplicationRef(applicationId);
+        if (app.isPresent()) {
             appGroupEntryDao.addApplication(groupId, applicationId);
-            audit(groupId, userId, format("Added application %s to group", app.name()), EntityKind.APPLICATION, applicationId, Operation.ADD);
+            audit(groupId, userId, format("Added application %s to group", app.get().name().orElse("")), EntityKind.APPLICATION, applicationId, Operation.ADD);
         }
 
         return appGroupEntryDao.findEntriesForGroup(groupId);
@@ -244,12 +237,12 @@ public class AppGroupService {
         appGroupEntryDao.addApplications(groupId, applicationIds);
 
         EntityReference entityReference = mkRef(EntityKind.APP_GROUP, groupId);
-        List<Application> apps = applicationDao.findByIds(applicationIds);
+        List<EntityReference> apps = estateSnapshotService.findApplicationRefs(applicationIds);
 
         List<ChangeLog> addedApplicationChangeLogs = apps
                 .stream()
                 .map(app -> ImmutableChangeLog.builder()
-                            .message(format("Added application %s to group", app.name()))
+                            .message(format("Added application %s to group", app.name().orElse("")))
                             .userId(userId)
                             .parentReference(entityReference)
                             .childKind(EntityKind.APPLICATION)
@@ -278,11 +271,11 @@ public class AppGroupService {
     public List<AppGroupEntry> removeApplication(String userId, long groupId, long applicationId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupEntryDao.removeApplication(groupId, applicationId);
-        Application app = applicationDao.getById(applicationId);
+        Optional<EntityReference> app = estateSnapshotService.findApplicationRef(applicationId);
         audit(groupId, userId, format(
                     "Removed application %s from group",
-                    app != null
-                        ? app.name()
+                    app.isPresent()
+                        ? app.get().name().orElse("")
                         : applicationId),
                 EntityKind.APPLICATION,
                 applicationId,
@@ -293,10 +286,10 @@ public class AppGroupService {
     public List<AppGroupEntry> addOrganisationalUnit(String userId, long groupId, long orgUnitId) throws InsufficientPrivelegeException {
 
         verifyUserCanUpdateGroup(userId, groupId);
-        OrganisationalUnit orgUnit = organisationalUnitDao.getById(orgUnitId);
-        if (orgUnit != null) {
+        Optional<EntityReference> orgUnit = estateSnapshotService.findOrgUnitRef(orgUnitId);
+        if (orgUnit.isPresent()) {
             appGroupOrganisationalUnitDao.addOrgUnit(groupId, orgUnitId);
-            audit(groupId, userId, format("Added application %s to group", orgUnit.name()), EntityKind.ORG_UNIT, orgUnitId, Operation.ADD);
+            audit(groupId, userId, format("Added application %s to group", orgUnit.get().name().orElse("")), EntityKind.ORG_UNIT, orgUnitId, Operation.ADD);
         }
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
     }
@@ -304,8 +297,8 @@ public class AppGroupService {
     public List<AppGroupEntry> removeOrganisationalUnit(String userId, long groupId, long orgUnitId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupOrganisationalUnitDao.removeOrgUnit(groupId, orgUnitId);
-        OrganisationalUnit ou = organisationalUnitDao.getById(orgUnitId);
-        audit(groupId, userId, format("Removed application %s from group", ou != null ? ou.name() : orgUnitId), EntityKind.ORG_UNIT, orgUnitId, Operation.REMOVE);
+        Optional<EntityReference> ou = estateSnapshotService.findOrgUnitRef(orgUnitId);
+        audit(groupId, userId, format("Removed application %s from group", ou.isPresent() ? ou.get().name().orElse("") : orgUnitId), EntityKind.ORG_UNIT, orgUnitId, Operation.REMOVE);
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
     }
     public List<AppGroupEntry> removeApplications(String userId, long groupId, List<Long> applicationIds) throws InsufficientPrivelegeException {
@@ -313,11 +306,11 @@ public class AppGroupService {
 
         appGroupEntryDao.removeApplications(groupId, applicationIds);
 
-        List<Application> apps = applicationDao.findByIds(applicationIds);
+        List<EntityReference> apps = estateSnapshotService.findApplicationRefs(applicationIds);
         List<ChangeLog> changeLogs = apps
                 .stream()
                 .map(app -> ImmutableChangeLog.builder()
-                        .message(format("Removed application %s from group", app.name()))
+                        .message(format("Removed application %s from group", app.name().orElse("")))
                         .userId(userId)
                         .parentReference(ImmutableEntityReference.builder().id(groupId).kind(EntityKind.APP_GROUP).build())
                         .childKind(EntityKind.APPLICATION)
@@ -34,6 +34,8 @@ import org.finos.waltz.model.rating.RatingScheme;
 import org.finos.waltz.model.rating.RatingSchemeItem;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.permission.permission_checker.AssessmentRatingPermissionChecker;
+import org.jooq.Record1;
+import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -102,6 +104,12 @@ public class AssessmentRatingService {
     }
 
 
+    public Set<AssessmentRating> findPrimaryForMeasurableCategoryAndSelector(Select<Record1<Long>> appIdSelector,
+                                                                             long categoryId) {
+        return assessmentRatingDao.findPrimaryForMeasurableCategoryAndSelector(appIdSelector, categoryId);
+    }
+
+
     public int deleteByAssessmentRatingRelatedSelector(EntityKind targetKind,
                                                        IdSelectionOptions selectionOptions) {
         GenericSelector genericSelector = genericSelectorFactory.applyForKind(targetKind, selectionOptions);
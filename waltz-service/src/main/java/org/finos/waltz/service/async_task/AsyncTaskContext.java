@@ -0,0 +1,75 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.async_task;
+
+import org.finos.waltz.data.async_task.AsyncTaskDao;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Handed to a running task so it can report progress and check whether it has
+ * been cancelled.  Cancellation is cooperative, tasks should call
+ * {@link #checkCancelled()} between steps.
+ */
+public class AsyncTaskContext {
+
+    private final long taskId;
+    private final AsyncTaskDao asyncTaskDao;
+
+
+    AsyncTaskContext(long taskId, AsyncTaskDao asyncTaskDao) {
+        checkNotNull(asyncTaskDao, "asyncTaskDao cannot be null");
+        this.taskId = taskId;
+        this.asyncTaskDao = asyncTaskDao;
+    }
+
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+
+    public void reportProgress(String message) {
+        reportProgress(0, null, message);
+    }
+
+
+    /**
+     * @param total  number of steps, or null if not known
+     */
+    public void reportProgress(int current, Integer total, String message) {
+        asyncTaskDao.updateProgress(taskId, current, total, message);
+    }
+
+
+    public boolean isCancelRequested() {
+        return asyncTaskDao.isCancelRequested(taskId);
+    }
+
+
+    /**
+     * @throws AsyncTaskCancelledException if the task has been cancelled
+     */
+    public void checkCancelled() {
+        if (isCancelRequested()) {
+            throw new AsyncTaskCancelledException(taskId);
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.async_task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.data.async_task.AsyncTaskDao;
+import org.finos.waltz.model.async_task.AsyncTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotEmpty;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+
+/**
+ * Runs long operations (bulk uploads, taxonomy changes, recalculations etc.) on a
+ * small, bounded pool of worker threads rather than on the http request thread.
+ *
+ * Each task is persisted in the <code>async_task</code> table so that its status,
+ * progress and result can be polled, from any server, after the request which
+ * submitted it has returned.  If the queue is full submission fails immediately
+ * rather than building an unbounded backlog.
+ *
+ * Whilst a task is queued or running on this server its last updated time is
+ * periodically refreshed.  Unfinished tasks which stop being refreshed (e.g. the
+ * server was restarted) are marked as failed.
+ */
+@Service
+public class AsyncTaskService implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncTaskService.class);
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 60_000;
+    private static final long ABANDONED_AFTER_MILLIS = 10 * HEARTBEAT_INTERVAL_MILLIS;
+
+    private final AsyncTaskDao asyncTaskDao;
+    private final ThreadPoolExecutor executor;
+
+    // tasks queued or running on this server
+    private final ConcurrentMap<Long, FutureTask<?>> localTasks = new ConcurrentHashMap<>();
+
+
+    @Autowired
+    public AsyncTaskService(AsyncTaskDao asyncTaskDao,
+                            @Value("${async_task.workers:2}") int workers,
+                            @Value("${async_task.queue.capacity:50}") int queueCapacity) {
+        checkNotNull(asyncTaskDao, "asyncTaskDao cannot be null");
+        checkTrue(workers > 0, "workers must be positive");
+        checkTrue(queueCapacity > 0, "queueCapacity must be positive");
+
+        this.asyncTaskDao = asyncTaskDao;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "waltz-async-task-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+
+    /**
+     * Queues the work to run in the background.
+     *
+     * @param kind  kind of operation, e.g. BULK_UPLOAD
+     * @param description  human readable description of what is being done
+     * @param userId  user submitting the task, the work is expected to run on their behalf
+     * @return the newly queued task
+     * @throws IllegalStateException if too many tasks are already queued
+     */
+    public <T> AsyncTask submit(String kind,
+                                String description,
+                                String userId,
+                                AsyncTaskWork<T> work) {
+        checkNotEmpty(kind, "kind cannot be empty");
+        checkNotEmpty(description, "description cannot be empty");
+        checkNotEmpty(userId, "userId cannot be empty");
+        checkNotNull(work, "work cannot be null");
+
+        long taskId = asyncTaskDao.create(kind, description, userId);
+        FutureTask<Void> future = new FutureTask<>(() -> run(taskId, work), null);
+
+        localTasks.put(taskId, future);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            localTasks.remove(taskId);
+            asyncTaskDao.markFailed(taskId, "Too many tasks queued, please try again later");
+            throw new IllegalStateException("Cannot queue task, too many tasks are already queued", e);
+        }
+
+        LOG.info("Queued async task: {} ({}) for user: {}", taskId, kind, userId);
+        return asyncTaskDao.getById(taskId);
+    }
+
+
+    public AsyncTask getById(long id) {
+        return asyncTaskDao.getById(id);
+    }
+
+
+    public List<AsyncTask> findBySubmitter(String userId, int limit) {
+        return asyncTaskDao.findBySubmitter(userId, limit);
+    }
+
+
+    public List<AsyncTask> findRecent(int limit) {
+        return asyncTaskDao.findRecent(limit);
+    }
+
+
+    /**
+     * Queued tasks are cancelled immediately, running tasks are flagged and stop at their
+     * next cancellation check.
+     * @return the task after the cancellation request
+     */
+    public AsyncTask cancel(long id, String userId) {
+        if (asyncTaskDao.requestCancel(id)) {
+            LOG.info("User: {} requested cancellation of async task: {}", userId, id);
+
+            FutureTask<?> future = localTasks.get(id);
+            if (future != null && executor.remove(future)) {
+                localTasks.remove(id);
+                asyncTaskDao.markCancelled(id);
+            }
+        }
+        return asyncTaskDao.getById(id);
+    }
+
+
+    @Scheduled(fixedRate = HEARTBEAT_INTERVAL_MILLIS)
+    public void heartbeat() {
+        asyncTaskDao.touch(localTasks.keySet());
+
+        Timestamp cutoff = new Timestamp(DateTimeUtilities.nowUtcTimestamp().getTime() - ABANDONED_AFTER_MILLIS);
+        int abandoned = asyncTaskDao.failAbandoned(cutoff);
+        if (abandoned > 0) {
+            LOG.warn("Marked {} abandoned async tasks as failed", abandoned);
+        }
+    }
+
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+
+    @Override
+    public void destroy() {
+        LOG.info("Shutting down async task executor, {} tasks queued or running", localTasks.size());
+        executor.shutdownNow();
+    }
+
+
+    // --- helpers
+
+    private <T> void run(long taskId, AsyncTaskWork<T> work) {
+        try {
+            if (!asyncTaskDao.markRunning(taskId)) {
+                // cancelled whilst queued
+                asyncTaskDao.markCancelled(taskId);
+                return;
+            }
+
+            LOG.info("Starting async task: {}", taskId);
+            long start = System.currentTimeMillis();
+
+            T result = work.run(new AsyncTaskContext(taskId, asyncTaskDao));
+            asyncTaskDao.markCompleted(taskId, toJson(result));
+
+            LOG.info("Completed async task: {} in {}ms", taskId, System.currentTimeMillis() - start);
+        } catch (AsyncTaskCancelledException e) {
+            LOG.info("Async task: {} cancelled", taskId);
+            asyncTaskDao.markCancelled(taskId);
+        } catch (Exception e) {
+            LOG.error(format("Async task: %d failed", taskId), e);
+            asyncTaskDao.markFailed(taskId, mkErrorMessage(e));
+        } finally {
+            localTasks.remove(taskId);
+        }
+    }
+
+
+    private static String toJson(Object result) throws JsonProcessingException {
+        return result == null
+                ? null
+                : getJsonMapper().writeValueAsString(result);
+    }
+
+
+    private static String mkErrorMessage(Exception e) {
+        return e.getMessage() == null
+                ? e.getClass().getSimpleName()
+                : e.getMessage();
+    }
+
+}
@@ -18,10 +18,12 @@
 
 package org.finos.waltz.service.changelog;
 
+import org.finos.waltz.common.AsyncBatchWriter;
 import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.changelog.ChangeLogArchiveDao;
 import org.finos.waltz.data.changelog.ChangeLogDao;
 import org.finos.waltz.data.changelog.ChangeLogSummariesDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
@@ -38,16 +40,24 @@ import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommission;
 import org.finos.waltz.model.measurable_rating_replacement.MeasurableRatingReplacement;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.physical_flow.PhysicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.tally.DateTally;
 import org.jooq.DSLContext;
 import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
 import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -56,6 +66,7 @@ import java.util.Set;
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.SetUtilities.*;
 import static org.finos.waltz.model.EntityKind.*;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -63,10 +74,31 @@ import static org.finos.waltz.model.EntityReferenceUtilities.safeName;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
+/**
+ * Change log writes may optionally be made asynchronously (see <code>change_log.async.enabled</code>).
+ * When enabled, entries written outside of an explicit transaction are queued and inserted in
+ * batches by a single background writer, preserving submission order.  The queue never drops
+ * entries, callers will block if it is full.  Entries written as part of a transaction
+ * (via {@link #write(Optional, ChangeLog)} with a context) are always written synchronously so
+ * they commit, or roll back, with the change they describe.
+ * <p>
+ * Entries older than <code>change_log.archive.horizon.days</code> (if set) are periodically moved
+ * to an archive table, finders consult the archive when their date range (or limit) reaches back
+ * that far.
+ */
 @Service
-public class ChangeLogService {
+public class ChangeLogService implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogService.class);
+
+    /**
+     * Bounds the work done by each call to {@link #archiveOldEntries()}, a large backlog is
+     * archived over several runs of the scheduled job
+     */
+    private static final int MAX_ARCHIVE_BATCHES_PER_RUN = 20;
 
     private final ChangeLogDao changeLogDao;
+    private final ChangeLogArchiveDao changeLogArchiveDao;
     private final ChangeLogSummariesDao changeLogSummariesDao;
     private final PhysicalFlowDao physicalFlowDao;
     private final LogicalFlowDao logicalFlowDao;
@@ -76,10 +108,13 @@ public class ChangeLogService {
     private final MeasurableRatingDao measurableRatingDao;
     private final MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao;
     private final EntityReferenceNameResolver nameResolver;
+    private final AsyncBatchWriter<ChangeLog> asyncWriter;
+    private final int archiveHorizonDays;
 
 
     @Autowired
     public ChangeLogService(ChangeLogDao changeLogDao,
+                            ChangeLogArchiveDao changeLogArchiveDao,
                             ChangeLogSummariesDao changeLogSummariesDao,
                             PhysicalFlowDao physicalFlowDao,
                             PhysicalSpecificationDao physicalSpecificationDao,
@@ -88,8 +123,14 @@ public class ChangeLogService {
                             MeasurableRatingReplacementDao measurableRatingReplacementDao,
                             MeasurableRatingDao measurableRatingdao,
                             MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao,
-                            EntityReferenceNameResolver nameResolver) {
+                            EntityReferenceNameResolver nameResolver,
+                            @Value("${change_log.async.enabled:false}") boolean asyncEnabled,
+                            @Value("${change_log.async.capacity:5000}") int asyncCapacity,
+                            @Value("${change_log.async.batch.size:250}") int asyncBatchSize,
+                            @Value("${change_log.async.flush.interval.ms:250}") long asyncFlushIntervalMillis,
+                            @Value("${change_log.archive.horizon.days:0}") int archiveHorizonDays) {
         checkNotNull(changeLogDao, "changeLogDao must not be null");
+        checkNotNull(changeLogArchiveDao, "changeLogArchiveDao must not be null");
         checkNotNull(changeLogSummariesDao, "changeLogSummariesDao must not be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
@@ -100,6 +141,7 @@ public class ChangeLogService {
         checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.changeLogDao = changeLogDao;
+        this.changeLogArchiveDao = changeLogArchiveDao;
         this.changeLogSummariesDao = changeLogSummariesDao;
         this.physicalFlowDao = physicalFlowDao;
         this.physicalSpecificationDao = physicalSpecificationDao;
@@ -109,6 +151,16 @@ public class ChangeLogService {
         this.measurableRatingReplacementdao = measurableRatingReplacementDao;
         this.measurableRatingPlannedDecommissionDao = measurableRatingPlannedDecommissionDao;
         this.nameResolver = nameResolver;
+        this.asyncWriter = asyncEnabled
+                ? new AsyncBatchWriter<>(
+                        "change-log",
+                        asyncCapacity,
+                        asyncBatchSize,
+                        asyncFlushIntervalMillis,
+                        AsyncBatchWriter.OverflowPolicy.BLOCK,
+                        changeLogDao::write)
+                : null;
+        this.archiveHorizonDays = archiveHorizonDays;
     }
 
 
@@ -137,6 +189,14 @@ public class ChangeLogService {
     }
 
 
+    public Page<ChangeLog> findByParentReference(EntityReference ref,
+                                                 Optional<java.util.Date> date,
+                                                 PageRequest pageRequest) {
+        checkNotNull(ref, "ref must not be null");
+        return changeLogDao.findByParentReference(ref, date, pageRequest);
+    }
+
+
     public List<ChangeLog> findByPersonReference(EntityReference ref,
                                                  Optional<java.util.Date> date,
                                                  Optional<Integer> limit) {
@@ -145,6 +205,14 @@ public class ChangeLogService {
     }
 
 
+    public Page<ChangeLog> findByPersonReference(EntityReference ref,
+                                                 Optional<java.util.Date> date,
+                                                 PageRequest pageRequest) {
+        checkNotNull(ref, "ref must not be null");
+        return changeLogDao.findByPersonReference(ref, date, pageRequest);
+    }
+
+
     public List<ChangeLog> findByUser(String userName,
                                       Optional<Integer> limit) {
         checkNotEmpty(userName, "Username cannot be empty");
@@ -153,17 +221,53 @@ public class ChangeLogService {
 
 
     public int write(ChangeLog changeLog) {
-        return changeLogDao.write(Optional.empty(), changeLog);
+        return write(Optional.empty(), changeLog);
     }
 
 
     public int write(Optional<DSLContext> tx, ChangeLog changeLog) {
-        return changeLogDao.write(tx, changeLog);
+        if (asyncWriter == null || tx.isPresent()) {
+            return changeLogDao.write(tx, changeLog);
+        } else {
+            return asyncWriter.submit(changeLog) ? 1 : 0;
+        }
     }
 
 
     public int[] write(Collection<ChangeLog> changeLogs) {
-        return changeLogDao.write(changeLogs);
+        if (asyncWriter == null) {
+            return changeLogDao.write(changeLogs);
+        } else {
+            asyncWriter.submitAll(changeLogs);
+            int[] rcs = new int[changeLogs.size()];
+            Arrays.fill(rcs, 1);
+            return rcs;
+        }
+    }
+
+
+    public Optional<AsyncBatchWriter<ChangeLog>> getAsyncWriter() {
+        return Optional.ofNullable(asyncWriter);
+    }
+
+
+    /**
+     * Moves entries older than the archive horizon (<code>change_log.archive.horizon.days</code>)
+     * to the change log archive.  Does nothing if no horizon is configured.
+     *
+     * @return number of entries archived
+     */
+    public int archiveOldEntries() {
+        if (archiveHorizonDays <= 0) {
+            return 0;
+        }
+
+        Timestamp createdBefore = Timestamp.valueOf(nowUtc().minusDays(archiveHorizonDays));
+        int archived = changeLogArchiveDao.archive(createdBefore, MAX_ARCHIVE_BATCHES_PER_RUN);
+        if (archived > 0) {
+            LOG.info("Archived {} change log entries created before {}", archived, createdBefore);
+        }
+        return archived;
     }
 
 
@@ -280,7 +384,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -302,7 +406,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -420,4 +524,13 @@ public class ChangeLogService {
                 .flatMap(EntityReference::name)
                 .orElse("UNKNOWN");
     }
+
+
+    @Override
+    public void destroy() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
+    }
+
 }
@@ -20,6 +20,7 @@ package org.finos.waltz.service.changelog;
 
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
+import org.finos.waltz.data.changelog.ChangeLogRollupDao;
 import org.finos.waltz.data.changelog.ChangeLogSummariesDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.IdSelectionOptions;
@@ -41,14 +42,18 @@ public class ChangeLogSummariesService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ChangeLogSummariesService.class);
     private final ChangeLogSummariesDao changeLogSummariesDao;
+    private final ChangeLogRollupDao changeLogRollupDao;
 
     GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
     @Autowired
-    public ChangeLogSummariesService(ChangeLogSummariesDao changeLogSummariesDao) {
+    public ChangeLogSummariesService(ChangeLogSummariesDao changeLogSummariesDao,
+                                     ChangeLogRollupDao changeLogRollupDao) {
         checkNotNull(changeLogSummariesDao, "changeLogSummariesDao must not be null");
+        checkNotNull(changeLogRollupDao, "changeLogRollupDao must not be null");
 
         this.changeLogSummariesDao = changeLogSummariesDao;
+        this.changeLogRollupDao = changeLogRollupDao;
     }
 
     public List<ChangeLogTally> findCountByParentAndChildKindForDateRangeBySelector(EntityKind targetKind,
@@ -65,4 +70,19 @@ public class ChangeLogSummariesService {
                 endDate,
                 limit);
     }
+
+
+    /**
+     * Rolls up change log entries made since the last refresh into the daily
+     * rollups used by the change log summaries and contribution leaderboards.
+     *
+     * @return number of change log entries rolled up
+     */
+    public int refreshRollups() {
+        int count = changeLogRollupDao.refresh();
+        if (count > 0) {
+            LOG.info("Rolled up {} change log entries", count);
+        }
+        return count;
+    }
 }
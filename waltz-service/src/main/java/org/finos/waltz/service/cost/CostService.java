@@ -24,11 +24,15 @@ import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.cost.AllocatedCostDefinitionDao;
 import org.finos.waltz.data.cost.CostDao;
 import org.finos.waltz.data.cost.CostKindDao;
+import org.finos.waltz.data.cost.CostRollupDao;
 import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.cost.AllocatedCostDefinition;
 import org.finos.waltz.model.cost.CostKindWithYears;
+import org.finos.waltz.model.cost.CostRollup;
 import org.finos.waltz.model.cost.EntityCost;
 import org.finos.waltz.model.cost.EntityCostsSummary;
 import org.finos.waltz.model.cost.ImmutableEntityCostsSummary;
@@ -39,14 +43,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static java.lang.String.format;
 import static java.util.Comparator.comparingInt;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.minus;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class CostService {
@@ -56,20 +66,24 @@ public class CostService {
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final CostKindDao costKindDao;
     private final AllocatedCostDefinitionDao allocatedCostDefinitionDao;
+    private final CostRollupDao costRollupDao;
 
 
     @Autowired
     CostService(CostDao costDao,
                 CostKindDao costKindDao,
-                AllocatedCostDefinitionDao allocatedCostDefinitionDao){
+                AllocatedCostDefinitionDao allocatedCostDefinitionDao,
+                CostRollupDao costRollupDao){
 
         checkNotNull(allocatedCostDefinitionDao, "allocatedCostDefinitionDao must not be null");
         checkNotNull(costDao, "costDao must not be null");
         checkNotNull(costKindDao, "costKindDao must not be null");
+        checkNotNull(costRollupDao, "costRollupDao must not be null");
 
         this.allocatedCostDefinitionDao = allocatedCostDefinitionDao;
         this.costKindDao = costKindDao;
         this.costDao = costDao;
+        this.costRollupDao = costRollupDao;
     }
 
 
@@ -104,17 +118,29 @@ public class CostService {
                         limit);
 
 
-        BigDecimal totalCost = costDao
-                .getTotalForKindAndYearBySelector(
-                        costKindId,
-                        year,
-                        genericSelector);
-
-        Tuple2<Integer, Integer> mappedAndMissingCounts = costDao
-                .getMappedAndMissingCountsForKindAndYearBySelector(
-                        costKindId,
-                        year,
-                        genericSelector);
+        Optional<CostRollup> rollup = findRollupForSelection(
+                costKindId,
+                selectionOptions,
+                targetKind,
+                year);
+
+        BigDecimal totalCost = rollup
+                .map(CostRollup::total)
+                .orElseGet(() -> costDao
+                        .getTotalForKindAndYearBySelector(
+                                costKindId,
+                                year,
+                                genericSelector));
+
+        Tuple2<Integer, Integer> mappedAndMissingCounts = rollup
+                .map(r -> tuple(
+                        r.entityCount(),
+                        costDao.countEntitiesBySelector(genericSelector) - r.entityCount()))
+                .orElseGet(() -> costDao
+                        .getMappedAndMissingCountsForKindAndYearBySelector(
+                                costKindId,
+                                year,
+                                genericSelector));
 
         return ImmutableEntityCostsSummary
                 .builder()
@@ -153,10 +179,88 @@ public class CostService {
                     allocateCostsByDefinition(defn, maxYear);
 
                 });
+
+        refreshCostRollups();
     }
 
     public void allocateCostsByDefinition(AllocatedCostDefinition defn, Integer year) {
         allocatedCostDefinitionDao.allocateCostsByDefinition(defn, year);
     }
 
+
+
+    public Set<CostRollup> findRollups(long costKindId,
+                                       int year,
+                                       EntityKind rollupKind,
+                                       Collection<Long> rollupEntityIds) {
+        return costRollupDao.findRollups(costKindId, year, rollupKind, rollupEntityIds);
+    }
+
+
+    /**
+     * Rebuilds the cost rollups for any cost kind and year whose costs, or the hierarchies
+     * and ratings they are rolled up by, have changed since the rollup was last built.
+     *
+     * @return number of cost kind / year partitions rebuilt or removed
+     */
+    public int refreshCostRollups() {
+        Map<Tuple2<Long, Integer>, String> sourceChecksums = costRollupDao.calcSourceChecksums();
+        Map<Tuple2<Long, Integer>, String> partitionChecksums = costRollupDao.findPartitionChecksums();
+
+        Set<Tuple2<Long, Integer>> removedPartitions = minus(partitionChecksums.keySet(), sourceChecksums.keySet());
+        removedPartitions.forEach(p -> costRollupDao.removePartition(p.v1, p.v2));
+
+        Map<Tuple2<Long, Integer>, String> stalePartitions = sourceChecksums
+                .entrySet()
+                .stream()
+                .filter(e -> !e.getValue().equals(partitionChecksums.get(e.getKey())))
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        stalePartitions.forEach((p, checksum) -> costRollupDao.rebuildPartition(p.v1, p.v2, checksum));
+
+        if (!stalePartitions.isEmpty() || !removedPartitions.isEmpty()) {
+            LOG.info(format(
+                    "Refreshed cost rollups, rebuilt %d partitions and removed %d",
+                    stalePartitions.size(),
+                    removedPartitions.size()));
+        }
+
+        return stalePartitions.size() + removedPartitions.size();
+    }
+
+
+    /**
+     * Rebuilds every cost rollup regardless of whether the underlying data has changed
+     */
+    public int rebuildCostRollups() {
+        Map<Tuple2<Long, Integer>, String> sourceChecksums = costRollupDao.calcSourceChecksums();
+
+        minus(costRollupDao.findPartitionChecksums().keySet(), sourceChecksums.keySet())
+                .forEach(p -> costRollupDao.removePartition(p.v1, p.v2));
+
+        sourceChecksums.forEach((p, checksum) -> costRollupDao.rebuildPartition(p.v1, p.v2, checksum));
+
+        LOG.info(format("Rebuilt cost rollups for %d partitions", sourceChecksums.size()));
+        return sourceChecksums.size();
+    }
+
+
+    /**
+     * The rollups hold totals for applications of an org unit (and its descendants) using the
+     * default application filters, other selections are calculated from the costs directly.
+     */
+    private Optional<CostRollup> findRollupForSelection(long costKindId,
+                                                        IdSelectionOptions selectionOptions,
+                                                        EntityKind targetKind,
+                                                        int year) {
+        boolean rollupApplies = targetKind == EntityKind.APPLICATION
+                && selectionOptions.entityReference().kind() == EntityKind.ORG_UNIT
+                && selectionOptions.scope() == HierarchyQueryScope.CHILDREN
+                && selectionOptions.entityLifecycleStatuses().equals(asSet(EntityLifecycleStatus.ACTIVE))
+                && selectionOptions.filters().omitApplicationKinds().isEmpty();
+
+        return rollupApplies
+                ? costRollupDao.findRollup(costKindId, year, EntityKind.ORG_UNIT, selectionOptions.entityReference().id())
+                : Optional.empty();
+    }
+
 }
@@ -22,10 +22,14 @@ import org.finos.waltz.common.Checks;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDefinitionDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticSummaryCubeDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticSummaryDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticValueDao;
 import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.entity_statistic.EntityStatistic;
@@ -37,25 +41,42 @@ import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchyUtilities;
 import org.finos.waltz.model.tally.TallyPack;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
+import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.concat;
 import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.minus;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class EntityStatisticService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EntityStatisticService.class);
+
     private final ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
     private final EntityStatisticValueDao valueDao;
     private final EntityStatisticDefinitionDao definitionDao;
     private final EntityStatisticSummaryDao summaryDao;
+    private final EntityStatisticSummaryCubeDao summaryCubeDao;
     private final EntityStatisticDao statisticDao;
 
 
@@ -63,16 +84,19 @@ public class EntityStatisticService {
     public EntityStatisticService(EntityStatisticValueDao valueDao,
                                   EntityStatisticDefinitionDao definitionDao,
                                   EntityStatisticSummaryDao summaryDao,
+                                  EntityStatisticSummaryCubeDao summaryCubeDao,
                                   EntityStatisticDao statisticDao)
     {
         checkNotNull(valueDao, "valueDao cannot be null");
         checkNotNull(definitionDao, "definitionDao cannot be null");
         checkNotNull(summaryDao, "summaryDao cannot be null");
+        checkNotNull(summaryCubeDao, "summaryCubeDao cannot be null");
         checkNotNull(statisticDao, "statisticDao cannot be null");
 
         this.valueDao = valueDao;
         this.definitionDao = definitionDao;
         this.summaryDao = summaryDao;
+        this.summaryCubeDao = summaryCubeDao;
         this.statisticDao = statisticDao;
 
     }
@@ -109,6 +133,7 @@ public class EntityStatisticService {
         Checks.checkNotNull(options, "options cannot be null");
 
         Select<Record1<Long>> appIdSelector = factory.apply(options);
+        Optional<Tuple2<EntityKind, Long>> summaryRollup = findSummaryRollupForSelection(options);
 
         Map<RollupKind, Collection<Long>> definitionIdsByRollupKind = groupBy(
                 EntityStatisticDefinition::rollupKind,
@@ -117,15 +142,18 @@ public class EntityStatisticService {
 
 
         return concat(
-                summaryDao.generateWithCountByEntity(
+                findTallies(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.COUNT_BY_ENTITY, emptyList()),
-                        appIdSelector),
-                summaryDao.generateWithSumByValue(
+                        summaryRollup,
+                        ids -> summaryDao.generateWithCountByEntity(ids, appIdSelector)),
+                findTallies(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.SUM_BY_VALUE, emptyList()),
-                        appIdSelector),
-                summaryDao.generateWithAvgByValue(
+                        summaryRollup,
+                        ids -> summaryDao.generateWithSumByValue(ids, appIdSelector)),
+                findTallies(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.AVG_BY_VALUE, emptyList()),
-                        appIdSelector),
+                        summaryRollup,
+                        ids -> summaryDao.generateWithAvgByValue(ids, appIdSelector)),
                 summaryDao.generateWithNoRollup(
                         definitionIdsByRollupKind.getOrDefault(RollupKind.NONE, emptyList()),
                         options.entityReference())
@@ -139,6 +167,16 @@ public class EntityStatisticService {
         Checks.checkNotNull(options, "options cannot be null");
         Checks.checkNotNull(rollupKind, "rollupKind cannot be null");
 
+        Optional<Tuple2<EntityKind, Long>> summaryRollup = rollupKind == RollupKind.NONE
+                ? Optional.empty()
+                : findSummaryRollupForSelection(options);
+
+        if (summaryRollup.isPresent() && isSummarised(statisticId)) {
+            return summaryCubeDao
+                    .findCurrentSummaries(asSet(statisticId), summaryRollup.get().v1, summaryRollup.get().v2)
+                    .get(0);
+        }
+
         Select<Record1<Long>> appIdSelector = factory.apply(options);
 
         switch(rollupKind) {
@@ -165,6 +203,18 @@ public class EntityStatisticService {
         Checks.checkNotNull(options, "options cannot be null");
         Checks.checkNotNull(duration, "duration cannot be null");
 
+        Optional<Tuple2<EntityKind, Long>> summaryRollup = rollupKind == RollupKind.NONE
+                ? Optional.empty()
+                : findSummaryRollupForSelection(options);
+
+        if (summaryRollup.isPresent() && isSummarised(statisticId)) {
+            return summaryCubeDao.findHistoricSummaries(
+                    statisticId,
+                    summaryRollup.get().v1,
+                    summaryRollup.get().v2,
+                    duration);
+        }
+
         Select<Record1<Long>> appIdSelector = factory.apply(options);
 
         switch(rollupKind) {
@@ -190,4 +240,101 @@ public class EntityStatisticService {
     public List<EntityStatisticDefinition> findAllActiveDefinitions(boolean rollupOnly) {
         return definitionDao.findAllActiveDefinitions(rollupOnly);
     }
+
+
+    /**
+     * Rebuilds the pre-computed summaries of any statistic whose values (or the org unit
+     * hierarchy) have changed since its summaries were last built, e.g. following an import.
+     *
+     * @return number of statistics whose summaries were rebuilt or removed
+     */
+    public int refreshSummaries() {
+        Map<Long, String> sourceChecksums = summaryCubeDao.calcSourceChecksums();
+        Map<Long, String> partitionChecksums = summaryCubeDao.findPartitionChecksums();
+
+        Set<Long> removedStatisticIds = minus(partitionChecksums.keySet(), sourceChecksums.keySet());
+        removedStatisticIds.forEach(summaryCubeDao::removePartition);
+
+        Map<Long, String> staleStatistics = sourceChecksums
+                .entrySet()
+                .stream()
+                .filter(e -> !e.getValue().equals(partitionChecksums.get(e.getKey())))
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        Map<Long, RollupKind> rollupKindsById = definitionDao
+                .findByIds(new ArrayList<>(staleStatistics.keySet()))
+                .stream()
+                .collect(toMap(d -> d.id().get(), EntityStatisticDefinition::rollupKind));
+
+        staleStatistics.forEach((statisticId, checksum) -> summaryCubeDao.rebuildPartition(
+                statisticId,
+                rollupKindsById.get(statisticId),
+                checksum));
+
+        if (!staleStatistics.isEmpty() || !removedStatisticIds.isEmpty()) {
+            LOG.info(format(
+                    "Refreshed entity statistic summaries, rebuilt %d statistics and removed %d",
+                    staleStatistics.size(),
+                    removedStatisticIds.size()));
+        }
+
+        return staleStatistics.size() + removedStatisticIds.size();
+    }
+
+
+    // --- helpers
+
+    /**
+     * Statistics with pre-computed summaries are read from them, the remainder are
+     * calculated live.
+     */
+    private List<TallyPack<String>> findTallies(Collection<Long> statisticIds,
+                                                Optional<Tuple2<EntityKind, Long>> summaryRollup,
+                                                Function<Collection<Long>, List<TallyPack<String>>> liveCalculator) {
+        if (!summaryRollup.isPresent() || statisticIds.isEmpty()) {
+            return liveCalculator.apply(statisticIds);
+        }
+
+        Set<Long> summarisedIds = summaryCubeDao.findSummarisedStatisticIds(statisticIds);
+
+        List<Long> unsummarisedIds = statisticIds
+                .stream()
+                .filter(id -> !summarisedIds.contains(id))
+                .collect(toList());
+
+        return concat(
+                summaryCubeDao.findCurrentSummaries(summarisedIds, summaryRollup.get().v1, summaryRollup.get().v2),
+                unsummarisedIds.isEmpty()
+                        ? Collections.<TallyPack<String>>emptyList()
+                        : liveCalculator.apply(unsummarisedIds));
+    }
+
+
+    private boolean isSummarised(long statisticId) {
+        return !summaryCubeDao.findSummarisedStatisticIds(asSet(statisticId)).isEmpty();
+    }
+
+
+    /**
+     * The pre-computed summaries hold tallies for active applications of an org unit (and its
+     * descendants), or of the whole estate.  Other selections are calculated from the values directly.
+     */
+    private static Optional<Tuple2<EntityKind, Long>> findSummaryRollupForSelection(IdSelectionOptions options) {
+        boolean defaultFilters = options.entityLifecycleStatuses().equals(asSet(EntityLifecycleStatus.ACTIVE))
+                && options.filters().omitApplicationKinds().isEmpty();
+
+        if (!defaultFilters) {
+            return Optional.empty();
+        }
+
+        EntityReference ref = options.entityReference();
+
+        if (ref.kind() == EntityKind.ORG_UNIT && options.scope() == HierarchyQueryScope.CHILDREN) {
+            return Optional.of(tuple(EntityKind.ORG_UNIT, ref.id()));
+        } else if (ref.kind() == EntityKind.ALL) {
+            return Optional.of(tuple(EntityKind.ALL, EntityStatisticSummaryCubeDao.ALL_ROLLUP_ENTITY_ID));
+        } else {
+            return Optional.empty();
+        }
+    }
 }
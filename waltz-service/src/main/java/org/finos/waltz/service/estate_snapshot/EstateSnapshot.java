@@ -0,0 +1,579 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.estate_snapshot;
+
+import org.finos.waltz.data.estate_snapshot.ApplicationSnapshotRow;
+import org.finos.waltz.data.estate_snapshot.OrgUnitSnapshotRow;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+/**
+ * Immutable, versioned, in-memory copy of the commonly needed application and org
+ * unit attributes.  Values are held column-wise in id sorted arrays (enums as
+ * ordinals), so a lookup is a binary search and the whole estate costs a few
+ * tens of bytes per entity plus its strings.  Descriptions are not held.
+ *
+ * A new snapshot is produced by {@link #merge(long, Collection, Collection)}-ing the rows
+ * which have changed since the previous one, readers holding the old snapshot are
+ * unaffected.
+ */
+public final class EstateSnapshot {
+
+    private static final ApplicationKind[] APPLICATION_KINDS = ApplicationKind.values();
+    private static final LifecyclePhase[] LIFECYCLE_PHASES = LifecyclePhase.values();
+    private static final EntityLifecycleStatus[] LIFECYCLE_STATUSES = EntityLifecycleStatus.values();
+
+    private static final long NO_PARENT = -1;
+
+    private final long version;
+    private final Applications applications;
+    private final OrgUnits orgUnits;
+
+
+    private EstateSnapshot(long version, Applications applications, OrgUnits orgUnits) {
+        this.version = version;
+        this.applications = applications;
+        this.orgUnits = orgUnits;
+    }
+
+
+    public static EstateSnapshot build(long version,
+                                       Collection<ApplicationSnapshotRow> applicationRows,
+                                       Collection<OrgUnitSnapshotRow> orgUnitRows) {
+        return empty(version).merge(version, applicationRows, orgUnitRows);
+    }
+
+
+    private static EstateSnapshot empty(long version) {
+        return new EstateSnapshot(version, new Applications(0), new OrgUnits(0));
+    }
+
+
+    /**
+     * @param changedApplicationRows new or updated applications, these replace any
+     *                               existing entry with the same id
+     * @param changedOrgUnitRows     new or updated org units
+     * @return a new snapshot, this snapshot is left unchanged
+     */
+    public EstateSnapshot merge(long newVersion,
+                                Collection<ApplicationSnapshotRow> changedApplicationRows,
+                                Collection<OrgUnitSnapshotRow> changedOrgUnitRows) {
+        checkNotNull(changedApplicationRows, "changedApplicationRows cannot be null");
+        checkNotNull(changedOrgUnitRows, "changedOrgUnitRows cannot be null");
+
+        return new EstateSnapshot(
+                newVersion,
+                applications.merge(sortedById(changedApplicationRows, ApplicationSnapshotRow::id)),
+                orgUnits.merge(sortedById(changedOrgUnitRows, OrgUnitSnapshotRow::id)));
+    }
+
+
+    // --- applications
+
+    public Optional<EntityReference> findApplicationRef(long id) {
+        int idx = applications.indexOf(id);
+        if (idx < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(ImmutableEntityReference.builder()
+                .kind(EntityKind.APPLICATION)
+                .id(id)
+                .name(applications.names[idx])
+                .externalId(Optional.ofNullable(applications.assetCodes[idx]))
+                .entityLifecycleStatus(LIFECYCLE_STATUSES[applications.statuses[idx]])
+                .build());
+    }
+
+
+    public Optional<ApplicationKind> findApplicationKind(long id) {
+        int idx = applications.indexOf(id);
+        return idx < 0
+                ? Optional.empty()
+                : Optional.of(APPLICATION_KINDS[applications.kinds[idx]]);
+    }
+
+
+    public Optional<LifecyclePhase> findLifecyclePhase(long id) {
+        int idx = applications.indexOf(id);
+        return idx < 0
+                ? Optional.empty()
+                : Optional.of(LIFECYCLE_PHASES[applications.phases[idx]]);
+    }
+
+
+    public Optional<Long> findOrgUnitIdForApplication(long id) {
+        int idx = applications.indexOf(id);
+        return idx < 0
+                ? Optional.empty()
+                : Optional.of(applications.orgUnitIds[idx]);
+    }
+
+
+    public Optional<Boolean> findIsApplicationRemoved(long id) {
+        int idx = applications.indexOf(id);
+        return idx < 0
+                ? Optional.empty()
+                : Optional.of(applications.removed.get(idx));
+    }
+
+
+    // --- org units
+
+    public Optional<EntityReference> findOrgUnitRef(long id) {
+        int idx = orgUnits.indexOf(id);
+        if (idx < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(ImmutableEntityReference.builder()
+                .kind(EntityKind.ORG_UNIT)
+                .id(id)
+                .name(orgUnits.names[idx])
+                .externalId(Optional.ofNullable(orgUnits.externalIds[idx]))
+                .build());
+    }
+
+
+    public Optional<Long> findParentOrgUnitId(long id) {
+        int idx = orgUnits.indexOf(id);
+        return idx < 0 || orgUnits.parentIds[idx] == NO_PARENT
+                ? Optional.empty()
+                : Optional.of(orgUnits.parentIds[idx]);
+    }
+
+
+    /**
+     * @return ids of the ancestors of the given unit, nearest first, empty if the
+     * unit is a root or is not known
+     */
+    public List<Long> findOrgUnitAncestorIds(long id) {
+        List<Long> ancestors = new ArrayList<>();
+        int idx = orgUnits.indexOf(id);
+
+        // bounded by the number of units in case the hierarchy contains a cycle
+        while (idx >= 0 && orgUnits.parentIds[idx] != NO_PARENT && ancestors.size() < orgUnits.size()) {
+            long parentId = orgUnits.parentIds[idx];
+            ancestors.add(parentId);
+            idx = orgUnits.indexOf(parentId);
+        }
+        return ancestors;
+    }
+
+
+    // --- stats
+
+    public long version() {
+        return version;
+    }
+
+
+    public int applicationCount() {
+        return applications.size();
+    }
+
+
+    public int orgUnitCount() {
+        return orgUnits.size();
+    }
+
+
+    /**
+     * @return the latest update time of any application, used as the starting point
+     * of the next incremental refresh
+     */
+    public Optional<Timestamp> applicationsUpdatedAt() {
+        return Optional.ofNullable(applications.updatedAt);
+    }
+
+
+    public Optional<Timestamp> orgUnitsUpdatedAt() {
+        return Optional.ofNullable(orgUnits.updatedAt);
+    }
+
+
+    /**
+     * Rough estimate of the heap retained by this snapshot, assuming compressed
+     * oops.  Strings are costed at their object and backing array headers plus two
+     * bytes a character.
+     */
+    public long estimatedBytes() {
+        return applications.estimatedBytes() + orgUnits.estimatedBytes();
+    }
+
+
+    /**
+     * Compares this snapshot with one built from a full read of the database.
+     * Versions and update times are not compared.
+     *
+     * @return references (kind and id only) to every application or org unit which
+     * is missing from, or differs between, the two snapshots
+     */
+    public Set<EntityReference> findDifferences(EstateSnapshot other) {
+        checkNotNull(other, "other cannot be null");
+
+        Set<EntityReference> differences = new LinkedHashSet<>();
+        for (long id : applications.findDifferences(other.applications)) {
+            differences.add(mkRef(EntityKind.APPLICATION, id));
+        }
+        for (long id : orgUnits.findDifferences(other.orgUnits)) {
+            differences.add(mkRef(EntityKind.ORG_UNIT, id));
+        }
+        return differences;
+    }
+
+
+    @Override
+    public String toString() {
+        return "EstateSnapshot{" +
+                "version=" + version +
+                ", applications=" + applicationCount() +
+                ", orgUnits=" + orgUnitCount() +
+                ", estimatedBytes=" + estimatedBytes() +
+                '}';
+    }
+
+
+    // --- helpers
+
+    private static <T> List<T> sortedById(Collection<T> rows, ToLongFunction<T> idFn) {
+        List<T> sorted = rows
+                .stream()
+                .sorted(Comparator.comparingLong(idFn))
+                .collect(toList());
+
+        // where an id appears more than once the last row wins
+        List<T> deduped = new ArrayList<>(sorted.size());
+        for (T row : sorted) {
+            int last = deduped.size() - 1;
+            if (last >= 0 && idFn.applyAsLong(deduped.get(last)) == idFn.applyAsLong(row)) {
+                deduped.set(last, row);
+            } else {
+                deduped.add(row);
+            }
+        }
+        return deduped;
+    }
+
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+
+
+    private static long arrayBytes(int length, int width) {
+        return 16 + (long) length * width;
+    }
+
+
+    private static Timestamp latest(Timestamp a, Timestamp b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.after(b) ? a : b;
+    }
+
+
+    /**
+     * Merges the existing (sorted) ids with the changed (sorted, distinct) rows,
+     * calling back with either an existing index or a changed row for each entry of
+     * the result.  A changed row replaces an existing entry with the same id.
+     */
+    private static <T> void mergeSorted(long[] existingIds,
+                                        int existingSize,
+                                        List<T> changed,
+                                        ToLongFunction<T> idFn,
+                                        IntConsumer copyExisting,
+                                        Consumer<T> addChanged) {
+        int i = 0;
+        int j = 0;
+        while (i < existingSize || j < changed.size()) {
+            if (j == changed.size()) {
+                copyExisting.accept(i++);
+            } else if (i == existingSize) {
+                addChanged.accept(changed.get(j++));
+            } else {
+                long existingId = existingIds[i];
+                long changedId = idFn.applyAsLong(changed.get(j));
+                if (existingId < changedId) {
+                    copyExisting.accept(i++);
+                } else {
+                    if (existingId == changedId) {
+                        i++;
+                    }
+                    addChanged.accept(changed.get(j++));
+                }
+            }
+        }
+    }
+
+
+    private static <T> int mergedSize(long[] existingIds,
+                                      int existingSize,
+                                      List<T> changed,
+                                      ToLongFunction<T> idFn) {
+        int replaced = 0;
+        for (T row : changed) {
+            if (Arrays.binarySearch(existingIds, 0, existingSize, idFn.applyAsLong(row)) >= 0) {
+                replaced++;
+            }
+        }
+        return existingSize + changed.size() - replaced;
+    }
+
+
+    /**
+     * @param sameAt tests whether entry <code>i</code> of the first set of columns
+     *               matches entry <code>j</code> of the second
+     * @return ids which are only present on one side, or whose entries differ
+     */
+    private static List<Long> findDifferentIds(long[] ids,
+                                               long[] otherIds,
+                                               BiPredicate<Integer, Integer> sameAt) {
+        List<Long> differences = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < ids.length || j < otherIds.length) {
+            if (j == otherIds.length || (i < ids.length && ids[i] < otherIds[j])) {
+                differences.add(ids[i++]);
+            } else if (i == ids.length || ids[i] > otherIds[j]) {
+                differences.add(otherIds[j++]);
+            } else {
+                if (!sameAt.test(i, j)) {
+                    differences.add(ids[i]);
+                }
+                i++;
+                j++;
+            }
+        }
+        return differences;
+    }
+
+
+    private static final class Applications {
+
+        private final long[] ids;
+        private final String[] names;
+        private final String[] assetCodes;
+        private final long[] orgUnitIds;
+        private final byte[] kinds;
+        private final byte[] phases;
+        private final byte[] statuses;
+        private final BitSet removed;
+
+        // only written while the instance is being built
+        private Timestamp updatedAt;
+        private int size;
+
+
+        private Applications(int size) {
+            ids = new long[size];
+            names = new String[size];
+            assetCodes = new String[size];
+            orgUnitIds = new long[size];
+            kinds = new byte[size];
+            phases = new byte[size];
+            statuses = new byte[size];
+            removed = new BitSet(size);
+        }
+
+
+        private int size() {
+            return size;
+        }
+
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+
+        private Applications merge(List<ApplicationSnapshotRow> changed) {
+            Applications merged = new Applications(mergedSize(ids, size, changed, ApplicationSnapshotRow::id));
+            merged.updatedAt = updatedAt;
+            mergeSorted(
+                    ids,
+                    size,
+                    changed,
+                    ApplicationSnapshotRow::id,
+                    idx -> merged.copy(this, idx),
+                    merged::add);
+            return merged;
+        }
+
+
+        private void copy(Applications source, int idx) {
+            ids[size] = source.ids[idx];
+            names[size] = source.names[idx];
+            assetCodes[size] = source.assetCodes[idx];
+            orgUnitIds[size] = source.orgUnitIds[idx];
+            kinds[size] = source.kinds[idx];
+            phases[size] = source.phases[idx];
+            statuses[size] = source.statuses[idx];
+            removed.set(size, source.removed.get(idx));
+            size++;
+        }
+
+
+        private void add(ApplicationSnapshotRow row) {
+            ids[size] = row.id();
+            names[size] = row.name();
+            assetCodes[size] = row.assetCode();
+            orgUnitIds[size] = row.organisationalUnitId();
+            kinds[size] = (byte) row.applicationKind().ordinal();
+            phases[size] = (byte) row.lifecyclePhase().ordinal();
+            statuses[size] = (byte) row.entityLifecycleStatus().ordinal();
+            removed.set(size, row.isRemoved());
+            updatedAt = latest(updatedAt, row.updatedAt());
+            size++;
+        }
+
+
+        private long estimatedBytes() {
+            long bytes = 2 * arrayBytes(size, 8)   // ids, org unit ids
+                    + 2 * arrayBytes(size, 4)      // name and asset code references
+                    + 3 * arrayBytes(size, 1)      // kind, phase, status
+                    + arrayBytes(size / 8 + 1, 1); // removed
+            for (int i = 0; i < size; i++) {
+                bytes += stringBytes(names[i]) + stringBytes(assetCodes[i]);
+            }
+            return bytes;
+        }
+
+
+        private List<Long> findDifferences(Applications other) {
+            return findDifferentIds(
+                    ids,
+                    other.ids,
+                    (i, j) -> Objects.equals(names[i], other.names[j])
+                            && Objects.equals(assetCodes[i], other.assetCodes[j])
+                            && orgUnitIds[i] == other.orgUnitIds[j]
+                            && kinds[i] == other.kinds[j]
+                            && phases[i] == other.phases[j]
+                            && statuses[i] == other.statuses[j]
+                            && removed.get(i) == other.removed.get(j));
+        }
+    }
+
+
+    private static final class OrgUnits {
+
+        private final long[] ids;
+        private final String[] names;
+        private final String[] externalIds;
+        private final long[] parentIds;
+
+        // only written while the instance is being built
+        private Timestamp updatedAt;
+        private int size;
+
+
+        private OrgUnits(int size) {
+            ids = new long[size];
+            names = new String[size];
+            externalIds = new String[size];
+            parentIds = new long[size];
+        }
+
+
+        private int size() {
+            return size;
+        }
+
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+
+        private OrgUnits merge(List<OrgUnitSnapshotRow> changed) {
+            OrgUnits merged = new OrgUnits(mergedSize(ids, size, changed, OrgUnitSnapshotRow::id));
+            merged.updatedAt = updatedAt;
+            mergeSorted(
+                    ids,
+                    size,
+                    changed,
+                    OrgUnitSnapshotRow::id,
+                    idx -> merged.copy(this, idx),
+                    merged::add);
+            return merged;
+        }
+
+
+        private void copy(OrgUnits source, int idx) {
+            ids[size] = source.ids[idx];
+            names[size] = source.names[idx];
+            externalIds[size] = source.externalIds[idx];
+            parentIds[size] = source.parentIds[idx];
+            size++;
+        }
+
+
+        private void add(OrgUnitSnapshotRow row) {
+            ids[size] = row.id();
+            names[size] = row.name();
+            externalIds[size] = row.externalId();
+            parentIds[size] = row.parentId() == null ? NO_PARENT : row.parentId();
+            updatedAt = latest(updatedAt, row.lastUpdatedAt());
+            size++;
+        }
+
+
+        private long estimatedBytes() {
+            long bytes = 2 * arrayBytes(size, 8)  // ids, parent ids
+                    + 2 * arrayBytes(size, 4);    // name and external id references
+            for (int i = 0; i < size; i++) {
+                bytes += stringBytes(names[i]) + stringBytes(externalIds[i]);
+            }
+            return bytes;
+        }
+
+
+        private List<Long> findDifferences(OrgUnits other) {
+            return findDifferentIds(
+                    ids,
+                    other.ids,
+                    (i, j) -> Objects.equals(names[i], other.names[j])
+                            && Objects.equals(externalIds[i], other.externalIds[j])
+                            && parentIds[i] == other.parentIds[j]);
+        }
+    }
+
+}
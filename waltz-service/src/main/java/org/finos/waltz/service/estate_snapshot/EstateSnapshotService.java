@@ -0,0 +1,371 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.estate_snapshot;
+
+import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.estate_snapshot.ApplicationSnapshotRow;
+import org.finos.waltz.data.estate_snapshot.EstateSnapshotDao;
+import org.finos.waltz.data.estate_snapshot.OrgUnitSnapshotRow;
+import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.orgunit.OrganisationalUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Holds a shared, in-memory {@link EstateSnapshot} of the application and org unit
+ * attributes that many services look up by id (names, asset codes, kinds, lifecycle
+ * and owning org unit), so those lookups do not each need a query.
+ *
+ * The snapshot is loaded on first use and then refreshed incrementally, reading only
+ * the rows updated since the latest update time it holds.  Deletions are not visible
+ * to an incremental read, so a change in row counts triggers a full reload.  A
+ * periodic consistency check rebuilds the snapshot from a full read and reports any
+ * differences, which would point to a write path not maintaining the update time.
+ *
+ * If the snapshot would exceed the memory budget it is discarded and all lookups fall
+ * back to the database.  Lookups for ids not (yet) in the snapshot also fall back.
+ */
+@Service
+public class EstateSnapshotService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EstateSnapshotService.class);
+
+    private static final long REFRESH_INTERVAL_MILLIS = 60_000;
+    private static final long CONSISTENCY_CHECK_INTERVAL_MILLIS = 60 * 60_000;
+
+    private final EstateSnapshotDao estateSnapshotDao;
+    private final ApplicationDao applicationDao;
+    private final OrganisationalUnitDao organisationalUnitDao;
+    private final boolean enabled;
+
+    private final Object refreshLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fullLoads = new LongAdder();
+    private final LongAdder incrementalRefreshes = new LongAdder();
+    private final LongAdder inconsistencies = new LongAdder();
+
+    private volatile long memoryBudgetBytes;
+    private volatile EstateSnapshot snapshot;
+    private volatile boolean overBudget = false;
+
+
+    @Autowired
+    public EstateSnapshotService(EstateSnapshotDao estateSnapshotDao,
+                                 ApplicationDao applicationDao,
+                                 OrganisationalUnitDao organisationalUnitDao,
+                                 @Value("${estate.snapshot.enabled:true}") boolean enabled,
+                                 @Value("${estate.snapshot.memory.budget.mb:64}") long memoryBudgetMb) {
+        checkNotNull(estateSnapshotDao, "estateSnapshotDao cannot be null");
+        checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
+        checkTrue(memoryBudgetMb > 0, "memoryBudgetMb must be positive");
+
+        this.estateSnapshotDao = estateSnapshotDao;
+        this.applicationDao = applicationDao;
+        this.organisationalUnitDao = organisationalUnitDao;
+        this.enabled = enabled;
+        this.memoryBudgetBytes = memoryBudgetMb * 1024 * 1024;
+    }
+
+
+    /**
+     * @return the current snapshot, loading it if needed, or empty if the snapshot
+     * is disabled or over budget
+     */
+    public Optional<EstateSnapshot> getSnapshot() {
+        if (!enabled || overBudget) {
+            return Optional.empty();
+        }
+
+        EstateSnapshot current = snapshot;
+        if (current != null) {
+            return Optional.of(current);
+        }
+
+        synchronized (refreshLock) {
+            if (snapshot == null && !overBudget) {
+                reload();
+            }
+            return Optional.ofNullable(snapshot);
+        }
+    }
+
+
+    // --- lookups, falling back to the database
+
+    /**
+     * @return reference (kind, id, name, asset code and lifecycle status, but no
+     * description) to the application, or empty if it does not exist
+     */
+    public Optional<EntityReference> findApplicationRef(long applicationId) {
+        Optional<EntityReference> ref = getSnapshot().flatMap(s -> s.findApplicationRef(applicationId));
+        if (ref.isPresent()) {
+            hits.increment();
+            return ref;
+        }
+
+        misses.increment();
+        return Optional
+                .ofNullable(applicationDao.getById(applicationId))
+                .map(Application::entityReference);
+    }
+
+
+    /**
+     * @return references to those applications which exist, in no particular order
+     */
+    public List<EntityReference> findApplicationRefs(Collection<Long> applicationIds) {
+        checkNotNull(applicationIds, "applicationIds cannot be null");
+
+        Optional<EstateSnapshot> current = getSnapshot();
+        List<EntityReference> refs = new ArrayList<>(applicationIds.size());
+        List<Long> missing = new ArrayList<>();
+
+        for (Long id : applicationIds) {
+            Optional<EntityReference> ref = current.flatMap(s -> s.findApplicationRef(id));
+            if (ref.isPresent()) {
+                refs.add(ref.get());
+            } else {
+                missing.add(id);
+            }
+        }
+
+        hits.add(refs.size());
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            applicationDao
+                    .findByIds(missing)
+                    .stream()
+                    .map(Application::entityReference)
+                    .forEach(refs::add);
+        }
+
+        return refs;
+    }
+
+
+    /**
+     * @return reference (kind, id, name and external id, but no description) to the
+     * org unit, or empty if it does not exist
+     */
+    public Optional<EntityReference> findOrgUnitRef(long orgUnitId) {
+        Optional<EntityReference> ref = getSnapshot().flatMap(s -> s.findOrgUnitRef(orgUnitId));
+        if (ref.isPresent()) {
+            hits.increment();
+            return ref;
+        }
+
+        misses.increment();
+        return Optional
+                .ofNullable(organisationalUnitDao.getById(orgUnitId))
+                .map(OrganisationalUnit::entityReference);
+    }
+
+
+    // --- maintenance
+
+    /**
+     * Merges in rows changed since the last refresh.  Does nothing until the snapshot
+     * has been used, so servers which never need it never load it.
+     */
+    @Scheduled(fixedRate = REFRESH_INTERVAL_MILLIS)
+    public void refresh() {
+        if (snapshot == null) {
+            return;
+        }
+
+        synchronized (refreshLock) {
+            EstateSnapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+
+            List<ApplicationSnapshotRow> changedApps = estateSnapshotDao.findApplications(current.applicationsUpdatedAt());
+            List<OrgUnitSnapshotRow> changedOrgUnits = estateSnapshotDao.findOrgUnits(current.orgUnitsUpdatedAt());
+            EstateSnapshot refreshed = current.merge(current.version() + 1, changedApps, changedOrgUnits);
+
+            if (refreshed.applicationCount() != estateSnapshotDao.countApplications()
+                    || refreshed.orgUnitCount() != estateSnapshotDao.countOrgUnits()) {
+                LOG.info("Estate row counts have changed (rows removed), reloading snapshot");
+                reload();
+                return;
+            }
+
+            incrementalRefreshes.increment();
+            LOG.debug("Merged {} applications and {} org units into estate snapshot", changedApps.size(), changedOrgUnits.size());
+            retain(refreshed);
+        }
+    }
+
+
+    /**
+     * Rebuilds the snapshot from a full read, comparing it to the incrementally
+     * maintained one.  The rebuilt snapshot always replaces the current one.
+     *
+     * @return references to the applications and org units which differed
+     */
+    @Scheduled(fixedRate = CONSISTENCY_CHECK_INTERVAL_MILLIS, initialDelay = CONSISTENCY_CHECK_INTERVAL_MILLIS)
+    public Set<EntityReference> checkConsistency() {
+        synchronized (refreshLock) {
+            EstateSnapshot current = snapshot;
+            if (current == null) {
+                return emptySet();
+            }
+
+            EstateSnapshot fresh = loadFull(current.version() + 1);
+            Set<EntityReference> differences = current.findDifferences(fresh);
+            if (!differences.isEmpty()) {
+                inconsistencies.add(differences.size());
+                LOG.warn(
+                        "Estate snapshot differed from the database for {} entities, e.g. {}",
+                        differences.size(),
+                        differences.stream().limit(10).collect(toList()));
+            }
+            retain(fresh);
+            return differences;
+        }
+    }
+
+
+    public void invalidate() {
+        LOG.info("Invalidating estate snapshot");
+        synchronized (refreshLock) {
+            snapshot = null;
+            overBudget = false;
+        }
+    }
+
+
+    // --- stats
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+
+    public long getFullLoadCount() {
+        return fullLoads.sum();
+    }
+
+
+    public long getIncrementalRefreshCount() {
+        return incrementalRefreshes.sum();
+    }
+
+
+    public long getInconsistencyCount() {
+        return inconsistencies.sum();
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    public boolean isOverBudget() {
+        return overBudget;
+    }
+
+
+    public long getVersion() {
+        EstateSnapshot current = snapshot;
+        return current == null ? 0 : current.version();
+    }
+
+
+    public long getEstimatedBytes() {
+        EstateSnapshot current = snapshot;
+        return current == null ? 0 : current.estimatedBytes();
+    }
+
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        checkTrue(memoryBudgetBytes > 0, "memoryBudgetBytes must be positive");
+        LOG.info("Setting estate snapshot memory budget to {} bytes", memoryBudgetBytes);
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        invalidate();
+    }
+
+
+    // --- helpers
+
+    // callers must hold the refresh lock
+    private void reload() {
+        EstateSnapshot current = snapshot;
+        retain(loadFull(current == null ? 1 : current.version() + 1));
+    }
+
+
+    private EstateSnapshot loadFull(long version) {
+        fullLoads.increment();
+        EstateSnapshot loaded = EstateSnapshot.build(
+                version,
+                estateSnapshotDao.findApplications(Optional.empty()),
+                estateSnapshotDao.findOrgUnits(Optional.empty()));
+        LOG.info("Loaded estate snapshot: {}", loaded);
+        return loaded;
+    }
+
+
+    // callers must hold the refresh lock
+    private void retain(EstateSnapshot candidate) {
+        if (candidate.estimatedBytes() > memoryBudgetBytes) {
+            LOG.warn(
+                    "Estate snapshot ({} bytes) exceeds memory budget ({} bytes), falling back to database lookups",
+                    candidate.estimatedBytes(),
+                    memoryBudgetBytes);
+            overBudget = true;
+            snapshot = null;
+        } else {
+            snapshot = candidate;
+        }
+    }
+
+}
@@ -31,7 +31,6 @@ import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
 import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
 import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
-import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
@@ -39,6 +38,7 @@ import org.finos.waltz.model.datatype.DataType;
 import org.finos.waltz.model.flow_classification.FlowClassification;
 import org.finos.waltz.model.flow_classification_rule.*;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.estate_snapshot.EstateSnapshotService;
 import org.jooq.Condition;
 import org.jooq.Record1;
 import org.jooq.Select;
@@ -69,9 +69,9 @@ public class FlowClassificationRuleService {
     private final FlowClassificationRuleDao flowClassificationRuleDao;
     private final FlowClassificationDao flowClassificationDao;
     private final DataTypeDao dataTypeDao;
-    private final OrganisationalUnitDao organisationalUnitDao;
     private final ApplicationDao applicationDao;
     private final ActorDao actorDao;
+    private final EstateSnapshotService estateSnapshotService;
     private final FlowClassificationCalculator ratingCalculator;
     private final ChangeLogService changeLogService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
@@ -84,9 +84,9 @@ public class FlowClassificationRuleService {
     public FlowClassificationRuleService(FlowClassificationRuleDao flowClassificationRuleDao,
                                          FlowClassificationDao flowClassificationDao,
                                          DataTypeDao dataTypeDao,
-                                         OrganisationalUnitDao organisationalUnitDao,
                                          ApplicationDao applicationDao,
                                          ActorDao actorDao,
+                                         EstateSnapshotService estateSnapshotService,
                                          FlowClassificationCalculator ratingCalculator,
                                          ChangeLogService changeLogService,
                                          LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
@@ -94,8 +94,8 @@ public class FlowClassificationRuleService {
         checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
         checkNotNull(actorDao, "actorDao must not be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
-        checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(estateSnapshotService, "estateSnapshotService cannot be null");
         checkNotNull(ratingCalculator, "ratingCalculator cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
@@ -103,9 +103,9 @@ public class FlowClassificationRuleService {
         this.flowClassificationRuleDao = flowClassificationRuleDao;
         this.flowClassificationDao = flowClassificationDao;
         this.dataTypeDao = dataTypeDao;
-        this.organisationalUnitDao = organisationalUnitDao;
         this.applicationDao = applicationDao;
         this.actorDao = actorDao;
+        this.estateSnapshotService = estateSnapshotService;
         this.ratingCalculator = ratingCalculator;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
@@ -394,9 +394,15 @@ public class FlowClassificationRuleService {
     private String getParentEntityName(EntityReference entityReference) {
         switch (entityReference.kind()) {
             case ORG_UNIT:
-                return organisationalUnitDao.getById(entityReference.id()).name();
+                return estateSnapshotService
+                        .findOrgUnitRef(entityReference.id())
+                        .flatMap(EntityReference::name)
+                        .orElseThrow(() -> new NotFoundException("OU-NF", "Org unit: %d not found", entityReference.id()));
             case APPLICATION:
-                return applicationDao.getById(entityReference.id()).name();
+                return estateSnapshotService
+                        .findApplicationRef(entityReference.id())
+                        .flatMap(EntityReference::name)
+                        .orElseThrow(() -> new NotFoundException("APP-NF", "Application: %d not found", entityReference.id()));
             case ACTOR:
                 return actorDao.getById(entityReference.id()).name();
             default:
@@ -40,6 +40,7 @@ import org.finos.waltz.model.person.Person;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.involvement_kind.InvolvementKindService;
+import org.finos.waltz.service.permission.UserPermissionCache;
 import org.finos.waltz.service.user.UserRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -70,6 +71,7 @@ public class InvolvementService {
     private final InvolvementKindService involvementKindService;
     private final PersonDao personDao;
     private final UserRoleService userRoleService;
+    private final UserPermissionCache userPermissionCache;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
     private Map<Long, String> involvementKindIdToNameMap;
@@ -81,13 +83,15 @@ public class InvolvementService {
                               EntityReferenceNameResolver entityReferenceNameResolver,
                               InvolvementKindService involvementKindService,
                               PersonDao personDao,
-                              UserRoleService userRoleService) {
+                              UserRoleService userRoleService,
+                              UserPermissionCache userPermissionCache) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dao, "involvementDao must not be null");
         checkNotNull(entityReferenceNameResolver, "entityReferenceNameResolver cannot be null");
         checkNotNull(involvementKindService, "involvementKindService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
         checkNotNull(personDao, "personDao cannot be null");
+        checkNotNull(userPermissionCache, "userPermissionCache cannot be null");
 
         this.changeLogService = changeLogService;
         this.involvementDao = dao;
@@ -95,6 +99,7 @@ public class InvolvementService {
         this.involvementKindService = involvementKindService;
         this.userRoleService = userRoleService;
         this.personDao = personDao;
+        this.userPermissionCache = userPermissionCache;
     }
 
 
@@ -113,7 +118,7 @@ public class InvolvementService {
     public Set<Long> findExistingInvolvementKindIdsForUser(EntityReference entityReference, String username) {
         checkNotNull(entityReference, "entityReference cannot be empty");
         checkNotEmpty(username, "username cannot be empty");
-        return involvementDao.findExistingInvolvementKindIdsForUser(entityReference, username);
+        return userPermissionCache.findExistingInvolvementKindIdsForUser(entityReference, username);
     }
 
 
@@ -149,6 +154,7 @@ public class InvolvementService {
 
         Involvement involvement = mkInvolvement(entityReference, command);
         boolean result = involvementDao.save(involvement) == 1;
+        userPermissionCache.invalidateInvolvements(entityReference);
         if (result) {
             logChange(entityReference, userId, command);
         }
@@ -164,6 +170,7 @@ public class InvolvementService {
         checkHasEditPermissionForKind(Long.valueOf(command.involvementKindId()), userId);
 
         boolean result = involvementDao.remove(involvement) > 0;
+        userPermissionCache.invalidateInvolvements(entityReference);
         if (result) {
             logChange(entityReference, userId, command);
         }
@@ -180,8 +187,10 @@ public class InvolvementService {
     public int deleteByGenericEntitySelector(IdSelectionOptions selectionOptions) {
         GenericSelector genericSelector = genericSelectorFactory
                 .apply(selectionOptions);
-        return involvementDao
+        int rc = involvementDao
                 .deleteByGenericEntitySelector(genericSelector);
+        userPermissionCache.invalidateAllInvolvements();
+        return rc;
     }
 
 
@@ -193,12 +202,15 @@ public class InvolvementService {
     public int cleanupInvolvementsForKind(String userName, EntityKind entityKind) {
         boolean isAdmin = userRoleService.hasRole(userName, SystemRole.ADMIN);
         Checks.checkTrue(isAdmin, "Must be an admin to bulk remove involvements");
-        return involvementDao.cleanupInvolvementsForKind(entityKind);
+        int rc = involvementDao.cleanupInvolvementsForKind(entityKind);
+        userPermissionCache.invalidateAllInvolvements();
+        return rc;
     }
 
     public int bulkStoreInvolvements(Set<Involvement> involvements, String username) {
 
         int insertedRecords = involvementDao.bulkStoreInvolvements(involvements);
+        userPermissionCache.invalidateAllInvolvements();
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -218,6 +230,7 @@ public class InvolvementService {
     public int bulkDeleteInvolvements(Set<Involvement> involvements, String username) {
 
         int removedRecords = involvementDao.bulkDeleteInvolvements(involvements);
+        userPermissionCache.invalidateAllInvolvements();
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -0,0 +1,163 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.common.AsyncBatchWriter;
+import org.finos.waltz.service.access_log.AccessLogService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+@ManagedResource(description = "Statistics for the asynchronous access log and change log writers")
+public class AsyncWriterMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncWriterMaintenance.class);
+
+    private final AccessLogService accessLogService;
+    private final ChangeLogService changeLogService;
+
+    @Autowired
+    public AsyncWriterMaintenance(AccessLogService accessLogService,
+                                  ChangeLogService changeLogService) {
+        this.accessLogService = accessLogService;
+        this.changeLogService = changeLogService;
+    }
+
+
+    @ManagedOperation(description = "Write all pending access log and change log entries (waits up to 30s)")
+    public boolean flush() {
+        LOG.warn("Flushing async writers (via jmx)");
+        boolean accessLogFlushed = accessLogService
+                .getAsyncWriter()
+                .map(w -> w.flush(30, TimeUnit.SECONDS))
+                .orElse(true);
+        boolean changeLogFlushed = changeLogService
+                .getAsyncWriter()
+                .map(w -> w.flush(30, TimeUnit.SECONDS))
+                .orElse(true);
+        return accessLogFlushed && changeLogFlushed;
+    }
+
+
+    // --- access log
+
+    @ManagedAttribute(description = "Access log entries waiting to be written")
+    public long getAccessLogQueueDepth() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getQueueDepth);
+    }
+
+
+    @ManagedAttribute(description = "Access log entries written")
+    public long getAccessLogWrittenCount() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getWrittenCount);
+    }
+
+
+    @ManagedAttribute(description = "Access log entries dropped because the queue was full")
+    public long getAccessLogDroppedCount() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getDroppedCount);
+    }
+
+
+    @ManagedAttribute(description = "Access log entries which could not be written")
+    public long getAccessLogFailedCount() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getFailedCount);
+    }
+
+
+    @ManagedAttribute(description = "Duration (ms) of the most recent access log batch write")
+    public long getAccessLogLastFlushMillis() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getLastFlushMillis);
+    }
+
+
+    @ManagedAttribute(description = "Mean duration (ms) of access log batch writes")
+    public long getAccessLogAverageFlushMillis() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getAverageFlushMillis);
+    }
+
+
+    @ManagedAttribute(description = "Longest duration (ms) of an access log batch write")
+    public long getAccessLogMaxFlushMillis() {
+        return stat(accessLogService.getAsyncWriter(), AsyncBatchWriter::getMaxFlushMillis);
+    }
+
+
+    // --- change log
+
+    @ManagedAttribute(description = "Change log entries waiting to be written")
+    public long getChangeLogQueueDepth() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getQueueDepth);
+    }
+
+
+    @ManagedAttribute(description = "Change log entries written")
+    public long getChangeLogWrittenCount() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getWrittenCount);
+    }
+
+
+    @ManagedAttribute(description = "Change log entries which could not be written")
+    public long getChangeLogFailedCount() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getFailedCount);
+    }
+
+
+    @ManagedAttribute(description = "Duration (ms) of the most recent change log batch write")
+    public long getChangeLogLastFlushMillis() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getLastFlushMillis);
+    }
+
+
+    @ManagedAttribute(description = "Mean duration (ms) of change log batch writes")
+    public long getChangeLogAverageFlushMillis() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getAverageFlushMillis);
+    }
+
+
+    @ManagedAttribute(description = "Longest duration (ms) of a change log batch write")
+    public long getChangeLogMaxFlushMillis() {
+        return stat(changeLogService.getAsyncWriter(), AsyncBatchWriter::getMaxFlushMillis);
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "AsyncWriters";
+    }
+
+
+    // --- helpers
+
+    private static <T> long stat(Optional<AsyncBatchWriter<T>> writer,
+                                 ToLongFunction<AsyncBatchWriter<T>> statFn) {
+        return writer
+                .map(statFn::applyAsLong)
+                .orElse(-1L);
+    }
+
+}
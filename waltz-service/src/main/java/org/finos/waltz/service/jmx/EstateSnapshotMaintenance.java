@@ -0,0 +1,122 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.estate_snapshot.EstateSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Statistics and maintenance functions for the in-memory application and org unit snapshot")
+public class EstateSnapshotMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EstateSnapshotMaintenance.class);
+
+    private final EstateSnapshotService estateSnapshotService;
+
+    @Autowired
+    public EstateSnapshotMaintenance(EstateSnapshotService estateSnapshotService) {
+        this.estateSnapshotService = estateSnapshotService;
+    }
+
+
+    @ManagedOperation(description = "Discard the snapshot, it is reloaded in full on next use")
+    public void invalidate() {
+        LOG.warn("Invalidate estate snapshot (via jmx)");
+        estateSnapshotService.invalidate();
+    }
+
+
+    @ManagedOperation(description = "Rebuild the snapshot from the database, returning the number of entities which differed")
+    public int checkConsistency() {
+        LOG.warn("Check estate snapshot consistency (via jmx)");
+        return estateSnapshotService.checkConsistency().size();
+    }
+
+
+    @ManagedAttribute(description = "Number of lookups answered from the snapshot")
+    public long getHitCount() {
+        return estateSnapshotService.getHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of lookups which went to the database")
+    public long getMissCount() {
+        return estateSnapshotService.getMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of times the snapshot has been loaded in full")
+    public long getFullLoadCount() {
+        return estateSnapshotService.getFullLoadCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of incremental refreshes")
+    public long getIncrementalRefreshCount() {
+        return estateSnapshotService.getIncrementalRefreshCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of entities found to differ from the database by consistency checks")
+    public long getInconsistencyCount() {
+        return estateSnapshotService.getInconsistencyCount();
+    }
+
+
+    @ManagedAttribute(description = "Version of the current snapshot, zero if not loaded")
+    public long getVersion() {
+        return estateSnapshotService.getVersion();
+    }
+
+
+    @ManagedAttribute(description = "Estimated heap used by the current snapshot (bytes)")
+    public long getEstimatedBytes() {
+        return estateSnapshotService.getEstimatedBytes();
+    }
+
+
+    @ManagedAttribute(description = "Whether the snapshot was discarded for exceeding the memory budget")
+    public boolean isOverBudget() {
+        return estateSnapshotService.isOverBudget();
+    }
+
+
+    @ManagedAttribute(description = "Memory budget (bytes), a snapshot estimated to exceed this is not kept")
+    public long getMemoryBudgetBytes() {
+        return estateSnapshotService.getMemoryBudgetBytes();
+    }
+
+
+    @ManagedAttribute
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        LOG.warn("Setting estate snapshot memory budget to {} bytes (via jmx)", memoryBudgetBytes);
+        estateSnapshotService.setMemoryBudgetBytes(memoryBudgetBytes);
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "EstateSnapshot";
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.permission.UserPermissionCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Statistics and maintenance functions for the user permission cache")
+public class UserPermissionCacheMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserPermissionCacheMaintenance.class);
+
+    private final UserPermissionCache userPermissionCache;
+
+    @Autowired
+    public UserPermissionCacheMaintenance(UserPermissionCache userPermissionCache) {
+        this.userPermissionCache = userPermissionCache;
+    }
+
+
+    @ManagedOperation(description = "Discard all cached roles, involvements and permission groups")
+    public void invalidateAll() {
+        LOG.warn("Invalidate user permission cache (via jmx)");
+        userPermissionCache.invalidateAll();
+    }
+
+
+    @ManagedAttribute(description = "Number of lookups answered from the cache")
+    public long getHitCount() {
+        return userPermissionCache.getHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of lookups which went to the database")
+    public long getMissCount() {
+        return userPermissionCache.getMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of explicit invalidations")
+    public long getInvalidationCount() {
+        return userPermissionCache.getInvalidationCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of users with a cached permission snapshot")
+    public int getCachedUserCount() {
+        return userPermissionCache.getCachedUserCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of entities with cached permission group entries")
+    public int getCachedPermissionGroupEntryCount() {
+        return userPermissionCache.getCachedPermissionGroupEntryCount();
+    }
+
+
+    @ManagedAttribute(description = "Time to live (ms) for cached entries, zero disables caching")
+    public long getTtlMillis() {
+        return userPermissionCache.getTtlMillis();
+    }
+
+
+    @ManagedAttribute
+    public void setTtlMillis(long ttlMillis) {
+        LOG.warn("Setting user permission cache ttl to {}ms (via jmx)", ttlMillis);
+        userPermissionCache.setTtlMillis(ttlMillis);
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "UserPermissionCache";
+    }
+
+}
@@ -55,6 +55,8 @@ import org.finos.waltz.model.logical_flow.LogicalFlowGraphSummary;
 import org.finos.waltz.model.logical_flow.LogicalFlowMeasures;
 import org.finos.waltz.model.logical_flow.LogicalFlowStatistics;
 import org.finos.waltz.model.logical_flow.LogicalFlowView;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.physical_flow.PhysicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
@@ -225,6 +227,12 @@ public class LogicalFlowService {
     }
 
 
+    public Page<LogicalFlow> findBySelector(IdSelectionOptions options,
+                                            PageRequest pageRequest) {
+        return logicalFlowDao.findBySelector(logicalFlowIdSelectorFactory.apply(options), pageRequest);
+    }
+
+
     /**
      * Creates a logical flow and creates a default, 'UNKNOWN' data type decoration
      * if possible.
@@ -1,5 +1,6 @@
 package org.finos.waltz.service.measurable_rating;
 
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.measurable.MeasurableDao;
@@ -43,8 +44,10 @@ import org.finos.waltz.service.measurable_rating_planned_decommission.Measurable
 import org.finos.waltz.service.measurable_rating_replacement.MeasurableRatingReplacementService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.jooq.Record1;
+import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.Unchecked;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
@@ -52,6 +55,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -60,7 +65,6 @@ import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.filter;
 import static org.finos.waltz.common.SetUtilities.map;
-import static org.finos.waltz.model.utils.IdUtilities.toIds;
 import static org.finos.waltz.schema.Tables.MEASURABLE;
 
 @Service
@@ -81,6 +85,7 @@ public class MeasurableRatingViewService {
     private final AllocationService allocationService;
     private final AllocationSchemeService allocationSchemeService;
     private final ApplicationService applicationService;
+    private final DBExecutorPoolInterface dbExecutorPool;
 
     private final GenericSelectorFactory GENERIC_SELECTOR_FACTORY = new GenericSelectorFactory();
 
@@ -97,7 +102,8 @@ public class MeasurableRatingViewService {
                                        AssessmentDefinitionService assessmentDefinitionService,
                                        AllocationService allocationService,
                                        AllocationSchemeService allocationSchemeService,
-                                       ApplicationService applicationService){
+                                       ApplicationService applicationService,
+                                       DBExecutorPoolInterface dbExecutorPool){
 
         this.measurableRatingService = measurableRatingService;
         this.measurableService = measurableService;
@@ -112,6 +118,7 @@ public class MeasurableRatingViewService {
         this.allocationService = allocationService;
         this.allocationSchemeService = allocationSchemeService;
         this.applicationService = applicationService;
+        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -165,42 +172,97 @@ public class MeasurableRatingViewService {
 
     }
 
+    /**
+     * Gathers everything needed to show the ratings against a category for a set of applications.
+     *
+     * The sub-loads are independent of each other so they are run concurrently on the db executor
+     * pool.  The primary assessments are restricted (in the database) to the ratings in the
+     * selection, so cost is proportional to the selection rather than the whole estate.
+     */
     public MeasurableRatingCategoryView getViewForCategoryAndSelector(IdSelectionOptions idSelectionOptions,
                                                                       long categoryId) {
 
+        MeasurableCategory category = getCategory(categoryId);
+
         GenericSelector appSelector = GENERIC_SELECTOR_FACTORY.applyForKind(EntityKind.APPLICATION, idSelectionOptions);
+        Select<Record1<Long>> appIdSelector = appSelector.selector();
+
+        Future<List<Application>> applications = dbExecutorPool.submit(() -> applicationService.findByAppIdSelector(idSelectionOptions));
+        Future<List<MeasurableRating>> ratings = dbExecutorPool.submit(() -> measurableRatingService.findForCategoryAndSelector(appIdSelector, categoryId));
+        Future<List<Measurable>> measurables = dbExecutorPool.submit(() -> measurableService.findByCategoryId(categoryId));
+        Future<Set<MeasurableHierarchy>> hierarchyForCategory = dbExecutorPool.submit(() -> measurableService.findHierarchyForCategory(categoryId));
+        Future<Set<RatingSchemeItem>> measurableRatingSchemeItems = dbExecutorPool.submit(() -> ratingSchemeDAO.findRatingSchemeItemsForSchemeIds(asSet(category.ratingSchemeId())));
+        Future<List<AllocationScheme>> allocSchemes = dbExecutorPool.submit(() -> allocationSchemeService.findByCategoryId(categoryId));
+        Future<Collection<Allocation>> allocs = dbExecutorPool.submit(() -> allocationService.findForCategoryAndSelector(appIdSelector, categoryId));
+        Future<Set<AssessmentDefinition>> defs = dbExecutorPool.submit(() -> findPrimaryDefinitionsForCategory(categoryId));
+        Future<Set<AssessmentRating>> assessmentRatings = dbExecutorPool.submit(() -> assessmentRatingService.findPrimaryForMeasurableCategoryAndSelector(appIdSelector, categoryId));
+        Future<Collection<MeasurableRatingPlannedDecommission>> decomms = dbExecutorPool.submit(() -> measurableRatingPlannedDecommissionService.findForCategoryAndSelector(appIdSelector, categoryId));
+        Future<Collection<MeasurableRatingReplacement>> replacements = dbExecutorPool.submit(() -> measurableRatingReplacementService.findForCategoryAndSelector(appIdSelector, categoryId));
+        Future<Collection<MeasurableRatingPlannedDecommissionInfo>> replacingDecomms = dbExecutorPool.submit(() -> measurableRatingPlannedDecommissionService.findForReplacingEntitySelectorAndCategory(appIdSelector, categoryId));
+        Future<MeasurableRatingsView> primaryRatingsView = dbExecutorPool.submit(() -> getPrimaryRatingsView(appSelector));
+
+        Supplier<MeasurableRatingCategoryView> viewSupplier = Unchecked.supplier(() -> {
+            Set<AssessmentRating> assessments = assessmentRatings.get();
+            Set<RatingSchemeItem> assessmentRatingSchemeItems = ratingSchemeDAO.findRatingSchemeItemsByIds(map(assessments, AssessmentRating::ratingId));
+
+            return mkCategoryView(
+                    category,
+                    applications.get(),
+                    ratings.get(),
+                    measurables.get(),
+                    hierarchyForCategory.get(),
+                    measurableRatingSchemeItems.get(),
+                    allocSchemes.get(),
+                    allocs.get(),
+                    defs.get(),
+                    assessments,
+                    assessmentRatingSchemeItems,
+                    decomms.get(),
+                    replacements.get(),
+                    replacingDecomms.get(),
+                    primaryRatingsView.get());
+        });
+
+        return viewSupplier.get();
+    }
 
-        List<Application> applications = applicationService.findByAppIdSelector(idSelectionOptions);
 
+    private MeasurableCategory getCategory(long categoryId) {
         MeasurableCategory category = measurableCategoryService.getById(categoryId);
 
         if(category == null) {
             throw new IllegalArgumentException(format("Cannot find category with id: %s", categoryId));
         }
 
-        List<MeasurableRating> ratings = measurableRatingService.findForCategoryAndSelector(appSelector.selector(), categoryId);
-        List<Measurable> measurables = measurableService.findByCategoryId(categoryId);
-        List<AllocationScheme> allocSchemes = allocationSchemeService.findByCategoryId(categoryId);
-        Collection<Allocation> allocs = allocationService.findForCategoryAndSelector(appSelector.selector(), categoryId);
+        return category;
+    }
+
 
-        Set<AssessmentDefinition> defs = filter(
+    private Set<AssessmentDefinition> findPrimaryDefinitionsForCategory(long categoryId) {
+        return filter(
                 assessmentDefinitionService.findByEntityKind(EntityKind.MEASURABLE_RATING),
                 d -> d.visibility().equals(AssessmentVisibility.PRIMARY)
                         && d.qualifierReference()
                         .map(qualifierRef -> qualifierRef.id() == categoryId)
                         .orElse(false));
+    }
 
-        List<AssessmentRating> assessments = assessmentRatingService.findByEntityKind(EntityKind.MEASURABLE_RATING);
-        Set<RatingSchemeItem> assessmentRatingSchemeItems = ratingSchemeDAO.findRatingSchemeItemsByIds(map(assessments, AssessmentRating::ratingId));
-        Set<RatingSchemeItem> measurableRatingSchemeItems = ratingSchemeDAO.findRatingSchemeItemsForSchemeIds(asSet(category.ratingSchemeId()));
-        Collection<MeasurableRatingPlannedDecommission> decomms = measurableRatingPlannedDecommissionService.findForCategoryAndSelector(appSelector.selector(), categoryId);
-        Collection<MeasurableRatingReplacement> replacements = measurableRatingReplacementService.findForCategoryAndSelector(appSelector.selector(), categoryId);
-        Collection<MeasurableRatingPlannedDecommissionInfo> replacingDecomms = measurableRatingPlannedDecommissionService.findForReplacingEntitySelectorAndCategory(appSelector.selector(), categoryId);
-        Set<AssessmentRating> assessmentRatings = filter(assessments, d -> toIds(defs).contains(d.assessmentDefinitionId()));
-
-        Set<MeasurableHierarchy> hierarchyForCategory = measurableService.findHierarchyForCategory(categoryId);
 
-        MeasurableRatingsView primaryRatingsView = getPrimaryRatingsView(appSelector);
+    private static MeasurableRatingCategoryView mkCategoryView(MeasurableCategory category,
+                                                               List<Application> applications,
+                                                               List<MeasurableRating> ratings,
+                                                               List<Measurable> measurables,
+                                                               Set<MeasurableHierarchy> hierarchyForCategory,
+                                                               Set<RatingSchemeItem> measurableRatingSchemeItems,
+                                                               List<AllocationScheme> allocSchemes,
+                                                               Collection<Allocation> allocs,
+                                                               Set<AssessmentDefinition> defs,
+                                                               Set<AssessmentRating> assessmentRatings,
+                                                               Set<RatingSchemeItem> assessmentRatingSchemeItems,
+                                                               Collection<MeasurableRatingPlannedDecommission> decomms,
+                                                               Collection<MeasurableRatingReplacement> replacements,
+                                                               Collection<MeasurableRatingPlannedDecommissionInfo> replacingDecomms,
+                                                               MeasurableRatingsView primaryRatingsView) {
 
         MeasurableRatingsView ratingsView = ImmutableMeasurableRatingsView
                 .builder()
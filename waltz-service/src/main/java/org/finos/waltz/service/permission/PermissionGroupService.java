@@ -28,15 +28,18 @@ public class PermissionGroupService {
     private final PersonService personService;
     private final PermissionGroupDao permissionGroupDao;
     private final InvolvementService involvementService;
+    private final UserPermissionCache userPermissionCache;
 
 
     @Autowired
     public PermissionGroupService(PersonService personService,
                                   PermissionGroupDao permissionGroupDao,
-                                  InvolvementService involvementService) {
+                                  InvolvementService involvementService,
+                                  UserPermissionCache userPermissionCache) {
         this.personService = personService;
         this.permissionGroupDao = permissionGroupDao;
         this.involvementService = involvementService;
+        this.userPermissionCache = userPermissionCache;
     }
 
 
@@ -49,7 +52,16 @@ public class PermissionGroupService {
             return Collections.emptySet();
         }
 
-        return permissionGroupDao.findPermissionsForParentEntityReference(parentEntityRef);
+        return userPermissionCache.findPermissionsForParentEntityReference(parentEntityRef);
+    }
+
+
+    /**
+     * Permission groups are maintained outside of Waltz services (e.g. via bulk loaders),
+     * callers which modify them should call this so the changes are picked up straight away.
+     */
+    public void invalidateCachedPermissions() {
+        userPermissionCache.invalidatePermissionGroups();
     }
 
 
@@ -0,0 +1,297 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.permission;
+
+import org.finos.waltz.data.involvement.InvolvementDao;
+import org.finos.waltz.data.permission.PermissionGroupDao;
+import org.finos.waltz.data.user.UserRoleDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.permission_group.Permission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Short-lived cache of the facts used when checking what a user may do:
+ * <ul>
+ *     <li>the system roles held by a user</li>
+ *     <li>the involvement kinds a user has against an entity</li>
+ *     <li>the permission group entries which apply to an entity</li>
+ * </ul>
+ *
+ * Roles and involvements are held in a per-user snapshot which expires as a whole
+ * once the ttl elapses.  Permission group entries are not user specific and are
+ * shared between all users.  Writers which change any of these facts should call
+ * the relevant <code>invalidate</code> method so the change is visible immediately,
+ * the ttl only bounds staleness for changes made outside of Waltz services.
+ */
+@Service
+public class UserPermissionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserPermissionCache.class);
+
+    private static final long DEFAULT_TTL_MILLIS = 30_000;
+    private static final int MAX_USER_SNAPSHOTS = 10_000;
+    private static final int MAX_PERMISSION_ENTRIES = 50_000;
+
+    private final UserRoleDao userRoleDao;
+    private final InvolvementDao involvementDao;
+    private final PermissionGroupDao permissionGroupDao;
+
+    private final ConcurrentMap<String, UserSnapshot> snapshotsByUserName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<EntityReference, Expiring<Set<Permission>>> permissionsByParentRef = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+
+    @Autowired
+    public UserPermissionCache(UserRoleDao userRoleDao,
+                               InvolvementDao involvementDao,
+                               PermissionGroupDao permissionGroupDao) {
+        checkNotNull(userRoleDao, "userRoleDao cannot be null");
+        checkNotNull(involvementDao, "involvementDao cannot be null");
+        checkNotNull(permissionGroupDao, "permissionGroupDao cannot be null");
+
+        this.userRoleDao = userRoleDao;
+        this.involvementDao = involvementDao;
+        this.permissionGroupDao = permissionGroupDao;
+    }
+
+
+    public Set<String> getUserRoles(String userName) {
+        checkNotNull(userName, "userName cannot be null");
+
+        UserSnapshot snapshot = getSnapshot(userName);
+        Set<String> roles = snapshot.roles;
+
+        if (roles == null) {
+            misses.increment();
+            roles = unmodifiableSet(userRoleDao.getUserRoles(userName));
+            snapshot.roles = roles;
+        } else {
+            hits.increment();
+        }
+
+        return roles;
+    }
+
+
+    public Set<Long> findExistingInvolvementKindIdsForUser(EntityReference entityReference,
+                                                           String userName) {
+        checkNotNull(entityReference, "entityReference cannot be null");
+        checkNotNull(userName, "userName cannot be null");
+
+        UserSnapshot snapshot = getSnapshot(userName);
+        Set<Long> kindIds = snapshot.involvementKindIdsByRef.get(entityReference);
+
+        if (kindIds == null) {
+            misses.increment();
+            kindIds = unmodifiableSet(involvementDao.findExistingInvolvementKindIdsForUser(entityReference, userName));
+            snapshot.involvementKindIdsByRef.put(entityReference, kindIds);
+        } else {
+            hits.increment();
+        }
+
+        return kindIds;
+    }
+
+
+    public Set<Permission> findPermissionsForParentEntityReference(EntityReference parentEntityRef) {
+        checkNotNull(parentEntityRef, "parentEntityRef cannot be null");
+
+        long now = System.currentTimeMillis();
+        Expiring<Set<Permission>> cached = permissionsByParentRef.get(parentEntityRef);
+
+        if (cached != null && !cached.hasExpired(now)) {
+            hits.increment();
+            return cached.value;
+        }
+
+        misses.increment();
+        Set<Permission> permissions = unmodifiableSet(permissionGroupDao.findPermissionsForParentEntityReference(parentEntityRef));
+
+        if (permissionsByParentRef.size() >= MAX_PERMISSION_ENTRIES) {
+            permissionsByParentRef.values().removeIf(e -> e.hasExpired(now));
+        }
+        permissionsByParentRef.put(parentEntityRef, new Expiring<>(permissions, now + ttlMillis));
+
+        return permissions;
+    }
+
+
+    // --- invalidation
+
+    public void invalidateUser(String userName) {
+        checkNotNull(userName, "userName cannot be null");
+        invalidations.increment();
+        snapshotsByUserName.remove(toKey(userName));
+    }
+
+
+    public void invalidateUsers(Collection<String> userNames) {
+        checkNotNull(userNames, "userNames cannot be null");
+        userNames.forEach(this::invalidateUser);
+    }
+
+
+    public void invalidateInvolvements(EntityReference entityReference) {
+        checkNotNull(entityReference, "entityReference cannot be null");
+        invalidations.increment();
+        snapshotsByUserName.values().forEach(s -> s.involvementKindIdsByRef.remove(entityReference));
+    }
+
+
+    public void invalidateAllInvolvements() {
+        invalidations.increment();
+        snapshotsByUserName.values().forEach(s -> s.involvementKindIdsByRef.clear());
+    }
+
+
+    public void invalidatePermissionGroups() {
+        invalidations.increment();
+        permissionsByParentRef.clear();
+    }
+
+
+    public void invalidateAll() {
+        LOG.info("Invalidating all cached user permissions");
+        invalidations.increment();
+        snapshotsByUserName.clear();
+        permissionsByParentRef.clear();
+    }
+
+
+    // --- stats
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+
+    public int getCachedUserCount() {
+        return snapshotsByUserName.size();
+    }
+
+
+    public int getCachedPermissionGroupEntryCount() {
+        return permissionsByParentRef.size();
+    }
+
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+
+    public void setTtlMillis(long ttlMillis) {
+        checkTrue(ttlMillis >= 0, "ttl cannot be negative");
+        LOG.info("Setting user permission cache ttl to {}ms", ttlMillis);
+        this.ttlMillis = ttlMillis;
+        invalidateAll();
+    }
+
+
+    // --- helpers
+
+    private UserSnapshot getSnapshot(String userName) {
+        long now = System.currentTimeMillis();
+        String key = toKey(userName);
+        UserSnapshot snapshot = snapshotsByUserName.get(key);
+
+        if (snapshot != null && !snapshot.hasExpired(now)) {
+            return snapshot;
+        }
+
+        if (snapshotsByUserName.size() >= MAX_USER_SNAPSHOTS) {
+            snapshotsByUserName.values().removeIf(s -> s.hasExpired(now));
+        }
+
+        UserSnapshot fresh = new UserSnapshot(now + ttlMillis);
+        snapshotsByUserName.put(key, fresh);
+        return fresh;
+    }
+
+
+    /**
+     * User names are matched case-insensitively (as per the user role lookup), so
+     * 'Bob' and 'bob' share a snapshot and invalidating either clears it.
+     */
+    private static String toKey(String userName) {
+        return userName.toLowerCase(Locale.ROOT);
+    }
+
+
+    private static class UserSnapshot {
+
+        private final long expiresAt;
+        private final ConcurrentMap<EntityReference, Set<Long>> involvementKindIdsByRef = new ConcurrentHashMap<>();
+        private volatile Set<String> roles;
+
+        private UserSnapshot(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+
+    private static class Expiring<T> {
+
+        private final T value;
+        private final long expiresAt;
+
+        private Expiring(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+}
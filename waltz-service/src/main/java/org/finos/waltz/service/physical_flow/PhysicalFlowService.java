@@ -33,6 +33,8 @@ import org.finos.waltz.model.*;
 import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.external_identifier.ExternalIdentifier;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.physical_flow.*;
 import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecification;
 import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecificationDeleteCommand;
@@ -127,6 +129,13 @@ public class PhysicalFlowService {
     }
 
 
+    public Page<PhysicalFlow> findBySelector(IdSelectionOptions idSelectionOptions,
+                                             PageRequest pageRequest) {
+        Select<Record1<Long>> selector = physicalFlowIdSelectorFactory.apply(idSelectionOptions);
+        return physicalFlowDao.findBySelector(selector, pageRequest);
+    }
+
+
     public PhysicalFlow getById(long id) {
         return physicalFlowDao.getById(id);
     }
@@ -0,0 +1,65 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.read_replica;
+
+import org.finos.waltz.data.ReadOnlyDsl;
+import org.finos.waltz.data.ReadYourWritesTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Allows the web layer to associate the current request thread with a user,
+ * so that reads routed to the replica by {@link ReadOnlyDsl} go to the primary
+ * for users who have just written data.
+ */
+@Service
+public class ReadReplicaService {
+
+    private final ReadOnlyDsl readOnlyDsl;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+
+    @Autowired
+    public ReadReplicaService(ReadOnlyDsl readOnlyDsl,
+                              ReadYourWritesTracker readYourWritesTracker) {
+        checkNotNull(readOnlyDsl, "readOnlyDsl cannot be null");
+        checkNotNull(readYourWritesTracker, "readYourWritesTracker cannot be null");
+
+        this.readOnlyDsl = readOnlyDsl;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+
+    public boolean hasReplica() {
+        return readOnlyDsl.hasReplica();
+    }
+
+
+    public void bindUser(String userId) {
+        readYourWritesTracker.bindUser(userId);
+    }
+
+
+    public void unbindUser() {
+        readYourWritesTracker.unbindUser();
+    }
+
+}
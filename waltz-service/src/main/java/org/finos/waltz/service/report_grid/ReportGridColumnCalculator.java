@@ -43,14 +43,37 @@ public class ReportGridColumnCalculator {
 
     public static Set<ReportGridCell> calculate(ReportGridInstance instance,
                                                 ReportGridDefinition definition) {
-        ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder.namespaces(newHashMap(null, ns)).cache(512).create();
+        RowCalculator rowCalculator = mkRowCalculator(instance, definition);
 
         Map<Long, Collection<ReportGridCell>> rowBySubject = groupBy(
                 instance.cellData(),
                 ReportGridCell::subjectId);
 
+        return instance
+                .subjects()
+                .stream()
+                .flatMap(subject -> rowCalculator
+                        .calculate(
+                                subject,
+                                lookupRow(rowBySubject, subject.entityReference().id()))
+                        .stream())
+                .collect(toSet());
+    }
+
+
+    /**
+     * Prepares a calculator which evaluates the derived columns of the grid one
+     * subject (row) at a time, allowing callers to compute derived cells as they
+     * emit rows rather than for the whole grid up front.
+     *
+     * The returned calculator is not thread safe.
+     */
+    public static RowCalculator mkRowCalculator(ReportGridInstance instance,
+                                                ReportGridDefinition definition) {
+        ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
+        JexlBuilder builder = new JexlBuilder();
+        JexlEngine jexl = builder.namespaces(newHashMap(null, ns)).cache(512).create();
+
         Map<Long, RatingSchemeItem> ratingSchemeItemsById = indexById(instance.ratingSchemeItems());
 
         Set<CompiledCalculatedColumn> derivedColumns = map(
@@ -67,27 +90,18 @@ public class ReportGridColumnCalculator {
                             .build();
                 });
 
-        return instance
-                .subjects()
-                .stream()
-                .map(s -> {
-                    long subjectId = s.entityReference().id();
-                    Map<String, Object> ctx = initialiseContext(
-                            definition.fixedColumnDefinitions(),
-                            ratingSchemeItemsById,
-                            s,
-                            lookupRow(rowBySubject, subjectId));
-                    ns.setContext(ctx);
-                    return s;
-                })
-                .flatMap(subject ->
-                        calcDerivedCols(
-                                ns,
-                                subject,
-                                derivedColumns)
-                        .stream())
-                .collect(toSet());
-
+        return (subject, row) -> {
+            Map<String, Object> ctx = initialiseContext(
+                    definition.fixedColumnDefinitions(),
+                    ratingSchemeItemsById,
+                    subject,
+                    row);
+            ns.setContext(ctx);
+            return calcDerivedCols(
+                    ns,
+                    subject,
+                    derivedColumns);
+        };
     }
 
 
@@ -261,6 +275,19 @@ public class ReportGridColumnCalculator {
     }
 
 
+    @FunctionalInterface
+    public interface RowCalculator {
+
+        /**
+         * @param subject  the subject of the row
+         * @param row  the (non-derived) cells for the subject
+         * @return  the derived cells for the subject
+         */
+        Set<ReportGridCell> calculate(ReportSubject subject,
+                                      Collection<ReportGridCell> row);
+    }
+
+
     public static String colToExtId(ReportGridFixedColumnDefinition col) {
         return col
                 .externalId()
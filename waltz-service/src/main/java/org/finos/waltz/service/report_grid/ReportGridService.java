@@ -118,9 +118,45 @@ public class ReportGridService {
             return Optional.empty();
         }
 
-        EntityKind targetKind = definition.subjectKind();
+        ReportGridInstance instance = calculateInstance(definition, idSelectionOptions);
 
-        ReportGridInstance instance = mkInstance(id, idSelectionOptions, targetKind);
+        return Optional.of(mkGrid(definition, instance, username));
+    }
+
+
+    /**
+     * Computes the grid instance for the selection, including any derived columns
+     */
+    public ReportGridInstance calculateInstance(ReportGridDefinition definition,
+                                                IdSelectionOptions idSelectionOptions) {
+        long id = definition
+                .id()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot calculate an instance for a grid without an id"));
+
+        ReportGridInstance instance = mkInstance(id, idSelectionOptions, definition.subjectKind());
+
+        if (definition.derivedColumnDefinitions().isEmpty()) {
+            return instance;
+        }
+
+        Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
+
+        return ImmutableReportGridInstance
+                .copyOf(instance)
+                .withCellData(SetUtilities.union(instance.cellData(), calculatedCells));
+    }
+
+
+    /**
+     * Combines a definition and a (previously calculated) instance with the grid's
+     * members and the role of the given user
+     */
+    public ReportGrid mkGrid(ReportGridDefinition definition,
+                             ReportGridInstance instance,
+                             String username) {
+        long id = definition
+                .id()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot make a grid from a definition without an id"));
 
         Set<ReportGridMember> members = reportGridMemberService.findByGridId(id);
 
@@ -131,27 +167,13 @@ public class ReportGridService {
                 .map(ReportGridMember::role)
                 .orElse(ReportGridMemberRole.VIEWER);
 
-        if (!definition.derivedColumnDefinitions().isEmpty()) {
-            Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
-
-            return Optional.of(ImmutableReportGrid
-                    .builder()
-                    .definition(definition)
-                    .instance(ImmutableReportGridInstance
-                            .copyOf(instance)
-                            .withCellData(SetUtilities.union(instance.cellData(), calculatedCells)))
-                    .members(members)
-                    .userRole(userRole)
-                    .build());
-        }
-
-        return Optional.of(ImmutableReportGrid
+        return ImmutableReportGrid
                 .builder()
                 .definition(definition)
                 .instance(instance)
                 .members(members)
                 .userRole(userRole)
-                .build());
+                .build();
     }
 
 
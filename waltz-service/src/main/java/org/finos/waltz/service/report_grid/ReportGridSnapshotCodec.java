@@ -0,0 +1,316 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+
+/**
+ * Compact, columnar, encoding of a {@link ReportGridInstance} used for grid snapshots.
+ * <p>
+ * The (gzipped) layout is:
+ * <ul>
+ *     <li>format version</li>
+ *     <li>subject ids, as a sorted array.  Rows are referred to by their index in this array</li>
+ *     <li>subject attributes (kind, name, external id etc.), one dictionary encoded column per attribute</li>
+ *     <li>rating scheme items (json)</li>
+ *     <li>for each grid column: a dictionary of the distinct cell values in that column (json,
+ *     without subject id) followed by (row index, dictionary index) pairs for the populated cells</li>
+ * </ul>
+ * Cells typically repeat a small number of values (ratings, yes/no etc.) per column so
+ * the dictionaries are small and the remainder is just integer pairs.
+ * <p>
+ * Cells for ids which are not amongst the instance's subjects cannot be shown in a grid
+ * and are not stored.
+ */
+public final class ReportGridSnapshotCodec {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int NULL_INDEX = -1;
+
+    private static final TypeReference<List<RatingSchemeItem>> RATING_ITEMS_TYPE = new TypeReference<List<RatingSchemeItem>>() {};
+
+
+    private ReportGridSnapshotCodec() {
+    }
+
+
+    public static byte[] encode(ReportGridInstance instance) {
+        checkNotNull(instance, "instance cannot be null");
+
+        List<ReportSubject> subjects = instance
+                .subjects()
+                .stream()
+                .sorted(comparingLong(s -> s.entityReference().id()))
+                .collect(toList());
+
+        Map<Long, Integer> rowIdxBySubjectId = new HashMap<>();
+        for (int i = 0; i < subjects.size(); i++) {
+            rowIdxBySubjectId.put(subjects.get(i).entityReference().id(), i);
+        }
+
+        // column id -> cells, in column id order so the encoding is deterministic
+        Map<Long, List<ReportGridCell>> cellsByColumnId = new TreeMap<>();
+        instance.cellData()
+                .stream()
+                .filter(c -> rowIdxBySubjectId.containsKey(c.subjectId()))
+                .sorted(comparingLong(ReportGridCell::subjectId))
+                .forEach(c -> cellsByColumnId
+                        .computeIfAbsent(c.columnDefinitionId(), k -> new ArrayList<>())
+                        .add(c));
+
+        ObjectMapper mapper = getJsonMapper();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(FORMAT_VERSION);
+
+            out.writeInt(subjects.size());
+            for (ReportSubject subject : subjects) {
+                out.writeLong(subject.entityReference().id());
+            }
+
+            writeDictionaryColumn(out, subjects, s -> s.entityReference().kind().name());
+            writeDictionaryColumn(out, subjects, s -> s.entityReference().name().orElse(null));
+            writeDictionaryColumn(out, subjects, s -> s.entityReference().externalId().orElse(null));
+            writeDictionaryColumn(out, subjects, s -> s.entityReference().description());
+            writeDictionaryColumn(out, subjects, s -> s.entityReference().entityLifecycleStatus().name());
+            writeDictionaryColumn(out, subjects, s -> s.lifecyclePhase().name());
+
+            writeString(out, mapper.writeValueAsString(instance.ratingSchemeItems()));
+
+            out.writeInt(cellsByColumnId.size());
+            for (Map.Entry<Long, List<ReportGridCell>> column : cellsByColumnId.entrySet()) {
+                out.writeLong(column.getKey());
+
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                List<String> cellValues = new ArrayList<>(column.getValue().size());
+                for (ReportGridCell cell : column.getValue()) {
+                    String value = mapper.writeValueAsString(ImmutableReportGridCell
+                            .copyOf(cell)
+                            .withSubjectId(0));
+                    dictionary.putIfAbsent(value, dictionary.size());
+                    cellValues.add(value);
+                }
+
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    writeString(out, value);
+                }
+
+                out.writeInt(cellValues.size());
+                for (int i = 0; i < cellValues.size(); i++) {
+                    out.writeInt(rowIdxBySubjectId.get(column.getValue().get(i).subjectId()));
+                    out.writeInt(dictionary.get(cellValues.get(i)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode report grid snapshot", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+
+    public static ReportGridInstance decode(byte[] data) {
+        checkNotNull(data, "data cannot be null");
+
+        ObjectMapper mapper = getJsonMapper();
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            int version = in.readInt();
+            checkTrue(version == FORMAT_VERSION, "Unsupported report grid snapshot format: " + version);
+
+            int subjectCount = in.readInt();
+            long[] subjectIds = new long[subjectCount];
+            for (int i = 0; i < subjectCount; i++) {
+                subjectIds[i] = in.readLong();
+            }
+
+            String[] kinds = readDictionaryColumn(in, subjectCount);
+            String[] names = readDictionaryColumn(in, subjectCount);
+            String[] externalIds = readDictionaryColumn(in, subjectCount);
+            String[] descriptions = readDictionaryColumn(in, subjectCount);
+            String[] entityLifecycleStatuses = readDictionaryColumn(in, subjectCount);
+            String[] lifecyclePhases = readDictionaryColumn(in, subjectCount);
+
+            Set<ReportSubject> subjects = new HashSet<>(subjectCount);
+            for (int i = 0; i < subjectCount; i++) {
+                EntityReference ref = ImmutableEntityReference
+                        .builder()
+                        .kind(EntityKind.valueOf(kinds[i]))
+                        .id(subjectIds[i])
+                        .name(Optional.ofNullable(names[i]))
+                        .externalId(Optional.ofNullable(externalIds[i]))
+                        .description(descriptions[i])
+                        .entityLifecycleStatus(EntityLifecycleStatus.valueOf(entityLifecycleStatuses[i]))
+                        .build();
+
+                subjects.add(ImmutableReportSubject
+                        .builder()
+                        .entityReference(ref)
+                        .lifecyclePhase(LifecyclePhase.valueOf(lifecyclePhases[i]))
+                        .build());
+            }
+
+            List<RatingSchemeItem> ratingSchemeItems = mapper.readValue(readString(in), RATING_ITEMS_TYPE);
+
+            Set<ReportGridCell> cells = new HashSet<>();
+            int columnCount = in.readInt();
+            for (int c = 0; c < columnCount; c++) {
+                in.readLong(); // column id, also held in each dictionary entry
+
+                int dictionarySize = in.readInt();
+                ReportGridCell[] dictionary = new ReportGridCell[dictionarySize];
+                for (int d = 0; d < dictionarySize; d++) {
+                    dictionary[d] = mapper.readValue(readString(in), ReportGridCell.class);
+                }
+
+                int cellCount = in.readInt();
+                for (int i = 0; i < cellCount; i++) {
+                    long subjectId = subjectIds[in.readInt()];
+                    ReportGridCell cell = dictionary[in.readInt()];
+                    cells.add(ImmutableReportGridCell
+                            .copyOf(cell)
+                            .withSubjectId(subjectId));
+                }
+            }
+
+            return ImmutableReportGridInstance
+                    .builder()
+                    .subjects(subjects)
+                    .cellData(cells)
+                    .ratingSchemeItems(ratingSchemeItems)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode report grid snapshot", e);
+        }
+    }
+
+
+    /**
+     * @return the number of cells (across all columns) which will be stored for the instance
+     */
+    public static int countStoredCells(ReportGridInstance instance) {
+        Set<Long> subjectIds = new HashSet<>();
+        instance.subjects().forEach(s -> subjectIds.add(s.entityReference().id()));
+        return (int) instance
+                .cellData()
+                .stream()
+                .filter(c -> subjectIds.contains(c.subjectId()))
+                .count();
+    }
+
+
+    // --- helpers
+
+    private static <T> void writeDictionaryColumn(DataOutputStream out,
+                                                  Collection<T> rows,
+                                                  Function<T, String> valueFn) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[rows.size()];
+
+        int row = 0;
+        for (T t : rows) {
+            String value = valueFn.apply(t);
+            indexes[row++] = value == null
+                    ? NULL_INDEX
+                    : dictionary.computeIfAbsent(value, k -> dictionary.size());
+        }
+
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        for (int idx : indexes) {
+            out.writeInt(idx);
+        }
+    }
+
+
+    private static String[] readDictionaryColumn(DataInputStream in, int rowCount) throws IOException {
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            int idx = in.readInt();
+            values[i] = idx == NULL_INDEX
+                    ? null
+                    : dictionary[idx];
+        }
+        return values;
+    }
+
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.common.exception.NotFoundException;
+import org.finos.waltz.data.report_grid.ReportGridSnapshotDao;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.report_grid.ImmutableReportGridSnapshot;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportGridSnapshot;
+import org.finos.waltz.model.report_grid.ReportGridSnapshotConfig;
+import org.finos.waltz.model.report_grid.ReportGridSnapshotInfo;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+
+/**
+ * Periodically computes marked grid / selection combinations (see {@link ReportGridSnapshotConfig})
+ * and stores them, encoded by {@link ReportGridSnapshotCodec}.  Read-mostly grids can then be
+ * served from the latest snapshot rather than being recalculated on every view, and older
+ * snapshots (kept for the retention period) can be used for trend comparisons.
+ */
+@Service
+public class ReportGridSnapshotService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridSnapshotService.class);
+
+    private final ReportGridSnapshotDao reportGridSnapshotDao;
+    private final ReportGridService reportGridService;
+    private final ReportGridMemberService reportGridMemberService;
+    private final Duration snapshotInterval;
+    private final Duration retentionPeriod;
+
+
+    @Autowired
+    public ReportGridSnapshotService(ReportGridSnapshotDao reportGridSnapshotDao,
+                                     ReportGridService reportGridService,
+                                     ReportGridMemberService reportGridMemberService,
+                                     @Value("${report_grid.snapshot.interval_minutes:60}") int snapshotIntervalMinutes,
+                                     @Value("${report_grid.snapshot.retention_days:90}") int retentionDays) {
+        checkNotNull(reportGridSnapshotDao, "reportGridSnapshotDao cannot be null");
+        checkNotNull(reportGridService, "reportGridService cannot be null");
+        checkNotNull(reportGridMemberService, "reportGridMemberService cannot be null");
+
+        this.reportGridSnapshotDao = reportGridSnapshotDao;
+        this.reportGridService = reportGridService;
+        this.reportGridMemberService = reportGridMemberService;
+        this.snapshotInterval = Duration.ofMinutes(snapshotIntervalMinutes);
+        this.retentionPeriod = Duration.ofDays(retentionDays);
+    }
+
+
+    // --- configs
+
+    public Set<ReportGridSnapshotConfig> findConfigsForGrid(long gridId) {
+        return reportGridSnapshotDao.findConfigsForGrid(gridId);
+    }
+
+
+    /**
+     * Marks the grid and selection for snapshotting.  Only the selection entity and
+     * scope are recorded, snapshots use the default selection options for these.
+     * If the combination is already marked the existing config is returned.
+     */
+    public ReportGridSnapshotConfig createConfig(long gridId,
+                                                 IdSelectionOptions selectionOptions,
+                                                 String username) throws InsufficientPrivelegeException {
+        checkNotNull(selectionOptions, "selectionOptions cannot be null");
+        getDefinition(gridId);
+        reportGridMemberService.checkIsOwner(gridId, username);
+
+        Optional<ReportGridSnapshotConfig> existing = reportGridSnapshotDao.getConfig(
+                gridId,
+                selectionOptions.entityReference(),
+                selectionOptions.scope());
+
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        long configId = reportGridSnapshotDao.createConfig(
+                gridId,
+                selectionOptions.entityReference(),
+                selectionOptions.scope(),
+                username);
+
+        return getConfig(configId);
+    }
+
+
+    public boolean removeConfig(long configId,
+                                String username) throws InsufficientPrivelegeException {
+        ReportGridSnapshotConfig config = getConfig(configId);
+        reportGridMemberService.checkIsOwner(config.reportGridId(), username);
+        return reportGridSnapshotDao.removeConfig(configId);
+    }
+
+
+    // --- snapshots
+
+    /**
+     * Takes a snapshot for every config whose latest snapshot is older than the snapshot
+     * interval, then removes snapshots which are beyond the retention period.
+     *
+     * @return number of snapshots taken
+     */
+    public int takeDueSnapshots() {
+        Map<Long, Timestamp> latestAsOfByConfigId = reportGridSnapshotDao.findLatestAsOfByConfigId();
+        Timestamp dueIfBefore = Timestamp.from(nowUtcTimestamp().toInstant().minus(snapshotInterval));
+
+        int taken = 0;
+        for (ReportGridSnapshotConfig config : reportGridSnapshotDao.findAllConfigs()) {
+            long configId = config.id().get();
+            Timestamp latestAsOf = latestAsOfByConfigId.get(configId);
+
+            if (latestAsOf != null && latestAsOf.after(dueIfBefore)) {
+                continue;
+            }
+
+            try {
+                takeSnapshot(config);
+                taken++;
+            } catch (NotFoundException e) {
+                LOG.warn("Removing snapshot config: {} as its grid: {} no longer exists", configId, config.reportGridId());
+                reportGridSnapshotDao.removeConfig(configId);
+            } catch (Exception e) {
+                LOG.error(format("Failed to take report grid snapshot for config: %d", configId), e);
+            }
+        }
+
+        Timestamp retainFrom = Timestamp.from(nowUtcTimestamp().toInstant().minus(retentionPeriod));
+        int removed = reportGridSnapshotDao.removeSnapshotsBefore(retainFrom);
+
+        if (taken > 0 || removed > 0) {
+            LOG.info("Took {} report grid snapshots, removed {} expired snapshots", taken, removed);
+        }
+
+        return taken;
+    }
+
+
+    public ReportGridSnapshotInfo takeSnapshot(long configId) {
+        return takeSnapshot(getConfig(configId));
+    }
+
+
+    public List<ReportGridSnapshotInfo> findSnapshotInfosForConfig(long configId) {
+        return reportGridSnapshotDao.findSnapshotInfosForConfig(configId);
+    }
+
+
+    /**
+     * Finds the most recent snapshot for the grid and selection.  Selections which
+     * have not been marked for snapshotting, or which differ from the default
+     * selection options (e.g. have filters), have no snapshot.
+     */
+    public Optional<ReportGridSnapshot> findLatestSnapshot(long gridId,
+                                                           IdSelectionOptions selectionOptions,
+                                                           String username) {
+        checkNotNull(selectionOptions, "selectionOptions cannot be null");
+
+        return reportGridSnapshotDao
+                .getConfig(gridId, selectionOptions.entityReference(), selectionOptions.scope())
+                .filter(config -> config.selectionOptions().equals(selectionOptions))
+                .flatMap(config -> reportGridSnapshotDao
+                        .getLatestSnapshotForConfig(config.id().get())
+                        .map(snapshot -> mkSnapshot(config, snapshot, username)));
+    }
+
+
+    public Optional<ReportGridSnapshot> findSnapshotById(long snapshotId,
+                                                         String username) {
+        return reportGridSnapshotDao
+                .getSnapshotById(snapshotId)
+                .map(snapshot -> mkSnapshot(
+                        getConfig(snapshot.v1.snapshotConfigId()),
+                        snapshot,
+                        username));
+    }
+
+
+    // --- helpers
+
+    private ReportGridSnapshotInfo takeSnapshot(ReportGridSnapshotConfig config) {
+        long configId = config.id().get();
+        ReportGridDefinition definition = getDefinition(config.reportGridId());
+
+        long start = System.currentTimeMillis();
+        Timestamp asOf = nowUtcTimestamp();
+
+        ReportGridInstance instance = reportGridService.calculateInstance(
+                definition,
+                config.selectionOptions());
+
+        byte[] data = ReportGridSnapshotCodec.encode(instance);
+
+        long snapshotId = reportGridSnapshotDao.createSnapshot(
+                configId,
+                asOf,
+                instance.subjects().size(),
+                ReportGridSnapshotCodec.countStoredCells(instance),
+                data);
+
+        LOG.debug(
+                "Took report grid snapshot: {} for config: {} in {}ms, {} subjects, {} bytes",
+                snapshotId,
+                configId,
+                System.currentTimeMillis() - start,
+                instance.subjects().size(),
+                data.length);
+
+        return reportGridSnapshotDao
+                .getSnapshotById(snapshotId)
+                .map(t -> t.v1)
+                .orElseThrow(() -> new IllegalStateException("Could not find snapshot just created: " + snapshotId));
+    }
+
+
+    private ReportGridSnapshot mkSnapshot(ReportGridSnapshotConfig config,
+                                          Tuple2<ReportGridSnapshotInfo, byte[]> snapshot,
+                                          String username) {
+        ReportGridDefinition definition = getDefinition(config.reportGridId());
+        ReportGridInstance instance = ReportGridSnapshotCodec.decode(snapshot.v2);
+
+        return ImmutableReportGridSnapshot
+                .builder()
+                .info(snapshot.v1)
+                .grid(reportGridService.mkGrid(definition, instance, username))
+                .build();
+    }
+
+
+    private ReportGridSnapshotConfig getConfig(long configId) {
+        return reportGridSnapshotDao
+                .getConfigById(configId)
+                .orElseThrow(() -> new NotFoundException(
+                        "REPORT_GRID_SNAPSHOT_CONFIG_NOT_FOUND",
+                        format("Snapshot config: %d not found", configId)));
+    }
+
+
+    private ReportGridDefinition getDefinition(long gridId) {
+        ReportGridDefinition definition = reportGridService.getGridDefinitionById(gridId);
+        if (definition == null) {
+            throw new NotFoundException(
+                    "REPORT_GRID_NOT_FOUND",
+                    format("Grid def: %d not found", gridId));
+        }
+        return definition;
+    }
+
+}
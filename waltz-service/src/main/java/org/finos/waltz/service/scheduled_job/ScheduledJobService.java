@@ -25,13 +25,17 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
 import org.finos.waltz.service.attestation.AttestationRunService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.changelog.ChangeLogSummariesService;
 import org.finos.waltz.service.complexity.ComplexityService;
 import org.finos.waltz.service.cost.CostService;
 import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.entity_statistic.EntityStatisticService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.physical_specification_data_type.PhysicalSpecDataTypeService;
 import org.finos.waltz.service.report_grid.ReportGridFilterViewService;
+import org.finos.waltz.service.report_grid.ReportGridSnapshotService;
 import org.finos.waltz.service.survey.SurveyInstanceActionQueueService;
 import org.finos.waltz.service.survey.SurveyInstanceService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
@@ -56,14 +60,18 @@ public class ScheduledJobService {
 
     private final DataTypeUsageService dataTypeUsageService;
     private final EntityHierarchyService entityHierarchyService;
+    private final EntityStatisticService entityStatisticService;
     private final FlowClassificationRuleService flowClassificationRuleService;
     private final LogicalFlowService logicalFlowService;
     private final PhysicalSpecDataTypeService physicalSpecDataTypeService;
     private final ScheduledJobDao scheduledJobDao;
     private final AttestationRunService attestationRunService;
+    private final ChangeLogService changeLogService;
+    private final ChangeLogSummariesService changeLogSummariesService;
     private final SurveyInstanceService surveyInstanceService;
 
     private final ReportGridFilterViewService reportGridFilterViewService;
+    private final ReportGridSnapshotService reportGridSnapshotService;
     private final CostService costService;
     private final SurveyInstanceActionQueueService surveyInstanceActionQueueService;
     private final ComplexityService complexityService;
@@ -71,40 +79,52 @@ public class ScheduledJobService {
 
     @Autowired
     public ScheduledJobService(AttestationRunService attestationRunService,
+                               ChangeLogService changeLogService,
+                               ChangeLogSummariesService changeLogSummariesService,
                                ComplexityService complexityService,
                                CostService costService,
                                DataTypeUsageService dataTypeUsageService,
                                EntityHierarchyService entityHierarchyService,
+                               EntityStatisticService entityStatisticService,
                                FlowClassificationRuleService flowClassificationRuleService,
                                LogicalFlowService logicalFlowService,
                                PhysicalSpecDataTypeService physicalSpecDataTypeService,
                                ReportGridFilterViewService reportGridFilterViewService,
+                               ReportGridSnapshotService reportGridSnapshotService,
                                ScheduledJobDao scheduledJobDao,
                                SurveyInstanceActionQueueService surveyInstanceActionQueueService,
                                SurveyInstanceService surveyInstanceService) {
 
 
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
+        checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(changeLogSummariesService, "changeLogSummariesService cannot be null");
         checkNotNull(complexityService, "complexityService cannot be null");
         checkNotNull(costService, "costService cannot be null");
         checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
+        checkNotNull(entityStatisticService, "entityStatisticService cannot be null");
         checkNotNull(flowClassificationRuleService, "flowClassificationRuleService cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(physicalSpecDataTypeService, "physicalSpecDataTypeService cannot be null");
         checkNotNull(reportGridFilterViewService, "reportGridFilterViewService cannot be null");
+        checkNotNull(reportGridSnapshotService, "reportGridSnapshotService cannot be null");
         checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
         checkNotNull(surveyInstanceActionQueueService, "surveyInstanceActionQueueService cannot be null");
         checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
 
         this.attestationRunService = attestationRunService;
+        this.changeLogService = changeLogService;
+        this.changeLogSummariesService = changeLogSummariesService;
         this.complexityService = complexityService;
         this.costService = costService;
         this.dataTypeUsageService = dataTypeUsageService;
         this.entityHierarchyService = entityHierarchyService;
+        this.entityStatisticService = entityStatisticService;
         this.flowClassificationRuleService = flowClassificationRuleService;
         this.logicalFlowService = logicalFlowService;
         this.physicalSpecDataTypeService = physicalSpecDataTypeService;
         this.reportGridFilterViewService = reportGridFilterViewService;
+        this.reportGridSnapshotService = reportGridSnapshotService;
         this.scheduledJobDao = scheduledJobDao;
         this.surveyInstanceActionQueueService = surveyInstanceActionQueueService;
         this.surveyInstanceService = surveyInstanceService;
@@ -166,6 +186,61 @@ public class ScheduledJobService {
 
         surveyInstanceActionQueueService.performActions();
 
+        refreshCostRollups();
+
+        refreshEntityStatisticSummaries();
+
+        refreshChangeLogRollups();
+
+        takeReportGridSnapshots();
+
+        // after the rollups, only rolled up entries are archived
+        archiveChangeLog();
+    }
+
+
+    private void refreshCostRollups() {
+        try {
+            costService.refreshCostRollups();
+        } catch (Exception e) {
+            LOG.error("Failed to refresh cost rollups", e);
+        }
+    }
+
+
+    private void refreshEntityStatisticSummaries() {
+        try {
+            entityStatisticService.refreshSummaries();
+        } catch (Exception e) {
+            LOG.error("Failed to refresh entity statistic summaries", e);
+        }
+    }
+
+
+    private void refreshChangeLogRollups() {
+        try {
+            changeLogSummariesService.refreshRollups();
+        } catch (Exception e) {
+            LOG.error("Failed to refresh change log rollups", e);
+        }
+    }
+
+
+    private void takeReportGridSnapshots() {
+        try {
+            reportGridSnapshotService.takeDueSnapshots();
+        } catch (Exception e) {
+            LOG.error("Failed to take report grid snapshots", e);
+        }
+    }
+
+
+    private void archiveChangeLog() {
+        try {
+            changeLogService.archiveOldEntries();
+        } catch (Exception e) {
+            LOG.error("Failed to archive change log entries", e);
+        }
     }
 
 
@@ -18,13 +18,27 @@ import org.jooq.DSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
 @Service
@@ -35,151 +49,269 @@ public class SurveyInstanceActionQueueService {
     private final SurveyInstanceService surveyInstanceService;
     private final ChangeLogService changeLogService;
     private final DSLContext dslContext;
+    private final int maxWorkers;
 
 
     @Autowired
     public SurveyInstanceActionQueueService(SurveyInstanceActionQueueDao surveyInstanceActionQueueDao,
                                      SurveyInstanceService surveyInstanceService,
                                      ChangeLogService changeLogService,
-                                     DSLContext dslContext) {
+                                     DSLContext dslContext,
+                                     @Value("${survey.action_queue.workers:2}") int maxWorkers) {
 
         Checks.checkNotNull(surveyInstanceActionQueueDao, "surveyInstanceActionQueueDao cannot be null");
         Checks.checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
         Checks.checkNotNull(changeLogService, "changeLogService cannot be null");
         Checks.checkNotNull(dslContext, "dslContext cannot be null");
+        Checks.checkTrue(maxWorkers > 0, "maxWorkers must be positive");
 
         this.surveyInstanceActionQueueDao = surveyInstanceActionQueueDao;
         this.surveyInstanceService = surveyInstanceService;
         this.changeLogService = changeLogService;
         this.dslContext = dslContext;
+        this.maxWorkers = maxWorkers;
     }
 
     /**
      * Looks for any 'PENDING' actions in the survey_instance_action_queue and attempts to run them in order of submission time to the queue.
      * In case of error or a precondition failure a message is saved to the action in the table.
-     * A transaction is created for each action and all changes will be rolled back if an error occurs during runtime.
+     *
+     * The survey instances are loaded up front and the actions are processed in partitions, one per survey instance,
+     * several partitions at a time.  Actions against the same instance are applied in order and each action expects
+     * the instance state left by the previous one.
+     *
+     * A transaction is created for each action which changes a survey instance, its change log entry is written in the
+     * same transaction and all changes will be rolled back if an error occurs during runtime.  Actions failing their
+     * preconditions are written, with their change log entries, in a single transaction once every partition has
+     * finished, including any which failed.
      */
     public void performActions() {
 
         List<SurveyInstanceActionQueueItem> pendingActions = surveyInstanceActionQueueDao.findPendingActions();
 
-        pendingActions
-                .forEach(action -> {
-
-                    dslContext.transaction(ctx -> {
-
-                        DSLContext tx = ctx.dsl();
-
-                        Long actionId = action.id().get();
-
-                        SurveyInstance instance = surveyInstanceService.getById(action.surveyInstanceId());
+        if (pendingActions.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<SurveyInstanceActionQueueItem>> actionsByInstanceId = pendingActions
+                .stream()
+                .collect(groupingBy(
+                        SurveyInstanceActionQueueItem::surveyInstanceId,
+                        LinkedHashMap::new,
+                        toList()));
+
+        Map<Long, SurveyInstance> instancesById = indexBy(
+                surveyInstanceService.findByIds(actionsByInstanceId.keySet()),
+                d -> d.id().get());
+
+        ActionOutcomes outcomes = new ActionOutcomes();
+
+        int workers = Math.max(1, Math.min(maxWorkers, actionsByInstanceId.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+        int failedPartitions = 0;
+        boolean interrupted = false;
+
+        try {
+            List<Future<?>> partitions = actionsByInstanceId
+                    .entrySet()
+                    .stream()
+                    .map(e -> executor.submit(() -> performActionsForInstance(
+                            e.getValue(),
+                            Optional.ofNullable(instancesById.get(e.getKey())),
+                            outcomes)))
+                    .collect(toList());
+
+            for (Future<?> partition : partitions) {
+                try {
+                    partition.get();
+                } catch (ExecutionException e) {
+                    failedPartitions++;
+                    LOG.error("Failed whilst performing queued survey actions", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            executor.shutdownNow();
+            LOG.warn("Interrupted whilst performing queued survey actions, remaining actions will be attempted again later");
+        } finally {
+            executor.shutdown();
+            interrupted |= awaitTermination(executor);
+        }
+
+        dslContext.transaction(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            surveyInstanceActionQueueDao.updatePendingActionStatuses(
+                    tx,
+                    outcomes.preconditionFailureMessagesByActionId,
+                    SurveyInstanceActionStatus.PRECONDITION_FAILURE);
+
+            outcomes.preconditionFailureChangeLogs
+                    .forEach(changeLog -> changeLogService.write(Optional.of(tx), changeLog));
+        });
+
+        LOG.info(format(
+                "Performed %d queued survey actions across %d survey instances using %d workers, %d instances failed",
+                pendingActions.size(),
+                actionsByInstanceId.size(),
+                workers,
+                failedPartitions));
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                        surveyInstanceActionQueueDao.markActionInProgress(tx, actionId);
 
-                        if (instance == null) {
+    /**
+     * Waits for any partitions still in flight, outcomes are only written once nothing else can add to them.
+     * @return true if the wait was interrupted, the caller should restore the interrupt once it is done
+     */
+    private static boolean awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    return interrupted;
+                }
+                LOG.info("Waiting for in-flight queued survey actions to complete");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
 
-                            String msg = format("Failed to apply queued action: %s. Could not find survey instance with id: %d", action.action().name(), action.surveyInstanceId());
 
-                            LOG.info(msg);
-                            surveyInstanceActionQueueDao.updateActionStatus(
-                                    tx,
-                                    actionId,
-                                    SurveyInstanceActionStatus.PRECONDITION_FAILURE,
-                                    msg);
+    /**
+     * Applies the actions, in order, to a single survey instance.  The status of the instance is tracked
+     * as actions are applied so it does not need reloading to check the precondition of the next action.
+     * An unexpected error stops the processing of the instance's remaining actions, they are left 'PENDING'
+     * to be attempted again in future, other instances are unaffected.
+     */
+    private void performActionsForInstance(List<SurveyInstanceActionQueueItem> actions,
+                                           Optional<SurveyInstance> instance,
+                                           ActionOutcomes outcomes) {
+
+        Optional<SurveyInstanceStatus> currentStatus = instance.map(SurveyInstance::status);
+
+        for (SurveyInstanceActionQueueItem action : actions) {
+            try {
+                if (!currentStatus.isPresent()) {
+
+                    String msg = format("Failed to apply queued action: %s. Could not find survey instance with id: %d", action.action().name(), action.surveyInstanceId());
+
+                    LOG.info(msg);
+                    outcomes.addPreconditionFailure(action, msg);
+
+                } else if (currentStatus.get() != action.initialState()) {
+
+                    String msg = format("Failed to apply queued action: %s to survey: %d. Initial state of survey is not as expected: %s and is actually %s",
+                            action.action().name(),
+                            action.surveyInstanceId(),
+                            action.initialState().name(),
+                            currentStatus.get().name());
+
+                    LOG.info(msg);
+                    outcomes.addPreconditionFailure(action, msg);
+
+                } else {
+                    currentStatus = Optional.of(applyAction(action, currentStatus.get()));
+                }
+            } catch (Exception e) {
+                LOG.error(format(
+                        "Unable to process queued action: %d for survey: %d, it and any later actions for the survey will be attempted again in future",
+                        action.id().get(),
+                        action.surveyInstanceId()), e);
+                return;
+            }
+        }
+    }
 
-                            ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                            changeLogService.write(Optional.of(tx), changeLog);
 
-                        } else if (instance.status() != action.initialState()) {
+    /**
+     * @return the status of the survey instance after the action has been attempted
+     */
+    private SurveyInstanceStatus applyAction(SurveyInstanceActionQueueItem action,
+                                             SurveyInstanceStatus currentStatus) {
 
-                            String msg = format("Failed to apply queued action: %s to survey: %d. Initial state of survey is not as expected: %s and is actually %s",
-                                    action.action().name(),
-                                    action.surveyInstanceId(),
-                                    action.initialState().name(),
-                                    instance.status().name());
+        return dslContext.transactionResult(ctx -> {
 
-                            LOG.info(msg);
-                            surveyInstanceActionQueueDao.updateActionStatus(
-                                    tx,
-                                    actionId,
-                                    SurveyInstanceActionStatus.PRECONDITION_FAILURE,
-                                    msg);
+            DSLContext tx = ctx.dsl();
 
-                            ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                            changeLogService.write(Optional.of(tx), changeLog);
+            Long actionId = action.id().get();
 
-                        } else {
+            surveyInstanceActionQueueDao.markActionInProgress(tx, actionId);
 
-                            String username = action.submittedBy();
+            String username = action.submittedBy();
 
-                            Optional<String> reason = action.actionParams().flatMap(SurveyInstanceActionParams::reason);
-                            Optional<LocalDate> dueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newDueDate);
-                            Optional<LocalDate> approvalDueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newApprovalDueDate);
+            Optional<String> reason = action.actionParams().flatMap(SurveyInstanceActionParams::reason);
+            Optional<LocalDate> dueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newDueDate);
+            Optional<LocalDate> approvalDueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newApprovalDueDate);
 
-                            ImmutableSurveyInstanceStatusChangeCommand updateCmd = ImmutableSurveyInstanceStatusChangeCommand
-                                    .builder()
-                                    .action(action.action())
-                                    .reason(reason)
-                                    .newDueDate(dueDate)
-                                    .newApprovalDueDate(approvalDueDate)
-                                    .build();
+            ImmutableSurveyInstanceStatusChangeCommand updateCmd = ImmutableSurveyInstanceStatusChangeCommand
+                    .builder()
+                    .action(action.action())
+                    .reason(reason)
+                    .newDueDate(dueDate)
+                    .newApprovalDueDate(approvalDueDate)
+                    .build();
 
-                            try {
+            try {
 
-                                // We need a new transaction here so that any changes get rolled back; we do not fail the overall
-                                // action transaction as that resets the action to 'PENDING' and would lose the error message
+                // We need a new transaction here so that any changes get rolled back; we do not fail the overall
+                // action transaction as that resets the action to 'PENDING' and would lose the error message
 
-                                tx.transaction(actionCtx -> {
-                                    DSLContext actionTx = actionCtx.dsl();
-                                    SurveyInstanceStatus surveyInstanceStatus = surveyInstanceService.updateStatus(
-                                            Optional.of(actionTx),
-                                            username,
-                                            action.surveyInstanceId(),
-                                            updateCmd);
+                SurveyInstanceStatus surveyInstanceStatus = tx.transactionResult(actionCtx -> {
+                    DSLContext actionTx = actionCtx.dsl();
+                    SurveyInstanceStatus newStatus = surveyInstanceService.updateStatus(
+                            Optional.of(actionTx),
+                            username,
+                            action.surveyInstanceId(),
+                            updateCmd);
 
-                                    String msg = format("Successfully applied queued action: %s to survey: %d. New status is: %s",
-                                            action.action().name(),
-                                            action.surveyInstanceId(),
-                                            surveyInstanceStatus.name());
+                    surveyInstanceActionQueueDao.updateActionStatus(
+                            tx,
+                            actionId,
+                            SurveyInstanceActionStatus.SUCCESS,
+                            null);
 
-                                    LOG.info(msg);
-                                    surveyInstanceActionQueueDao.updateActionStatus(
-                                            tx,
-                                            actionId,
-                                            SurveyInstanceActionStatus.SUCCESS,
-                                            null);
+                    return newStatus;
+                });
 
-                                    ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                                    changeLogService.write(Optional.of(tx), changeLog);
-                                });
+                String msg = format("Successfully applied queued action: %s to survey: %d. New status is: %s",
+                        action.action().name(),
+                        action.surveyInstanceId(),
+                        surveyInstanceStatus.name());
 
+                LOG.info(msg);
+                changeLogService.write(Optional.of(tx), mkChangelogForAction(action, msg));
 
-                            } catch (Exception e) {
+                return surveyInstanceStatus;
 
-                                String msg = format("Failed to apply queued action: %s to survey: %d. Error when updating: %s",
-                                        action.action().name(),
-                                        action.surveyInstanceId(),
-                                        e.getMessage());
+            } catch (Exception e) {
 
-                                LOG.error(msg);
-                                surveyInstanceActionQueueDao.updateActionStatus(
-                                        tx,
-                                        actionId,
-                                        SurveyInstanceActionStatus.EXECUTION_FAILURE,
-                                        msg);
+                String msg = format("Failed to apply queued action: %s to survey: %d. Error when updating: %s",
+                        action.action().name(),
+                        action.surveyInstanceId(),
+                        e.getMessage());
 
-                                ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                                changeLogService.write(Optional.of(tx), changeLog);
-                            }
-                        }
+                LOG.error(msg);
+                surveyInstanceActionQueueDao.updateActionStatus(
+                        tx,
+                        actionId,
+                        SurveyInstanceActionStatus.EXECUTION_FAILURE,
+                        msg);
 
-                    });
+                changeLogService.write(Optional.of(tx), mkChangelogForAction(action, msg));
 
-                });
+                return currentStatus;
+            }
+        });
     }
 
 
-    private ChangeLog mkChangelogForAction(DSLContext tx, SurveyInstanceActionQueueItem action, String msg) {
+    private static ChangeLog mkChangelogForAction(SurveyInstanceActionQueueItem action, String msg) {
         return ImmutableChangeLog
                 .builder()
                 .message(msg)
@@ -199,4 +331,21 @@ public class SurveyInstanceActionQueueService {
         return surveyInstanceActionQueueDao.getById(id);
     }
 
+
+
+    /**
+     * Collects the actions, from all partitions, which failed their preconditions so they can be written together
+     */
+    private static class ActionOutcomes {
+
+        private final Map<Long, String> preconditionFailureMessagesByActionId = new ConcurrentHashMap<>();
+        private final Queue<ChangeLog> preconditionFailureChangeLogs = new ConcurrentLinkedQueue<>();
+
+
+        private void addPreconditionFailure(SurveyInstanceActionQueueItem action, String msg) {
+            preconditionFailureMessagesByActionId.put(action.id().get(), msg);
+            preconditionFailureChangeLogs.add(mkChangelogForAction(action, msg));
+        }
+    }
+
 }
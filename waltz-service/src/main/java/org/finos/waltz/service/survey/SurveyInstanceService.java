@@ -68,6 +68,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -150,6 +151,11 @@ public class SurveyInstanceService {
     }
 
 
+    public List<SurveyInstance> findByIds(Collection<Long> instanceIds) {
+        return surveyInstanceDao.findByIds(instanceIds);
+    }
+
+
     public Set<SurveyInstance> findForRecipient(Long personId) {
         checkNotNull(personId, "personId cannot be null");
 
@@ -18,22 +18,26 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.finos.waltz.schema.tables.Application;
-import org.finos.waltz.schema.tables.DataType;
-import org.finos.waltz.schema.tables.DataTypeUsage;
-import org.finos.waltz.schema.tables.EntityHierarchy;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
-import org.jooq.Condition;
+import org.finos.waltz.schema.tables.DataType;
+import org.finos.waltz.schema.tables.DataTypeUsage;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.records.ApplicationRecord;
 import org.jooq.DSLContext;
-import org.jooq.impl.DSL;
 
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 
@@ -44,6 +48,10 @@ import static org.finos.waltz.schema.tables.Application.APPLICATION;
  */
 public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamespace {
 
+    private Optional<ApplicationRecord> app;
+    private Map<String, Set<String>> usageKindsByDataTypeName;
+
+
     public QuestionAppPredicateNamespace(DSLContext dsl,
                                          EntityReference subjectRef,
                                          List<SurveyQuestion> questions,
@@ -53,39 +61,36 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
 
 
     public boolean isRetiring() {
-        Condition isPlanned = APPLICATION.PLANNED_RETIREMENT_DATE.isNotNull();
-
-        Condition notRetiredYet = APPLICATION.ACTUAL_RETIREMENT_DATE.isNull()
-                .or(APPLICATION.ACTUAL_RETIREMENT_DATE.greaterOrEqual(DSL.now()));
-
-        return dsl
-                .select(APPLICATION.PLANNED_RETIREMENT_DATE)
-                .from(APPLICATION)
-                .where(APPLICATION.ID.eq(subjectRef.id()))
-                .and(isPlanned)
-                .and(notRetiredYet)
-                .fetch()
-                .isNotEmpty();
+        return getApp()
+                .filter(a -> a.getPlannedRetirementDate() != null)
+                .filter(a -> {
+                    Timestamp actualRetirementDate = a.getActualRetirementDate();
+                    return actualRetirementDate == null || !actualRetirementDate.before(nowUtcTimestamp());
+                })
+                .isPresent();
     }
 
 
     public boolean belongsToOrgUnit(String name) {
-        Application app = APPLICATION.as("app");
-        return belongsToOrgUnit(name, app, app.ID, app.ORGANISATIONAL_UNIT_ID);
+        return belongsToOrgUnit(
+                name,
+                getApp()
+                        .map(ApplicationRecord::getOrganisationalUnitId)
+                        .orElse(null));
     }
 
 
     public boolean isAppKind(String name) {
-        return dsl.fetchExists(DSL
-                .select()
-                .from(APPLICATION)
-                .where(APPLICATION.ID.eq(subjectRef.id()))
-                .and(APPLICATION.KIND.eq(name)));
+        return getApp()
+                .map(a -> a.getKind() != null && a.getKind().equals(name))
+                .orElse(false);
     }
 
 
     public boolean hasLifecyclePhase(String name) {
-        return hasLifecyclePhase(name, APPLICATION, APPLICATION.ID, APPLICATION.LIFECYCLE_PHASE);
+        return getApp()
+                .map(a -> a.getLifecyclePhase() != null && a.getLifecyclePhase().equals(name))
+                .orElse(false);
     }
 
 
@@ -95,27 +100,56 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
 
 
     public Set<String> dataTypeUsages(String name) {
+        if (usageKindsByDataTypeName == null) {
+            usageKindsByDataTypeName = loadUsageKindsByDataTypeName();
+        }
+        return usageKindsByDataTypeName.getOrDefault(name, Collections.emptySet());
+    }
+
 
+    // --- HELPER ---
+
+    private Optional<ApplicationRecord> getApp() {
+        if (app == null) {
+            app = dsl
+                    .selectFrom(APPLICATION)
+                    .where(APPLICATION.ID.eq(subjectRef.id()))
+                    .fetchOptional();
+        }
+        return app;
+    }
+
+
+    /**
+     * A data type usage counts towards the data type it is recorded against and all of that
+     * data type's ancestors.
+     *
+     * @return usage kinds keyed by both the code and name of each data type
+     */
+    private Map<String, Set<String>> loadUsageKindsByDataTypeName() {
         DataTypeUsage dtu = DATA_TYPE_USAGE.as("dtu");
         DataType dt = DATA_TYPE.as("dt");
         EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
 
-        Condition dtNameMatches = dt.CODE.eq(name)
-                .or(dt.NAME.eq(name));
-
-        Condition subjectMatches = dtu.ENTITY_ID.eq(subjectRef.id())
-                .and(dtu.ENTITY_KIND.eq(subjectRef.kind().name()));
+        Map<String, Set<String>> usageKindsByName = new HashMap<>();
 
-        return dsl
-                .select(dtu.USAGE_KIND)
-                .from(dt)
+        dsl.select(dt.CODE, dt.NAME, dtu.USAGE_KIND)
+                .from(dtu)
                 .innerJoin(eh)
-                .on(eh.ANCESTOR_ID.eq(dt.ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
-                .innerJoin(dtu)
-                .on(dtu.DATA_TYPE_ID.eq(eh.ID))
-                .where(dtNameMatches)
-                .and(subjectMatches)
-                .fetchSet(dtu.USAGE_KIND);
+                .on(eh.ID.eq(dtu.DATA_TYPE_ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
+                .innerJoin(dt)
+                .on(dt.ID.eq(eh.ANCESTOR_ID))
+                .where(dtu.ENTITY_ID.eq(subjectRef.id()))
+                .and(dtu.ENTITY_KIND.eq(subjectRef.kind().name()))
+                .forEach(r -> {
+                    String usageKind = r.get(dtu.USAGE_KIND);
+                    usageKindsByName.computeIfAbsent(r.get(dt.NAME), k -> new HashSet<>()).add(usageKind);
+                    if (r.get(dt.CODE) != null) {
+                        usageKindsByName.computeIfAbsent(r.get(dt.CODE), k -> new HashSet<>()).add(usageKind);
+                    }
+                });
+
+        return usageKindsByName;
     }
 
 }
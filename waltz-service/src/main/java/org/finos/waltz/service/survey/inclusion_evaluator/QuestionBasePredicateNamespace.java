@@ -1,7 +1,6 @@
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
 import org.apache.commons.jexl3.JexlEngine;
-import org.apache.commons.jexl3.MapContext;
 import org.finos.waltz.model.ExternalIdProvider;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
@@ -71,7 +70,7 @@ public class QuestionBasePredicateNamespace {
 
         return referencedQuestion
                 .inclusionPredicate()
-                .map(p -> jexl.createExpression(p).evaluate(new MapContext()))
+                .map(p -> jexl.createExpression(p).evaluate(new QuestionPredicateContext(this)))
                 .map(r -> Boolean.valueOf(r.toString()))
                 .orElse(true);
     }
@@ -18,16 +18,16 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.finos.waltz.schema.tables.ChangeInitiative;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
+import org.finos.waltz.schema.tables.records.ChangeInitiativeRecord;
 import org.jooq.DSLContext;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
-import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.ChangeInitiative.CHANGE_INITIATIVE;
 
 /**
@@ -37,6 +37,9 @@ import static org.finos.waltz.schema.tables.ChangeInitiative.CHANGE_INITIATIVE;
  */
 public class QuestionChangeInitiativePredicateNamespace extends QuestionEntityPredicateNamespace {
 
+    private Optional<ChangeInitiativeRecord> changeInitiative;
+
+
     public QuestionChangeInitiativePredicateNamespace(DSLContext dsl,
                                                       EntityReference subjectRef,
                                                       List<SurveyQuestion> questions,
@@ -46,13 +49,31 @@ public class QuestionChangeInitiativePredicateNamespace extends QuestionEntityPr
 
 
     public boolean belongsToOrgUnit(String name) {
-        ChangeInitiative ci = CHANGE_INITIATIVE.as("ci");
-        return belongsToOrgUnit(name, ci, ci.ID, ci.ORGANISATIONAL_UNIT_ID);
+        return belongsToOrgUnit(
+                name,
+                getChangeInitiative()
+                        .map(ChangeInitiativeRecord::getOrganisationalUnitId)
+                        .orElse(null));
     }
 
 
     public boolean hasLifecyclePhase(String name) {
-        return hasLifecyclePhase(name, CHANGE_INITIATIVE, CHANGE_INITIATIVE.ID, CHANGE_INITIATIVE.LIFECYCLE_PHASE);
+        return getChangeInitiative()
+                .map(ci -> ci.getLifecyclePhase() != null && ci.getLifecyclePhase().equals(name))
+                .orElse(false);
+    }
+
+
+    // --- HELPER ---
+
+    private Optional<ChangeInitiativeRecord> getChangeInitiative() {
+        if (changeInitiative == null) {
+            changeInitiative = dsl
+                    .selectFrom(CHANGE_INITIATIVE)
+                    .where(CHANGE_INITIATIVE.ID.eq(subjectRef.id()))
+                    .fetchOptional();
+        }
+        return changeInitiative;
     }
 
 }
@@ -18,25 +18,31 @@
 
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.finos.waltz.schema.tables.EntityHierarchy;
-import org.finos.waltz.schema.tables.OrganisationalUnit;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
-import org.jooq.Condition;
+import org.finos.waltz.schema.tables.EntityHierarchy;
+import org.finos.waltz.schema.tables.OrganisationalUnit;
 import org.jooq.DSLContext;
-import org.jooq.Field;
-import org.jooq.Record1;
-import org.jooq.SelectConditionStep;
-import org.jooq.Table;
-import org.jooq.impl.DSL;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.schema.Tables.*;
 
 /**
+ * Predicates concerning the subject entity of a survey.
+ *
+ * Facts about the subject (assessments, involvements, org unit ancestry etc.) are loaded
+ * the first time a predicate needs them and then reused for the remainder of the
+ * evaluation, as a template typically has many predicates referring to the same facts.
+ * A namespace instance is therefore only valid for a single evaluation.
  *
  * NOTE: methods in this class may show as unused.  This is to be expected as they are referred to via
  * predicates in survey questions
@@ -46,6 +52,10 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
     protected final DSLContext dsl;
     protected final EntityReference subjectRef;
 
+    private Map<String, String> assessmentRatingCodesByName;
+    private Set<String> involvementKindNames;
+    private Set<String> orgUnitNames;
+
 
     public QuestionEntityPredicateNamespace(DSLContext dsl,
                                             EntityReference subjectRef,
@@ -58,17 +68,10 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public String assessmentRating(String name, String defaultVal) {
-        return dsl
-                .select(RATING_SCHEME_ITEM.CODE)
-                .from(ASSESSMENT_DEFINITION)
-                .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
-                .innerJoin(RATING_SCHEME).on(RATING_SCHEME.ID.eq(ASSESSMENT_DEFINITION.RATING_SCHEME_ID))
-                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
-                .where(ASSESSMENT_DEFINITION.EXTERNAL_ID.eq(name).or(ASSESSMENT_DEFINITION.NAME.eq(name)))
-                .and(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
-                .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
-                .fetchOptional(RATING_SCHEME_ITEM.CODE)
-                .orElse(defaultVal);
+        if (assessmentRatingCodesByName == null) {
+            assessmentRatingCodesByName = loadAssessmentRatingCodes();
+        }
+        return assessmentRatingCodesByName.getOrDefault(name, defaultVal);
     }
 
 
@@ -78,61 +81,94 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public boolean hasInvolvement(String name) {
-        return dsl.fetchExists(DSL
-                .select()
-                .from(INVOLVEMENT)
-                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
-                .where(INVOLVEMENT_KIND.NAME.equalIgnoreCase(name))
-                .and(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
-                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name())));
+        if (involvementKindNames == null) {
+            involvementKindNames = loadInvolvementKindNames();
+        }
+        return name != null && involvementKindNames.contains(name.toLowerCase());
     }
 
 
     // --- HELPER ---
 
+    /**
+     * @param subjectOrgUnitId the org unit of the subject entity, this must be the same for every call
+     */
     protected boolean belongsToOrgUnit(String name,
-                                       Table<?> subjectTable,
-                                       Field<Long> subjectId,
-                                       Field<Long> subjectOu) {
-        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
-        OrganisationalUnit ou = OrganisationalUnit.ORGANISATIONAL_UNIT.as("ou");
+                                       Long subjectOrgUnitId) {
+        if (orgUnitNames == null) {
+            orgUnitNames = loadOrgUnitNames(subjectOrgUnitId);
+        }
+        return orgUnitNames.contains(name);
+    }
 
-        SelectConditionStep<Record1<Long>> targetOrgUnitId = DSL
-                .select(ou.ID)
-                .from(ou)
-                .where(ou.NAME.eq(name))
-                .or(ou.EXTERNAL_ID.eq(name));
 
-        Condition subjectInTargetOuTree = subjectOu.in(DSL
-                .selectDistinct(eh.ID)
-                .from(eh)
-                .where(eh.ANCESTOR_ID.eq(targetOrgUnitId)));
+    /**
+     * @return assessment rating codes keyed by both the external id and name of the assessment definition
+     */
+    private Map<String, String> loadAssessmentRatingCodes() {
+        Map<String, String> codesByName = new HashMap<>();
 
-        Condition subjectEntitiesMatch = subjectId.eq(subjectRef.id());
+        dsl.select(ASSESSMENT_DEFINITION.EXTERNAL_ID,
+                   ASSESSMENT_DEFINITION.NAME,
+                   RATING_SCHEME_ITEM.CODE)
+                .from(ASSESSMENT_DEFINITION)
+                .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
+                .innerJoin(RATING_SCHEME).on(RATING_SCHEME.ID.eq(ASSESSMENT_DEFINITION.RATING_SCHEME_ID))
+                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
+                .where(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
+                .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
+                .forEach(r -> {
+                    String code = r.get(RATING_SCHEME_ITEM.CODE);
+                    codesByName.putIfAbsent(r.get(ASSESSMENT_DEFINITION.NAME), code);
+                    if (r.get(ASSESSMENT_DEFINITION.EXTERNAL_ID) != null) {
+                        codesByName.putIfAbsent(r.get(ASSESSMENT_DEFINITION.EXTERNAL_ID), code);
+                    }
+                });
+
+        return codesByName;
+    }
 
-        SelectConditionStep<Record1<Long>> qry = DSL
-                .select(subjectId)
-                .from(subjectTable)
-                .where(subjectEntitiesMatch)
-                .and(subjectInTargetOuTree);
 
+    private Set<String> loadInvolvementKindNames() {
         return dsl
-                .fetchExists(qry);
+                .selectDistinct(INVOLVEMENT_KIND.NAME)
+                .from(INVOLVEMENT)
+                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
+                .where(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
+                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name()))
+                .fetch(INVOLVEMENT_KIND.NAME)
+                .stream()
+                .map(String::toLowerCase)
+                .collect(toSet());
     }
 
 
-    protected boolean hasLifecyclePhase(String name,
-                                        Table<?> subjectTable,
-                                        Field<Long> subjectId,
-                                        Field<String> subjectLifecyclePhase) {
+    /**
+     * @return names and external ids of the org unit and all of its ancestors
+     */
+    private Set<String> loadOrgUnitNames(Long orgUnitId) {
+        if (orgUnitId == null) {
+            return Collections.emptySet();
+        }
 
+        EntityHierarchy eh = ENTITY_HIERARCHY.as("eh");
+        OrganisationalUnit ou = ORGANISATIONAL_UNIT.as("ou");
 
-        return dsl
-                .fetchExists(DSL
-                        .select()
-                        .from(subjectTable)
-                        .where(subjectLifecyclePhase.eq(name)
-                                .and(subjectId.eq(subjectRef.id()))));
+        Set<String> names = new HashSet<>();
+
+        dsl.select(ou.NAME, ou.EXTERNAL_ID)
+                .from(eh)
+                .innerJoin(ou).on(ou.ID.eq(eh.ANCESTOR_ID))
+                .where(eh.ID.eq(orgUnitId))
+                .and(eh.KIND.eq(EntityKind.ORG_UNIT.name()))
+                .forEach(r -> {
+                    names.add(r.get(ou.NAME));
+                    if (r.get(ou.EXTERNAL_ID) != null) {
+                        names.add(r.get(ou.EXTERNAL_ID));
+                    }
+                });
+
+        return names;
     }
 
 }
@@ -0,0 +1,49 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Evaluation context which supplies the predicate namespace for unqualified function
+ * calls (e.g. <code>isChecked('Q1')</code>).  Supplying the namespace via the context,
+ * rather than the engine, allows compiled predicates to be shared between evaluations.
+ */
+class QuestionPredicateContext extends MapContext implements JexlContext.NamespaceResolver {
+
+    private final QuestionBasePredicateNamespace namespace;
+
+
+    QuestionPredicateContext(QuestionBasePredicateNamespace namespace) {
+        checkNotNull(namespace, "namespace cannot be null");
+        this.namespace = namespace;
+    }
+
+
+    @Override
+    public Object resolveNamespace(String name) {
+        return name == null
+                ? namespace
+                : null;
+    }
+
+}
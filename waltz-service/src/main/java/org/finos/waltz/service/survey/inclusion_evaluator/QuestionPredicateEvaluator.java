@@ -28,11 +28,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.common.MapUtilities.newHashMap;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 
 public class QuestionPredicateEvaluator {
 
+    private static final int COMPILED_PREDICATE_CACHE_SIZE = 1024;
+
+    /**
+     * Shared by all evaluations so that compiled predicates are cached (by predicate text)
+     * and reused across saves of a survey's responses.  The subject specific namespace is
+     * supplied via the evaluation context, see {@link QuestionPredicateContext}.
+     */
+    private static final JexlEngine JEXL = new JexlBuilder()
+            .cache(COMPILED_PREDICATE_CACHE_SIZE)
+            .create();
+
+
     public static List<SurveyQuestion> eval(DSLContext dsl,
                                      List<SurveyQuestion> qs,
                                      EntityReference subjectRef,
@@ -40,14 +51,9 @@ public class QuestionPredicateEvaluator {
 
         QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(dsl, qs, subjectRef, responsesByQuestionId);
 
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder
-                .namespaces(newHashMap(null, namespace))
-                .create();
-
-        namespace.usingEvaluator(jexl);
+        namespace.usingEvaluator(JEXL);
 
-        List<SurveyQuestion> activeQs = determineActiveQs(qs, jexl);
+        List<SurveyQuestion> activeQs = determineActiveQs(qs, JEXL, new QuestionPredicateContext(namespace));
 
         return activeQs;
     }
@@ -75,7 +81,9 @@ public class QuestionPredicateEvaluator {
     }
 
 
-    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlEngine jexl) {
+    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs,
+                                                          JexlEngine jexl,
+                                                          JexlContext jexlCtx) {
         List<SurveyQuestion> activeQs = qs
                 .stream()
                 .filter(q -> q
@@ -85,7 +93,6 @@ public class QuestionPredicateEvaluator {
                                 return true;
                             } else {
                                 JexlExpression expr = jexl.createExpression(p);
-                                JexlContext jexlCtx = new MapContext();
                                 return Boolean.valueOf(expr.evaluate(jexlCtx).toString());
                             }
                         })
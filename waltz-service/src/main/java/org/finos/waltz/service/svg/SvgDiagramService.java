@@ -25,22 +25,34 @@ import org.finos.waltz.model.svg.SvgDiagram;
 import org.jooq.lambda.Unchecked;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DigestUtilities.digest;
 
 @Service
 public class SvgDiagramService {
 
     private final SvgDiagramDao svgDiagramDao;
 
+    /**
+     * Rewritten svgs keyed by diagram id.  Each entry records a hash of the content it was
+     * derived from so stale entries are never served, saving or removing a diagram also
+     * evicts it.
+     */
+    private final ConcurrentMap<Long, RewrittenSvg> convertedSvgsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, RewrittenSvg> linkedSvgsById = new ConcurrentHashMap<>();
+
 
     @Autowired
     public SvgDiagramService(SvgDiagramDao svgDiagramDao) {
@@ -70,17 +82,49 @@ public class SvgDiagramService {
     }
 
 
-    private String convertProductSpecificSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    /**
+     * Wraps the elements of a (converted) diagram in links to the entities they represent.
+     *
+     * @param diagram  diagram as returned by {@link #getById(long)}
+     * @param keyToUrl  maps the value of the diagram's key property to a url
+     * @param keyToUrlVersion  identifies the mapping given by <code>keyToUrl</code>, it must change
+     *                         whenever the mapping does as the result is cached against it
+     * @return the svg with links added
+     */
+    public String addEntityLinks(SvgDiagram diagram,
+                                 Function<String, Optional<String>> keyToUrl,
+                                 String keyToUrlVersion) {
+        checkNotNull(diagram, "diagram cannot be null");
+        checkNotNull(keyToUrl, "keyToUrl cannot be null");
+        checkNotNull(keyToUrlVersion, "keyToUrlVersion cannot be null");
+
+        return Unchecked.supplier(() -> rewrite(
+                    linkedSvgsById,
+                    diagram,
+                    keyToUrlVersion,
+                    () -> SvgUtilities.addWaltzEntityLinks(
+                            diagram.svg(),
+                            diagram.keyProperty(),
+                            keyToUrl)))
+                .get();
+    }
+
+
+    private String convertProductSpecificSvg(SvgDiagram diagram) throws XMLStreamException, NoSuchAlgorithmException {
         switch (diagram.product()) {
             case "visio":
-                return convertVisioSvg(diagram);
+                return rewrite(
+                        convertedSvgsById,
+                        diagram,
+                        diagram.product(),
+                        () -> convertVisioSvg(diagram));
             default:
                 return diagram.svg();
         }
     }
 
 
-    private String convertVisioSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    private String convertVisioSvg(SvgDiagram diagram) throws XMLStreamException {
         String key = diagram.keyProperty();
         String svgStr = diagram.svg();
 
@@ -94,11 +138,61 @@ public class SvgDiagramService {
 
 
     public Boolean remove(long id) {
+        evict(id);
         return svgDiagramDao.remove(id);
     }
 
 
     public Boolean save(SvgDiagram diagram) {
+        diagram.id().ifPresent(this::evict);
         return svgDiagramDao.save(diagram);
     }
-}
\ No newline at end of file
+
+
+    // --- helpers
+
+    private void evict(long id) {
+        convertedSvgsById.remove(id);
+        linkedSvgsById.remove(id);
+    }
+
+
+    private static String rewrite(ConcurrentMap<Long, RewrittenSvg> cache,
+                                  SvgDiagram diagram,
+                                  String variant,
+                                  SvgRewriter rewriter) throws XMLStreamException, NoSuchAlgorithmException {
+        if (! diagram.id().isPresent()) {
+            return rewriter.rewrite();
+        }
+
+        long id = diagram.id().get();
+        String fingerprint = variant + ":" + diagram.keyProperty() + ":" + digest(diagram.svg().getBytes(StandardCharsets.UTF_8));
+
+        RewrittenSvg cached = cache.get(id);
+        if (cached != null && cached.fingerprint.equals(fingerprint)) {
+            return cached.svg;
+        }
+
+        String svg = rewriter.rewrite();
+        cache.put(id, new RewrittenSvg(fingerprint, svg));
+        return svg;
+    }
+
+
+    @FunctionalInterface
+    private interface SvgRewriter {
+        String rewrite() throws XMLStreamException;
+    }
+
+
+    private static class RewrittenSvg {
+
+        private final String fingerprint;
+        private final String svg;
+
+        private RewrittenSvg(String fingerprint, String svg) {
+            this.fingerprint = fingerprint;
+            this.svg = svg;
+        }
+    }
+}
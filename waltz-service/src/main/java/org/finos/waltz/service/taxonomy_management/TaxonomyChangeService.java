@@ -163,6 +163,18 @@ public class TaxonomyChangeService {
     }
 
 
+    /**
+     * Checks the user would be allowed to apply the pending change, so a request to
+     * apply it later (e.g. as a background task) can be rejected up front.
+     *
+     * @throws NotAuthorizedException if the user cannot apply the change
+     */
+    public void verifyCanApply(long id, String userId) {
+        TaxonomyChangeCommand command = taxonomyChangeDao.getDraftCommandById(id);
+        verifyUserHasPermissions(userId, command.changeDomain());
+    }
+
+
     public boolean removeById(long id, String userId) {
         verifyUserHasPermissions(userId);
         return taxonomyChangeDao.removeById(id, userId);
@@ -21,6 +21,7 @@ package org.finos.waltz.service.taxonomy_management.processors;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactKind;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
@@ -31,10 +32,12 @@ import org.finos.waltz.service.taxonomy_management.TaxonomyCommandProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.Set;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities.*;
 
@@ -77,11 +80,16 @@ public class MergeMeasurableCommandProcessor implements TaxonomyCommandProcessor
 
         IdSelectionOptions opts = IdSelectionOptions.mkOpts(cmd.primaryReference(), HierarchyQueryScope.EXACT);
 
-        taxonomyManagementHelper.previewBookmarkRemovals(previewBuilder, opts);
-        taxonomyManagementHelper.previewInvolvementRemovals(previewBuilder, opts);
-        taxonomyManagementHelper.previewEntityNamedNoteRemovals(previewBuilder, opts);
-        taxonomyManagementHelper.previewAssessmentRemovals(previewBuilder, opts);
-        taxonomyManagementHelper.previewFlowDiagramRemovals(previewBuilder, opts);
+        taxonomyManagementHelper.previewRemovals(
+                previewBuilder,
+                opts.entityReference(),
+                taxonomyManagementHelper.findMeasurableIds(opts),
+                asList(
+                        TaxonomyChangeImpactKind.BOOKMARK,
+                        TaxonomyChangeImpactKind.INVOLVEMENT,
+                        TaxonomyChangeImpactKind.ENTITY_NAMED_NOTE,
+                        TaxonomyChangeImpactKind.ASSESSMENT_RATING,
+                        TaxonomyChangeImpactKind.FLOW_DIAGRAM_ENTITY));
         taxonomyManagementHelper.previewChildNodeMigrations(previewBuilder, opts);
 
         Long target = getTarget(cmd);
@@ -106,24 +114,29 @@ public class MergeMeasurableCommandProcessor implements TaxonomyCommandProcessor
         String targetName = getTargetName(cmd);
         IdSelectionOptions selectionOptions = mkOpts(measurableToMerge.entityReference(), HierarchyQueryScope.EXACT); // children are migrated, do not want to delete their data
 
-        taxonomyManagementHelper.migrateMeasurable(selectionOptions, target, userId);
-
-        int removedBookmarks = taxonomyManagementHelper.removeBookmarks(selectionOptions);
-        int removedInvolvements = taxonomyManagementHelper.removeInvolvements(selectionOptions);
-        int removedNotes = taxonomyManagementHelper.removeNamedNotes(selectionOptions);
-        int removedDiagrams = taxonomyManagementHelper.removeFlowDiagrams(selectionOptions);
-        int removedAssessments = taxonomyManagementHelper.removeAssessments(EntityKind.MEASURABLE, selectionOptions);
+        Map<TaxonomyChangeImpactKind, Integer> removed = taxonomyManagementHelper.mergeMeasurable(
+                selectionOptions.entityReference(),
+                target,
+                taxonomyManagementHelper.findMeasurableIds(selectionOptions),
+                asList(
+                        TaxonomyChangeImpactKind.BOOKMARK,
+                        TaxonomyChangeImpactKind.INVOLVEMENT,
+                        TaxonomyChangeImpactKind.ENTITY_NAMED_NOTE,
+                        TaxonomyChangeImpactKind.FLOW_DIAGRAM_ENTITY,
+                        TaxonomyChangeImpactKind.ASSESSMENT_RATING,
+                        TaxonomyChangeImpactKind.MEASURABLE),
+                userId);
 
         String message = format("Merged measurable: %s [%d] into target: %s [%d] - Removed: %d bookmarks; %d involvements; %d notes; %d flow diagram relationships; %d assessments",
                 measurableToMerge.name(),
                 measurableToMerge.id().get(),
                 targetName,
                 target,
-                removedBookmarks,
-                removedInvolvements,
-                removedNotes,
-                removedDiagrams,
-                removedAssessments);
+                removed.get(TaxonomyChangeImpactKind.BOOKMARK),
+                removed.get(TaxonomyChangeImpactKind.INVOLVEMENT),
+                removed.get(TaxonomyChangeImpactKind.ENTITY_NAMED_NOTE),
+                removed.get(TaxonomyChangeImpactKind.FLOW_DIAGRAM_ENTITY),
+                removed.get(TaxonomyChangeImpactKind.ASSESSMENT_RATING));
 
         measurableService.writeAuditMessage(target, userId, message);
 
@@ -18,33 +18,22 @@
 
 package org.finos.waltz.service.taxonomy_management.processors;
 
-import org.finos.waltz.service.bookmark.BookmarkService;
-import org.finos.waltz.service.entity_relationship.EntityRelationshipService;
-import org.finos.waltz.service.flow_diagram.FlowDiagramEntityService;
-import org.finos.waltz.service.involvement.InvolvementService;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactKind;
 import org.finos.waltz.service.measurable.MeasurableService;
-import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
 import org.finos.waltz.service.taxonomy_management.TaxonomyCommandProcessor;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.model.*;
-import org.finos.waltz.model.bookmark.Bookmark;
-import org.finos.waltz.model.flow_diagram.FlowDiagramEntity;
-import org.finos.waltz.model.involvement.Involvement;
 import org.finos.waltz.model.measurable.Measurable;
-import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.taxonomy_management.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import static org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities.addToPreview;
 import static org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities.validatePrimaryMeasurable;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.SetUtilities.*;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 
@@ -86,14 +75,20 @@ public class RemoveMeasurableCommandProcessor implements TaxonomyCommandProcesso
                         .copyOf(cmd)
                         .withPrimaryReference(primaryMeasurable.entityReference()));
 
-        IdSelectionOptions selectionOptions = mkOpts(cmd.primaryReference(), HierarchyQueryScope.CHILDREN);
-
-        taxonomyManagementHelper.previewChildNodeRemovals(preview, selectionOptions);
-        taxonomyManagementHelper.previewAppMappingRemovals(preview, selectionOptions);
-        taxonomyManagementHelper.previewBookmarkRemovals(preview, selectionOptions);
-        taxonomyManagementHelper.previewInvolvementRemovals(preview, selectionOptions);
-        taxonomyManagementHelper.previewFlowDiagramRemovals(preview, selectionOptions);
-        taxonomyManagementHelper.previewEntityRelationships(preview, selectionOptions);
+        Set<Long> measurableIds = taxonomyManagementHelper.findMeasurableIds(
+                mkOpts(cmd.primaryReference(), HierarchyQueryScope.CHILDREN));
+
+        taxonomyManagementHelper.previewRemovals(
+                preview,
+                cmd.primaryReference(),
+                measurableIds,
+                asList(
+                        TaxonomyChangeImpactKind.MEASURABLE,
+                        TaxonomyChangeImpactKind.MEASURABLE_RATING,
+                        TaxonomyChangeImpactKind.BOOKMARK,
+                        TaxonomyChangeImpactKind.INVOLVEMENT,
+                        TaxonomyChangeImpactKind.FLOW_DIAGRAM_ENTITY,
+                        TaxonomyChangeImpactKind.ENTITY_RELATIONSHIP));
 
         // TODO: entitySvgDiagrams, roadmapScenarios
 
@@ -104,16 +99,12 @@ public class RemoveMeasurableCommandProcessor implements TaxonomyCommandProcesso
         doBasicValidation(cmd);
         Measurable measurable = validatePrimaryMeasurable(measurableService, cmd);
 
-        IdSelectionOptions selectionOptions = mkOpts(cmd.primaryReference(), HierarchyQueryScope.CHILDREN);
+        Set<Long> measurableIds = taxonomyManagementHelper.findMeasurableIds(
+                mkOpts(cmd.primaryReference(), HierarchyQueryScope.CHILDREN));
 
-        taxonomyManagementHelper.removeBookmarks(selectionOptions);
-        taxonomyManagementHelper.removeInvolvements(selectionOptions);
-        taxonomyManagementHelper.removeAppMappings(selectionOptions);
-        taxonomyManagementHelper.removeMeasurables(selectionOptions);
-        taxonomyManagementHelper.removeFlowDiagrams(selectionOptions);
-        taxonomyManagementHelper.removeEntityRelationshipsDiagrams(selectionOptions);
-        taxonomyManagementHelper.removeAssessments(EntityKind.MEASURABLE, selectionOptions);
-        taxonomyManagementHelper.removeNamedNotes(selectionOptions);
+        taxonomyManagementHelper.removeImpacts(
+                measurableIds,
+                asList(TaxonomyChangeImpactKind.values()));
 
 
         String message = String.format("Measurable %s has been removed", measurable.name());
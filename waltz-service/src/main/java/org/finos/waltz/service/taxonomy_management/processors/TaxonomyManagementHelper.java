@@ -1,186 +1,181 @@
 package org.finos.waltz.service.taxonomy_management.processors;
 
+import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
+import org.finos.waltz.data.measurable.MeasurableDao;
+import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
+import org.finos.waltz.data.measurable_rating.MeasurableRatingDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactDao;
+import org.finos.waltz.data.taxonomy_management.TaxonomyChangeImpactKind;
 import org.finos.waltz.model.*;
-import org.finos.waltz.model.assessment_rating.AssessmentRating;
-import org.finos.waltz.model.bookmark.Bookmark;
-import org.finos.waltz.model.entity_named_note.EntityNamedNote;
-import org.finos.waltz.model.entity_relationship.EntityRelationship;
-import org.finos.waltz.model.flow_diagram.FlowDiagramEntity;
-import org.finos.waltz.model.involvement.Involvement;
-import org.finos.waltz.model.measurable.Measurable;
-import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.taxonomy_management.ImmutableTaxonomyChangePreview;
-import org.finos.waltz.service.assessment_rating.AssessmentRatingService;
-import org.finos.waltz.service.bookmark.BookmarkService;
-import org.finos.waltz.service.entity_named_note.EntityNamedNoteService;
-import org.finos.waltz.service.entity_relationship.EntityRelationshipService;
-import org.finos.waltz.service.flow_diagram.FlowDiagramEntityService;
-import org.finos.waltz.service.involvement.InvolvementService;
-import org.finos.waltz.service.measurable.MeasurableService;
 import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
-import org.finos.waltz.service.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommissionService;
+import org.finos.waltz.service.permission.UserPermissionCache;
+import org.jooq.DSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.SetUtilities.*;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities.addToPreview;
 
+/**
+ * Shared previews and actions for the measurable taxonomy change processors.
+ *
+ * Callers resolve the affected measurable ids once, via {@link #findMeasurableIds(IdSelectionOptions)},
+ * and pass them to the preview and removal methods so the hierarchy selector is
+ * not re-evaluated for each kind of associated data.
+ */
 @Service
 public class TaxonomyManagementHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(TaxonomyManagementHelper.class);
 
-    private final BookmarkService bookmarkService;
-    private final EntityRelationshipService entityRelationshipService;
-    private final FlowDiagramEntityService flowDiagramEntityService;
-    private final InvolvementService involvementService;
+    private final DSLContext dsl;
+    private final EntityRelationshipDao entityRelationshipDao;
+    private final MeasurableDao measurableDao;
+    private final MeasurableRatingDao measurableRatingDao;
     private final MeasurableRatingService measurableRatingService;
-    private final MeasurableService measurableService;
-    private final EntityNamedNoteService entityNamedNoteService;
-    private final AssessmentRatingService assessmentRatingService;
+    private final TaxonomyChangeImpactDao taxonomyChangeImpactDao;
+    private final UserPermissionCache userPermissionCache;
+
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
 
     @Autowired
-    public TaxonomyManagementHelper(BookmarkService bookmarkService,
-                                    EntityRelationshipService entityRelationshipService,
-                                    FlowDiagramEntityService flowDiagramEntityService,
-                                    InvolvementService involvementService,
+    public TaxonomyManagementHelper(DSLContext dsl,
+                                    EntityRelationshipDao entityRelationshipDao,
+                                    MeasurableDao measurableDao,
+                                    MeasurableRatingDao measurableRatingDao,
                                     MeasurableRatingService measurableRatingService,
-                                    MeasurableService measurableService,
-                                    EntityNamedNoteService entityNamedNoteService,
-                                    AssessmentRatingService assessmentRatingService) {
-
-        checkNotNull(bookmarkService, "bookmarkService cannot be null");
-        checkNotNull(entityRelationshipService, "entityRelationshipService cannot be null");
-        checkNotNull(flowDiagramEntityService, "flowDiagramEntityService cannot be null");
-        checkNotNull(involvementService, "involvementService cannot be null");
-        checkNotNull(measurableRatingService, "measurableRatingService cannot be null");
-        checkNotNull(measurableService, "measurableService cannot be null");
-        checkNotNull(entityNamedNoteService, "entityNamedNoteService cannot be null");
-        checkNotNull(assessmentRatingService, "assessmentRatingService cannot be null");
-
-        this.assessmentRatingService = assessmentRatingService;
-        this.bookmarkService = bookmarkService;
-        this.entityNamedNoteService = entityNamedNoteService;
-        this.entityRelationshipService = entityRelationshipService;
-        this.flowDiagramEntityService = flowDiagramEntityService;
-        this.involvementService = involvementService;
-        this.measurableRatingService = measurableRatingService;
-        this.measurableService = measurableService;
-    }
-
-
-    // PREVIEWS
-
-    public void previewEntityRelationships(ImmutableTaxonomyChangePreview.Builder preview,
-                                           IdSelectionOptions options) {
-
-        Collection<EntityRelationship> rels = entityRelationshipService.findForGenericEntitySelector(options);
-
-        addToPreview(
-                preview,
-                rels.size(),
-                Severity.WARNING,
-                "Entity Relationships will be removed");
-    }
-
-
-    public void previewFlowDiagramRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                           IdSelectionOptions selectionOptions) {
-
-        List<FlowDiagramEntity> diagrams = flowDiagramEntityService.findForEntitySelector(selectionOptions);
-
-        addToPreview(
-                preview,
-                diagrams.size(),
-                Severity.WARNING,
-                "Relationships to flow diagrams will be removed");
-
-    }
-
-    public void previewInvolvementRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                           IdSelectionOptions selectionOptions) {
-        Collection<Involvement> involvements = involvementService.findByGenericEntitySelector(selectionOptions);
-        addToPreview(
-                preview,
-                involvements.size(),
-                Severity.ERROR,
-                "Involvements (links to people) associated to this item (or it's children) will be removed");
-    }
+                                    TaxonomyChangeImpactDao taxonomyChangeImpactDao,
+                                    UserPermissionCache userPermissionCache) {
 
-    public void previewEntityNamedNoteRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                               IdSelectionOptions selectionOptions) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
+        checkNotNull(measurableDao, "measurableDao cannot be null");
+        checkNotNull(measurableRatingDao, "measurableRatingDao cannot be null");
+        checkNotNull(measurableRatingService, "measurableRatingService cannot be null");
+        checkNotNull(taxonomyChangeImpactDao, "taxonomyChangeImpactDao cannot be null");
+        checkNotNull(userPermissionCache, "userPermissionCache cannot be null");
 
-        List<EntityNamedNote> notes = entityNamedNoteService.findByEntityReference(selectionOptions.entityReference());
-        addToPreview(
-                preview,
-                notes.size(),
-                Severity.ERROR,
-                "Entity named notes associated to this item will be removed");
+        this.dsl = dsl;
+        this.entityRelationshipDao = entityRelationshipDao;
+        this.measurableDao = measurableDao;
+        this.measurableRatingDao = measurableRatingDao;
+        this.measurableRatingService = measurableRatingService;
+        this.taxonomyChangeImpactDao = taxonomyChangeImpactDao;
+        this.userPermissionCache = userPermissionCache;
     }
 
 
-    public void previewAssessmentRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                          IdSelectionOptions selectionOptions) {
-
-        List<AssessmentRating> assessmentRatings = assessmentRatingService.findByTargetKindForRelatedSelector(EntityKind.MEASURABLE, selectionOptions);
-        addToPreview(
-                preview,
-                assessmentRatings.size(),
-                Severity.ERROR,
-                "Assessments associated to this item will be removed");
+    /**
+     * @return ids of the measurables selected by the options (including the
+     * primary measurable), evaluated once for the whole change
+     */
+    public Set<Long> findMeasurableIds(IdSelectionOptions selectionOptions) {
+        return taxonomyChangeImpactDao.findMeasurableIds(measurableIdSelectorFactory.apply(selectionOptions));
     }
 
 
-    public void previewBookmarkRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                        IdSelectionOptions selectionOptions) {
-        Set<Bookmark> bookmarks = bookmarkService.findByBookmarkIdSelector(selectionOptions);
-        addToPreview(
-                preview,
-                bookmarks.size(),
-                Severity.ERROR,
-                "Bookmarks associated to this item will be removed");
-    }
-
+    // PREVIEWS
 
-    public void previewAppMappingRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                          IdSelectionOptions selectionOptions) {
-        List<MeasurableRating> ratings = measurableRatingService.findByMeasurableIdSelector(selectionOptions);
-        addToPreview(
-                preview,
-                ratings.size(),
-                Severity.ERROR,
-                "Application ratings associated to this item (or it's children) will be removed");
+    /**
+     * Adds an entry to the preview for each of the given impacts, in the order given.
+     * The impacts are counted together rather than with a query per impact.
+     */
+    public void previewRemovals(ImmutableTaxonomyChangePreview.Builder preview,
+                                EntityReference primaryRef,
+                                Set<Long> measurableIds,
+                                List<TaxonomyChangeImpactKind> impacts) {
+
+        Map<TaxonomyChangeImpactKind, Integer> counts = taxonomyChangeImpactDao.countImpacts(
+                measurableIds,
+                toEnumSet(impacts));
+
+        for (TaxonomyChangeImpactKind impact : impacts) {
+            int count = counts.get(impact);
+            switch (impact) {
+                case MEASURABLE:
+                    addToPreview(
+                            preview,
+                            measurableIds.contains(primaryRef.id()) ? count - 1 : count,
+                            Severity.ERROR,
+                            "This node has child nodes which will also be removed");
+                    break;
+                case MEASURABLE_RATING:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.ERROR,
+                            "Application ratings associated to this item (or it's children) will be removed");
+                    break;
+                case BOOKMARK:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.ERROR,
+                            "Bookmarks associated to this item will be removed");
+                    break;
+                case INVOLVEMENT:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.ERROR,
+                            "Involvements (links to people) associated to this item (or it's children) will be removed");
+                    break;
+                case ENTITY_NAMED_NOTE:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.ERROR,
+                            "Entity named notes associated to this item will be removed");
+                    break;
+                case ASSESSMENT_RATING:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.ERROR,
+                            "Assessments associated to this item will be removed");
+                    break;
+                case FLOW_DIAGRAM_ENTITY:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.WARNING,
+                            "Relationships to flow diagrams will be removed");
+                    break;
+                case ENTITY_RELATIONSHIP:
+                    addToPreview(
+                            preview,
+                            count,
+                            Severity.WARNING,
+                            "Entity Relationships will be removed");
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Cannot preview impact: " + impact);
+            }
+        }
     }
 
 
-    public void previewChildNodeRemovals(ImmutableTaxonomyChangePreview.Builder preview,
-                                         IdSelectionOptions selectionOptions) {
-        Set<EntityReference> childRefs = map(measurableService.findByMeasurableIdSelector(selectionOptions), Measurable::entityReference);
-        addToPreview(
-                preview,
-                minus(childRefs, asSet(selectionOptions.entityReference())).size(),
-                Severity.ERROR,
-                "This node has child nodes which will also be removed");
-    }
-
     public void previewChildNodeMigrations(ImmutableTaxonomyChangePreview.Builder preview,
                                            IdSelectionOptions selectionOptions) {
 
         ImmutableIdSelectionOptions hierarchySelector = ImmutableIdSelectionOptions.copyOf(selectionOptions).withScope(HierarchyQueryScope.CHILDREN);
 
-        Set<EntityReference> childRefs = map(measurableService.findByMeasurableIdSelector(hierarchySelector), Measurable::entityReference);
+        Set<Long> measurableIds = findMeasurableIds(hierarchySelector);
 
         addToPreview(
                 preview,
-                minus(childRefs, asSet(selectionOptions.entityReference())).size(),
+                measurableIds.contains(selectionOptions.entityReference().id())
+                        ? measurableIds.size() - 1
+                        : measurableIds.size(),
                 Severity.WARNING,
                 "This node has child nodes which will be migrated to the new target");
     }
@@ -214,53 +209,68 @@ public class TaxonomyManagementHelper {
 
     // ACTIONS
 
-    public void migrateMeasurable(IdSelectionOptions selectionOptions, Long targetId, String userId) {
+    /**
+     * Moves the children, ratings and relationships of the source measurable to
+     * the target, then removes the given impacts for the measurables.  Both happen
+     * in a single transaction, so a failed removal does not leave the source's data
+     * half moved.
+     *
+     * @return number of rows removed for each impact
+     */
+    public Map<TaxonomyChangeImpactKind, Integer> mergeMeasurable(EntityReference sourceMeasurable,
+                                                                  Long targetId,
+                                                                  Set<Long> measurableIds,
+                                                                  List<TaxonomyChangeImpactKind> impacts,
+                                                                  String userId) {
 
-        EntityReference sourceMeasurable = selectionOptions.entityReference();
         EntityReference targetMeasurable = mkRef(EntityKind.MEASURABLE, targetId);
 
-        measurableService.moveChildren(sourceMeasurable.id(), targetId, userId);
-        measurableRatingService.migrateRatings(sourceMeasurable.id(), targetId, userId);
-        entityRelationshipService.migrateEntityRelationships(sourceMeasurable, targetMeasurable, userId);
-        measurableService.deleteByIdSelector(selectionOptions);
-    }
+        Map<TaxonomyChangeImpactKind, Integer> removed = dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            measurableDao.moveChildren(tx, sourceMeasurable.id(), targetId, userId);
+            measurableRatingDao.migrateRatings(tx, sourceMeasurable.id(), targetId, userId);
+            entityRelationshipDao.migrateEntityRelationships(tx, sourceMeasurable, targetMeasurable, userId);
+            return taxonomyChangeImpactDao.removeImpacts(tx, measurableIds, toEnumSet(impacts));
+        });
 
-    public int removeEntityRelationshipsDiagrams(IdSelectionOptions selectionOptions) {
-        return entityRelationshipService.deleteForGenericEntitySelector(selectionOptions);
+        return onImpactsRemoved(measurableIds, removed);
     }
 
 
-    public int removeFlowDiagrams(IdSelectionOptions selectionOptions) {
-        return flowDiagramEntityService.deleteForEntitySelector(selectionOptions);
-    }
+    /**
+     * Removes the given impacts for the measurables in a single transaction.
+     *
+     * @return number of rows removed for each impact
+     */
+    public Map<TaxonomyChangeImpactKind, Integer> removeImpacts(Set<Long> measurableIds,
+                                                                List<TaxonomyChangeImpactKind> impacts) {
 
+        Map<TaxonomyChangeImpactKind, Integer> removed = taxonomyChangeImpactDao.removeImpacts(
+                measurableIds,
+                toEnumSet(impacts));
 
-    public int removeMeasurables(IdSelectionOptions selectionOptions) {
-        return measurableService.deleteByIdSelector(selectionOptions);
+        return onImpactsRemoved(measurableIds, removed);
     }
 
 
-    public int removeAppMappings(IdSelectionOptions selectionOptions) {
-        return measurableRatingService.deleteByMeasurableIdSelector(selectionOptions);
-    }
-
+    // --- helpers
 
-    public int removeInvolvements(IdSelectionOptions selectionOptions) {
-        return involvementService.deleteByGenericEntitySelector(selectionOptions);
-    }
+    private Map<TaxonomyChangeImpactKind, Integer> onImpactsRemoved(Set<Long> measurableIds,
+                                                                    Map<TaxonomyChangeImpactKind, Integer> removed) {
+        LOG.info("Removed data associated to {} measurables: {}", measurableIds.size(), removed);
 
+        if (removed.containsKey(TaxonomyChangeImpactKind.INVOLVEMENT)) {
+            userPermissionCache.invalidateAllInvolvements();
+        }
 
-    public int removeBookmarks(IdSelectionOptions selectionOptions) {
-        return bookmarkService.deleteByBookmarkIdSelector(selectionOptions);
+        return removed;
     }
 
 
-    public int removeAssessments(EntityKind targetKind, IdSelectionOptions selectionOptions) {
-        return assessmentRatingService.deleteByAssessmentRatingRelatedSelector(targetKind, selectionOptions);
-    }
-
-    public int removeNamedNotes(IdSelectionOptions selectionOptions) {
-        return entityNamedNoteService.deleteByNamedNoteParentSelector(selectionOptions);
+    private static Set<TaxonomyChangeImpactKind> toEnumSet(List<TaxonomyChangeImpactKind> impacts) {
+        return impacts.isEmpty()
+                ? EnumSet.noneOf(TaxonomyChangeImpactKind.class)
+                : EnumSet.copyOf(impacts);
     }
 
 }
@@ -33,6 +33,7 @@ import org.finos.waltz.model.person.Person;
 import org.finos.waltz.model.role.Role;
 import org.finos.waltz.model.user.*;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.permission.UserPermissionCache;
 import org.finos.waltz.service.person.PersonService;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
@@ -78,24 +79,28 @@ public class UserRoleService {
     private final ChangeLogService changeLogService;
 
     private final PersonService personService;
+    private final UserPermissionCache userPermissionCache;
 
 
     @Autowired
     public UserRoleService(UserRoleDao userRoleDao,
                            RoleDao roleDao,
                            PersonDao personDao, ChangeLogService changeLogService,
-                           PersonService personService) {
+                           PersonService personService,
+                           UserPermissionCache userPermissionCache) {
         checkNotNull(personDao, "personDao must not be null");
         checkNotNull(userRoleDao, "userRoleDao must not be null");
         checkNotNull(roleDao, "roleDao must not be null");
         checkNotNull(changeLogService, "changeLogService must not be null");
         checkNotNull(personService, "personService must not be null");
+        checkNotNull(userPermissionCache, "userPermissionCache must not be null");
 
         this.userRoleDao = userRoleDao;
         this.roleDao = roleDao;
         this.changeLogService = changeLogService;
         this.personService = personService;
         this.personDao = personDao;
+        this.userPermissionCache = userPermissionCache;
     }
 
 
@@ -110,7 +115,7 @@ public class UserRoleService {
 
 
     public boolean hasRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = userPermissionCache.getUserRoles(userName);
         return userRoles.containsAll(requiredRoles);
     }
 
@@ -121,7 +126,7 @@ public class UserRoleService {
 
 
     public boolean hasAnyRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = userPermissionCache.getUserRoles(userName);
         return ! SetUtilities.intersection(userRoles, requiredRoles)
                     .isEmpty();
     }
@@ -162,12 +167,14 @@ public class UserRoleService {
             changeLogService.write(logEntry);
         }
 
-        return userRoleDao.updateRoles(targetUserName, command.roles());
+        int rc = userRoleDao.updateRoles(targetUserName, command.roles());
+        userPermissionCache.invalidateUser(targetUserName);
+        return rc;
     }
 
 
     public Set<String> getUserRoles(String userName) {
-        return userRoleDao.getUserRoles(userName);
+        return userPermissionCache.getUserRoles(userName);
     }
 
 
@@ -200,15 +207,19 @@ public class UserRoleService {
         
         Set<Tuple2<String, String>> usernamesAndRoles = usersAndRolesToUpdate.stream().map(t -> tuple(t.v1, t.v2)).collect(toSet());
 
-        switch (mode) {
-            case ADD_ONLY:
-                return userRoleDao.addRoles(usernamesAndRoles);
-            case REMOVE_ONLY:
-                return userRoleDao.removeRoles(usernamesAndRoles);
-            case REPLACE:
-                return userRoleDao.replaceRoles(usernamesAndRoles);
-            default:
-                throw new UnsupportedOperationException("Unsupported mode: " + mode);
+        try {
+            switch (mode) {
+                case ADD_ONLY:
+                    return userRoleDao.addRoles(usernamesAndRoles);
+                case REMOVE_ONLY:
+                    return userRoleDao.removeRoles(usernamesAndRoles);
+                case REPLACE:
+                    return userRoleDao.replaceRoles(usernamesAndRoles);
+                default:
+                    throw new UnsupportedOperationException("Unsupported mode: " + mode);
+            }
+        } finally {
+            userPermissionCache.invalidateUsers(SetUtilities.map(usernamesAndRoles, t -> t.v1));
         }
     }
 
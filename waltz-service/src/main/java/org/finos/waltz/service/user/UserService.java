@@ -27,6 +27,7 @@ import org.finos.waltz.model.user.ImmutableLoginRequest;
 import org.finos.waltz.model.user.LoginRequest;
 import org.finos.waltz.model.user.PasswordResetRequest;
 import org.finos.waltz.model.user.UserRegistrationRequest;
+import org.finos.waltz.service.permission.UserPermissionCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,22 +49,26 @@ public class UserService {
     private final PasswordService passwordService;
     private final UserRoleDao userRoleDao;
     private final SettingsService settingsService;
+    private final UserPermissionCache userPermissionCache;
 
 
     @Autowired
     public UserService(UserDao userDao,
                        UserRoleDao userRoleDao,
                        PasswordService passwordService,
-                       SettingsService settingsService) {
+                       SettingsService settingsService,
+                       UserPermissionCache userPermissionCache) {
         checkNotNull(userDao, "userDao must not be null");
         checkNotNull(userRoleDao, "userRoleDao cannot be null");
         checkNotNull(passwordService, "passwordService must not be null");
         checkNotNull(settingsService, "settingsService cannot be null");
+        checkNotNull(userPermissionCache, "userPermissionCache cannot be null");
 
         this.userDao = userDao;
         this.userRoleDao = userRoleDao;
         this.passwordService = passwordService;
         this.settingsService = settingsService;
+        this.userPermissionCache = userPermissionCache;
     }
 
 
@@ -89,6 +94,7 @@ public class UserService {
     public boolean deleteUser(String userName) {
         LOG.info("Deleting user: " + userName);
         userDao.deleteUser(userName);
+        userPermissionCache.invalidateUser(userName);
         LOG.info("Deleted user: " + userName);
         return true;
     }
@@ -140,6 +146,7 @@ public class UserService {
             setting.value()
                     .map(s -> tokenise(s, ","))
                     .ifPresent(roles -> userRoleDao.updateRoles(username, fromCollection(roles)));
+            userPermissionCache.invalidateUser(username);
 
         }
     }
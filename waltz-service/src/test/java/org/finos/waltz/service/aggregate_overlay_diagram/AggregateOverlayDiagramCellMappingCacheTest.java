@@ -0,0 +1,179 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.aggregate_overlay_diagram;
+
+import org.finos.waltz.data.aggregate_overlay_diagram.AggregateOverlayDiagramDao;
+import org.finos.waltz.data.aggregate_overlay_diagram.OverlayDiagramCellMapping;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class AggregateOverlayDiagramCellMappingCacheTest {
+
+    private static final long DIAGRAM_ID = 1L;
+    private static final IdSelectionOptions OU_A = mkOpts(mkRef(EntityKind.ORG_UNIT, 10L));
+    private static final IdSelectionOptions OU_B = mkOpts(mkRef(EntityKind.ORG_UNIT, 20L));
+    private static final Select<Record1<Long>> SELECTOR = DSL.select(DSL.inline(1L));
+
+    private final AtomicInteger expandedCellMappingLoads = new AtomicInteger();
+    private final AtomicInteger cellMappingLoads = new AtomicInteger();
+    private final AdjustableClock clock = new AdjustableClock();
+
+    private AggregateOverlayDiagramCellMappingCache cache;
+
+
+    @BeforeEach
+    public void setup() {
+        cache = new AggregateOverlayDiagramCellMappingCache(new CountingDao(), clock);
+    }
+
+
+    @Test
+    public void cellMappingsAreLoadedOncePerSelection() {
+        OverlayDiagramCellMapping first = getCellMapping(OU_A);
+        OverlayDiagramCellMapping second = getCellMapping(OU_A);
+
+        assertSame(first, second, "second call should be served from the cache");
+        assertEquals(1, cellMappingLoads.get());
+        assertEquals(1, cache.getHitCount());
+
+        getCellMapping(OU_B);
+
+        assertEquals(2, cellMappingLoads.get(), "a different selection needs its own mapping");
+        assertEquals(1, expandedCellMappingLoads.get(), "expanded cell mappings are shared by all selections");
+        assertEquals(2, cache.getCachedCellMappingCount());
+    }
+
+
+    @Test
+    public void entriesExpireAfterTtl() {
+        OverlayDiagramCellMapping first = getCellMapping(OU_A);
+
+        clock.advance(cache.getTtlMillis() - 1);
+        assertSame(first, getCellMapping(OU_A), "entry should still be live just before the ttl");
+
+        clock.advance(1);
+        OverlayDiagramCellMapping reloaded = getCellMapping(OU_A);
+
+        assertNotSame(first, reloaded, "entry should be reloaded once the ttl has passed");
+        assertEquals(2, cellMappingLoads.get());
+        assertEquals(2, expandedCellMappingLoads.get());
+    }
+
+
+    @Test
+    public void invalidatingADiagramForcesReload() {
+        getCellMapping(OU_A);
+        cache.invalidateDiagram(DIAGRAM_ID);
+        getCellMapping(OU_A);
+
+        assertEquals(2, cellMappingLoads.get());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+
+    // --- helpers
+
+    private OverlayDiagramCellMapping getCellMapping(IdSelectionOptions selectionOptions) {
+        return cache.getCellMapping(
+                DIAGRAM_ID,
+                EntityKind.APPLICATION,
+                selectionOptions,
+                emptySet(),
+                Optional.empty(),
+                SELECTOR);
+    }
+
+
+    private class CountingDao extends AggregateOverlayDiagramDao {
+
+        private CountingDao() {
+            super(null);
+        }
+
+        @Override
+        public Set<Tuple2<String, EntityReference>> findExpandedCellMappings(long diagramId) {
+            expandedCellMappingLoads.incrementAndGet();
+            return asSet(tuple("CELL_1", mkRef(EntityKind.MEASURABLE, 100L)));
+        }
+
+        @Override
+        public OverlayDiagramCellMapping findCellMapping(Set<Tuple2<String, EntityReference>> expandedCellMappings,
+                                                         EntityKind aggregatedEntityKind,
+                                                         Select<Record1<Long>> inScopeEntityIdSelector,
+                                                         Optional<LocalDate> targetStateDate) {
+            cellMappingLoads.incrementAndGet();
+            return new OverlayDiagramCellMapping(
+                    aggregatedEntityKind,
+                    expandedCellMappings,
+                    newHashMap("CELL_1", asSet(1000L)));
+        }
+    }
+
+
+    private static class AdjustableClock extends Clock {
+
+        private long millis = 1_000_000;
+
+        private void advance(long byMillis) {
+            millis += byMillis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.finos.waltz.service.estate_snapshot;
+
+import org.finos.waltz.data.estate_snapshot.ApplicationSnapshotRow;
+import org.finos.waltz.data.estate_snapshot.OrgUnitSnapshotRow;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.application.ApplicationKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EstateSnapshotTest {
+
+    private static final Timestamp T1 = Timestamp.valueOf("2024-01-01 10:00:00");
+    private static final Timestamp T2 = Timestamp.valueOf("2024-01-02 10:00:00");
+
+
+    @Test
+    public void lookupsReturnSnapshotValues() {
+        EstateSnapshot snapshot = EstateSnapshot.build(
+                1,
+                asList(
+                        mkApp(20, "beta", null, 2, LifecyclePhase.RETIRED, T1),
+                        mkApp(10, "alpha", "A-1", 3, LifecyclePhase.PRODUCTION, T2)),
+                asList(
+                        mkOrgUnit(1, "root", null, T1),
+                        mkOrgUnit(2, "child", 1L, T1),
+                        mkOrgUnit(3, "grandchild", 2L, T2)));
+
+        EntityReference alpha = snapshot.findApplicationRef(10).get();
+        assertEquals(EntityKind.APPLICATION, alpha.kind());
+        assertEquals(Optional.of("alpha"), alpha.name());
+        assertEquals(Optional.of("A-1"), alpha.externalId());
+        assertEquals(Optional.empty(), snapshot.findApplicationRef(20).get().externalId());
+        assertEquals(Optional.empty(), snapshot.findApplicationRef(15));
+
+        assertEquals(Optional.of(LifecyclePhase.RETIRED), snapshot.findLifecyclePhase(20));
+        assertEquals(Optional.of(ApplicationKind.IN_HOUSE), snapshot.findApplicationKind(10));
+        assertEquals(Optional.of(3L), snapshot.findOrgUnitIdForApplication(10));
+        assertEquals(Optional.of(false), snapshot.findIsApplicationRemoved(10));
+
+        assertEquals(Optional.of("grandchild"), snapshot.findOrgUnitRef(3).flatMap(EntityReference::name));
+        assertEquals(Optional.empty(), snapshot.findParentOrgUnitId(1));
+        assertEquals(asList(2L, 1L), snapshot.findOrgUnitAncestorIds(3));
+        assertEquals(emptyList(), snapshot.findOrgUnitAncestorIds(99));
+
+        assertEquals(2, snapshot.applicationCount());
+        assertEquals(3, snapshot.orgUnitCount());
+        assertEquals(Optional.of(T2), snapshot.applicationsUpdatedAt());
+    }
+
+
+    @Test
+    public void mergeReplacesAndAddsRowsWithoutChangingOriginal() {
+        EstateSnapshot original = EstateSnapshot.build(
+                1,
+                asList(
+                        mkApp(10, "alpha", "A-1", 1, LifecyclePhase.PRODUCTION, T1),
+                        mkApp(30, "gamma", "G-1", 1, LifecyclePhase.PRODUCTION, T1)),
+                asList(mkOrgUnit(1, "root", null, T1)));
+
+        EstateSnapshot merged = original.merge(
+                2,
+                asList(
+                        mkApp(30, "gamma renamed", "G-1", 1, LifecyclePhase.RETIRED, T2),
+                        mkApp(20, "beta", "B-1", 1, LifecyclePhase.PRODUCTION, T2)),
+                emptyList());
+
+        assertEquals(2, merged.version());
+        assertEquals(3, merged.applicationCount());
+        assertEquals(Optional.of("beta"), merged.findApplicationRef(20).flatMap(EntityReference::name));
+        assertEquals(Optional.of("gamma renamed"), merged.findApplicationRef(30).flatMap(EntityReference::name));
+        assertEquals(Optional.of(LifecyclePhase.RETIRED), merged.findLifecyclePhase(30));
+        assertEquals(Optional.of(T2), merged.applicationsUpdatedAt());
+        assertEquals(Optional.of(T1), merged.orgUnitsUpdatedAt());
+
+        assertEquals(2, original.applicationCount());
+        assertEquals(Optional.of("gamma"), original.findApplicationRef(30).flatMap(EntityReference::name));
+    }
+
+
+    @Test
+    public void differencesAreReportedByKindAndId() {
+        EstateSnapshot a = EstateSnapshot.build(
+                1,
+                asList(
+                        mkApp(10, "alpha", "A-1", 1, LifecyclePhase.PRODUCTION, T1),
+                        mkApp(20, "beta", "B-1", 1, LifecyclePhase.PRODUCTION, T1)),
+                asList(mkOrgUnit(1, "root", null, T1)));
+
+        EstateSnapshot b = EstateSnapshot.build(
+                2,
+                asList(
+                        mkApp(10, "alpha", "A-1", 1, LifecyclePhase.PRODUCTION, T2),
+                        mkApp(20, "beta", "B-1", 1, LifecyclePhase.RETIRED, T1),
+                        mkApp(30, "gamma", "G-1", 1, LifecyclePhase.PRODUCTION, T1)),
+                asList(mkOrgUnit(1, "renamed root", null, T1)));
+
+        assertTrue(a.findDifferences(a).isEmpty());
+        assertEquals(
+                asSet(mkRef(EntityKind.APPLICATION, 20),
+                      mkRef(EntityKind.APPLICATION, 30),
+                      mkRef(EntityKind.ORG_UNIT, 1)),
+                a.findDifferences(b));
+    }
+
+
+    @Test
+    public void hundredThousandApplicationsFitTheDefaultBudget() {
+        List<ApplicationSnapshotRow> apps = new ArrayList<>();
+        for (long i = 1; i <= 100_000; i++) {
+            apps.add(mkApp(i, "Application number " + i, "ASSET-" + i, i % 500, LifecyclePhase.PRODUCTION, T1));
+        }
+        List<OrgUnitSnapshotRow> orgUnits = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) {
+            orgUnits.add(mkOrgUnit(i, "Org unit " + i, i == 1 ? null : i / 2, T1));
+        }
+
+        EstateSnapshot snapshot = EstateSnapshot.build(1, apps, orgUnits);
+
+        assertEquals(100_000, snapshot.applicationCount());
+        assertTrue(snapshot.estimatedBytes() < 64L * 1024 * 1024, "estimated: " + snapshot.estimatedBytes());
+        assertFalse(snapshot.findApplicationRef(100_001).isPresent());
+        assertEquals(Optional.of("ASSET-54321"), snapshot.findApplicationRef(54321).flatMap(EntityReference::externalId));
+    }
+
+
+    // --- helpers
+
+    private static ApplicationSnapshotRow mkApp(long id,
+                                                String name,
+                                                String assetCode,
+                                                long orgUnitId,
+                                                LifecyclePhase phase,
+                                                Timestamp updatedAt) {
+        return new ApplicationSnapshotRow(
+                id,
+                name,
+                assetCode,
+                orgUnitId,
+                ApplicationKind.IN_HOUSE,
+                phase,
+                EntityLifecycleStatus.ACTIVE,
+                false,
+                updatedAt);
+    }
+
+
+    private static OrgUnitSnapshotRow mkOrgUnit(long id, String name, Long parentId, Timestamp updatedAt) {
+        return new OrgUnitSnapshotRow(id, name, null, parentId, updatedAt);
+    }
+
+}
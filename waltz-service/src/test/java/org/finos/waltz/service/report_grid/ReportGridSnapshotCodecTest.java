@@ -0,0 +1,169 @@
+package org.finos.waltz.service.report_grid;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.rating.ImmutableRatingSchemeItem;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.report_grid.CellOption.mkCellOption;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportGridSnapshotCodecTest {
+
+    private static final RatingSchemeItem GREEN = ImmutableRatingSchemeItem
+            .builder()
+            .id(1L)
+            .name("yes")
+            .description("ydesc")
+            .ratingSchemeId(10L)
+            .position(10)
+            .color("green")
+            .rating("Y")
+            .build();
+
+
+    @Test
+    public void emptyInstanceRoundTrips() {
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .build();
+
+        ReportGridInstance decoded = ReportGridSnapshotCodec.decode(ReportGridSnapshotCodec.encode(instance));
+
+        assertEquals(instance, decoded);
+    }
+
+
+    @Test
+    public void instanceRoundTrips() {
+        ReportSubject s1 = mkSubject(30L, "zed", "Z-1", LifecyclePhase.PRODUCTION);
+        ReportSubject s2 = mkSubject(20L, "ay", null, LifecyclePhase.RETIRED);
+        ReportSubject s3 = mkSubject(10L, "be", "B-1", LifecyclePhase.PRODUCTION);
+
+        Set<ReportGridCell> cells = asSet(
+                mkRatingCell(1L, 30L),
+                mkRatingCell(1L, 20L),
+                mkRatingCell(1L, 10L),
+                ImmutableReportGridCell
+                        .builder()
+                        .columnDefinitionId(2L)
+                        .subjectId(20L)
+                        .numberValue(new BigDecimal("12.50"))
+                        .build(),
+                ImmutableReportGridCell
+                        .builder()
+                        .columnDefinitionId(3L)
+                        .subjectId(10L)
+                        .textValue("hello")
+                        .comment("a comment")
+                        .dateTimeValue(LocalDateTime.of(2024, 3, 1, 12, 30))
+                        .options(asSet(mkCellOption("PROVIDED", "Provided")))
+                        .build(),
+                ImmutableReportGridCell
+                        .builder()
+                        .columnDefinitionId(4L)
+                        .subjectId(30L)
+                        .errorValue("boom")
+                        .build());
+
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .subjects(asSet(s1, s2, s3))
+                .ratingSchemeItems(asSet(GREEN))
+                .cellData(cells)
+                .build();
+
+        ReportGridInstance decoded = ReportGridSnapshotCodec.decode(ReportGridSnapshotCodec.encode(instance));
+
+        assertEquals(instance.cellData(), decoded.cellData());
+        assertEquals(instance.ratingSchemeItems(), decoded.ratingSchemeItems());
+        assertEquals(instance.subjects(), decoded.subjects());
+
+        Map<Long, ReportSubject> decodedById = indexBy(decoded.subjects(), s -> s.entityReference().id());
+        assertEquals("ay", decodedById.get(20L).entityReference().name().get());
+        assertTrue(!decodedById.get(20L).entityReference().externalId().isPresent());
+        assertEquals("Z-1", decodedById.get(30L).entityReference().externalId().get());
+        assertEquals(LifecyclePhase.RETIRED, decodedById.get(20L).lifecyclePhase());
+
+        Map<Long, ReportGridCell> decodedCommentCell = indexBy(decoded.cellData(), ReportGridCell::columnDefinitionId);
+        assertEquals("a comment", decodedCommentCell.get(3L).comment());
+    }
+
+
+    @Test
+    public void cellsForUnknownSubjectsAreNotStored() {
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .subjects(asSet(mkSubject(10L, "be", "B-1", LifecyclePhase.PRODUCTION)))
+                .cellData(asSet(mkRatingCell(1L, 10L), mkRatingCell(1L, 99L)))
+                .build();
+
+        ReportGridInstance decoded = ReportGridSnapshotCodec.decode(ReportGridSnapshotCodec.encode(instance));
+
+        assertEquals(1, ReportGridSnapshotCodec.countStoredCells(instance));
+        assertEquals(asSet(mkRatingCell(1L, 10L)), decoded.cellData());
+    }
+
+
+    @Test
+    public void repeatedValuesAreDictionaryEncoded() throws JsonProcessingException {
+        ImmutableReportGridInstance.Builder few = ImmutableReportGridInstance.builder();
+        ImmutableReportGridInstance.Builder many = ImmutableReportGridInstance.builder();
+
+        for (long i = 1; i <= 1000; i++) {
+            ReportSubject subject = mkSubject(i, "app " + i, "A-" + i, LifecyclePhase.PRODUCTION);
+            few.addSubjects(subject);
+            many.addSubjects(subject);
+            many.addCellData(mkRatingCell(1L, i), mkRatingCell(2L, i), mkRatingCell(3L, i));
+        }
+
+        ReportGridInstance instance = many.build();
+
+        int withoutCells = ReportGridSnapshotCodec.encode(few.build()).length;
+        int withCells = ReportGridSnapshotCodec.encode(instance).length;
+        int cellsAsJson = getJsonMapper().writeValueAsBytes(instance.cellData()).length;
+
+        // identical values are stored once per column, leaving little more than their positions
+        assertTrue(withCells - withoutCells < cellsAsJson / 10, "cells should be compactly encoded");
+    }
+
+
+    // --- helpers
+
+    private static ReportSubject mkSubject(long id, String name, String externalId, LifecyclePhase phase) {
+        return ImmutableReportSubject
+                .builder()
+                .entityReference(mkRef(EntityKind.APPLICATION, id, name, null, externalId))
+                .lifecyclePhase(phase)
+                .build();
+    }
+
+
+    private static ReportGridCell mkRatingCell(long columnId, long subjectId) {
+        return ImmutableReportGridCell
+                .builder()
+                .columnDefinitionId(columnId)
+                .subjectId(subjectId)
+                .ratingIdValues(asSet(GREEN.id().get()))
+                .build();
+    }
+
+}
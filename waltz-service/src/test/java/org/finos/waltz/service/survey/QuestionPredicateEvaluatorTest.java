@@ -0,0 +1,167 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.survey;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestion;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestionResponse;
+import org.finos.waltz.model.survey.SurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestionFieldType;
+import org.finos.waltz.model.survey.SurveyQuestionResponse;
+import org.finos.waltz.service.survey.inclusion_evaluator.QuestionPredicateEvaluator;
+import org.finos.waltz.schema.tables.records.ChangeInitiativeRecord;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT_KIND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QuestionPredicateEvaluatorTest {
+
+    private static final EntityReference SUBJECT = mkRef(EntityKind.ORG_UNIT, 1L);
+
+    private static final SurveyQuestion Q1 = mkQuestion(1L, "Q1", null);
+    private static final SurveyQuestion Q2 = mkQuestion(2L, "Q2", "isChecked('Q1')");
+    private static final SurveyQuestion Q3 = mkQuestion(3L, "Q3", "ditto('Q2')");
+    private static final SurveyQuestion Q4 = mkQuestion(4L, "Q4", "");
+
+    private static final List<SurveyQuestion> QUESTIONS = asList(Q1, Q2, Q3, Q4);
+
+
+    @Test
+    public void predicatesAreEvaluatedAgainstResponses() {
+        assertEquals(
+                asList(1L, 2L, 3L, 4L),
+                evalActiveIds(newHashMap(1L, mkBooleanResponse(1L, true))),
+                "Q2 and Q3 (ditto Q2) should be included when Q1 is checked");
+    }
+
+
+    @Test
+    public void compiledPredicatesAreNotBoundToEarlierEvaluations() {
+        assertEquals(asList(1L, 2L, 3L, 4L), evalActiveIds(newHashMap(1L, mkBooleanResponse(1L, true))));
+        assertEquals(asList(1L, 4L), evalActiveIds(newHashMap(1L, mkBooleanResponse(1L, false))));
+        assertEquals(asList(1L, 4L), evalActiveIds(newHashMap()), "unanswered questions use the default");
+    }
+
+
+    @Test
+    public void subjectFactsAreLoadedOncePerEvaluation() {
+        AtomicInteger ciQueries = new AtomicInteger();
+        AtomicInteger involvementQueries = new AtomicInteger();
+        DSLContext dsl = mkSubjectDsl(ciQueries, involvementQueries);
+
+        List<SurveyQuestion> questions = asList(
+                mkQuestion(11L, "Q11", "hasInvolvement('Owner')"),
+                mkQuestion(12L, "Q12", "hasInvolvement('owner') && hasLifecyclePhase('PRODUCTION')"),
+                mkQuestion(13L, "Q13", "hasInvolvement('Sponsor')"),
+                mkQuestion(14L, "Q14", "hasLifecyclePhase('RETIRED')"));
+
+        EntityReference subject = mkRef(EntityKind.CHANGE_INITIATIVE, 1L);
+
+        for (int i = 1; i <= 3; i++) {
+            List<Long> activeIds = QuestionPredicateEvaluator
+                    .eval(dsl, questions, subject, newHashMap())
+                    .stream()
+                    .map(q -> q.id().get())
+                    .collect(toList());
+
+            assertEquals(asList(11L, 12L), activeIds);
+            assertEquals(i, involvementQueries.get(), "involvements should be loaded once per evaluation");
+            assertEquals(i, ciQueries.get(), "change initiative should be loaded once per evaluation");
+        }
+    }
+
+    // --- helpers
+
+    private static List<Long> evalActiveIds(Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
+        return QuestionPredicateEvaluator
+                .eval(null, QUESTIONS, SUBJECT, responsesByQuestionId)
+                .stream()
+                .map(q -> q.id().get())
+                .collect(toList());
+    }
+
+
+    /**
+     * Answers queries for the change initiative (in PRODUCTION) and its involvements (Owner),
+     * counting how many times each is asked for
+     */
+    private static DSLContext mkSubjectDsl(AtomicInteger ciQueries, AtomicInteger involvementQueries) {
+        DSLContext create = DSL.using(SQLDialect.DEFAULT);
+
+        MockDataProvider provider = ctx -> {
+            if (ctx.sql().toLowerCase().contains("change_initiative")) {
+                ciQueries.incrementAndGet();
+                ChangeInitiativeRecord ci = create.newRecord(CHANGE_INITIATIVE);
+                ci.setId(1L);
+                ci.setLifecyclePhase("PRODUCTION");
+                Result<ChangeInitiativeRecord> result = create.newResult(CHANGE_INITIATIVE);
+                result.add(ci);
+                return new MockResult[]{new MockResult(1, result)};
+            } else {
+                involvementQueries.incrementAndGet();
+                Result<Record1<String>> result = create.newResult(INVOLVEMENT_KIND.NAME);
+                result.add(create.newRecord(INVOLVEMENT_KIND.NAME).values("Owner"));
+                return new MockResult[]{new MockResult(1, result)};
+            }
+        };
+
+        return DSL.using(new MockConnection(provider), SQLDialect.H2);
+    }
+
+
+    private static SurveyQuestion mkQuestion(long id, String externalId, String predicate) {
+        return ImmutableSurveyQuestion.builder()
+                .id(id)
+                .externalId(externalId)
+                .surveyTemplateId(1L)
+                .questionText(externalId)
+                .fieldType(SurveyQuestionFieldType.BOOLEAN)
+                .inclusionPredicate(Optional.ofNullable(predicate))
+                .build();
+    }
+
+
+    private static SurveyQuestionResponse mkBooleanResponse(long questionId, boolean value) {
+        return ImmutableSurveyQuestionResponse.builder()
+                .questionId(questionId)
+                .booleanResponse(value)
+                .build();
+    }
+
+}
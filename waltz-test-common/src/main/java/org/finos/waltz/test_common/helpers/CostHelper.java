@@ -0,0 +1,86 @@
+package org.finos.waltz.test_common.helpers;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.schema.tables.records.AllocationSchemeRecord;
+import org.finos.waltz.schema.tables.records.CostRecord;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.schema.Tables.ALLOCATED_COST_DEFINITION;
+import static org.finos.waltz.schema.Tables.ALLOCATION_SCHEME;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_KIND;
+
+@Service
+public class CostHelper {
+
+    protected static final String LAST_UPDATE_USER = "last";
+    protected static final String PROVENANCE = "test";
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    public long createCostKind(String name) {
+        return dsl
+                .insertInto(COST_KIND)
+                .set(COST_KIND.NAME, name)
+                .set(COST_KIND.DESCRIPTION, name)
+                .set(COST_KIND.EXTERNAL_ID, name)
+                .set(COST_KIND.IS_DEFAULT, false)
+                .returning(COST_KIND.ID)
+                .fetchOne()
+                .getId();
+    }
+
+
+    /**
+     * Replaces any existing cost of the kind for the entity and year
+     */
+    public void setCost(EntityReference ref, long costKindId, int year, BigDecimal amount) {
+        dsl.deleteFrom(COST)
+                .where(COST.COST_KIND_ID.eq(costKindId))
+                .and(COST.ENTITY_KIND.eq(ref.kind().name()))
+                .and(COST.ENTITY_ID.eq(ref.id()))
+                .and(COST.YEAR.eq(year))
+                .execute();
+
+        CostRecord record = dsl.newRecord(COST);
+        record.setCostKindId(costKindId);
+        record.setEntityKind(ref.kind().name());
+        record.setEntityId(ref.id());
+        record.setYear(year);
+        record.setAmount(amount);
+        record.setLastUpdatedAt(nowUtcTimestamp());
+        record.setLastUpdatedBy(LAST_UPDATE_USER);
+        record.setProvenance(PROVENANCE);
+        record.insert();
+    }
+
+
+    public long createAllocationScheme(String name, long measurableCategoryId) {
+        AllocationSchemeRecord record = dsl.newRecord(ALLOCATION_SCHEME);
+        record.setName(name);
+        record.setDescription(name);
+        record.setExternalId(name);
+        record.setMeasurableCategoryId(measurableCategoryId);
+        record.insert();
+        return record.getId();
+    }
+
+
+    public long createAllocatedCostDefinition(long allocationSchemeId, long sourceCostKindId, long targetCostKindId) {
+        return dsl
+                .insertInto(ALLOCATED_COST_DEFINITION)
+                .set(ALLOCATED_COST_DEFINITION.ALLOCATION_SCHEME_ID, allocationSchemeId)
+                .set(ALLOCATED_COST_DEFINITION.SOURCE_COST_KIND_ID, sourceCostKindId)
+                .set(ALLOCATED_COST_DEFINITION.TARGET_COST_KIND_ID, targetCostKindId)
+                .returning(ALLOCATED_COST_DEFINITION.ID)
+                .fetchOne()
+                .getId();
+    }
+}
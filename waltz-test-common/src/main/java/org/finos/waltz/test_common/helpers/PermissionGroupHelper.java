@@ -4,6 +4,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.schema.tables.records.*;
+import org.finos.waltz.service.permission.PermissionGroupService;
 import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,9 @@ public class PermissionGroupHelper {
     @Autowired
     private DSLContext dsl;
 
+    @Autowired
+    private PermissionGroupService permissionGroupService;
+
     @Autowired
     public PermissionGroupHelper() {
     }
@@ -78,6 +82,7 @@ public class PermissionGroupHelper {
             pgi.setQualifierKind(qualifierRef.kind().name());
         }
         pgi.insert();
+        permissionGroupService.invalidateCachedPermissions();
     }
 
 
@@ -87,6 +92,7 @@ public class PermissionGroupHelper {
         pge.setEntityKind(EntityKind.APPLICATION.name());
         pge.setEntityId(appRef.id());
         pge.insert();
+        permissionGroupService.invalidateCachedPermissions();
     }
 
 
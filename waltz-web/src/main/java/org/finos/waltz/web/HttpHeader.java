@@ -2,5 +2,11 @@ package org.finos.waltz.web;
 
 public interface HttpHeader {
 
+    String ACCEPT = "Accept";
+    String ACCEPT_ENCODING = "Accept-Encoding";
     String CACHE_CONTROL = "Cache-Control";
+    String CONTENT_ENCODING = "Content-Encoding";
+    String ETAG = "ETag";
+    String IF_NONE_MATCH = "If-None-Match";
+    String VARY = "Vary";
 }
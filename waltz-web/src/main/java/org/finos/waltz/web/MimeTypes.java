@@ -4,4 +4,6 @@ public interface MimeTypes {
 
     String TEXT_PLAIN = "text/plain";
     String APPLICATION_JSON_UTF_8 = "application/json;charset=utf-8";
+    String APPLICATION_SMILE = "application/x-jackson-smile";
+    String APPLICATION_CBOR = "application/cbor";
 }
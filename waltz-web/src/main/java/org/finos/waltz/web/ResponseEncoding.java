@@ -0,0 +1,125 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+import static org.finos.waltz.common.JacksonUtilities.getCborMapper;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.common.JacksonUtilities.getSmileMapper;
+import static org.finos.waltz.common.StringUtilities.isEmpty;
+
+/**
+ * Encodings a client may ask for (via the <code>Accept</code> header) when
+ * calling the api.  The binary encodings carry the same model as the json,
+ * but are cheaper to produce and smaller on the wire for large payloads
+ * (e.g. report grid instances, flow views).
+ */
+public enum ResponseEncoding {
+
+    JSON(WebUtilities.TYPE_JSON, getJsonMapper()),
+    SMILE(MimeTypes.APPLICATION_SMILE, getSmileMapper()),
+    CBOR(MimeTypes.APPLICATION_CBOR, getCborMapper());
+
+
+    private final String contentType;
+    private final ObjectMapper mapper;
+
+
+    ResponseEncoding(String contentType, ObjectMapper mapper) {
+        this.contentType = contentType;
+        this.mapper = mapper;
+    }
+
+
+    public String contentType() {
+        return contentType;
+    }
+
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+
+    public byte[] encode(Object obj) throws IOException {
+        return mapper.writeValueAsBytes(obj);
+    }
+
+
+    /**
+     * Picks the encoding with the highest quality value in the given <code>Accept</code>
+     * header, earlier entries win ties.  Json is used if the header is absent or does
+     * not name one of the binary encodings (e.g. <code>*&#47;*</code>).
+     */
+    public static ResponseEncoding fromAcceptHeader(String accept) {
+        if (isEmpty(accept)) {
+            return JSON;
+        }
+
+        ResponseEncoding best = JSON;
+        double bestQuality = 0;
+
+        for (String mediaRange : accept.split(",")) {
+            String[] parts = mediaRange.split(";");
+            ResponseEncoding encoding = fromContentType(parts[0].trim());
+            if (encoding == null) {
+                continue;
+            }
+
+            double quality = readQuality(parts);
+            if (quality > bestQuality) {
+                best = encoding;
+                bestQuality = quality;
+            }
+        }
+
+        return best;
+    }
+
+
+    // --- helpers
+
+    private static ResponseEncoding fromContentType(String contentType) {
+        for (ResponseEncoding encoding : values()) {
+            if (encoding.contentType.equalsIgnoreCase(contentType)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+
+    private static double readQuality(String[] mediaRangeParts) {
+        for (int i = 1; i < mediaRangeParts.length; i++) {
+            String param = mediaRangeParts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+}
@@ -22,6 +22,9 @@ import org.finos.waltz.common.EnumUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.model.*;
+import org.finos.waltz.model.pagination.Page;
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.endpoints.auth.AuthenticationUtilities;
@@ -40,8 +43,10 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
@@ -57,6 +62,9 @@ public class WebUtilities {
     public static final String TYPE_JSON = "application/json";
     public static final ResponseTransformer transformer = getJsonMapper()::writeValueAsString;
 
+    public static final String NEXT_PAGE_CURSOR_HEADER = "Waltz-Next-Page-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 1_000;
+
 
     /**
      * @see StringUtilities
@@ -349,6 +357,60 @@ public class WebUtilities {
     }
 
 
+    /**
+     * Reads the (optional) keyset pagination parameters: <code>pageSize</code> and
+     * <code>after</code>, the cursor returned in the {@link #NEXT_PAGE_CURSOR_HEADER}
+     * header of the previous page.
+     *
+     * @return empty if the client has not asked for a page
+     * @throws IllegalArgumentException if the page size is not a number or the cursor
+     *                                  cannot be decoded (reported as a 400)
+     */
+    public static Optional<PageRequest> getPageRequest(Request request) {
+        String pageSize = request.queryParams("pageSize");
+        String after = request.queryParams("after");
+
+        if (pageSize == null && after == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(PageRequest.mkPageRequest(
+                pageSize == null ? DEFAULT_PAGE_SIZE : parsePageSize(pageSize),
+                Optional.ofNullable(after).map(PageCursor::decode)));
+    }
+
+
+    private static int parsePageSize(String pageSize) {
+        try {
+            return Integer.parseInt(pageSize.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("pageSize must be a number, not: '%s'", pageSize), e);
+        }
+    }
+
+
+    /**
+     * Supports listings where pagination is opt-in.  If the request has page
+     * parameters the page is fetched, with the cursor for the next page (if any)
+     * returned in the {@link #NEXT_PAGE_CURSOR_HEADER} header.  Otherwise the full
+     * listing is returned.
+     */
+    public static <T> Collection<T> findAllOrPage(Request request,
+                                                  Response response,
+                                                  Supplier<? extends Collection<T>> findAll,
+                                                  Function<PageRequest, Page<T>> findPage) {
+        Optional<PageRequest> pageRequest = getPageRequest(request);
+
+        if (!pageRequest.isPresent()) {
+            return findAll.get();
+        }
+
+        Page<T> page = findPage.apply(pageRequest.get());
+        page.next().ifPresent(cursor -> response.header(NEXT_PAGE_CURSOR_HEADER, cursor.encode()));
+        return page.items();
+    }
+
+
     public static Optional<java.util.Date> getDateParam(Request request) {
         String dateVal = request.queryParams("date");
         return Optional
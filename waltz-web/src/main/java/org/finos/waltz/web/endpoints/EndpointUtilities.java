@@ -19,10 +19,15 @@
 package org.finos.waltz.web.endpoints;
 
 import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.HttpHeader;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.ResponseEncoding;
 import org.finos.waltz.web.WebUtilities;
 import spark.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
 
 
@@ -94,18 +99,44 @@ public class EndpointUtilities {
 
     // -- helpers ---
 
-    private static <T> Route wrapListHandler(ListRoute<T> handler) {
+    static <T> Route wrapListHandler(ListRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            return encode(request, response, handler.apply(request, response));
         };
     }
 
-    private static <T> Route wrapDatumHandler(DatumRoute<T> handler) {
+    static <T> Route wrapDatumHandler(DatumRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            return encode(request, response, handler.apply(request, response));
         };
     }
 
+
+    /**
+     * Json results are left for the (json) transformer.  If the client asked for
+     * a binary encoding (see {@link ResponseEncoding}) the result is written
+     * directly to the response, in which case the returned (null) body is ignored
+     * as the response has already been committed.
+     */
+    private static Object encode(Request request, Response response, Object result) throws IOException {
+        response.header(HttpHeader.VARY, HttpHeader.ACCEPT);
+
+        ResponseEncoding encoding = ResponseEncoding.fromAcceptHeader(request.headers(HttpHeader.ACCEPT));
+        if (!encoding.isBinary()) {
+            return result;
+        }
+
+        byte[] bytes = encoding.encode(result);
+
+        HttpServletResponse httpResponse = response.raw();
+        httpResponse.setContentType(encoding.contentType());
+        httpResponse.setContentLength(bytes.length);
+        httpResponse.getOutputStream().write(bytes);
+        httpResponse.getOutputStream().flush();
+        httpResponse.getOutputStream().close();
+        return null;
+    }
+
 }
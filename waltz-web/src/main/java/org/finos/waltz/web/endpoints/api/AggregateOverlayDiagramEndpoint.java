@@ -33,6 +33,7 @@ import org.finos.waltz.model.aggregate_overlay_diagram.overlay.BackingEntityWidg
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.ComplexityWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.CostWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.CountWidgetData;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.OverlayDiagramWidgetBatchData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.TargetCostWidgetData;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AggregatedEntitiesWidgetParameters;
 import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.AppChangeWidgetParameters;
@@ -56,6 +57,7 @@ import org.finos.waltz.web.json.OverlayDiagramAssessmentWidgetInfo;
 import org.finos.waltz.web.json.OverlayDiagramAttestationWidgetInfo;
 import org.finos.waltz.web.json.OverlayDiagramRatingCostWidgetInfo;
 import org.finos.waltz.web.json.OverlayDiagramTargetAppCostWidgetInfo;
+import org.finos.waltz.web.json.OverlayDiagramWidgetBatchInfo;
 import org.finos.waltz.web.json.OverlayDiagramWidgetInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -110,6 +112,7 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         String getBackingEntityWidgetDataPath = mkPath(BASE_URL, "diagram-id", ":id", "backing-entity-widget");
         String getComplexityWidgetDataPath = mkPath(BASE_URL, "diagram-id", ":id", "complexity-widget");
         String getApplicationChangeWidgetDataPath = mkPath(BASE_URL, "diagram-id", ":id", "app-change-widget");
+        String getWidgetBatchDataPath = mkPath(BASE_URL, "diagram-id", ":id", "widgets");
         String findPresetsForDiagramPath = mkPath(BASE_URL, "diagram-id", ":id", "presets");
         String createPresetPath = mkPath(BASE_URL, "create-preset");
         String savePath = mkPath(BASE_URL, "save");
@@ -243,6 +246,18 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         };
 
 
+        DatumRoute<OverlayDiagramWidgetBatchData> getWidgetBatchDataRoute = (request, response) -> {
+            OverlayDiagramWidgetBatchInfo widgetParameters = readBody(request, OverlayDiagramWidgetBatchInfo.class, null);
+
+            return aggregateOverlayDiagramService
+                    .getWidgetBatchData(
+                            getId(request),
+                            widgetParameters.assessmentBasedSelectionFilters(),
+                            widgetParameters.idSelectionOptions(),
+                            widgetParameters.overlayParameters());
+        };
+
+
         DatumRoute<BackingEntityWidgetData> getBackingEntityWidgetDataRoute = (request, response) -> {
             long diagramId = getId(request);
             return aggregateOverlayDiagramService.getBackingEntityWidgetData(diagramId);
@@ -288,6 +303,7 @@ public class AggregateOverlayDiagramEndpoint implements Endpoint {
         postForDatum(getAggregatedEntitiesWidgetDataPath, getAggregatedEntitiesWidgetDataRoute);
         postForDatum(getComplexityWidgetDataPath, getComplexityWidgetDataRoute);
         postForDatum(getApplicationChangeWidgetDataPath, getApplicationChangeWidgetDataRoute);
+        postForDatum(getWidgetBatchDataPath, getWidgetBatchDataRoute);
         postForDatum(createPresetPath, createPresetRoute);
         postForDatum(savePath, saveRoute);
         postForDatum(updateStatusPath, updateStatusRoute);
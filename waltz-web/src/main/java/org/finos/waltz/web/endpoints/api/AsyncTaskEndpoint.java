@@ -0,0 +1,125 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.async_task.AsyncTask;
+import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.async_task.AsyncTaskService;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.web.NotAuthorizedException;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import spark.Request;
+import spark.Response;
+
+import java.util.List;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.getId;
+import static org.finos.waltz.web.WebUtilities.getLimit;
+import static org.finos.waltz.web.WebUtilities.getUsername;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.WebUtilities.requireRole;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
+
+/**
+ * Poll and cancel tasks submitted via the various <code>.../async</code> endpoints.
+ * Users can see their own tasks, admins can see all tasks.
+ */
+@Service
+public class AsyncTaskEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "async-task");
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final AsyncTaskService asyncTaskService;
+    private final UserRoleService userRoleService;
+
+
+    @Autowired
+    public AsyncTaskEndpoint(AsyncTaskService asyncTaskService,
+                             UserRoleService userRoleService) {
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
+        this.asyncTaskService = asyncTaskService;
+        this.userRoleService = userRoleService;
+    }
+
+
+    @Override
+    public void register() {
+        String getByIdPath = mkPath(BASE_URL, "id", ":id");
+        String cancelPath = mkPath(BASE_URL, "id", ":id", "cancel");
+        String findMinePath = mkPath(BASE_URL, "mine");
+        String findRecentPath = mkPath(BASE_URL, "recent");
+
+        getForDatum(getByIdPath, this::getByIdRoute);
+        postForDatum(cancelPath, this::cancelRoute);
+        getForList(findMinePath, this::findMineRoute);
+        getForList(findRecentPath, this::findRecentRoute);
+    }
+
+
+    private AsyncTask getByIdRoute(Request request, Response response) {
+        AsyncTask task = asyncTaskService.getById(getId(request));
+        if (task != null) {
+            ensureUserCanAccess(request, task);
+        }
+        return task;
+    }
+
+
+    private AsyncTask cancelRoute(Request request, Response response) {
+        long id = getId(request);
+        AsyncTask task = asyncTaskService.getById(id);
+        if (task == null) {
+            return null;
+        }
+
+        ensureUserCanAccess(request, task);
+        return asyncTaskService.cancel(id, getUsername(request));
+    }
+
+
+    private List<AsyncTask> findMineRoute(Request request, Response response) {
+        return asyncTaskService.findBySubmitter(
+                getUsername(request),
+                getLimit(request).orElse(DEFAULT_LIMIT));
+    }
+
+
+    private List<AsyncTask> findRecentRoute(Request request, Response response) {
+        requireRole(userRoleService, request, SystemRole.ADMIN);
+        return asyncTaskService.findRecent(getLimit(request).orElse(DEFAULT_LIMIT));
+    }
+
+
+    private void ensureUserCanAccess(Request request, AsyncTask task) {
+        String username = getUsername(request);
+        if (!task.submittedBy().equalsIgnoreCase(username)
+                && !userRoleService.hasRole(username, SystemRole.ADMIN)) {
+            throw new NotAuthorizedException();
+        }
+    }
+
+}
@@ -20,9 +20,11 @@ package org.finos.waltz.web.endpoints.api;
 
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.async_task.AsyncTask;
 import org.finos.waltz.model.bulk_upload.BulkUploadCommand;
 import org.finos.waltz.model.bulk_upload.ResolveBulkUploadRequestParameters;
 import org.finos.waltz.model.bulk_upload.ResolveRowResponse;
+import org.finos.waltz.service.async_task.AsyncTaskService;
 import org.finos.waltz.service.bulk_upload.BulkUploadService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.WebUtilities;
@@ -37,6 +39,7 @@ import spark.Response;
 import java.io.IOException;
 import java.util.List;
 
+import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.web.WebUtilities.*;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
@@ -50,16 +53,20 @@ public class BulkUploadEndpoint implements Endpoint {
 
     private final BulkUploadService service;
     private final UserRoleService userRoleService;
+    private final AsyncTaskService asyncTaskService;
 
 
     @Autowired
     public BulkUploadEndpoint(BulkUploadService service,
-                              UserRoleService userRoleService) {
+                              UserRoleService userRoleService,
+                              AsyncTaskService asyncTaskService) {
         checkNotNull(service, "service must not be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
 
         this.service = service;
         this.userRoleService = userRoleService;
+        this.asyncTaskService = asyncTaskService;
     }
 
 
@@ -69,6 +76,7 @@ public class BulkUploadEndpoint implements Endpoint {
         // create
         postForList(mkPath(BASE_URL, "resolve"), this::resolveRoute);
         postForDatum(mkPath(BASE_URL), this::uploadRoute);
+        postForDatum(mkPath(BASE_URL, "async"), this::uploadAsyncRoute);
 
     }
 
@@ -92,6 +100,20 @@ public class BulkUploadEndpoint implements Endpoint {
     }
 
 
+    private AsyncTask uploadAsyncRoute(Request request, Response response) throws IOException {
+        BulkUploadCommand uploadCommand = readBody(request, BulkUploadCommand.class);
+        String username = getUsername(request);
+        ensureUserHasAdminRights(request, uploadCommand.rowSubjectKind(), uploadCommand.targetDomain().kind());
+        LOG.info("User: {} requesting async bulk upload: {}", username, uploadCommand);
+
+        return asyncTaskService.submit(
+                "BULK_UPLOAD",
+                format("Bulk upload of %s to %s", uploadCommand.rowSubjectKind(), uploadCommand.targetDomain()),
+                username,
+                ctx -> service.upload(uploadCommand, username));
+    }
+
+
     private void ensureUserHasAdminRights(Request request,
                                           EntityKind subjectKind,
                                           EntityKind targetKind) {
@@ -75,9 +75,17 @@ public class ChangeLogEndpoint implements Endpoint {
                     Optional<Integer> limitParam = getLimit(request);
 
                     if (ref.kind() == EntityKind.PERSON) {
-                        return service.findByPersonReference(ref, dateParam, limitParam);
+                        return findAllOrPage(
+                                request,
+                                response,
+                                () -> service.findByPersonReference(ref, dateParam, limitParam),
+                                pageRequest -> service.findByPersonReference(ref, dateParam, pageRequest));
                     } else {
-                        return service.findByParentReference(ref, dateParam, limitParam);
+                        return findAllOrPage(
+                                request,
+                                response,
+                                () -> service.findByParentReference(ref, dateParam, limitParam),
+                                pageRequest -> service.findByParentReference(ref, dateParam, pageRequest));
                     }
                 });
 
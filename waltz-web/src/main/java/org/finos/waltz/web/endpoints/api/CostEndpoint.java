@@ -25,6 +25,7 @@ import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.cost.CostRollup;
 import org.finos.waltz.model.cost.EntityCost;
 import org.finos.waltz.model.cost.EntityCostsSummary;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,6 +55,7 @@ public class CostEndpoint implements Endpoint {
         String findByEntityReferencePath = mkPath(BASE_URL, "entity", "kind", ":kind", "id", ":id");
         String findBySelectorPath = mkPath(BASE_URL, "target-kind", ":kind", "year", ":year");
         String summariseByCostKindAndSelectorPath = mkPath(BASE_URL, "cost-kind", ":id", "target-kind", ":kind", "summary", "year", ":year");
+        String findRollupsPath = mkPath(BASE_URL, "cost-kind", ":id", "rollup", ":kind", "year", ":year");
 
         ListRoute<EntityCost> findByEntityReferenceRoute = (request, response) -> {
             EntityReference ref = getEntityReference(request);
@@ -75,9 +77,17 @@ public class CostEndpoint implements Endpoint {
             return costService.findBySelector(idSelectionOptions, targetKind, getInt(request, "year"));
         };
 
+        ListRoute<CostRollup> findRollupsRoute = (request, response) -> {
+            long costKindId = getId(request);
+            int year = getInt(request, "year");
+            EntityKind rollupKind = getKind(request);
+            return costService.findRollups(costKindId, year, rollupKind, readIdsFromBody(request));
+        };
+
         getForList(findByEntityReferencePath, findByEntityReferenceRoute);
         postForDatum(summariseByCostKindAndSelectorPath, summariseByCostKindAndSelectorRoute);
         postForList(findBySelectorPath, findBySelectorRoute);
+        postForList(findRollupsPath, findRollupsRoute);
     }
 
 }
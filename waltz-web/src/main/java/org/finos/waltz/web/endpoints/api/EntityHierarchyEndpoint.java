@@ -18,12 +18,14 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.service.async_task.AsyncTaskService;
 import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.ListRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.async_task.AsyncTask;
 import org.finos.waltz.model.tally.Tally;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,15 +48,20 @@ public class EntityHierarchyEndpoint implements Endpoint {
 
     private final EntityHierarchyService entityHierarchyService;
     private final UserRoleService userRoleService;
+    private final AsyncTaskService asyncTaskService;
 
 
     @Autowired
-    public EntityHierarchyEndpoint(EntityHierarchyService entityHierarchyService, UserRoleService userRoleService) {
+    public EntityHierarchyEndpoint(EntityHierarchyService entityHierarchyService,
+                                   UserRoleService userRoleService,
+                                   AsyncTaskService asyncTaskService) {
         checkNotNull(entityHierarchyService, "entityHierarchyService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
 
         this.entityHierarchyService = entityHierarchyService;
         this.userRoleService = userRoleService;
+        this.asyncTaskService = asyncTaskService;
     }
 
 
@@ -64,6 +71,7 @@ public class EntityHierarchyEndpoint implements Endpoint {
         String findRootTalliesPath = mkPath(BASE, "root-tallies");
         String findRootsPath = mkPath(BASE, "roots", ":kind");
         String buildByKindPath = mkPath(BASE, "build", ":kind");
+        String buildByKindAsyncPath = mkPath(BASE, "build", ":kind", "async");
 
         ListRoute<Tally<String>> findTalliesRoute = (request, response) -> entityHierarchyService.tallyByKind();
         ListRoute<Tally<String>> findRootTalliesRoute = (request, response) -> entityHierarchyService.getRootTallies();
@@ -73,6 +81,7 @@ public class EntityHierarchyEndpoint implements Endpoint {
         getForList(findRootTalliesPath, findRootTalliesRoute);
         getForList(findRootsPath, findRootsRoute);
         postForDatum(buildByKindPath, this::buildByKindRoute);
+        postForDatum(buildByKindAsyncPath, this::buildByKindAsyncRoute);
     }
 
 
@@ -83,4 +92,16 @@ public class EntityHierarchyEndpoint implements Endpoint {
         return entityHierarchyService.buildFor(kind);
     }
 
+
+    private AsyncTask buildByKindAsyncRoute(Request request, Response response) {
+        requireRole(userRoleService, request, ADMIN);
+        EntityKind kind = getKind(request);
+        LOG.info("Queueing build of entity hierarchy for kind: {}", kind);
+        return asyncTaskService.submit(
+                "ENTITY_HIERARCHY_BUILD",
+                "Build entity hierarchy for: " + kind,
+                getUsername(request),
+                ctx -> entityHierarchyService.buildFor(kind));
+    }
+
 }
@@ -19,7 +19,9 @@
 package org.finos.waltz.web.endpoints.api;
 
 
+import org.finos.waltz.model.async_task.AsyncTask;
 import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleView;
+import org.finos.waltz.service.async_task.AsyncTaskService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleViewService;
 import org.finos.waltz.service.user.UserRoleService;
@@ -62,19 +64,23 @@ public class FlowClassificationRuleEndpoint implements Endpoint {
     private final FlowClassificationRuleService flowClassificationRuleService;
     private final UserRoleService userRoleService;
     private final FlowClassificationRuleViewService flowClassificationRuleViewService;
+    private final AsyncTaskService asyncTaskService;
 
 
     @Autowired
     public FlowClassificationRuleEndpoint(FlowClassificationRuleService flowClassificationRuleService,
                                           UserRoleService userRoleService,
-                                          FlowClassificationRuleViewService flowClassificationRuleViewService) {
+                                          FlowClassificationRuleViewService flowClassificationRuleViewService,
+                                          AsyncTaskService asyncTaskService) {
         checkNotNull(flowClassificationRuleService, "flowClassificationRuleService must not be null");
         checkNotNull(flowClassificationRuleViewService, "flowClassificationRuleViewService must not be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
 
         this.flowClassificationRuleService = flowClassificationRuleService;
         this.userRoleService = userRoleService;
         this.flowClassificationRuleViewService = flowClassificationRuleViewService;
+        this.asyncTaskService = asyncTaskService;
     }
 
 
@@ -84,6 +90,7 @@ public class FlowClassificationRuleEndpoint implements Endpoint {
         // -- PATHS
 
         String recalculateFlowRatingsPath = mkPath(BASE_URL, "recalculate-flow-ratings");
+        String recalculateFlowRatingsAsyncPath = mkPath(BASE_URL, "recalculate-flow-ratings", "async");
         String findDiscouragedSourcesPath = mkPath(BASE_URL, "discouraged");
         String findFlowClassificationRulesBySelectorPath = mkPath(BASE_URL, "selector");
         String calculateConsumersForDataTypeIdSelectorPath = mkPath(BASE_URL, "data-type", "consumers");
@@ -127,6 +134,7 @@ public class FlowClassificationRuleEndpoint implements Endpoint {
                 -> flowClassificationRuleViewService.getViewForSelector(readIdSelectionOptionsFromBody(request));
 
         EndpointUtilities.getForDatum(recalculateFlowRatingsPath, this::recalculateFlowRatingsRoute);
+        EndpointUtilities.postForDatum(recalculateFlowRatingsAsyncPath, this::recalculateFlowRatingsAsyncRoute);
         EndpointUtilities.getForDatum(cleanupOrphansPath, this::cleanupOrphansRoute);
         EndpointUtilities.getForDatum(getByIdPath, getByIdRoute);
         EndpointUtilities.postForList(calculateConsumersForDataTypeIdSelectorPath, this::calculateConsumersForDataTypeIdSelectorRoute);
@@ -188,6 +196,20 @@ public class FlowClassificationRuleEndpoint implements Endpoint {
     }
 
 
+    private AsyncTask recalculateFlowRatingsAsyncRoute(Request request, Response response) {
+        WebUtilities.requireRole(userRoleService, request, SystemRole.ADMIN);
+
+        String username = WebUtilities.getUsername(request);
+        LOG.info("Queueing recalculation of all flow ratings (requested by: {})", username);
+
+        return asyncTaskService.submit(
+                "FLOW_RATINGS_RECALCULATE",
+                "Recalculate all flow ratings",
+                username,
+                ctx -> flowClassificationRuleService.fastRecalculateAllFlowRatings());
+    }
+
+
     private List<Entry<EntityReference, Collection<EntityReference>>> calculateConsumersForDataTypeIdSelectorRoute(
             Request request,
             Response response) throws IOException {
@@ -111,8 +111,14 @@ public class LogicalFlowEndpoint implements Endpoint {
         ListRoute<LogicalFlow> getByEntityRef = (request, response)
                 -> logicalFlowService.findByEntityReference(getEntityReference(request));
 
-        ListRoute<LogicalFlow> findBySelectorRoute = (request, response)
-                -> logicalFlowService.findBySelector(readIdSelectionOptionsFromBody(request));
+        ListRoute<LogicalFlow> findBySelectorRoute = (request, response) -> {
+            IdSelectionOptions options = readIdSelectionOptionsFromBody(request);
+            return findAllOrPage(
+                    request,
+                    response,
+                    () -> logicalFlowService.findBySelector(options),
+                    pageRequest -> logicalFlowService.findBySelector(options, pageRequest));
+        };
 
         ListRoute<LogicalFlow> findByIdsRoute = (request, response)
                 -> logicalFlowService.findActiveByFlowIds(readIdsFromBody(request));
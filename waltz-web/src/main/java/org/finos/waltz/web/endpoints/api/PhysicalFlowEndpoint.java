@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.SetAttributeCommand;
 import org.finos.waltz.model.physical_flow.*;
@@ -191,9 +192,14 @@ public class PhysicalFlowEndpoint implements Endpoint {
                 (request, response) -> physicalFlowService
                         .findByExternalId(request.splat()[0]);
 
-        ListRoute<PhysicalFlow> findBySelectorRoute =
-                (request, response) -> physicalFlowService
-                        .findBySelector(WebUtilities.readIdSelectionOptionsFromBody(request));
+        ListRoute<PhysicalFlow> findBySelectorRoute = (request, response) -> {
+            IdSelectionOptions options = WebUtilities.readIdSelectionOptionsFromBody(request);
+            return WebUtilities.findAllOrPage(
+                    request,
+                    response,
+                    () -> physicalFlowService.findBySelector(options),
+                    pageRequest -> physicalFlowService.findBySelector(options, pageRequest));
+        };
 
         ListRoute<PhysicalFlowInfo> findUnderlyingPhysicalFlowsRoute =
                 (request, response) -> physicalFlowService
@@ -20,8 +20,14 @@ package org.finos.waltz.web.endpoints.api;
 
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
+import org.finos.waltz.model.async_task.AsyncTask;
 import org.finos.waltz.model.report_grid.*;
+import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.async_task.AsyncTaskService;
+import org.finos.waltz.service.report_grid.ReportGridFilterViewService;
 import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.service.report_grid.ReportGridSnapshotService;
+import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -31,6 +37,7 @@ import spark.Response;
 import java.io.IOException;
 import java.util.Set;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.web.WebUtilities.*;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.*;
 
@@ -40,11 +47,29 @@ public class ReportGridEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "report-grid");
 
     private final ReportGridService reportGridService;
+    private final ReportGridFilterViewService reportGridFilterViewService;
+    private final ReportGridSnapshotService reportGridSnapshotService;
+    private final AsyncTaskService asyncTaskService;
+    private final UserRoleService userRoleService;
 
 
     @Autowired
-    public ReportGridEndpoint(ReportGridService reportGridService) {
+    public ReportGridEndpoint(ReportGridService reportGridService,
+                              ReportGridFilterViewService reportGridFilterViewService,
+                              ReportGridSnapshotService reportGridSnapshotService,
+                              AsyncTaskService asyncTaskService,
+                              UserRoleService userRoleService) {
+        checkNotNull(reportGridService, "reportGridService cannot be null");
+        checkNotNull(reportGridFilterViewService, "reportGridFilterViewService cannot be null");
+        checkNotNull(reportGridSnapshotService, "reportGridSnapshotService cannot be null");
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
         this.reportGridService = reportGridService;
+        this.reportGridFilterViewService = reportGridFilterViewService;
+        this.reportGridSnapshotService = reportGridSnapshotService;
+        this.asyncTaskService = asyncTaskService;
+        this.userRoleService = userRoleService;
     }
 
 
@@ -62,6 +87,13 @@ public class ReportGridEndpoint implements Endpoint {
         String getDefinitionByIdPath = mkPath(BASE_URL, "definition", "id", ":id");
         String updateColumnDefsPath = mkPath(BASE_URL, "id", ":id", "column-definitions", "update");
         String findAdditionalColumnOptionsForKindPath = mkPath(BASE_URL, "additional-column-options", "kind", ":kind");
+        String recalculateAppGroupAsyncPath = mkPath(BASE_URL, "filter-view", "recalculate", "app-group-id", ":id", "async");
+        String findSnapshotConfigsForGridPath = mkPath(BASE_URL, "id", ":id", "snapshot-config");
+        String createSnapshotConfigPath = mkPath(BASE_URL, "id", ":id", "snapshot-config");
+        String removeSnapshotConfigPath = mkPath(BASE_URL, "snapshot-config", "id", ":id");
+        String findSnapshotInfosForConfigPath = mkPath(BASE_URL, "snapshot-config", "id", ":id", "snapshots");
+        String getLatestSnapshotPath = mkPath(BASE_URL, "snapshot", "latest", "id", ":id");
+        String getSnapshotByIdPath = mkPath(BASE_URL, "snapshot", "id", ":id");
 
         getForDatum(findAllDefinitionsPath, (req, resp) -> reportGridService.findAllDefinitions());
         getForList(findDefinitionsForUserPath, (req, resp) -> reportGridService.findGridDefinitionsForUser(getUsername(req)));
@@ -75,6 +107,64 @@ public class ReportGridEndpoint implements Endpoint {
         postForDatum(updatePath, this::updateRoute);
         postForDatum(clonePath, this::cloneRoute);
         deleteForDatum(removalPath, this::removalRoute);
+        postForDatum(recalculateAppGroupAsyncPath, this::recalculateAppGroupAsyncRoute);
+        getForList(findSnapshotConfigsForGridPath, (req, resp) -> reportGridSnapshotService.findConfigsForGrid(getId(req)));
+        postForDatum(createSnapshotConfigPath, this::createSnapshotConfigRoute);
+        deleteForDatum(removeSnapshotConfigPath, this::removeSnapshotConfigRoute);
+        getForList(findSnapshotInfosForConfigPath, (req, resp) -> reportGridSnapshotService.findSnapshotInfosForConfig(getId(req)));
+        postForDatum(getLatestSnapshotPath, this::getLatestSnapshotRoute);
+        getForDatum(getSnapshotByIdPath, this::getSnapshotByIdRoute);
+    }
+
+
+    private AsyncTask recalculateAppGroupAsyncRoute(Request request,
+                                                    Response response) {
+        requireRole(userRoleService, request, SystemRole.ADMIN);
+        long appGroupId = getId(request);
+
+        return asyncTaskService.submit(
+                "REPORT_GRID_APP_GROUP_RECALCULATE",
+                "Recalculate app group from report grid filters: " + appGroupId,
+                getUsername(request),
+                ctx -> reportGridFilterViewService.recalculateAppGroupFromNoteText(appGroupId, "admin"));
+    }
+
+
+    private ReportGridSnapshotConfig createSnapshotConfigRoute(Request request,
+                                                               Response response) throws IOException, InsufficientPrivelegeException {
+        return reportGridSnapshotService.createConfig(
+                getId(request),
+                readIdSelectionOptionsFromBody(request),
+                getUsername(request));
+    }
+
+
+    private boolean removeSnapshotConfigRoute(Request request,
+                                              Response response) throws InsufficientPrivelegeException {
+        return reportGridSnapshotService.removeConfig(
+                getId(request),
+                getUsername(request));
+    }
+
+
+    private ReportGridSnapshot getLatestSnapshotRoute(Request request,
+                                                      Response response) throws IOException {
+        return reportGridSnapshotService
+                .findLatestSnapshot(
+                        getId(request),
+                        readIdSelectionOptionsFromBody(request),
+                        getUsername(request))
+                .orElseThrow(() -> new NotFoundException("REPORT_GRID_SNAPSHOT_NOT_FOUND", "No snapshot found for grid and selection"));
+    }
+
+
+    private ReportGridSnapshot getSnapshotByIdRoute(Request request,
+                                                    Response response) {
+        return reportGridSnapshotService
+                .findSnapshotById(
+                        getId(request),
+                        getUsername(request))
+                .orElseThrow(() -> new NotFoundException("REPORT_GRID_SNAPSHOT_NOT_FOUND", "Snapshot not found"));
     }
 
 
@@ -0,0 +1,139 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * A static resource as served to clients, held in memory.  Instances are immutable
+ * and shared between requests.
+ */
+public class StaticResource {
+
+    private final String path;
+    private final String mimeType;
+    private final byte[] content;
+    private final String etag;
+    private final byte[] gzippedContent;
+    private final String gzippedEtag;
+
+
+    /**
+     * @param path  resolved classpath location of the resource
+     * @param mimeType  content type to serve
+     * @param content  the (possibly rewritten) content
+     * @param digest  digest of the content, used to form the strong etags
+     * @param gzippedContent  gzip encoded content, or null if not worth compressing
+     */
+    StaticResource(String path,
+                   String mimeType,
+                   byte[] content,
+                   String digest,
+                   byte[] gzippedContent) {
+        checkNotNull(path, "path cannot be null");
+        checkNotNull(mimeType, "mimeType cannot be null");
+        checkNotNull(content, "content cannot be null");
+        checkNotNull(digest, "digest cannot be null");
+
+        this.path = path;
+        this.mimeType = mimeType;
+        this.content = content;
+        this.etag = "\"" + digest + "\"";
+        this.gzippedContent = gzippedContent;
+        this.gzippedEtag = "\"" + digest + "-gz\"";
+    }
+
+
+    public String path() {
+        return path;
+    }
+
+
+    public String mimeType() {
+        return mimeType;
+    }
+
+
+    /**
+     * Callers must not modify the returned array.
+     */
+    public byte[] content() {
+        return content;
+    }
+
+
+    public String etag() {
+        return etag;
+    }
+
+
+    /**
+     * Callers must not modify the returned array.
+     */
+    public Optional<byte[]> gzippedContent() {
+        return Optional.ofNullable(gzippedContent);
+    }
+
+
+    public String gzippedEtag() {
+        return gzippedEtag;
+    }
+
+
+    /**
+     * html is never given a max-age as it references the 'cache-busted' js files and other
+     * resources.  If the html was also cached then it would be difficult to detect client
+     * code updates.
+     */
+    public boolean isLongLived() {
+        return ! path.endsWith(".html");
+    }
+
+
+    /**
+     * Weak comparison (as required for <code>If-None-Match</code>) of the header value against
+     * the etags of either encoding, they represent the same resource.
+     *
+     * @param ifNoneMatch  value of the <code>If-None-Match</code> request header, may be null
+     * @return true if the client already has the current content
+     */
+    public boolean isMatchedBy(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals(gzippedEtag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
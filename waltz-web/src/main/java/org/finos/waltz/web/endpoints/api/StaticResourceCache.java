@@ -0,0 +1,249 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.URL;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DigestUtilities.digest;
+import static org.finos.waltz.common.IOUtilities.copyStream;
+import static org.finos.waltz.common.IOUtilities.readLines;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.StringUtilities.lower;
+import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.web.WebUtilities.getMimeType;
+
+/**
+ * Loads static resources (from <code>static/</code> on the classpath) the first time they
+ * are requested and then serves them from memory.  Each entry holds the content, a gzip
+ * variant (for compressible types) and strong etags.
+ *
+ * Static resources only change on redeployment so entries never expire.  The mapping from
+ * request path to resource is also remembered, up to a limit, as unknown paths all resolve
+ * to <code>index.html</code> (so the client side router can deal with them).
+ */
+public class StaticResourceCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StaticResourceCache.class);
+
+    private static final String INDEX_PATH = "static/index.html";
+    private static final int MIN_GZIP_SIZE = 1024;
+    private static final int MAX_RESOLVED_PATHS = 10_000;
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = asSet(".js", ".css", ".map", ".svg", ".json", ".ttf");
+
+    private final ClassLoader classLoader;
+
+    private final ConcurrentMap<String, String> resolvedPathsByRequestPath = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<StaticResource>> resourcesByKey = new ConcurrentHashMap<>();
+
+
+    public StaticResourceCache(ClassLoader classLoader) {
+        checkNotNull(classLoader, "classLoader cannot be null");
+        this.classLoader = classLoader;
+    }
+
+
+    /**
+     * @param contextPath  context the application is deployed under (may be empty), index.html
+     *                     has its base tag amended to match
+     * @param requestPath  path being requested, relative to the context
+     * @return the resource to serve, or empty if nothing could be resolved
+     */
+    public Optional<StaticResource> get(String contextPath, String requestPath) {
+        String resolvedPath = resolvePath(requestPath);
+
+        if (resolvedPath == null) {
+            return Optional.empty();
+        }
+
+        boolean isIndex = resolvedPath.endsWith("index.html") && notEmpty(contextPath);
+        String key = isIndex
+                ? contextPath + "|" + resolvedPath
+                : resolvedPath;
+
+        return resourcesByKey.computeIfAbsent(
+                key,
+                k -> load(resolvedPath, isIndex ? contextPath : null));
+    }
+
+
+    // --- helpers
+
+    private String resolvePath(String requestPath) {
+        String cached = resolvedPathsByRequestPath.get(requestPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        String resolved = resolveFromClasspath(requestPath);
+
+        if (resolved != null && resolvedPathsByRequestPath.size() < MAX_RESOLVED_PATHS) {
+            resolvedPathsByRequestPath.put(requestPath, resolved);
+        }
+
+        return resolved;
+    }
+
+
+    private String resolveFromClasspath(String requestPath) {
+        String path = requestPath.replaceFirst("/", "");
+        String resourcePath = path.length() > 0 ? ("static/" + path) : INDEX_PATH;
+
+        URL resource = classLoader.getResource(resourcePath);
+
+        if (resource == null) {
+            // 404: return index.html
+            resource = classLoader.getResource(INDEX_PATH);
+            resourcePath = INDEX_PATH;
+        }
+
+        if (resource == null) {
+            return null;
+        }
+
+        boolean isDirectory = resource
+                .getPath()
+                .endsWith("/");
+
+        return isDirectory
+                ? resourcePath + "/index.html"
+                : resourcePath;
+    }
+
+
+    private Optional<StaticResource> load(String resolvedPath, String contextPath) {
+        try (InputStream stream = classLoader.getResourceAsStream(resolvedPath)) {
+            if (stream == null) {
+                return Optional.empty();
+            }
+
+            byte[] content = contextPath == null
+                    ? readBytes(stream)
+                    : modifyIndexBaseTag(contextPath, stream);
+
+            String mimeType = getMimeType(resolvedPath);
+
+            LOG.info("Loaded static resource: {} ({} bytes)", resolvedPath, content.length);
+
+            return Optional.of(new StaticResource(
+                    resolvedPath,
+                    mimeType,
+                    content,
+                    digest(content),
+                    gzipIfWorthwhile(resolvedPath, mimeType, content)));
+        } catch (Exception e) {
+            // not remembered, so the next request will retry
+            throw new IllegalStateException("Could not load static resource: " + resolvedPath, e);
+        }
+    }
+
+
+    /**
+     * index.html need to have a <base href="/[site_context]/" /> tag in the head section to ensure
+     * html5 mode works correctly in AngularJS.  This method will ensure the existing <base href="/" /> tag
+     * is replace with one that includes the correct site context as deployed.
+     */
+    private static byte[] modifyIndexBaseTag(String contextPath,
+                                             InputStream resourceStream) throws IOException {
+        List<String> lines = readLines(resourceStream);
+
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lower(lines.get(i));
+
+            if (line.contains("<base href=")) {
+                LOG.info("Found <base> tag: " + line + ", adding context path: " + contextPath);
+                line = line.replaceFirst(
+                        "<base href=(['\"])/(['\"])\\s*/>",
+                        format(
+                            "\t<base href=\"%s/\" />",
+                            contextPath));
+                LOG.info("Updated <base> tag: " + line);
+                lines.set(i, line);
+
+                // done, exit loop
+                break;
+            }
+
+            if (line.contains("</head>") ) {
+                // don't need to continue if have reached here and no base tag found
+                break;
+            }
+        }
+
+        try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            OutputStreamWriter writer = new OutputStreamWriter(outputStream)) {
+
+            for(String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+
+            writer.flush();
+            return outputStream.toByteArray();
+        }
+    }
+
+
+    private static byte[] gzipIfWorthwhile(String path, String mimeType, byte[] content) throws IOException {
+        if (content.length < MIN_GZIP_SIZE || ! isCompressible(path, mimeType)) {
+            return null;
+        }
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped)) {
+            gzipStream.write(content);
+        }
+
+        return gzipped.size() < content.length
+                ? gzipped.toByteArray()
+                : null;
+    }
+
+
+    private static boolean isCompressible(String path, String mimeType) {
+        // older jdks do not know the mime type of some of these, so check the extension too
+        return mimeType.startsWith("text/")
+                || mimeType.contains("javascript")
+                || mimeType.contains("json")
+                || mimeType.contains("xml")
+                || COMPRESSIBLE_EXTENSIONS.stream().anyMatch(path::endsWith);
+    }
+
+
+    private static byte[] readBytes(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copyStream(stream, out);
+        return out.toByteArray();
+    }
+
+}
@@ -26,26 +26,27 @@ import spark.Request;
 import spark.Response;
 import spark.Spark;
 
-import java.io.*;
-import java.net.URL;
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
-import static org.finos.waltz.web.WebUtilities.getMimeType;
-import static java.lang.String.format;
-import static org.finos.waltz.common.IOUtilities.copyStream;
-import static org.finos.waltz.common.IOUtilities.readLines;
-import static org.finos.waltz.common.StringUtilities.lower;
-import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.common.StringUtilities.mkSafe;
 
+/**
+ * Serves the static (client) resources.  Resources are held in memory by a
+ * {@link StaticResourceCache}, requests which carry a matching <code>If-None-Match</code>
+ * header are answered with a 304 and compressible resources are sent pre-gzipped to
+ * clients which accept it.
+ */
 public class StaticResourcesEndpoint implements Endpoint {
 
     private static final Logger LOG = LoggerFactory.getLogger(StaticResourcesEndpoint.class);
     private static final String CACHE_MAX_AGE_VALUE = "max-age=" + TimeUnit.DAYS.toSeconds(30);
 
 
-    private final ClassLoader classLoader = StaticResourcesEndpoint.class
-            .getClassLoader();
+    private final StaticResourceCache resourceCache = new StaticResourceCache(StaticResourcesEndpoint.class
+            .getClassLoader());
 
 
     @Override
@@ -54,46 +55,67 @@ public class StaticResourcesEndpoint implements Endpoint {
 
         Spark.get("/*", (request, response) -> {
 
-            String resolvedPath = resolvePath(request);
+            try {
+                Optional<StaticResource> resource = resourceCache.get(
+                        mkSafe(request.contextPath()),
+                        request.pathInfo());
 
-            if (resolvedPath == null) {
-                return null;
-            }
-
-            try (
-                InputStream resourceAsStream = classLoader.getResourceAsStream(resolvedPath)
-            ) {
-                if (resourceAsStream == null) {
+                if (! resource.isPresent()) {
                     return null;
                 } else {
-                    String message = format(
-                            "Serving %s in response to request for %s",
-                            resolvedPath,
+                    LOG.debug(
+                            "Serving {} in response to request for {}",
+                            resource.get().path(),
                             request.pathInfo());
-                    LOG.info(message);
-
-                    response.type(getMimeType(resolvedPath));
-
-                    addCacheHeadersIfNeeded(response, resolvedPath);
-                    InputStream modifiedStream = modifyIndexBaseTagIfNeeded(request, resolvedPath, resourceAsStream);
-
-                    OutputStream out = response
-                            .raw()
-                            .getOutputStream();
-
-                    copyStream(modifiedStream, out);
-                    out.flush();
 
+                    serve(request, response, resource.get());
                     return new Object(); // indicate we have handled the request
                 }
             } catch (Exception e) {
-                LOG.warn("Encountered error when attempting to serve: "+resolvedPath, e);
+                LOG.warn("Encountered error when attempting to serve: " + request.pathInfo(), e);
                 return null;
             }
         });
     }
 
 
+    private void serve(Request request,
+                       Response response,
+                       StaticResource resource) throws Exception {
+        HttpServletResponse raw = response.raw();
+
+        Optional<byte[]> gzipped = resource.gzippedContent();
+        boolean sendGzipped = gzipped.isPresent() && acceptsGzip(request.headers(HttpHeader.ACCEPT_ENCODING));
+
+        if (gzipped.isPresent()) {
+            raw.setHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+        }
+
+        addCacheHeadersIfNeeded(raw, resource);
+        raw.setHeader(HttpHeader.ETAG, sendGzipped ? resource.gzippedEtag() : resource.etag());
+
+        if (resource.isMatchedBy(request.headers(HttpHeader.IF_NONE_MATCH))) {
+            raw.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            raw.flushBuffer();
+            return;
+        }
+
+        byte[] content = sendGzipped
+                ? gzipped.get()
+                : resource.content();
+
+        raw.setContentType(resource.mimeType());
+        raw.setContentLength(content.length);
+        if (sendGzipped) {
+            raw.setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+        }
+
+        OutputStream out = raw.getOutputStream();
+        out.write(content);
+        out.flush();
+    }
+
+
     /**
      * We want to add a cache-control: max-age value to all resources except html.
      * This is because the html resources have references to 'cache-busted' js files
@@ -101,91 +123,30 @@ public class StaticResourcesEndpoint implements Endpoint {
      * to detect client code updates.
      *
      * @param response - the http response we are servicing
-     * @param resolvedPath - the resolved path to the resource we are serving
+     * @param resource - the resource we are serving
      */
-    private void addCacheHeadersIfNeeded(Response response, String resolvedPath) {
-        if (! resolvedPath.endsWith(".html")) {
-            response.header(HttpHeader.CACHE_CONTROL, CACHE_MAX_AGE_VALUE);
+    private void addCacheHeadersIfNeeded(HttpServletResponse response, StaticResource resource) {
+        if (resource.isLongLived()) {
+            response.setHeader(HttpHeader.CACHE_CONTROL, CACHE_MAX_AGE_VALUE);
         }
     }
 
 
-    /**
-     * index.html need to have a <base href="/[site_context]/" /> tag in the head section to ensure
-     * html5 mode works correctly in AngularJS.  This method will ensure the existing <base href="/" /> tag
-     * is replace with one that includes the correct site context as deployed.
-     * @param request
-     * @param resolvedPath
-     * @param resourceStream
-     * @return the modified input stream with the amended <base> tag or the original unmodified resourceStream
-     * @throws IOException
-     */
-    private InputStream modifyIndexBaseTagIfNeeded(Request request,
-                                                   String resolvedPath,
-                                                   InputStream resourceStream) throws IOException {
-        if(resolvedPath.endsWith("index.html") && notEmpty(request.contextPath())) {
-            List<String> lines = readLines(resourceStream);
-
-            for(int i = 0; i < lines.size(); i++) {
-                String line = lower(lines.get(i));
-
-                if (line.contains("<base href=")) {
-                    LOG.info("Found <base> tag: " + line + ", adding context path: " + request.contextPath());
-                    line = line.replaceFirst(
-                            "<base href=(['\"])/(['\"])\\s*/>",
-                            format(
-                                "\t<base href=\"%s/\" />",
-                                request.contextPath()));
-                    LOG.info("Updated <base> tag: " + line);
-                    lines.set(i, line);
-
-                    // done, exit loop
-                    break;
-                }
-
-                if (line.contains("</head>") ) {
-                    // don't need to continue if have reached here and no base tag found
-                    break;
-                }
-            }
-
-            // copy amended file into a stream
-            try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                 OutputStreamWriter writer = new OutputStreamWriter(outputStream)) {
-
-                for(String line : lines) {
-                    writer.write(line);
-                    writer.write(System.lineSeparator());
-                }
-
-                writer.flush();
-                return new ByteArrayInputStream(outputStream.toByteArray());
-            }
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
         }
-        return resourceStream;
-    }
-
 
-    private String resolvePath(Request request) {
-        final String indexPath = "static/index.html";
-        String path = request.pathInfo().replaceFirst("/", "");
-        String resourcePath = path.length() > 0 ? ("static/" + path) : indexPath;
-
-        URL resource = classLoader.getResource(resourcePath);
-
-        if (resource == null) {
-            // 404: return index.html
-            resource = classLoader.getResource(indexPath);
-            resourcePath = indexPath;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                return ! refused;
+            }
         }
 
-        boolean isDirectory = resource
-                .getPath()
-                .endsWith("/");
-
-        return isDirectory
-                ? resourcePath + "/index.html"
-                : resourcePath;
+        return false;
     }
 
 }
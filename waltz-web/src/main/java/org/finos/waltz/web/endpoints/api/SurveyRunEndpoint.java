@@ -20,8 +20,10 @@ package org.finos.waltz.web.endpoints.api;
 
 import org.finos.waltz.model.DateChangeCommand;
 import org.finos.waltz.model.IdCommandResponse;
+import org.finos.waltz.model.async_task.AsyncTask;
 import org.finos.waltz.model.survey.*;
 import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.async_task.AsyncTaskService;
 import org.finos.waltz.service.survey.SurveyRunService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
@@ -46,15 +48,20 @@ public class SurveyRunEndpoint implements Endpoint {
 
     private final UserRoleService userRoleService;
 
+    private final AsyncTaskService asyncTaskService;
+
 
     @Autowired
     public SurveyRunEndpoint(SurveyRunService surveyRunService,
-                             UserRoleService userRoleService) {
+                             UserRoleService userRoleService,
+                             AsyncTaskService asyncTaskService) {
         checkNotNull(surveyRunService, "surveyRunService must not be null");
         checkNotNull(userRoleService, "userRoleService must not be null");
+        checkNotNull(asyncTaskService, "asyncTaskService must not be null");
 
         this.surveyRunService = surveyRunService;
         this.userRoleService = userRoleService;
+        this.asyncTaskService = asyncTaskService;
     }
 
 
@@ -70,6 +77,7 @@ public class SurveyRunEndpoint implements Endpoint {
         String surveyRunDeletePath = mkPath(BASE_URL, ":id");
         String generateSurveyRunRecipientsPath = mkPath(BASE_URL, "recipients");
         String createSurveyRunInstancesAndRecipientsPath = mkPath(BASE_URL, "create-instance-recipients");
+        String createSurveyRunInstancesAndRecipientsAsyncPath = mkPath(BASE_URL, "create-instance-recipients", "async");
         String createSurveyInstancesPath = mkPath(BASE_URL, ":id", "create-instances");
         String updateSurveyRunStatusPath = mkPath(BASE_URL, ":id", "status");
         String updateSurveyRunDueDatePath = mkPath(BASE_URL, ":id", "due-date");
@@ -165,6 +173,18 @@ public class SurveyRunEndpoint implements Endpoint {
             return surveyRunService.createSurveyInstancesAndRecipients(readBody(request, InstancesAndRecipientsCreateCommand.class));
         };
 
+        DatumRoute<AsyncTask> createSurveyRunInstancesAndRecipientsAsyncRoute = (request, response) -> {
+            ensureUserHasAdminRights(request);
+
+            InstancesAndRecipientsCreateCommand command = readBody(request, InstancesAndRecipientsCreateCommand.class);
+
+            return asyncTaskService.submit(
+                    "SURVEY_RUN_ISSUE",
+                    "Create instances and recipients for survey run: " + command.surveyRunId(),
+                    getUsername(request),
+                    ctx -> surveyRunService.createSurveyInstancesAndRecipients(command));
+        };
+
         DatumRoute<Boolean> createSurveyInstancesRoute = (request, response) -> {
             long runId = getId(request);
 
@@ -186,6 +206,7 @@ public class SurveyRunEndpoint implements Endpoint {
         deleteForDatum(surveyRunDeletePath, surveyRunDeleteRoute);
         putForDatum(surveyRunUpdatePath, surveyRunUpdateRoute);
         postForDatum(createSurveyRunInstancesAndRecipientsPath, createSurveyRunInstancesAndRecipientsRoute);
+        postForDatum(createSurveyRunInstancesAndRecipientsAsyncPath, createSurveyRunInstancesAndRecipientsAsyncRoute);
         postForDatum(createSurveyInstancesPath, createSurveyInstancesRoute);
         putForDatum(updateSurveyRunStatusPath, surveyRunUpdateStatusRoute);
         putForDatum(updateSurveyRunDueDatePath, surveyRunUpdateDueDateRoute);
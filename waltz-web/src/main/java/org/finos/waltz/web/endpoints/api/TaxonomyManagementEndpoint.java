@@ -18,6 +18,7 @@
 
 package org.finos.waltz.web.endpoints.api;
 
+import org.finos.waltz.service.async_task.AsyncTaskService;
 import org.finos.waltz.service.taxonomy_management.TaxonomyChangeService;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangeCommand;
@@ -26,6 +27,8 @@ import org.finos.waltz.web.endpoints.EndpointUtilities;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import static java.lang.String.format;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.web.WebUtilities.mkPath;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.deleteForDatum;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
@@ -38,11 +41,17 @@ public class TaxonomyManagementEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "taxonomy-management");
 
     private final TaxonomyChangeService taxonomyChangeService;
+    private final AsyncTaskService asyncTaskService;
 
 
     @Autowired
-    public TaxonomyManagementEndpoint(TaxonomyChangeService taxonomyChangeService) {
+    public TaxonomyManagementEndpoint(TaxonomyChangeService taxonomyChangeService,
+                                      AsyncTaskService asyncTaskService) {
+        checkNotNull(taxonomyChangeService, "taxonomyChangeService cannot be null");
+        checkNotNull(asyncTaskService, "asyncTaskService cannot be null");
+
         this.taxonomyChangeService = taxonomyChangeService;
+        this.asyncTaskService = asyncTaskService;
     }
 
 
@@ -53,6 +62,7 @@ public class TaxonomyManagementEndpoint implements Endpoint {
         registerRemoveById(mkPath(BASE_URL, "pending-changes", "id", ":id"));
         registerPreviewById(mkPath(BASE_URL, "pending-changes", "id", ":id", "preview"));
         registerApplyPendingChange(mkPath(BASE_URL, "pending-changes", "id", ":id", "apply"));
+        registerApplyPendingChangeAsync(mkPath(BASE_URL, "pending-changes", "id", ":id", "apply", "async"));
         registerFindPendingChangesByDomain(mkPath(BASE_URL, "pending-changes", "by-domain", ":kind", ":id"));
         registerFindAllChangesByDomain(mkPath(BASE_URL, "all", "by-domain", ":kind", ":id"));
     }
@@ -73,6 +83,20 @@ public class TaxonomyManagementEndpoint implements Endpoint {
     }
 
 
+    private void registerApplyPendingChangeAsync(String path) {
+        postForDatum(path, (req, resp) -> {
+            long id = WebUtilities.getId(req);
+            String username = WebUtilities.getUsername(req);
+            taxonomyChangeService.verifyCanApply(id, username);
+            return asyncTaskService.submit(
+                    "TAXONOMY_CHANGE_APPLY",
+                    format("Apply taxonomy change: %d", id),
+                    username,
+                    ctx -> taxonomyChangeService.applyById(id, username));
+        });
+    }
+
+
     private void registerSubmitPendingChange(String path) {
         postForDatum(path, (req, resp) -> {
             return taxonomyChangeService.submitDraftChange(
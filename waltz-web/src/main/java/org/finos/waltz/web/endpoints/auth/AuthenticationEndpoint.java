@@ -28,6 +28,7 @@ import org.finos.waltz.model.settings.NamedSettings;
 import org.finos.waltz.model.user.AuthenticationResponse;
 import org.finos.waltz.model.user.ImmutableAuthenticationResponse;
 import org.finos.waltz.model.user.LoginRequest;
+import org.finos.waltz.service.read_replica.ReadReplicaService;
 import org.finos.waltz.service.settings.SettingsService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.service.user.UserService;
@@ -65,6 +66,8 @@ public class AuthenticationEndpoint implements Endpoint {
     private final UserService userService;
     private final UserRoleService userRoleService;
     private final SettingsService settingsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ReadReplicaService readReplicaService;
     private final Filter filter;
     private final OAuthConfiguration oauthConfiguration;
 
@@ -73,10 +76,14 @@ public class AuthenticationEndpoint implements Endpoint {
     public AuthenticationEndpoint(UserService userService,
                                   UserRoleService userRoleService,
                                   SettingsService settingsService,
+                                  VerifiedTokenCache verifiedTokenCache,
+                                  ReadReplicaService readReplicaService,
                                   OAuthConfiguration oauthConfiguration) {
         this.userService = userService;
         this.userRoleService = userRoleService;
         this.settingsService = settingsService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.readReplicaService = readReplicaService;
 
         this.filter = settingsService
                 .getValue(NamedSettings.authenticationFilter)
@@ -90,7 +97,7 @@ public class AuthenticationEndpoint implements Endpoint {
     private Supplier<Filter> createDefaultFilter() {
         return () -> {
             LOG.info("Using default (jwt) authentication filter");
-            return new JWTAuthenticationFilter(settingsService);
+            return new JWTAuthenticationFilter(settingsService, verifiedTokenCache);
         };
     }
 
@@ -176,6 +183,13 @@ public class AuthenticationEndpoint implements Endpoint {
 
         Spark.before(WebUtilities.mkPath("api", "*"), filter);
 
+        if (readReplicaService.hasReplica()) {
+            // lets reads go to the primary for users who have just written
+            Filter bindUser = new ReadReplicaUserFilter(filter, readReplicaService);
+            Spark.before(WebUtilities.mkPath("api", "*"), bindUser);
+            Spark.before(WebUtilities.mkPath("data-extract", "*"), bindUser);
+            Spark.afterAfter((request, response) -> readReplicaService.unbindUser());
+        }
     }
 
     private String[] parseCodeResponse(String RequestBody) throws ParseException {
@@ -28,10 +28,15 @@ import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
+
 
 /**
  * Authentication filter which verifies a jwt token.  We only care
  * about the bearer name.
+ *
+ * Tokens which have already been verified are remembered in a
+ * {@link VerifiedTokenCache} so repeat calls skip the signature check.
  */
 public class JWTAuthenticationFilter extends WaltzFilter {
 
@@ -39,10 +44,19 @@ public class JWTAuthenticationFilter extends WaltzFilter {
 
     private final JWTVerifier verifier256;
     private final JWTVerifier verifier512;
+    private final VerifiedTokenCache verifiedTokenCache;
 
 
     public JWTAuthenticationFilter(SettingsService settingsService) {
+        this(settingsService, new VerifiedTokenCache());
+    }
+
+
+    public JWTAuthenticationFilter(SettingsService settingsService,
+                                   VerifiedTokenCache verifiedTokenCache) {
         super(settingsService);
+        checkNotNull(verifiedTokenCache, "verifiedTokenCache cannot be null");
+        this.verifiedTokenCache = verifiedTokenCache;
         try {
             Algorithm algorithm256 = Algorithm.HMAC256(JWTUtilities.SECRET);
             Algorithm algorithm512 = Algorithm.HMAC512(JWTUtilities.SECRET);
@@ -65,13 +79,16 @@ public class JWTAuthenticationFilter extends WaltzFilter {
             AuthenticationUtilities.setUserAsAnonymous(request);
         } else {
             String token = authorizationHeader.replaceFirst("Bearer ", "");
-            DecodedJWT decodedToken = JWT.decode(token);
+            String subject = verifiedTokenCache.getVerifiedSubject(token, this::verify);
+            AuthenticationUtilities.setUser(request, subject);
+        }
+    }
 
-            JWTVerifier verifier = selectVerifier(decodedToken);
 
-            DecodedJWT decodedJWT = verifier.verify(token);
-            AuthenticationUtilities.setUser(request, decodedJWT.getSubject());
-        }
+    private DecodedJWT verify(String token) {
+        DecodedJWT decodedToken = JWT.decode(token);
+        JWTVerifier verifier = selectVerifier(decodedToken);
+        return verifier.verify(token);
     }
 
 
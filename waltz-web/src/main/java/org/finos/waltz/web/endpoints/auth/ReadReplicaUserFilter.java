@@ -0,0 +1,60 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.auth;
+
+import org.finos.waltz.service.read_replica.ReadReplicaService;
+import spark.Filter;
+import spark.Request;
+import spark.Response;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Binds the requesting user to the request thread so that read only queries
+ * go to the primary database for users who have just written (see
+ * {@link ReadReplicaService}).
+ *
+ * Requests outside of <code>api/*</code> (e.g. <code>data-extract/*</code>)
+ * are not seen by the authentication filter, so if no user has been set
+ * the authentication filter is run first to resolve one.
+ */
+public class ReadReplicaUserFilter implements Filter {
+
+    private final Filter authenticationFilter;
+    private final ReadReplicaService readReplicaService;
+
+
+    public ReadReplicaUserFilter(Filter authenticationFilter,
+                                 ReadReplicaService readReplicaService) {
+        checkNotNull(authenticationFilter, "authenticationFilter cannot be null");
+        checkNotNull(readReplicaService, "readReplicaService cannot be null");
+        this.authenticationFilter = authenticationFilter;
+        this.readReplicaService = readReplicaService;
+    }
+
+
+    @Override
+    public void handle(Request request, Response response) throws Exception {
+        if (AuthenticationUtilities.getUsername(request) == null) {
+            authenticationFilter.handle(request, response);
+        }
+        readReplicaService.bindUser(AuthenticationUtilities.getUsername(request));
+    }
+
+}
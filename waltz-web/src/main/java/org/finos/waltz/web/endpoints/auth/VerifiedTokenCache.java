@@ -0,0 +1,221 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.auth;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Bounded cache of jwt tokens which have already passed signature verification,
+ * mapped to the subject they were issued for.
+ *
+ * The browser sends the same token with every api call, so once a token has been
+ * verified we can skip the hmac check until it expires.  Entries are keyed by a
+ * sha-256 digest of the complete token, any change to the header, claims or
+ * signature gives a different key and the token is verified afresh.  Failed
+ * verifications are never cached.
+ *
+ * An entry lives until the earlier of the token's <code>exp</code> claim and the
+ * ttl, tokens without an expiry (as issued by Waltz) are re-verified once the ttl
+ * elapses.
+ */
+@Service
+public class VerifiedTokenCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60_000;
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final ConcurrentMap<String, VerifiedToken> tokensByDigest = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+
+    public VerifiedTokenCache() {
+        this(DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+
+    VerifiedTokenCache(int maxEntries, LongSupplier clock) {
+        checkTrue(maxEntries > 0, "maxEntries must be positive");
+        checkNotNull(clock, "clock cannot be null");
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Returns the subject of the given token, calling the verifier only if the
+     * token has not already been verified (or its cache entry has expired).
+     *
+     * @param token  raw jwt token
+     * @param verifier  performs full verification, throwing if the token is invalid
+     * @return subject of the verified token
+     */
+    public String getVerifiedSubject(String token, Function<String, DecodedJWT> verifier) {
+        checkNotNull(token, "token cannot be null");
+        checkNotNull(verifier, "verifier cannot be null");
+
+        String key = digest(token);
+        long now = clock.getAsLong();
+
+        VerifiedToken cached = tokensByDigest.get(key);
+        if (cached != null) {
+            if (!cached.hasExpired(now)) {
+                hits.increment();
+                return cached.subject;
+            }
+            expirations.increment();
+            tokensByDigest.remove(key, cached);
+        }
+
+        misses.increment();
+        DecodedJWT decoded = verifier.apply(token);
+
+        if (ttlMillis > 0) {
+            makeRoom(now);
+            tokensByDigest.put(key, new VerifiedToken(decoded.getSubject(), expiresAt(decoded, now)));
+        }
+
+        return decoded.getSubject();
+    }
+
+
+    // --- invalidation
+
+    public void invalidateAll() {
+        LOG.info("Invalidating all cached jwt verifications");
+        invalidations.increment();
+        tokensByDigest.clear();
+    }
+
+
+    // --- stats
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+
+    public long getExpiredCount() {
+        return expirations.sum();
+    }
+
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+
+    public int getCachedTokenCount() {
+        return tokensByDigest.size();
+    }
+
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+
+    public void setTtlMillis(long ttlMillis) {
+        checkTrue(ttlMillis >= 0, "ttl cannot be negative");
+        LOG.info("Setting jwt verification cache ttl to {}ms", ttlMillis);
+        this.ttlMillis = ttlMillis;
+        invalidateAll();
+    }
+
+
+    // --- helpers
+
+    private void makeRoom(long now) {
+        if (tokensByDigest.size() >= maxEntries) {
+            tokensByDigest.values().removeIf(t -> t.hasExpired(now));
+            if (tokensByDigest.size() >= maxEntries) {
+                tokensByDigest.clear();
+            }
+        }
+    }
+
+
+    private long expiresAt(DecodedJWT decoded, long now) {
+        long ttlExpiry = now + ttlMillis;
+        Date tokenExpiry = decoded.getExpiresAt();
+        return tokenExpiry == null
+                ? ttlExpiry
+                : Math.min(ttlExpiry, tokenExpiry.getTime());
+    }
+
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every jre is required to provide sha-256
+            throw new IllegalStateException("Cannot digest token", e);
+        }
+    }
+
+
+    private static class VerifiedToken {
+
+        private final String subject;
+        private final long expiresAt;
+
+        private VerifiedToken(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+}
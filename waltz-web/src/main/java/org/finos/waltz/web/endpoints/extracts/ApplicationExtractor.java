@@ -19,12 +19,12 @@
 package org.finos.waltz.web.endpoints.extracts;
 
 import org.finos.waltz.schema.tables.Application;
+import org.finos.waltz.data.ReadOnlyDsl;
 import org.finos.waltz.data.SelectorUtilities;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.web.WebUtilities;
 import org.jooq.Condition;
-import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Record8;
 import org.jooq.Select;
@@ -47,8 +47,8 @@ public class ApplicationExtractor extends DirectQueryBasedDataExtractor {
 
 
     @Autowired
-    public ApplicationExtractor(DSLContext dsl) {
-        super(dsl);
+    public ApplicationExtractor(ReadOnlyDsl readOnlyDsl) {
+        super(readOnlyDsl.dsl());
     }
 
 
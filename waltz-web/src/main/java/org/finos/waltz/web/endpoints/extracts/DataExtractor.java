@@ -7,6 +7,7 @@ import spark.Response;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 
@@ -36,11 +37,47 @@ public interface DataExtractor {
 
 
     default Object writeReportResults(Response response, Tuple3<ExtractFormat, String, byte[]> reportResult) throws IOException {
-        String templateName = reportResult.v2;
+        HttpServletResponse httpResponse = response.raw();
+
+        writeReportHeaders(response, reportResult.v1, reportResult.v2);
 
+        byte[] bytes = reportResult.v3;
+        httpResponse.setContentLength(bytes.length);
+        httpResponse.getOutputStream().write(bytes);
+        httpResponse.getOutputStream().flush();
+        httpResponse.getOutputStream().close();
+        return httpResponse;
+    }
+
+
+    /**
+     * Writes a report directly to the response output stream rather than via an
+     * intermediate byte array.  As the size is not known up front the response
+     * is sent without a content length (i.e. chunked).
+     *
+     * Note: once the writer has started emitting data the response is committed,
+     * so any later failure results in a truncated download rather than an error response.
+     */
+    default Object writeStreamedReportResults(Response response,
+                                              ExtractFormat format,
+                                              String reportName,
+                                              ReportWriter reportWriter) throws IOException {
         HttpServletResponse httpResponse = response.raw();
 
-        switch (reportResult.v1) {
+        writeReportHeaders(response, format, reportName);
+
+        OutputStream outputStream = httpResponse.getOutputStream();
+        reportWriter.write(outputStream);
+        outputStream.flush();
+        outputStream.close();
+        return httpResponse;
+    }
+
+
+    default void writeReportHeaders(Response response, ExtractFormat format, String templateName) {
+        HttpServletResponse httpResponse = response.raw();
+
+        switch (format) {
             case CSV:
                 response.type(MimeTypes.TEXT_PLAIN);
                 response.header("Content-disposition", "attachment; filename=" + templateName + ".csv");
@@ -56,13 +93,12 @@ public interface DataExtractor {
             default:
                 break;
         }
+    }
 
-        byte[] bytes = reportResult.v3;
-        httpResponse.setContentLength(bytes.length);
-        httpResponse.getOutputStream().write(bytes);
-        httpResponse.getOutputStream().flush();
-        httpResponse.getOutputStream().close();
-        return httpResponse;
+
+    @FunctionalInterface
+    interface ReportWriter {
+        void write(OutputStream outputStream) throws IOException;
     }
 
 
@@ -19,6 +19,7 @@
 package org.finos.waltz.web.endpoints.extracts;
 
 import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.data.ReadOnlyDsl;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.model.EntityKind;
@@ -83,8 +84,8 @@ public class LogicalFlowExtractor extends CustomDataExtractor {
     private final DSLContext dsl;
 
     @Autowired
-    public LogicalFlowExtractor(DSLContext dsl) {
-        this.dsl = dsl;
+    public LogicalFlowExtractor(ReadOnlyDsl readOnlyDsl) {
+        this.dsl = readOnlyDsl.dsl();
     }
 
 
@@ -2,23 +2,27 @@ package org.finos.waltz.web.endpoints.extracts;
 
 import org.finos.waltz.service.measurable.MeasurableService;
 import org.finos.waltz.service.svg.SvgDiagramService;
-import org.finos.waltz.common.SvgUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.svg.SvgDiagram;
 import org.finos.waltz.web.WebUtilities;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.function.Function;
 
+import static org.finos.waltz.common.DigestUtilities.digest;
 import static org.finos.waltz.common.StringUtilities.isNumericLong;
 import static org.finos.waltz.common.StringUtilities.toOptional;
 import static org.finos.waltz.model.EntityLinkUtilities.mkExternalIdLink;
 import static org.finos.waltz.model.EntityLinkUtilities.mkIdLink;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 import static spark.Spark.get;
 
 
@@ -65,39 +69,52 @@ public class NavAidExtractor extends BinaryDataBasedDataExtractor {
 
 
     private String addHyperLinks(SvgDiagram diagram) {
-        Function<String, Optional<String>> keyToUrl = mkKeyToUrl(diagram.group());
+        Tuple2<String, Function<String, Optional<String>>> versionAndKeyToUrl = mkKeyToUrl(diagram.group());
 
-        return Unchecked.supplier(() -> SvgUtilities.addWaltzEntityLinks(
-                                            diagram.svg(),
-                                            diagram.keyProperty(),
-                                            keyToUrl))
-                .get();
+        return svgDiagramService.addEntityLinks(
+                diagram,
+                versionAndKeyToUrl.v2,
+                versionAndKeyToUrl.v1);
     }
 
 
-    private Function<String, Optional<String>> mkKeyToUrl(String groupId) {
+    /**
+     * @return the key to url mapping for the diagram group, along with a version which changes
+     * whenever the mapping does (so cached, linked, diagrams can be reused)
+     */
+    private Tuple2<String, Function<String, Optional<String>>> mkKeyToUrl(String groupId) {
         if (groupId.startsWith("NAVAID.MEASURABLE.")) {
             String categoryIdStr = groupId.replace("NAVAID.MEASURABLE.", "");
             if (isNumericLong(categoryIdStr)) {
-                return mkMeasurableKeyToUrl(Long.parseLong(categoryIdStr));
+                Map<String, Long> extToIdMap = measurableService.findExternalIdToIdMapByCategoryId(Long.parseLong(categoryIdStr));
+                return tuple(
+                        groupId + ":" + mkVersion(extToIdMap),
+                        mkMeasurableKeyToUrl(extToIdMap));
             }
         } else {
             switch (groupId) {
                 case "DATA_TYPE":
-                    return mkDataTypeKeyToUrl();
+                    return tuple(groupId, mkDataTypeKeyToUrl());
                 case "ORG_UNIT":
-                    return mkOrgUnitKeyToUrl();
+                    return tuple(groupId, mkOrgUnitKeyToUrl());
                 case "ORG_TREE":
-                    return mkPersonKeyToUrl();
+                    return tuple(groupId, mkPersonKeyToUrl());
             }
         }
 
-        return (key) -> Optional.empty();
+        return tuple("NONE", (key) -> Optional.empty());
     }
 
 
-    private Function<String, Optional<String>> mkMeasurableKeyToUrl(Long categoryId) {
-        Map<String, Long> extToIdMap = measurableService.findExternalIdToIdMapByCategoryId(categoryId);
+    private static String mkVersion(Map<String, Long> extToIdMap) {
+        byte[] mapping = new TreeMap<>(extToIdMap)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+        return Unchecked.supplier(() -> digest(mapping)).get();
+    }
+
+
+    private Function<String, Optional<String>> mkMeasurableKeyToUrl(Map<String, Long> extToIdMap) {
         return (extId) -> Optional.ofNullable(extToIdMap.get(extId))
                                     .map(id -> mkIdLink(baseUrl, EntityKind.MEASURABLE, id));
     }
@@ -29,11 +29,13 @@ import org.finos.waltz.model.report_grid.ReportGridDerivedColumnDefinition;
 import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
 import org.finos.waltz.model.report_grid.ReportGridInstance;
 import org.finos.waltz.model.report_grid.ReportSubject;
+import org.finos.waltz.service.report_grid.ReportGridColumnCalculator.RowCalculator;
 import org.finos.waltz.service.report_grid.ReportGridService;
 import org.finos.waltz.service.settings.SettingsService;
 import org.finos.waltz.web.WebException;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicCommaSeperatedValueFormatter;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicExcelFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicFormatter;
 import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicJSONFormatter;
 import org.finos.waltz.web.json.ImmutableReportGridColumnJSON;
 import org.finos.waltz.web.json.ImmutableReportGridDefinitionJSON;
@@ -48,6 +50,7 @@ import spark.Request;
 import spark.Response;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -56,7 +59,6 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.LongFunction;
 import java.util.stream.Stream;
 
@@ -71,7 +73,7 @@ import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.firstNonNull;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.model.utils.IdUtilities.indexById;
-import static org.finos.waltz.service.report_grid.ReportGridColumnCalculator.calculate;
+import static org.finos.waltz.service.report_grid.ReportGridColumnCalculator.mkRowCalculator;
 import static org.finos.waltz.web.WebUtilities.mkPath;
 import static org.finos.waltz.web.WebUtilities.readIdSelectionOptionsFromBody;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
@@ -199,14 +201,18 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
                                 .id()
                                 .orElseThrow(() -> new IllegalArgumentException("Report Grid Definition found but it has no internal identifier"));
 
+                        ExtractFormat format = parseExtractFormat(request);
+                        DynamicFormatter formatter = getFormatter(format);
+
                         return findReportGridById(reportGridIdentifier, selectionOptions)
-                                .map(Unchecked.function(reportGrid -> prepareReport(
-                                        reportGrid,
-                                        parseExtractFormat(request),
-                                        selectionOptions)))
-                                .map(Unchecked.function(report -> writeReportResults(
-                                        response,
-                                        report)))
+                                .map(Unchecked.function(reportGrid -> {
+                                    String reportName = mkReportName(reportGrid.definition(), selectionOptions);
+                                    return writeStreamedReportResults(
+                                            response,
+                                            format,
+                                            reportName,
+                                            out -> writeReport(reportGrid, reportName, formatter, out));
+                                }))
                                 .orElseThrow(() -> notFoundException.apply(reportGridIdentifier));
 
                     } catch(UncheckedIOException e) {
@@ -221,23 +227,24 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
     }
 
 
-    private Tuple3<ExtractFormat, String, byte[]> prepareReport(ReportGrid reportGrid,
-                                                                ExtractFormat format,
-                                                                IdSelectionOptions selectionOptions) throws IOException {
+    private void writeReport(ReportGrid reportGrid,
+                             String reportName,
+                             DynamicFormatter formatter,
+                             OutputStream outputStream) throws IOException {
 
         List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> colsWithCommentRequirement = enrichColsWithCommentRequirement(reportGrid);
 
-        List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows = prepareReportRows(
+        Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows = prepareReportRows(
                 reportGrid.definition(),
                 colsWithCommentRequirement,
                 reportGrid.instance());
 
-        return formatReport(
-                format,
+        formatter.format(
+                reportName,
                 reportGrid,
-                mkReportName(reportGrid.definition(), selectionOptions),
                 colsWithCommentRequirement,
-                reportRows);
+                reportRows,
+                outputStream);
     }
 
 
@@ -278,9 +285,14 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
     }
 
 
-    private List<Tuple2<ReportSubject, ArrayList<Object>>> prepareReportRows(ReportGridDefinition definition,
-                                                                             List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> colsWithCommentRequirement,
-                                                                             ReportGridInstance reportGridInstance) {
+    /**
+     * Rows are produced lazily, in subject name order, as the formatter consumes them.
+     * Derived columns are calculated for each row as it is produced, so neither the
+     * derived cells nor the formatted rows are held for the whole grid.
+     */
+    Stream<Tuple2<ReportSubject, ArrayList<Object>>> prepareReportRows(ReportGridDefinition definition,
+                                                                     List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> colsWithCommentRequirement,
+                                                                     ReportGridInstance reportGridInstance) {
 
         List<Tuple3<Long, Integer, EntityKind>> derivedCols = map(definition.derivedColumnDefinitions(), d -> tuple(d.gridColumnId(), d.position(), d.kind()));
         List<Tuple3<Long, Integer, EntityKind>> fixedCols = map(definition.fixedColumnDefinitions(), d -> tuple(d.gridColumnId(), d.position(), d.kind()));
@@ -289,16 +301,19 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
                 colsWithCommentRequirement,
                 k -> k.v1.id());
 
-        Set<Tuple3<Long, Integer, EntityKind>> allColumnDefinitions = union(derivedCols, fixedCols);
+        List<Tuple3<Long, Integer, EntityKind>> allColumnDefinitions = union(derivedCols, fixedCols)
+                .stream()
+                .sorted(Comparator.comparingInt(Tuple3::v2))
+                .collect(toList());
 
-        Set<ReportGridCell> tableData = (definition.derivedColumnDefinitions().isEmpty())
-                ? reportGridInstance.cellData()
-                : union(reportGridInstance.cellData(), calculate(reportGridInstance, definition));
+        Optional<RowCalculator> derivedColumnCalculator = definition.derivedColumnDefinitions().isEmpty()
+                ? Optional.empty()
+                : Optional.of(mkRowCalculator(reportGridInstance, definition));
 
         Map<Long, RatingSchemeItem> ratingsById = indexById(reportGridInstance.ratingSchemeItems());
 
         Map<Long, Collection<ReportGridCell>> tableDataBySubjectId = groupBy(
-                tableData,
+                reportGridInstance.cellData(),
                 ReportGridCell::subjectId);
 
         boolean allowCostsExport = settingsService
@@ -309,21 +324,24 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
         return reportGridInstance
                 .subjects()
                 .stream()
+                .sorted(Comparator.comparing(s -> s.entityReference().name().get()))
                 .map(subject -> {
                     Collection<ReportGridCell> cellsForSubject = tableDataBySubjectId.getOrDefault(
                             subject.entityReference().id(),
                             emptySet());
 
+                    Collection<ReportGridCell> rowCells = derivedColumnCalculator
+                            .map(calc -> union(cellsForSubject, calc.calculate(subject, cellsForSubject)))
+                            .orElse(cellsForSubject);
+
                     ArrayList<Object> reportRow = new ArrayList<>();
 
                     Map<Long, ReportGridCell> cellValuesByColumnRefForSubject = indexBy(
-                            cellsForSubject,
+                            rowCells,
                             ReportGridCell::columnDefinitionId);
 
                     allColumnDefinitions
-                            .stream()
-                            .sorted(Comparator.comparingInt(Tuple3::v2))
-                            .forEachOrdered(t -> {
+                            .forEach(t -> {
 
                                 Long columnId = t.v1;
 
@@ -360,9 +378,7 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
                             });
 
                     return tuple(subject, reportRow);
-                })
-                .sorted(Comparator.comparing(t -> t.v1.entityReference().name().get()))
-                .collect(toList());
+                });
     }
 
     private Object getDerivedCellValue(ReportGridCell cell) {
@@ -422,21 +438,14 @@ public class ReportGridExtractor implements SupportsJsonExtraction {
     }
 
 
-    private Tuple3<ExtractFormat, String, byte[]> formatReport(ExtractFormat format,
-                                                               ReportGrid reportGrid,
-                                                               String reportName,
-                                                               List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                                                               List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) throws IOException {
+    private DynamicFormatter getFormatter(ExtractFormat format) {
         switch (format) {
             case XLSX:
-                return tuple(format, reportName, dynamicExcelFormatter
-                        .format(reportName, reportGrid, columnDefinitions, reportRows));
+                return dynamicExcelFormatter;
             case CSV:
-                return tuple(format, reportName, dynamicCommaSeperatedValueFormatter
-                        .format(reportName, reportGrid, columnDefinitions, reportRows));
+                return dynamicCommaSeperatedValueFormatter;
             case JSON:
-                return tuple(format, reportName, dynamicJSONFormatter
-                        .format(reportName, reportGrid, columnDefinitions, reportRows));
+                return dynamicJSONFormatter;
             default:
                 throw new UnsupportedOperationException("This report does not support export format: " + format);
         }
@@ -30,11 +30,16 @@ import org.springframework.stereotype.Component;
 import org.supercsv.io.CsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.common.ListUtilities.*;
 import static org.jooq.lambda.fi.util.function.CheckedConsumer.unchecked;
@@ -51,33 +56,33 @@ public class DynamicCommaSeperatedValueFormatter implements DynamicFormatter {
 
 
     @Override
-    public byte[] format(String id,
-                         ReportGrid reportGrid,
-                         List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                         List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) throws IOException {
+    public void format(String id,
+                       ReportGrid reportGrid,
+                       List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
+                       Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                       OutputStream outputStream) throws IOException {
         try {
             LOG.info("Generating CSV report {}", id);
-            return mkCSVReport(columnDefinitions, reportGrid.definition().derivedColumnDefinitions(), reportRows);
+            writeCSVReport(columnDefinitions, reportGrid.definition().derivedColumnDefinitions(), reportRows, outputStream);
         } catch (IOException e) {
             LOG.warn("Encounter error when trying to generate CSV report.  Details:{}", e.getMessage());
             throw e;
         }
     }
 
-    private byte[] mkCSVReport(List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> fixedColumnDefinitions,
-                               List<ReportGridDerivedColumnDefinition> derivedColumnDefinitions,
-                               List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) throws IOException {
+    private void writeCSVReport(List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> fixedColumnDefinitions,
+                                List<ReportGridDerivedColumnDefinition> derivedColumnDefinitions,
+                                Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                                OutputStream outputStream) throws IOException {
 
         List<String> headers = formatterUtils.mkHeaderStrings(fixedColumnDefinitions, derivedColumnDefinitions);
 
-        StringWriter writer = new StringWriter();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
         CsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.EXCEL_PREFERENCE);
 
         csvWriter.write(headers);
-        reportRows.forEach(unchecked(row -> csvWriter.write(simplify(row))));
+        reportRows.forEachOrdered(unchecked(row -> csvWriter.write(simplify(row))));
         csvWriter.flush();
-
-        return writer.toString().getBytes();
     }
 
 
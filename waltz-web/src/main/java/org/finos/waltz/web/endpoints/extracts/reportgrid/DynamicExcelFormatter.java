@@ -36,13 +36,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.ListUtilities.concat;
@@ -65,13 +66,14 @@ public class DynamicExcelFormatter implements DynamicFormatter {
 
 
     @Override
-    public byte[] format(String id,
-                         ReportGrid reportGrid,
-                         List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                         List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows)  throws IOException{
+    public void format(String id,
+                       ReportGrid reportGrid,
+                       List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
+                       Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                       OutputStream outputStream)  throws IOException{
         try {
             LOG.info("Generating Excel report {}",id);
-            return mkExcelReport(id, columnDefinitions, reportGrid.definition().derivedColumnDefinitions(), reportRows);
+            writeExcelReport(id, columnDefinitions, reportGrid.definition().derivedColumnDefinitions(), reportRows, outputStream);
         } catch (IOException e) {
            LOG.warn("Encounter error when trying to generate CSV report.  Details:{}", e.getMessage());
            throw e;
@@ -79,36 +81,35 @@ public class DynamicExcelFormatter implements DynamicFormatter {
     }
 
 
-    private byte[] mkExcelReport(String reportName,
-                                 List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> fixedColumnDefinitions,
-                                 List<ReportGridDerivedColumnDefinition> derivedColumnDefinitions,
-                                 List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) throws IOException {
-
-        SXSSFWorkbook workbook = new SXSSFWorkbook(2000);
-        SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(reportName));
-
-        int colCount = writeExcelHeader(fixedColumnDefinitions, derivedColumnDefinitions, sheet);
-        writeExcelBody(reportRows, sheet);
+    private void writeExcelReport(String reportName,
+                                  List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> fixedColumnDefinitions,
+                                  List<ReportGridDerivedColumnDefinition> derivedColumnDefinitions,
+                                  Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                                  OutputStream outputStream) throws IOException {
 
-        sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, colCount - 1));
-        sheet.createFreezePane(0, 1);
+        // rows beyond the window are flushed to a temp file as they are written
+        SXSSFWorkbook workbook = new SXSSFWorkbook(SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(reportName));
 
-        return convertExcelToByteArray(workbook);
-    }
+            int colCount = writeExcelHeader(fixedColumnDefinitions, derivedColumnDefinitions, sheet);
+            writeExcelBody(reportRows, sheet);
 
+            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, colCount - 1));
+            sheet.createFreezePane(0, 1);
 
-    private byte[] convertExcelToByteArray(SXSSFWorkbook workbook) throws IOException {
-        ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
-        workbook.write(outByteStream);
-        workbook.close();
-        return outByteStream.toByteArray();
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
     }
 
 
-    private int writeExcelBody(List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows, SXSSFSheet sheet) {
+    private int writeExcelBody(Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows, SXSSFSheet sheet) {
         AtomicInteger rowNum = new AtomicInteger(1);
         int maxCellLength = 32767 - length(CELL_LIMIT_MESSAGE);
-        reportRows.forEach(r -> {
+        reportRows.forEachOrdered(r -> {
 
             long subjectId = r.v1.entityReference().id();
             String subjectName = r.v1.entityReference().name().get();
@@ -24,13 +24,20 @@ import org.finos.waltz.web.endpoints.extracts.ColumnCommentary;
 import org.jooq.lambda.tuple.Tuple2;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface DynamicFormatter {
 
-    byte[] format(String id,
-                  ReportGrid reportGrid,
-                  List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                  List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows)  throws IOException;
+    /**
+     * Writes the report to the given output stream, consuming the rows as it goes
+     * so the complete report need not be held in memory.
+     */
+    void format(String id,
+                ReportGrid reportGrid,
+                List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
+                Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                OutputStream outputStream) throws IOException;
 }
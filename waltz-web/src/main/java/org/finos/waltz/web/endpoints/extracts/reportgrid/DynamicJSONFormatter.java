@@ -17,6 +17,7 @@
  */
 package org.finos.waltz.web.endpoints.extracts.reportgrid;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
@@ -30,14 +31,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.jooq.lambda.fi.util.function.CheckedConsumer.unchecked;
 
 
 @Component
 public class DynamicJSONFormatter implements DynamicFormatter {
 
     private static final Logger LOG = LoggerFactory.getLogger(DynamicJSONFormatter.class);
+    private static final ObjectMapper MAPPER = createMapper();
     private final FormatterUtils formatterUtils;
 
 
@@ -47,22 +55,22 @@ public class DynamicJSONFormatter implements DynamicFormatter {
 
 
     @Override
-    public byte[] format(String id,
-                         ReportGrid reportGrid,
-                         List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                         List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows)  throws IOException {
+    public void format(String id,
+                       ReportGrid reportGrid,
+                       List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
+                       Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                       OutputStream outputStream)  throws IOException {
         try {
             LOG.debug("Generating JSON data {}",id);
             long start = System.currentTimeMillis();
-            byte[] response = mkResponse(reportGrid, columnDefinitions, reportRows);
+            int rowCount = writeResponse(reportGrid, columnDefinitions, reportRows, outputStream);
             long finish = System.currentTimeMillis();
             LOG.info(
-                    "Generated JSON data {} in {} ms response. Response payload sz={} bytes",
+                    "Generated JSON data {} in {} ms response. Response rows={}",
                     id,
                     finish-start,
-                    response.length);
-            return response;
-        } catch (IOException e) {
+                    rowCount);
+        } catch (IOException | UncheckedIOException e) {
            String msg = String.format(
                    "Encountered error generating JSON response. Details:%s",
                    e.getMessage());
@@ -71,75 +79,87 @@ public class DynamicJSONFormatter implements DynamicFormatter {
     }
 
 
-    private byte[] mkResponse(ReportGrid reportGrid,
+    /**
+     * Writes the same document as serialising a {@link ReportGridJSON}, but emits
+     * each row as soon as it has been transformed rather than building the grid first.
+     */
+    private int writeResponse(ReportGrid reportGrid,
                               List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions,
-                              List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) throws IOException {
+                              Stream<Tuple2<ReportSubject, ArrayList<Object>>> reportRows,
+                              OutputStream outputStream) throws IOException {
 
         ReportGridDefinition reportGridDefinition = reportGrid.definition();
-        ReportGridJSON reportGridJSON =
-                ImmutableReportGridJSON.builder()
-                        .id(reportGridDefinition.externalId().orElseGet(() -> "" + reportGridDefinition.id()))
-                        .apiTypes(new ApiTypes())
-                        .name(reportGridDefinition.name())
-                        .grid(transform(columnDefinitions, reportGrid.definition().derivedColumnDefinitions(), reportRows))
-                        .build();
+        List<String> columnHeadings = formatterUtils.mkColumnHeaders(columnDefinitions, reportGridDefinition.derivedColumnDefinitions());
 
-        return createMapper()
+        JsonGenerator generator = MAPPER
                 .writerWithDefaultPrettyPrinter()
-                .writeValueAsBytes(reportGridJSON);
+                .createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        AtomicInteger rowCount = new AtomicInteger();
+
+        generator.writeStartObject();
+        generator.writeStringField("type", ReportGridJSON.REPORT_GRID_TYPE);
+        generator.writeStringField("id", reportGridDefinition.externalId().orElseGet(() -> "" + reportGridDefinition.id()));
+        generator.writeStringField("name", reportGridDefinition.name());
+        generator.writeObjectField("apiTypes", new ApiTypes());
+        generator.writeObjectFieldStart("grid");
+        generator.writeNullField("columnDescriptors");
+        generator.writeArrayFieldStart("rows");
+
+        reportRows.forEachOrdered(unchecked(row -> {
+            generator.writeObject(transform(columnHeadings, row));
+            rowCount.incrementAndGet();
+        }));
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.close();
+
+        return rowCount.get();
     }
 
 
-    private Grid transform(List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> fixedColumnDefinitions,
-                           List<ReportGridDerivedColumnDefinition> derivedColumnDefinitions,
-                           List<Tuple2<ReportSubject, ArrayList<Object>>> reportRows) {
-
-        List<String> columnHeadings = formatterUtils.mkColumnHeaders(fixedColumnDefinitions, derivedColumnDefinitions);
-
-        List<Row> data = new ArrayList<>(reportRows.size());
+    private Row transform(List<String> columnHeadings,
+                          Tuple2<ReportSubject, ArrayList<Object>> currentRow) {
 
-        for (Tuple2<ReportSubject, ArrayList<Object>> currentRow : reportRows) {
-            ImmutableRow.Builder transformedRow = ImmutableRow.builder();
+        ImmutableRow.Builder transformedRow = ImmutableRow.builder();
 
-            List<CellValue> transformedRowValues = new ArrayList<>();
+        List<CellValue> transformedRowValues = new ArrayList<>();
 
-            transformedRow.id(createKeyElement(currentRow.v1));
+        transformedRow.id(createKeyElement(currentRow.v1));
 
-            int maxColumns = columnHeadings.size();
+        int maxColumns = columnHeadings.size();
 
-            for (int idx = 0; idx < maxColumns; idx++) {
-                String formattedColumnName = columnHeadings.get(idx) != null
-                        ? columnHeadings.get(idx)
-                        : "";
-                int prevCellAddedIdx = transformedRowValues.size() - 1;
-                boolean isComment = formattedColumnName.contains("comment");
-                Object currentCell = currentRow.v2.get(idx);
-                if (currentCell != null) {
-                    CellValue cell = ImmutableCellValue
-                            .builder()
-                            .name(formattedColumnName)
-                            .value(currentCell.toString())
-                            .build();
-
-                    if (isComment && prevCellAddedIdx > -1 && transformedRowValues.get(prevCellAddedIdx) instanceof ImmutableCellValue) {
-                        CellValue previousColumnCell = transformedRowValues.get(prevCellAddedIdx);
-                        CellValue withComment = ImmutableCellValue
-                                .copyOf(previousColumnCell)
-                                .withComment(currentCell.toString());
-                        transformedRowValues.set(prevCellAddedIdx,withComment);
-                    } else {
-                        transformedRowValues.add(cell);
-                    }
+        for (int idx = 0; idx < maxColumns; idx++) {
+            String formattedColumnName = columnHeadings.get(idx) != null
+                    ? columnHeadings.get(idx)
+                    : "";
+            int prevCellAddedIdx = transformedRowValues.size() - 1;
+            boolean isComment = formattedColumnName.contains("comment");
+            Object currentCell = currentRow.v2.get(idx);
+            if (currentCell != null) {
+                CellValue cell = ImmutableCellValue
+                        .builder()
+                        .name(formattedColumnName)
+                        .value(currentCell.toString())
+                        .build();
 
+                if (isComment && prevCellAddedIdx > -1 && transformedRowValues.get(prevCellAddedIdx) instanceof ImmutableCellValue) {
+                    CellValue previousColumnCell = transformedRowValues.get(prevCellAddedIdx);
+                    CellValue withComment = ImmutableCellValue
+                            .copyOf(previousColumnCell)
+                            .withComment(currentCell.toString());
+                    transformedRowValues.set(prevCellAddedIdx,withComment);
+                } else {
+                    transformedRowValues.add(cell);
                 }
+
             }
-            transformedRow.addAllCells(transformedRowValues);
-            data.add(transformedRow.build());
         }
-
-        return ImmutableGrid.builder()
-                .addAllRows(data)
-                .build();
+        transformedRow.addAllCells(transformedRowValues);
+        return transformedRow.build();
     }
 
 
@@ -148,7 +168,7 @@ public class DynamicJSONFormatter implements DynamicFormatter {
     }
 
 
-    private ObjectMapper createMapper() {
+    private static ObjectMapper createMapper() {
         ObjectMapper mapper = new ObjectMapper();
         return mapper
                 .registerModule(new JavaTimeModule())
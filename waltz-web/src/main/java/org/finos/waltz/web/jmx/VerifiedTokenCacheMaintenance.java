@@ -0,0 +1,99 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.jmx;
+
+import org.finos.waltz.web.endpoints.auth.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+@Component
+@ManagedResource(description = "Statistics and maintenance functions for the verified jwt token cache")
+public class VerifiedTokenCacheMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VerifiedTokenCacheMaintenance.class);
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    public VerifiedTokenCacheMaintenance(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+
+    @ManagedOperation(description = "Discard all cached verifications, forcing every token to be verified again")
+    public void invalidateAll() {
+        LOG.warn("Invalidate verified token cache (via jmx)");
+        verifiedTokenCache.invalidateAll();
+    }
+
+
+    @ManagedAttribute(description = "Number of requests whose token had already been verified")
+    public long getHitCount() {
+        return verifiedTokenCache.getHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of requests which required full token verification")
+    public long getMissCount() {
+        return verifiedTokenCache.getMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of cached verifications discarded because they had expired")
+    public long getExpiredCount() {
+        return verifiedTokenCache.getExpiredCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of explicit invalidations")
+    public long getInvalidationCount() {
+        return verifiedTokenCache.getInvalidationCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of tokens with a cached verification")
+    public int getCachedTokenCount() {
+        return verifiedTokenCache.getCachedTokenCount();
+    }
+
+
+    @ManagedAttribute(description = "Maximum time (ms) a verification is cached for, zero disables caching")
+    public long getTtlMillis() {
+        return verifiedTokenCache.getTtlMillis();
+    }
+
+
+    @ManagedAttribute
+    public void setTtlMillis(long ttlMillis) {
+        LOG.warn("Setting verified token cache ttl to {}ms (via jmx)", ttlMillis);
+        verifiedTokenCache.setTtlMillis(ttlMillis);
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "VerifiedTokenCache";
+    }
+
+}
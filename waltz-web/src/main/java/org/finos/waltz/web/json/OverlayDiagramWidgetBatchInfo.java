@@ -0,0 +1,14 @@
+package org.finos.waltz.web.json;
+
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.aggregate_overlay_diagram.overlay.widget_parameters.OverlayDiagramWidgetBatchParameters;
+import org.immutables.value.Value;
+
+@Value.Immutable
+@JsonSerialize(as = ImmutableOverlayDiagramWidgetBatchInfo.class)
+@JsonDeserialize(as = ImmutableOverlayDiagramWidgetBatchInfo.class)
+public abstract class OverlayDiagramWidgetBatchInfo extends OverlayDiagramWidgetInfo<OverlayDiagramWidgetBatchParameters> {
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web;
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResponseEncoding_fromAcceptHeaderTest {
+
+    @Test
+    public void defaultsToJson() {
+        assertEquals(ResponseEncoding.JSON, ResponseEncoding.fromAcceptHeader(null));
+        assertEquals(ResponseEncoding.JSON, ResponseEncoding.fromAcceptHeader(""));
+        assertEquals(ResponseEncoding.JSON, ResponseEncoding.fromAcceptHeader("*/*"));
+        assertEquals(ResponseEncoding.JSON, ResponseEncoding.fromAcceptHeader("text/html, application/xml"));
+    }
+
+
+    @Test
+    public void picksBinaryEncodings() {
+        assertEquals(ResponseEncoding.SMILE, ResponseEncoding.fromAcceptHeader("application/x-jackson-smile"));
+        assertEquals(ResponseEncoding.CBOR, ResponseEncoding.fromAcceptHeader("application/cbor, */*"));
+    }
+
+
+    @Test
+    public void respectsQualityValues() {
+        assertEquals(
+                ResponseEncoding.CBOR,
+                ResponseEncoding.fromAcceptHeader("application/json;q=0.5, application/cbor"));
+        assertEquals(
+                ResponseEncoding.JSON,
+                ResponseEncoding.fromAcceptHeader("application/cbor;q=0.5, application/json"));
+        assertEquals(
+                ResponseEncoding.JSON,
+                ResponseEncoding.fromAcceptHeader("application/x-jackson-smile;q=0"));
+    }
+
+
+    @Test
+    public void earlierEntriesWinTies() {
+        assertEquals(
+                ResponseEncoding.SMILE,
+                ResponseEncoding.fromAcceptHeader("application/x-jackson-smile, application/cbor, application/json"));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web;
+
+import org.finos.waltz.model.pagination.PageCursor;
+import org.finos.waltz.model.pagination.PageRequest;
+import org.junit.jupiter.api.Test;
+import spark.Request;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebUtilities_getPageRequestTest {
+
+    @Test
+    public void noPageParamsMeansNoPageRequest() {
+        assertFalse(WebUtilities.getPageRequest(mkRequest(null, null)).isPresent());
+    }
+
+
+    @Test
+    public void pageSizeIsRead() {
+        Optional<PageRequest> pageRequest = WebUtilities.getPageRequest(mkRequest("25", null));
+
+        assertTrue(pageRequest.isPresent());
+        assertEquals(25, pageRequest.get().limit());
+        assertFalse(pageRequest.get().after().isPresent());
+    }
+
+
+    @Test
+    public void cursorIsDecoded() {
+        PageCursor cursor = PageCursor.mkCursor("2023-01-01T10:00", 12L);
+
+        Optional<PageRequest> pageRequest = WebUtilities.getPageRequest(mkRequest(null, cursor.encode()));
+
+        assertTrue(pageRequest.isPresent());
+        assertEquals(Optional.of(cursor), pageRequest.get().after());
+    }
+
+
+    @Test
+    public void nonNumericPageSizeIsABadRequest() {
+        IllegalArgumentException e = assertThrows(
+                IllegalArgumentException.class,
+                () -> WebUtilities.getPageRequest(mkRequest("lots", null)));
+
+        assertTrue(e.getMessage().contains("lots"), "message should include the bad value");
+    }
+
+
+    @Test
+    public void outOfRangePageSizeIsABadRequest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> WebUtilities.getPageRequest(mkRequest("0", null)));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> WebUtilities.getPageRequest(mkRequest(String.valueOf(PageRequest.MAX_LIMIT + 1), null)));
+    }
+
+
+    // --- helpers
+
+    private static Request mkRequest(String pageSize, String after) {
+        Request request = mock(Request.class);
+        when(request.queryParams("pageSize")).thenReturn(pageSize);
+        when(request.queryParams("after")).thenReturn(after);
+        return request;
+    }
+
+}
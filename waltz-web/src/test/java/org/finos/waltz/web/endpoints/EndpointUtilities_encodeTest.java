@@ -0,0 +1,185 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.web.HttpHeader;
+import org.finos.waltz.web.ResponseEncoding;
+import org.finos.waltz.web.WebUtilities;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import spark.Request;
+import spark.RequestResponseFactory;
+import spark.Route;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.finos.waltz.common.JacksonUtilities.getCborMapper;
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.common.JacksonUtilities.getSmileMapper;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EndpointUtilities_encodeTest {
+
+    private static final List<EntityReference> REFS = asList(
+            mkRef(EntityKind.APPLICATION, 1L, "App One", "First app", "app-1"),
+            mkRef(EntityKind.ORG_UNIT, 2L, "Org Unit Two"));
+
+    private static final TypeReference<List<EntityReference>> REF_LIST = new TypeReference<List<EntityReference>>() {};
+
+
+    @Test
+    public void jsonRequestsAreLeftForTheTransformer() throws Exception {
+        for (String accept : asList(null, TYPE_JSON, "*/*")) {
+            HttpServletResponse raw = mock(HttpServletResponse.class);
+
+            Object body = handle(EndpointUtilities.wrapListHandler((req, res) -> REFS), accept, raw);
+
+            assertSame(REFS, body, "list result should be returned unchanged for accept: " + accept);
+            verify(raw).setContentType(TYPE_JSON);
+            verify(raw).addHeader(HttpHeader.VARY, HttpHeader.ACCEPT);
+            verify(raw, never()).setContentLength(anyInt());
+            verify(raw, never()).getOutputStream();
+        }
+    }
+
+
+    @Test
+    public void jsonDatumRequestsAreLeftForTheTransformer() throws Exception {
+        EntityReference ref = REFS.get(0);
+
+        for (String accept : asList(null, TYPE_JSON, "*/*")) {
+            HttpServletResponse raw = mock(HttpServletResponse.class);
+
+            Object body = handle(EndpointUtilities.wrapDatumHandler((req, res) -> ref), accept, raw);
+
+            assertSame(ref, body, "datum result should be returned unchanged for accept: " + accept);
+            verify(raw).setContentType(TYPE_JSON);
+            verify(raw, never()).getOutputStream();
+        }
+    }
+
+
+    @Test
+    public void smileListDecodesToTheJsonModel() throws Exception {
+        HttpServletResponse raw = mock(HttpServletResponse.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(raw.getOutputStream()).thenReturn(out);
+
+        Object body = handle(EndpointUtilities.wrapListHandler((req, res) -> REFS), ResponseEncoding.SMILE.contentType(), raw);
+
+        assertNull(body, "binary responses are written directly");
+        assertContentType(raw, ResponseEncoding.SMILE);
+        verify(raw).setContentLength(out.bytes().length);
+        assertEquals(
+                decodeJson(REFS, REF_LIST),
+                getSmileMapper().readValue(out.bytes(), REF_LIST));
+    }
+
+
+    @Test
+    public void cborDatumDecodesToTheJsonModel() throws Exception {
+        EntityReference ref = REFS.get(0);
+        HttpServletResponse raw = mock(HttpServletResponse.class);
+        CapturingOutputStream out = new CapturingOutputStream();
+        when(raw.getOutputStream()).thenReturn(out);
+
+        Object body = handle(EndpointUtilities.wrapDatumHandler((req, res) -> ref), "application/cbor, */*", raw);
+
+        assertNull(body, "binary responses are written directly");
+        assertContentType(raw, ResponseEncoding.CBOR);
+        verify(raw).setContentLength(out.bytes().length);
+        assertEquals(
+                decodeJson(ref, new TypeReference<EntityReference>() {}),
+                getCborMapper().readValue(out.bytes(), EntityReference.class));
+    }
+
+
+    // --- helpers
+
+    private static Object handle(Route route, String accept, HttpServletResponse raw) throws Exception {
+        Request request = mock(Request.class);
+        when(request.headers(HttpHeader.ACCEPT)).thenReturn(accept);
+        return route.handle(request, RequestResponseFactory.create(raw));
+    }
+
+
+    /**
+     * The route sets the json type before choosing the encoding, the binary type must replace it
+     */
+    private static void assertContentType(HttpServletResponse raw, ResponseEncoding encoding) {
+        InOrder inOrder = inOrder(raw);
+        inOrder.verify(raw).setContentType(TYPE_JSON);
+        inOrder.verify(raw).setContentType(encoding.contentType());
+    }
+
+
+    private static <T> T decodeJson(Object result, TypeReference<T> type) throws Exception {
+        ObjectMapper jsonMapper = getJsonMapper();
+        return jsonMapper.readValue(WebUtilities.transformer.render(result), type);
+    }
+
+
+    private static class CapturingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+
+        @Override
+        public void write(int b) throws IOException {
+            bytes.write(b);
+        }
+
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+
+        private byte[] bytes() {
+            return bytes.toByteArray();
+        }
+    }
+
+}
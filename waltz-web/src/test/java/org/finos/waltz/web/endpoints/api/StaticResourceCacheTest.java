@@ -0,0 +1,155 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.finos.waltz.common.IOUtilities.copyStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticResourceCacheTest {
+
+    private static final String INDEX = "<html>\n<head>\n<base href=\"/\" />\n</head>\n<body></body>\n</html>";
+
+    @TempDir
+    Path root;
+
+    private StaticResourceCache cache;
+    private String bundle;
+
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Path staticDir = Files.createDirectories(root.resolve("static"));
+        Files.write(staticDir.resolve("index.html"), INDEX.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("function f").append(i).append("() { return ").append(i).append("; }\n");
+        }
+        bundle = sb.toString();
+        Files.write(staticDir.resolve("app.js"), bundle.getBytes(StandardCharsets.UTF_8));
+        Files.write(staticDir.resolve("tiny.js"), "var x = 1;".getBytes(StandardCharsets.UTF_8));
+        Files.write(staticDir.resolve("logo.png"), new byte[4096]);
+
+        ClassLoader classLoader = new URLClassLoader(new URL[]{root.toUri().toURL()}, null);
+        cache = new StaticResourceCache(classLoader);
+    }
+
+
+    @Test
+    public void resourcesAreLoadedOnceAndShared() {
+        StaticResource first = cache.get("", "/app.js").get();
+        StaticResource second = cache.get("", "/app.js").get();
+
+        assertSame(first, second);
+        assertEquals("static/app.js", first.path());
+        assertArrayEquals(bundle.getBytes(StandardCharsets.UTF_8), first.content());
+    }
+
+
+    @Test
+    public void unknownPathsResolveToIndex() {
+        assertEquals("static/index.html", cache.get("", "/").get().path());
+        assertEquals("static/index.html", cache.get("", "/some/client/route").get().path());
+        assertSame(cache.get("", "/other/route").get(), cache.get("", "/").get());
+    }
+
+
+    @Test
+    public void indexBaseTagReflectsContextPath() {
+        String plain = new String(cache.get("", "/").get().content(), StandardCharsets.UTF_8);
+        String withContext = new String(cache.get("/waltz", "/").get().content(), StandardCharsets.UTF_8);
+
+        assertTrue(plain.contains("<base href=\"/\" />"));
+        assertTrue(withContext.contains("<base href=\"/waltz/\" />"));
+        assertNotEquals(
+                cache.get("", "/").get().etag(),
+                cache.get("/waltz", "/").get().etag());
+    }
+
+
+    @Test
+    public void largeTextResourcesHaveAGzipVariant() throws IOException {
+        StaticResource resource = cache.get("", "/app.js").get();
+
+        byte[] gzipped = resource.gzippedContent().get();
+        assertTrue(gzipped.length < resource.content().length);
+
+        ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        copyStream(new GZIPInputStream(new ByteArrayInputStream(gzipped)), unzipped);
+        assertArrayEquals(resource.content(), unzipped.toByteArray());
+    }
+
+
+    @Test
+    public void smallOrBinaryResourcesAreNotGzipped() {
+        assertFalse(cache.get("", "/tiny.js").get().gzippedContent().isPresent());
+        assertFalse(cache.get("", "/logo.png").get().gzippedContent().isPresent());
+    }
+
+
+    @Test
+    public void htmlIsNotLongLived() {
+        assertFalse(cache.get("", "/").get().isLongLived());
+        assertTrue(cache.get("", "/app.js").get().isLongLived());
+    }
+
+
+    @Test
+    public void etagsAreStrongAndMatchedWeakly() {
+        StaticResource resource = cache.get("", "/app.js").get();
+        String etag = resource.etag();
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertNotEquals(etag, resource.gzippedEtag());
+
+        assertTrue(resource.isMatchedBy(etag));
+        assertTrue(resource.isMatchedBy(resource.gzippedEtag()));
+        assertTrue(resource.isMatchedBy("W/" + etag));
+        assertTrue(resource.isMatchedBy("\"other\", " + etag));
+        assertTrue(resource.isMatchedBy("*"));
+
+        assertFalse(resource.isMatchedBy(null));
+        assertFalse(resource.isMatchedBy("\"other\""));
+        assertFalse(resource.isMatchedBy(cache.get("", "/tiny.js").get().etag()));
+    }
+
+
+    @Test
+    public void nothingIsResolvedWithoutAnIndex() throws IOException {
+        Files.delete(root.resolve("static").resolve("index.html"));
+        assertFalse(new StaticResourceCache(new URLClassLoader(new URL[]{root.toUri().toURL()}, null))
+                .get("", "/unknown")
+                .isPresent());
+    }
+
+}
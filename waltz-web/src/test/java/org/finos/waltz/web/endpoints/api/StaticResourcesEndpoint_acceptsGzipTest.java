@@ -0,0 +1,50 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.finos.waltz.web.endpoints.api.StaticResourcesEndpoint.acceptsGzip;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StaticResourcesEndpoint_acceptsGzipTest {
+
+    @Test
+    public void missingHeader() {
+        assertFalse(acceptsGzip(null));
+        assertFalse(acceptsGzip(""));
+    }
+
+    @Test
+    public void listedCodings() {
+        assertTrue(acceptsGzip("gzip"));
+        assertTrue(acceptsGzip("gzip, deflate, br"));
+        assertTrue(acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(acceptsGzip("*"));
+        assertFalse(acceptsGzip("deflate, br"));
+    }
+
+    @Test
+    public void explicitlyRefused() {
+        assertFalse(acceptsGzip("gzip;q=0"));
+        assertFalse(acceptsGzip("br, gzip; q=0.0"));
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    // jwt dates have second precision
+    private static final long START = System.currentTimeMillis() / 1000 * 1000;
+
+    private final Algorithm algorithm = Algorithm.HMAC512(JWTUtilities.SECRET);
+    private final AtomicLong now = new AtomicLong(START);
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private VerifiedTokenCache cache;
+    private Function<String, DecodedJWT> verifier;
+
+
+    @BeforeEach
+    public void setup() {
+        cache = new VerifiedTokenCache(3, now::get);
+
+        JWTVerifier jwtVerifier = ((JWTVerifier.BaseVerification) JWT
+                .require(algorithm)
+                .withIssuer(JWTUtilities.ISSUER))
+                .build(new TestClock());
+
+        verifier = token -> {
+            verifications.incrementAndGet();
+            return jwtVerifier.verify(token);
+        };
+    }
+
+
+    @Test
+    public void repeatedTokenIsOnlyVerifiedOnce() {
+        String token = mkToken("admin", null);
+
+        assertEquals("admin", cache.getVerifiedSubject(token, verifier));
+        assertEquals("admin", cache.getVerifiedSubject(token, verifier));
+        assertEquals("admin", cache.getVerifiedSubject(token, verifier));
+
+        assertEquals(1, verifications.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+
+    @Test
+    public void tamperedTokenIsRejectedEvenWhenOriginalIsCached() {
+        String token = mkToken("bob", null);
+        cache.getVerifiedSubject(token, verifier);
+
+        String[] parts = token.split("\\.");
+        String forgedClaims = JWT.create()
+                .withIssuer(JWTUtilities.ISSUER)
+                .withSubject("admin")
+                .sign(Algorithm.HMAC512("not-the-secret"))
+                .split("\\.")[1];
+        String tampered = parts[0] + "." + forgedClaims + "." + parts[2];
+
+        assertThrows(JWTVerificationException.class, () -> cache.getVerifiedSubject(tampered, verifier));
+        assertThrows(JWTVerificationException.class, () -> cache.getVerifiedSubject(tampered, verifier));
+        assertEquals(3, verifications.get(), "failed verifications should not be cached");
+        assertEquals(1, cache.getCachedTokenCount());
+    }
+
+
+    @Test
+    public void cachedTokenIsRejectedOnceItExpires() {
+        String token = mkToken("carol", new Date(START + 10_000));
+
+        assertEquals("carol", cache.getVerifiedSubject(token, verifier));
+        now.set(START + 9_999);
+        assertEquals("carol", cache.getVerifiedSubject(token, verifier));
+        assertEquals(1, verifications.get());
+
+        now.set(START + 11_000);
+        assertThrows(JWTVerificationException.class, () -> cache.getVerifiedSubject(token, verifier));
+        assertEquals(2, verifications.get());
+        assertEquals(1, cache.getExpiredCount());
+        assertEquals(0, cache.getCachedTokenCount());
+    }
+
+
+    @Test
+    public void tokensWithoutExpiryAreReverifiedAfterTtl() {
+        cache.setTtlMillis(1_000);
+        String token = mkToken("dave", null);
+
+        cache.getVerifiedSubject(token, verifier);
+        now.set(START + 500);
+        cache.getVerifiedSubject(token, verifier);
+        assertEquals(1, verifications.get());
+
+        now.set(START + 1_000);
+        cache.getVerifiedSubject(token, verifier);
+        assertEquals(2, verifications.get());
+    }
+
+
+    @Test
+    public void zeroTtlDisablesCaching() {
+        cache.setTtlMillis(0);
+        String token = mkToken("erin", null);
+
+        cache.getVerifiedSubject(token, verifier);
+        cache.getVerifiedSubject(token, verifier);
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.getCachedTokenCount());
+    }
+
+
+    @Test
+    public void cacheIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            cache.getVerifiedSubject(mkToken("user" + i, null), verifier);
+            assertTrue(cache.getCachedTokenCount() <= 3);
+        }
+        assertEquals(10, verifications.get());
+    }
+
+
+    // --- helpers
+
+    private String mkToken(String subject, Date expiresAt) {
+        JWTCreator.Builder builder = JWT.create()
+                .withIssuer(JWTUtilities.ISSUER)
+                .withSubject(subject);
+
+        if (expiresAt != null) {
+            builder.withExpiresAt(expiresAt);
+        }
+
+        return builder.sign(algorithm);
+    }
+
+
+    /**
+     * Lets the verifier see the same time as the cache
+     */
+    private class TestClock extends Clock {
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now.get());
+        }
+    }
+
+}
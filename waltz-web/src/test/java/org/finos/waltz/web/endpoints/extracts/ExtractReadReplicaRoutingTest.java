@@ -0,0 +1,147 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.extracts;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.finos.waltz.data.ReadOnlyDsl;
+import org.finos.waltz.data.ReadYourWritesTracker;
+import org.finos.waltz.service.read_replica.ReadReplicaService;
+import org.finos.waltz.service.settings.SettingsService;
+import org.finos.waltz.web.endpoints.auth.AuthenticationUtilities;
+import org.finos.waltz.web.endpoints.auth.JWTAuthenticationFilter;
+import org.finos.waltz.web.endpoints.auth.JWTUtilities;
+import org.finos.waltz.web.endpoints.auth.ReadReplicaUserFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spark.Filter;
+import spark.Request;
+import spark.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExtractReadReplicaRoutingTest {
+
+    private final Response response = mock(Response.class);
+
+    private ReadYourWritesTracker tracker;
+    private Filter authenticationFilter;
+    private Filter bindUser;
+
+
+    @BeforeEach
+    public void setup() {
+        tracker = new ReadYourWritesTracker(30);
+        authenticationFilter = new JWTAuthenticationFilter(mock(SettingsService.class));
+        bindUser = new ReadReplicaUserFilter(
+                authenticationFilter,
+                new ReadReplicaService(mock(ReadOnlyDsl.class), tracker));
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        tracker.unbindUser();
+    }
+
+
+    @Test
+    public void extractRightAfterAWriteGoesToThePrimary() throws Exception {
+        writeAs("someone");
+
+        // data-extract requests are not seen by the authentication filter
+        Request extractRequest = mkRequest(mkToken("someone"));
+        bindUser.handle(extractRequest, response);
+
+        assertEquals("someone", AuthenticationUtilities.getUsername(extractRequest));
+        assertTrue(tracker.hasRecentlyWritten(), "the extract should read from the primary");
+    }
+
+
+    @Test
+    public void extractsByOtherUsersUseTheReplica() throws Exception {
+        writeAs("someone");
+
+        bindUser.handle(mkRequest(mkToken("someone_else")), response);
+        assertFalse(tracker.hasRecentlyWritten());
+
+        bindUser.handle(mkRequest(null), response);
+        assertFalse(tracker.hasRecentlyWritten(), "anonymous extracts use the replica");
+    }
+
+
+    @Test
+    public void usersAlreadyAuthenticatedAreNotReauthenticated() throws Exception {
+        Request apiRequest = mkRequest(null);
+        AuthenticationUtilities.setUser(apiRequest, "someone");
+
+        bindUser.handle(apiRequest, response);
+
+        assertEquals("someone", AuthenticationUtilities.getUsername(apiRequest));
+    }
+
+
+    // --- helpers
+
+    /**
+     * An api request (already authenticated) which writes, as recorded by the
+     * write listener on the primary database
+     */
+    private void writeAs(String userId) throws Exception {
+        Request apiRequest = mkRequest(mkToken(userId));
+        authenticationFilter.handle(apiRequest, response);
+        bindUser.handle(apiRequest, response);
+        tracker.recordWrite();
+        tracker.unbindUser();
+    }
+
+
+    private static Request mkRequest(String token) {
+        Map<String, Object> attributes = new HashMap<>();
+        Request request = mock(Request.class);
+
+        when(request.headers("Authorization")).thenReturn(token == null ? null : "Bearer " + token);
+        when(request.attribute(anyString())).thenAnswer(inv -> attributes.get(inv.<String>getArgument(0)));
+        doAnswer(inv -> attributes.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(request)
+                .attribute(anyString(), any());
+
+        return request;
+    }
+
+
+    private static String mkToken(String userId) {
+        return JWT.create()
+                .withIssuer(JWTUtilities.ISSUER)
+                .withSubject(userId)
+                .sign(Algorithm.HMAC512(JWTUtilities.SECRET));
+    }
+
+}
@@ -0,0 +1,434 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.extracts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.ImmutableReportGrid;
+import org.finos.waltz.model.report_grid.ImmutableReportGridCell;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGrid;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ReportSubject;
+import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.service.settings.SettingsService;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicCommaSeperatedValueFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicExcelFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.DynamicJSONFormatter;
+import org.finos.waltz.web.endpoints.extracts.reportgrid.FormatterUtils;
+import org.finos.waltz.web.json.ApiTypes;
+import org.finos.waltz.web.json.ImmutableCellValue;
+import org.finos.waltz.web.json.ImmutableGrid;
+import org.finos.waltz.web.json.ImmutableReportGridJSON;
+import org.finos.waltz.web.json.ImmutableRow;
+import org.finos.waltz.web.json.KeyCell;
+import org.finos.waltz.web.json.ReportGridJSON;
+import org.finos.waltz.web.json.Row;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.concat;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.service.report_grid.ReportGridColumnCalculator.calculate;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Report grid exports are streamed a row at a time, with derived columns calculated per row.
+ * These tests check the output is the same as when the whole grid was materialised first.
+ */
+public class ReportGridExtractorTest {
+
+    // more rows than the xlsx streaming window, so rows are flushed to disk as they are written
+    private static final int SUBJECT_COUNT = 250;
+
+    private static final long RATING_COL_ID = 1L;
+    private static final long NOTES_COL_ID = 2L;
+    private static final long HAS_RATING_COL_ID = 3L;
+    private static final long RATING_OR_NOTES_COL_ID = 4L;
+    private static final long DEPENDENT_COL_ID = 5L;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new Jdk8Module())
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+    private final FormatterUtils formatterUtils = new FormatterUtils();
+    private final SettingsService settingsService = mock(SettingsService.class);
+
+    private ReportGridExtractor extractor;
+    private ReportGrid grid;
+    private List<Tuple2<ReportGridFixedColumnDefinition, ColumnCommentary>> columnDefinitions;
+
+
+    @BeforeEach
+    public void setup() {
+        when(settingsService.getValue(SettingsService.ALLOW_COST_EXPORTS_KEY)).thenReturn(Optional.empty());
+
+        extractor = new ReportGridExtractor(
+                new DynamicCommaSeperatedValueFormatter(formatterUtils),
+                new DynamicExcelFormatter(formatterUtils),
+                new DynamicJSONFormatter(formatterUtils),
+                mock(ReportGridService.class),
+                settingsService);
+
+        grid = mkGrid();
+
+        columnDefinitions = grid
+                .definition()
+                .fixedColumnDefinitions()
+                .stream()
+                .map(cd -> tuple(
+                        cd,
+                        cd.gridColumnId() == RATING_COL_ID
+                                ? ColumnCommentary.HAS_COMMENTARY
+                                : ColumnCommentary.NO_COMMENTARY))
+                .collect(toList());
+    }
+
+
+    @Test
+    public void streamedRowsMatchMaterialisedRows() {
+        List<Tuple2<ReportSubject, ArrayList<Object>>> streamed = streamRows().collect(toList());
+
+        assertEquals(SUBJECT_COUNT, streamed.size());
+        assertEquals(mkMaterialisedRows(), streamed);
+    }
+
+
+    @Test
+    public void csvMatchesMaterialisedOutput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DynamicCommaSeperatedValueFormatter(formatterUtils).format("test", grid, columnDefinitions, streamRows(), out);
+
+        StringWriter expected = new StringWriter();
+        CsvListWriter csvWriter = new CsvListWriter(expected, CsvPreference.EXCEL_PREFERENCE);
+        csvWriter.write(mkHeaders());
+        for (Tuple2<ReportSubject, ArrayList<Object>> row : mkMaterialisedRows()) {
+            csvWriter.write(withSubjectInfo(row));
+        }
+        csvWriter.flush();
+
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    public void xlsxMatchesMaterialisedOutput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DynamicExcelFormatter(formatterUtils).format("test", grid, columnDefinitions, streamRows(), out);
+
+        List<String> headers = mkHeaders();
+        List<List<String>> expected = new ArrayList<>();
+        expected.add(headers);
+        mkMaterialisedRows().forEach(row -> expected.add(withSubjectInfo(row)
+                .stream()
+                .map(v -> v == null ? "" : v.toString())
+                .collect(toList())));
+
+        assertEquals(expected, readSheet(out.toByteArray(), headers.size()));
+    }
+
+
+    @Test
+    public void jsonMatchesSerialisedReportGridJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DynamicJSONFormatter(formatterUtils).format("test", grid, columnDefinitions, streamRows(), out);
+
+        ReportGridJSON expected = ImmutableReportGridJSON
+                .builder()
+                .id("TEST_GRID")
+                .apiTypes(new ApiTypes())
+                .name(grid.definition().name())
+                .grid(ImmutableGrid
+                        .builder()
+                        .addAllRows(mkMaterialisedRows()
+                                .stream()
+                                .map(ReportGridExtractorTest::toJsonRow)
+                                .collect(toList()))
+                        .build())
+                .build();
+
+        assertEquals(
+                MAPPER.readTree(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(expected)),
+                MAPPER.readTree(out.toByteArray()));
+    }
+
+
+    // --- helpers
+
+    private Stream<Tuple2<ReportSubject, ArrayList<Object>>> streamRows() {
+        return extractor.prepareReportRows(
+                grid.definition(),
+                columnDefinitions,
+                grid.instance());
+    }
+
+
+    /**
+     * Rows as they were laid out before exports were streamed: derived cells calculated for
+     * the whole grid up front, every row built, then sorted by subject name.
+     */
+    private List<Tuple2<ReportSubject, ArrayList<Object>>> mkMaterialisedRows() {
+        Map<Long, Collection<ReportGridCell>> cellsBySubject = groupBy(
+                union(grid.instance().cellData(), calculate(grid.instance(), grid.definition())),
+                ReportGridCell::subjectId);
+
+        return grid
+                .instance()
+                .subjects()
+                .stream()
+                .map(subject -> {
+                    Map<Long, ReportGridCell> cellsByColumn = indexBy(
+                            cellsBySubject.getOrDefault(subject.entityReference().id(), emptySet()),
+                            ReportGridCell::columnDefinitionId);
+
+                    ReportGridCell rating = cellsByColumn.get(RATING_COL_ID);
+                    ReportGridCell notes = cellsByColumn.get(NOTES_COL_ID);
+
+                    ArrayList<Object> values = new ArrayList<>(Arrays.asList(
+                            rating == null ? null : rating.textValue(),
+                            rating == null ? null : rating.comment(),
+                            notes == null ? null : notes.textValue(),
+                            derivedValue(cellsByColumn.get(HAS_RATING_COL_ID)),
+                            derivedValue(cellsByColumn.get(RATING_OR_NOTES_COL_ID)),
+                            derivedValue(cellsByColumn.get(DEPENDENT_COL_ID))));
+
+                    return tuple(subject, values);
+                })
+                .sorted(Comparator.comparing(t -> t.v1.entityReference().name().get()))
+                .collect(toList());
+    }
+
+
+    private static Object derivedValue(ReportGridCell cell) {
+        return cell == null
+                ? null
+                : Optional.ofNullable(cell.textValue()).orElse(cell.errorValue());
+    }
+
+
+    private List<String> mkHeaders() {
+        return formatterUtils.mkHeaderStrings(columnDefinitions, grid.definition().derivedColumnDefinitions());
+    }
+
+
+    private static List<Object> withSubjectInfo(Tuple2<ReportSubject, ArrayList<Object>> row) {
+        List<Object> subjectInfo = asList(
+                row.v1.entityReference().id(),
+                row.v1.entityReference().name().get(),
+                row.v1.entityReference().externalId().orElse(null),
+                row.v1.lifecyclePhase().name());
+
+        return concat(subjectInfo, row.v2);
+    }
+
+
+    /**
+     * The rating comment is folded into the rating cell, empty cells are omitted
+     */
+    private static Row toJsonRow(Tuple2<ReportSubject, ArrayList<Object>> row) {
+        List<Object> values = row.v2;
+        ImmutableRow.Builder jsonRow = ImmutableRow
+                .builder()
+                .id(KeyCell.fromSubject(row.v1));
+
+        if (values.get(0) != null) {
+            jsonRow.addCells(ImmutableCellValue
+                    .builder()
+                    .name("Rating")
+                    .value(values.get(0).toString())
+                    .comment(Optional.ofNullable(values.get(1)).map(Object::toString))
+                    .build());
+        }
+
+        List<String> otherNames = asList("Notes", "Has Rating", "Rating Or Notes", "Dependent");
+        for (int i = 0; i < otherNames.size(); i++) {
+            Object value = values.get(i + 2);
+            if (value != null) {
+                jsonRow.addCells(ImmutableCellValue
+                        .builder()
+                        .name(otherNames.get(i))
+                        .value(value.toString())
+                        .build());
+            }
+        }
+
+        return jsonRow.build();
+    }
+
+
+    private static List<List<String>> readSheet(byte[] xlsx, int columnCount) throws IOException {
+        DataFormatter formatter = new DataFormatter();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(xlsx))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            List<List<String>> rows = new ArrayList<>();
+            for (int r = 0; r <= sheet.getLastRowNum(); r++) {
+                List<String> values = new ArrayList<>();
+                for (int c = 0; c < columnCount; c++) {
+                    values.add(formatter.formatCellValue(sheet.getRow(r).getCell(c)));
+                }
+                rows.add(values);
+            }
+            return rows;
+        }
+    }
+
+
+    /**
+     * Subject names are not in id order, so the export has to sort them.  Some ratings have
+     * comments (including characters which need escaping) and some subjects have no cells.
+     */
+    private static ReportGrid mkGrid() {
+        List<ReportSubject> subjects = new ArrayList<>();
+        Set<ReportGridCell> cells = new HashSet<>();
+
+        for (long i = 0; i < SUBJECT_COUNT; i++) {
+            subjects.add(ImmutableReportSubject
+                    .builder()
+                    .entityReference(mkRef(
+                            EntityKind.APPLICATION,
+                            i,
+                            format("App %03d Zürich", (i * 37) % SUBJECT_COUNT),
+                            null,
+                            i % 7 == 0 ? null : "APP-" + i))
+                    .lifecyclePhase(i % 2 == 0 ? LifecyclePhase.PRODUCTION : LifecyclePhase.DEVELOPMENT)
+                    .build());
+
+            if (i % 3 != 0) {
+                cells.add(ImmutableReportGridCell
+                        .builder()
+                        .subjectId(i)
+                        .columnDefinitionId(RATING_COL_ID)
+                        .textValue("R" + (i % 4))
+                        .comment(i % 2 == 0 ? format("comment, \"%d\"", i) : null)
+                        .build());
+            }
+
+            if (i % 5 == 0) {
+                cells.add(ImmutableReportGridCell
+                        .builder()
+                        .subjectId(i)
+                        .columnDefinitionId(NOTES_COL_ID)
+                        .textValue("note " + i)
+                        .build());
+            }
+        }
+
+        List<ReportGridFixedColumnDefinition> fixedColumns = asList(
+                mkFixedColumn(RATING_COL_ID, "Rating", "RATING", 0),
+                mkFixedColumn(NOTES_COL_ID, "Notes", "NOTES", 1));
+
+        List<ReportGridDerivedColumnDefinition> derivedColumns = asList(
+                mkDerivedColumn(HAS_RATING_COL_ID, "Has Rating", 2, "anyCellsProvided('RATING') ? mkResult('yes') : mkResult('no')"),
+                mkDerivedColumn(RATING_OR_NOTES_COL_ID, "Rating Or Notes", 3, "coalesceCells('RATING', 'NOTES')"),
+                mkDerivedColumn(DEPENDENT_COL_ID, "Dependent", 4, "cell('HAS_RATING') == null ? null : mkResult('dependent')"));
+
+        return ImmutableReportGrid
+                .builder()
+                .definition(ImmutableReportGridDefinition
+                        .builder()
+                        .id(1L)
+                        .name("Test grid")
+                        .externalId("TEST_GRID")
+                        .subjectKind(EntityKind.APPLICATION)
+                        .lastUpdatedAt(LocalDateTime.of(2020, 1, 1, 0, 0))
+                        .lastUpdatedBy("test")
+                        .fixedColumnDefinitions(fixedColumns)
+                        .derivedColumnDefinitions(derivedColumns)
+                        .build())
+                .instance(ImmutableReportGridInstance
+                        .builder()
+                        .subjects(subjects)
+                        .cellData(cells)
+                        .build())
+                .build();
+    }
+
+
+    private static ReportGridFixedColumnDefinition mkFixedColumn(long id, String name, String externalId, int position) {
+        return ImmutableReportGridFixedColumnDefinition
+                .builder()
+                .id(id)
+                .gridColumnId(id)
+                .columnEntityKind(EntityKind.MEASURABLE)
+                .columnEntityId(id)
+                .columnName(name)
+                .externalId(externalId)
+                .position(position)
+                .build();
+    }
+
+
+    private static ReportGridDerivedColumnDefinition mkDerivedColumn(long id, String name, int position, String script) {
+        return ImmutableReportGridDerivedColumnDefinition
+                .builder()
+                .id(id)
+                .gridColumnId(id)
+                .displayName(name)
+                .externalId(name.toUpperCase().replace(' ', '_'))
+                .position(position)
+                .derivationScript(script)
+                .build();
+    }
+
+}